@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session;
@@ -52,6 +53,7 @@ import org.forgerock.api.enums.QueryType;
 import org.forgerock.http.header.CookieHeader;
 import org.forgerock.json.JsonValue;
 import org.forgerock.json.resource.ActionRequest;
+import org.forgerock.json.resource.AdviceContext;
 import org.forgerock.json.resource.ActionResponse;
 import org.forgerock.json.resource.BadRequestException;
 import org.forgerock.json.resource.CollectionResourceProvider;
@@ -80,6 +82,8 @@ import org.forgerock.openam.core.rest.session.action.IsActiveActionHandler;
 import org.forgerock.openam.core.rest.session.action.LogoutActionHandler;
 import org.forgerock.openam.core.rest.session.action.SetPropertyActionHandler;
 import org.forgerock.openam.core.rest.session.action.ValidateActionHandler;
+import org.forgerock.openam.core.rest.session.query.SessionQueryResult;
+import org.forgerock.openam.core.rest.session.query.SessionQueryResultHandler;
 import org.forgerock.openam.rest.RestUtils;
 import org.forgerock.openam.session.SessionConstants;
 import org.forgerock.openam.session.SessionPropertyWhitelist;
@@ -153,6 +157,12 @@ public class SessionResource implements CollectionResourceProvider {
     public static final String KEYWORD_LIST = "list";
     public static final String KEYWORD_SERVER_ID = "serverId";
 
+    /**
+     * Response header listing the ids of the servers which did not respond to a sessions query, whose sessions
+     * are therefore missing from the results.
+     */
+    public static final String UNAVAILABLE_SERVERS_HEADER = "X-OpenAM-Unavailable-Servers";
+
     private final SessionResourceUtil sessionResourceUtil;
     public static final String TOKEN_ID = "tokenId";
     private final String ALL_QUERY_ID = "all";
@@ -735,27 +745,45 @@ public class SessionResource implements CollectionResourceProvider {
             handler.handleResource(newResourceResponse(KEYWORD_LIST, String.valueOf(currentTimeMillis()),
                     new JsonValue(servers)));
         } else {
-            Collection<SessionInfo> sessions;
+            SessionQueryResultHandler sessionHandler = new SessionQueryResultHandler() {
+                @Override
+                public void handleSession(SessionInfo session) {
+                    handler.handleResource(newResourceResponse("Sessions", String.valueOf(currentTimeMillis()),
+                            sessionResourceUtil.jsonValueOf(session)));
+                }
+            };
+            SessionQueryResult result;
 
             if (KEYWORD_ALL.equals(id)) {
-                sessions = sessionResourceUtil.generateAllSessions();
+                result = sessionResourceUtil.queryAllSessions(sessionHandler);
                 LOGGER.message("SessionResource.queryCollection() :: Retrieved list of sessions for query.");
             } else {
                 if (SERVER_QUERY_ID.equals(id)) {
                     id = request.getAdditionalParameter(KEYWORD_SERVER_ID);
                 }
-                sessions = sessionResourceUtil.generateNamedServerSession(id);
+                result = sessionResourceUtil.queryNamedServerSessions(id, sessionHandler);
                 LOGGER.message("SessionResource.queryCollection() :: Retrieved list of specified servers for query.");
             }
 
-            for (SessionInfo session : sessions) {
-                handler.handleResource(newResourceResponse("Sessions", String.valueOf(currentTimeMillis()),
-                        sessionResourceUtil.jsonValueOf(session)));
+            if (!result.isComplete()) {
+                reportUnavailableServers(context, result.getUnavailableServerIds());
             }
         }
         return newResultPromise(newQueryResponse());
     }
 
+    /**
+     * Lists the servers which did not respond in the {@link #UNAVAILABLE_SERVERS_HEADER} header of the response, so
+     * that clients can tell the results are partial.
+     */
+    private void reportUnavailableServers(Context context, Collection<String> serverIds) {
+        if (context == null || !context.containsContext(AdviceContext.class)) {
+            LOGGER.warning("SessionResource.queryCollection() :: No AdviceContext, unable to report partial results");
+            return;
+        }
+        context.asContext(AdviceContext.class).putAdvice(UNAVAILABLE_SERVERS_HEADER, String.join(",", serverIds));
+    }
+
     /**
      * Perform a read operation against a named session.
      *
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session;
@@ -35,6 +36,8 @@ import com.sun.identity.shared.debug.Debug;
 import com.sun.identity.sm.DNMapper;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.core.rest.session.query.SessionQueryManager;
+import org.forgerock.openam.core.rest.session.query.SessionQueryResult;
+import org.forgerock.openam.core.rest.session.query.SessionQueryResultHandler;
 import org.forgerock.openam.session.SessionConstants;
 import org.forgerock.openam.utils.StringUtils;
 
@@ -121,27 +124,29 @@ public class SessionResourceUtil {
 
     /**
      * @param serverId Server to query.
-     * @return A non null collection of SessionInfos from the named server.
+     * @param handler Non null handler to receive the sessions of the named server.
+     * @return A non null description of the query outcome, including whether the server responded.
      */
-    public Collection<SessionInfo> generateNamedServerSession(String serverId) {
+    public SessionQueryResult queryNamedServerSessions(String serverId, SessionQueryResultHandler handler) {
         List<String> serverList = Arrays.asList(new String[]{serverId});
-        Collection<SessionInfo> sessions = queryManager.getAllSessions(serverList);
+        SessionQueryResult result = queryManager.querySessions(serverList, handler);
         if (LOGGER.messageEnabled()) {
-            LOGGER.message("SessionResource.generateNmaedServerSession :: retrieved session list for server, " +
+            LOGGER.message("SessionResource.queryNamedServerSessions :: retrieved session list for server, " +
                     serverId);
         }
-        return sessions;
+        return result;
     }
 
     /**
-     * @return A non null collection of SessionInfo instances queried across all servers.
+     * @param handler Non null handler to receive the sessions queried across all servers.
+     * @return A non null description of the query outcome, including the servers which did not respond.
      */
-    public Collection<SessionInfo> generateAllSessions() {
-        Collection<SessionInfo> sessions = queryManager.getAllSessions(getAllServerIds());
+    public SessionQueryResult queryAllSessions(SessionQueryResultHandler handler) {
+        SessionQueryResult result = queryManager.querySessions(getAllServerIds(), handler);
         if (LOGGER.messageEnabled()) {
-            LOGGER.message("SessionResource.generateNmaedServerSession :: retrieved session list for all servers.");
+            LOGGER.message("SessionResource.queryAllSessions :: retrieved session list for all servers.");
         }
-        return sessions;
+        return result;
     }
 
     /**
@@ -12,42 +12,80 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session.query;
 
-import com.iplanet.dpro.session.share.SessionInfo;
-import com.sun.identity.shared.debug.Debug;
-
-import javax.inject.Inject;
 import java.text.MessageFormat;
+import java.util.ArrayList;
 import java.util.Collection;
-import java.util.LinkedList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
+import org.forgerock.util.annotations.VisibleForTesting;
+
+import com.iplanet.dpro.session.service.SessionServiceConfig;
+import com.iplanet.dpro.session.share.SessionInfo;
+import com.sun.identity.shared.debug.Debug;
 
 /**
  * Provides the ability to query a collection of OpenAM servers for Session information. Uses the
  * SessionQueryFactory to determine the most appropriate mechanism for performing the query and handles any
  * complexity around querying Sessions.
  *
+ * Servers are queried in parallel. Each server is given the session retrieval timeout to respond, and servers
+ * that fail or do not respond in time are reported in the {@link SessionQueryResult} rather than delaying the
+ * whole query. Results are merged as each server responds, and sessions returned by more than one server are
+ * only reported once. The session list size limit is passed to each server and applied to the merged results.
+ *
  * This manager should easily be expanded to support new functions like 'Session Count' or 'Get Sessions for User'.
  *
  * @author robert.wapshott@forgerock.com
  */
+@Singleton
 public class SessionQueryManager {
 
     private static Debug debug = Debug.getInstance("frRest");
 
-    private SessionQueryFactory queryFactory;
+    private final SessionQueryFactory queryFactory;
+    private final ExecutorService executorService;
+    private final SessionServiceConfig serviceConfig;
 
     /**
-     * Intialise the SessionQueryManager and provide the OpenAM server ids that it should apply to.
+     * Intialise the SessionQueryManager.
      *
      * @param queryFactory Non null instance.
+     * @param executorServiceFactory Used to create the pool on which servers are queried.
+     * @param serviceConfig Provides the session retrieval timeout and session list size limit.
      */
     @Inject
-    public SessionQueryManager(SessionQueryFactory queryFactory) {
+    public SessionQueryManager(SessionQueryFactory queryFactory, AMExecutorServiceFactory executorServiceFactory,
+            SessionServiceConfig serviceConfig) {
+        this(queryFactory, executorServiceFactory.createCachedThreadPool("SessionQueryManager"), serviceConfig);
+    }
+
+    @VisibleForTesting
+    SessionQueryManager(SessionQueryFactory queryFactory, ExecutorService executorService,
+            SessionServiceConfig serviceConfig) {
         this.queryFactory = queryFactory;
+        this.executorService = executorService;
+        this.serviceConfig = serviceConfig;
     }
 
     /**
@@ -57,28 +95,124 @@ public class SessionQueryManager {
      *                  {@link com.iplanet.services.naming.WebtopNaming#getAllServerIDs()} which will provide all
      *                  server id's known to OpenAM.
      *
-     * @return Returns all sessions across all servers.
+     * @return Returns all sessions across all servers that responded in time.
      */
     public Collection<SessionInfo> getAllSessions(Collection<String> serverIds) {
-        // impl note, this could be a Map of Server -> Sessions
+        final List<SessionInfo> sessions = new ArrayList<SessionInfo>();
+        SessionQueryResult result = querySessions(serverIds, new SessionQueryResultHandler() {
+            @Override
+            public void handleSession(SessionInfo session) {
+                sessions.add(session);
+            }
+        });
+
+        if (!result.isComplete()) {
+            debug.warning(MessageFormat.format(
+                    "SessionQueryManager#getAllSessions() :: Returning partial results, no response from: {0}",
+                    result.getUnavailableServerIds()));
+        }
+
+        return sessions;
+    }
 
-        List<SessionInfo> sessions = new LinkedList<SessionInfo>();
+    /**
+     * Query all the given servers in parallel, passing each distinct session to the handler as the servers
+     * respond.
+     *
+     * @param serverIds One or more server id's.
+     * @param handler Non null handler to receive the sessions. Always called on the calling thread.
+     * @return A non null description of the query outcome, including the servers which did not respond.
+     */
+    public SessionQueryResult querySessions(Collection<String> serverIds, SessionQueryResultHandler handler) {
+        final int sizeLimit = serviceConfig.getMaxSessionListSize();
+        final long deadline = System.nanoTime()
+                + TimeUnit.SECONDS.toNanos(serviceConfig.getSessionRetrievalTimeout());
+
+        CompletionService<Collection<SessionInfo>> completionService =
+                new ExecutorCompletionService<Collection<SessionInfo>>(executorService);
+        Map<Future<Collection<SessionInfo>>, String> pending = new HashMap<>();
+        Set<String> unavailable = new HashSet<>();
+
+        for (String server : new HashSet<>(serverIds)) {
+            try {
+                pending.put(completionService.submit(new ServerQuery(server, sizeLimit)), server);
+            } catch (RejectedExecutionException e) {
+                debug.warning("SessionQueryManager#querySessions() :: Unable to query " + server, e);
+                unavailable.add(server);
+            }
+        }
 
-        for (String server : serverIds) {
-            SessionQueryType queryType = queryFactory.getSessionQueryType(server);
+        Set<String> seen = new HashSet<>();
+        int count = 0;
+        boolean sizeLimitExceeded = false;
+        try {
+            while (!pending.isEmpty() && !sizeLimitExceeded) {
+                long remaining = deadline - System.nanoTime();
+                Future<Collection<SessionInfo>> future = remaining > 0
+                        ? completionService.poll(remaining, TimeUnit.NANOSECONDS) : completionService.poll();
+                if (future == null) {
+                    break;
+                }
+                String server = pending.remove(future);
+                Collection<SessionInfo> queriedSessions;
+                try {
+                    queriedSessions = future.get();
+                } catch (ExecutionException e) {
+                    debug.warning("SessionQueryManager#querySessions() :: Failed to query " + server, e.getCause());
+                    unavailable.add(server);
+                    continue;
+                }
 
-            Collection<SessionInfo> queriedSessions = queryType.getAllSessions();
+                if (debug.messageEnabled()) {
+                    debug.message(MessageFormat.format(
+                            "SessionQueryManager#querySessions() :: Queried {0} from: {1}",
+                            queriedSessions.size(),
+                            server));
+                }
 
-            if (debug.messageEnabled()) {
-                debug.message(MessageFormat.format(
-                        "SessionQueryManager#getAllSessions() :: Queried {0} from: {1}",
-                        queriedSessions.size(),
-                        server));
+                for (SessionInfo session : queriedSessions) {
+                    String sessionId = session.getSessionID();
+                    if (sessionId != null && !seen.add(sessionId)) {
+                        continue;
+                    }
+                    if (sizeLimit > 0 && count >= sizeLimit) {
+                        sizeLimitExceeded = true;
+                        break;
+                    }
+                    handler.handleSession(session);
+                    count++;
+                }
             }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
 
-            sessions.addAll(queriedSessions);
+        if (!sizeLimitExceeded) {
+            unavailable.addAll(pending.values());
+        }
+        for (Future<Collection<SessionInfo>> future : pending.keySet()) {
+            future.cancel(true);
         }
 
-        return sessions;
+        return new SessionQueryResult(count, sizeLimitExceeded, unavailable);
+    }
+
+    /**
+     * Queries a single server for its sessions.
+     */
+    private final class ServerQuery implements Callable<Collection<SessionInfo>> {
+
+        private final String server;
+        private final int sizeLimit;
+
+        private ServerQuery(String server, int sizeLimit) {
+            this.server = server;
+            this.sizeLimit = sizeLimit;
+        }
+
+        @Override
+        public Collection<SessionInfo> call() throws Exception {
+            return queryFactory.getSessionQueryType(server).getSessions(sizeLimit);
+        }
     }
 }
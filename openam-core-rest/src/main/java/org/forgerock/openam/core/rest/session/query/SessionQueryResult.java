@@ -0,0 +1,65 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.core.rest.session.query;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Describes the outcome of a cluster-wide session query. The sessions themselves are passed to a
+ * {@link SessionQueryResultHandler} as they arrive.
+ */
+public final class SessionQueryResult {
+
+    private final int sessionCount;
+    private final boolean sizeLimitExceeded;
+    private final Set<String> unavailableServerIds;
+
+    SessionQueryResult(int sessionCount, boolean sizeLimitExceeded, Set<String> unavailableServerIds) {
+        this.sessionCount = sessionCount;
+        this.sizeLimitExceeded = sizeLimitExceeded;
+        this.unavailableServerIds = Collections.unmodifiableSet(unavailableServerIds);
+    }
+
+    /**
+     * @return The number of distinct sessions passed to the handler.
+     */
+    public int getSessionCount() {
+        return sessionCount;
+    }
+
+    /**
+     * @return True if more sessions were found than the configured size limit allows.
+     */
+    public boolean isSizeLimitExceeded() {
+        return sizeLimitExceeded;
+    }
+
+    /**
+     * @return The ids of the servers that failed or did not respond before the timeout.
+     */
+    public Set<String> getUnavailableServerIds() {
+        return unavailableServerIds;
+    }
+
+    /**
+     * @return True if every server responded in time.
+     */
+    public boolean isComplete() {
+        return unavailableServerIds.isEmpty();
+    }
+}
@@ -0,0 +1,35 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.core.rest.session.query;
+
+import com.iplanet.dpro.session.share.SessionInfo;
+
+/**
+ * Receives the sessions returned by a cluster-wide session query as each server responds.
+ *
+ * @see SessionQueryManager#querySessions(java.util.Collection, SessionQueryResultHandler)
+ */
+public interface SessionQueryResultHandler {
+
+    /**
+     * Handle a session returned by the query. Each session is passed to the handler at most once, even when it
+     * is returned by more than one server.
+     *
+     * @param session Non null session.
+     */
+    void handleSession(SessionInfo session);
+}
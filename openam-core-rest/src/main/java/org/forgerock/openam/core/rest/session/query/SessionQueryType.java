@@ -12,10 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session.query;
 
+import com.iplanet.dpro.session.SessionException;
 import com.iplanet.dpro.session.share.SessionInfo;
 
 import java.util.Collection;
@@ -34,4 +36,13 @@ public interface SessionQueryType {
      * @return Non null but possibly empty collection of Sessions.
      */
     public Collection<SessionInfo> getAllSessions();
+
+    /**
+     * Query a server and return at most the given number of the Sessions that are stored on the server.
+     *
+     * @param sizeLimit The maximum number of Sessions to return, or 0 to apply only the server's own limit.
+     * @return Non null but possibly empty collection of Sessions.
+     * @throws SessionException If the server could not be queried.
+     */
+    public Collection<SessionInfo> getSessions(int sizeLimit) throws SessionException;
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session.query.impl;
@@ -71,30 +72,44 @@ public class RemoteSessionQuery implements SessionQueryType {
      *          also return no sessions.
      */
     public Collection<SessionInfo> getAllSessions() {
-        List<SessionInfo> sessions = new LinkedList<SessionInfo>();
-
         try {
-            URL svcurl = sessionServiceUrlService.getSessionServiceURL(serverId);
-            SSOToken adminToken = getAdminToken();
-            String sid = adminToken.getTokenID().toString();
+            return getSessions(0);
+        } catch (SessionException e) {
+            debug.warning("Failed to fetch sessions from " + serverId, e);
+            return new LinkedList<SessionInfo>();
+        }
+    }
 
-            SessionRequest sreq = new SessionRequest(SessionRequest.GetValidSessions, sid, false);
-            SessionResponse sres = getSessionResponse(svcurl, sreq);
+    /**
+     * Generates a SessionRequest, limited to the given number of sessions, and uses this to query the remote
+     * server.
+     *
+     * @param sizeLimit The maximum number of sessions the remote server should return, or 0 for its own limit.
+     * @return Non null but possibly empty collection of Sessions.
+     * @throws SessionException If the server could not be queried.
+     */
+    public Collection<SessionInfo> getSessions(int sizeLimit) throws SessionException {
+        URL svcurl = sessionServiceUrlService.getSessionServiceURL(serverId);
+        SSOToken adminToken = getAdminToken();
+        String sid = adminToken.getTokenID().toString();
 
-            List<SessionInfo> infoList = sres.getSessionInfo();
+        SessionRequest sreq = new SessionRequest(SessionRequest.GetValidSessions, sid, false);
+        sreq.setSizeLimit(sizeLimit);
+        SessionResponse sres = getSessionResponse(svcurl, sreq);
 
-            if (debug.messageEnabled()) {
-                debug.message(MessageFormat.format(
-                        "Query returned {0} SessionInfos.",
-                        infoList.size()));
-            }
+        List<SessionInfo> infoList = sres.getSessionInfo();
 
-            sessions.addAll(infoList);
-        } catch (SessionException e) {
-            debug.warning("Failed to fetch sessions from " + serverId, e);
+        if (debug.messageEnabled()) {
+            debug.message(MessageFormat.format(
+                    "Query returned {0} SessionInfos.",
+                    infoList.size()));
         }
 
-        return sessions;
+        if (sizeLimit > 0 && infoList.size() > sizeLimit) {
+            // Servers which do not understand the size limit return their full list
+            infoList = infoList.subList(0, sizeLimit);
+        }
+        return new LinkedList<SessionInfo>(infoList);
     }
 
 
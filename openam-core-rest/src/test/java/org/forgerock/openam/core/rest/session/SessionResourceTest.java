@@ -12,11 +12,12 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
- * Portions Copyright 2021 Wren Security.
+ * Portions Copyright 2021-2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.forgerock.json.JsonValue.array;
 import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
@@ -74,6 +75,8 @@ import org.forgerock.openam.authentication.service.AuthUtilsWrapper;
 import org.forgerock.openam.core.realms.Realm;
 import org.forgerock.openam.core.realms.RealmTestHelper;
 import org.forgerock.openam.core.rest.session.query.SessionQueryManager;
+import org.forgerock.openam.core.rest.session.query.SessionQueryResult;
+import org.forgerock.openam.core.rest.session.query.SessionQueryResultHandler;
 import org.forgerock.openam.rest.RealmContext;
 import org.forgerock.openam.rest.resource.SSOTokenContext;
 import org.forgerock.openam.session.SessionPropertyWhitelist;
@@ -214,14 +217,14 @@ public class SessionResourceTest {
         List<String> list = Arrays.asList(badger, weasel);
         doReturn(list).when(sessionResourceUtil).getAllServerIds();
         SessionResource resource = new SessionResource(null, null, null, sessionResourceUtil);
-
+        givenQueryResult(mockManager, Collections.<String>emptySet());
 
         // When
         resource.queryCollection(null, request, handler);
 
         // Then
         List<String> result = Arrays.asList(badger, weasel);
-        verify(mockManager, times(1)).getAllSessions(result);
+        verify(mockManager, times(1)).querySessions(eq(result), any(SessionQueryResultHandler.class));
     }
 
     @Test
@@ -237,6 +240,7 @@ public class SessionResourceTest {
 
         SessionResourceUtil sessionResourceUtil = spy(new SessionResourceUtil(null, mockManager, null));
         SessionResource resource = new SessionResource(null, null, null, sessionResourceUtil);
+        givenQueryResult(mockManager, Collections.<String>emptySet());
 
         // When
         resource.queryCollection(null, request, mockHandler);
@@ -245,7 +249,57 @@ public class SessionResourceTest {
         verify(sessionResourceUtil, times(0)).getAllServerIds();
 
         List<String> result = Collections.singletonList(badger);
-        verify(mockManager, times(1)).getAllSessions(result);
+        verify(mockManager, times(1)).querySessions(eq(result), any(SessionQueryResultHandler.class));
+    }
+
+    @Test
+    public void shouldReportUnavailableServersInQueryResponse() {
+        // Given
+        SessionQueryManager mockManager = mock(SessionQueryManager.class);
+        QueryRequest request = mock(QueryRequest.class);
+        given(request.getQueryId()).willReturn(SessionResource.KEYWORD_ALL);
+        QueryResourceHandler handler = mock(QueryResourceHandler.class);
+
+        SessionResourceUtil sessionResourceUtil = spy(new SessionResourceUtil(null, mockManager, null));
+        doReturn(Arrays.asList("badger", "weasel")).when(sessionResourceUtil).getAllServerIds();
+        SessionResource resource = new SessionResource(null, null, null, sessionResourceUtil);
+        givenQueryResult(mockManager, Collections.singleton("weasel"));
+        AdviceContext context = new AdviceContext(new RootContext(), Collections.<String>emptySet());
+
+        // When
+        resource.queryCollection(context, request, handler);
+
+        // Then
+        assertThat(context.getAdvices().get(SessionResource.UNAVAILABLE_SERVERS_HEADER)).containsExactly("weasel");
+    }
+
+    @Test
+    public void shouldNotReportUnavailableServersWhenAllServersRespond() {
+        // Given
+        SessionQueryManager mockManager = mock(SessionQueryManager.class);
+        QueryRequest request = mock(QueryRequest.class);
+        given(request.getQueryId()).willReturn(SessionResource.KEYWORD_ALL);
+        QueryResourceHandler handler = mock(QueryResourceHandler.class);
+
+        SessionResourceUtil sessionResourceUtil = spy(new SessionResourceUtil(null, mockManager, null));
+        doReturn(Arrays.asList("badger", "weasel")).when(sessionResourceUtil).getAllServerIds();
+        SessionResource resource = new SessionResource(null, null, null, sessionResourceUtil);
+        givenQueryResult(mockManager, Collections.<String>emptySet());
+        AdviceContext context = new AdviceContext(new RootContext(), Collections.<String>emptySet());
+
+        // When
+        resource.queryCollection(context, request, handler);
+
+        // Then
+        assertThat(context.getAdvices()).doesNotContainKey(SessionResource.UNAVAILABLE_SERVERS_HEADER);
+    }
+
+    private void givenQueryResult(SessionQueryManager mockManager, Set<String> unavailableServerIds) {
+        SessionQueryResult queryResult = mock(SessionQueryResult.class);
+        given(queryResult.getUnavailableServerIds()).willReturn(unavailableServerIds);
+        given(queryResult.isComplete()).willReturn(unavailableServerIds.isEmpty());
+        given(mockManager.querySessions(anyCollection(), any(SessionQueryResultHandler.class)))
+                .willReturn(queryResult);
     }
 
     @Test
@@ -12,31 +12,67 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.rest.session.query;
 
+import com.iplanet.dpro.session.SessionException;
+import com.iplanet.dpro.session.service.SessionServiceConfig;
 import com.iplanet.dpro.session.share.SessionInfo;
 import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.mock;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 
 /**
  * @author robert.wapshott@forgerock.com
  */
 public class SessionQueryManagerTest {
+
+    private static final int SIZE_LIMIT = 200;
+
+    private ExecutorService executorService;
+    private SessionServiceConfig serviceConfig;
+    private SessionQueryFactory mockFactory;
+    private SessionQueryManager manager;
+
+    @BeforeMethod
+    public void setUp() {
+        executorService = Executors.newCachedThreadPool();
+        serviceConfig = mock(SessionServiceConfig.class);
+        given(serviceConfig.getMaxSessionListSize()).willReturn(SIZE_LIMIT);
+        given(serviceConfig.getSessionRetrievalTimeout()).willReturn(5L);
+        mockFactory = mock(SessionQueryFactory.class);
+        manager = new SessionQueryManager(mockFactory, executorService, serviceConfig);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executorService.shutdownNow();
+    }
+
     @Test
     public void shouldRetrieveQueryTypeForAllServerIds() {
         // Given
@@ -47,9 +83,7 @@ public class SessionQueryManagerTest {
         ids.add(badger);
         ids.add(weasel);
 
-        SessionQueryFactory mockFactory = mock(SessionQueryFactory.class);
         given(mockFactory.getSessionQueryType(anyString())).willReturn(mock(SessionQueryType.class));
-        SessionQueryManager manager = new SessionQueryManager(mockFactory);
 
         // When
         manager.getAllSessions(ids);
@@ -64,23 +98,20 @@ public class SessionQueryManagerTest {
     }
 
     @Test
-    public void shouldUseSessionQueryTypeProvidedByFactory() {
+    public void shouldUseSessionQueryTypeProvidedByFactory() throws Exception {
         // Given
         SessionQueryType mockQueryType = mock(SessionQueryType.class);
-        SessionQueryFactory mockFactory = mock(SessionQueryFactory.class);
         given(mockFactory.getSessionQueryType(anyString())).willReturn(mockQueryType);
 
-        SessionQueryManager manager = new SessionQueryManager(mockFactory);
-
         // When
         manager.getAllSessions(Arrays.asList(new String[]{"badger"}));
 
         // Then
-        verify(mockQueryType, times(1)).getAllSessions();
+        verify(mockQueryType, times(1)).getSessions(SIZE_LIMIT);
     }
 
     @Test
-    public void shouldReturnAllSessionsReturnedByQueryTypes() {
+    public void shouldReturnAllSessionsReturnedByQueryTypes() throws Exception {
         // Given
         String badger = "Badger";
         String weasel = "Weasel";
@@ -89,16 +120,13 @@ public class SessionQueryManagerTest {
         SessionInfo two = mock(SessionInfo.class);
 
         SessionQueryType typeOne = mock(SessionQueryType.class);
-        given(typeOne.getAllSessions()).willReturn(Arrays.asList(new SessionInfo[]{one}));
+        given(typeOne.getSessions(anyInt())).willReturn(Arrays.asList(new SessionInfo[]{one}));
         SessionQueryType typeTwo = mock(SessionQueryType.class);
-        given(typeTwo.getAllSessions()).willReturn(Arrays.asList(new SessionInfo[]{two}));
+        given(typeTwo.getSessions(anyInt())).willReturn(Arrays.asList(new SessionInfo[]{two}));
 
-        SessionQueryFactory mockFactory = mock(SessionQueryFactory.class);
         given(mockFactory.getSessionQueryType(badger)).willReturn(typeOne);
         given(mockFactory.getSessionQueryType(weasel)).willReturn(typeTwo);
 
-        SessionQueryManager manager = new SessionQueryManager(mockFactory);
-
         // When
         Collection<SessionInfo> sessions = manager.getAllSessions(Arrays.asList(new String[]{badger, weasel}));
 
@@ -107,4 +135,88 @@ public class SessionQueryManagerTest {
         assertTrue(sessions.contains(one));
         assertTrue(sessions.contains(two));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldOnlyReturnSessionsReportedByMultipleServersOnce() throws Exception {
+        // Given
+        SessionInfo shared = sessionInfo("shared");
+        SessionInfo local = sessionInfo("local");
+
+        SessionQueryType typeOne = mock(SessionQueryType.class);
+        given(typeOne.getSessions(anyInt())).willReturn(Arrays.asList(shared, local));
+        SessionQueryType typeTwo = mock(SessionQueryType.class);
+        given(typeTwo.getSessions(anyInt())).willReturn(Arrays.asList(sessionInfo("shared")));
+
+        given(mockFactory.getSessionQueryType("badger")).willReturn(typeOne);
+        given(mockFactory.getSessionQueryType("weasel")).willReturn(typeTwo);
+
+        // When
+        Collection<SessionInfo> sessions = manager.getAllSessions(Arrays.asList("badger", "weasel"));
+
+        // Then
+        assertEquals(2, sessions.size());
+    }
+
+    @Test
+    public void shouldReportServersWhichFailOrDoNotRespondInTime() throws Exception {
+        // Given
+        given(serviceConfig.getSessionRetrievalTimeout()).willReturn(1L);
+        final CountDownLatch release = new CountDownLatch(1);
+        SessionInfo one = sessionInfo("one");
+
+        SessionQueryType responsive = mock(SessionQueryType.class);
+        given(responsive.getSessions(anyInt())).willReturn(Collections.singletonList(one));
+        SessionQueryType slow = mock(SessionQueryType.class);
+        given(slow.getSessions(anyInt())).willAnswer(new Answer<Collection<SessionInfo>>() {
+            @Override
+            public Collection<SessionInfo> answer(InvocationOnMock invocation) throws Throwable {
+                release.await();
+                return Collections.emptyList();
+            }
+        });
+        SessionQueryType failing = mock(SessionQueryType.class);
+        given(failing.getSessions(anyInt())).willThrow(new SessionException("test"));
+
+        given(mockFactory.getSessionQueryType("badger")).willReturn(responsive);
+        given(mockFactory.getSessionQueryType("weasel")).willReturn(slow);
+        given(mockFactory.getSessionQueryType("stoat")).willReturn(failing);
+        SessionQueryResultHandler handler = mock(SessionQueryResultHandler.class);
+
+        // When
+        SessionQueryResult result = manager.querySessions(Arrays.asList("badger", "weasel", "stoat"), handler);
+        release.countDown();
+
+        // Then
+        verify(handler).handleSession(one);
+        assertFalse(result.isComplete());
+        assertEquals(result.getUnavailableServerIds().size(), 2);
+        assertTrue(result.getUnavailableServerIds().contains("weasel"));
+        assertTrue(result.getUnavailableServerIds().contains("stoat"));
+    }
+
+    @Test
+    public void shouldStopMergingOnceSizeLimitIsReached() throws Exception {
+        // Given
+        given(serviceConfig.getMaxSessionListSize()).willReturn(2);
+        SessionQueryType queryType = mock(SessionQueryType.class);
+        given(queryType.getSessions(2)).willReturn(Arrays.asList(sessionInfo("one"), sessionInfo("two")));
+        SessionQueryType otherQueryType = mock(SessionQueryType.class);
+        given(otherQueryType.getSessions(2)).willReturn(Arrays.asList(sessionInfo("three")));
+        given(mockFactory.getSessionQueryType("badger")).willReturn(queryType);
+        given(mockFactory.getSessionQueryType("weasel")).willReturn(otherQueryType);
+        SessionQueryResultHandler handler = mock(SessionQueryResultHandler.class);
+
+        // When
+        SessionQueryResult result = manager.querySessions(Arrays.asList("badger", "weasel"), handler);
+
+        // Then
+        assertEquals(result.getSessionCount(), 2);
+        assertTrue(result.isSizeLimitExceeded());
+    }
+
+    private static SessionInfo sessionInfo(String sessionId) {
+        SessionInfo sessionInfo = new SessionInfo();
+        sessionInfo.setSessionID(sessionId);
+        return sessionInfo;
+    }
+}
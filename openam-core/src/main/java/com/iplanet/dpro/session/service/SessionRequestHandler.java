@@ -25,7 +25,7 @@
  * $Id: SessionRequestHandler.java,v 1.9 2009/04/02 04:11:44 ericow Exp $
  *
  * Portions Copyrighted 2011-2016 ForgeRock AS.
- * Portions Copyrighted 2023 Wren Security
+ * Portions Copyrighted 2023-2026 Wren Security
  */
 package com.iplanet.dpro.session.service;
 
@@ -343,6 +343,11 @@ public class SessionRequestHandler implements RequestHandler {
                 res.setStatus(infoSearchResults.getErrorCode());
                 List<SessionInfo> sessionInfo = new ArrayList<>();
                 sessionInfo.addAll(infoSearchResults.getSearchResults());
+                int sizeLimit = req.getSizeLimit();
+                if (sizeLimit > 0 && sessionInfo.size() > sizeLimit) {
+                    sessionInfo = new ArrayList<>(sessionInfo.subList(0, sizeLimit));
+                    res.setStatus(SearchResults.SIZE_LIMIT_EXCEEDED);
+                }
                 res.setSessionInfo(sessionInfo);
                 break;
 
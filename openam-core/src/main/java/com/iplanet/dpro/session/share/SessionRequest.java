@@ -25,6 +25,7 @@
  * $Id: SessionRequest.java,v 1.3 2008/06/25 05:41:31 qcheng Exp $
  *
  * Portions Copyrighted 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.iplanet.dpro.session.share;
 
@@ -57,7 +58,7 @@ import com.sun.identity.shared.xml.XMLUtils;
  *     &lt; !-- This attribute indicates whether resets 
  *     the latest access time --&gt;
  *         reset  CDATA #REQUIRED&gt;
- *     &lt; !ELEMENT GetValidSessions (SessionID Pattern?)&gt;
+ *     &lt; !ELEMENT GetValidSessions (SessionID Pattern? SizeLimit?)&gt;
  *     &lt; !ELEMENT DestroySession (SessionID, DestroySessionID)&gt;
  *     &lt; !ELEMENT Logout (SessionID)&gt;
  *     &lt; !ELEMENT AddSessionListener (SessionID, URL)&gt;
@@ -72,6 +73,7 @@ import com.sun.identity.shared.xml.XMLUtils;
  *     &lt; !ELEMENT GetSessionCount (SessionID, UUID)&gt;
  *     &lt; !ELEMENT UUID (#PCDATA)&gt;
  *     &lt; !ELEMENT Pattern (#PCDATA)&gt;
+ *     &lt; !ELEMENT SizeLimit (#PCDATA)&gt;
  *     ]&gt;
  * </pre>
  *
@@ -133,6 +135,8 @@ public class SessionRequest {
 
     private String uuid = null;
 
+    private int sizeLimit = 0;
+
     private static int requestCount = 0;
 
     /*
@@ -424,6 +428,24 @@ public class SessionRequest {
         return data;
     }
 
+    /**
+     * Sets the maximum number of sessions to return from a <code>GetValidSessions</code> request.
+     *
+     * @param sizeLimit The size limit, or 0 for no limit beyond the server's own.
+     */
+    public void setSizeLimit(int sizeLimit) {
+        this.sizeLimit = sizeLimit;
+    }
+
+    /**
+     * Returns the maximum number of sessions to return from a <code>GetValidSessions</code> request.
+     *
+     * @return The size limit, or 0 for no limit beyond the server's own.
+     */
+    public int getSizeLimit() {
+        return sizeLimit;
+    }
+
     /**
      * Sets the universal unique identifier.
      *
@@ -521,6 +543,9 @@ public class SessionRequest {
             if (pattern != null) {
                 xml.append("<Pattern>").append(pattern).append("</Pattern>").append(NL);
             }
+            if (sizeLimit > 0) {
+                xml.append("<SizeLimit>").append(sizeLimit).append("</SizeLimit>").append(NL);
+            }
             xml.append("</GetValidSessions>").append(NL);
             break;
         case DestroySession:
@@ -25,6 +25,7 @@
  * $Id: SessionRequestParser.java,v 1.3 2008/06/25 05:41:31 qcheng Exp $
  *
  * Portions Copyrighted 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.iplanet.dpro.session.share;
@@ -180,6 +181,19 @@ class SessionRequestParser {
             sessionRequest.setPattern(parseCDATA((Element) nodelist.item(0)));
         }
 
+        // check SizeLimit
+        nodelist = elem.getElementsByTagName("SizeLimit");
+        if (nodelist != null && nodelist.getLength() != 0) {
+            String sizeLimit = parseCDATA((Element) nodelist.item(0));
+            if (sizeLimit != null) {
+                try {
+                    sessionRequest.setSizeLimit(Integer.parseInt(sizeLimit.trim()));
+                } catch (NumberFormatException e) {
+                    // ignore an invalid limit and fall back to the server's own limit
+                }
+            }
+        }
+
         // check SessionCount
         nodelist = elem.getElementsByTagName("GetSessionCount");
         if (nodelist != null && nodelist.getLength() != 0) {
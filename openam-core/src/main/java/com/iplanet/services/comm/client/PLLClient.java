@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: PLLClient.java,v 1.8 2008/06/25 05:41:33 qcheng Exp $
  *
@@ -39,10 +40,9 @@ import com.iplanet.services.naming.WebtopNaming.SiteMonitor;
 import com.sun.identity.shared.Constants;
 import com.sun.identity.shared.debug.Debug;
 import com.sun.identity.common.HttpURLConnectionManager;
-import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
-import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.net.HttpURLConnection;
 import java.net.URL;
@@ -53,6 +53,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.StringTokenizer;
 import java.util.Vector;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.servlet.http.Cookie;
 
 import org.forgerock.http.header.TransactionIdHeader;
@@ -64,6 +66,14 @@ import org.forgerock.openam.utils.IOUtils;
  * to the URL specified in the send() method. The high level services and
  * application can use Naming Service to find the service specific URL. This
  * class provides static methods to register notification handlers.
+ * <p>
+ * When pipelining is enabled, concurrent RequestSets sent to the same service
+ * on the same server without cookies are combined into shared exchanges, see
+ * {@link PLLPipeline}. When the compact encoding is enabled, the client offers
+ * the binary encoding on every exchange and switches to it for each server
+ * which answers in that encoding, see {@link PLLEncodingNegotiator}. The
+ * exchanges are reported by an MBean named
+ * {@code OpenAM:type=PLLClient,name=Statistics}.
  * 
  * @see com.iplanet.services.comm.share.RequestSet
  * @see com.iplanet.services.comm.share.Response
@@ -80,8 +90,27 @@ public class PLLClient {
     
     private static boolean useCache = Boolean.getBoolean(
       SystemProperties.get(Constants.URL_CONNECTION_USE_CACHE, "false"));
-    
-    
+
+    private static final boolean pipeliningEnabled = SystemProperties.getAsBoolean(
+            Constants.SERVICES_COMM_CLIENT_PIPELINING_ENABLED, false);
+
+    private static final int pipelineMaxConnections = SystemProperties.getAsInt(
+            Constants.SERVICES_COMM_CLIENT_PIPELINING_MAX_CONNECTIONS, 5);
+
+    private static final int pipelineMaxBatchSize = SystemProperties.getAsInt(
+            Constants.SERVICES_COMM_CLIENT_PIPELINING_MAX_BATCH_SIZE, 8);
+
+    private static final PLLEncodingNegotiator encoding = new PLLEncodingNegotiator(
+            SystemProperties.getAsBoolean(Constants.SERVICES_COMM_CLIENT_COMPACT_ENCODING_ENABLED, false));
+
+    /** pipelines keyed by destination URL and service ID */
+    private static final ConcurrentMap<String, PLLPipeline> pipelines = new ConcurrentHashMap<>();
+
+    private static final PLLClientStatistics statistics = new PLLClientStatistics();
+
+    static {
+        statistics.register(debug);
+    }
 
     /**
      * Translates the Java object to an XML RequestSet document and sends the
@@ -145,9 +174,34 @@ public class PLLClient {
     // URL connection response.
     private static Vector send(URL url, String cookies, RequestSet set,
             HashMap cookieTable) throws SendRequestException {
+        if (pipeliningEnabled && cookies == null && cookieTable == null) {
+            return getPipeline(url, set.getServiceID()).send(set);
+        }
+        return exchange(url, cookies, set, cookieTable);
+    }
+
+    private static PLLPipeline getPipeline(URL url, String serviceId) {
+        String key = url.toString() + '|' + serviceId;
+        PLLPipeline pipeline = pipelines.get(key);
+        if (pipeline == null) {
+            pipeline = new PLLPipeline(url, serviceId, pipelineMaxConnections, pipelineMaxBatchSize,
+                    (target, batch) -> exchange(target, null, batch, null));
+            PLLPipeline existing = pipelines.putIfAbsent(key, pipeline);
+            if (existing != null) {
+                pipeline = existing;
+            }
+        }
+        return pipeline;
+    }
+
+    // Performs a single HTTP exchange, sending the RequestSet and returning
+    // the Responses read from the ResponseSet.
+    static Vector exchange(URL url, String cookies, RequestSet set,
+            HashMap cookieTable) throws SendRequestException {
         HttpURLConnection conn = null;
         OutputStream out = null;
-        BufferedReader in = null;
+        InputStream in = null;
+        boolean compactRequest = encoding.isCompact(url);
         try {
             if ((SiteMonitor.keepMonitoring == true) &&
                 !SiteMonitor.isAvailable(url)) {
@@ -187,29 +241,30 @@ public class PLLClient {
                 }
                 conn.setRequestProperty("Cookie", cookies);
             }
-            conn.setRequestProperty("Content-Type", "text/xml;charset=UTF-8");
+            conn.setRequestProperty("Content-Type", encoding.getContentType(compactRequest));
+            String accept = encoding.getAccept();
+            if (accept != null) {
+                conn.setRequestProperty("Accept", accept);
+            }
             conn.setRequestProperty(TransactionIdHeader.NAME, AuditRequestContext.createSubTransactionIdValue());
 
             // Output ...
-            String xml = set.toXMLString();
+            byte[] requestData = encoding.encode(set, compactRequest);
             // compute and set length, just in case iWS set arbitrary length
-            int requestLength = xml.getBytes("UTF-8").length;
             conn.setRequestProperty("Content-Length", Integer
-                    .toString(requestLength));
+                    .toString(requestData.length));
             out = conn.getOutputStream();
-            out.write(xml.getBytes("UTF-8"));
+            out.write(requestData);
             out.flush();
 
             // Input ...
-            in = new BufferedReader(new InputStreamReader(conn
-                    .getInputStream(), "UTF-8"));
-            StringBuilder in_buf = new StringBuilder();
+            in = conn.getInputStream();
+            ByteArrayOutputStream responseData = new ByteArrayOutputStream(1024);
             int len;
-            char[] buf = new char[1024];
+            byte[] buf = new byte[4096];
             while ((len = in.read(buf, 0, buf.length)) != -1) {
-                in_buf.append(buf, 0, len);
+                responseData.write(buf, 0, len);
             }
-            String in_string = in_buf.toString();
 
             // retrieves cookies from the response
             Map headers = conn.getHeaderFields();
@@ -217,9 +272,16 @@ public class PLLClient {
                 parseCookies(headers, cookieTable);
             }
 
-            ResponseSet resset = ResponseSet.parseXML(in_string);
+            ResponseSet resset = encoding.decode(url, conn.getContentType(), responseData.toByteArray());
+
+            statistics.recordExchange(set.getRequests().size(), requestData.length, responseData.size(),
+                    compactRequest);
             return resset.getResponses();
         } catch (Exception e) {
+            if (compactRequest) {
+                // fall back to XML until the server answers in the compact encoding again
+                encoding.failed(url);
+            }
             debug.warning("PLLClient.send URL=" + url + " : exception: ", e);
             throw new SendRequestException(e.getMessage());
         } finally {
@@ -0,0 +1,111 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.client;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * Records the HTTP exchanges made by {@link PLLClient}.
+ */
+final class PLLClientStatistics implements PLLClientStatisticsMBean {
+
+    private final LongAdder exchanges = new LongAdder();
+    private final LongAdder compactExchanges = new LongAdder();
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder bytesSent = new LongAdder();
+    private final LongAdder bytesReceived = new LongAdder();
+
+    /**
+     * Records a successful exchange.
+     *
+     * @param requestCount The number of Requests sent.
+     * @param sent The number of request body bytes sent.
+     * @param received The number of response body bytes received.
+     * @param compact Whether the request was sent in the compact binary encoding.
+     */
+    void recordExchange(int requestCount, long sent, long received, boolean compact) {
+        exchanges.increment();
+        if (compact) {
+            compactExchanges.increment();
+        }
+        requests.add(requestCount);
+        bytesSent.add(sent);
+        bytesReceived.add(received);
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server.
+     *
+     * @param debug The debug instance used to report a failure.
+     */
+    void register(Debug debug) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("OpenAM:type=PLLClient,name=Statistics");
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, PLLClientStatisticsMBean.class), objectName);
+        } catch (Exception e) {
+            debug.warning("PLLClientStatistics: Unable to register monitoring", e);
+        }
+    }
+
+    @Override
+    public long getExchangeCount() {
+        return exchanges.sum();
+    }
+
+    @Override
+    public long getRequestCount() {
+        return requests.sum();
+    }
+
+    @Override
+    public double getRequestsPerExchange() {
+        long exchangeCount = exchanges.sum();
+        return exchangeCount == 0 ? 0 : (double) requests.sum() / exchangeCount;
+    }
+
+    @Override
+    public double getBytesPerRequest() {
+        long requestCount = requests.sum();
+        return requestCount == 0 ? 0 : (double) (bytesSent.sum() + bytesReceived.sum()) / requestCount;
+    }
+
+    @Override
+    public long getBytesSent() {
+        return bytesSent.sum();
+    }
+
+    @Override
+    public long getBytesReceived() {
+        return bytesReceived.sum();
+    }
+
+    @Override
+    public long getCompactExchangeCount() {
+        return compactExchanges.sum();
+    }
+}
@@ -0,0 +1,74 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.client;
+
+/**
+ * Monitoring interface of the HTTP exchanges made by {@link PLLClient}, registered as an MBean named
+ * {@code OpenAM:type=PLLClient,name=Statistics}.
+ */
+public interface PLLClientStatisticsMBean {
+
+    /**
+     * Returns the number of successful HTTP exchanges.
+     *
+     * @return The exchange count.
+     */
+    long getExchangeCount();
+
+    /**
+     * Returns the number of Requests sent in successful HTTP exchanges. When pipelining is enabled this may exceed
+     * the number of exchanges.
+     *
+     * @return The request count.
+     */
+    long getRequestCount();
+
+    /**
+     * Returns the average number of Requests sent per HTTP exchange, and so per use of a connection.
+     *
+     * @return The average number of Requests, or 0 if no exchange has completed.
+     */
+    double getRequestsPerExchange();
+
+    /**
+     * Returns the average number of request and response body bytes per Request.
+     *
+     * @return The average number of bytes, or 0 if no exchange has completed.
+     */
+    double getBytesPerRequest();
+
+    /**
+     * Returns the number of request body bytes sent in successful HTTP exchanges.
+     *
+     * @return The number of bytes sent.
+     */
+    long getBytesSent();
+
+    /**
+     * Returns the number of response body bytes received in successful HTTP exchanges.
+     *
+     * @return The number of bytes received.
+     */
+    long getBytesReceived();
+
+    /**
+     * Returns the number of successful HTTP exchanges whose request was sent in the compact binary encoding.
+     *
+     * @return The compact exchange count.
+     */
+    long getCompactExchangeCount();
+}
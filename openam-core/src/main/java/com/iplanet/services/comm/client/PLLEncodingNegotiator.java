@@ -0,0 +1,127 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.client;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.iplanet.services.comm.share.PLLBinaryCodec;
+import com.iplanet.services.comm.share.RequestSet;
+import com.iplanet.services.comm.share.ResponseSet;
+
+/**
+ * Chooses the encoding of the RequestSets sent by {@link PLLClient} to each server.
+ * <p>
+ * RequestSets are sent as XML until a server has shown that it understands the compact binary encoding of
+ * {@link PLLBinaryCodec}, by answering an exchange in that encoding. Servers of an earlier release ignore the
+ * Accept header and answer in XML, so they are only ever sent XML. If an exchange sent in the compact encoding
+ * fails, the server is sent XML again until it next answers in the compact encoding.
+ * <p>
+ * Thread Safety: Servers are tracked in a concurrent set, so this may be used from any thread.
+ */
+final class PLLEncodingNegotiator {
+
+    static final String XML_CONTENT_TYPE = "text/xml;charset=UTF-8";
+
+    private final boolean enabled;
+
+    /** servers (host and port) which have answered in the compact encoding */
+    private final Set<String> compactServers = ConcurrentHashMap.newKeySet();
+
+    /**
+     * @param enabled Whether the compact encoding is offered to servers.
+     */
+    PLLEncodingNegotiator(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    /**
+     * Returns whether RequestSets sent to the server are encoded in the compact encoding.
+     *
+     * @param url The URL of the server.
+     * @return {@code true} if the server has answered in the compact encoding.
+     */
+    boolean isCompact(URL url) {
+        return enabled && compactServers.contains(getServer(url));
+    }
+
+    /**
+     * Returns the Content-Type of a request.
+     *
+     * @param compact Whether the request is in the compact encoding.
+     * @return The content type.
+     */
+    String getContentType(boolean compact) {
+        return compact ? PLLBinaryCodec.CONTENT_TYPE : XML_CONTENT_TYPE;
+    }
+
+    /**
+     * Returns the Accept header offering the compact encoding, or {@code null} if it is not enabled.
+     *
+     * @return The Accept header value.
+     */
+    String getAccept() {
+        return enabled ? PLLBinaryCodec.CONTENT_TYPE + ", text/xml" : null;
+    }
+
+    /**
+     * Encodes a RequestSet.
+     *
+     * @param set The RequestSet.
+     * @param compact Whether to use the compact encoding.
+     * @return The request body.
+     */
+    byte[] encode(RequestSet set, boolean compact) {
+        return compact ? PLLBinaryCodec.encode(set) : set.toXMLString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decodes the ResponseSet answered by a server, noting whether the server answered in the compact encoding.
+     *
+     * @param url The URL of the server.
+     * @param contentType The Content-Type of the response.
+     * @param data The response body.
+     * @return The ResponseSet.
+     * @throws IOException If the response is not a valid compact ResponseSet.
+     */
+    ResponseSet decode(URL url, String contentType, byte[] data) throws IOException {
+        if (contentType != null && contentType.startsWith(PLLBinaryCodec.CONTENT_TYPE)) {
+            ResponseSet set = PLLBinaryCodec.decodeResponseSet(data);
+            if (enabled) {
+                compactServers.add(getServer(url));
+            }
+            return set;
+        }
+        return ResponseSet.parseXML(new String(data, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Falls back to XML for the server after an exchange sent in the compact encoding failed.
+     *
+     * @param url The URL of the server.
+     */
+    void failed(URL url) {
+        compactServers.remove(getServer(url));
+    }
+
+    private static String getServer(URL url) {
+        return url.getHost() + ':' + url.getPort();
+    }
+}
@@ -0,0 +1,241 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.client;
+
+import java.net.URL;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Vector;
+
+import com.iplanet.services.comm.share.PLLBundle;
+import com.iplanet.services.comm.share.Request;
+import com.iplanet.services.comm.share.RequestSet;
+
+/**
+ * Pipelines the RequestSets sent to one service on one server. At most {@code maxConnections} exchanges are in
+ * flight at a time, so the underlying keep-alive connections are reused rather than churned. RequestSets sent
+ * while every exchange is busy are queued, and the next free sender combines the queued Requests into a single
+ * RequestSet of at most {@code maxBatchSize} Requests. The Responses are then split back out to each caller in
+ * order. A caller that finds a free exchange sends its RequestSet immediately, so pipelining adds no latency to
+ * an idle server.
+ */
+final class PLLPipeline {
+
+    private final URL url;
+    private final String serviceId;
+    private final int maxConnections;
+    private final int maxBatchSize;
+    private final Exchanger exchanger;
+    private final Deque<PendingRequestSet> queue = new ArrayDeque<>();
+    private int inFlight;
+
+    /**
+     * @param url The URL of the server.
+     * @param serviceId The service the RequestSets are sent to.
+     * @param maxConnections The most exchanges in flight at a time.
+     * @param maxBatchSize The most Requests combined into one exchange, unless a single RequestSet is larger.
+     * @param exchanger Performs an exchange with the server.
+     */
+    PLLPipeline(URL url, String serviceId, int maxConnections, int maxBatchSize, Exchanger exchanger) {
+        this.url = url;
+        this.serviceId = serviceId;
+        this.maxConnections = Math.max(1, maxConnections);
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.exchanger = exchanger;
+    }
+
+    /**
+     * Sends the RequestSet as part of the next available exchange.
+     *
+     * @param set The RequestSet to send.
+     * @return The Responses to the Requests in the set, in order.
+     * @throws SendRequestException If the exchange failed.
+     */
+    Vector send(RequestSet set) throws SendRequestException {
+        PendingRequestSet pending = new PendingRequestSet(set);
+        try {
+            while (true) {
+                List<PendingRequestSet> batch;
+                synchronized (this) {
+                    if (!pending.queued) {
+                        queue.add(pending);
+                        pending.queued = true;
+                    }
+                    while (!pending.assigned && inFlight >= maxConnections) {
+                        wait();
+                    }
+                    if (pending.assigned) {
+                        break;
+                    }
+                    inFlight++;
+                    batch = nextBatch();
+                }
+                try {
+                    exchange(batch);
+                } finally {
+                    synchronized (this) {
+                        inFlight--;
+                        notifyAll();
+                    }
+                }
+            }
+            return pending.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                if (!pending.assigned) {
+                    queue.remove(pending);
+                    throw new SendRequestException(PLLBundle.getString("sendRequestInterrupted"));
+                }
+            }
+            return pending.awaitUninterruptibly();
+        }
+    }
+
+    /**
+     * Takes queued RequestSets, oldest first, until the batch is full. Must be called holding the lock.
+     */
+    private List<PendingRequestSet> nextBatch() {
+        List<PendingRequestSet> batch = new ArrayList<>();
+        int requests = 0;
+        while (!queue.isEmpty()) {
+            PendingRequestSet next = queue.peek();
+            int size = next.set.getRequests().size();
+            if (!batch.isEmpty() && requests + size > maxBatchSize) {
+                break;
+            }
+            queue.poll();
+            next.assigned = true;
+            batch.add(next);
+            requests += size;
+        }
+        return batch;
+    }
+
+    private void exchange(List<PendingRequestSet> batch) {
+        if (batch.size() == 1) {
+            PendingRequestSet only = batch.get(0);
+            try {
+                only.complete(exchanger.exchange(url, only.set), null);
+            } catch (SendRequestException | RuntimeException e) {
+                only.complete(null, e);
+            }
+            return;
+        }
+
+        RequestSet combined = new RequestSet(serviceId);
+        for (PendingRequestSet pending : batch) {
+            for (Request request : pending.set.getRequests()) {
+                combined.addRequest(request);
+            }
+        }
+        Vector responses;
+        try {
+            responses = exchanger.exchange(url, combined);
+            if (responses.size() != combined.getRequests().size()) {
+                throw new SendRequestException("Expected " + combined.getRequests().size()
+                        + " responses but received " + responses.size());
+            }
+        } catch (SendRequestException | RuntimeException e) {
+            for (PendingRequestSet pending : batch) {
+                pending.complete(null, e);
+            }
+            return;
+        }
+        int offset = 0;
+        for (PendingRequestSet pending : batch) {
+            int size = pending.set.getRequests().size();
+            pending.complete(new Vector(responses.subList(offset, offset + size)), null);
+            offset += size;
+        }
+    }
+
+    /**
+     * Performs a single exchange with a server.
+     */
+    interface Exchanger {
+
+        /**
+         * Sends the RequestSet and returns the Responses.
+         *
+         * @param url The URL of the server.
+         * @param set The RequestSet to send.
+         * @return The Responses to the Requests in the set, in order.
+         * @throws SendRequestException If the exchange failed.
+         */
+        Vector exchange(URL url, RequestSet set) throws SendRequestException;
+    }
+
+    /**
+     * A RequestSet waiting to be sent or for its Responses.
+     */
+    private static final class PendingRequestSet {
+
+        private final RequestSet set;
+        // guarded by the pipeline lock
+        private boolean queued;
+        private boolean assigned;
+        // guarded by this
+        private boolean done;
+        private Vector responses;
+        private Exception failure;
+
+        private PendingRequestSet(RequestSet set) {
+            this.set = set;
+        }
+
+        private synchronized void complete(Vector responses, Exception failure) {
+            this.responses = responses;
+            this.failure = failure;
+            this.done = true;
+            notifyAll();
+        }
+
+        private synchronized Vector await() throws InterruptedException, SendRequestException {
+            while (!done) {
+                wait();
+            }
+            return result();
+        }
+
+        private synchronized Vector awaitUninterruptibly() throws SendRequestException {
+            boolean interrupted = false;
+            while (!done) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            return result();
+        }
+
+        private Vector result() throws SendRequestException {
+            if (failure instanceof SendRequestException) {
+                throw (SendRequestException) failure;
+            } else if (failure != null) {
+                throw (RuntimeException) failure;
+            }
+            return responses;
+        }
+    }
+}
@@ -25,10 +25,12 @@
  * $Id: PLLRequestServlet.java,v 1.9 2009/02/12 17:24:13 bina Exp $
  *
  * Portions Copyrighted 2012-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.iplanet.services.comm.server;
 
 import com.iplanet.am.util.SystemProperties;
+import com.iplanet.services.comm.share.PLLBinaryCodec;
 import com.iplanet.services.comm.share.PLLBundle;
 import com.iplanet.services.comm.share.RequestSet;
 import com.iplanet.services.comm.share.ResponseSet;
@@ -57,6 +59,10 @@ import javax.servlet.http.HttpServletResponse;
  * </p>
  * The doPost() method gets the XML RequestSet document from the HttpRequest
  * object, then parses the XML documnent and reconstructs a RequestSet object.
+ * Clients may instead send the RequestSet in the compact binary encoding of
+ * {@link PLLBinaryCodec}, identified by its content type, and receive the
+ * ResponseSet in that encoding by listing its content type in the Accept
+ * header. Request handlers see the same RequestSet whichever encoding is used.
  * 
  * @see com.iplanet.services.comm.share.Request
  * @see com.iplanet.services.comm.share.RequestSet
@@ -127,48 +133,104 @@ public class PLLRequestServlet extends HttpServlet {
                 rlength += r;
                 offset += r;
             }
-            String xml = new String(reqData, 0, length, "UTF-8");
+            RequestSet set = readRequestSet(reqData, req.getContentType());
+            ResponseSet rset = handleRequest(auditor, set, req, res);
+            writeResponseSet(rset, req.getHeader("Accept"), res);
 
-            RequestSet set = RequestSet.parseXML(xml);
+        } catch (IOException | ServletException | RuntimeException e) {
+            auditor.auditAccessFailure(e.getMessage());
+            throw e;
+        }
+
+    }
+
+    private PLLAuditor newAuditor(HttpServletRequest httpServletRequest) {
+        return new PLLAuditor(
+                PLLServer.pllDebug,
+                InjectorHolder.getInstance(AuditEventPublisher.class),
+                InjectorHolder.getInstance(AuditEventFactory.class),
+                httpServletRequest);
+    }
+
+    /*
+     * Decodes the RequestSet from the request body, which is in the compact
+     * binary encoding if the Content-Type says so and XML otherwise.
+     */
+    static RequestSet readRequestSet(byte[] reqData, String contentType)
+            throws ServletException, IOException {
+        RequestSet set;
+        if (isCompact(contentType)) {
+            try {
+                set = PLLBinaryCodec.decodeRequestSet(reqData);
+            } catch (IOException e) {
+                PLLServer.pllDebug.warning("Unable to decode binary RequestSet", e);
+                throw servletException("invalidRequestSet");
+            }
+            if (!AUTH_SVC_ID.equalsIgnoreCase(set.getServiceID())
+                    && PLLServer.pllDebug.messageEnabled()) {
+                PLLServer.pllDebug.message("Received binary RequestSet for " + set.getServiceID() + " with "
+                        + set.getRequests().size() + " requests");
+            }
+        } else {
+            String xml = new String(reqData, "UTF-8");
+
+            set = RequestSet.parseXML(xml);
             String svcid = set.getServiceID();
             if(!AUTH_SVC_ID.equalsIgnoreCase(svcid)) {
                 if (PLLServer.pllDebug.messageEnabled()) {
                     PLLServer.pllDebug.message("\nReceived RequestSet XML :\n" + xml);
                 }
             }
+        }
+        return set;
+    }
 
-            String responseXML = handleRequest(auditor, set, req, res);
-            res.setContentLength(responseXML.getBytes("UTF-8").length);
-            OutputStreamWriter out = new OutputStreamWriter(res.getOutputStream(),
-                    "UTF-8");
+    /*
+     * Writes the ResponseSet to the response, in the compact binary encoding
+     * if the client listed it in the Accept header and XML otherwise, so
+     * clients of an earlier release are always answered in XML.
+     */
+    static void writeResponseSet(ResponseSet rset, String accept, HttpServletResponse res)
+            throws IOException {
+        if (isCompact(accept)) {
+            byte[] responseData = PLLBinaryCodec.encode(rset);
+            res.setContentType(PLLBinaryCodec.CONTENT_TYPE);
+            res.setContentLength(responseData.length);
+            ServletOutputStream out = res.getOutputStream();
             try {
-                out.write(responseXML);
+                out.write(responseData);
                 out.flush();
-            } catch (IOException e) {
-                throw e;
             } finally {
                 try {
                     out.close();
                 } catch (Exception ex) {
                 }
             }
+            return;
+        }
 
-        } catch (IOException | ServletException | RuntimeException e) {
-            auditor.auditAccessFailure(e.getMessage());
+        String responseXML = rset.toXMLString();
+        res.setContentLength(responseXML.getBytes("UTF-8").length);
+        OutputStreamWriter out = new OutputStreamWriter(res.getOutputStream(),
+                "UTF-8");
+        try {
+            out.write(responseXML);
+            out.flush();
+        } catch (IOException e) {
             throw e;
+        } finally {
+            try {
+                out.close();
+            } catch (Exception ex) {
+            }
         }
-
     }
 
-    private PLLAuditor newAuditor(HttpServletRequest httpServletRequest) {
-        return new PLLAuditor(
-                PLLServer.pllDebug,
-                InjectorHolder.getInstance(AuditEventPublisher.class),
-                InjectorHolder.getInstance(AuditEventFactory.class),
-                httpServletRequest);
+    private static boolean isCompact(String contentTypes) {
+        return contentTypes != null && contentTypes.contains(PLLBinaryCodec.CONTENT_TYPE);
     }
 
-    private ServletException servletException(String errorId) {
+    private static ServletException servletException(String errorId) {
         return new ServletException(PLLBundle.getString(errorId));
     }
 
@@ -185,11 +247,11 @@ public class PLLRequestServlet extends HttpServlet {
      * 
      * @param String XML RequestSet String - Conforming to RequestSet.dtd @param
      * req HttpServletRequest object @param res HttpServletResponse object
-     * @return String XML ResponseSet String - Conforming to ResponseSet.dtd
+     * @return ResponseSet The ResponseSet to be returned to the client
      * 
      * @see sunir.share.profile.service.server.http.RequestProcessor
      */
-    private String handleRequest(PLLAuditor auditor, RequestSet set, HttpServletRequest req, HttpServletResponse res)
+    private ResponseSet handleRequest(PLLAuditor auditor, RequestSet set, HttpServletRequest req, HttpServletResponse res)
             throws ServletException {
         if (!isValid(set)) {
             throw servletException("invalidRequestSet");
@@ -201,7 +263,7 @@ public class PLLRequestServlet extends HttpServlet {
         }
         ResponseSet rset = handler.process(auditor, set.getRequests(), req, res, getServletConfig().getServletContext());
         rset.setRequestSetID(set.getRequestSetID());
-        return rset.toXMLString();
+        return rset;
     }
 
     /*
@@ -0,0 +1,202 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.share;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Compact binary encoding of {@link RequestSet} and {@link ResponseSet} objects, used by the PLL as an
+ * alternative to the XML documents when both sides support it.
+ * <p>
+ * Each set is written as a magic number, a format version, the set attributes and then each request or response
+ * as its optional DTD ID, optional session ID (requests only) and content. Strings are written as a length
+ * followed by their UTF-8 bytes, with a length of -1 for a missing value. The request and response content is
+ * carried as-is, so the request handlers see exactly the same content as with the XML encoding. The saving is
+ * therefore limited to the envelope and its escaping: the content of each request and response is still the XML
+ * document of its service.
+ */
+public final class PLLBinaryCodec {
+
+    /**
+     * Content type of a binary encoded request or response set.
+     */
+    public static final String CONTENT_TYPE = "application/x-pll-binary";
+
+    private static final int REQUEST_SET_MAGIC = 0x504C4C51;
+    private static final int RESPONSE_SET_MAGIC = 0x504C4C53;
+    private static final byte FORMAT_VERSION = 1;
+
+    private PLLBinaryCodec() {
+    }
+
+    /**
+     * Encodes a request set.
+     *
+     * @param set The request set.
+     * @return The encoded request set.
+     */
+    public static byte[] encode(RequestSet set) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, REQUEST_SET_MAGIC, set.getRequestSetVersion(), set.getServiceID(),
+                    set.getRequestSetID());
+            List<Request> requests = set.getRequests();
+            out.writeInt(requests.size());
+            for (Request request : requests) {
+                writeString(out, request.getDtdID());
+                writeString(out, request.getSessionID());
+                writeString(out, request.getContent());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode request set", e);
+        }
+    }
+
+    /**
+     * Decodes a request set encoded by {@link #encode(RequestSet)}.
+     *
+     * @param data The encoded request set.
+     * @return The request set.
+     * @throws IOException If the data is not a valid encoded request set.
+     */
+    public static RequestSet decodeRequestSet(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        readHeader(in, REQUEST_SET_MAGIC);
+        RequestSet set = new RequestSet();
+        set.setRequestSetVersion(readString(in));
+        set.setServiceID(readString(in));
+        set.setRequestSetID(readString(in));
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            Request request = new Request();
+            request.setDtdID(readString(in));
+            request.setSessionID(readString(in));
+            request.setContent(readString(in));
+            set.addRequest(request);
+        }
+        return set;
+    }
+
+    /**
+     * Encodes a response set.
+     *
+     * @param set The response set.
+     * @return The encoded response set.
+     */
+    public static byte[] encode(ResponseSet set) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+            DataOutputStream out = new DataOutputStream(bytes);
+            writeHeader(out, RESPONSE_SET_MAGIC, set.getResponseSetVersion(), set.getServiceID(),
+                    set.getRequestSetID());
+            List<?> responses = set.getResponses();
+            out.writeInt(responses.size());
+            for (Object element : responses) {
+                Response response = (Response) element;
+                writeString(out, response.getDtdID());
+                writeString(out, response.getContent());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to encode response set", e);
+        }
+    }
+
+    /**
+     * Decodes a response set encoded by {@link #encode(ResponseSet)}.
+     *
+     * @param data The encoded response set.
+     * @return The response set.
+     * @throws IOException If the data is not a valid encoded response set.
+     */
+    public static ResponseSet decodeResponseSet(byte[] data) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(data));
+        readHeader(in, RESPONSE_SET_MAGIC);
+        ResponseSet set = new ResponseSet();
+        set.setResponseSetVersion(readString(in));
+        set.setServiceID(readString(in));
+        set.setRequestSetID(readString(in));
+        int count = readCount(in);
+        for (int i = 0; i < count; i++) {
+            Response response = new Response();
+            response.setDtdID(readString(in));
+            response.setContent(readString(in));
+            set.addResponse(response);
+        }
+        return set;
+    }
+
+    private static void writeHeader(DataOutputStream out, int magic, String version, String serviceId,
+            String requestSetId) throws IOException {
+        out.writeInt(magic);
+        out.writeByte(FORMAT_VERSION);
+        writeString(out, version);
+        writeString(out, serviceId);
+        writeString(out, requestSetId);
+    }
+
+    private static void readHeader(DataInputStream in, int magic) throws IOException {
+        if (in.readInt() != magic) {
+            throw new IOException("Not a binary encoded PLL set");
+        }
+        byte version = in.readByte();
+        if (version != FORMAT_VERSION) {
+            throw new IOException("Unsupported binary PLL format version " + version);
+        }
+    }
+
+    private static int readCount(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0 || count > in.available()) {
+            throw new IOException("Invalid element count " + count);
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+        } else {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+    }
+
+    private static String readString(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length == -1) {
+            return null;
+        }
+        if (length < 0 || length > in.available()) {
+            throw new IOException("Invalid string length " + length);
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: ResponseSet.java,v 1.2 2008/06/25 05:41:35 qcheng Exp $
  *
@@ -192,4 +193,20 @@ public class ResponseSet {
     void setServiceID(String id) {
         serviceID = id;
     }
+
+    /*
+     * The following methods are used by PLLBinaryCodec to encode a
+     * ResponseSet object.
+     */
+    String getResponseSetVersion() {
+        return responseSetVersion;
+    }
+
+    String getServiceID() {
+        return serviceID;
+    }
+
+    String getRequestSetID() {
+        return requestSetID;
+    }
 }
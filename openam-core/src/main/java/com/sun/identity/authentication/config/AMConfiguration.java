@@ -25,6 +25,7 @@
  * $Id: AMConfiguration.java,v 1.9 2009/12/23 20:03:04 mrudul_uchil Exp $
  *
  * Portions Copyrighted 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.authentication.config;
@@ -293,7 +294,7 @@ public class AMConfiguration extends Configuration {
                 }
             }
             ServiceConfig service = scm.getOrganizationConfig(orgDN, null);
-            Map attrs = service.getAttributes();
+            Map attrs = service.getAttributesForRead();
             Set configValues;
             if (isConsole) {
                 configValues = (Set)attrs.get(ISAuthConstants.AUTHCONFIG_ADMIN);
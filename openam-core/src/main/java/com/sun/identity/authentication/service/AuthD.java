@@ -26,6 +26,7 @@
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
  * Portions Copyrighted 2016 Nomura Research Institute, Ltd.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.authentication.service;
 
@@ -1238,7 +1239,7 @@ public class AuthD implements ConfigurationListener {
             ServiceConfig svcConfig =
                 orgConfigMgr.getServiceConfig(
                     ISAuthConstants.AUTH_SERVICE_NAME);
-            Map attrs = svcConfig.getAttributes();
+            Map attrs = svcConfig.getAttributesForRead();
             orgAuthConfig = Misc.getMapAttr(attrs,
                 ISAuthConstants.AUTHCONFIG_ORG);
         } catch (Exception e) {
@@ -25,6 +25,7 @@
  * $Id: AuthUtils.java,v 1.33 2009/12/15 16:39:47 qcheng Exp $
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.authentication.service;
 
@@ -38,6 +39,7 @@ import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.function.Function;
 
 import javax.security.auth.callback.Callback;
 import javax.servlet.http.Cookie;
@@ -87,6 +89,7 @@ import com.sun.identity.sm.DNMapper;
 import com.sun.identity.sm.SMSException;
 import com.sun.identity.sm.ServiceConfig;
 import com.sun.identity.sm.ServiceConfigManager;
+import com.sun.identity.sm.ServiceConfigSnapshot;
 import com.sun.identity.sm.ServiceSchema;
 import com.sun.identity.sm.ServiceSchemaManager;
 
@@ -1731,6 +1734,18 @@ public class AuthUtils extends AuthClientUtils {
         }
     }
 
+    /**
+     * Builds the ZPL configuration from the attributes of the authentication service, once per configuration change.
+     */
+    private static final Function<ServiceConfigSnapshot, ZeroPageLoginConfig> ZERO_PAGE_LOGIN_CONFIG = snapshot -> {
+        final Map<String, Set<String>> configMap = snapshot.getAttributes();
+        return new ZeroPageLoginConfig(
+                CollectionHelper.getBooleanMapAttr(configMap, Constants.ZERO_PAGE_LOGIN_ENABLED, false),
+                configMap.get(Constants.ZERO_PAGE_LOGIN_WHITELIST),
+                CollectionHelper.getBooleanMapAttr(configMap, Constants.ZERO_PAGE_LOGIN_ALLOW_MISSING_REFERER, true)
+        );
+    };
+
     /**
      * Gets the ZPL configuration for the given realm.
      *
@@ -1744,12 +1759,6 @@ public class AuthUtils extends AuthClientUtils {
         final SSOToken token = AccessController.doPrivileged(AdminTokenAction.getInstance());
         final ServiceConfigManager mgr = new ServiceConfigManager(ISAuthConstants.AUTH_SERVICE_NAME, token);
         final ServiceConfig serviceConfig = mgr.getOrganizationConfig(realm, null);
-        @SuppressWarnings("unchecked")
-        final Map<String, Set<String>> configMap = serviceConfig.getAttributes();
-        return new ZeroPageLoginConfig(
-                CollectionHelper.getBooleanMapAttr(configMap, Constants.ZERO_PAGE_LOGIN_ENABLED, false),
-                configMap.get(Constants.ZERO_PAGE_LOGIN_WHITELIST),
-                CollectionHelper.getBooleanMapAttr(configMap, Constants.ZERO_PAGE_LOGIN_ALLOW_MISSING_REFERER, true)
-        );
+        return serviceConfig.getSnapshot().getView(ZERO_PAGE_LOGIN_CONFIG);
     }
 }
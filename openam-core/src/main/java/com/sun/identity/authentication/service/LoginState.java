@@ -26,7 +26,7 @@
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
  * Portions Copyrighted 2016 Nomura Research Institute, Ltd.
- * Portions Copyrighted 2022-2023 Wren Security
+ * Portions Copyrighted 2022-2026 Wren Security
  */
 
 package com.sun.identity.authentication.service;
@@ -671,18 +671,19 @@ public class LoginState {
             ServiceConfig svcConfig =
                     orgConfigMgr.getServiceConfig(ISAuthConstants.AUTH_SERVICE_NAME);
 
-            Map<String, Set<String>> attrs = svcConfig.getAttributes();
+            // read from the shared snapshot, copying only the sets this login state may modify
+            Map<String, Set<String>> attrs = svcConfig.getAttributesForRead();
             stateless = CollectionHelper.getBooleanMapAttr(attrs, ISAuthConstants.AUTH_STATELESS_SESSIONS, false);
 
             aliasAttrNames = attrs.get(ISAuthConstants.AUTH_ALIAS_ATTR);
-            identityTypes = attrs.get(ISAuthConstants.AUTH_ID_TYPE_ATTR);
+            identityTypes = copyOf(attrs.get(ISAuthConstants.AUTH_ID_TYPE_ATTR));
             userSessionMapping = attrs.get(ISAuthConstants.
                     USER_SESSION_MAPPING);
 
             userNamingAttr = CollectionHelper.getMapAttr(
                     attrs, ISAuthConstants.AUTH_NAMING_ATTR, "uid");
 
-            defaultRoles = attrs.get(ISAuthConstants.AUTH_DEFAULT_ROLE);
+            defaultRoles = copyOf(attrs.get(ISAuthConstants.AUTH_DEFAULT_ROLE));
 
             String tmp = CollectionHelper.getMapAttr(
                     attrs, ISAuthConstants.DYNAMIC_PROFILE);
@@ -5123,6 +5124,10 @@ public class LoginState {
         this.lastCallbackSent = lastCallbackSent;
     }
 
+    private static Set<String> copyOf(Set<String> values) {
+        return values == null ? null : new HashSet<>(values);
+    }
+
     /**
      * This function is to get the redirect url from a set of urls
      * based on client type. Each url will be of the form
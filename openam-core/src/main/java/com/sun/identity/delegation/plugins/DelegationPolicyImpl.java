@@ -25,6 +25,7 @@
  * $Id: DelegationPolicyImpl.java,v 1.12 2010/01/16 06:35:25 dillidorai Exp $
  *
  * Portions Copyrighted 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.delegation.plugins;
@@ -676,7 +677,8 @@ public class DelegationPolicyImpl implements DelegationInterface, ServiceListene
         }
 
         // Clear the SubjectEvaluationCache on any identity changes if active and not empty.
-        if (SubjectEvaluationCache.subjectEvalCacheTTL > 0 && !SubjectEvaluationCache.subjectEvaluationCache.isEmpty()) {
+        if (SubjectEvaluationCache.getSubjectEvalTTL() > 0
+                && !SubjectEvaluationCache.subjectEvaluationCache.isEmpty()) {
             SubjectEvaluationCache.subjectEvaluationCache.clear();
             if (DelegationManager.debug.messageEnabled()) {
                DelegationManager.debug.message(
@@ -0,0 +1,189 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.entitlement;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.LockSupport;
+
+import org.forgerock.openam.entitlement.PolicyConstants;
+
+/**
+ * Evaluates a list of policies on a work-stealing {@link ForkJoinPool}.
+ * <p>
+ * The policies are split recursively until each subtask holds no more than a threshold derived from the number of
+ * policies and the pool parallelism. Subtasks publish their results to a lock-free queue, from which the calling
+ * thread feeds the {@link EntitlementCombiner}. Once the combiner has reached a decision, such as a deny which
+ * overrides every action, the remaining subtasks stop evaluating policies.
+ */
+final class ForkJoinPrivilegeEvaluation {
+
+    /**
+     * Evaluation of a single policy.
+     */
+    interface PolicyEvaluation {
+
+        /**
+         * @param privilege the policy to evaluate.
+         * @return the entitlements granted by the policy, or {@code null} if none apply.
+         * @throws EntitlementException if the policy could not be evaluated.
+         */
+        List<Entitlement> evaluate(IPrivilege privilege) throws EntitlementException;
+    }
+
+    /** Error code for "Policy Evaluation failed.". */
+    private static final int EVALUATION_FAILED = 100;
+
+    /** Number of subtasks to aim for per pool thread, to leave work for idle threads to steal. */
+    private static final int SUBTASKS_PER_THREAD = 4;
+
+    private final List<IPrivilege> policies;
+    private final PolicyEvaluation evaluation;
+    private final int threshold;
+    private final Thread caller = Thread.currentThread();
+    private final ConcurrentLinkedQueue<List<Entitlement>> results = new ConcurrentLinkedQueue<>();
+    private final AtomicReference<EntitlementException> failure = new AtomicReference<>();
+    private volatile Throwable unexpectedFailure;
+    private volatile boolean cancelled;
+    private volatile boolean finished;
+
+    private ForkJoinPrivilegeEvaluation(List<IPrivilege> policies, PolicyEvaluation evaluation, int parallelism) {
+        this.policies = policies;
+        this.evaluation = evaluation;
+        this.threshold = Math.max(1, policies.size() / (parallelism * SUBTASKS_PER_THREAD));
+    }
+
+    /**
+     * Evaluates the policies on the given pool, adding their results to the combiner from the calling thread.
+     *
+     * @param pool the pool to evaluate policies on.
+     * @param policies the policies to evaluate.
+     * @param evaluation the evaluation of a single policy.
+     * @param combiner the combiner to add results to until it is done.
+     * @throws EntitlementException if any of the policies could not be evaluated, or the calling thread was
+     * interrupted while waiting for the results, in which case its interrupt status is restored.
+     */
+    static void evaluate(ForkJoinPool pool, List<IPrivilege> policies, PolicyEvaluation evaluation,
+            EntitlementCombiner combiner) throws EntitlementException {
+        if (policies.isEmpty()) {
+            return;
+        }
+        new ForkJoinPrivilegeEvaluation(policies, evaluation, pool.getParallelism()).combine(pool, combiner);
+    }
+
+    private void combine(ForkJoinPool pool, EntitlementCombiner combiner) throws EntitlementException {
+        pool.execute(new PolicyTask(null, 0, policies.size()));
+        boolean interrupted = false;
+        try {
+            while (true) {
+                // read before draining, so that results published before completion are not missed
+                boolean completed = finished;
+                for (List<Entitlement> entitlements = results.poll(); entitlements != null && !cancelled;
+                        entitlements = results.poll()) {
+                    combiner.add(entitlements);
+                    cancelled = combiner.isDone();
+                }
+                if (completed || cancelled || failure.get() != null) {
+                    break;
+                }
+                LockSupport.park(this);
+                if (Thread.interrupted()) {
+                    interrupted = true;
+                    break;
+                }
+            }
+        } finally {
+            cancelled = true;
+        }
+
+        if (interrupted) {
+            // The results received so far are incomplete, so fail the evaluation rather than return them
+            PolicyConstants.DEBUG.error("ForkJoinPrivilegeEvaluation.combine: interrupted");
+            Thread.currentThread().interrupt();
+            throw new EntitlementException(EVALUATION_FAILED, new InterruptedException());
+        }
+
+        if (failure.get() != null) {
+            throw failure.get();
+        }
+        if (unexpectedFailure instanceof RuntimeException) {
+            throw (RuntimeException) unexpectedFailure;
+        } else if (unexpectedFailure instanceof Error) {
+            throw (Error) unexpectedFailure;
+        }
+    }
+
+    /**
+     * Evaluates a range of the policies, forking off the upper half of the range while it exceeds the threshold.
+     */
+    private final class PolicyTask extends CountedCompleter<Void> {
+
+        private final int from;
+        private final int to;
+
+        private PolicyTask(PolicyTask parent, int from, int to) {
+            super(parent);
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public void compute() {
+            int high = to;
+            while (high - from > threshold && !cancelled) {
+                int middle = (from + high) >>> 1;
+                addToPendingCount(1);
+                new PolicyTask(this, middle, high).fork();
+                high = middle;
+            }
+            for (int i = from; i < high && !cancelled; i++) {
+                try {
+                    List<Entitlement> entitlements = evaluation.evaluate(policies.get(i));
+                    if (entitlements != null) {
+                        results.add(entitlements);
+                        LockSupport.unpark(caller);
+                    }
+                } catch (EntitlementException e) {
+                    failure.compareAndSet(null, e);
+                    cancelled = true;
+                    LockSupport.unpark(caller);
+                }
+            }
+            tryComplete();
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> completer) {
+            if (getCompleter() == null) {
+                finished = true;
+                LockSupport.unpark(caller);
+            }
+        }
+
+        @Override
+        public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> completer) {
+            if (getCompleter() == null) {
+                unexpectedFailure = ex;
+                finished = true;
+                LockSupport.unpark(caller);
+            }
+            return true;
+        }
+    }
+}
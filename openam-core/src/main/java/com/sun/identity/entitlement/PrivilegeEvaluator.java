@@ -25,6 +25,7 @@
  * $Id: PrivilegeEvaluator.java,v 1.2 2009/10/07 06:36:40 veiming Exp $
  *
  * Portions Copyrighted 2010-2017 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.entitlement;
 
@@ -33,15 +34,14 @@ import static org.forgerock.openam.entitlement.utils.EntitlementUtils.getApplica
 import static org.forgerock.openam.entitlement.utils.EntitlementUtils.getEntitlementConfiguration;
 
 import java.security.Principal;
+import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.locks.Condition;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.ForkJoinPool;
 
 import javax.security.auth.Subject;
 
@@ -49,8 +49,9 @@ import org.forgerock.openam.entitlement.PolicyConstants;
 import org.forgerock.openam.entitlement.PrivilegeEvaluatorContext;
 import org.forgerock.openam.session.util.AppTokenHandler;
 import org.forgerock.openam.utils.CollectionUtils;
+import org.forgerock.util.thread.listener.ShutdownListener;
 
-import com.sun.identity.entitlement.interfaces.IThreadPool;
+import com.sun.identity.common.ShutdownManager;
 import com.sun.identity.shared.debug.Debug;
 
 /**
@@ -73,16 +74,13 @@ class PrivilegeEvaluator {
     private EntitlementCombiner entitlementCombiner;
     private boolean recursive;
     private EntitlementException eException;
-    private final Lock lock = new ReentrantLock();
-    private final Condition hasResults = lock.newCondition();
 
     // Static variables
     // TODO determine number of tasks per thread
     private static int evalThreadSize = Evaluator.DEFAULT_POLICY_EVAL_THREAD;
     private static final int TASKS_PER_THREAD = 5;
 
-    private static final IThreadPool threadPool;
-    private static final boolean isMultiThreaded;
+    private static final ForkJoinPool forkJoinPool;
 
     static {
         EntitlementConfiguration ec = getEntitlementConfiguration(SUPER_ADMIN_SUBJECT, "/");
@@ -99,8 +97,18 @@ class PrivilegeEvaluator {
                     e);
             }
         }
-        isMultiThreaded = evalThreadSize > 1;
-        threadPool = isMultiThreaded ? new EntitlementThreadPool(evalThreadSize) : new SequentialThreadPool();
+        // Policies are evaluated on the calling thread unless the evaluation thread pool size allows more threads
+        forkJoinPool = evalThreadSize > 1 ? createForkJoinPool(evalThreadSize) : null;
+    }
+
+    private static ForkJoinPool createForkJoinPool(int parallelism) {
+        final ForkJoinPool pool = new ForkJoinPool(parallelism);
+        ShutdownManager.getInstance().addShutdownListener(new ShutdownListener() {
+            public void shutdown() {
+                pool.shutdownNow();
+            }
+        });
+        return pool;
     }
 
     /**
@@ -272,26 +280,8 @@ class PrivilegeEvaluator {
         final PrivilegeIndexStore indexStore = PrivilegeIndexStore.getInstance(adminSubject, realm);
         final Iterator<IPrivilege> policyIterator = indexStore.search(realm, indexes, subjectIndexes, recursive);
 
-        int totalCount = 0;
-        IPrivilege policy;
-
-        // First collect policies to be evaluated locally.
-        final Set<IPrivilege> localBatch = new HashSet<IPrivilege>(2 * TASKS_PER_THREAD);
-        while (totalCount < TASKS_PER_THREAD && policyIterator.hasNext()) {
-            policy = policyIterator.next();
-
-            if (policy instanceof ReferralPrivilege) {
-                // We want to ignore referrals - deprecated.
-                continue;
-            }
-
-            if (debug.messageEnabled()) {
-                debug.message("[PolicyEval] PolicyEvaluator.evaluate");
-                debug.message("[PolicyEval] search result: privilege=" + policy.getName());
-            }
-
-            localBatch.add(policy);
-            totalCount++;
+        if (forkJoinPool != null) {
+            return evaluateOnForkJoinPool(realm, policyIterator);
         }
 
         // Define an evaluation context.
@@ -299,13 +289,11 @@ class PrivilegeEvaluator {
                 new PrivilegeEvaluatorContext(realm, normalisedResourceName, applicationName);
         final Object appToken = AppTokenHandler.getAndClear();
 
-        // Submit additional policies to be executed by worker threads.
-        final Set<IPrivilege> threadBatch = new HashSet<IPrivilege>(2 * TASKS_PER_THREAD);
-        boolean tasksSubmitted = false;
+        // Evaluate the policies in batches on the calling thread.
+        final Set<IPrivilege> batch = new HashSet<IPrivilege>(2 * TASKS_PER_THREAD);
 
-        while (policyIterator.hasNext()) {
-            tasksSubmitted = true;
-            policy = policyIterator.next();
+        while (policyIterator.hasNext() && eException == null) {
+            IPrivilege policy = policyIterator.next();
 
             if (policy instanceof ReferralPrivilege) {
                 // We want to ignore referrals - deprecated.
@@ -317,37 +305,20 @@ class PrivilegeEvaluator {
                 debug.message("[PolicyEval] search result: privilege=" + policy.getName());
             }
 
-            threadBatch.add(policy);
-            totalCount++;
+            batch.add(policy);
 
-            if (threadBatch.size() == TASKS_PER_THREAD) {
-                final Set<IPrivilege> copiedBatch = new HashSet<IPrivilege>(threadBatch);
-                threadPool.submit(new PrivilegeTask(this, copiedBatch, isMultiThreaded, appToken, context));
-                threadBatch.clear();
+            if (batch.size() == TASKS_PER_THREAD) {
+                new PrivilegeTask(this, batch, appToken, context).run();
+                batch.clear();
             }
         }
 
-        if (!threadBatch.isEmpty()) {
-            // Submit any remaining policies.
-            threadPool.submit(new PrivilegeTask(this, threadBatch, isMultiThreaded, appToken, context));
+        if (!batch.isEmpty() && eException == null) {
+            // Evaluate any remaining policies.
+            new PrivilegeTask(this, batch, appToken, context).run();
         }
 
-        // Submit the local policies.
-        final Runnable localTask = new PrivilegeTask(this, localBatch, tasksSubmitted, appToken, context);
-        localTask.run();
-
-        // Wait for submitted threads to complete evaluation.
-        if (tasksSubmitted) {
-            if (isMultiThreaded) {
-                receiveEvalResults(totalCount);
-            } else {
-                boolean isDone = false;
-                while (!resultQ.isEmpty() && !isDone) {
-                    entitlementCombiner.add(resultQ.remove(0));
-                    isDone = entitlementCombiner.isDone();
-                }
-            }
-        } else if (eException == null) {
+        if (eException == null) {
             boolean isDone = false;
             while (!resultQ.isEmpty() && !isDone) {
                 entitlementCombiner.add(resultQ.remove(0));
@@ -363,29 +334,70 @@ class PrivilegeEvaluator {
         return entitlementCombiner.getResults();
     }
 
-    private void receiveEvalResults(int totalCount) {
-        int counter = 0;
-        lock.lock();
-        boolean isDone = (eException != null);
+    /**
+     * Evaluates the policies on the work-stealing pool, or on the calling thread if there are only a few of them.
+     *
+     * @param realm
+     *         the evaluation realm
+     * @param policyIterator
+     *         the policies relevant to the request
+     *
+     * @return a list of applicable entitlements
+     *
+     * @throws EntitlementException
+     */
+    private List<Entitlement> evaluateOnForkJoinPool(String realm, Iterator<IPrivilege> policyIterator)
+            throws EntitlementException {
+        final Debug debug = PolicyConstants.DEBUG;
+
+        final List<IPrivilege> policies = new ArrayList<IPrivilege>();
+        while (policyIterator.hasNext()) {
+            IPrivilege policy = policyIterator.next();
 
-        try {
-            while (!isDone && (counter < totalCount)) {
-                if (resultQ.isEmpty()) {
-                    hasResults.await();
-                }
-                while (!resultQ.isEmpty() && !isDone) {
-                    entitlementCombiner.add(resultQ.remove(0));
-                    isDone = entitlementCombiner.isDone();
-                    counter++;
+            if (policy instanceof ReferralPrivilege) {
+                // We want to ignore referrals - deprecated.
+                continue;
+            }
+
+            if (debug.messageEnabled()) {
+                debug.message("[PolicyEval] PolicyEvaluator.evaluate");
+                debug.message("[PolicyEval] search result: privilege=" + policy.getName());
+            }
+
+            policies.add(policy);
+        }
+
+        final PrivilegeEvaluatorContext context =
+                new PrivilegeEvaluatorContext(realm, normalisedResourceName, applicationName);
+        final Object appToken = AppTokenHandler.getAndClear();
+
+        if (policies.size() <= TASKS_PER_THREAD) {
+            PrivilegeEvaluatorContext.setCurrent(context);
+            for (Iterator<IPrivilege> i = policies.iterator(); i.hasNext() && !entitlementCombiner.isDone(); ) {
+                List<Entitlement> entitlements = evaluatePrivilege(i.next(), appToken);
+                if (entitlements != null) {
+                    entitlementCombiner.add(entitlements);
                 }
             }
-        } catch (InterruptedException ex) {
-            PolicyConstants.DEBUG.error("PrivilegeEvaluator.evaluate", ex);
-        } finally {
-            lock.unlock();
+        } else {
+            ForkJoinPrivilegeEvaluation.evaluate(forkJoinPool, policies,
+                    new ForkJoinPrivilegeEvaluation.PolicyEvaluation() {
+                        @Override
+                        public List<Entitlement> evaluate(IPrivilege privilege) throws EntitlementException {
+                            PrivilegeEvaluatorContext.setCurrent(context);
+                            return evaluatePrivilege(privilege, appToken);
+                        }
+                    }, entitlementCombiner);
         }
+
+        return entitlementCombiner.getResults();
+    }
+
+    private List<Entitlement> evaluatePrivilege(IPrivilege privilege, Object appToken) throws EntitlementException {
+        return privilege.evaluate(adminSubject, realm, subject, applicationName, normalisedResourceName,
+                requestedResourceName, actionNames, envParameters, recursive, appToken);
     }
-    
+
     private Application getApplication()
         throws EntitlementException {
         if (application == null) {
@@ -402,15 +414,13 @@ class PrivilegeEvaluator {
     class PrivilegeTask implements Runnable {
         final PrivilegeEvaluator parent;
         private final Set<IPrivilege> privileges;
-        private final boolean isThreaded;
         private final Object context;
         private final PrivilegeEvaluatorContext ctx;
 
         PrivilegeTask(PrivilegeEvaluator parent, Set<IPrivilege> privileges,
-            boolean isThreaded, Object context, PrivilegeEvaluatorContext ctx) {
+            Object context, PrivilegeEvaluatorContext ctx) {
             this.parent = parent;
             this.privileges = privileges;
-            this.isThreaded = isThreaded;
             this.context = context;
             this.ctx = ctx;
         }
@@ -420,40 +430,14 @@ class PrivilegeEvaluator {
             
             try {
                 for (final IPrivilege eval : privileges) {
-                    List<Entitlement> entitlements = eval.evaluate(
-                                            parent.adminSubject,
-                                            parent.realm, parent.subject,
-                                            parent.applicationName, parent.normalisedResourceName,
-                                            parent.requestedResourceName,
-                                            parent.actionNames, parent.envParameters,
-                                            parent.recursive, context);
+                    List<Entitlement> entitlements = parent.evaluatePrivilege(eval, context);
 
                     if (entitlements != null) {
-                        if (isThreaded) {
-                            try {
-                                parent.lock.lock();
-                                parent.resultQ.add(entitlements);
-                                parent.hasResults.signal();
-                            } finally {
-                                parent.lock.unlock();
-                            }
-                        } else {
-                            parent.resultQ.add(entitlements);
-                        }
+                        parent.resultQ.add(entitlements);
                     }
                 }
             } catch (EntitlementException ex) {
-                if (isThreaded) {
-                    try {
-                        parent.lock.lock();
-                        parent.eException = ex;
-                        parent.hasResults.signal();
-                    } finally {
-                        parent.lock.unlock();
-                    }
-                } else {
-                    parent.eException = ex;
-                }
+                parent.eException = ex;
             }
         }
     }
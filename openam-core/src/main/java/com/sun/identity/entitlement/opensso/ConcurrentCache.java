@@ -0,0 +1,334 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.entitlement.opensso;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import org.forgerock.openam.utils.collections.SampledEviction;
+
+/**
+ * Concurrent, size bounded replacement for {@link Cache}.
+ * <p>
+ * Entries are held in a {@link ConcurrentHashMap} so reads never take a lock and writes only
+ * contend on the bin they touch. Rather than maintaining an exact LRU list, which forces every
+ * read to serialize on the list, each entry records the time it was last accessed. When the
+ * cache grows beyond its maximum size a small sample of entries is taken from random positions
+ * in the cache and the least recently used of those is evicted, see {@link SampledEviction}.
+ * <p>
+ * Neither keys nor values may be {@code null}. Iterators are weakly consistent and never throw
+ * {@link java.util.ConcurrentModificationException}.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class ConcurrentCache<K, V> extends AbstractMap<K, V> implements ConcurrentMap<K, V> {
+
+    /**
+     * Number of entries inspected when choosing an eviction victim.
+     */
+    static final int DEFAULT_SAMPLE_SIZE = 8;
+
+    private static final Comparator<Node<?>> LEAST_RECENTLY_USED = Comparator.comparingLong(node -> node.lastAccess);
+
+    private final String name;
+    private final int maxSize;
+    private final int sampleSize;
+    private final ConcurrentHashMap<K, Node<V>> map;
+    private final EntrySet entrySet = new EntrySet();
+
+    /**
+     * Constructs a new, empty cache.
+     *
+     * @param name Name of cache.
+     * @param initCapacity The initial capacity of the cache.
+     * @param maxSize The maximum number of entries held by the cache.
+     * @throws IllegalArgumentException If the capacity or maximum size is negative.
+     */
+    public ConcurrentCache(String name, int initCapacity, int maxSize) {
+        this(name, initCapacity, maxSize, DEFAULT_SAMPLE_SIZE);
+    }
+
+    ConcurrentCache(String name, int initCapacity, int maxSize, int sampleSize) {
+        if (initCapacity < 0) {
+            throw new IllegalArgumentException("Illegal Capacity: " + initCapacity);
+        }
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maxSize);
+        }
+        this.name = name;
+        this.maxSize = Math.max(1, maxSize);
+        this.sampleSize = Math.max(1, sampleSize);
+        this.map = new ConcurrentHashMap<>(Math.max(1, Math.min(initCapacity, this.maxSize)));
+    }
+
+    /**
+     * Returns name.
+     *
+     * @return name.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the maximum number of entries held by this cache.
+     *
+     * @return the maximum size.
+     */
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return map.containsKey(key);
+    }
+
+    @Override
+    public V get(Object key) {
+        Node<V> node = map.get(key);
+        if (node == null) {
+            return null;
+        }
+        node.touch();
+        return node.value;
+    }
+
+    @Override
+    public V put(K key, V value) {
+        checkNotNull(value);
+        return added(map.put(key, new Node<>(value)));
+    }
+
+    @Override
+    public V putIfAbsent(K key, V value) {
+        checkNotNull(value);
+        Node<V> existing = map.putIfAbsent(key, new Node<>(value));
+        if (existing != null) {
+            existing.touch();
+            return existing.value;
+        }
+        return added(null);
+    }
+
+    @Override
+    public V remove(Object key) {
+        return valueOf(map.remove(key));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value) {
+        if (value == null) {
+            return false;
+        }
+        boolean[] removed = new boolean[1];
+        map.computeIfPresent((K) key, (k, node) -> {
+            if (node.value.equals(value)) {
+                removed[0] = true;
+                return null;
+            }
+            return node;
+        });
+        return removed[0];
+    }
+
+    @Override
+    public boolean replace(K key, V oldValue, V newValue) {
+        checkNotNull(oldValue);
+        checkNotNull(newValue);
+        boolean[] replaced = new boolean[1];
+        map.computeIfPresent(key, (k, node) -> {
+            if (node.value.equals(oldValue)) {
+                replaced[0] = true;
+                return new Node<>(newValue);
+            }
+            return node;
+        });
+        return replaced[0];
+    }
+
+    @Override
+    public V replace(K key, V value) {
+        checkNotNull(value);
+        return valueOf(map.replace(key, new Node<>(value)));
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return compute(key, (k, v) -> v == null ? mappingFunction.apply(k) : v);
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return compute(key, (k, v) -> v == null ? null : remappingFunction.apply(k, v));
+    }
+
+    /**
+     * Atomically computes a new value for the key. The remapping function is invoked at most once
+     * while the key's bin is locked, so updates to mutable values such as index buckets can be made
+     * in place without any further locking.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        boolean[] added = new boolean[1];
+        Node<V> node = map.compute(key, (k, existing) -> {
+            V oldValue = valueOf(existing);
+            V newValue = remappingFunction.apply(k, oldValue);
+            if (newValue == null) {
+                return null;
+            }
+            if (newValue == oldValue) {
+                existing.touch();
+                return existing;
+            }
+            added[0] = existing == null;
+            return new Node<>(newValue);
+        });
+        if (added[0]) {
+            evictIfNecessary();
+        }
+        return valueOf(node);
+    }
+
+    @Override
+    public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        checkNotNull(value);
+        return compute(key, (k, v) -> v == null ? value : remappingFunction.apply(v, value));
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    private V added(Node<V> previous) {
+        if (previous == null) {
+            evictIfNecessary();
+        }
+        return valueOf(previous);
+    }
+
+    private void evictIfNecessary() {
+        while (map.size() > maxSize) {
+            if (!evictOne()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evicts the least recently used entry out of a sample taken from random positions in the cache.
+     *
+     * @return {@code false} if the cache was empty and nothing could be evicted.
+     */
+    private boolean evictOne() {
+        Map.Entry<K, Node<V>> victim = SampledEviction.chooseVictim(map, sampleSize, LEAST_RECENTLY_USED);
+        if (victim == null) {
+            return false;
+        }
+        // only remove the node that was sampled, a concurrent put may already have replaced it
+        map.remove(victim.getKey(), victim.getValue());
+        return true;
+    }
+
+    private static <V> V valueOf(Node<V> node) {
+        return node == null ? null : node.value;
+    }
+
+    private static void checkNotNull(Object value) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+    }
+
+    /**
+     * Holds a cached value together with the time it was last read or written.
+     */
+    private static final class Node<V> {
+        private final V value;
+        private volatile long lastAccess;
+
+        private Node(V value) {
+            this.value = value;
+            this.lastAccess = System.nanoTime();
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            final Iterator<Map.Entry<K, Node<V>>> delegate = map.entrySet().iterator();
+            return new Iterator<Entry<K, V>>() {
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    Map.Entry<K, Node<V>> entry = delegate.next();
+                    return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value);
+                }
+
+                @Override
+                public void remove() {
+                    delegate.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+}
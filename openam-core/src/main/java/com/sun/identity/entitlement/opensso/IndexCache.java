@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: IndexCache.java,v 1.3 2009/12/12 00:03:13 veiming Exp $
  *
@@ -32,11 +33,14 @@ import com.sun.identity.entitlement.ResourceSaveIndexes;
 import com.sun.identity.entitlement.ResourceSearchIndexes;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Caches the indexes which are stored in Directory Server.
+ * <p>
+ * Each index maps to a bucket of privilege DNs. Buckets are updated atomically per index, so a
+ * privilege being cached or cleared only affects the buckets for its own indexes and lookups
+ * proceed without locking.
  */
 public class IndexCache {
     public static final String HOST_ID = "host";
@@ -46,13 +50,10 @@ public class IndexCache {
 
     private static final int CACHE_BUCKET_LIMIT = 25;
 
-    private int size = 1000000;
-    private int initCapacity;
-    private Cache subjectIndexCache;
-    private Cache hostIndexCache;
-    private Cache pathIndexCache;
-    private Cache parentPathIndexCache;
-    private ReadWriteLock rwlock = new ReentrantReadWriteLock();
+    private final ConcurrentCache<String, Set<String>> subjectIndexCache;
+    private final ConcurrentCache<String, Set<String>> hostIndexCache;
+    private final ConcurrentCache<String, Set<String>> pathIndexCache;
+    private final ConcurrentCache<String, Set<String>> parentPathIndexCache;
 
     /**
      * Constructs
@@ -60,9 +61,11 @@ public class IndexCache {
      * @param size Size of cache.
      */
     public IndexCache(int size) {
-        this.size = size;
-        initCapacity = (int) (size * 0.01d);
-        clearCaches();
+        int initCapacity = (int) (size * 0.01d);
+        subjectIndexCache = new ConcurrentCache<>(SUBJECT_ID, initCapacity, size);
+        hostIndexCache = new ConcurrentCache<>(HOST_ID, initCapacity, size);
+        pathIndexCache = new ConcurrentCache<>(PATH_ID, initCapacity, size);
+        parentPathIndexCache = new ConcurrentCache<>(PARENTPATH_ID, initCapacity, size);
     }
 
     /**
@@ -84,31 +87,22 @@ public class IndexCache {
         cache(dn, indexes.getParentPathIndexes(), parentPathIndexCache);
     }
 
-    private void cache(String dn, Set<String> indexes, Cache cache) {
-        rwlock.writeLock().lock();
-
-        try {
-            for (String s : indexes) {
-                String lc = s.toLowerCase();
-                Set<String> setDNs = (Set<String>)cache.get(lc);
+    private void cache(String dn, Set<String> indexes, ConcurrentCache<String, Set<String>> cache) {
+        final String cacheName = cache.getName();
+        for (String s : indexes) {
+            cache.compute(s.toLowerCase(), (lc, setDNs) -> {
                 if (setDNs == null) {
-                    setDNs = new HashSet<String>();
-                    cache.put(lc, setDNs);
+                    setDNs = ConcurrentHashMap.newKeySet();
                     setDNs.add(dn);
-                } else {
-                    String cacheName = cache.getName();
-                    if (!CacheTaboo.isTaboo(cacheName, lc)) {
-                        if (setDNs.size() >= CACHE_BUCKET_LIMIT) {
-                            CacheTaboo.taboo(cacheName, lc);
-                            cache.remove(lc);
-                        } else {
-                            setDNs.add(dn);
-                        }
+                } else if (!CacheTaboo.isTaboo(cacheName, lc)) {
+                    if (setDNs.size() >= CACHE_BUCKET_LIMIT) {
+                        CacheTaboo.taboo(cacheName, lc);
+                        return null;
                     }
+                    setDNs.add(dn);
                 }
-            }
-        } finally {
-            rwlock.writeLock().unlock();
+                return setDNs;
+            });
         }
     }
 
@@ -126,29 +120,12 @@ public class IndexCache {
         }
     }
 
-    private void clear(String dn, Set<String> indexes, Cache cache) {
-        rwlock.writeLock().lock();
-        try {
-            for (String s : indexes) {
-                Set<String> setDNs = (Set<String>)cache.get(s);
-                if (setDNs != null) {
-                    setDNs.remove(dn);
-                }
-            }
-        } finally {
-            rwlock.writeLock().unlock();
-        }
-    }
-
-    private synchronized void clearCaches() {
-        rwlock.writeLock().lock();
-        try {
-            subjectIndexCache = new Cache(SUBJECT_ID, initCapacity, size);
-            hostIndexCache = new Cache(HOST_ID, initCapacity, size);
-            pathIndexCache = new Cache(PATH_ID, initCapacity, size);
-            parentPathIndexCache = new Cache(PARENTPATH_ID, initCapacity, size);
-        } finally {
-            rwlock.writeLock().unlock();
+    private void clear(String dn, Set<String> indexes, ConcurrentCache<String, Set<String>> cache) {
+        for (String s : indexes) {
+            cache.computeIfPresent(s.toLowerCase(), (lc, setDNs) -> {
+                setDNs.remove(dn);
+                return setDNs.isEmpty() ? null : setDNs;
+            });
         }
     }
 
@@ -165,43 +142,37 @@ public class IndexCache {
         Set<String> subjectIndexes,
         boolean bSubTree
     ) {
-        rwlock.readLock().lock();
-        try {
-            Set<String> results = new HashSet<String>();
-
-            boolean hasSubjectIndexes = (subjectIndexes != null) &&
-                !subjectIndexes.isEmpty();
-
-            if (hasSubjectIndexes) {
-                for (String i : subjectIndexes) {
-                    Set<String> r = (Set<String>)subjectIndexCache.get(i);
-                    if (r != null) {
-                        results.addAll(r);
-                    }
-                }
-                results.retainAll(getHostIndexes(indexes));
-            } else {
-                results.addAll(getHostIndexes(indexes));
-            }
+        Set<String> results = new HashSet<String>();
+
+        boolean hasSubjectIndexes = (subjectIndexes != null) &&
+            !subjectIndexes.isEmpty();
 
-            if (bSubTree) {
-                results.retainAll(getPathParentIndexes(indexes));
-            } else {
-                results.retainAll(getPathIndexes(indexes));
+        if (hasSubjectIndexes) {
+            for (String i : subjectIndexes) {
+                Set<String> r = subjectIndexCache.get(i.toLowerCase());
+                if (r != null) {
+                    results.addAll(r);
+                }
             }
+            results.retainAll(getHostIndexes(indexes));
+        } else {
+            results.addAll(getHostIndexes(indexes));
+        }
 
-            return results;
-        } finally {
-            rwlock.readLock().unlock();
+        if (bSubTree) {
+            results.retainAll(getPathParentIndexes(indexes));
+        } else {
+            results.retainAll(getPathIndexes(indexes));
         }
+
+        return results;
     }
 
     private Set<String> getPathParentIndexes(ResourceSearchIndexes indexes) {
         Set<String> parentPathIndexes = indexes.getParentPathIndexes();
         Set<String> results = new HashSet<String>();
         for (String i : parentPathIndexes) {
-            Set<String> r = (Set<String>) parentPathIndexCache.get(
-                i.toLowerCase());
+            Set<String> r = parentPathIndexCache.get(i.toLowerCase());
             if (r != null) {
                 results.addAll(r);
             }
@@ -213,7 +184,7 @@ public class IndexCache {
         Set<String> pathIndexes = indexes.getPathIndexes();
         Set<String> results = new HashSet<String>();
         for (String i : pathIndexes) {
-            Set<String> r = (Set<String>) pathIndexCache.get(i.toLowerCase());
+            Set<String> r = pathIndexCache.get(i.toLowerCase());
             if (r != null) {
                 results.addAll(r);
             }
@@ -224,7 +195,7 @@ public class IndexCache {
         Set<String> results = new HashSet<String>();
         Set<String> hostIndexes = indexes.getHostIndexes();
         for (String i : hostIndexes) {
-            Set<String> r = (Set<String>) hostIndexCache.get(i.toLowerCase());
+            Set<String> r = hostIndexCache.get(i.toLowerCase());
             if (r != null) {
                 results.addAll(r);
             }
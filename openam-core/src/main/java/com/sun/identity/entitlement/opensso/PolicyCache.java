@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: PolicyCache.java,v 1.3 2009/12/12 00:03:13 veiming Exp $
  *
@@ -30,24 +31,22 @@
 package com.sun.identity.entitlement.opensso;
 
 import com.sun.identity.entitlement.Privilege;
-import java.util.HashMap;
 import com.sun.identity.entitlement.ReferralPrivilege;
 import java.util.Map;
-import java.util.concurrent.locks.ReadWriteLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Policy Cache
  */
 class PolicyCache {
-    private Cache cache;
-    private HashMap<String, Integer> countByRealm;
-    private ReadWriteLock rwlock = new ReentrantReadWriteLock();
+    private final ConcurrentCache<String, Object> cache;
+    private final ConcurrentMap<String, Integer> countByRealm;
 
     PolicyCache(String name, int size) {
         int initCapacity = (int) (size * 0.01d);
-        cache = new Cache(name, initCapacity, size);
-        countByRealm = new HashMap<String, Integer>();
+        cache = new ConcurrentCache<>(name, initCapacity, size);
+        countByRealm = new ConcurrentHashMap<>();
     }
 
     /**
@@ -57,17 +56,10 @@ class PolicyCache {
      * @param p Privilege.
      */
     public void cache(String dn, Privilege p, String realm) {
-        rwlock.writeLock().lock();
-        try {
-            Object e = cache.put(dn, p);
-            if (e == null) {
-                // Update count only if added, not if replaced
-                Integer i = countByRealm.get(realm);
-                int count = (i == null) ? 1 : i.intValue() + 1;
-                countByRealm.put(realm, count);
-            }
-        } finally {
-            rwlock.writeLock().unlock();
+        Object e = cache.put(dn, p);
+        if (e == null) {
+            // Update count only if added, not if replaced
+            countByRealm.merge(realm, 1, Integer::sum);
         }
     }
 
@@ -78,55 +70,32 @@ class PolicyCache {
      * @param p Referral privilege.
      */
     public void cache(String dn, ReferralPrivilege p, String realm) {
-        rwlock.writeLock().lock();
-        try {
-            cache.put(dn, p);
-        } finally {
-            rwlock.writeLock().unlock();
-        }
+        cache.put(dn, p);
     }
 
     public void cache(Map<String, Privilege> privileges, boolean force) {
-        rwlock.writeLock().lock();
-        try {
-            for (String dn : privileges.keySet()) {
-                if (force) {
+        for (String dn : privileges.keySet()) {
+            if (force) {
+                cache.put(dn, privileges.get(dn));
+            } else {
+                Privilege p = (Privilege)privileges.get(dn);
+                if (p == null) {
                     cache.put(dn, privileges.get(dn));
-                } else {
-                    Privilege p = (Privilege)privileges.get(dn);
-                    if (p == null) {
-                        cache.put(dn, privileges.get(dn));
-                    }
                 }
             }
-        } finally {
-            rwlock.writeLock().unlock();
         }
     }
 
     public void decache(String dn, String realm) {
-        rwlock.writeLock().lock();
-        try {
-            Object p = cache.remove(dn);
-            if (p != null) {
-                // Update cache only if entry removed from cache
-                Integer i = countByRealm.get(realm);
-                if (i != null) {
-                    countByRealm.put(realm, i.intValue() - 1);
-                }
-            }
-        } finally {
-            rwlock.writeLock().unlock();
+        Object p = cache.remove(dn);
+        if (p != null) {
+            // Update cache only if entry removed from cache
+            countByRealm.computeIfPresent(realm, (r, i) -> i - 1);
         }
     }
 
     public Privilege getPolicy(String dn) {
-        rwlock.readLock().lock();
-        try {
-            return (Privilege)cache.get(dn);
-        } finally {
-            rwlock.readLock().unlock();
-        }
+        return (Privilege)cache.get(dn);
     }
     
     /**
@@ -137,13 +106,8 @@ class PolicyCache {
      * @return cached policies for the realm
      */
     public int getCount(String realm) {
-        rwlock.readLock().lock();
-        try {
-            Integer integer = countByRealm.get(realm);
-            return (integer != null) ? integer : 0;
-        } finally {
-            rwlock.readLock().unlock();
-        }
+        Integer integer = countByRealm.get(realm);
+        return (integer != null) ? integer : 0;
     }
 
     /**
@@ -151,24 +115,14 @@ class PolicyCache {
      * @return cached policies.
      */
     public int getCount() {
-        rwlock.readLock().lock();
-        try {
-            int total = 0;
-            for (Integer i : countByRealm.values()) {
-                total += i;
-            }
-            return total;
-        } finally {
-            rwlock.readLock().unlock();
+        int total = 0;
+        for (Integer i : countByRealm.values()) {
+            total += i;
         }
+        return total;
     }
 
     public ReferralPrivilege getReferral(String dn) {
-        rwlock.readLock().lock();
-        try {
-            return (ReferralPrivilege)cache.get(dn);
-        } finally {
-            rwlock.readLock().unlock();
-        }
+        return (ReferralPrivilege)cache.get(dn);
     }
 }
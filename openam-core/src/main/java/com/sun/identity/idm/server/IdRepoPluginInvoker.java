@@ -0,0 +1,308 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.idm.server;
+
+import static org.forgerock.openam.utils.Time.currentTimeMillis;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+import org.forgerock.guice.core.InjectorHolder;
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
+import org.forgerock.util.annotations.VisibleForTesting;
+
+import com.iplanet.am.util.SystemProperties;
+import com.iplanet.sso.SSOException;
+import com.sun.identity.idm.IdRepo;
+import com.sun.identity.idm.IdRepoException;
+import com.sun.identity.idm.IdRepoFatalException;
+import com.sun.identity.shared.debug.Debug;
+import com.sun.identity.shared.stats.Stats;
+
+/**
+ * Calls an operation on each of the IdRepo plugins configured for a realm and returns the outcomes in plugin order, so
+ * that callers can merge them as if the plugins had been called one after another. The time taken by every plugin is
+ * recorded in the "amIdRepoPlugins" stats.
+ * <p>
+ * By default the plugins are called one after another on the calling thread. When {@link #PARALLEL_PROPERTY} is
+ * enabled, they are called concurrently, and a plugin that has not answered within {@link #TIMEOUT_PROPERTY}
+ * milliseconds is reported as having failed. In both modes, a result that is definitive for the operation, or an error
+ * that the caller cannot recover from, means the plugins ordered after it are not waited for. The plugins ordered
+ * before it are always waited for, so the outcomes are the same as if the plugins had been called one after another.
+ */
+final class IdRepoPluginInvoker {
+
+    /** Whether the plugins are called concurrently. */
+    static final String PARALLEL_PROPERTY = "org.forgerock.openam.idm.plugins.parallel.enabled";
+    /** Time in milliseconds to wait for the plugins when they are called concurrently. */
+    static final String TIMEOUT_PROPERTY = "org.forgerock.openam.idm.plugins.parallel.timeout";
+    /** Maximum number of threads calling plugins concurrently. */
+    static final String POOL_SIZE_PROPERTY = "org.forgerock.openam.idm.plugins.parallel.poolSize";
+
+    private static final Debug DEBUG = Debug.getInstance("amIdm");
+    private static final Map<String, Latency> latencies = new ConcurrentHashMap<>();
+    private static final LongAdder timeouts = new LongAdder();
+    private static final LongAdder shortCircuits = new LongAdder();
+
+    static {
+        final Stats stats = Stats.getInstance("amIdRepoPlugins");
+        stats.addStatsListener(() -> {
+            StringBuilder sb = new StringBuilder("IdRepo plugin calls:")
+                    .append("\nTimed out: ").append(timeouts.sum())
+                    .append("\nShort-circuited: ").append(shortCircuits.sum());
+            for (Map.Entry<String, Latency> latency : latencies.entrySet()) {
+                sb.append("\n").append(latency.getKey()).append(": ").append(latency.getValue());
+            }
+            stats.record(sb.toString());
+        });
+    }
+
+    /**
+     * An operation called on a plugin.
+     *
+     * @param <T> The type of the result of the operation.
+     */
+    interface PluginCall<T> {
+        T call(IdRepo idRepo) throws IdRepoException, SSOException;
+    }
+
+    /**
+     * The result of calling an operation on a plugin, or the error it failed with.
+     *
+     * @param <T> The type of the result of the operation.
+     */
+    static final class Outcome<T> {
+        private final IdRepo idRepo;
+        private final T result;
+        private final Throwable error;
+
+        private Outcome(IdRepo idRepo, T result, Throwable error) {
+            this.idRepo = idRepo;
+            this.result = result;
+            this.error = error;
+        }
+
+        IdRepo getIdRepo() {
+            return idRepo;
+        }
+
+        /**
+         * Returns the result of the operation, or throws the error the plugin failed with.
+         */
+        T get() throws IdRepoException, SSOException {
+            if (error instanceof IdRepoException) {
+                throw (IdRepoException) error;
+            } else if (error instanceof SSOException) {
+                throw (SSOException) error;
+            } else if (error instanceof RuntimeException) {
+                throw (RuntimeException) error;
+            } else if (error instanceof Error) {
+                throw (Error) error;
+            }
+            return result;
+        }
+
+        private boolean isFinal(Predicate<T> definitive) {
+            if (error == null) {
+                return definitive != null && definitive.test(result);
+            }
+            return !(error instanceof IdRepoException) || error instanceof IdRepoFatalException;
+        }
+    }
+
+    private final boolean parallel;
+    private final long timeout;
+    private final int poolSize;
+    private volatile ExecutorService executor;
+
+    IdRepoPluginInvoker() {
+        this(SystemProperties.getAsBoolean(PARALLEL_PROPERTY, false),
+                SystemProperties.getAsLong(TIMEOUT_PROPERTY, 5000),
+                SystemProperties.getAsInt(POOL_SIZE_PROPERTY, 32), null);
+    }
+
+    IdRepoPluginInvoker(boolean parallel, long timeout, int poolSize, ExecutorService executor) {
+        this.parallel = parallel;
+        this.timeout = timeout;
+        this.poolSize = poolSize;
+        this.executor = executor;
+    }
+
+    /**
+     * Calls the operation on the plugins.
+     *
+     * @param operation The name of the operation, used in the stats.
+     * @param plugins The plugins, in the order their outcomes are merged.
+     * @param call The operation.
+     * @param definitive Matches results that make the outcome of the other plugins irrelevant, may be null.
+     * @param <T> The type of the result of the operation.
+     * @return The outcomes in plugin order. If a result was definitive or a plugin failed with an error other than a
+     * non fatal {@link IdRepoException}, the outcomes end with the first such plugin.
+     */
+    <T> List<Outcome<T>> invoke(String operation, Collection<IdRepo> plugins, PluginCall<T> call,
+            Predicate<T> definitive) {
+        if (!parallel || plugins.size() < 2) {
+            List<Outcome<T>> outcomes = new ArrayList<>(plugins.size());
+            for (IdRepo idRepo : plugins) {
+                Outcome<T> outcome = run(operation, idRepo, call);
+                outcomes.add(outcome);
+                if (outcome.isFinal(definitive)) {
+                    return shortCircuit(outcomes, plugins.size());
+                }
+            }
+            return outcomes;
+        }
+
+        List<IdRepo> repos = new ArrayList<>(plugins);
+        AtomicReferenceArray<Outcome<T>> results = new AtomicReferenceArray<>(repos.size());
+        BlockingQueue<Integer> completed = new LinkedBlockingQueue<>();
+        for (int i = 0; i < repos.size(); i++) {
+            final int index = i;
+            final IdRepo idRepo = repos.get(i);
+            Runnable task = () -> {
+                results.set(index, run(operation, idRepo, call));
+                completed.add(index);
+            };
+            try {
+                getExecutor().execute(task);
+            } catch (RejectedExecutionException ree) {
+                // Every thread is busy, call the plugin on this thread instead
+                task.run();
+            }
+        }
+
+        long deadline = currentTimeMillis() + timeout;
+        // index of the first plugin whose outcome has not been checked yet
+        int next = 0;
+        try {
+            for (int pending = repos.size(); pending > 0; pending--) {
+                if (completed.poll(deadline - currentTimeMillis(), TimeUnit.MILLISECONDS) == null) {
+                    break;
+                }
+                // the outcomes of earlier plugins are merged first, so a final outcome is only acted on once every
+                // plugin before it has answered
+                for (; next < repos.size() && results.get(next) != null; next++) {
+                    if (results.get(next).isFinal(definitive)) {
+                        List<Outcome<T>> outcomes = new ArrayList<>(next + 1);
+                        for (int i = 0; i <= next; i++) {
+                            outcomes.add(results.get(i));
+                        }
+                        return shortCircuit(outcomes, repos.size());
+                    }
+                }
+            }
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<Outcome<T>> outcomes = new ArrayList<>(repos.size());
+        for (int i = 0; i < repos.size(); i++) {
+            Outcome<T> outcome = results.get(i);
+            if (outcome == null) {
+                IdRepo idRepo = repos.get(i);
+                timeouts.increment();
+                DEBUG.warning("IdRepoPluginInvoker.invoke: {} did not complete {} within {}ms",
+                        idRepo.getClass().getName(), operation, timeout);
+                outcome = new Outcome<>(idRepo, null, new IdRepoException(idRepo.getClass().getName()
+                        + " did not complete " + operation + " within " + timeout + "ms"));
+            }
+            outcomes.add(outcome);
+        }
+        return outcomes;
+    }
+
+    private static <T> List<Outcome<T>> shortCircuit(List<Outcome<T>> outcomes, int plugins) {
+        if (outcomes.size() < plugins) {
+            shortCircuits.increment();
+        }
+        return outcomes;
+    }
+
+    /**
+     * Returns the number of calls which ended before every plugin had answered.
+     */
+    @VisibleForTesting
+    static long getShortCircuitCount() {
+        return shortCircuits.sum();
+    }
+
+    private <T> Outcome<T> run(String operation, IdRepo idRepo, PluginCall<T> call) {
+        long start = System.nanoTime();
+        Outcome<T> outcome;
+        try {
+            outcome = new Outcome<>(idRepo, call.call(idRepo), null);
+        } catch (IdRepoException | SSOException | RuntimeException | Error e) {
+            outcome = new Outcome<>(idRepo, null, e);
+        }
+        String key = operation + " " + idRepo.getClass().getName();
+        Latency latency = latencies.get(key);
+        if (latency == null) {
+            latencies.putIfAbsent(key, new Latency());
+            latency = latencies.get(key);
+        }
+        latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+        return outcome;
+    }
+
+    private ExecutorService getExecutor() {
+        if (executor == null) {
+            synchronized (this) {
+                if (executor == null) {
+                    executor = InjectorHolder.getInstance(AMExecutorServiceFactory.class).createThreadPool(
+                            poolSize, poolSize, 60, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(),
+                            "IdRepoPluginInvoker");
+                }
+            }
+        }
+        return executor;
+    }
+
+    /**
+     * Call count and time taken by the calls of an operation on a plugin.
+     */
+    private static final class Latency {
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder totalMicros = new LongAdder();
+        private final LongAccumulator maxMicros = new LongAccumulator(Math::max, 0);
+
+        private void record(long micros) {
+            calls.increment();
+            totalMicros.add(micros);
+            maxMicros.accumulate(micros);
+        }
+
+        @Override
+        public String toString() {
+            long count = calls.sum();
+            return "calls=" + count
+                    + " average(us)=" + (count == 0 ? 0 : totalMicros.sum() / count)
+                    + " max(us)=" + maxMicros.get();
+        }
+    }
+}
@@ -25,6 +25,7 @@
  * $Id: IdRepoPluginsCache.java,v 1.8 2009/11/10 01:52:37 hengming Exp $
  *
  * Portions Copyrighted 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.idm.server;
@@ -32,14 +33,15 @@ package com.sun.identity.idm.server;
 import java.security.AccessController;
 import java.util.HashMap;
 import java.util.HashSet;
-import java.util.Hashtable;
 import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.forgerock.guice.core.InjectorHolder;
 import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
@@ -83,8 +85,13 @@ public class IdRepoPluginsCache implements ServiceListener {
     // Cache of IdRepo Plugins
     // The Map contains <orgName, MAP<name, IdRepo object>>
     private Map idrepoPlugins = new HashMap();
-    // Needs to synchronized for get(), put() and clear()
-    private Map readonlyPlugins = new Hashtable();
+    // Read without locking, only the plugin construction is
+    // synchronized on idrepoPlugins
+    private Map<String, Set<IdRepo>> readonlyPlugins =
+        new ConcurrentHashMap<String, Set<IdRepo>>();
+    // Incremented whenever the readonly copies are cleared, so that
+    // a copy computed before the clear is not left in the cache
+    private final AtomicLong readonlyGeneration = new AtomicLong();
 
     private final ScheduledExecutorService scheduler;
     
@@ -110,7 +117,7 @@ public class IdRepoPluginsCache implements ServiceListener {
         // Check the cache
         Map orgRepos = null;
         orgName = DNUtils.normalizeDN(orgName);
-        Set readOrgRepos = (Set) readonlyPlugins.get(orgName);
+        Set readOrgRepos = readonlyPlugins.get(orgName);
         if ((readOrgRepos != null) && !readOrgRepos.isEmpty()) {
             return (readOrgRepos);
         }
@@ -191,10 +198,11 @@ public class IdRepoPluginsCache implements ServiceListener {
         }
         String cacheName = DNUtils.normalizeDN(orgName) + op.toString() +
             type.toString();
-        Set answer = (Set) readonlyPlugins.get(cacheName);
+        Set answer = readonlyPlugins.get(cacheName);
         if ((answer != null) && !answer.isEmpty()) {
             return (answer);
         }
+        long generation = readonlyGeneration.get();
         answer = new OrderedSet();
         Set plugins = getIdRepoPlugins(orgName);
         if ((plugins != null) && !plugins.isEmpty()) {
@@ -218,10 +226,10 @@ public class IdRepoPluginsCache implements ServiceListener {
                 " OrgName: " + orgName + " Op: " + op + " Type: " + type +
                 " Plugins: " + ps);
         }
-        synchronized (idrepoPlugins) {
-            if (answer != null) {
-                readonlyPlugins.put(cacheName, answer);
-            }
+        readonlyPlugins.put(cacheName, answer);
+        if (readonlyGeneration.get() != generation) {
+            // The plugins were cleared while computing the answer
+            readonlyPlugins.remove(cacheName, answer);
         }
         return (answer);
     }
@@ -272,6 +280,7 @@ public class IdRepoPluginsCache implements ServiceListener {
     }
     
     private void clearReadOnlyPlugins(String orgName) {
+        readonlyGeneration.incrementAndGet();
         // clear a readonly copy for the org Name
         for (Iterator items = readonlyPlugins.keySet().iterator();
             items.hasNext();) {
@@ -312,6 +321,7 @@ public class IdRepoPluginsCache implements ServiceListener {
             // Clear readonly cache first.
             // Don't want other theads to get plugins that are
             // shutdown.
+            readonlyGeneration.incrementAndGet();
             readonlyPlugins.clear();
             cache = new HashMap(idrepoPlugins);
             idrepoPlugins.clear();
@@ -25,6 +25,7 @@
  * $Id: IdServicesImpl.java,v 1.61 2010/01/20 01:08:36 goodearth Exp $
  *
  * Portions Copyrighted 2011-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.idm.server;
@@ -60,6 +61,7 @@ import com.sun.identity.idm.IdUtils;
 import com.sun.identity.idm.RepoSearchResults;
 import com.sun.identity.idm.common.IdRepoUtils;
 import com.sun.identity.idm.plugins.internal.SpecialRepo;
+import com.sun.identity.idm.server.IdRepoPluginInvoker.Outcome;
 import com.sun.identity.security.AdminTokenAction;
 import com.sun.identity.shared.datastruct.OrderedSet;
 import com.sun.identity.shared.debug.Debug;
@@ -79,10 +81,12 @@ import org.forgerock.util.thread.listener.ShutdownManager;
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.NameCallback;
 import java.security.AccessController;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -100,6 +104,8 @@ public class IdServicesImpl implements IdServices {
 
    private IdRepoPluginsCache idrepoCache;
 
+   private IdRepoPluginInvoker pluginInvoker;
+
    protected static volatile boolean shutdownCalled;
 
    private static HashSet READ_ACTION = new HashSet(2);
@@ -136,6 +142,7 @@ public class IdServicesImpl implements IdServices {
 
    protected IdServicesImpl() {
        idrepoCache = new IdRepoPluginsCache();
+       pluginInvoker = new IdRepoPluginInvoker();
    }
 
    public void reinitialize() {
@@ -652,36 +659,37 @@ public class IdServicesImpl implements IdServices {
            }
        }
 
-       Iterator it = configuredPluginClasses.iterator();
-       int noOfSuccess = configuredPluginClasses.size();
-       IdRepo idRepo;
-       while (it.hasNext()) {
-           idRepo = (IdRepo) it.next();
-           try {
-               Map cMap = idRepo.getConfiguration();
-               // do stuff to map attr names.
-               Set mappedAttributeNames = mapAttributeNames(attrNames, cMap);
-               Map aMap = null;
-               if (idRepo.getClass().getName()
-                   .equals(IdConstants.AMSDK_PLUGIN) && amsdkDN != null) {
-                   if (isString) {
-                       aMap = idRepo.getAttributes(token, type, amsdkDN,
-                               mappedAttributeNames);
-                   } else {
-                       aMap = idRepo.getBinaryAttributes(token, type, amsdkDN,
-                               mappedAttributeNames);
-                   }
+       List<Outcome<Map>> outcomes = pluginInvoker.invoke("getAttributes", configuredPluginClasses, idRepo -> {
+           Map cMap = idRepo.getConfiguration();
+           // do stuff to map attr names.
+           Set mappedAttributeNames = mapAttributeNames(attrNames, cMap);
+           Map aMap = null;
+           if (idRepo.getClass().getName()
+               .equals(IdConstants.AMSDK_PLUGIN) && amsdkDN != null) {
+               if (isString) {
+                   aMap = idRepo.getAttributes(token, type, amsdkDN,
+                           mappedAttributeNames);
                } else {
-                   if (isString) {
-                       aMap = idRepo.getAttributes(token, type, name,
-                               mappedAttributeNames);
-                   } else {
-                       aMap = idRepo.getBinaryAttributes(token, type, name,
-                               mappedAttributeNames);
-                   }
+                   aMap = idRepo.getBinaryAttributes(token, type, amsdkDN,
+                           mappedAttributeNames);
+               }
+           } else {
+               if (isString) {
+                   aMap = idRepo.getAttributes(token, type, name,
+                           mappedAttributeNames);
+               } else {
+                   aMap = idRepo.getBinaryAttributes(token, type, name,
+                           mappedAttributeNames);
                }
-               aMap = reverseMapAttributeNames(aMap, cMap);
-               attrMapsSet.add(aMap);
+           }
+           return reverseMapAttributeNames(aMap, cMap);
+       }, null);
+       int noOfSuccess = outcomes.size();
+       IdRepo idRepo;
+       for (Outcome<Map> outcome : outcomes) {
+           idRepo = outcome.getIdRepo();
+           try {
+               attrMapsSet.add(outcome.get());
            } catch (IdRepoUnsupportedOpException ide) {
                if (DEBUG.warningEnabled()) {
                    DEBUG.warning(
@@ -764,27 +772,28 @@ public class IdServicesImpl implements IdServices {
            }
        }
 
-       Iterator it = configuredPluginClasses.iterator();
-       int noOfSuccess = configuredPluginClasses.size();
+       List<Outcome<Map>> outcomes = pluginInvoker.invoke("getAttributes", configuredPluginClasses, idRepo -> {
+           Map cMap = idRepo.getConfiguration();
+           Map aMap = null;
+           if (idRepo.getClass().getName()
+               .equals(IdConstants.AMSDK_PLUGIN) && (amsdkDN != null)) {
+               aMap = idRepo.getAttributes(token, type, amsdkDN);
+           } else {
+               aMap = idRepo.getAttributes(token, type, name);
+           }
+           if (DEBUG.messageEnabled()) {
+               DEBUG.message("IdServicesImpl.getAttributes: " +
+                   "before reverseMapAttributeNames aMap=" +
+                    IdRepoUtils.getAttrMapWithoutPasswordAttrs(aMap, null));
+           }
+           return reverseMapAttributeNames(aMap, cMap);
+       }, null);
+       int noOfSuccess = outcomes.size();
 
-       while (it.hasNext()) {
-           IdRepo idRepo = (IdRepo) it.next();
+       for (Outcome<Map> outcome : outcomes) {
+           IdRepo idRepo = outcome.getIdRepo();
            try {
-               Map cMap = idRepo.getConfiguration();
-               Map aMap = null;
-               if (idRepo.getClass().getName()
-                   .equals(IdConstants.AMSDK_PLUGIN) && (amsdkDN != null)) {
-                   aMap = idRepo.getAttributes(token, type, amsdkDN);
-               } else {
-                   aMap = idRepo.getAttributes(token, type, name);
-               }
-               if (DEBUG.messageEnabled()) {
-                   DEBUG.message("IdServicesImpl.getAttributes: " +
-                       "before reverseMapAttributeNames aMap=" +
-                        IdRepoUtils.getAttrMapWithoutPasswordAttrs(aMap, null));
-               }
-               aMap = reverseMapAttributeNames(aMap, cMap);
-               attrMapsSet.add(aMap);
+               attrMapsSet.add(outcome.get());
                if (DEBUG.messageEnabled()) {
                    for(Iterator iter = attrMapsSet.iterator();iter.hasNext();){
                        Map attrMap = (Map)iter.next();
@@ -858,27 +867,30 @@ public class IdServicesImpl implements IdServices {
            throw new IdRepoException(IdRepoBundle.BUNDLE_NAME, IdRepoErrorCode.NO_PLUGINS_CONFIGURED, null);
        }
 
-       Iterator it = configuredPluginClasses.iterator();
-       int noOfSuccess = configuredPluginClasses.size();
+       List<IdRepo> supportingPlugins = new ArrayList<>();
+       for (Iterator it = configuredPluginClasses.iterator(); it.hasNext();) {
+           IdRepo idRepo = (IdRepo) it.next();
+           if (idRepo.getSupportedTypes().contains(membersType) &&
+               !idRepo.getClass().getName().equals(IdConstants.SPECIAL_PLUGIN)) {
+               // Only the plugins that support the idType for memberships
+               supportingPlugins.add(idRepo);
+           }
+       }
+       List<Outcome<Set>> outcomes = pluginInvoker.invoke("getMembers", supportingPlugins, idRepo ->
+               idRepo.getClass().getName().equals(IdConstants.AMSDK_PLUGIN) && (amsdkDN != null) ?
+                   idRepo.getMembers(token, type, amsdkDN, membersType) :
+                   idRepo.getMembers(token, type, name, membersType), null);
+       int noOfSuccess = outcomes.size();
        Set membersSet = new HashSet();
        Set amsdkMembers = new HashSet();
        boolean amsdkIncluded = false;
 
-       while (it.hasNext()) {
-           IdRepo idRepo = (IdRepo) it.next();
-           if (!idRepo.getSupportedTypes().contains(membersType) ||
-               idRepo.getClass().getName().equals(IdConstants.SPECIAL_PLUGIN)) {
-               // IdRepo plugin does not support the idType for
-               // memberships
-               noOfSuccess--;
-               continue;
-           }
+       for (Outcome<Set> outcome : outcomes) {
+           IdRepo idRepo = outcome.getIdRepo();
            try {
                boolean isAMSDK = idRepo.getClass().getName().equals(
                        IdConstants.AMSDK_PLUGIN);
-               Set members = (isAMSDK && (amsdkDN != null)) ?
-                   idRepo.getMembers(token, type, amsdkDN, membersType) :
-                   idRepo.getMembers(token, type, name, membersType);
+               Set members = outcome.get();
                if (isAMSDK) {
                    amsdkMembers.addAll(members);
                    amsdkIncluded = true;
@@ -974,27 +986,30 @@ public class IdServicesImpl implements IdServices {
            }
        }
 
-       Iterator it = configuredPluginClasses.iterator();
-       int noOfSuccess = configuredPluginClasses.size();
+       List<IdRepo> supportingPlugins = new ArrayList<>();
+       for (Iterator it = configuredPluginClasses.iterator(); it.hasNext();) {
+           IdRepo idRepo = (IdRepo) it.next();
+           if (idRepo.getSupportedTypes().contains(membershipType) &&
+               !idRepo.getClass().getName().equals(IdConstants.SPECIAL_PLUGIN)) {
+               // Only the plugins that support the idType for memberships
+               supportingPlugins.add(idRepo);
+           }
+       }
+       List<Outcome<Set>> outcomes = pluginInvoker.invoke("getMemberships", supportingPlugins, idRepo ->
+               idRepo.getClass().getName().equals(IdConstants.AMSDK_PLUGIN) && (amsdkDN != null) ?
+                   idRepo.getMemberships(token, type, amsdkDN, membershipType)
+                   : idRepo.getMemberships(token, type, name, membershipType), null);
+       int noOfSuccess = outcomes.size();
        Set membershipsSet = new HashSet();
        Set amsdkMemberShips = new HashSet();
        boolean amsdkIncluded = false;
 
-       while (it.hasNext()) {
-           IdRepo idRepo = (IdRepo)it.next();
-           if (!idRepo.getSupportedTypes().contains(membershipType) ||
-               idRepo.getClass().getName().equals(IdConstants.SPECIAL_PLUGIN)) {
-               // IdRepo plugin does not support the idType for
-               // memberships
-               noOfSuccess--;
-               continue;
-           }
+       for (Outcome<Set> outcome : outcomes) {
+           IdRepo idRepo = outcome.getIdRepo();
            try {
                boolean isAMSDK = idRepo.getClass().getName().equals(
                        IdConstants.AMSDK_PLUGIN);
-               Set members = (isAMSDK && (amsdkDN != null)) ?
-                   idRepo.getMemberships(token, type, amsdkDN, membershipType)
-                   : idRepo.getMemberships(token, type, name, membershipType);
+               Set members = outcome.get();
                if (isAMSDK) {
                    amsdkMemberShips.addAll(members);
                    amsdkIncluded = true;
@@ -1081,13 +1096,14 @@ public class IdServicesImpl implements IdServices {
            }
        }
 
-       // Iterate through other plugins
-       Iterator it = configuredPluginClasses.iterator();
+       // Iterate through other plugins, the first one to find the
+       // identity answers for all of them
+       List<Outcome<Boolean>> outcomes = pluginInvoker.invoke("isExists", configuredPluginClasses,
+               idRepo -> idRepo.isExists(token, type, name), Boolean.TRUE::equals);
        boolean exists = false;
        try {
-           while (it.hasNext()) {
-               IdRepo idRepo = (IdRepo) it.next();
-               exists = idRepo.isExists(token, type, name);
+           for (Outcome<Boolean> outcome : outcomes) {
+               exists = outcome.get();
                if (exists) {
                    break;
                }
@@ -1134,24 +1150,25 @@ public class IdServicesImpl implements IdServices {
            }
        }
 
-       // Iterator through the plugins
-       Iterator it = configuredPluginClasses.iterator();
-       int noOfSuccess = configuredPluginClasses.size();
-       boolean active = false;
-       while (it.hasNext()) {
+       // Iterator through the plugins, the special plugin has already
+       // been checked above
+       List<IdRepo> plugins = new ArrayList<>();
+       for (Iterator it = configuredPluginClasses.iterator(); it.hasNext();) {
            IdRepo idRepo = (IdRepo) it.next();
+           if (!idRepo.getClass().getName().equals(IdConstants.SPECIAL_PLUGIN)) {
+               plugins.add(idRepo);
+           }
+       }
+       List<Outcome<Boolean>> outcomes = pluginInvoker.invoke("isActive", plugins, idRepo ->
+               idRepo.getClass().getName().equals(IdConstants.AMSDK_PLUGIN) && (amsdkDN != null) ?
+                   idRepo.isActive(token, type, amsdkDN) : idRepo.isActive(token, type, name),
+               Boolean.TRUE::equals);
+       int noOfSuccess = plugins.size();
+       boolean active = false;
+       for (Outcome<Boolean> outcome : outcomes) {
+           IdRepo idRepo = outcome.getIdRepo();
            try {
-               if (idRepo.getClass().getName().equals(
-                   IdConstants.AMSDK_PLUGIN) && (amsdkDN != null)) {
-                   active = idRepo.isActive(token, type, amsdkDN);
-               } else if (idRepo.getClass().getName().equals(
-                   IdConstants.SPECIAL_PLUGIN)) {
-                   // Already checked above
-                   noOfSuccess--;
-                   continue;
-               } else {
-                   active = idRepo.isActive(token, type, name);
-               }
+               active = outcome.get();
                if (active) {
                    break;
                }
@@ -1475,7 +1492,6 @@ public class IdServicesImpl implements IdServices {
            throw new IdRepoException(IdRepoBundle.BUNDLE_NAME, IdRepoErrorCode.NO_PLUGINS_CONFIGURED, null);
        }
 
-       Iterator it = configuredPluginClasses.iterator();
        int noOfSuccess = configuredPluginClasses.size();
        IdRepo idRepo;
        Object[][] amsdkResults = new Object[1][2];
@@ -1499,14 +1515,16 @@ public class IdServicesImpl implements IdServices {
        Map avPairs = ctrl.getSearchModifierMap();
        boolean recursive = ctrl.isRecursive();
 
-       while (it.hasNext()) {
-           idRepo = (IdRepo) it.next();
+       final SSOToken searchToken = token;
+       final int searchFilterOp = filterOp;
+       List<Outcome<RepoSearchResults>> outcomes = pluginInvoker.invoke("search", configuredPluginClasses,
+               plugin -> plugin.search(searchToken, type, crestQuery, maxTime, maxResults, returnAttrs,
+                           returnAllAttrs, searchFilterOp, avPairs, recursive), null);
+       for (Outcome<RepoSearchResults> outcome : outcomes) {
+           idRepo = outcome.getIdRepo();
            try {
                Map cMap = idRepo.getConfiguration();
-               RepoSearchResults results;
-
-               results = idRepo.search(token, type, crestQuery, maxTime, maxResults, returnAttrs,
-                           returnAllAttrs, filterOp, avPairs, recursive);
+               RepoSearchResults results = outcome.get();
 
                if (idRepo.getClass().getName()
                        .equals(IdConstants.AMSDK_PLUGIN)) {
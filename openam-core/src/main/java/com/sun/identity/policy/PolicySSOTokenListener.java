@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: PolicySSOTokenListener.java,v 1.4 2008/06/25 05:43:44 qcheng Exp $
  *
@@ -120,7 +121,7 @@ public class PolicySSOTokenListener
             }
 
             // clean up the subject evaluation cache
-            SubjectEvaluationCache.subjectEvaluationCache.remove(tokenIdStr);
+            SubjectEvaluationCache.removeEntries(tokenIdStr);
             if (debug.messageEnabled()) {
                 debug.message("PolicySSOTokenListener.ssoTokenChanged():"
                     +"cleaned up subject evaluation cache for an expired token" 
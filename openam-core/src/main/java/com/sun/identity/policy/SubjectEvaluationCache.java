@@ -25,6 +25,7 @@
  * $Id: SubjectEvaluationCache.java,v 1.4 2008/06/25 05:43:45 qcheng Exp $
  *
  * Portions Copyrighted 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.policy;
@@ -32,12 +33,16 @@ package com.sun.identity.policy;
 import static org.forgerock.openam.utils.Time.*;
 
 import java.util.Map;
-import java.util.HashMap;
-import java.util.Collections;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 
+import com.iplanet.am.util.SystemProperties;
+import com.sun.identity.entitlement.opensso.ConcurrentCache;
 import com.sun.identity.sm.ServiceManager;
 import com.sun.identity.shared.debug.Debug;
 import com.sun.identity.shared.stats.Stats;
+import org.forgerock.util.annotations.VisibleForTesting;
 
 /* 
  * This class maintains the Subject Evaluation Cache
@@ -67,55 +72,95 @@ public class SubjectEvaluationCache {
     *               subjectId2 --> [timeToLive, isMember]
     *                ....
     *                ....
+    * The number of tokens held is bounded by SUBJECT_EVAL_CACHE_MAX_SIZE,
+    * expired subject entries are dropped as they are encountered and all
+    * entries of a token are dropped when its session is destroyed.
     */
 
-    // A value of 0 indicates do not cache.
-    public static long subjectEvalCacheTTL = 0; // milliseconds
+    /**
+     * Property holding the maximum number of session tokens for which subject evaluation results are cached.
+     */
+    public static final String SUBJECT_EVAL_CACHE_MAX_SIZE =
+            "com.sun.identity.policy.subjectEvaluationCache.maxSize";
 
-    public static Map<String, Map<String, Long[]>> subjectEvaluationCache;
+    // A value of 0 indicates do not cache, a negative value that it has not yet been read from the configuration.
+    public static volatile long subjectEvalCacheTTL = -1; // milliseconds
+
+    public static ConcurrentMap<String, Map<String, Long[]>> subjectEvaluationCache;
 
     //in milliseconds
     private static final long DEFAULT_SUBJECT_EVAL_CACHE_TTL = 600000;
-    private static final Debug DEBUG = PolicyManager.debug;
+    private static final int DEFAULT_SUBJECT_EVAL_CACHE_MAX_SIZE = 100000;
+    private static final Debug DEBUG = Debug.getInstance(PolicyManager.POLICY_DEBUG_NAME);
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+
+    static {
+        subjectEvaluationCache = createCache();
+    }
 
     /**
-     * Initializes the <code>SubjectEvaluationCache</code>.
-     * Uses configuration specified in Policy Configuration Service.
+     * Creates the cache, bounded to the size given by {@link #SUBJECT_EVAL_CACHE_MAX_SIZE}.
+     * @return an empty cache.
      */
-    static {
-        subjectEvaluationCache = new HashMap<String, Map<String, Long[]>>();
+    @VisibleForTesting
+    static ConcurrentMap<String, Map<String, Long[]>> createCache() {
+        int maxSize = SystemProperties.getAsInt(SUBJECT_EVAL_CACHE_MAX_SIZE, DEFAULT_SUBJECT_EVAL_CACHE_MAX_SIZE);
+        if (maxSize <= 0) {
+            DEBUG.warning("Invalid subject evaluation cache size {}. Set size to default: {}", maxSize,
+                    DEFAULT_SUBJECT_EVAL_CACHE_MAX_SIZE);
+            maxSize = DEFAULT_SUBJECT_EVAL_CACHE_MAX_SIZE;
+        }
+        if (DEBUG.messageEnabled()) {
+            DEBUG.message("SubjectEvaluationCache maxSize=" + maxSize);
+        }
+        return new ConcurrentCache<>("SubjectEvaluationCache", Math.min(maxSize, 1024), maxSize);
+    }
+
+    /**
+     * Returns the duration for which subject evaluation results would be cached
+     * @return the duration for which subject evaluation results would be cached
+     * from the time of evaluation,  expressed in milliseconds. A value of 0 means
+     * don't cache.
+     */
+    public static long getSubjectEvalTTL() {
+        long ttl = subjectEvalCacheTTL;
+        if (ttl < 0) {
+            ttl = readSubjectEvalTTL();
+            subjectEvalCacheTTL = ttl;
+        }
+        return ttl;
+    }
+
+    /**
+     * Reads the time to live of subject evaluation results from the Policy Configuration Service.
+     */
+    private static long readSubjectEvalTTL() {
+        long ttl;
         String orgName = ServiceManager.getBaseDN();
         try {
             Map pConfigValues = PolicyConfig.getPolicyConfig(orgName);
-            subjectEvalCacheTTL = PolicyConfig.getSubjectsResultTtl(pConfigValues);
-            if (subjectEvalCacheTTL < 0) {
-                subjectEvalCacheTTL = DEFAULT_SUBJECT_EVAL_CACHE_TTL;
+            ttl = PolicyConfig.getSubjectsResultTtl(pConfigValues);
+            if (ttl < 0) {
+                ttl = DEFAULT_SUBJECT_EVAL_CACHE_TTL;
                 if (DEBUG.warningEnabled()) {
                     DEBUG.warning("Invalid Subject TTL got from "
                         + "configuration. Set TTL to default:"
-                        + subjectEvalCacheTTL);
+                        + ttl);
                 }
             }
         } catch ( PolicyException pe ) {
-            subjectEvalCacheTTL = DEFAULT_SUBJECT_EVAL_CACHE_TTL;
+            ttl = DEFAULT_SUBJECT_EVAL_CACHE_TTL;
             if (DEBUG.warningEnabled()) {
                 DEBUG.warning("Could not read Policy Config data"
-                    + ". Set TTL to default:" + subjectEvalCacheTTL, pe);
+                    + ". Set TTL to default:" + ttl, pe);
             }
         }
         if (DEBUG.messageEnabled()) {
-            DEBUG.message("subjectEvalCacheTTL=" + subjectEvalCacheTTL);
+            DEBUG.message("subjectEvalCacheTTL=" + ttl);
         }
-    }
-
-    /**
-     * Returns the duration for which subject evaluation results would be cached
-     * @return the duration for which subject evaluation results would be cached
-     * from the time of evaluation,  expressed in milliseconds. A value of 0 means
-     * don't cache.
-     */
-    public static long getSubjectEvalTTL() {
-        return subjectEvalCacheTTL;
+        return ttl;
     }
 
     /**
@@ -133,21 +178,18 @@ public class SubjectEvaluationCache {
         boolean member) {
 
         // A value of 0 for the subjectEvalCacheTTL means caching is disabled.
-        if (subjectEvalCacheTTL > 0) {
+        long ttl = getSubjectEvalTTL();
+        if (ttl > 0) {
             String subjectId = ldapServer+":"+valueDN;            
             Long[] elem = new Long[2];
-            synchronized (subjectEvaluationCache) {
-                elem[0] = currentTimeMillis() + getSubjectEvalTTL();
-                elem[1] = (member == true) ? Long.valueOf(1) : Long.valueOf(0);
-                Map<String, Long[]> subjectEntries = subjectEvaluationCache.get(tokenID);
-                if (subjectEntries != null) {
-                    subjectEntries.put(subjectId, elem);
-                } else {
-                    subjectEntries = Collections.synchronizedMap(new HashMap<String, Long[]>());
-                    subjectEntries.put(subjectId, elem);
-                    subjectEvaluationCache.put(tokenID, subjectEntries);
-                }
-            }
+            elem[0] = currentTimeMillis() + ttl;
+            elem[1] = member ? Long.valueOf(1) : Long.valueOf(0);
+            // Put under the lock of the token entry, so it cannot land in a map isMember has just emptied and dropped
+            subjectEvaluationCache.compute(tokenID, (k, subjectEntries) -> {
+                Map<String, Long[]> entries = subjectEntries == null ? new ConcurrentHashMap<>() : subjectEntries;
+                entries.put(subjectId, elem);
+                return entries;
+            });
         }
     }
 
@@ -166,7 +208,7 @@ public class SubjectEvaluationCache {
         Boolean member = null;
 
         // A value of 0 for the subjectEvalCacheTTL means caching is disabled.
-        if (subjectEvalCacheTTL > 0) {
+        if (getSubjectEvalTTL() > 0) {
             String subjectId = ldapServer+":"+valueDN;
             Map<String, Long[]> subjectEntries = subjectEvaluationCache.get(tokenID);
             if (subjectEntries != null) {
@@ -180,13 +222,55 @@ public class SubjectEvaluationCache {
                             + " getting the membership result from cache.\n");
                         }
                         member = Boolean.valueOf(element[1].longValue() == 1);
+                    } else {
+                        subjectEvaluationCache.computeIfPresent(tokenID, (k, v) -> {
+                            v.remove(subjectId, element);
+                            return v.isEmpty() ? null : v;
+                        });
                     }
                 }
             }
+            if (member != null) {
+                hits.increment();
+            } else {
+                misses.increment();
+            }
         }
         return member; 
     }
 
+    /**
+     * Removes all cached membership results of the user identified by session token id.
+     * @param tokenID session token id of user
+     */
+    public static void removeEntries(String tokenID) {
+        subjectEvaluationCache.remove(tokenID);
+    }
+
+    /**
+     * Returns the number of lookups answered from the cache.
+     * @return the number of cache hits since startup.
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of lookups which could not be answered from the cache.
+     * @return the number of cache misses since startup.
+     */
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of session tokens currently held in the cache.
+     * @return the number of cached session tokens.
+     */
+    public static int getSize() {
+        return subjectEvaluationCache.size();
+    }
+
     /**
      * Records number of cached entries in <code>Stats</code> object
      * @param policyStats policy <code>Stats</code> object
@@ -195,12 +279,9 @@ public class SubjectEvaluationCache {
 
         /* record stats for subjectEvaluationCache */
 
-        int cacheSize = 0;
-        synchronized(subjectEvaluationCache) {
-            cacheSize = subjectEvaluationCache.size();
-        }
         policyStats.record("SubjectEvaluationCache: Number of entries in"
-                + " cache : " + cacheSize);
+                + " cache : " + getSize() + ", hits : " + getHitCount()
+                + ", misses : " + getMissCount());
     }
 
 }
@@ -0,0 +1,48 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.policy;
+
+import javax.inject.Singleton;
+
+import com.iplanet.dpro.session.SessionID;
+import com.iplanet.dpro.session.service.InternalSessionEvent;
+import com.iplanet.dpro.session.service.InternalSessionListener;
+
+/**
+ * Drops the cached subject membership results of a session from the {@link SubjectEvaluationCache} as soon as
+ * the session ends, rather than leaving them to expire or be evicted.
+ */
+@Singleton
+public class SubjectEvaluationCacheSessionListener implements InternalSessionListener {
+
+    @Override
+    public void onEvent(final InternalSessionEvent event) {
+        switch (event.getType()) {
+            case IDLE_TIMEOUT:
+            case MAX_TIMEOUT:
+            case LOGOUT:
+            case DESTROY:
+                SubjectEvaluationCache.removeEntries(event.getInternalSession().getSessionID().toString());
+                for (SessionID sessionId : event.getInternalSession().getRestrictedTokens()) {
+                    SubjectEvaluationCache.removeEntries(sessionId.toString());
+                }
+                break;
+            default:
+                // ignore all other types of event
+        }
+    }
+}
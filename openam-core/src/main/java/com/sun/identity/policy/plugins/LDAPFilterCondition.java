@@ -25,6 +25,7 @@
  * $Id: LDAPFilterCondition.java,v 1.8 2009/11/20 23:52:55 ww203982 Exp $
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.policy.plugins;
@@ -36,7 +37,6 @@ import static org.forgerock.opendj.ldap.LDAPConnectionFactory.CONNECT_TIMEOUT;
 import com.iplanet.sso.SSOException;
 import com.iplanet.sso.SSOToken;
 import com.iplanet.sso.SSOTokenListenersUnsupportedException;
-import com.sun.identity.common.ShutdownManager;
 import com.sun.identity.policy.ConditionDecision;
 import com.sun.identity.policy.PolicyConfig;
 import com.sun.identity.policy.PolicyEvaluator;
@@ -47,6 +47,7 @@ import com.sun.identity.policy.ResBundleUtils;
 import com.sun.identity.policy.SubjectEvaluationCache;
 import com.sun.identity.policy.Syntax;
 import com.sun.identity.policy.interfaces.Condition;
+import com.sun.identity.shared.Constants;
 import com.sun.identity.shared.datastruct.CollectionHelper;
 import com.sun.identity.shared.debug.Debug;
 
@@ -74,7 +75,6 @@ import org.forgerock.opendj.ldap.requests.SearchRequest;
 import org.forgerock.opendj.ldap.responses.SearchResultEntry;
 import org.forgerock.opendj.ldif.ConnectionEntryReader;
 import org.forgerock.util.Options;
-import org.forgerock.util.thread.listener.ShutdownListener;
 import org.forgerock.util.time.Duration;
 
 /**
@@ -373,7 +373,10 @@ public class LDAPFilterCondition implements Condition {
                     + " combined filter : " + searchFilter);
         }
 
-        member = searchFilterSatisfied(searchFilter);
+        final String combinedFilter = searchFilter;
+        member = LDAPFilterDecisionCache.isSatisfied(ldapServer, baseDN, userLocalDN,
+                token.getProperty(Constants.UNIVERSAL_IDENTIFIER), combinedFilter,
+                () -> searchFilterSatisfied(combinedFilter));
 
         if (debug.messageEnabled()) {
             debug.message("LDAPFilterCondition:isMember():"
@@ -551,6 +554,7 @@ public class LDAPFilterCondition implements Condition {
         if (realmDn != null) {
             orgName = realmDn;
         }
+        LDAPFilterDecisionCache.listenForIdentityChanges(orgName);
 
         if (debug.messageEnabled()) {
             debug.message("LDAPFilterCondition.setPolicyConfig(): "
@@ -574,16 +578,8 @@ public class LDAPFilterCondition implements Condition {
 
         LDAPConnectionPools.initConnectionPool(ldapServer, authid, authpw, sslEnabled, minPoolSize, maxPoolSize,
                 options);
+        // the pool is shared by all conditions using this server and closed by LDAPConnectionPools on shutdown
         connPool = LDAPConnectionPools.getConnectionPool(ldapServer);
-        ShutdownManager shutdownMan = com.sun.identity.common.ShutdownManager.getInstance();
-        shutdownMan.addShutdownListener(
-                new ShutdownListener() {
-                    public void shutdown() {
-                        if (connPool != null) {
-                            connPool.close();
-                        }
-                    }
-                });
 
         policyConfigExpiresAt = currentTimeMillis() + getSubjectsResultTtl(configParams);
     }
@@ -0,0 +1,404 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.policy.plugins;
+
+import static org.forgerock.openam.utils.Time.*;
+
+import java.security.AccessController;
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.forgerock.openam.ldap.LDAPUtils;
+import org.forgerock.opendj.ldap.DN;
+
+import com.iplanet.am.util.SystemProperties;
+import com.iplanet.sso.SSOException;
+import com.iplanet.sso.SSOToken;
+import com.sun.identity.entitlement.opensso.ConcurrentCache;
+import com.sun.identity.idm.AMIdentityRepository;
+import com.sun.identity.idm.IdEventListener;
+import com.sun.identity.idm.IdType;
+import com.sun.identity.policy.PolicyException;
+import com.sun.identity.policy.PolicyManager;
+import com.sun.identity.policy.SubjectEvaluationCache;
+import com.sun.identity.security.AdminTokenAction;
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * Caches the outcome of the directory searches made by {@link LDAPFilterCondition}, per user and search filter.
+ * <p>
+ * Concurrent evaluations of the same user and filter share a single in-flight search. Decisions are held per
+ * universal id of the user, so that all decisions of a user are dropped at once when an identity change is notified
+ * for the user by any realm whose conditions have been evaluated. Decisions for a session without a universal id are
+ * not cached. Cached decisions expire after {@link #CACHE_TTL} milliseconds.
+ * <p>
+ * A change to a group or role can only affect filters on the membership attributes of users, so it only expires the
+ * decisions of such filters. Changes to other kinds of identity, such as agents, do not affect users and are
+ * ignored. An unexpected notification clears the whole cache.
+ */
+public final class LDAPFilterDecisionCache {
+
+    /**
+     * Property holding the time in milliseconds for which a decision is cached. Defaults to the subjects result
+     * time to live of the policy configuration; 0 disables caching.
+     */
+    public static final String CACHE_TTL = "com.sun.identity.policy.ldapFilterCondition.cacheTTL";
+
+    /**
+     * Property holding the maximum number of users whose decisions are cached.
+     */
+    public static final String CACHE_MAX_SIZE = "com.sun.identity.policy.ldapFilterCondition.cacheMaxSize";
+
+    private static final int DEFAULT_CACHE_MAX_SIZE = 100000;
+    private static final Debug debug = Debug.getInstance(PolicyManager.POLICY_DEBUG_NAME);
+
+    // Attributes holding the memberships of a user, which a change to a group or role can affect
+    private static final String[] MEMBERSHIP_ATTRIBUTES = {"memberof", "nsrole"};
+    private static final long NO_MEMBERSHIPS = -1;
+
+    private static final ConcurrentMap<DN, Map<String, Decision>> decisions;
+    private static final ConcurrentMap<String, CompletableFuture<Boolean>> inFlight = new ConcurrentHashMap<>();
+    private static final Set<String> listenedRealms = Collections.newSetFromMap(new ConcurrentHashMap<>());
+    private static final IdEventListener identityListener = new IdentityChangeListener();
+    private static final AtomicLong invalidations = new AtomicLong();
+    private static final AtomicLong membershipChanges = new AtomicLong();
+
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder searches = new LongAdder();
+    private static final LongAdder searchTime = new LongAdder();
+
+    static {
+        int maxSize = SystemProperties.getAsInt(CACHE_MAX_SIZE, DEFAULT_CACHE_MAX_SIZE);
+        if (maxSize <= 0) {
+            debug.warning("LDAPFilterDecisionCache: invalid cache size {}, using {}", maxSize,
+                    DEFAULT_CACHE_MAX_SIZE);
+            maxSize = DEFAULT_CACHE_MAX_SIZE;
+        }
+        decisions = new ConcurrentCache<>("LDAPFilterDecisionCache", Math.min(maxSize, 1024), maxSize);
+    }
+
+    private LDAPFilterDecisionCache() {
+    }
+
+    /**
+     * A directory search deciding whether a user satisfies a filter.
+     */
+    interface Search {
+
+        /**
+         * Runs the search.
+         *
+         * @return {@code true} if the user satisfies the filter.
+         * @throws PolicyException if the search failed.
+         * @throws SSOException if the token used for the search is not valid.
+         */
+        boolean isSatisfied() throws PolicyException, SSOException;
+    }
+
+    /**
+     * Returns whether the user satisfies the search filter, running the search only if no unexpired decision is
+     * cached and no identical search is already in progress.
+     *
+     * @param ldapServer The directory server searched.
+     * @param baseDN The base DN of the search.
+     * @param userDN The DN of the user.
+     * @param universalId The universal id of the user, whose identity change notifications drop the decision.
+     * @param searchFilter The search filter, combining the user and condition filters.
+     * @param search The search to run on a cache miss.
+     * @return {@code true} if the user satisfies the filter.
+     * @throws PolicyException if the search failed.
+     * @throws SSOException if the token used for the search is not valid.
+     */
+    static boolean isSatisfied(String ldapServer, String baseDN, String userDN, String universalId,
+            String searchFilter, Search search) throws PolicyException, SSOException {
+        long ttl = getTTL();
+        DN identity = toDN(universalId);
+        String key = ldapServer + "|" + baseDN + "|" + userDN.toLowerCase() + "|" + searchFilter;
+
+        if (identity != null) {
+            Map<String, Decision> userDecisions = decisions.get(identity);
+            Decision decision = userDecisions == null ? null : userDecisions.get(key);
+            if (decision != null) {
+                if (decision.isValid()) {
+                    hits.increment();
+                    return decision.satisfied;
+                }
+                remove(identity, key, decision);
+            }
+        }
+        misses.increment();
+
+        CompletableFuture<Boolean> future = new CompletableFuture<>();
+        CompletableFuture<Boolean> existing = inFlight.putIfAbsent(key, future);
+        if (existing != null) {
+            debug.message("LDAPFilterDecisionCache.isSatisfied(): joining search in progress for {}", searchFilter);
+            return await(existing);
+        }
+
+        long invalidationCount = invalidations.get();
+        long membershipCount = isMembershipFilter(searchFilter) ? membershipChanges.get() : NO_MEMBERSHIPS;
+        try {
+            long start = System.nanoTime();
+            boolean satisfied = search.isSatisfied();
+            searchTime.add(System.nanoTime() - start);
+            searches.increment();
+
+            if (ttl > 0 && identity != null) {
+                cache(identity, key, new Decision(satisfied, currentTimeMillis() + ttl, membershipCount),
+                        invalidationCount);
+            }
+            future.complete(satisfied);
+            return satisfied;
+        } catch (PolicyException | SSOException | RuntimeException e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    /**
+     * Registers for identity change notifications of the realm, if not already registered.
+     *
+     * @param realm The realm whose identities are evaluated.
+     */
+    static void listenForIdentityChanges(String realm) {
+        if (realm == null || !listenedRealms.add(realm)) {
+            return;
+        }
+        try {
+            SSOToken adminToken = AccessController.doPrivileged(AdminTokenAction.getInstance());
+            new AMIdentityRepository(adminToken, realm).addEventListener(identityListener);
+            debug.message("LDAPFilterDecisionCache: listening for identity changes in {}", realm);
+        } catch (Exception e) {
+            listenedRealms.remove(realm);
+            debug.warning("LDAPFilterDecisionCache: could not listen for identity changes in {}", realm, e);
+        }
+    }
+
+    /**
+     * Drops all cached decisions of the user.
+     *
+     * @param universalId The universal id of the user.
+     */
+    static void invalidate(DN universalId) {
+        // counted before the removal, which waits for any decision of the user being cached
+        invalidations.incrementAndGet();
+        decisions.remove(universalId);
+    }
+
+    /**
+     * Expires the cached decisions of filters on the membership attributes of users.
+     */
+    static void invalidateMemberships() {
+        membershipChanges.incrementAndGet();
+    }
+
+    /**
+     * Drops all cached decisions.
+     */
+    static void clear() {
+        invalidations.incrementAndGet();
+        decisions.clear();
+    }
+
+    /**
+     * Returns the number of decisions answered from the cache.
+     * @return the number of cache hits since startup.
+     */
+    public static long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of decisions which could not be answered from the cache.
+     * @return the number of cache misses since startup.
+     */
+    public static long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the number of directory searches made on cache misses. This is less than the number of misses when
+     * concurrent identical searches were collapsed.
+     * @return the number of searches since startup.
+     */
+    public static long getSearchCount() {
+        return searches.sum();
+    }
+
+    /**
+     * Returns the average duration of the directory searches made on cache misses.
+     * @return the average search time in milliseconds.
+     */
+    public static long getAverageSearchTime() {
+        long count = searches.sum();
+        return count == 0 ? 0 : TimeUnit.NANOSECONDS.toMillis(searchTime.sum() / count);
+    }
+
+    /**
+     * Returns the number of cached decisions.
+     * @return the cache size.
+     */
+    public static int getSize() {
+        int size = 0;
+        for (Map<String, Decision> userDecisions : decisions.values()) {
+            size += userDecisions.size();
+        }
+        return size;
+    }
+
+    private static void cache(DN identity, String key, Decision decision, long invalidationCount) {
+        decisions.compute(identity, (dn, userDecisions) -> {
+            // Do not cache a decision read before an identity change arrived while the search was running
+            if (invalidations.get() != invalidationCount) {
+                return userDecisions;
+            }
+            Map<String, Decision> updated = userDecisions == null ? new ConcurrentHashMap<>() : userDecisions;
+            updated.put(key, decision);
+            return updated;
+        });
+    }
+
+    private static void remove(DN identity, String key, Decision decision) {
+        decisions.computeIfPresent(identity, (dn, userDecisions) -> {
+            userDecisions.remove(key, decision);
+            return userDecisions.isEmpty() ? null : userDecisions;
+        });
+    }
+
+    private static boolean isMembershipFilter(String searchFilter) {
+        String filter = searchFilter.toLowerCase(Locale.ROOT);
+        for (String attribute : MEMBERSHIP_ATTRIBUTES) {
+            if (filter.contains(attribute)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long getTTL() {
+        long ttl = SystemProperties.getAsLong(CACHE_TTL, -1);
+        return ttl < 0 ? SubjectEvaluationCache.getSubjectEvalTTL() : ttl;
+    }
+
+    private static DN toDN(String universalId) {
+        if (universalId == null) {
+            return null;
+        }
+        try {
+            return DN.valueOf(universalId);
+        } catch (IllegalArgumentException e) {
+            debug.message("LDAPFilterDecisionCache: not caching decision for universal id {}", universalId);
+            return null;
+        }
+    }
+
+    private static boolean await(CompletableFuture<Boolean> future) throws PolicyException, SSOException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new PolicyException(e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof PolicyException) {
+                throw (PolicyException) cause;
+            } else if (cause instanceof SSOException) {
+                throw (SSOException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new PolicyException(cause);
+        }
+    }
+
+    private static final class Decision {
+        private final boolean satisfied;
+        private final long expiresAt;
+        // the count of membership changes when the search started, or NO_MEMBERSHIPS
+        private final long membershipCount;
+
+        private Decision(boolean satisfied, long expiresAt, long membershipCount) {
+            this.satisfied = satisfied;
+            this.expiresAt = expiresAt;
+            this.membershipCount = membershipCount;
+        }
+
+        private boolean isValid() {
+            return expiresAt > currentTimeMillis()
+                    && (membershipCount == NO_MEMBERSHIPS || membershipCount == membershipChanges.get());
+        }
+    }
+
+    /**
+     * Invalidates the decisions affected by identity changes.
+     */
+    static final class IdentityChangeListener implements IdEventListener {
+
+        @Override
+        public void identityChanged(String universalId) {
+            changed(universalId);
+        }
+
+        @Override
+        public void identityDeleted(String universalId) {
+            changed(universalId);
+        }
+
+        @Override
+        public void identityRenamed(String universalId) {
+            changed(universalId);
+        }
+
+        @Override
+        public void allIdentitiesChanged() {
+            clear();
+        }
+
+        private void changed(String universalId) {
+            try {
+                DN dn = DN.valueOf(universalId);
+                DN parent = dn.parent();
+                if (parent != null) {
+                    String type = LDAPUtils.rdnValueFromDn(parent);
+                    if (IdType.USER.getName().equalsIgnoreCase(type)) {
+                        invalidate(dn);
+                    } else if (IdType.GROUP.getName().equalsIgnoreCase(type)
+                            || IdType.ROLE.getName().equalsIgnoreCase(type)
+                            || IdType.FILTEREDROLE.getName().equalsIgnoreCase(type)) {
+                        invalidateMemberships();
+                    }
+                    return;
+                }
+            } catch (IllegalArgumentException e) {
+                debug.message("LDAPFilterDecisionCache: unexpected universal id {}", universalId);
+            }
+            clear();
+        }
+    }
+}
@@ -0,0 +1,224 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.sm;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import com.sun.identity.shared.debug.Debug;
+import com.sun.identity.shared.jaxrpc.SOAPClient;
+import org.forgerock.util.annotations.VisibleForTesting;
+
+/**
+ * Coalesces the SMS changes that have to be sent to other servers, so that they can be sent as one batch per
+ * server.
+ *
+ * Changes are held per DN for the batch window and handed to the sender once it has elapsed, or as soon as the
+ * number of pending DNs reaches the maximum batch size. Repeated changes to a DN collapse to the latest change
+ * type, except that a modification following an addition is still sent as an addition, as the other servers have
+ * not yet seen the entry.
+ *
+ * Thread Safety: Changes may be added and flushed from any thread.
+ */
+final class SMSNotificationBatcher {
+
+    private static final Debug debug = Debug.getInstance("amSMSEvent");
+
+    // URLs of servers that have rejected a batch as an unknown operation, so are sent changes one at a time
+    private static final Set<String> singleChangeServers = ConcurrentHashMap.newKeySet();
+
+    private final long window;
+    private final int maxBatchSize;
+    private final Consumer<Map<String, PendingChange>> sender;
+    private final Scheduler scheduler;
+
+    // Changes waiting to be sent to other servers, in the order first seen
+    private final Map<String, PendingChange> pendingChanges = new LinkedHashMap<>();
+    private boolean flushScheduled;
+
+    /**
+     * @param window Time in milliseconds over which changes are coalesced. Zero hands every change to the sender
+     * as soon as it is added.
+     * @param maxBatchSize Number of pending DNs that causes a batch to be sent before the window has elapsed.
+     * @param sender Sends a batch of changes to the other servers.
+     * @param scheduler Runs the flush of pending changes once the window has elapsed.
+     */
+    SMSNotificationBatcher(long window, int maxBatchSize, Consumer<Map<String, PendingChange>> sender,
+            Scheduler scheduler) {
+        this.window = window;
+        this.maxBatchSize = maxBatchSize;
+        this.sender = sender;
+        this.scheduler = scheduler;
+    }
+
+    /**
+     * Adds the changes to the pending batch, scheduling the batch to be sent when the window elapses, or sending
+     * it straight away if it has grown too large.
+     *
+     * @param changes DNs of the changed objects mapped to their change types.
+     * @param now The time the changes were made.
+     * @return The number of changes merged into a change already pending for the same DN.
+     */
+    int add(Map<String, Integer> changes, long now) {
+        if (window <= 0) {
+            Map<String, PendingChange> batch = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                batch.put(change.getKey(), new PendingChange(change.getValue(), now));
+            }
+            sender.accept(batch);
+            return 0;
+        }
+        int coalesced = 0;
+        boolean sendNow = false;
+        boolean scheduleFlush = false;
+        synchronized (pendingChanges) {
+            for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                PendingChange pending = pendingChanges.get(change.getKey());
+                if (pending == null) {
+                    pendingChanges.put(change.getKey(), new PendingChange(change.getValue(), now));
+                } else {
+                    pending.merge(change.getValue());
+                    coalesced++;
+                }
+            }
+            if (pendingChanges.size() >= maxBatchSize) {
+                sendNow = true;
+            } else if (!flushScheduled) {
+                flushScheduled = true;
+                scheduleFlush = true;
+            }
+        }
+        if (sendNow) {
+            flush();
+        } else if (scheduleFlush) {
+            scheduler.schedule(this::flush, window);
+        }
+        return coalesced;
+    }
+
+    /**
+     * Hands the pending changes, if any, to the sender.
+     */
+    void flush() {
+        Map<String, PendingChange> batch;
+        synchronized (pendingChanges) {
+            flushScheduled = false;
+            if (pendingChanges.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pendingChanges);
+            pendingChanges.clear();
+        }
+        sender.accept(batch);
+    }
+
+    /**
+     * Sends the changes to a server as a single batch. Servers running an earlier release only accept a single
+     * change per call, and reply to the batch with a fault for an unknown operation. Such servers are remembered
+     * and their changes are sent one at a time from then on. Any other failure, such as the server being
+     * unreachable, is thrown without trying the changes one at a time, as would the first failure of a change
+     * sent on its own.
+     *
+     * @param client The client for the SMSObjectIF endpoint of the server.
+     * @param url The URL of the SMSObjectIF endpoint.
+     * @param changes DNs of the changed objects mapped to their change types.
+     * @throws Exception If the changes could not be sent.
+     */
+    static void send(SOAPClient client, String url, Map<String, Integer> changes) throws Exception {
+        if (changes.size() > 1 && !singleChangeServers.contains(url)) {
+            Map<String, String> batch = new LinkedHashMap<>();
+            for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                batch.put(change.getKey(), change.getValue().toString());
+            }
+            try {
+                client.send("notifyObjectsChanged", new Object[] {batch}, null, null);
+                return;
+            } catch (Exception e) {
+                if (!isUnknownOperation(e)) {
+                    throw e;
+                }
+                singleChangeServers.add(url);
+                if (debug.warningEnabled()) {
+                    debug.warning("SMSNotificationBatcher.send Batch not accepted by " + url
+                            + ", sending changes one at a time", e);
+                }
+            }
+        }
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            client.send("notifyObjectChanged", new Object[] {change.getKey(), change.getValue()}, null, null);
+        }
+    }
+
+    /**
+     * Whether the exception is the fault a server replies with for an operation it does not have. The SOAP
+     * runtime raises this as a plain {@code Exception}, as opposed to the {@code IOException} of a server that
+     * could not be reached, or the typed exceptions, such as {@code SMSException}, of an operation that exists.
+     */
+    private static boolean isUnknownOperation(Exception e) {
+        return e.getClass() == Exception.class;
+    }
+
+    /**
+     * Forgets which servers only accept changes one at a time.
+     */
+    @VisibleForTesting
+    static void clearSingleChangeServers() {
+        singleChangeServers.clear();
+    }
+
+    /**
+     * Runs a task once a delay has elapsed.
+     */
+    interface Scheduler {
+
+        /**
+         * @param task The task to run.
+         * @param delay The delay in milliseconds.
+         */
+        void schedule(Runnable task, long delay);
+    }
+
+    /**
+     * A change waiting to be sent to other servers.
+     */
+    static final class PendingChange {
+
+        private int type;
+        private final long queuedAt;
+
+        private PendingChange(int type, long queuedAt) {
+            this.type = type;
+            this.queuedAt = queuedAt;
+        }
+
+        int getType() {
+            return type;
+        }
+
+        long getQueuedAt() {
+            return queuedAt;
+        }
+
+        private void merge(int newType) {
+            if (type != SMSObjectListener.ADD || newType != SMSObjectListener.MODIFY) {
+                type = newType;
+            }
+        }
+    }
+}
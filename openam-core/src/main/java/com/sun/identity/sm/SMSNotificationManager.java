@@ -25,6 +25,7 @@
  * $Id: SMSNotificationManager.java,v 1.14 2009/11/10 21:49:44 hengming Exp $
  *
  * Portions Copyrighted 2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.sm;
 
@@ -32,10 +33,14 @@ import com.iplanet.am.util.SystemProperties;
 import com.iplanet.services.naming.WebtopNaming;
 import com.iplanet.sso.SSOException;
 import com.iplanet.sso.SSOToken;
+import com.sun.identity.common.GeneralTaskRunnable;
+import com.sun.identity.common.SystemTimer;
 import com.sun.identity.security.AdminTokenAction;
 import com.sun.identity.shared.Constants;
 import com.sun.identity.shared.debug.Debug;
 import com.sun.identity.shared.jaxrpc.SOAPClient;
+import com.sun.identity.shared.stats.Stats;
+import com.sun.identity.sm.SMSNotificationBatcher.PendingChange;
 import com.sun.identity.sm.jaxrpc.SMSJAXRPCObject;
 import com.sun.identity.sm.jaxrpc.SMSJAXRPCObjectImpl;
 import java.net.URL;
@@ -44,9 +49,14 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.StringTokenizer;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.forgerock.openam.utils.Time.currentTimeMillis;
 
 /**
  * Handles all the notification events for SMS.
@@ -64,6 +74,9 @@ import java.util.StringTokenizer;
  * else will send notifications by itself.
  * On the Client, it will register with SMSJAXRPCObject, again via
  * registerCallbackHandler(..)
+ *
+ * Changes sent to other servers are coalesced per DN over a short window
+ * (see {@link #BATCH_WINDOW_PROPERTY}) and sent as one batch per server.
  */
 public class SMSNotificationManager implements SMSObjectListener {
     
@@ -74,6 +87,63 @@ public class SMSNotificationManager implements SMSObjectListener {
     private static SMSEventListenerManager internalEventListener;
     private static Debug debug = Debug.getInstance("amSMSEvent");
     static final String AGENTGROUP_RDN = "ou=agentgroup,ou=Instances";
+
+    /**
+     * Time in milliseconds over which changes are coalesced before being
+     * sent to other servers. Zero sends every change as soon as it is made.
+     */
+    static final String BATCH_WINDOW_PROPERTY =
+        "com.sun.identity.sm.notification.batchWindow";
+    /**
+     * Number of pending changes that causes a batch to be sent before the
+     * window has elapsed.
+     */
+    static final String MAX_BATCH_SIZE_PROPERTY =
+        "com.sun.identity.sm.notification.maxBatchSize";
+    private static final long batchWindow =
+        SystemProperties.getAsLong(BATCH_WINDOW_PROPERTY, 250);
+    private static final int maxBatchSize =
+        SystemProperties.getAsInt(MAX_BATCH_SIZE_PROPERTY, 500);
+
+    // Changes waiting to be sent to other servers
+    private final SMSNotificationBatcher serverChanges =
+        new SMSNotificationBatcher(batchWindow, maxBatchSize,
+            // To be executed by a new TimerTask, since it could be a while
+            batch -> SMSThreadPool.scheduleTask(
+                new ServerNotificationTask(batch)),
+            (flush, delay) -> SystemTimer.getTimer().schedule(
+                new FlushTask(flush), delay));
+
+    private static final LongAdder changesQueued = new LongAdder();
+    private static final LongAdder changesCoalesced = new LongAdder();
+    private static final LongAdder batchesSent = new LongAdder();
+    private static final LongAdder changesSent = new LongAdder();
+    private static final LongAccumulator largestBatchSent =
+        new LongAccumulator(Math::max, 0);
+    private static final LongAdder totalPropagationLag = new LongAdder();
+    private static final LongAccumulator maxPropagationLag =
+        new LongAccumulator(Math::max, 0);
+    private static final LongAdder batchesReceived = new LongAdder();
+    private static final LongAdder changesReceived = new LongAdder();
+
+    static {
+        final Stats stats = Stats.getInstance("amSMSNotification");
+        stats.addStatsListener(() -> {
+            long batches = batchesSent.sum();
+            long sent = changesSent.sum();
+            stats.record("SMS change propagation:"
+                + "\nChanges queued: " + changesQueued.sum()
+                + "\nChanges coalesced: " + changesCoalesced.sum()
+                + "\nBatches sent: " + batches
+                + "\nAverage batch size: " + (batches == 0 ? 0 : sent / batches)
+                + "\nLargest batch: " + largestBatchSent.get()
+                + "\nAverage propagation lag (ms): "
+                + (sent == 0 ? 0 : totalPropagationLag.sum() / sent)
+                + "\nMaximum propagation lag (ms): " + maxPropagationLag.get()
+                + "\nBatches received: " + batchesReceived.sum()
+                + "\nChanges received: " + changesReceived.sum());
+        });
+    }
     
     // Notification variabled
     static boolean enableDataStoreNotification;
@@ -238,15 +308,43 @@ public class SMSNotificationManager implements SMSObjectListener {
             LocalChangeNotifcationTask(name, type, true);
         SMSThreadPool.scheduleTask(changes);
     }
-    
+
+    /**
+     * Processes a batch of changes sent by another server. The internal
+     * caches are refreshed for each DN and the change listeners are then
+     * called once for the whole batch.
+     *
+     * @param changes DNs of the changed objects mapped to their change types.
+     */
+    public void objectsChanged(Map<String, Integer> changes) {
+        batchesReceived.increment();
+        changesReceived.add(changes.size());
+        if (internalEventListener != null) {
+            for (Map.Entry<String, Integer> change : changes.entrySet()) {
+                internalEventListener.objectChanged(change.getKey(),
+                    change.getValue());
+            }
+        }
+        SMSThreadPool.scheduleTask(
+            new LocalChangeNotifcationTask(changes, true));
+    }
+
     // Method Executed asynchronously by the ThreadPool and
     // called directly by SMSEventListenerManager to send sub-tree
     // delete notifications when datastore notification is not enabled
     void sendNotifications(String name, int type, boolean localOnly) {
+        sendNotifications(Collections.singletonMap(name, type), localOnly);
+    }
+
+    private void sendNotifications(Map<String, Integer> changes,
+        boolean localOnly) {
         // Since agentgroup placeholder node is added after install time,
         // fix it here to avoid sending notifications.
-        if ((type == SMSObjectListener.ADD) &&
-            (name.indexOf(AGENTGROUP_RDN) >= 0)) {
+        Map<String, Integer> notifications = new LinkedHashMap<>(changes);
+        notifications.entrySet().removeIf(change ->
+            (change.getValue() == SMSObjectListener.ADD) &&
+            (change.getKey().indexOf(AGENTGROUP_RDN) >= 0));
+        if (notifications.isEmpty()) {
             return;
         }
         
@@ -259,9 +357,7 @@ public class SMSNotificationManager implements SMSObjectListener {
         if (!localOnly && !enableDataStoreNotification && !isClient &&
             !installTime.equals("true") && (!SystemProperties.isServerMode() ||
             ServiceManager.getAMServerInstances().size() > 1)) {
-            // To be executed by a new TimerTask, since it could be a while
-            ServerNotificationTask nt = new ServerNotificationTask(name, type);
-            SMSThreadPool.scheduleTask(nt);
+            queueServerNotifications(notifications);
         }
         
         // Called by one of the following
@@ -282,34 +378,45 @@ public class SMSNotificationManager implements SMSObjectListener {
         // SMSLdapObject (s) -- will be exectuted by this thread 
         // SMSJAXRPCObjectImpl (s)-- should create a new task/thread
         // SMSJAXRPCObject (c) -- will be executed by this thread
+        // Each listener is given the whole batch before moving to the next
         SMSObjectListener jaxrpclistener = null;
         for (Iterator items = nlists.iterator(); items.hasNext();) {
             SMSObjectListener listener = (SMSObjectListener) items.next();
-            // Listeners might through exceptions, use try-catch
-            try {
-                if ((!isClient) && (listener instanceof SMSJAXRPCObjectImpl)) {
-                    // Process this at the end
-                    jaxrpclistener = listener;
-                } else {
-                    listener.objectChanged(name, type);
-                }
-            } catch (Throwable t) {
-                debug.error("SMSNotificationManager.objectChanged " +
-                    "Exception for class: " +
-                    listener.getClass().getName(), t);
+            if ((!isClient) && (listener instanceof SMSJAXRPCObjectImpl)) {
+                // Process this at the end
+                jaxrpclistener = listener;
+            } else {
+                notifyListener(listener, notifications, "");
             }
         }
         if (jaxrpclistener != null) {
+            notifyListener(jaxrpclistener, notifications, "JAXRPC ");
+        }
+    }
+
+    private static void notifyListener(SMSObjectListener listener,
+        Map<String, Integer> changes, String kind) {
+        for (Map.Entry<String, Integer> change : changes.entrySet()) {
+            // Listeners might through exceptions, use try-catch
             try {
-                jaxrpclistener.objectChanged(name, type);
+                listener.objectChanged(change.getKey(), change.getValue());
             } catch (Throwable t) {
                 debug.error("SMSNotificationManager.objectChanged " +
-                    "Exception for JAXRPC class: " +
-                    jaxrpclistener.getClass().getName(), t);
+                    "Exception for " + kind + "class: " +
+                    listener.getClass().getName(), t);
             }
         }
     }
 
+    /**
+     * Adds the changes to the batch waiting to be sent to other servers.
+     */
+    private void queueServerNotifications(Map<String, Integer> changes) {
+        changesQueued.add(changes.size());
+        changesCoalesced.add(
+            serverChanges.add(changes, currentTimeMillis()));
+    }
+
     // Method called by SMSObject implementations
     public void allObjectsChanged() {
         // Called by one of the following
@@ -355,19 +462,53 @@ public class SMSNotificationManager implements SMSObjectListener {
     }
     
     private class LocalChangeNotifcationTask implements Runnable {
-        String name;
-        int type;
+        Map<String, Integer> changes;
         boolean localOnly;
         
         private LocalChangeNotifcationTask(String name, int type,
             boolean localOnly) {
-            this.name = name;
-            this.type = type;
+            this(Collections.singletonMap(name, type), localOnly);
+        }
+
+        private LocalChangeNotifcationTask(Map<String, Integer> changes,
+            boolean localOnly) {
+            this.changes = changes;
             this.localOnly = localOnly;
         }
 
         public void run() {
-            instance.sendNotifications(name, type, localOnly);
+            instance.sendNotifications(changes, localOnly);
+        }
+    }
+
+    /**
+     * Sends the pending changes once the batch window has elapsed.
+     */
+    private static class FlushTask extends GeneralTaskRunnable {
+        private final Runnable flush;
+
+        private FlushTask(Runnable flush) {
+            this.flush = flush;
+        }
+
+        public boolean addElement(Object key) {
+            return false;
+        }
+
+        public boolean removeElement(Object key) {
+            return false;
+        }
+
+        public boolean isEmpty() {
+            return true;
+        }
+
+        public long getRunPeriod() {
+            return -1;
+        }
+
+        public void run() {
+            flush.run();
         }
     }
     
@@ -382,12 +523,10 @@ public class SMSNotificationManager implements SMSObjectListener {
      */ 
     private class ServerNotificationTask implements Runnable {
         SSOToken adminSSOToken;
-        String name;
-        int type;
+        Map<String, PendingChange> changes;
 
-        ServerNotificationTask(String name, int type) {
-            this.name = name;
-            this.type = type;
+        ServerNotificationTask(Map<String, PendingChange> changes) {
+            this.changes = changes;
             
             // Construct server URL
             if (serverURL == null) {
@@ -430,16 +569,25 @@ public class SMSNotificationManager implements SMSObjectListener {
             
             // Since agentgroup placeholder node is added after install time,
             // fix it here to avoid sending notifications.
-            if (type == SMSObjectListener.ADD
-                && ((new StringTokenizer(name, ",")).countTokens() 
-                    <= (SMSEntry.baseDNCount + 1) || 
-                        (name.indexOf(AGENTGROUP_RDN) >= 0))) {
+            Map<String, Integer> notifications = new LinkedHashMap<>();
+            for (Map.Entry<String, PendingChange> change : changes.entrySet()) {
+                String name = change.getKey();
+                int type = change.getValue().getType();
+                if (type == SMSObjectListener.ADD
+                    && ((new StringTokenizer(name, ",")).countTokens()
+                        <= (SMSEntry.baseDNCount + 1) ||
+                            (name.indexOf(AGENTGROUP_RDN) >= 0))) {
+                    continue;
+                }
+                notifications.put(name, type);
+            }
+            if (notifications.isEmpty()) {
                 return;
             }
             if (debug.messageEnabled()) {
                 debug.message("ServerNotificationTask.run " +
-                    "Sending notifications to servers. DN: " + name +
-                    " ChangeType: " + type);
+                    "Sending notifications to servers. Changes: " +
+                    notifications);
             }
 
             // Get servers from ServiceManager and send notifications
@@ -470,9 +618,6 @@ public class SMSNotificationManager implements SMSObjectListener {
                         // Send notification
                         SOAPClient client = new SOAPClient();
                         client.setURL(surl);
-                        Object[] params = new Object[2];
-                        params[0] = name;
-                        params[1] = new Integer(type);
                         if (debug.messageEnabled()) {
                             debug.message("ServerNotificationTask.run " +
                                 "Sending to URL: " + surl);
@@ -480,7 +625,8 @@ public class SMSNotificationManager implements SMSObjectListener {
 
                         // Should not set LB cookie, since it is a 
                         // server-server communication 
-                        client.send("notifyObjectChanged", params, null, null);
+                        SMSNotificationBatcher.send(client, surl,
+                            notifications);
 
                     } catch (Throwable t) {
                         if (debug.errorEnabled()) {
@@ -495,6 +641,16 @@ public class SMSNotificationManager implements SMSObjectListener {
                         "Unable to send notifications", t);
                 }
             }
+
+            long now = currentTimeMillis();
+            for (PendingChange change : changes.values()) {
+                long lag = now - change.getQueuedAt();
+                totalPropagationLag.add(lag);
+                maxPropagationLag.accumulate(lag);
+            }
+            batchesSent.increment();
+            changesSent.add(changes.size());
+            largestBatchSent.accumulate(changes.size());
         }
     }
 }
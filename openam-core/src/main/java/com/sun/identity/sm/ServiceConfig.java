@@ -26,6 +26,7 @@
  *
  * Portions Copyrighted 2011-2017 ForgeRock AS.
  * Portions Copyrighted 2012 Open Source Solution Technology Corporation
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.sm;
 
@@ -509,6 +510,19 @@ public class ServiceConfig {
         return (sc.getAttributesWithoutDefaultsForRead());
     }
 
+    /**
+     * Returns the immutable snapshot of the service configuration parameters.
+     * The snapshot is shared by all readers and replaced whenever the
+     * configuration is changed, so values parsed from it or views built by
+     * {@link ServiceConfigSnapshot#getView} are only rebuilt after a change.
+     *
+     * @return the current snapshot of the configuration.
+     */
+    public ServiceConfigSnapshot getSnapshot() {
+        validate();
+        return (sc.getSnapshot());
+    }
+
     /**
      * Sets the service configuration parameters. The keys in the
      * <code>Map</code> contains the attribute names and their corresponding
@@ -26,6 +26,7 @@
  *
  * Portions Copyrighted 2012-2016 ForgeRock AS.
  * Portions Copyrighted 2012 Open Source Solution Technology Corporation
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.sm;
@@ -34,6 +35,7 @@ import com.iplanet.services.util.AMEncryption;
 import com.iplanet.sso.SSOException;
 import com.iplanet.sso.SSOToken;
 import com.sun.identity.shared.debug.Debug;
+import com.sun.identity.shared.stats.Stats;
 import org.forgerock.openam.shared.concurrency.LockFactory;
 
 import java.util.Collections;
@@ -44,6 +46,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.Lock;
 
 /**
@@ -59,6 +62,15 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             new HashMap<String, Set<String>>());
     private static final LockFactory<String> LOCK_FACTORY = new LockFactory<>();
     private static Debug debug = SMSEntry.debug;
+    private static final LongAdder attributeCopies = new LongAdder();
+    private static final LongAdder attributeCopiesAvoided = new LongAdder();
+
+    static {
+        final Stats stats = Stats.getInstance("amSMSConfig");
+        stats.addStatsListener(() -> stats.record("ServiceConfig attribute reads:"
+                + "\nCopied: " + attributeCopies.sum()
+                + "\nShared without copying: " + attributeCopiesAvoided.sum()));
+    }
     private ServiceConfigManagerImpl scm;
     
     // Schema manager to register for schema changes
@@ -80,9 +92,8 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
 
     private int priority;
 
-    private Map<String, Set<String>> attributes;
-
-    private Map<String, Set<String>> attributesWithoutDefaults;
+    private volatile ServiceConfigSnapshot snapshot =
+        new ServiceConfigSnapshot(0, new HashMap<>(), new HashMap<>());
 
     private CachedSMSEntry smsEntry;
 
@@ -244,7 +255,8 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             // Read the entry, since it should not be cached
             smsEntry.refresh();
         }
-        return (SMSUtils.copyAttributes(attributes));
+        attributeCopies.increment();
+        return (SMSUtils.copyAttributes(snapshot.getAttributes()));
     }
 
     /**
@@ -258,7 +270,8 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             // Read the entry, since it should not be cached
             smsEntry.refresh();
         }
-        return (attributes);
+        attributeCopiesAvoided.increment();
+        return (snapshot.getAttributes());
     }
 
     /**
@@ -273,7 +286,8 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             // Read the entry, since it should not be cached
             smsEntry.refresh();
         }
-        return (SMSUtils.copyAttributes(attributesWithoutDefaults));
+        attributeCopies.increment();
+        return (SMSUtils.copyAttributes(snapshot.getAttributesWithoutDefaults()));
     }
 
     /**
@@ -290,7 +304,37 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             // Read the entry, since it should not be cached
             smsEntry.refresh();
         }
-        return (attributesWithoutDefaults);
+        attributeCopiesAvoided.increment();
+        return (snapshot.getAttributesWithoutDefaults());
+    }
+
+    /**
+     * Returns the immutable snapshot of the service configuration parameters,
+     * which is replaced whenever the configuration changes.
+     */
+    ServiceConfigSnapshot getSnapshot() {
+        if (!SMSEntry.cacheSMSEntries) {
+            // Read the entry, since it should not be cached
+            smsEntry.refresh();
+        }
+        attributeCopiesAvoided.increment();
+        return (snapshot);
+    }
+
+    /**
+     * Returns the number of reads of the service configuration parameters
+     * which returned a copy of the parameters.
+     */
+    static long getAttributeCopyCount() {
+        return attributeCopies.sum();
+    }
+
+    /**
+     * Returns the number of reads of the service configuration parameters
+     * which returned the shared snapshot rather than a copy.
+     */
+    static long getAttributeCopiesAvoidedCount() {
+        return attributeCopiesAvoided.sum();
     }
 
     /**
@@ -463,9 +507,8 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             labeledUri = lUri[0];
         }
 
-        // Replace the class instance attribute Maps
-        attributes = Collections.unmodifiableMap(origAttributes);
-        attributesWithoutDefaults = Collections.unmodifiableMap(
+        // Publish the new snapshot of the attributes
+        snapshot = new ServiceConfigSnapshot(snapshot.getVersion() + 1, origAttributes,
             origAttributesWithoutDefaults);
     }
 
@@ -731,8 +774,9 @@ class ServiceConfigImpl implements ServiceListener, CachedSMSEntry.SMSEntryUpdat
             orgAttributes = ocm.getAttributes(scm.getName());
         }
 
-        if (((attributesWithoutDefaults == null) ||
-            attributesWithoutDefaults.isEmpty()) &&
+        Map<String, Set<String>> attributesWithoutDefaults =
+            snapshot.getAttributesWithoutDefaults();
+        if (attributesWithoutDefaults.isEmpty() &&
             ((serviceConfigNames == null) ||
                 serviceConfigNames.isEmpty()) &&
             ((orgAttributes == null) || orgAttributes.isEmpty()) &&
@@ -0,0 +1,182 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.sm;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * An immutable view of the attributes of a {@link ServiceConfig} at one point in time.
+ * <p>
+ * A new snapshot, with a higher version, is published each time the configuration entry is changed, either locally
+ * or by a notification. Snapshots are shared by all readers, so neither the maps nor the sets of values may be
+ * modified. Values parsed from the attributes, and views built by {@link #getView(Function)}, are computed once per
+ * snapshot and so are only rebuilt after a change.
+ */
+public final class ServiceConfigSnapshot {
+
+    private final long version;
+    private final Map<String, Set<String>> attributes;
+    private final Map<String, Set<String>> attributesWithoutDefaults;
+    private final ConcurrentMap<Object, Object> parsed = new ConcurrentHashMap<>();
+
+    /**
+     * Creates a snapshot, taking ownership of the maps provided.
+     *
+     * @param version The version of the snapshot.
+     * @param attributes The attributes, including defaults from the schema.
+     * @param attributesWithoutDefaults The attributes stored in the configuration entry.
+     */
+    ServiceConfigSnapshot(long version, Map<String, Set<String>> attributes,
+            Map<String, Set<String>> attributesWithoutDefaults) {
+        this.version = version;
+        this.attributes = freeze(attributes);
+        this.attributesWithoutDefaults = freeze(attributesWithoutDefaults);
+    }
+
+    private static Map<String, Set<String>> freeze(Map<String, Set<String>> attributes) {
+        for (Map.Entry<String, Set<String>> entry : attributes.entrySet()) {
+            // Collections.EMPTY_SET marks an attribute without a default value, and is already immutable
+            if (entry.getValue() != null && entry.getValue() != Collections.EMPTY_SET) {
+                entry.setValue(Collections.unmodifiableSet(entry.getValue()));
+            }
+        }
+        return Collections.unmodifiableMap(attributes);
+    }
+
+    /**
+     * Returns the version of the snapshot, which increases each time the configuration is changed.
+     *
+     * @return The version.
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the attributes of the configuration, including the defaults from the service schema.
+     *
+     * @return The unmodifiable attributes.
+     */
+    public Map<String, Set<String>> getAttributes() {
+        return attributes;
+    }
+
+    /**
+     * Returns the attributes stored in the configuration, without the defaults from the service schema.
+     *
+     * @return The unmodifiable attributes.
+     */
+    public Map<String, Set<String>> getAttributesWithoutDefaults() {
+        return attributesWithoutDefaults;
+    }
+
+    /**
+     * Returns the first value of an attribute.
+     *
+     * @param attributeName The name of the attribute.
+     * @return The value, or {@code null} if the attribute has no value.
+     */
+    public String getString(String attributeName) {
+        Set<String> values = attributes.get(attributeName);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return values.iterator().next();
+    }
+
+    /**
+     * Returns the first value of an attribute as a boolean, parsed with {@link Boolean#valueOf(String)}.
+     *
+     * @param attributeName The name of the attribute.
+     * @return The value, {@code false} if the attribute has no value.
+     */
+    public boolean getBoolean(String attributeName) {
+        return (Boolean) parse(new ParsedKey("boolean", attributeName),
+                () -> Boolean.valueOf(getString(attributeName)));
+    }
+
+    /**
+     * Returns the first value of an attribute as a long, parsed with {@link Long#decode(String)}.
+     *
+     * @param attributeName The name of the attribute.
+     * @return The value.
+     * @throws NullPointerException If the attribute has no value.
+     * @throws NumberFormatException If the value is not a number.
+     */
+    public long getLong(String attributeName) {
+        return (Long) parse(new ParsedKey("long", attributeName), () -> Long.decode(getString(attributeName)));
+    }
+
+    /**
+     * Returns a view built from the attributes, building it the first time it is requested from this snapshot.
+     * The function is used to identify the view, so should be held in a constant rather than created per call.
+     *
+     * @param builder The function building the view. It must not return {@code null}.
+     * @param <T> The type of the view.
+     * @return The view.
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T getView(Function<ServiceConfigSnapshot, T> builder) {
+        return (T) parse(builder, () -> builder.apply(this));
+    }
+
+    private Object parse(Object key, Supplier<Object> parser) {
+        // not computeIfAbsent, as a view may itself use the parsed values of the snapshot
+        Object value = parsed.get(key);
+        if (value == null) {
+            value = parser.get();
+            Object existing = parsed.putIfAbsent(key, value);
+            if (existing != null) {
+                value = existing;
+            }
+        }
+        return value;
+    }
+
+    private static final class ParsedKey {
+        private final String type;
+        private final String attributeName;
+
+        private ParsedKey(String type, String attributeName) {
+            this.type = type;
+            this.attributeName = attributeName;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof ParsedKey)) {
+                return false;
+            }
+            ParsedKey other = (ParsedKey) o;
+            return type.equals(other.type) && attributeName.equals(other.attributeName);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * type.hashCode() + attributeName.hashCode();
+        }
+    }
+}
@@ -25,7 +25,7 @@
  * $Id: SMSJAXRPCObjectImpl.java,v 1.22 2009/10/28 04:24:27 hengming Exp $
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
- * Portions Copyrighted 2023 Wren Security
+ * Portions Copyrighted 2023-2026 Wren Security
  */
 
 package com.sun.identity.sm.jaxrpc;
@@ -72,6 +72,7 @@ import java.util.Calendar;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.LinkedList;
 import java.util.Map;
 import java.util.Set;
@@ -651,6 +652,22 @@ public class SMSJAXRPCObjectImpl implements SMSObjectIF, SMSObjectListener {
         SMSNotificationManager.getInstance().objectChanged(name, type);
     }
 
+    /**
+     * Processes a batch of object changed events from other servers
+     *
+     * @param changes DNs of the objects changed mapped to their change types
+     * @throws java.rmi.RemoteException
+     */
+    public void notifyObjectsChanged(Map changes) throws RemoteException {
+        Map<String, Integer> batch = new LinkedHashMap<>();
+        for (Object o : changes.entrySet()) {
+            Map.Entry change = (Map.Entry) o;
+            batch.put((String) change.getKey(),
+                Integer.valueOf(change.getValue().toString()));
+        }
+        SMSNotificationManager.getInstance().objectsChanged(batch);
+    }
+
     private static String calendarToString(Calendar calendar) {
         // Get year, month, date, hour and minute
         int year = calendar.get(Calendar.YEAR);
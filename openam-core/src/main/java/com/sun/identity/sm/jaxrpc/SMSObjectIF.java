@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: SMSObjectIF.java,v 1.5 2009/10/28 04:24:27 hengming Exp $
  *
@@ -109,6 +110,10 @@ public interface SMSObjectIF extends Remote {
     public void notifyObjectChanged(String name, int type)
             throws RemoteException;
 
+    // Interface to receive a batch of object changed notifications,
+    // DNs mapped to their change types
+    public void notifyObjectsChanged(Map changes) throws RemoteException;
+
     /**
      * Validates service configuration attributes.
      *
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.blacklist;
@@ -25,6 +26,7 @@ import static org.forgerock.util.query.QueryFilter.*;
 import java.util.Calendar;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ScheduledExecutorService;
@@ -35,12 +37,17 @@ import org.forgerock.openam.cts.CTSPersistentStore;
 import org.forgerock.openam.cts.api.filter.TokenFilter;
 import org.forgerock.openam.cts.api.filter.TokenFilterBuilder;
 import org.forgerock.openam.cts.api.tokens.Token;
+import org.forgerock.openam.cts.continuous.ChangeType;
+import org.forgerock.openam.cts.continuous.ContinuousQueryListener;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.shared.concurrency.ThreadMonitor;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.openam.tokens.TokenType;
 import org.forgerock.openam.utils.TimeUtils;
+import org.forgerock.opendj.ldap.Attribute;
+import org.forgerock.opendj.ldap.GeneralizedTime;
 import org.forgerock.util.Reject;
 
 import com.iplanet.services.naming.ServerEntryNotFoundException;
@@ -63,11 +70,15 @@ import com.sun.identity.shared.debug.Debug;
  *     blacklisted. From {@link WebtopNamingQuery#getAMServerID()}.</li>
  * </ul>
  * <p/>
- * In addition to blacklisting entries and checking the blacklist, this class also periodically polls the CTS for
- * blacklist changes made on other servers since the last check. This is used to send local notifications to
- * subscribed blacklist {@link Listener}s for <em>all</em> blacklist entries, not just local ones. This feature is
- * essential for correct operation of the {@link BloomFilterBlacklist}, which would otherwise report false
- * negatives.
+ * In addition to blacklisting entries and checking the blacklist, this class also discovers blacklist changes made
+ * on other servers. This is used to send local notifications to subscribed blacklist {@link Listener}s for
+ * <em>all</em> blacklist entries, not just local ones. This feature is essential for correct operation of the
+ * {@link BloomFilterBlacklist}, which would otherwise report false negatives.
+ * <p/>
+ * By default, changes are pushed to this server by a CTS continuous query as soon as they are made. Whenever the
+ * continuous query is (re)established it reports a lost connection, and the CTS is then polled once for any entries
+ * blacklisted since the last point at which this server was known to be in sync. If the continuous query cannot be
+ * registered, or continuous queries are disabled, the CTS is instead polled every {@code pollIntervalMs}.
  *
  * @param <T> The blacklist type.
  * @since 13.0.0
@@ -75,6 +86,13 @@ import com.sun.identity.shared.debug.Debug;
 public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T> {
     private static final Debug DEBUG = Debug.getInstance("blacklist");
 
+    /**
+     * System property that controls whether blacklist changes are received through a CTS continuous query rather
+     * than by interval polling.
+     */
+    public static final String CONTINUOUS_QUERY_ENABLED_PROPERTY =
+            "org.forgerock.openam.blacklist.continuousQuery.enabled";
+
     private final AtomicLong lastPollTime = new AtomicLong(0);
     private final Set<Listener> listeners = new CopyOnWriteArraySet<>();
 
@@ -87,18 +105,44 @@ public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T>
     private final CTSPersistentStore cts;
     private final TokenType tokenType;
     private final PollTask pollTask;
+    private final CatchUpTask catchUpTask;
+    private final BlacklistQueryListener queryListener = new BlacklistQueryListener();
+    private final AtomicBoolean watching = new AtomicBoolean(false);
     private final ScheduledExecutorService scheduledExecutorService;
     private final String localServerId;
     private final long purgeDelayMs;
+    private final boolean continuousQueryEnabled;
 
     public CTSBlacklist(CTSPersistentStore cts, TokenType tokenType, ScheduledExecutorService scheduler,
             ThreadMonitor threadMonitor, WebtopNamingQuery serverConfig, long purgeDelayMs, long pollIntervalMs) {
+        this(cts, tokenType, scheduler, threadMonitor, serverConfig, purgeDelayMs, pollIntervalMs, false);
+    }
+
+    /**
+     * Creates a CTS blacklist.
+     *
+     * @param cts the CTS in which blacklisted entries are stored.
+     * @param tokenType the CTS token type used for blacklisted entries.
+     * @param scheduler the executor used to poll the CTS and to notify subscribed listeners.
+     * @param threadMonitor the monitor used to run the periodic poll task.
+     * @param serverConfig used to determine the local server ID.
+     * @param purgeDelayMs the time to keep entries in the blacklist beyond their expiry time.
+     * @param pollIntervalMs the interval between polls of the CTS when polling is used, and between retries of a
+     *                       failed catch-up poll otherwise.
+     * @param continuousQueryEnabled whether changes from other servers should be received through a CTS
+     *                               continuous query rather than by interval polling.
+     */
+    public CTSBlacklist(CTSPersistentStore cts, TokenType tokenType, ScheduledExecutorService scheduler,
+            ThreadMonitor threadMonitor, WebtopNamingQuery serverConfig, long purgeDelayMs, long pollIntervalMs,
+            boolean continuousQueryEnabled) {
         Reject.ifNull(cts, tokenType, scheduler, threadMonitor);
         this.cts = cts;
         this.tokenType = tokenType;
         this.scheduledExecutorService = scheduler;
         this.pollTask = new PollTask(scheduler, threadMonitor, pollIntervalMs);
+        this.catchUpTask = new CatchUpTask(pollIntervalMs);
         this.purgeDelayMs = purgeDelayMs;
+        this.continuousQueryEnabled = continuousQueryEnabled;
         String localServerId;
         try {
             localServerId = serverConfig.getAMServerID();
@@ -139,7 +183,7 @@ public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T>
 
     @Override
     public void subscribe(final Listener listener) {
-        pollTask.start();
+        startWatching();
         Reject.ifNull(listener);
         listeners.add(listener);
 
@@ -156,6 +200,23 @@ public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T>
         });
     }
 
+    private void startWatching() {
+        if (!continuousQueryEnabled) {
+            pollTask.start();
+            return;
+        }
+        if (watching.compareAndSet(false, true)) {
+            DEBUG.message("CTSBlacklist: registering continuous query for blacklisted entries");
+            lastPollTime.set(currentTimeMillis());
+            try {
+                cts.addContinuousQueryListener(queryListener, getContinuousQueryFilter());
+            } catch (CoreTokenException e) {
+                DEBUG.error("CTSBlacklist: Unable to register continuous query, falling back to polling", e);
+                pollTask.start();
+            }
+        }
+    }
+
     private Calendar now() {
         return getCalendarInstance(TimeUtils.UTC, ROOT);
     }
@@ -176,7 +237,24 @@ public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T>
         }
     }
 
+    private void notifyListeners(Collection<PartialToken> tokens) {
+        DEBUG.message("CTSBlacklist: Processing {} entry blacklist notifications", tokens.size());
+        for (PartialToken token : tokens) {
+            notifyListeners(token.<String>getValue(CoreTokenField.TOKEN_ID),
+                    token.<Calendar>getValue(CoreTokenField.EXPIRY_DATE).getTimeInMillis());
+        }
+    }
+
     private Collection<PartialToken> findEntriesBlacklistedSince(long lastPollTime) {
+        try {
+            return queryEntriesBlacklistedSince(lastPollTime);
+        } catch (CoreTokenException e) {
+            DEBUG.error("CTSBlacklist: CTS failure while polling entry blacklist: {}", e, e);
+            return Collections.emptySet();
+        }
+    }
+
+    private Collection<PartialToken> queryEntriesBlacklistedSince(long lastPollTime) throws CoreTokenException {
         // Search for blacklist tokens that have been added since our last poll time, but not from this server (those
         // will already have been notified directly from the blacklist() method).
         final TokenFilter filter = new TokenFilterBuilder()
@@ -187,12 +265,16 @@ public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T>
                 .returnAttribute(CoreTokenField.EXPIRY_DATE)
                 .build();
 
-        try {
-            return cts.attributeQuery(filter);
-        } catch (CoreTokenException e) {
-            DEBUG.error("CTSBlacklist: CTS failure while polling entry blacklist: {}", e, e);
-            return Collections.emptySet();
-        }
+        return cts.attributeQuery(filter);
+    }
+
+    private TokenFilter getContinuousQueryFilter() {
+        return new TokenFilterBuilder()
+                .withQuery(and(equalTo(CoreTokenField.TOKEN_TYPE, tokenType),
+                                not(equalTo(SERVER_ID_FIELD, localServerId))))
+                .returnAttribute(CoreTokenField.TOKEN_ID)
+                .returnAttribute(CoreTokenField.EXPIRY_DATE)
+                .build();
     }
 
     /**
@@ -224,12 +306,86 @@ public final class CTSBlacklist<T extends Blacklistable> implements Blacklist<T>
             Collection<PartialToken> results =
                     findEntriesBlacklistedSince(lastPollTime.getAndSet(currentTimeMillis()));
             if (results != null) {
-                DEBUG.message("CTSBlacklist: Processing {} entry blacklist notifications", results.size());
-                for (PartialToken token : results) {
-                    notifyListeners(token.<String>getValue(CoreTokenField.TOKEN_ID),
-                            TimeUtils.toUnixTime(token.<Calendar>getValue(CoreTokenField.EXPIRY_DATE)));
-                }
+                notifyListeners(results);
+            }
+        }
+    }
+
+    /**
+     * One-off task that polls for entries which may have been missed while the continuous query was not connected.
+     * The poll starts from the last point at which this server was known to be in sync, less the purge delay to
+     * allow for clock skew between servers, and is retried every poll interval until it succeeds.
+     */
+    private final class CatchUpTask implements Runnable {
+        private final AtomicBoolean pending = new AtomicBoolean(false);
+        private final long retryIntervalMs;
+
+        CatchUpTask(long retryIntervalMs) {
+            this.retryIntervalMs = retryIntervalMs;
+        }
+
+        void schedule() {
+            if (pending.compareAndSet(false, true)) {
+                scheduledExecutorService.execute(this);
+            }
+        }
+
+        @Override
+        public void run() {
+            DEBUG.message("CTSBlacklist: catching up on blacklisted entries");
+            long pollTime = currentTimeMillis();
+            Collection<PartialToken> results;
+            try {
+                results = queryEntriesBlacklistedSince(Math.max(0, lastPollTime.get() - purgeDelayMs));
+            } catch (CoreTokenException e) {
+                DEBUG.warning("CTSBlacklist: CTS failure while catching up on entry blacklist, retrying in {}ms",
+                        retryIntervalMs, e);
+                scheduledExecutorService.schedule(this, retryIntervalMs, MILLISECONDS);
+                return;
+            }
+            pending.set(false);
+            lastPollTime.set(pollTime);
+            notifyListeners(results);
+        }
+    }
+
+    /**
+     * Receives entries blacklisted on other servers from the CTS continuous query.
+     */
+    private final class BlacklistQueryListener implements ContinuousQueryListener<Attribute> {
+
+        @Override
+        public void objectChanged(String tokenId, Map<String, Attribute> changeSet, ChangeType changeType) {
+            if (changeType != ChangeType.ADD) {
+                return;
             }
+            Attribute stableId = changeSet.get(CoreTokenField.TOKEN_ID.toString());
+            Attribute expiryDate = changeSet.get(CoreTokenField.EXPIRY_DATE.toString());
+            if (stableId == null || stableId.isEmpty() || expiryDate == null || expiryDate.isEmpty()) {
+                DEBUG.warning("CTSBlacklist: Ignoring incomplete blacklist change for {}", tokenId);
+                return;
+            }
+            notifyListeners(stableId.firstValueAsString(),
+                    GeneralizedTime.valueOf(expiryDate.firstValueAsString()).toCalendar().getTimeInMillis());
+        }
+
+        @Override
+        public void objectsChanged(Set<String> tokenIds) {
+            // This section intentionally left blank
+        }
+
+        @Override
+        public void connectionLost() {
+            // Called whenever the continuous query is (re)started, so anything blacklisted while it was not
+            // connected is picked up once the query is running again.
+            DEBUG.message("CTSBlacklist: continuous query (re)connected, scheduling catch-up poll");
+            catchUpTask.schedule();
+        }
+
+        @Override
+        public void processError(DataLayerException error) {
+            DEBUG.error("CTSBlacklist: Unable to start continuous query, falling back to polling", error);
+            pollTask.start();
         }
     }
 }
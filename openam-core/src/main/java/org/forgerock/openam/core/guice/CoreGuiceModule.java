@@ -13,6 +13,7 @@
  *
  * Copyright 2013-2016 ForgeRock AS.
  * Portions Copyrighted 2015 Nomura Research Institute, Ltd.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.core.guice;
@@ -334,8 +335,10 @@ public class CoreGuiceModule extends AbstractModule {
         ScheduledExecutorService scheduledExecutorService = esf.createScheduledService(1, "SessionBlacklistingThread");
         long purgeDelayMs = serviceConfig.getSessionBlacklistPurgeDelay(TimeUnit.MILLISECONDS);
         long pollIntervalMs = serviceConfig.getSessionBlacklistPollInterval(TimeUnit.MILLISECONDS);
+        boolean continuousQueryEnabled =
+                SystemPropertiesManager.getAsBoolean(CTSBlacklist.CONTINUOUS_QUERY_ENABLED_PROPERTY, true);
         return new CTSBlacklist<>(cts, TokenType.SESSION_BLACKLIST, scheduledExecutorService, threadMonitor,
-                serverConfig, purgeDelayMs, pollIntervalMs);
+                serverConfig, purgeDelayMs, pollIntervalMs, continuousQueryEnabled);
     }
 
     @Provides @Singleton @Inject
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts;
 
@@ -26,6 +27,7 @@ import org.forgerock.openam.cts.continuous.ContinuousQueryListener;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.cts.utils.blob.TokenBlobStrategy;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.util.Options;
 
@@ -314,6 +316,42 @@ public interface CTSPersistentStore {
      */
     Collection<PartialToken> attributeQuery(TokenFilter tokenFilter) throws CoreTokenException;
 
+    /**
+     * Performs a query against the persistent store using the provided TokenFilter, returning a cursor over the
+     * matching Tokens.
+     *
+     * The Tokens are retrieved from the store a page at a time as the cursor is read, so that queries matching a
+     * large number of Tokens can be processed in constant memory and the first results are available before the
+     * query has completed. The size limit of the filter, if any, is applied across all pages and no further pages
+     * are retrieved once it has been reached.
+     *
+     * The returned cursor must be closed, preferably using a try-with-resources statement. Errors while reading a
+     * page are signalled by the cursor throwing a
+     * {@link org.forgerock.openam.sm.datalayer.api.DataLayerRuntimeException}.
+     *
+     * @see QueryCursor
+     * @see #query(TokenFilter)
+     *
+     * @param filter Non null filter.
+     * @param pageSize Positive number of Tokens to retrieve in each page.
+     * @return Non null cursor over the matching Tokens.
+     * @throws CoreTokenException If there was any error whilst starting the query.
+     */
+    QueryCursor<Token> pagedQuery(TokenFilter filter, int pageSize) throws CoreTokenException;
+
+    /**
+     * Performs a partial Token query against the store, returning a cursor over the matching PartialTokens.
+     *
+     * @see #pagedQuery(TokenFilter, int)
+     * @see #attributeQuery(TokenFilter)
+     *
+     * @param tokenFilter Non null TokenFilter, with the return attributes defined.
+     * @param pageSize Positive number of PartialTokens to retrieve in each page.
+     * @return Non null cursor over the matching PartialTokens.
+     * @throws CoreTokenException If there was any error whilst starting the query.
+     */
+    QueryCursor<PartialToken> pagedAttributeQuery(TokenFilter tokenFilter, int pageSize) throws CoreTokenException;
+
     /**
      * Performs an asynchronous query against the persistent store using the provided TokenFilter and then deletes the
      * matching tokens from the store.
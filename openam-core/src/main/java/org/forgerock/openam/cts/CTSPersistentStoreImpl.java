@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts;
 
@@ -35,6 +36,7 @@ import org.forgerock.openam.cts.exceptions.DeleteFailedException;
 import org.forgerock.openam.cts.impl.CoreTokenAdapter;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.util.Options;
 
@@ -247,6 +249,19 @@ public class CTSPersistentStoreImpl implements CTSPersistentStore {
         return adapter.attributeQuery(tokenFilter);
     }
 
+    @Override
+    public QueryCursor<Token> pagedQuery(TokenFilter tokenFilter, int pageSize) throws CoreTokenException {
+        debug("PagedQuery: {0}", tokenFilter.toString());
+        return adapter.pagedQuery(tokenFilter, pageSize);
+    }
+
+    @Override
+    public QueryCursor<PartialToken> pagedAttributeQuery(TokenFilter tokenFilter, int pageSize)
+            throws CoreTokenException {
+        debug("PagedAttributeQuery: {0}", tokenFilter.toString());
+        return adapter.pagedAttributeQuery(tokenFilter, pageSize);
+    }
+
     @Override
     public void deleteOnQueryAsync(TokenFilter tokenFilter) throws CoreTokenException {
         debug("DeleteOnQuery: with query {0}", tokenFilter.toString());
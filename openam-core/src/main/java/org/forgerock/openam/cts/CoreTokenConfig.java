@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts;
 
@@ -21,6 +22,7 @@ import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.TimeUnit;
 
 import org.forgerock.openam.cts.api.CoreTokenConstants;
+import org.forgerock.openam.cts.utils.blob.strategies.CompressionCodec;
 import org.forgerock.openam.utils.ConfigListener;
 import org.forgerock.util.annotations.VisibleForTesting;
 
@@ -47,10 +49,15 @@ public class CoreTokenConfig {
     private volatile int cleanupPageSize;
     private volatile int sleepInterval;
 
+    private volatile boolean workerPipelineEnabled;
+    private volatile int workerPipelineMaxInFlight;
+    private volatile int workerPipelineTargetLatency;
+
     // Token Blob strategy flags
     private volatile boolean tokensEncrypted;
     private volatile boolean tokensCompressed;
     private volatile boolean attributeNamesCompressed;
+    private volatile CompressionCodec tokenCompressionCodec;
 
     /**
      * Create a new default instance of the CoreTokenConfig.
@@ -69,7 +76,11 @@ public class CoreTokenConfig {
                 Constants.SESSION_REPOSITORY_ATTRIBUTE_NAME_COMPRESSION,
                 Constants.CORE_TOKEN_RESOURCE_ENABLED,
                 CLEANUP_PERIOD,
-                HEALTH_CHECK_PERIOD
+                HEALTH_CHECK_PERIOD,
+                CTS_REAPER_PIPELINE_ENABLED,
+                CTS_REAPER_PIPELINE_MAX_IN_FLIGHT,
+                CTS_REAPER_PIPELINE_TARGET_LATENCY,
+                CTS_BLOB_COMPRESSION_CODEC
         };
         ConfigurationListener listener = new ConfigurationListener() {
             @Override
@@ -110,6 +121,8 @@ public class CoreTokenConfig {
 
         // Control Token Compression.
         tokensCompressed = SystemProperties.getAsBoolean(Constants.SESSION_REPOSITORY_COMPRESSION);
+        tokenCompressionCodec = CompressionCodec.fromName(SystemPropertiesManager.get(CTS_BLOB_COMPRESSION_CODEC),
+                CompressionCodec.GZIP);
 
         // Control Attribute Name Compression.
         attributeNamesCompressed = SystemProperties.getAsBoolean(Constants.SESSION_REPOSITORY_ATTRIBUTE_NAME_COMPRESSION);
@@ -117,6 +130,13 @@ public class CoreTokenConfig {
         // Controls the size of pages requested for CTS Reaper
         cleanupPageSize = 1000;
 
+        // Controls whether CTS worker pages are pipelined, and how many tokens may be in flight
+        workerPipelineEnabled = SystemProperties.getAsBoolean(CTS_REAPER_PIPELINE_ENABLED, false);
+        workerPipelineMaxInFlight = Math.max(1,
+                getSystemManagerPropertyAsInt(CTS_REAPER_PIPELINE_MAX_IN_FLIGHT, 4 * cleanupPageSize));
+        workerPipelineTargetLatency = Math.max(1,
+                getSystemManagerPropertyAsInt(CTS_REAPER_PIPELINE_TARGET_LATENCY, 5000));
+
         // Whether or not use of the CoreTokenResource is enabled.
         coreTokenResourceEnabled = SystemProperties.getAsBoolean(Constants.CORE_TOKEN_RESOURCE_ENABLED);
     }
@@ -219,6 +239,13 @@ public class CoreTokenConfig {
         return tokensCompressed;
     }
 
+    /**
+     * @return The codec compressed tokens are written with. GZIP is the default.
+     */
+    public CompressionCodec getTokenCompressionCodec() {
+        return tokenCompressionCodec;
+    }
+
     /**
      * @return True if The Token Attribute Names should be compressed as well. False by default.
      */
@@ -233,6 +260,28 @@ public class CoreTokenConfig {
         return cleanupPageSize;
     }
 
+    /**
+     * @return True if CTS worker processes should query the next page while previous pages are being processed.
+     */
+    public boolean isWorkerPipelineEnabled() {
+        return workerPipelineEnabled;
+    }
+
+    /**
+     * @return The maximum number of tokens a pipelined CTS worker may have queued for processing. Greater than zero.
+     */
+    public int getWorkerPipelineMaxInFlight() {
+        return workerPipelineMaxInFlight;
+    }
+
+    /**
+     * @param timeUnit The time unit to return the latency in.
+     * @return The time within which a pipelined CTS worker expects a batch of tokens to be processed.
+     */
+    public long getWorkerPipelineTargetLatency(TimeUnit timeUnit) {
+        return timeUnit.convert(workerPipelineTargetLatency, TimeUnit.MILLISECONDS);
+    }
+
     /**
      * Register a listener to be notified when {@link CoreTokenConfig} changes.
      *
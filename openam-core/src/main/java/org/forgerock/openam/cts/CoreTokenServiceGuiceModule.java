@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts;
 
@@ -39,6 +40,7 @@ import org.forgerock.openam.cts.impl.query.worker.queries.SessionIdleTimeExpired
 import org.forgerock.openam.cts.impl.queue.ResultHandlerFactory;
 import org.forgerock.openam.cts.monitoring.CTSConnectionMonitoringStore;
 import org.forgerock.openam.cts.monitoring.CTSOperationsMonitoringStore;
+import org.forgerock.openam.cts.monitoring.CTSQueueMonitoringStore;
 import org.forgerock.openam.cts.monitoring.CTSReaperMonitoringStore;
 import org.forgerock.openam.cts.monitoring.impl.CTSMonitoringStoreImpl;
 import org.forgerock.openam.cts.monitoring.impl.queue.MonitoredResultHandlerFactory;
@@ -121,6 +123,7 @@ public class CoreTokenServiceGuiceModule extends PrivateModule {
         bind(CTSOperationsMonitoringStore.class).to(CTSMonitoringStoreImpl.class);
         bind(CTSReaperMonitoringStore.class).to(CTSMonitoringStoreImpl.class);
         bind(CTSConnectionMonitoringStore.class).to(CTSMonitoringStoreImpl.class);
+        bind(CTSQueueMonitoringStore.class).to(CTSMonitoringStoreImpl.class);
 
         // Enable monitoring of all CTS operations
         bind(ResultHandlerFactory.class).to(MonitoredResultHandlerFactory.class);
@@ -140,6 +143,7 @@ public class CoreTokenServiceGuiceModule extends PrivateModule {
         expose(CoreTokenConfig.class);
         expose(CTSPersistentStore.class);
         expose(CTSConnectionMonitoringStore.class);
+        expose(CTSQueueMonitoringStore.class);
         expose(ExecutorService.class).annotatedWith(Names.named(CoreTokenConstants.CTS_WORKER_POOL));
         expose(ObjectMapper.class).annotatedWith(Names.named(CoreTokenConstants.OBJECT_MAPPER));
         expose(ResultHandlerFactory.class);
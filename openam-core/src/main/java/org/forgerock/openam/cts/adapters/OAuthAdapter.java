@@ -1,5 +1,6 @@
 /**
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  *
  * The contents of this file are subject to the terms of the Common Development and
  * Distribution License (the License). You may not use this file except in compliance with the
@@ -145,8 +146,7 @@ public class OAuthAdapter implements TokenAdapter<JsonValue> {
          * the object contained within the JsonValue which we know to be a map.
          */
         Object objectToStore = request.getObject();
-        String serialisedObject = serialisation.serialise(objectToStore);
-        blobUtils.setBlobFromString(token, serialisedObject);
+        token.setBlob(serialisation.serialiseToBytes(objectToStore));
 
         return token;
     }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.adapters;
 
@@ -84,8 +85,7 @@ public class SAMLAdapter implements TokenAdapter<SAMLToken> {
         }
 
         // Binary data
-        String jsonBlob = serialisation.serialise(samlToken.getToken());
-        blobUtils.setBlobFromString(token, jsonBlob);
+        token.setBlob(serialisation.serialiseToBytes(samlToken.getToken()));
 
         return token;
     }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.adapters;
 
@@ -128,10 +129,16 @@ public class SessionAdapter implements TokenAdapter<InternalSession> {
         token.setAttribute(SessionTokenField.SESSION_ID.getField(), session.getID().toString());
 
         // Binary data
+        // The latest access time is moved out of the blob before it is encoded, so the blob is encoded just once
         String jsonBlob = serialisation.serialise(session);
+        Matcher matcher = LATEST_ACCESSED_TIME.matcher(jsonBlob);
+        String latestAccessTime = null;
+        if (matcher.find()) {
+            latestAccessTime = matcher.group(1);
+            jsonBlob = removeMatch(jsonBlob, matcher);
+        }
         blobUtils.setBlobFromString(token, jsonBlob);
 
-        String latestAccessTime = filterLatestAccessTime(token);
         if (latestAccessTime != null) {
             token.setAttribute(SessionTokenField.LATEST_ACCESS_TIME.getField(), latestAccessTime);
         }
@@ -225,12 +232,15 @@ public class SessionAdapter implements TokenAdapter<InternalSession> {
         }
 
         String latestAccessTime = matcher.group(1);
-        contents = contents.substring(0, matcher.start()) + contents.substring(matcher.end(), contents.length());
-        blobUtils.setBlobFromString(token, contents);
+        blobUtils.setBlobFromString(token, removeMatch(contents, matcher));
 
         return latestAccessTime;
     }
 
+    private static String removeMatch(String contents, Matcher matcher) {
+        return contents.substring(0, matcher.start()) + contents.substring(matcher.end(), contents.length());
+    }
+
     /**
      * Helper function to simplify code around this Pattern.
      * @return Non null.
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.api;
 
@@ -126,6 +127,53 @@ public final class CoreTokenConstants {
      */
     public static final String CTS_ASYNC_QUEUE_SIZE = "org.forgerock.services.cts.async.queue.size";
 
+    /**
+     * The number of ordered task lanes used by the work stealing asynchronous task executor.
+     */
+    public static final String CTS_ASYNC_LANES = "org.forgerock.services.cts.async.lanes";
+
+    /**
+     * Enable/disable coalescing of queued updates to the same token.
+     */
+    public static final String CTS_ASYNC_COALESCE_ENABLED = "org.forgerock.services.cts.async.coalesce.enabled";
+
+    /**
+     * The duration in milliseconds an update is held back to allow further updates to the same token to be merged
+     * into it. May be suffixed with {@code .TOKEN_TYPE} to configure a single token type.
+     */
+    public static final String CTS_ASYNC_COALESCE_WINDOW = "org.forgerock.services.cts.async.coalesce.window";
+
+    /**
+     * The maximum duration in milliseconds an update may be held back before it is written, however many further
+     * updates are merged into it. May be suffixed with {@code .TOKEN_TYPE} to configure a single token type.
+     */
+    public static final String CTS_ASYNC_COALESCE_MAX_WAIT = "org.forgerock.services.cts.async.coalesce.max.wait";
+
+    /**
+     * Enable/disable pipelining of CTS worker pages, so that the next page is queried while the previous pages are
+     * still being processed.
+     */
+    public static final String CTS_REAPER_PIPELINE_ENABLED = "org.forgerock.services.cts.reaper.pipeline.enabled";
+
+    /**
+     * The maximum number of tokens a pipelined CTS worker may have queued for processing at any one time.
+     */
+    public static final String CTS_REAPER_PIPELINE_MAX_IN_FLIGHT =
+            "org.forgerock.services.cts.reaper.pipeline.max.inflight";
+
+    /**
+     * The time in milliseconds within which a pipelined CTS worker expects a batch to be processed. When batches
+     * take longer the number of tokens in flight is reduced, to leave capacity for other CTS operations.
+     */
+    public static final String CTS_REAPER_PIPELINE_TARGET_LATENCY =
+            "org.forgerock.services.cts.reaper.pipeline.target.latency";
+
+    /**
+     * The codec used to compress Token binary data when compression is enabled, GZIP or DEFLATE. Any codec can
+     * be read whatever the setting, but servers older than the codecs can only read GZIP.
+     */
+    public static final String CTS_BLOB_COMPRESSION_CODEC = "org.forgerock.services.cts.blob.compression.codec";
+
     /**
      * Binding constant for the CTS Jackson Object Mapper.
      */
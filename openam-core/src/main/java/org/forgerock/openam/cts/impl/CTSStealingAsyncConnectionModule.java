@@ -0,0 +1,35 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.impl;
+
+import org.forgerock.openam.sm.datalayer.impl.StealingTaskExecutor;
+
+/**
+ * A CTS asynchronous connection module which processes tasks with the work stealing
+ * {@link StealingTaskExecutor} instead of the default fixed queue per processor executor.
+ * <p>
+ * This module is selected by setting the system property
+ * {@code org.forgerock.openam.sm.datalayer.module.CTS_ASYNC} to the name of this class.
+ *
+ * @see org.forgerock.openam.sm.datalayer.api.ConnectionType#getConfigurationClass()
+ */
+public class CTSStealingAsyncConnectionModule extends CTSAsyncConnectionModule {
+
+    public CTSStealingAsyncConnectionModule() {
+        super(StealingTaskExecutor.class);
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl;
 
@@ -36,8 +37,11 @@ import org.forgerock.openam.cts.impl.queue.TaskDispatcher;
 import org.forgerock.openam.cts.utils.blob.TokenBlobStrategy;
 import org.forgerock.openam.cts.utils.blob.TokenStrategyFailedException;
 import org.forgerock.openam.cts.worker.CTSWorkerManager;
+import org.forgerock.openam.sm.datalayer.api.DataLayerRuntimeException;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
+import org.forgerock.openam.sm.datalayer.api.query.TransformingQueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.util.Options;
 import org.forgerock.util.Reject;
@@ -227,6 +231,76 @@ public class CoreTokenAdapter {
         }
     }
 
+    /**
+     * Queries the persistence layer using the given TokenFilter, returning a cursor which reads the
+     * matching Tokens a page at a time. The Token blob strategy is reversed as each Token is read.
+     *
+     * @param tokenFilter A non null TokenFilter.
+     * @param pageSize Positive number of Tokens to retrieve in each page.
+     * @return A non null cursor which must be closed by the caller.
+     * @throws CoreTokenException If there was a problem starting the query.
+     */
+    public QueryCursor<Token> pagedQuery(final TokenFilter tokenFilter, int pageSize) throws CoreTokenException {
+        debug("PagedQuery: queued with Filter: {0}", tokenFilter);
+        ResultHandler<QueryCursor<Token>, CoreTokenException> handler = handlerFactory.getPagedQueryHandler();
+        dispatcher.pagedQuery(tokenFilter, pageSize, handler);
+        try {
+            return new TransformingQueryCursor<Token, Token>(handler.getResults()) {
+                @Override
+                protected Token transform(Token token) {
+                    try {
+                        reverseBlobStrategy(token);
+                    } catch (CoreTokenException e) {
+                        throw new DataLayerRuntimeException("Failed to reverse Token Blob strategy.", token, e);
+                    }
+                    return token;
+                }
+            };
+        } catch (CoreTokenException e) {
+            throw new QueryFailedException(tokenFilter, e);
+        }
+    }
+
+    /**
+     * Queries the persistence layer using the given TokenFilter which must have the required
+     * 'return attributes' defined within it, returning a cursor which reads the matching PartialTokens
+     * a page at a time.
+     *
+     * @param filter Non null TokenFilter with return attributes defined.
+     * @param pageSize Positive number of PartialTokens to retrieve in each page.
+     * @return A non null cursor which must be closed by the caller.
+     * @throws CoreTokenException If there was a problem starting the query.
+     * @throws IllegalArgumentException If the filter did not define any Return Fields.
+     */
+    public QueryCursor<PartialToken> pagedAttributeQuery(final TokenFilter filter, int pageSize)
+            throws CoreTokenException, IllegalArgumentException {
+        Reject.ifTrue(filter.getReturnFields().isEmpty(), "Must define return fields for attribute query.");
+
+        debug("PagedAttributeQuery: queued with Filter: {0}", filter);
+        ResultHandler<QueryCursor<PartialToken>, CoreTokenException> handler =
+                handlerFactory.getPagedPartialQueryHandler();
+        dispatcher.pagedPartialQuery(filter, pageSize, handler);
+        try {
+            QueryCursor<PartialToken> cursor = handler.getResults();
+            if (!filter.getReturnFields().contains(CoreTokenField.BLOB)) {
+                return cursor;
+            }
+            return new TransformingQueryCursor<PartialToken, PartialToken>(cursor) {
+                @Override
+                protected PartialToken transform(PartialToken partialToken) {
+                    try {
+                        byte[] value = partialToken.getValue(CoreTokenField.BLOB);
+                        return new PartialToken(partialToken, CoreTokenField.BLOB, strategy.reverse(value));
+                    } catch (TokenStrategyFailedException e) {
+                        throw new DataLayerRuntimeException("Failed to reverse Blob strategy", e);
+                    }
+                }
+            };
+        } catch (CoreTokenException e) {
+            throw new QueryFailedException(filter, e);
+        }
+    }
+
     /**
      * Queries the persistence layer using the given TokenFilter which must have the required
      * 'return attributes' defined within it. The results of this query then will be deleted from the store.
@@ -297,7 +371,7 @@ public class CoreTokenAdapter {
 
     private void applyBlobStrategy(Token token) throws CoreTokenException {
         try {
-            token.setBlob(strategy.perform(token.getBlob()));
+            token.setBlob(strategy.perform(token.getType(), token.getBlob()));
         } catch (TokenStrategyFailedException e) {
             throw new CoreTokenException("Failed to perform Token Blob strategy.", e);
         }
@@ -305,7 +379,7 @@ public class CoreTokenAdapter {
 
     private void reverseBlobStrategy(Token token) throws CoreTokenException {
         try {
-            token.setBlob(strategy.reverse(token.getBlob()));
+            token.setBlob(strategy.reverse(token.getType(), token.getBlob()));
         } catch (TokenStrategyFailedException e) {
             throw new CoreTokenException("Failed to reverse Token Blob strategy.", e);
         }
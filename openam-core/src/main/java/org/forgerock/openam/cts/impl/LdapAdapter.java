@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.impl;
@@ -39,6 +40,8 @@ import org.forgerock.openam.sm.datalayer.api.LdapOperationFailedException;
 import org.forgerock.openam.sm.datalayer.api.OptimisticConcurrencyCheckFailedException;
 import org.forgerock.openam.sm.datalayer.api.TokenStorageAdapter;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
+import org.forgerock.openam.sm.datalayer.api.query.TransformingQueryCursor;
 import org.forgerock.openam.sm.datalayer.impl.ldap.LdapQueryFactory;
 import org.forgerock.openam.sm.datalayer.impl.ldap.LdapQueryFilterVisitor;
 import org.forgerock.openam.sm.datalayer.providers.LdapConnectionFactoryProvider;
@@ -65,6 +68,7 @@ import org.forgerock.opendj.ldap.responses.Result;
 import org.forgerock.opendj.ldap.responses.SearchResultEntry;
 import org.forgerock.util.Option;
 import org.forgerock.util.Options;
+import org.forgerock.util.Reject;
 
 import com.forgerock.opendj.ldap.controls.TransactionIdControl;
 
@@ -276,6 +280,49 @@ public class LdapAdapter implements TokenStorageAdapter {
         }
     }
 
+    /**
+     * The query is performed over a connection of its own, rather than the connection of this adapter, which is
+     * released when the cursor is exhausted or closed.
+     */
+    @Override
+    public QueryCursor<Token> pagedQuery(TokenFilter query, int pageSize) throws DataLayerException {
+        Reject.ifTrue(pageSize <= 0, "Page size must be positive");
+        Connection queryConnection = connectionFactory.create();
+        try {
+            return new ConnectionClosingCursor<>(queryConnection, queryFactory.createInstance()
+                    .limitResultsTo(query.getSizeLimit())
+                    .within(query.getTimeLimit())
+                    .pageResultsBy(pageSize)
+                    .withFilter(query.getQuery().accept(queryConverter, null))
+                    .executeCursor(queryConnection));
+        } catch (RuntimeException e) {
+            IOUtils.closeIfNotNull(queryConnection);
+            throw e;
+        }
+    }
+
+    /**
+     * The query is performed over a connection of its own, rather than the connection of this adapter, which is
+     * released when the cursor is exhausted or closed.
+     */
+    @Override
+    public QueryCursor<PartialToken> pagedPartialQuery(TokenFilter query, int pageSize) throws DataLayerException {
+        Reject.ifTrue(pageSize <= 0, "Page size must be positive");
+        Connection queryConnection = connectionFactory.create();
+        try {
+            return new ConnectionClosingCursor<>(queryConnection, queryFactory.createInstance()
+                    .returnTheseAttributes(query.getReturnFields())
+                    .limitResultsTo(query.getSizeLimit())
+                    .within(query.getTimeLimit())
+                    .pageResultsBy(pageSize)
+                    .withFilter(query.getQuery().accept(queryConverter, null))
+                    .executeAttributeCursor(queryConnection));
+        } catch (RuntimeException e) {
+            IOUtils.closeIfNotNull(queryConnection);
+            throw e;
+        }
+    }
+
     @Override
     public ContinuousQuery startContinuousQuery(TokenFilter filter, ContinuousQueryListener listener)
             throws DataLayerException {
@@ -330,4 +377,40 @@ public class LdapAdapter implements TokenStorageAdapter {
         }
         return r;
     }
+
+    /**
+     * Closes the connection a cursor reads from once the cursor is exhausted or closed.
+     */
+    private static final class ConnectionClosingCursor<T> extends TransformingQueryCursor<T, T> {
+
+        private Connection connection;
+
+        private ConnectionClosingCursor(Connection connection, QueryCursor<T> cursor) {
+            super(cursor);
+            this.connection = connection;
+        }
+
+        @Override
+        protected T transform(T result) {
+            return result;
+        }
+
+        @Override
+        public boolean hasNext() {
+            boolean hasNext = super.hasNext();
+            if (!hasNext) {
+                close();
+            }
+            return hasNext;
+        }
+
+        @Override
+        public synchronized void close() {
+            if (connection != null) {
+                super.close();
+                IOUtils.closeIfNotNull(connection);
+                connection = null;
+            }
+        }
+    }
 }
\ No newline at end of file
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl.queue;
 
@@ -28,6 +29,7 @@ import org.forgerock.openam.sm.datalayer.api.DataLayer;
 import org.forgerock.openam.sm.datalayer.api.QueueConfiguration;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 
 /**
  * Implementation provides an appropriate asynchronous ResultHandler implementation based on the
@@ -91,6 +93,20 @@ public class AsyncResultHandlerFactory implements ResultHandlerFactory {
         return new AsyncResultHandler<>(config, debug);
     }
 
+    /**
+     * @return Non null result handler.
+     */
+    public ResultHandler<QueryCursor<Token>, CoreTokenException> getPagedQueryHandler() {
+        return new AsyncResultHandler<>(config, debug);
+    }
+
+    /**
+     * @return Non null result handler.
+     */
+    public ResultHandler<QueryCursor<PartialToken>, CoreTokenException> getPagedPartialQueryHandler() {
+        return new AsyncResultHandler<>(config, debug);
+    }
+
     @Override
     public ResultHandler<Collection<PartialToken>, CoreTokenException> getDeleteOnQueryHandler() {
         return InjectorHolder.getInstance(DeleteOnQueryResultHandler.class);
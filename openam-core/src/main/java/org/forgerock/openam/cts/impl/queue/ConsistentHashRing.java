@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.cts.impl.queue;
+
+import java.util.Arrays;
+
+import org.forgerock.util.Reject;
+
+/**
+ * A consistent hash ring which assigns keys to a number of nodes.
+ *
+ * Unlike the modulus based {@link QueueSelector}, changing the number of nodes on the ring
+ * will only move the keys that belong to the added or removed nodes. All other keys will
+ * continue to be assigned to the same node as before.
+ *
+ * Each node is placed on the ring a number of times (virtual nodes) to smooth out the
+ * distribution of keys between nodes. The ring is immutable, a new instance should be
+ * created when the number of nodes changes.
+ */
+public final class ConsistentHashRing {
+
+    /**
+     * The default number of points each node is assigned on the ring.
+     */
+    public static final int DEFAULT_VIRTUAL_NODES = 64;
+
+    private final int nodes;
+    private final int[] points;
+    private final int[] owners;
+
+    /**
+     * Creates a ring with {@link #DEFAULT_VIRTUAL_NODES} points per node.
+     *
+     * @param nodes The number of nodes on the ring, must be positive.
+     */
+    public ConsistentHashRing(int nodes) {
+        this(nodes, DEFAULT_VIRTUAL_NODES);
+    }
+
+    /**
+     * Creates a ring with the given number of points per node.
+     *
+     * @param nodes The number of nodes on the ring, must be positive.
+     * @param virtualNodes The number of points each node occupies on the ring, must be positive.
+     */
+    public ConsistentHashRing(int nodes, int virtualNodes) {
+        Reject.ifTrue(nodes <= 0, "nodes must be positive");
+        Reject.ifTrue(virtualNodes <= 0, "virtualNodes must be positive");
+        this.nodes = nodes;
+
+        long[] ring = new long[nodes * virtualNodes];
+        int index = 0;
+        for (int node = 0; node < nodes; node++) {
+            for (int point = 0; point < virtualNodes; point++) {
+                int hash = hash(node + "#" + point);
+                // Pack the hash and the owning node so that sorting keeps them together.
+                ring[index++] = ((long) hash << 32) | (node & 0xFFFFFFFFL);
+            }
+        }
+        Arrays.sort(ring);
+
+        points = new int[ring.length];
+        owners = new int[ring.length];
+        for (int ii = 0; ii < ring.length; ii++) {
+            points[ii] = (int) (ring[ii] >> 32);
+            owners[ii] = (int) ring[ii];
+        }
+    }
+
+    /**
+     * Selects the node which the given key belongs to.
+     *
+     * @param key Non null key.
+     * @return The index of a node, between zero and {@link #getNodes()} (exclusive).
+     */
+    public int select(String key) {
+        Reject.ifTrue(key == null, "Key cannot be null");
+        return selectByHash(hash(key));
+    }
+
+    /**
+     * Selects the node which owns the given position on the ring.
+     *
+     * @param hash A position on the ring.
+     * @return The index of a node, between zero and {@link #getNodes()} (exclusive).
+     */
+    public int selectByHash(int hash) {
+        int position = Arrays.binarySearch(points, hash);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        if (position == points.length) {
+            position = 0;
+        }
+        return owners[position];
+    }
+
+    /**
+     * @return The number of nodes on this ring.
+     */
+    public int getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Spreads the bits of {@link String#hashCode()} using the MurmurHash3 finaliser so that
+     * similar keys land on distant points of the ring.
+     *
+     * @param key Non null key.
+     * @return A well distributed hash of the key.
+     */
+    public static int hash(String key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return h;
+    }
+}
@@ -12,12 +12,14 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl.queue;
 
 import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 
 import java.util.Collection;
@@ -57,6 +59,16 @@ public interface ResultHandlerFactory {
      */
     ResultHandler<Collection<PartialToken>, CoreTokenException> getPartialQueryHandler();
 
+    /**
+     * @return Handler suitable for a paged query operation.
+     */
+    ResultHandler<QueryCursor<Token>, CoreTokenException> getPagedQueryHandler();
+
+    /**
+     * @return Handler suitable for a paged partial query operation.
+     */
+    ResultHandler<QueryCursor<PartialToken>, CoreTokenException> getPagedPartialQueryHandler();
+
     /**
      * Returns a {@link ResultHandler} that performs a delete operation on the query's results.
      *
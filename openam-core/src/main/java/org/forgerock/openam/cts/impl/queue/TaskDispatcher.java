@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl.queue;
 
@@ -33,8 +34,10 @@ import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.sm.datalayer.api.Task;
 import org.forgerock.openam.sm.datalayer.api.TaskExecutor;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.sm.datalayer.impl.SeriesTaskExecutorThread;
 import org.forgerock.openam.sm.datalayer.impl.tasks.ContinuousQueryTask;
+import org.forgerock.openam.sm.datalayer.impl.tasks.PagedQueryTask;
 import org.forgerock.openam.sm.datalayer.impl.tasks.PartialQueryTask;
 import org.forgerock.openam.sm.datalayer.impl.tasks.QueryTask;
 import org.forgerock.openam.sm.datalayer.impl.tasks.TaskFactory;
@@ -62,6 +65,7 @@ public class TaskDispatcher {
 
     private final TaskFactory taskFactory;
     private final TaskExecutor taskExecutor;
+    private final UpdateCoalescer coalescer;
 
     /**
      * The usage of Promise here allows access to the result of the Task as it is executed.
@@ -73,12 +77,14 @@ public class TaskDispatcher {
      *
      * @param taskFactory Required to create Task instances.
      * @param taskExecutor Required for execution of the tasks.
+     * @param coalescer Required to merge pending updates to the same token.
      */
     @Inject
     public TaskDispatcher(@DataLayer(ConnectionType.CTS_ASYNC) TaskFactory taskFactory,
-            @DataLayer(ConnectionType.CTS_ASYNC) TaskExecutor taskExecutor) {
+            @DataLayer(ConnectionType.CTS_ASYNC) TaskExecutor taskExecutor, UpdateCoalescer coalescer) {
         this.taskFactory = taskFactory;
         this.taskExecutor = taskExecutor;
+        this.coalescer = coalescer;
         this.continuousQueries = new ConcurrentHashMap<>();
     }
 
@@ -107,6 +113,7 @@ public class TaskDispatcher {
     public void create(Token token, Options options, ResultHandler<Token, ?> handler) throws CoreTokenException {
         Reject.ifNull(token, options, handler);
         try {
+            coalescer.flush(token.getTokenId());
             taskExecutor.execute(token.getTokenId(), taskFactory.create(token, options, handler));
         } catch (DataLayerException e) {
             throw new CoreTokenException("Error in data layer", e);
@@ -132,6 +139,7 @@ public class TaskDispatcher {
     public void read(String tokenId, Options options, ResultHandler<Token, ?> handler) throws CoreTokenException {
         Reject.ifNull(tokenId, options, handler);
         try {
+            coalescer.flush(tokenId);
             taskExecutor.execute(tokenId, taskFactory.read(tokenId, options, handler));
         } catch (DataLayerException e) {
             throw new CoreTokenException("Error in data layer", e);
@@ -141,6 +149,9 @@ public class TaskDispatcher {
     /**
      * The CTS Token to update in the persistent store.
      *
+     * If coalescing is enabled, the update may be merged with other pending updates to the same token.
+     *
+     * @see UpdateCoalescer
      * @see TaskDispatcher
      * @see org.forgerock.openam.cts.impl.queue.config.CTSQueueConfiguration#getQueueTimeout()
      *
@@ -153,6 +164,11 @@ public class TaskDispatcher {
     public void update(Token token, Options options, ResultHandler<Token, ?> handler) throws CoreTokenException {
         Reject.ifNull(token, options, handler);
         try {
+            if (coalescer.isCoalescable(token, options)) {
+                coalescer.update(token, options, handler);
+                return;
+            }
+            coalescer.flush(token.getTokenId());
             taskExecutor.execute(token.getTokenId(), taskFactory.update(token, options, handler));
         } catch (DataLayerException e) {
             throw new CoreTokenException("Error in data layer", e);
@@ -191,6 +207,7 @@ public class TaskDispatcher {
     public void delete(String tokenId, Options options, ResultHandler<PartialToken, ?> handler) throws CoreTokenException {
         Reject.ifNull(tokenId, options, handler);
         try {
+            coalescer.flush(tokenId);
             taskExecutor.execute(tokenId, taskFactory.delete(tokenId, options, handler));
         } catch (DataLayerException e) {
             throw new CoreTokenException("Error in data layer", e);
@@ -248,6 +265,51 @@ public class TaskDispatcher {
         }
     }
 
+    /**
+     * Start a paged query against the persistent store and signal a cursor over the results to the provided
+     * ResultHandler. The results are read from the cursor on the caller's thread, so a slow consumer does not hold
+     * up the queue the {@link PagedQueryTask} was placed on.
+     *
+     * @param tokenFilter Non null TokenFilter.
+     * @param pageSize Positive number of Tokens to retrieve in each page.
+     * @param handler Non null ResultHandler to notify.
+     *
+     * @throws CoreTokenException If there was a problem adding the task to the queue.
+     */
+    public void pagedQuery(TokenFilter tokenFilter, int pageSize, ResultHandler<QueryCursor<Token>, ?> handler)
+            throws CoreTokenException {
+        Reject.ifNull(tokenFilter, handler);
+        Reject.ifTrue(pageSize <= 0, "Page size must be positive");
+        try {
+            taskExecutor.execute(null, taskFactory.pagedQuery(tokenFilter, pageSize, handler));
+        } catch (DataLayerException e) {
+            throw new CoreTokenException("Error in data layer", e);
+        }
+    }
+
+    /**
+     * Start a paged partial query against the persistent store and signal a cursor over the results to the
+     * provided ResultHandler.
+     *
+     * @see #pagedQuery(TokenFilter, int, ResultHandler)
+     *
+     * @param tokenFilter Non null TokenFilter.
+     * @param pageSize Positive number of PartialTokens to retrieve in each page.
+     * @param handler Non null ResultHandler to notify.
+     *
+     * @throws CoreTokenException If there was a problem adding the task to the queue.
+     */
+    public void pagedPartialQuery(TokenFilter tokenFilter, int pageSize,
+            ResultHandler<QueryCursor<PartialToken>, ?> handler) throws CoreTokenException {
+        Reject.ifNull(tokenFilter, handler);
+        Reject.ifTrue(pageSize <= 0, "Page size must be positive");
+        try {
+            taskExecutor.execute(null, taskFactory.pagedPartialQuery(tokenFilter, pageSize, handler));
+        } catch (DataLayerException e) {
+            throw new CoreTokenException("Error in data layer", e);
+        }
+    }
+
     /**
      * Perform a continuous query against the persistent store and signal the results to the provided
      * {@link ContinuousQueryListener}.
@@ -0,0 +1,365 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.cts.impl.queue;
+
+import static org.forgerock.openam.cts.api.CTSOptions.OPTIMISTIC_CONCURRENCY_CHECK_OPTION;
+import static org.forgerock.openam.cts.api.CTSOptions.PRE_DELETE_READ_OPTION;
+
+import java.text.MessageFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
+import org.forgerock.openam.cts.api.CoreTokenConstants;
+import org.forgerock.openam.cts.api.tokens.Token;
+import org.forgerock.openam.cts.impl.queue.config.CTSCoalescingConfiguration;
+import org.forgerock.openam.cts.monitoring.CTSQueueMonitoringStore;
+import org.forgerock.openam.sm.datalayer.api.ConnectionType;
+import org.forgerock.openam.sm.datalayer.api.DataLayer;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
+import org.forgerock.openam.sm.datalayer.api.ResultHandler;
+import org.forgerock.openam.sm.datalayer.api.Task;
+import org.forgerock.openam.sm.datalayer.api.TaskExecutor;
+import org.forgerock.openam.sm.datalayer.api.TokenStorageAdapter;
+import org.forgerock.openam.sm.datalayer.impl.tasks.TaskFactory;
+import org.forgerock.util.Options;
+import org.forgerock.util.annotations.VisibleForTesting;
+import org.forgerock.util.time.TimeService;
+
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * Merges pending updates to the same token into a single write.
+ *
+ * The first update to a token creates a pending update task. Until that task starts processing, any further
+ * update to the same token replaces the token that will be written (last writer wins) and its result handler
+ * is notified of the outcome of the single write. Session tokens are typically updated several times within a
+ * few milliseconds, so this removes a read and modify from the data store for each merged update.
+ *
+ * The pending update can be held back for a configurable window before it is placed on the work queue, which
+ * allows more updates to be merged at the cost of write latency. The window and the maximum time an update may
+ * be held back are configured per token type by {@link CTSCoalescingConfiguration}.
+ *
+ * To preserve the ordering of operations on a token, any other operation on the token must call
+ * {@link #flush(String)} before it is queued. This stops further merging and queues the pending update if it
+ * was being held back.
+ *
+ * Updates which assert on the token's ETag are never coalesced, and an update is only merged into a pending
+ * update that was requested with the same CTS options.
+ */
+@Singleton
+public class UpdateCoalescer {
+
+    private final ConcurrentMap<String, CoalescedUpdateTask> pending = new ConcurrentHashMap<>();
+    private final TaskFactory taskFactory;
+    private final TaskExecutor taskExecutor;
+    private final CTSCoalescingConfiguration configuration;
+    private final CTSQueueMonitoringStore monitoringStore;
+    private final ScheduledExecutorService scheduler;
+    private final TimeService timeService;
+    private final Debug debug;
+
+    /**
+     * Create a default instance of the UpdateCoalescer.
+     *
+     * @param taskFactory Required to create the update task.
+     * @param taskExecutor Required for execution of the tasks.
+     * @param configuration Required to determine whether and how long to coalesce updates.
+     * @param monitoringStore Required to record coalesced updates.
+     * @param executorServiceFactory Required to schedule held back updates.
+     * @param debug Required for debugging.
+     */
+    @Inject
+    public UpdateCoalescer(@DataLayer(ConnectionType.CTS_ASYNC) TaskFactory taskFactory,
+            @DataLayer(ConnectionType.CTS_ASYNC) TaskExecutor taskExecutor,
+            CTSCoalescingConfiguration configuration, CTSQueueMonitoringStore monitoringStore,
+            AMExecutorServiceFactory executorServiceFactory,
+            @Named(CoreTokenConstants.CTS_ASYNC_DEBUG) Debug debug) {
+        this(taskFactory, taskExecutor, configuration, monitoringStore,
+                executorServiceFactory.createScheduledService(1, "CTSUpdateCoalescer"), TimeService.SYSTEM, debug);
+    }
+
+    @VisibleForTesting
+    UpdateCoalescer(TaskFactory taskFactory, TaskExecutor taskExecutor, CTSCoalescingConfiguration configuration,
+            CTSQueueMonitoringStore monitoringStore, ScheduledExecutorService scheduler, TimeService timeService,
+            Debug debug) {
+        this.taskFactory = taskFactory;
+        this.taskExecutor = taskExecutor;
+        this.configuration = configuration;
+        this.monitoringStore = monitoringStore;
+        this.scheduler = scheduler;
+        this.timeService = timeService;
+        this.debug = debug;
+    }
+
+    /**
+     * Determines whether an update can be merged with other updates to the same token.
+     *
+     * @param token Non null token to be updated.
+     * @param options Non null Options for the operation.
+     * @return True if coalescing is enabled and the update does not assert on the token's ETag.
+     */
+    public boolean isCoalescable(Token token, Options options) {
+        return configuration.isEnabled() && options.get(OPTIMISTIC_CONCURRENCY_CHECK_OPTION) == null;
+    }
+
+    /**
+     * Merges the update into a pending update to the same token, or queues a new update.
+     *
+     * @param token Non null Token to update.
+     * @param options Non null Options for the operation.
+     * @param handler Non null ResultHandler to notify.
+     * @throws DataLayerException If the update could not be placed on the work queue.
+     */
+    public void update(Token token, Options options, ResultHandler<Token, ?> handler) throws DataLayerException {
+        String tokenId = token.getTokenId();
+        while (true) {
+            CoalescedUpdateTask existing = pending.get(tokenId);
+            if (existing != null) {
+                if (existing.hasSameOptions(options) && existing.merge(token, handler)) {
+                    debug("Coalesced update to Token {0}", tokenId);
+                    monitoringStore.addCoalescedUpdate();
+                    return;
+                }
+                // The pending update has started processing or has different options, so a new update is
+                // required. Queue the pending update first to preserve the ordering of the writes.
+                if (pending.remove(tokenId, existing)) {
+                    existing.close();
+                    queueQuietly(existing);
+                }
+                continue;
+            }
+
+            CoalescedUpdateTask task = new CoalescedUpdateTask(token, options, handler);
+            if (pending.putIfAbsent(tokenId, task) == null) {
+                long window = configuration.getWindow(token.getType());
+                if (window <= 0) {
+                    try {
+                        queue(task);
+                    } catch (DataLayerException e) {
+                        // This caller is told by the exception, any update merged in the meantime by its handler
+                        task.fail(e, true);
+                        throw e;
+                    }
+                } else {
+                    scheduler.schedule(new Flush(task, window, configuration.getMaximumWait(token.getType())),
+                            window, TimeUnit.MILLISECONDS);
+                }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Stops any further updates being merged into the pending update for the token, and queues it if it is
+     * being held back. Must be called before any other operation on the token is queued.
+     *
+     * @param tokenId Non null Token ID.
+     */
+    public void flush(String tokenId) {
+        CoalescedUpdateTask task = pending.remove(tokenId);
+        if (task != null) {
+            task.close();
+            queueQuietly(task);
+        }
+    }
+
+    private void queue(CoalescedUpdateTask task) throws DataLayerException {
+        if (task.submitted.compareAndSet(false, true)) {
+            try {
+                taskExecutor.execute(task.tokenId, task);
+            } catch (DataLayerException e) {
+                pending.remove(task.tokenId, task);
+                throw e;
+            }
+        }
+    }
+
+    private void queueQuietly(CoalescedUpdateTask task) {
+        try {
+            queue(task);
+        } catch (DataLayerException e) {
+            task.processError(e);
+        }
+    }
+
+    private void debug(String format, Object... args) {
+        if (debug.messageEnabled()) {
+            debug.message(MessageFormat.format(CoreTokenConstants.DEBUG_ASYNC_HEADER + format, args));
+        }
+    }
+
+    /**
+     * Queues a held back update once no further update has been merged for the window, or the maximum wait
+     * has been reached.
+     */
+    private final class Flush implements Runnable {
+        private final CoalescedUpdateTask task;
+        private final long window;
+        private final long maximumWait;
+
+        private Flush(CoalescedUpdateTask task, long window, long maximumWait) {
+            this.task = task;
+            this.window = window;
+            this.maximumWait = maximumWait;
+        }
+
+        @Override
+        public void run() {
+            long delay = task.getRemainingDelay(window, maximumWait);
+            if (delay > 0) {
+                scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+            } else {
+                queueQuietly(task);
+            }
+        }
+    }
+
+    /**
+     * An update task which accepts newer versions of the token until it starts processing, and notifies
+     * every merged caller of the result.
+     */
+    @VisibleForTesting
+    final class CoalescedUpdateTask implements Task {
+        private final String tokenId;
+        private final Options options;
+        private final long created;
+        private final List<ResultHandler<Token, ?>> handlers = new ArrayList<>();
+        private final AtomicBoolean submitted = new AtomicBoolean(false);
+        private Token token;
+        private long lastUpdated;
+        private boolean closed = false;
+
+        private CoalescedUpdateTask(Token token, Options options, ResultHandler<Token, ?> handler) {
+            this.tokenId = token.getTokenId();
+            this.options = options;
+            this.token = token;
+            this.handlers.add(handler);
+            this.created = timeService.now();
+            this.lastUpdated = created;
+        }
+
+        private boolean hasSameOptions(Options other) {
+            return options == other
+                    || (Objects.equals(options.get(OPTIMISTIC_CONCURRENCY_CHECK_OPTION),
+                            other.get(OPTIMISTIC_CONCURRENCY_CHECK_OPTION))
+                    && Arrays.equals(options.get(PRE_DELETE_READ_OPTION), other.get(PRE_DELETE_READ_OPTION)));
+        }
+
+        private synchronized boolean merge(Token token, ResultHandler<Token, ?> handler) {
+            if (closed) {
+                return false;
+            }
+            this.token = token;
+            this.handlers.add(handler);
+            this.lastUpdated = timeService.now();
+            return true;
+        }
+
+        private synchronized void close() {
+            closed = true;
+        }
+
+        private synchronized long getRemainingDelay(long window, long maximumWait) {
+            if (closed) {
+                return 0;
+            }
+            return Math.min(lastUpdated + window, created + maximumWait) - timeService.now();
+        }
+
+        @Override
+        public void execute(TokenStorageAdapter adapter) throws DataLayerException {
+            Token latest;
+            List<ResultHandler<Token, ?>> merged;
+            synchronized (this) {
+                closed = true;
+                latest = token;
+                merged = new ArrayList<>(handlers);
+            }
+            pending.remove(tokenId, this);
+            taskFactory.update(latest, options, new FanOutResultHandler(merged)).execute(adapter);
+        }
+
+        @Override
+        public void processError(DataLayerException error) {
+            fail(error, false);
+        }
+
+        /**
+         * Notifies the merged callers of a failure to process the update.
+         *
+         * @param error The cause of the failure.
+         * @param excludeFirst True if the caller which created the task has already been told of the failure.
+         */
+        private void fail(DataLayerException error, boolean excludeFirst) {
+            List<ResultHandler<Token, ?>> merged;
+            synchronized (this) {
+                closed = true;
+                merged = new ArrayList<>(handlers.subList(excludeFirst ? 1 : 0, handlers.size()));
+            }
+            pending.remove(tokenId, this);
+            new FanOutResultHandler(merged).processError(error);
+        }
+
+        @Override
+        public String toString() {
+            return MessageFormat.format("CoalescedUpdateTask: {0}", tokenId);
+        }
+    }
+
+    /**
+     * Passes the result of a coalesced update to the handler of every merged update.
+     */
+    private static final class FanOutResultHandler implements ResultHandler<Token, RuntimeException> {
+        private final List<ResultHandler<Token, ?>> handlers;
+        private volatile Token result;
+
+        private FanOutResultHandler(List<ResultHandler<Token, ?>> handlers) {
+            this.handlers = handlers;
+        }
+
+        @Override
+        public Token getResults() {
+            return result;
+        }
+
+        @Override
+        public void processResults(Token result) {
+            this.result = result;
+            for (ResultHandler<Token, ?> handler : handlers) {
+                handler.processResults(result);
+            }
+        }
+
+        @Override
+        public void processError(Exception error) {
+            for (ResultHandler<Token, ?> handler : handlers) {
+                handler.processError(error);
+            }
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.cts.impl.queue.config;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.forgerock.openam.cts.api.CoreTokenConstants;
+import org.forgerock.openam.tokens.TokenType;
+
+import com.iplanet.am.util.SystemProperties;
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * Configuration for the coalescing of CTS updates.
+ *
+ * When coalescing is enabled, an update to a token which is still waiting to be processed will be replaced by
+ * a later update to the same token, so that only the most recent state of the token is written. The coalescing
+ * window and maximum wait can be configured for all token types, or for a single token type by suffixing the
+ * property name with the name of the {@link TokenType}, for example
+ * {@code org.forgerock.services.cts.async.coalesce.window.SESSION}.
+ *
+ * @see org.forgerock.openam.cts.impl.queue.UpdateCoalescer
+ */
+@Singleton
+public class CTSCoalescingConfiguration {
+    public static final int DEFAULT_WINDOW = 0;
+
+    private final Debug debug;
+
+    /**
+     * @param debug Required for debugging.
+     */
+    @Inject
+    public CTSCoalescingConfiguration(@Named(CoreTokenConstants.CTS_ASYNC_DEBUG) Debug debug) {
+        this.debug = debug;
+    }
+
+    /**
+     * @return True if updates to the same token should be coalesced. Default is false.
+     */
+    public boolean isEnabled() {
+        return SystemProperties.getAsBoolean(CoreTokenConstants.CTS_ASYNC_COALESCE_ENABLED, false);
+    }
+
+    /**
+     * The duration an update is held back after the most recent update to the same token was merged into it.
+     * A window of zero means updates are only merged whilst they are waiting on the work queue.
+     *
+     * @param type The type of token being updated.
+     * @return A non negative duration in milliseconds. Default is {@link #DEFAULT_WINDOW}.
+     */
+    public long getWindow(TokenType type) {
+        return getTypedValue(CoreTokenConstants.CTS_ASYNC_COALESCE_WINDOW, type, DEFAULT_WINDOW);
+    }
+
+    /**
+     * The maximum duration an update may be held back from the first time it was requested. This bounds how long
+     * a caller waits for a durable write when the token is continually updated.
+     *
+     * @param type The type of token being updated.
+     * @return A duration in milliseconds which is never less than the {@link #getWindow(TokenType) window}.
+     */
+    public long getMaximumWait(TokenType type) {
+        long window = getWindow(type);
+        return Math.max(window, getTypedValue(CoreTokenConstants.CTS_ASYNC_COALESCE_MAX_WAIT, type, window));
+    }
+
+    private long getTypedValue(String property, TokenType type, long defaultValue) {
+        int global = SystemProperties.getAsInt(property, (int) defaultValue);
+        int value = type == null ? global : SystemProperties.getAsInt(property + "." + type.name(), global);
+        if (value < 0) {
+            debug("{} {} was invalid for {}, using default {}", property, value, type, defaultValue);
+            return defaultValue;
+        }
+        return value;
+    }
+
+    private void debug(String format, Object... args) {
+        if (debug.messageEnabled()) {
+            debug.message(CoreTokenConstants.DEBUG_ASYNC_HEADER + format, args);
+        }
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl.queue.config;
 
@@ -41,6 +42,7 @@ import org.forgerock.openam.sm.exceptions.InvalidConfigurationException;
 public class CTSQueueConfiguration implements QueueConfiguration {
     public static final int DEFAULT_TIMEOUT = 120;
     public static final int DEFAULT_QUEUE_SIZE = 5000;
+    public static final int DEFAULT_LANES = 1024;
 
     private final ConnectionConfigFactory dataLayerConfig;
     private final Debug debug;
@@ -84,6 +86,23 @@ public class CTSQueueConfiguration implements QueueConfiguration {
         return queueSize;
     }
 
+    /**
+     * The number of ordered lanes that tokens are distributed across by the work stealing task executor.
+     * Tasks for the same Token ID are always placed on the same lane, and each lane is processed by at
+     * most one processor at a time.
+     *
+     * @return A positive number of lanes. Default is {@link #DEFAULT_LANES}.
+     * @see org.forgerock.openam.sm.datalayer.impl.StealingTaskExecutor
+     */
+    public int getLanes() {
+        int lanes = SystemProperties.getAsInt(CoreTokenConstants.CTS_ASYNC_LANES, DEFAULT_LANES);
+        if (lanes <= 0) {
+            debug("Lanes {0} was invalid, using default {1}", lanes, DEFAULT_LANES);
+            return DEFAULT_LANES;
+        }
+        return lanes;
+    }
+
     @Override
     public int getProcessors() throws DataLayerException {
         try {
@@ -0,0 +1,86 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.monitoring;
+
+/**
+ * A data structure for storing monitoring information about the CTS asynchronous work queues.
+ * <br/>
+ * The CTS task executor will use an instance of this data structure to record tasks as they are placed
+ * on, and taken from, its work queues. The CTS monitoring framework will use the same instance to report
+ * the depth of each queue and how long tasks wait before they are processed.
+ */
+public interface CTSQueueMonitoringStore {
+
+    /**
+     * Records that a task has been placed on the given queue.
+     *
+     * @param queue The index of the queue the task was placed on.
+     */
+    void addTaskQueued(int queue);
+
+    /**
+     * Records that a task has been taken from the given queue for processing.
+     *
+     * @param queue The index of the queue the task was placed on.
+     * @param waitTime The time in milliseconds the task spent waiting on the queue.
+     */
+    void addTaskDequeued(int queue, long waitTime);
+
+    /**
+     * Gets the number of queues that have recorded tasks.
+     *
+     * @return The number of queues known to the monitoring store.
+     */
+    int getQueueCount();
+
+    /**
+     * Gets the number of tasks currently waiting on the given queue.
+     *
+     * @param queue The index of the queue.
+     * @return The number of queued tasks which have not yet been processed.
+     */
+    long getQueueDepth(int queue);
+
+    /**
+     * Gets the average time tasks have spent waiting on the given queue since server start up.
+     *
+     * @param queue The index of the queue.
+     * @return The average wait time in milliseconds.
+     */
+    double getAverageWaitTime(int queue);
+
+    /**
+     * Gets the longest time a task has spent waiting on the given queue since server start up.
+     *
+     * @param queue The index of the queue.
+     * @return The maximum wait time in milliseconds.
+     */
+    long getMaximumWaitTime(int queue);
+
+    /**
+     * Records that an update was merged into a pending update to the same token, rather than being written
+     * separately.
+     */
+    void addCoalescedUpdate();
+
+    /**
+     * Gets the number of updates which have been merged into other updates since server start up.
+     *
+     * @return The cumulative count of coalesced updates.
+     */
+    long getCoalescedUpdatesCumulativeCount();
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.monitoring;
@@ -41,4 +42,26 @@ public interface CTSReaperMonitoringStore {
      * @return The rate of session deletion by the CTS Reaper.
      */
     double getRateOfDeletedSessions();
+
+    /**
+     * Adds a batch of tokens deleted by the CTS Reaper to the monitoring store.
+     *
+     * @param numberOfDeletedTokens The number of tokens deleted by the batch.
+     * @param backlog The number of tokens still queued for deletion by the reaper run.
+     */
+    void addReaperBatch(long numberOfDeletedTokens, long backlog);
+
+    /**
+     * Gets the number of tokens deleted per second by the CTS Reaper, averaged over the last minute.
+     *
+     * @return The rate of token deletion by the CTS Reaper.
+     */
+    double getRateOfDeletedTokens();
+
+    /**
+     * Gets the number of tokens queued for deletion by the CTS Reaper, as last reported by a reaper run.
+     *
+     * @return The CTS Reaper backlog.
+     */
+    long getReaperBacklog();
 }
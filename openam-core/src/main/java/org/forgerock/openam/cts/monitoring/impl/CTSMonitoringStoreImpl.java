@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.monitoring.impl;
@@ -23,9 +24,11 @@ import org.forgerock.openam.tokens.TokenType;
 import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.monitoring.CTSConnectionMonitoringStore;
 import org.forgerock.openam.cts.monitoring.CTSOperationsMonitoringStore;
+import org.forgerock.openam.cts.monitoring.CTSQueueMonitoringStore;
 import org.forgerock.openam.cts.monitoring.CTSReaperMonitoringStore;
 import org.forgerock.openam.cts.monitoring.impl.connections.ConnectionStore;
 import org.forgerock.openam.cts.monitoring.impl.operations.TokenOperationsStore;
+import org.forgerock.openam.cts.monitoring.impl.queue.TaskQueueMonitor;
 import org.forgerock.openam.cts.monitoring.impl.reaper.ReaperMonitor;
 
 import javax.inject.Inject;
@@ -43,7 +46,7 @@ import java.util.concurrent.RejectedExecutionException;
  */
 @Singleton
 public class CTSMonitoringStoreImpl implements CTSOperationsMonitoringStore, CTSReaperMonitoringStore,
-        CTSConnectionMonitoringStore {
+        CTSConnectionMonitoringStore, CTSQueueMonitoringStore {
 
     /**
      * Constant for binding an Executor for the CTS monitoring store to store CTS runtime data.
@@ -56,6 +59,7 @@ public class CTSMonitoringStoreImpl implements CTSOperationsMonitoringStore, CTS
     private final ExecutorService executorService;
     private final ReaperMonitor reaperMonitor;
     private final ConnectionStore connectionStore;
+    private final TaskQueueMonitor taskQueueMonitor;
 
     /**
      * Constructs an instance of the CTSMonitoringStoreImpl.
@@ -64,18 +68,22 @@ public class CTSMonitoringStoreImpl implements CTSOperationsMonitoringStore, CTS
      * @param executorService An instance of an ExecutorService.
      * @param tokenOperationsStore An instance of the TokenOperationsStore.
      * @param reaperMonitor An instance of the ReaperMonitor.
+     * @param connectionStore An instance of the ConnectionStore.
+     * @param taskQueueMonitor An instance of the TaskQueueMonitor.
      */
     @Inject
     public CTSMonitoringStoreImpl(@Named(EXECUTOR_BINDING_NAME) final ExecutorService executorService,
                                   final TokenOperationsStore tokenOperationsStore,
                                   final ReaperMonitor reaperMonitor,
                                   final ConnectionStore connectionStore,
+                                  final TaskQueueMonitor taskQueueMonitor,
                                   @Named(CoreTokenConstants.CTS_DEBUG) final Debug debug) {
         this.debug = debug;
         this.executorService = executorService;
         this.tokenOperationsStore = tokenOperationsStore;
         this.reaperMonitor = reaperMonitor;
         this.connectionStore = connectionStore;
+        this.taskQueueMonitor = taskQueueMonitor;
     }
 
     /**
@@ -206,6 +214,30 @@ public class CTSMonitoringStoreImpl implements CTSOperationsMonitoringStore, CTS
         return reaperMonitor.getRateOfDeletion();
     }
 
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void addReaperBatch(long numberOfDeletedTokens, long backlog) {
+        reaperMonitor.addBatch(numberOfDeletedTokens, backlog);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public double getRateOfDeletedTokens() {
+        return reaperMonitor.getRateOfTokenDeletion();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public long getReaperBacklog() {
+        return reaperMonitor.getBacklog();
+    }
+
     @Override
     public void addConnection(boolean success) {
         connectionStore.addConnection(success);
@@ -230,4 +262,44 @@ public class CTSMonitoringStoreImpl implements CTSOperationsMonitoringStore, CTS
     public double getConnectionsCumulativeCount(boolean success) {
         return connectionStore.getConnectionsCumulativeCount(success);
     }
+
+    @Override
+    public void addTaskQueued(int queue) {
+        taskQueueMonitor.queued(queue);
+    }
+
+    @Override
+    public void addTaskDequeued(int queue, long waitTime) {
+        taskQueueMonitor.dequeued(queue, waitTime);
+    }
+
+    @Override
+    public int getQueueCount() {
+        return taskQueueMonitor.getQueueCount();
+    }
+
+    @Override
+    public long getQueueDepth(int queue) {
+        return taskQueueMonitor.getDepth(queue);
+    }
+
+    @Override
+    public double getAverageWaitTime(int queue) {
+        return taskQueueMonitor.getAverageWaitTime(queue);
+    }
+
+    @Override
+    public long getMaximumWaitTime(int queue) {
+        return taskQueueMonitor.getMaximumWaitTime(queue);
+    }
+
+    @Override
+    public void addCoalescedUpdate() {
+        taskQueueMonitor.coalesced();
+    }
+
+    @Override
+    public long getCoalescedUpdatesCumulativeCount() {
+        return taskQueueMonitor.getCoalescedCount();
+    }
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.monitoring.impl.queue;
 
@@ -19,6 +20,7 @@ import org.forgerock.openam.cts.CTSOperation;
 import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.cts.impl.queue.AsyncResultHandlerFactory;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.cts.impl.queue.ResultHandlerFactory;
@@ -95,6 +97,24 @@ public class MonitoredResultHandlerFactory implements ResultHandlerFactory {
                 factory.getPartialQueryHandler(), store, CTSOperation.LIST);
     }
 
+    /**
+     * @return A monitoring enabled handler wrapping the delegated implementation.
+     */
+    @Override
+    public ResultHandler<QueryCursor<Token>, CoreTokenException> getPagedQueryHandler() {
+        return new DefaultMonitoringResultHandler<>(
+                factory.getPagedQueryHandler(), store, CTSOperation.LIST);
+    }
+
+    /**
+     * @return A monitoring enabled handler wrapping the delegated implementation.
+     */
+    @Override
+    public ResultHandler<QueryCursor<PartialToken>, CoreTokenException> getPagedPartialQueryHandler() {
+        return new DefaultMonitoringResultHandler<>(
+                factory.getPagedPartialQueryHandler(), store, CTSOperation.LIST);
+    }
+
     /**
      * @return A non monitored handler as this is a composite operation.
      */
@@ -0,0 +1,134 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.monitoring.impl.queue;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Singleton;
+
+/**
+ * A data structure that stores the depth and wait times of each CTS asynchronous work queue.
+ *
+ * Queue statistics are created lazily the first time a queue is used, which allows the number of
+ * queues to change at runtime.
+ */
+@Singleton
+public class TaskQueueMonitor {
+
+    private final ConcurrentMap<Integer, QueueStatistics> queues = new ConcurrentHashMap<>();
+    private final LongAdder coalescedUpdates = new LongAdder();
+
+    /**
+     * Increments the depth of the given queue.
+     *
+     * @param queue The queue index.
+     */
+    public void queued(int queue) {
+        getStatistics(queue).depth.increment();
+    }
+
+    /**
+     * Decrements the depth of the given queue and records the time the task waited.
+     *
+     * @param queue The queue index.
+     * @param waitTime The wait time in milliseconds.
+     */
+    public void dequeued(int queue, long waitTime) {
+        QueueStatistics statistics = getStatistics(queue);
+        statistics.depth.decrement();
+        statistics.processed.increment();
+        statistics.totalWaitTime.add(waitTime);
+        long max;
+        do {
+            max = statistics.maximumWaitTime.get();
+        } while (waitTime > max && !statistics.maximumWaitTime.compareAndSet(max, waitTime));
+    }
+
+    /**
+     * @return The number of queues that have been used.
+     */
+    public int getQueueCount() {
+        return queues.size();
+    }
+
+    /**
+     * @param queue The queue index.
+     * @return The number of tasks waiting on the queue.
+     */
+    public long getDepth(int queue) {
+        QueueStatistics statistics = queues.get(queue);
+        return statistics == null ? 0 : Math.max(0, statistics.depth.sum());
+    }
+
+    /**
+     * @param queue The queue index.
+     * @return The average time in milliseconds tasks waited on the queue, or zero if none have been processed.
+     */
+    public double getAverageWaitTime(int queue) {
+        QueueStatistics statistics = queues.get(queue);
+        if (statistics == null) {
+            return 0D;
+        }
+        long processed = statistics.processed.sum();
+        return processed == 0 ? 0D : (double) statistics.totalWaitTime.sum() / processed;
+    }
+
+    /**
+     * @param queue The queue index.
+     * @return The maximum time in milliseconds a task waited on the queue.
+     */
+    public long getMaximumWaitTime(int queue) {
+        QueueStatistics statistics = queues.get(queue);
+        return statistics == null ? 0 : statistics.maximumWaitTime.get();
+    }
+
+    /**
+     * Increments the count of updates merged into other updates.
+     */
+    public void coalesced() {
+        coalescedUpdates.increment();
+    }
+
+    /**
+     * @return The number of updates merged into other updates.
+     */
+    public long getCoalescedCount() {
+        return coalescedUpdates.sum();
+    }
+
+    private QueueStatistics getStatistics(int queue) {
+        QueueStatistics statistics = queues.get(queue);
+        if (statistics == null) {
+            statistics = new QueueStatistics();
+            QueueStatistics existing = queues.putIfAbsent(queue, statistics);
+            if (existing != null) {
+                statistics = existing;
+            }
+        }
+        return statistics;
+    }
+
+    private static final class QueueStatistics {
+        private final LongAdder depth = new LongAdder();
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder totalWaitTime = new LongAdder();
+        private final AtomicLong maximumWaitTime = new AtomicLong();
+    }
+}
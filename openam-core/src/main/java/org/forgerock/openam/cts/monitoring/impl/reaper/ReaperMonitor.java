@@ -12,12 +12,20 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.monitoring.impl.reaper;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.inject.Inject;
+
+import org.forgerock.util.annotations.VisibleForTesting;
+import org.forgerock.util.time.TimeService;
 
 /**
  * This class maintains a store of information about each CTS Reaper run since server start up.
@@ -26,7 +34,26 @@ import java.util.List;
  */
 public class ReaperMonitor {
 
+    private static final int RATE_WINDOW_SECONDS = 60;
+
     private final List<ReaperRun> reaperRuns = new ArrayList<ReaperRun>();
+    private final long[] deletedTokensPerSecond = new long[RATE_WINDOW_SECONDS];
+    private final AtomicLong backlog = new AtomicLong();
+    private final TimeService timeService;
+    private long latestSecond;
+
+    /**
+     * Creates a new ReaperMonitor using the system clock.
+     */
+    @Inject
+    public ReaperMonitor() {
+        this(TimeService.SYSTEM);
+    }
+
+    @VisibleForTesting
+    ReaperMonitor(TimeService timeService) {
+        this.timeService = timeService;
+    }
 
     /**
      * {@inheritDoc}
@@ -51,6 +78,56 @@ public class ReaperMonitor {
         return numDeletedSessions / reaperRuns.size();
     }
 
+    /**
+     * Records a batch of tokens deleted by the CTS Reaper.
+     *
+     * @param numberOfDeletedTokens The number of tokens deleted by the batch.
+     * @param backlog The number of tokens still queued for deletion.
+     */
+    public synchronized void addBatch(final long numberOfDeletedTokens, final long backlog) {
+        long second = advanceTo(timeService.now());
+        deletedTokensPerSecond[(int) (second % RATE_WINDOW_SECONDS)] += numberOfDeletedTokens;
+        this.backlog.set(backlog);
+    }
+
+    /**
+     * Gets the number of tokens deleted per second, averaged over the last minute.
+     *
+     * @return The rate of token deletion.
+     */
+    public synchronized double getRateOfTokenDeletion() {
+        advanceTo(timeService.now());
+        double numDeletedTokens = 0D;
+        for (long deletedTokens : deletedTokensPerSecond) {
+            numDeletedTokens += deletedTokens;
+        }
+        return numDeletedTokens / RATE_WINDOW_SECONDS;
+    }
+
+    /**
+     * Gets the most recently reported number of tokens queued for deletion.
+     *
+     * @return The reaper backlog.
+     */
+    public long getBacklog() {
+        return backlog.get();
+    }
+
+    /**
+     * Clears the buckets of any seconds which have passed since the last call, returning the current second.
+     */
+    private long advanceTo(final long now) {
+        long second = TimeUnit.MILLISECONDS.toSeconds(now);
+        if (second > latestSecond) {
+            long elapsed = Math.min(second - latestSecond, RATE_WINDOW_SECONDS);
+            for (long i = 1; i <= elapsed; i++) {
+                deletedTokensPerSecond[(int) ((latestSecond + i) % RATE_WINDOW_SECONDS)] = 0;
+            }
+            latestSecond = second;
+        }
+        return second;
+    }
+
     /**
      * Models a run by the CTS Reaper and holds information about when the run started and stopped and the number of
      * sessions the run deleted.
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.utils;
 
@@ -76,6 +77,27 @@ public class JSONSerialisation {
         }
     }
 
+    /**
+     * Serialise an object to UTF-8 encoded JSON. The generator encodes straight into Jackson's recycled buffers,
+     * without building the intermediate String of {@link #serialise(Object)}.
+     *
+     * @param <T> The generic type of the passed in object.
+     * @param object Non null object to serialise.
+     * @return Non null UTF-8 encoded JSON.
+     */
+    public <T> byte[] serialiseToBytes(T object) {
+        try {
+            return mapper.writeValueAsBytes(object);
+        } catch (IOException e) {
+            throw new IllegalStateException(
+                    MessageFormat.format(
+                            "Failed to serialise {0}:{1}",
+                            object.getClass().getSimpleName(),
+                            object),
+                    e);
+        }
+    }
+
     /**
      * Deserialise JSON to an object of type T.
      *
@@ -0,0 +1,171 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.utils.blob;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.forgerock.openam.cts.api.CoreTokenConstants;
+import org.forgerock.openam.tokens.TokenType;
+
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * Records the sizes and timings of the {@link TokenBlobStrategy} for each type of token, and publishes them as
+ * {@link TokenBlobStatisticsMBean}s.
+ */
+@Singleton
+public class TokenBlobStatistics {
+
+    private final Debug debug;
+    private final ConcurrentMap<TokenType, TypeStatistics> statistics = new ConcurrentHashMap<>();
+
+    /**
+     * Creates the statistics.
+     *
+     * @param debug The CTS debug instance.
+     */
+    @Inject
+    public TokenBlobStatistics(@Named(CoreTokenConstants.CTS_DEBUG) Debug debug) {
+        this.debug = debug;
+    }
+
+    /**
+     * Records the encoding of a blob.
+     *
+     * @param type The type of the token. May be null, in which case nothing is recorded.
+     * @param before The size of the blob before encoding.
+     * @param after The size of the blob after encoding.
+     * @param nanos The time taken to encode the blob.
+     */
+    void recordEncode(TokenType type, int before, int after, long nanos) {
+        TypeStatistics stats = getOrCreate(type);
+        if (stats != null) {
+            stats.encoded.increment();
+            stats.bytesBefore.add(before);
+            stats.bytesAfter.add(after);
+            stats.encodeTime.add(nanos);
+        }
+    }
+
+    /**
+     * Records the decoding of a blob.
+     *
+     * @param type The type of the token. May be null, in which case nothing is recorded.
+     * @param nanos The time taken to decode the blob.
+     */
+    void recordDecode(TokenType type, long nanos) {
+        TypeStatistics stats = getOrCreate(type);
+        if (stats != null) {
+            stats.decoded.increment();
+            stats.decodeTime.add(nanos);
+        }
+    }
+
+    /**
+     * Returns the statistics of a type of token.
+     *
+     * @param type The type of the token.
+     * @return The statistics, or null if none have been recorded for the type.
+     */
+    public TokenBlobStatisticsMBean getStatistics(TokenType type) {
+        return statistics.get(type);
+    }
+
+    private TypeStatistics getOrCreate(TokenType type) {
+        if (type == null) {
+            return null;
+        }
+        TypeStatistics stats = statistics.get(type);
+        if (stats == null) {
+            TypeStatistics created = new TypeStatistics();
+            stats = statistics.putIfAbsent(type, created);
+            if (stats == null) {
+                stats = created;
+                registerMBean(type, stats);
+            }
+        }
+        return stats;
+    }
+
+    private void registerMBean(TokenType type, TypeStatistics stats) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("OpenAM:type=CTSTokenBlob,name=" + type.name());
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(stats, TokenBlobStatisticsMBean.class), objectName);
+        } catch (Exception e) {
+            debug.warning("TokenBlobStatistics: Unable to register monitoring for {}", type, e);
+        }
+    }
+
+    private static final class TypeStatistics implements TokenBlobStatisticsMBean {
+        private final LongAdder encoded = new LongAdder();
+        private final LongAdder bytesBefore = new LongAdder();
+        private final LongAdder bytesAfter = new LongAdder();
+        private final LongAdder encodeTime = new LongAdder();
+        private final LongAdder decoded = new LongAdder();
+        private final LongAdder decodeTime = new LongAdder();
+
+        @Override
+        public long getEncodedCount() {
+            return encoded.sum();
+        }
+
+        @Override
+        public long getBytesBeforeEncoding() {
+            return bytesBefore.sum();
+        }
+
+        @Override
+        public long getBytesAfterEncoding() {
+            return bytesAfter.sum();
+        }
+
+        @Override
+        public long getAverageEncodeTime() {
+            return average(encodeTime, encoded);
+        }
+
+        @Override
+        public long getDecodedCount() {
+            return decoded.sum();
+        }
+
+        @Override
+        public long getAverageDecodeTime() {
+            return average(decodeTime, decoded);
+        }
+
+        private static long average(LongAdder nanos, LongAdder count) {
+            long n = count.sum();
+            return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos.sum() / n);
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.utils.blob;
+
+/**
+ * Monitoring interface of the {@link TokenBlobStrategy} for one type of token, registered as an MBean named
+ * {@code OpenAM:type=CTSTokenBlob,name=<token type>}.
+ */
+public interface TokenBlobStatisticsMBean {
+
+    /**
+     * Returns the number of blobs encoded before being stored.
+     *
+     * @return The encode count.
+     */
+    long getEncodedCount();
+
+    /**
+     * Returns the total size of the blobs before they were encoded.
+     *
+     * @return The number of bytes.
+     */
+    long getBytesBeforeEncoding();
+
+    /**
+     * Returns the total size of the blobs after they were encoded.
+     *
+     * @return The number of bytes.
+     */
+    long getBytesAfterEncoding();
+
+    /**
+     * Returns the average time taken to encode a blob.
+     *
+     * @return The time in microseconds.
+     */
+    long getAverageEncodeTime();
+
+    /**
+     * Returns the number of blobs decoded after being read.
+     *
+     * @return The decode count.
+     */
+    long getDecodedCount();
+
+    /**
+     * Returns the average time taken to decode a blob.
+     *
+     * @return The time in microseconds.
+     */
+    long getAverageDecodeTime();
+}
@@ -12,14 +12,15 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.utils.blob;
 
 import org.forgerock.openam.cts.CoreTokenConfig;
+import org.forgerock.openam.tokens.TokenType;
 
 import javax.inject.Inject;
 import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -27,13 +28,18 @@ import java.util.List;
 /**
  * Responsible for selecting the appropriate algorithm for dealing with Token binary objects
  * prior to them being stored in the data store.
+ *
+ * The strategies each return a new array, so the data passed in is never copied up front and is
+ * returned as is when no strategy is configured.
  */
 public class TokenBlobStrategy {
     private final Collection<BlobStrategy> strategies;
     private final List<BlobStrategy> reverseStrategies;
+    private final TokenBlobStatistics statistics;
 
     @Inject
-    public TokenBlobStrategy(TokenStrategyFactory factory, CoreTokenConfig config) {
+    public TokenBlobStrategy(TokenStrategyFactory factory, CoreTokenConfig config, TokenBlobStatistics statistics) {
+        this.statistics = statistics;
         strategies = factory.getStrategies(config);
         // Reverse list.
         reverseStrategies = new ArrayList<BlobStrategy>(strategies);
@@ -44,24 +50,62 @@ public class TokenBlobStrategy {
      * Perform the strategy on the byte array.
      *
      * @param data A possibly null byte[] to perform the strategy on.
-     * @return A modified copy of the byte[] or null if data was null.
+     * @return The modified data or null if data was null.
      *
      * @throws TokenStrategyFailedException If an error occurred whilst processing the Token.
      */
     public byte[] perform(byte[] data) throws TokenStrategyFailedException {
-        return apply(strategies, true, data);
+        return perform(null, data);
+    }
+
+    /**
+     * Perform the strategy on the byte array of a Token, recording its statistics against the Token type.
+     *
+     * @param type The type of the Token. May be null if unknown.
+     * @param data A possibly null byte[] to perform the strategy on.
+     * @return The modified data or null if data was null.
+     *
+     * @throws TokenStrategyFailedException If an error occurred whilst processing the Token.
+     */
+    public byte[] perform(TokenType type, byte[] data) throws TokenStrategyFailedException {
+        if (data == null || strategies.isEmpty()) {
+            return data;
+        }
+        long start = System.nanoTime();
+        byte[] result = apply(strategies, true, data);
+        statistics.recordEncode(type, data.length, result.length, System.nanoTime() - start);
+        return result;
     }
 
     /**
      * Performs the reverse strategy on the byte array.
      *
      * @param data A possibly null byte[] to perform the reverse strategy on.
-     * @return A modified copy of the byte[] or null if data was null.
+     * @return The modified data or null if data was null.
      *
      * @throws TokenStrategyFailedException If an error occurred whilst processing the Token.
      */
     public byte[] reverse(byte[] data) throws TokenStrategyFailedException {
-        return apply(reverseStrategies, false, data);
+        return reverse(null, data);
+    }
+
+    /**
+     * Performs the reverse strategy on the byte array of a Token, recording its statistics against the Token type.
+     *
+     * @param type The type of the Token. May be null if unknown.
+     * @param data A possibly null byte[] to perform the reverse strategy on.
+     * @return The modified data or null if data was null.
+     *
+     * @throws TokenStrategyFailedException If an error occurred whilst processing the Token.
+     */
+    public byte[] reverse(TokenType type, byte[] data) throws TokenStrategyFailedException {
+        if (data == null || reverseStrategies.isEmpty()) {
+            return data;
+        }
+        long start = System.nanoTime();
+        byte[] result = apply(reverseStrategies, false, data);
+        statistics.recordDecode(type, System.nanoTime() - start);
+        return result;
     }
 
     /**
@@ -69,18 +113,14 @@ public class TokenBlobStrategy {
      *
      * @param strategies Non null strategies to apply.
      * @param perform True indicates perform, false indicates reverse.
-     * @param data The data to apply the change to. May be null.
-     * @return A copy of the data with the change applied. May be null if data was null.
+     * @param data Non null data to apply the change to.
+     * @return The data with the change applied.
      *
      * @throws TokenStrategyFailedException If there was a problem performing the operation.
      */
     private byte[] apply(Collection<BlobStrategy> strategies, boolean perform, byte[] data)
             throws TokenStrategyFailedException {
-        if (data == null) {
-            return null;
-        }
-
-        byte[] r = Arrays.copyOf(data, data.length);
+        byte[] r = data;
         for (BlobStrategy strategy : strategies) {
             if (perform) {
                 r = strategy.perform(r);
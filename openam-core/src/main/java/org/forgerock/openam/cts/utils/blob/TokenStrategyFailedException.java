@@ -1,5 +1,6 @@
 /**
  * Copyright 2013 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  *
  * The contents of this file are subject to the terms of the Common Development and
  * Distribution License (the License). You may not use this file except in compliance with the
@@ -28,4 +29,8 @@ public class TokenStrategyFailedException extends Exception {
     public TokenStrategyFailedException(String error, Throwable e) {
         super(error, e);
     }
+
+    public TokenStrategyFailedException(String error) {
+        super(error);
+    }
 }
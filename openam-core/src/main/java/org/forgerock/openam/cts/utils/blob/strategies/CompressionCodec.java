@@ -0,0 +1,411 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.utils.blob.strategies;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+import org.apache.commons.io.IOUtils;
+import org.forgerock.openam.cts.utils.blob.TokenStrategyFailedException;
+
+/**
+ * The codecs available to the {@link CompressionStrategy}.
+ * <p>
+ * {@link #GZIP} writes standard GZip data, which every server version can read. Other codecs prefix the data with
+ * a tag holding a magic byte, the format version and the codec id, so that a server reading a blob can always
+ * tell how it was written regardless of which codec it is itself configured to write with.
+ * <p>
+ * The {@link Deflater}s and {@link Inflater}s, which hold native memory until ended, are kept in bounded pools
+ * rather than per thread. A codec only creates a deflater, at its own level, the first time it compresses, so only
+ * the configured codec holds any. Instances returned to a full pool are ended straight away. The codecs allocate
+ * exactly one array of the final size for their result.
+ */
+public enum CompressionCodec {
+
+    /**
+     * GZip at the default compression level. Untagged, for compatibility with servers which predate codecs.
+     */
+    GZIP((byte) 0, Deflater.DEFAULT_COMPRESSION) {
+        @Override
+        byte[] compress(byte[] blob) {
+            CRC32 crc = new CRC32();
+            crc.update(blob, 0, blob.length);
+            Compressor compressor = compressors.acquire();
+            try {
+                compressor.scratch(blob.length + GZIP_HEADER.length + GZIP_TRAILER_LENGTH + 64);
+                System.arraycopy(GZIP_HEADER, 0, compressor.scratch, 0, GZIP_HEADER.length);
+                int length = compressor.deflate(blob, GZIP_HEADER.length);
+                compressor.scratch(length + GZIP_TRAILER_LENGTH);
+                writeIntLE(compressor.scratch, length, (int) crc.getValue());
+                writeIntLE(compressor.scratch, length + 4, blob.length);
+                return compressor.result(length + GZIP_TRAILER_LENGTH);
+            } finally {
+                compressors.release(compressor);
+            }
+        }
+
+        @Override
+        byte[] decompress(byte[] blob) throws TokenStrategyFailedException {
+            if (blob.length < GZIP_HEADER.length + GZIP_TRAILER_LENGTH || blob[2] != Deflater.DEFLATED
+                    || blob[3] != 0) {
+                // Optional header fields were written by some other GZip implementation
+                return decompressStream(blob);
+            }
+            int trailer = blob.length - GZIP_TRAILER_LENGTH;
+            byte[] result = inflate(blob, GZIP_HEADER.length, trailer - GZIP_HEADER.length,
+                    readIntLE(blob, trailer + 4));
+            CRC32 crc = new CRC32();
+            crc.update(result, 0, result.length);
+            if ((int) crc.getValue() != readIntLE(blob, trailer)) {
+                throw new TokenStrategyFailedException("Compressed token blob failed its checksum");
+            }
+            return result;
+        }
+
+        private byte[] decompressStream(byte[] blob) throws TokenStrategyFailedException {
+            ByteArrayOutputStream bout = new ByteArrayOutputStream(blob.length * 2);
+            try (GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(blob))) {
+                IOUtils.copy(inputStream, bout);
+            } catch (IOException e) {
+                throw new TokenStrategyFailedException(e);
+            }
+            return bout.toByteArray();
+        }
+    },
+
+    /**
+     * Raw deflate at the fastest compression level, tagged and prefixed with the uncompressed length and CRC-32.
+     */
+    DEFLATE((byte) 1, Deflater.BEST_SPEED) {
+        @Override
+        byte[] compress(byte[] blob) {
+            CRC32 crc = new CRC32();
+            crc.update(blob, 0, blob.length);
+            Compressor compressor = compressors.acquire();
+            try {
+                int offset = TAG_LENGTH + 8;
+                compressor.scratch(blob.length + offset + 64);
+                writeTag(compressor.scratch);
+                writeIntBE(compressor.scratch, TAG_LENGTH, blob.length);
+                writeIntBE(compressor.scratch, TAG_LENGTH + 4, (int) crc.getValue());
+                int length = compressor.deflate(blob, offset);
+                return compressor.result(length);
+            } finally {
+                compressors.release(compressor);
+            }
+        }
+
+        @Override
+        byte[] decompress(byte[] blob) throws TokenStrategyFailedException {
+            int offset = TAG_LENGTH + 8;
+            if (blob.length < offset) {
+                throw new TokenStrategyFailedException("Compressed token blob is truncated");
+            }
+            byte[] result = inflate(blob, offset, blob.length - offset, readIntBE(blob, TAG_LENGTH));
+            CRC32 crc = new CRC32();
+            crc.update(result, 0, result.length);
+            if ((int) crc.getValue() != readIntBE(blob, TAG_LENGTH + 4)) {
+                throw new TokenStrategyFailedException("Compressed token blob failed its checksum");
+            }
+            return result;
+        }
+    };
+
+    /** First byte of a tagged blob. Distinct from the first byte of GZip data. */
+    static final byte TAG_MAGIC = (byte) 0xCB;
+    /** Version of the tagged blob format. */
+    static final byte TAG_VERSION = 1;
+
+    private static final int TAG_LENGTH = 3;
+    private static final byte[] GZIP_HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    private static final int GZIP_TRAILER_LENGTH = 8;
+    /** Scratch buffers larger than this are not kept between calls. */
+    private static final int MAX_RETAINED_BUFFER = 256 * 1024;
+    private static final Pool<Decompressor> DECOMPRESSORS = new Pool<>(Decompressor::new, Decompressor::end);
+
+    private final byte id;
+    /** Deflaters at this codec's level. Empty until the codec first compresses. */
+    final Pool<Compressor> compressors;
+
+    CompressionCodec(byte id, int level) {
+        this.id = id;
+        this.compressors = new Pool<>(() -> new Compressor(level), Compressor::end);
+    }
+
+    /**
+     * Compresses the blob.
+     *
+     * @param blob Non null data to compress.
+     * @return A new array holding the compressed data.
+     */
+    abstract byte[] compress(byte[] blob);
+
+    /**
+     * Decompresses a blob written by this codec.
+     *
+     * @param blob Non null data to decompress.
+     * @return A new array holding the decompressed data.
+     * @throws TokenStrategyFailedException If the data is corrupt.
+     */
+    abstract byte[] decompress(byte[] blob) throws TokenStrategyFailedException;
+
+    /**
+     * Selects the codec which wrote the blob.
+     *
+     * @param blob Non null compressed data.
+     * @return The codec to decompress the blob with.
+     * @throws TokenStrategyFailedException If the blob was not written by a known codec.
+     */
+    static CompressionCodec forBlob(byte[] blob) throws TokenStrategyFailedException {
+        if (blob.length >= 2 && blob[0] == GZIP_HEADER[0] && blob[1] == GZIP_HEADER[1]) {
+            return GZIP;
+        }
+        if (blob.length >= TAG_LENGTH && blob[0] == TAG_MAGIC) {
+            if (blob[1] != TAG_VERSION) {
+                throw new TokenStrategyFailedException("Unsupported compressed token blob version " + blob[1]);
+            }
+            for (CompressionCodec codec : values()) {
+                if (codec.id == blob[2]) {
+                    return codec;
+                }
+            }
+            throw new TokenStrategyFailedException("Unknown compressed token blob codec " + blob[2]);
+        }
+        throw new TokenStrategyFailedException("Token blob is not compressed");
+    }
+
+    /**
+     * Looks up a codec by name, ignoring case.
+     *
+     * @param name The name of the codec. May be null.
+     * @param defaultCodec The codec to return if the name is not recognised.
+     * @return The named codec, or the default.
+     */
+    public static CompressionCodec fromName(String name, CompressionCodec defaultCodec) {
+        for (CompressionCodec codec : values()) {
+            if (codec.name().equalsIgnoreCase(name)) {
+                return codec;
+            }
+        }
+        return defaultCodec;
+    }
+
+    void writeTag(byte[] buffer) {
+        buffer[0] = TAG_MAGIC;
+        buffer[1] = TAG_VERSION;
+        buffer[2] = id;
+    }
+
+    /**
+     * Inflates raw deflate data into a new array of the expected length, using a pooled inflater.
+     */
+    private static byte[] inflate(byte[] data, int offset, int length, int expectedLength)
+            throws TokenStrategyFailedException {
+        Decompressor decompressor = DECOMPRESSORS.acquire();
+        try {
+            return decompressor.inflate(data, offset, length, expectedLength);
+        } finally {
+            DECOMPRESSORS.release(decompressor);
+        }
+    }
+
+    private static void writeIntLE(byte[] buffer, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * i));
+        }
+    }
+
+    private static int readIntLE(byte[] buffer, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value |= (buffer[offset + i] & 0xff) << (8 * i);
+        }
+        return value;
+    }
+
+    private static void writeIntBE(byte[] buffer, int offset, int value) {
+        for (int i = 0; i < 4; i++) {
+            buffer[offset + i] = (byte) (value >>> (8 * (3 - i)));
+        }
+    }
+
+    private static int readIntBE(byte[] buffer, int offset) {
+        int value = 0;
+        for (int i = 0; i < 4; i++) {
+            value = (value << 8) | (buffer[offset + i] & 0xff);
+        }
+        return value;
+    }
+
+    /**
+     * A bounded pool of compression state. Instances are created when the pool is empty, and ended rather than
+     * kept when it is full, so no more than a couple per processor hold native memory between calls.
+     */
+    static final class Pool<T> {
+        private static final int MAX_IDLE = Runtime.getRuntime().availableProcessors() * 2;
+
+        private final Queue<T> idle = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger idleCount = new AtomicInteger();
+        private final Supplier<T> factory;
+        private final Consumer<T> destroyer;
+
+        private Pool(Supplier<T> factory, Consumer<T> destroyer) {
+            this.factory = factory;
+            this.destroyer = destroyer;
+        }
+
+        private T acquire() {
+            T item = idle.poll();
+            if (item == null) {
+                return factory.get();
+            }
+            idleCount.decrementAndGet();
+            return item;
+        }
+
+        private void release(T item) {
+            if (idleCount.incrementAndGet() <= MAX_IDLE) {
+                idle.offer(item);
+            } else {
+                idleCount.decrementAndGet();
+                destroyer.accept(item);
+            }
+        }
+
+        /**
+         * @return The number of instances held for reuse.
+         */
+        int getIdleCount() {
+            return idleCount.get();
+        }
+    }
+
+    /**
+     * A deflater at one level, with the scratch buffer it compresses into.
+     */
+    private static final class Compressor {
+        private final Deflater deflater;
+        private byte[] scratch = new byte[0];
+
+        private Compressor(int level) {
+            this.deflater = new Deflater(level, true);
+        }
+
+        /**
+         * Ensures the scratch buffer can hold at least the given number of bytes, keeping its contents.
+         */
+        private void scratch(int capacity) {
+            if (scratch.length < capacity) {
+                scratch = Arrays.copyOf(scratch, Math.max(capacity, scratch.length * 2));
+            }
+        }
+
+        /**
+         * Deflates the data into the scratch buffer from the given offset.
+         *
+         * @return The offset in the scratch buffer after the compressed data.
+         */
+        private int deflate(byte[] data, int offset) {
+            try {
+                deflater.setInput(data, 0, data.length);
+                deflater.finish();
+                int length = offset;
+                while (!deflater.finished()) {
+                    if (length == scratch.length) {
+                        scratch(scratch.length + 1);
+                    }
+                    length += deflater.deflate(scratch, length, scratch.length - length);
+                }
+                return length;
+            } finally {
+                deflater.reset();
+            }
+        }
+
+        /**
+         * Copies the start of the scratch buffer into a new array, then drops the scratch buffer if it has grown
+         * too large to keep.
+         */
+        private byte[] result(int length) {
+            byte[] result = Arrays.copyOf(scratch, length);
+            if (scratch.length > MAX_RETAINED_BUFFER) {
+                scratch = new byte[0];
+            }
+            return result;
+        }
+
+        private void end() {
+            deflater.end();
+        }
+    }
+
+    /**
+     * An inflater for raw deflate data.
+     */
+    private static final class Decompressor {
+        private final Inflater inflater = new Inflater(true);
+        private final byte[] probe = new byte[1];
+
+        /**
+         * Inflates raw deflate data into a new array of the expected length.
+         */
+        private byte[] inflate(byte[] data, int offset, int length, int expectedLength)
+                throws TokenStrategyFailedException {
+            if (expectedLength < 0 || length < 0) {
+                throw new TokenStrategyFailedException("Compressed token blob is corrupt");
+            }
+            byte[] result = new byte[expectedLength];
+            try {
+                inflater.setInput(data, offset, length);
+                int read = 0;
+                while (read < result.length && !inflater.finished()) {
+                    int count = inflater.inflate(result, read, result.length - read);
+                    if (count == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                        break;
+                    }
+                    read += count;
+                }
+                // All the expected output has been read, so the stream must end without producing any more
+                if (read != result.length || (!inflater.finished() && inflater.inflate(probe) != 0)
+                        || !inflater.finished()) {
+                    throw new TokenStrategyFailedException("Compressed token blob is corrupt");
+                }
+                return result;
+            } catch (DataFormatException e) {
+                throw new TokenStrategyFailedException(e);
+            } finally {
+                inflater.reset();
+            }
+        }
+
+        private void end() {
+            inflater.end();
+        }
+    }
+}
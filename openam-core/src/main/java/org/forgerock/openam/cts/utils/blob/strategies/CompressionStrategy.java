@@ -12,25 +12,58 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.utils.blob.strategies;
 
-import org.apache.commons.io.IOUtils;
+import javax.inject.Inject;
+
+import org.forgerock.openam.cts.CoreTokenConfig;
 import org.forgerock.openam.cts.utils.blob.BlobStrategy;
 import org.forgerock.openam.cts.utils.blob.TokenStrategyFailedException;
 import org.forgerock.util.Reject;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
-import java.io.IOException;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
-
 /**
- * Responsible for compressing the binary object of Tokens using a GZip compression.
+ * Responsible for compressing the binary object of Tokens using the configured {@link CompressionCodec}.
+ *
+ * Blobs are always decompressed with the codec that compressed them, so the codec can be changed while
+ * previously compressed tokens are still stored.
  */
 public class CompressionStrategy implements BlobStrategy {
 
+    private final CoreTokenConfig config;
+    private final CompressionCodec codec;
+
+    /**
+     * Creates a strategy which compresses with {@link CompressionCodec#GZIP}.
+     */
+    public CompressionStrategy() {
+        this(CompressionCodec.GZIP);
+    }
+
+    /**
+     * Creates a strategy which compresses with the given codec.
+     *
+     * @param codec Non null codec to compress with.
+     */
+    public CompressionStrategy(CompressionCodec codec) {
+        Reject.ifNull(codec);
+        this.config = null;
+        this.codec = codec;
+    }
+
+    /**
+     * Creates a strategy which compresses with the codec currently selected in the configuration.
+     *
+     * @param config Non null Core Token Service configuration.
+     */
+    @Inject
+    public CompressionStrategy(CoreTokenConfig config) {
+        Reject.ifNull(config);
+        this.config = config;
+        this.codec = null;
+    }
+
     /**
      * Compress the Tokens binary object.
      *
@@ -41,16 +74,7 @@ public class CompressionStrategy implements BlobStrategy {
     @Override
     public byte[] perform(byte[] blob) throws TokenStrategyFailedException {
         Reject.ifNull(blob);
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream(blob.length);
-        try {
-            final GZIPOutputStream out = new GZIPOutputStream(bout);
-            out.write(blob);
-            out.flush();
-            out.close();
-        } catch (IOException e) {
-            throw new TokenStrategyFailedException(e);
-        }
-        return bout.toByteArray();
+        return getCodec().compress(blob);
     }
 
     /**
@@ -63,15 +87,10 @@ public class CompressionStrategy implements BlobStrategy {
     @Override
     public byte[] reverse(byte[] blob) throws TokenStrategyFailedException {
         Reject.ifNull(blob);
-        final int lengthGuess = blob.length * 2;
-        final ByteArrayOutputStream bout = new ByteArrayOutputStream(lengthGuess);
-        try {
-            GZIPInputStream inputStream = new GZIPInputStream(new ByteArrayInputStream(blob));
-            IOUtils.copy(inputStream, bout);
-            inputStream.close();
-        } catch (IOException e) {
-            throw new TokenStrategyFailedException(e);
-        }
-        return bout.toByteArray();
+        return CompressionCodec.forBlob(blob).decompress(blob);
+    }
+
+    private CompressionCodec getCodec() {
+        return config == null ? codec : config.getTokenCompressionCodec();
     }
 }
@@ -12,13 +12,19 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.worker.process;
 
+import java.util.ArrayDeque;
 import java.util.Collection;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import org.apache.commons.lang.time.StopWatch;
+import org.forgerock.openam.cts.CoreTokenConfig;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.cts.impl.query.worker.CTSWorkerQuery;
 import org.forgerock.openam.cts.worker.CTSWorkerFilter;
@@ -28,11 +34,32 @@ import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
 /**
  * {@link CTSWorkerProcess} base class handling repeated steps such as paging through query results,
  * thread interruption and waiting for each page of results to be processed.
+ * <p>
+ * When pipelining is enabled in the {@link CoreTokenConfig}, the next page is queried while previous pages are still
+ * being processed. The number of tokens in flight is bounded, and is reduced whenever batches take longer than the
+ * configured target latency to complete.
  */
 public abstract class CTSWorkerBaseProcess implements CTSWorkerProcess {
 
+    private final CoreTokenConfig config;
+
+    /**
+     * @param config Non null CTS configuration, used to decide whether pages of query results should be pipelined.
+     */
+    protected CTSWorkerBaseProcess(CoreTokenConfig config) {
+        this.config = config;
+    }
+
     @Override
     public final void handle(CTSWorkerQuery workerQuery, CTSWorkerFilter filter) {
+        if (config.isWorkerPipelineEnabled()) {
+            handlePipelined(workerQuery, filter);
+        } else {
+            handleSerially(workerQuery, filter);
+        }
+    }
+
+    private void handleSerially(CTSWorkerQuery workerQuery, CTSWorkerFilter filter) {
         // Timers for debugging
         StopWatch queryStopWatch = new StopWatch();
         StopWatch waitingStopWatch = new StopWatch();
@@ -60,11 +87,64 @@ public abstract class CTSWorkerBaseProcess implements CTSWorkerProcess {
                 waitingStopWatch.resume();
                 CountDownLatch latch = handleBatch(filteredTokens);
                 latch.await();
+                handleBatchCompleted(filteredTokens.size(), 0);
+                waitingStopWatch.suspend();
+
+                queryStopWatch.resume();
+            }
+            queryStopWatch.stop();
+            waitingStopWatch.stop();
+
+            handleSucceeded(queryStopWatch, waitingStopWatch, total);
+        } catch (CoreTokenException e) {
+            handleFailed(e);
+        } catch (InterruptedException e) {
+            handleFailed(e);
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void handlePipelined(CTSWorkerQuery workerQuery, CTSWorkerFilter filter) {
+        // Timers for debugging
+        StopWatch queryStopWatch = new StopWatch();
+        StopWatch waitingStopWatch = new StopWatch();
+
+        InFlightBatches inFlight = new InFlightBatches(config.getWorkerPipelineMaxInFlight(),
+                config.getWorkerPipelineTargetLatency(TimeUnit.NANOSECONDS));
+        long total = 0;
+        waitingStopWatch.start();
+        waitingStopWatch.suspend();
+        queryStopWatch.start();
+
+        try (CTSWorkerQuery query = workerQuery) {
+            for (Collection<PartialToken> tokens = query.nextPage(); tokens != null; tokens = query.nextPage()) {
+
+                // If the thread has been interrupted, exit all processing
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+
+                // the query pages through its results, so each page only holds tokens not yet seen
+                Collection<PartialToken> filteredTokens = filter.filter(tokens);
+                total += filteredTokens.size();
+                queryStopWatch.suspend();
+
+                waitingStopWatch.resume();
+                if (!filteredTokens.isEmpty()) {
+                    while (!inFlight.hasCapacityFor(filteredTokens.size())) {
+                        inFlight.awaitOldest();
+                    }
+                    inFlight.add(filteredTokens.size(), handleBatch(filteredTokens));
+                }
+                inFlight.removeCompleted();
                 waitingStopWatch.suspend();
 
                 queryStopWatch.resume();
             }
             queryStopWatch.stop();
+
+            waitingStopWatch.resume();
+            inFlight.awaitAll();
             waitingStopWatch.stop();
 
             handleSucceeded(queryStopWatch, waitingStopWatch, total);
@@ -105,9 +185,102 @@ public abstract class CTSWorkerBaseProcess implements CTSWorkerProcess {
      */
     protected abstract void handleFailed(Exception exception);
 
+    /**
+     * Hook method called each time a batch passed to {@link #handleBatch} has been processed.
+     * <p>
+     * This method can be overridden by subclasses for monitoring.
+     *
+     * @param batchSize the number of tokens in the processed batch.
+     * @param backlog the number of tokens still waiting to be processed by this {@link CTSWorkerProcess}.
+     */
+    protected void handleBatchCompleted(int batchSize, long backlog) {
+        // No-op by default
+    }
+
     @Override
     public String toString() {
         return getClass().getName();
     }
 
+    /**
+     * Tracks the batches of a single pipelined {@link #handle} call which have not yet been processed, adjusting the
+     * number of tokens allowed in flight by the time batches take to complete.
+     */
+    private final class InFlightBatches {
+
+        private final Deque<InFlightBatch> batches = new ArrayDeque<>();
+        private final int maxInFlight;
+        private final int increment;
+        private final long targetLatency;
+        private int window;
+        private long tokensInFlight;
+
+        private InFlightBatches(int maxInFlight, long targetLatency) {
+            this.maxInFlight = maxInFlight;
+            this.increment = Math.max(1, maxInFlight / 10);
+            this.targetLatency = targetLatency;
+            this.window = maxInFlight;
+        }
+
+        /**
+         * A batch is always allowed when nothing is in flight, so that batches larger than the window still progress.
+         */
+        private boolean hasCapacityFor(int batchSize) {
+            return tokensInFlight == 0 || tokensInFlight + batchSize <= window;
+        }
+
+        private void add(int batchSize, CountDownLatch latch) {
+            batches.addLast(new InFlightBatch(batchSize, latch, System.nanoTime()));
+            tokensInFlight += batchSize;
+        }
+
+        private void awaitOldest() throws InterruptedException {
+            InFlightBatch oldest = batches.pollFirst();
+            if (oldest != null) {
+                oldest.latch.await();
+                completed(oldest);
+            }
+        }
+
+        private void awaitAll() throws InterruptedException {
+            while (!batches.isEmpty()) {
+                awaitOldest();
+            }
+        }
+
+        private void removeCompleted() {
+            Iterator<InFlightBatch> iterator = batches.iterator();
+            while (iterator.hasNext()) {
+                InFlightBatch batch = iterator.next();
+                if (batch.latch.getCount() == 0) {
+                    iterator.remove();
+                    completed(batch);
+                }
+            }
+        }
+
+        private void completed(InFlightBatch batch) {
+            tokensInFlight -= batch.size;
+            // additive increase, multiplicative decrease
+            if (System.nanoTime() - batch.submitted > targetLatency) {
+                window = Math.max(1, window / 2);
+            } else {
+                window = Math.min(maxInFlight, window + increment);
+            }
+            handleBatchCompleted(batch.size, tokensInFlight);
+        }
+    }
+
+    private static final class InFlightBatch {
+
+        private final int size;
+        private final CountDownLatch latch;
+        private final long submitted;
+
+        private InFlightBatch(int size, CountDownLatch latch, long submitted) {
+            this.size = size;
+            this.latch = latch;
+            this.submitted = submitted;
+        }
+    }
 }
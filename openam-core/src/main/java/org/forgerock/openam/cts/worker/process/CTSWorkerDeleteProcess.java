@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.worker.process;
 
@@ -22,6 +23,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.commons.lang.time.StopWatch;
+import org.forgerock.openam.cts.CoreTokenConfig;
 import org.forgerock.openam.cts.api.CoreTokenConstants;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.cts.impl.query.worker.CTSWorkerQuery;
@@ -54,11 +56,14 @@ public class CTSWorkerDeleteProcess extends CTSWorkerBaseProcess {
      * @param tokenDeletion Batch deletion of tokens utility.
      * @param monitoringStore Utility to record monitoring information.
      * @param debug Debug output.
+     * @param config CTS configuration.
      */
     @Inject
     public CTSWorkerDeleteProcess(TokenDeletion tokenDeletion,
                                   CTSReaperMonitoringStore monitoringStore,
-                                  @Named(CoreTokenConstants.CTS_DEBUG) Debug debug) {
+                                  @Named(CoreTokenConstants.CTS_DEBUG) Debug debug,
+                                  CoreTokenConfig config) {
+        super(config);
         this.tokenDeletion = tokenDeletion;
         this.monitoringStore = monitoringStore;
         this.debug = debug;
@@ -76,6 +81,11 @@ public class CTSWorkerDeleteProcess extends CTSWorkerBaseProcess {
         debug.message("Worker threads Time: {0}ms", Long.toString(waitingStopWatch.getTime()));
     }
 
+    @Override
+    protected void handleBatchCompleted(final int batchSize, final long backlog) {
+        monitoringStore.addReaperBatch(batchSize, backlog);
+    }
+
     @Override
     protected void handleFailed(final Exception exception) {
         debug.error("Reaper Delete Process failed", exception);
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.worker.process;
 
@@ -22,6 +23,7 @@ import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.apache.commons.lang.time.StopWatch;
+import org.forgerock.openam.cts.CoreTokenConfig;
 import org.forgerock.openam.cts.api.CoreTokenConstants;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.cts.impl.query.worker.CTSWorkerConstants;
@@ -47,7 +49,9 @@ public class SessionIdleTimeExpiredProcess extends CTSWorkerBaseProcess {
     @Inject
     public SessionIdleTimeExpiredProcess(
             @Named(CTSWorkerConstants.SESSION_IDLE_TIME_EXPIRED) SessionExpiryBatchHandler timeoutHandler,
-            @Named(CoreTokenConstants.CTS_DEBUG) final Debug debug) {
+            @Named(CoreTokenConstants.CTS_DEBUG) final Debug debug,
+            CoreTokenConfig config) {
+        super(config);
         this.debug = debug;
         this.timeoutHandler = timeoutHandler;
     }
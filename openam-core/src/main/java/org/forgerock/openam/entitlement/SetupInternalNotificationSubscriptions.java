@@ -12,7 +12,7 @@
  *  information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
- * Portions Copyright 2023 Wren Security.
+ * Portions Copyright 2023-2026 Wren Security.
  */
 
 package org.forgerock.openam.entitlement;
@@ -25,6 +25,7 @@ import org.forgerock.json.JsonValue;
 import org.forgerock.openam.notifications.Consumer;
 import org.forgerock.openam.notifications.NotificationBroker;
 import org.forgerock.openam.notifications.Topic;
+import org.forgerock.openam.notifications.brokers.SlowConsumerPolicy;
 
 import com.sun.identity.entitlement.PolicyEventType;
 import com.sun.identity.setup.SetupListener;
@@ -56,7 +57,9 @@ public final class SetupInternalNotificationSubscriptions implements SetupListen
     }
 
     private void setUpPolicySetSubscriptions(NotificationBroker broker) {
-        broker.subscribe(new PolicySetNotificationConsumer()).bindTo(TOPIC_INTERNAL_POLICYSET);
+        // Never disconnected, as nothing would subscribe again
+        broker.subscribe(new PolicySetNotificationConsumer(), SlowConsumerPolicy.DROP_OLDEST)
+                .bindTo(TOPIC_INTERNAL_POLICYSET);
     }
 
     private static final class PolicySetNotificationConsumer implements Consumer {
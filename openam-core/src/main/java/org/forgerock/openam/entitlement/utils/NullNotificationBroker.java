@@ -12,6 +12,7 @@
  *  information: "Portions copyright [year] [name of copyright owner]".
  *
  *  Copyright 2016 ForgeRock AS.
+ *  Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.entitlement.utils;
@@ -45,6 +46,11 @@ public final class NullNotificationBroker implements NotificationBroker {
         throw new UnsupportedOperationException("Cannot be subscribed to a NullNotificationBroker");
     }
 
+    @Override
+    public boolean hasSubscribers(Topic topic) {
+        return false;
+    }
+
     @Override
     public void shutdown() {
 
@@ -0,0 +1,143 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.ldap;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * Records the time spent in each phase of the LDAP authentication performed by {@link LDAPAuthUtils}.
+ */
+final class LDAPAuthStatistics implements LDAPAuthStatisticsMBean {
+
+    private final LDAPUserDNCache userDNCache;
+    private final LongAdder searches = new LongAdder();
+    private final LongAdder searchTime = new LongAdder();
+    private final LongAdder binds = new LongAdder();
+    private final LongAdder bindTime = new LongAdder();
+    private final LongAdder passwordPolicies = new LongAdder();
+    private final LongAdder passwordPolicyTime = new LongAdder();
+    private final LongAdder staleUserDNs = new LongAdder();
+
+    /**
+     * Creates the statistics.
+     *
+     * @param userDNCache The cache of user DNs whose use is reported.
+     */
+    LDAPAuthStatistics(LDAPUserDNCache userDNCache) {
+        this.userDNCache = userDNCache;
+    }
+
+    void recordSearch(long nanos) {
+        searches.increment();
+        searchTime.add(nanos);
+    }
+
+    void recordBind(long nanos) {
+        binds.increment();
+        bindTime.add(nanos);
+    }
+
+    void recordPasswordPolicy(long nanos) {
+        passwordPolicies.increment();
+        passwordPolicyTime.add(nanos);
+    }
+
+    void recordStaleUserDN() {
+        staleUserDNs.increment();
+    }
+
+    /**
+     * Registers the statistics with the platform MBean server.
+     *
+     * @param debug The debug instance used to report a failure.
+     */
+    void register(Debug debug) {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("OpenAM:type=LDAPAuthentication,name=Statistics");
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, LDAPAuthStatisticsMBean.class), objectName);
+        } catch (Exception e) {
+            debug.warning("LDAPAuthStatistics: Unable to register monitoring", e);
+        }
+    }
+
+    @Override
+    public long getSearchCount() {
+        return searches.sum();
+    }
+
+    @Override
+    public long getAverageSearchTime() {
+        return average(searchTime, searches);
+    }
+
+    @Override
+    public long getBindCount() {
+        return binds.sum();
+    }
+
+    @Override
+    public long getAverageBindTime() {
+        return average(bindTime, binds);
+    }
+
+    @Override
+    public long getPasswordPolicyCount() {
+        return passwordPolicies.sum();
+    }
+
+    @Override
+    public long getAveragePasswordPolicyTime() {
+        return average(passwordPolicyTime, passwordPolicies);
+    }
+
+    @Override
+    public long getUserDNCacheHits() {
+        return userDNCache.getHitCount();
+    }
+
+    @Override
+    public long getUserDNCacheMisses() {
+        return userDNCache.getMissCount();
+    }
+
+    @Override
+    public long getStaleUserDNCount() {
+        return staleUserDNs.sum();
+    }
+
+    @Override
+    public long getUserDNCacheSize() {
+        return userDNCache.size();
+    }
+
+    private static long average(LongAdder nanos, LongAdder count) {
+        long n = count.sum();
+        return n == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(nanos.sum() / n);
+    }
+}
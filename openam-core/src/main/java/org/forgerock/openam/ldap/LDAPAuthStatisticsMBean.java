@@ -0,0 +1,94 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.ldap;
+
+/**
+ * Monitoring interface of the LDAP authentication performed by {@link LDAPAuthUtils}, registered as an MBean named
+ * {@code OpenAM:type=LDAPAuthentication,name=Statistics}.
+ */
+public interface LDAPAuthStatisticsMBean {
+
+    /**
+     * Returns the number of user searches sent to the directory.
+     *
+     * @return The search count.
+     */
+    long getSearchCount();
+
+    /**
+     * Returns the average time taken to search for a user.
+     *
+     * @return The time in microseconds.
+     */
+    long getAverageSearchTime();
+
+    /**
+     * Returns the number of user binds sent to the directory.
+     *
+     * @return The bind count.
+     */
+    long getBindCount();
+
+    /**
+     * Returns the average time taken to bind as a user, including obtaining the connection.
+     *
+     * @return The time in microseconds.
+     */
+    long getAverageBindTime();
+
+    /**
+     * Returns the number of bind results whose password policy controls were processed.
+     *
+     * @return The count of processed results.
+     */
+    long getPasswordPolicyCount();
+
+    /**
+     * Returns the average time taken to process the password policy controls of a bind result.
+     *
+     * @return The time in microseconds.
+     */
+    long getAveragePasswordPolicyTime();
+
+    /**
+     * Returns the number of logins which found the DN of the user in the cache, and so did not search.
+     *
+     * @return The hit count.
+     */
+    long getUserDNCacheHits();
+
+    /**
+     * Returns the number of logins which had to search for the DN of the user.
+     *
+     * @return The miss count.
+     */
+    long getUserDNCacheMisses();
+
+    /**
+     * Returns the number of cached DNs which could no longer be bound and had to be searched for again.
+     *
+     * @return The count of stale DNs.
+     */
+    long getStaleUserDNCount();
+
+    /**
+     * Returns the number of user DNs currently cached.
+     *
+     * @return The cache size.
+     */
+    long getUserDNCacheSize();
+}
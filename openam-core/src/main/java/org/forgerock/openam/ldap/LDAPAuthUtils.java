@@ -26,7 +26,7 @@
  *
  * Portions Copyrighted 2011-2016 ForgeRock AS.
  * Portions Copyrighted 2014-2016 Nomura Research Institute, Ltd
- * Portions Copyrighted 2023 Wren Security
+ * Portions Copyrighted 2023-2026 Wren Security
  */
 
 package org.forgerock.openam.ldap;
@@ -36,6 +36,7 @@ import static org.forgerock.openam.ldap.LDAPUtils.newFailoverConnectionPool;
 import static org.forgerock.openam.utils.CollectionUtils.asList;
 import static org.forgerock.opendj.ldap.LDAPConnectionFactory.*;
 
+import com.iplanet.am.util.SystemProperties;
 import com.iplanet.sso.SSOToken;
 import com.sun.identity.authentication.util.ISAuthConstants;
 import com.sun.identity.common.ShutdownManager;
@@ -93,6 +94,8 @@ import org.forgerock.opendj.ldap.responses.Result;
 import org.forgerock.opendj.ldap.responses.SearchResultEntry;
 import org.forgerock.opendj.ldif.ConnectionEntryReader;
 import org.forgerock.util.Options;
+import org.forgerock.util.annotations.VisibleForTesting;
+import org.forgerock.util.promise.Promise;
 import org.forgerock.util.thread.listener.ShutdownListener;
 import org.forgerock.util.time.Duration;
 
@@ -135,8 +138,15 @@ public class LDAPAuthUtils {
             new ConcurrentHashMap<String, ConnectionFactory>();
     private static Map<String, ConnectionFactory> adminConnectionPools =
             new ConcurrentHashMap<String, ConnectionFactory>();
+    private static final LDAPUserDNCache userDNCache = new LDAPUserDNCache(
+            SystemProperties.getAsLong(LDAPUserDNCache.CACHE_TTL, LDAPUserDNCache.DEFAULT_CACHE_TTL),
+            SystemProperties.getAsInt(LDAPUserDNCache.CACHE_MAX_SIZE, LDAPUserDNCache.DEFAULT_CACHE_MAX_SIZE));
+    private static final LDAPAuthStatistics statistics = new LDAPAuthStatistics(userDNCache);
     private ConnectionFactory cPool = null;
     private ConnectionFactory acPool = null;
+    private Promise<Connection, LdapException> pendingBindConnection;
+    private String userDNCacheKey;
+    private boolean userDNFromCache;
     private final static int NO_EXPIRY_TIME = -1;
     private final static int MIN_CONNECTION_POOL_SIZE = 1;
     private final static int MAX_CONNECTION_POOL_SIZE = 10;
@@ -171,6 +181,7 @@ public class LDAPAuthUtils {
 
     static {
         Debug staticDebug = Debug.getInstance("amAuthLDAP");
+        statistics.register(staticDebug);
 
         SSOToken dUserToken;
 
@@ -394,11 +405,13 @@ public class LDAPAuthUtils {
         boolean shouldRetry = false;
         do {
             try {
-                searchForUser();
+                // the bind connection is obtained while the user is searched for
+                requestBindConnection();
+                findUser(true);
                 if (screenState == ModuleState.SERVER_DOWN || screenState == ModuleState.USER_NOT_FOUND) {
                     return;
                 }
-                authenticate();
+                authenticateFoundUser();
                 shouldRetry = false;
             } catch (LDAPUtilException e) {
                 // cases for err=53
@@ -427,11 +440,93 @@ public class LDAPAuthUtils {
                     // generic failure. do not retry
                     throw e;
                 }
+            } finally {
+                releaseBindConnection();
             }
         } while (shouldRetry);
 
     }
 
+    /**
+     * Binds as the user found by {@link #searchForUser()}. If the DN of the user came from the cache and can no
+     * longer be bound, the user is searched for again and, if the DN has changed, bound once more.
+     */
+    private void authenticateFoundUser() throws LDAPUtilException {
+        if (!userDNFromCache) {
+            authenticate();
+            return;
+        }
+        try {
+            authenticate();
+        } catch (LDAPUtilException e) {
+            if (!ResultCode.INVALID_CREDENTIALS.equals(e.getResultCode())
+                    && !ResultCode.NO_SUCH_OBJECT.equals(e.getResultCode())) {
+                throw e;
+            }
+            String cachedDN = userDN;
+            userDNCache.remove(userDNCacheKey);
+            searchDirectory();
+            if (screenState != ModuleState.USER_FOUND) {
+                return;
+            }
+            if (cachedDN.equalsIgnoreCase(userDN)) {
+                // the DN is still current, so it was the credentials which were wrong
+                throw e;
+            }
+            if (debug.messageEnabled()) {
+                debug.message("Cached DN " + cachedDN + " of user " + userId + " is stale, now " + userDN);
+            }
+            statistics.recordStaleUserDN();
+            authenticate();
+        }
+    }
+
+    /**
+     * Starts obtaining a connection from the bind pool, to be used by the next {@link #authenticate()}.
+     */
+    private void requestBindConnection() throws LDAPUtilException {
+        releaseBindConnection();
+        try {
+            if (cPool == null) {
+                cPool = createConnectionPool(connectionPools, null, null);
+            }
+            pendingBindConnection = cPool.getConnectionAsync();
+        } catch (LdapException e) {
+            // the failure is reported when the connection is obtained synchronously
+            pendingBindConnection = null;
+        }
+    }
+
+    /**
+     * Returns the connection requested by {@link #requestBindConnection()} if there is one, or else a new
+     * connection from the bind pool.
+     */
+    private Connection takeBindConnection() throws LdapException, LDAPUtilException {
+        Promise<Connection, LdapException> pending = pendingBindConnection;
+        pendingBindConnection = null;
+        if (pending == null) {
+            return getConnection();
+        }
+        try {
+            return pending.getOrThrow();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            pending.thenOnResult(Connection::close);
+            throw new LDAPUtilException(e);
+        }
+    }
+
+    /**
+     * Returns an unused connection requested by {@link #requestBindConnection()} to the bind pool.
+     */
+    private void releaseBindConnection() {
+        Promise<Connection, LdapException> pending = pendingBindConnection;
+        pendingBindConnection = null;
+        if (pending != null) {
+            pending.thenOnResult(Connection::close);
+        }
+    }
+
     /**
      * Returns connection from pool.  Re-authenticate if necessary
      *
@@ -457,6 +552,18 @@ public class LDAPAuthUtils {
         return acPool.getConnection();
     }
 
+    /**
+     * Sets the connection pools to use instead of those created for the configured servers.
+     *
+     * @param bindPool The pool used to bind as the user.
+     * @param searchPool The pool used to search for the user.
+     */
+    @VisibleForTesting
+    void setConnectionPools(ConnectionFactory bindPool, ConnectionFactory searchPool) {
+        cPool = bindPool;
+        acPool = searchPool;
+    }
+
     /**
      * Updates to new password by using the parameters passed by the user.
      *
@@ -604,6 +711,17 @@ public class LDAPAuthUtils {
      */
     public void searchForUser()
             throws LDAPUtilException {
+        findUser(false);
+    }
+
+    /**
+     * Searches for the user as {@link #searchForUser()} does, optionally using a DN cached by an earlier search.
+     * The cache is only used when the DN is verified by a subsequent bind.
+     *
+     * @param useCache Whether the user may be found in the cache.
+     */
+    private void findUser(boolean useCache) throws LDAPUtilException {
+        userDNFromCache = false;
         // make some special case where searchScope == BASE
         // construct the userDN without searching directory
         // assume that there is only one user attribute
@@ -657,7 +775,34 @@ public class LDAPAuthUtils {
             searchFilter = bindFilter.toString();
         }
 
+        // dynamic profile creation needs the user attributes, which are only read by a search. The search identity
+        // is part of the key, as the directory may not return the same entries to each identity
+        userDNCacheKey = isDynamicUserEnabled ? null : servers + "|" + authDN + "|" + baseDN + "|" + searchScope
+                + "|" + userNamingAttr + "|" + searchFilter;
+        if (useCache && userDNCacheKey != null) {
+            LDAPUserDNCache.CachedUser cached = userDNCache.get(userDNCacheKey);
+            if (cached != null) {
+                if (debug.messageEnabled()) {
+                    debug.message("searchForUser, using cached DN " + cached.getDN() + " for " + searchFilter);
+                }
+                userDN = cached.getDN();
+                userNamingValue = cached.getNamingValue();
+                userDNFromCache = true;
+                setState(ModuleState.USER_FOUND);
+                return;
+            }
+        }
+
+        searchDirectory();
+    }
+
+    /**
+     * Searches the directory for the user, using the filter built by {@link #searchForUser()}, and caches the DN
+     * of the single matching user.
+     */
+    private void searchDirectory() throws LDAPUtilException {
         userDN = null;
+        userDNFromCache = false;
         Connection conn = null;
 
         try {
@@ -698,6 +843,7 @@ public class LDAPAuthUtils {
             SearchResultEntry entry;
             boolean userNamingValueSet=false;
 
+            long searchStart = System.nanoTime();
             try {
                 conn = getAdminConnection();
                 results = conn.search(searchForUser);
@@ -741,6 +887,7 @@ public class LDAPAuthUtils {
                 if (conn != null) {
                     conn.close();
                 }
+                statistics.recordSearch(System.nanoTime() - searchStart);
             }
 
             if (userNamingValueSet && (userDN == null ||
@@ -774,6 +921,9 @@ public class LDAPAuthUtils {
                 throw new LDAPUtilException("multipleUserMatchFound",
                         (Object[])null);
             }
+            if (userDNCacheKey != null) {
+                userDNCache.put(userDNCacheKey, userDN, userNamingValue);
+            }
         } catch (LdapException ere) {
             if (debug.warningEnabled()) {
                 debug.warning("Search for User error: ", ere);
@@ -828,6 +978,7 @@ public class LDAPAuthUtils {
             throws LDAPUtilException {
         Connection conn = null;
         List<Control> controls = null;
+        long controlsStart = 0;
 
         try {
             try {
@@ -838,8 +989,15 @@ public class LDAPAuthUtils {
                     bindRequest.addControl(PasswordPolicyRequestControl.newControl(false));
                 }
 
-                conn = getConnection();
-                BindResult bindResult = conn.bind(bindRequest);
+                BindResult bindResult;
+                long bindStart = System.nanoTime();
+                try {
+                    conn = takeBindConnection();
+                    bindResult = conn.bind(bindRequest);
+                } finally {
+                    statistics.recordBind(System.nanoTime() - bindStart);
+                }
+                controlsStart = System.nanoTime();
                 controls = processControls(bindResult);
             } finally {
                 if (conn != null) {
@@ -850,14 +1008,18 @@ public class LDAPAuthUtils {
             // Were there any password policy controls returned?
             PasswordPolicyResult result = checkControls(controls);
 
-            if (result == null) {
-                if (debug.messageEnabled()) {
-                    debug.message("No controls returned");
-                }
+            try {
+                if (result == null) {
+                    if (debug.messageEnabled()) {
+                        debug.message("No controls returned");
+                    }
 
-                setState(ModuleState.SUCCESS);
-            } else {
-                processPasswordPolicyControls(result);
+                    setState(ModuleState.SUCCESS);
+                } else {
+                    processPasswordPolicyControls(result);
+                }
+            } finally {
+                statistics.recordPasswordPolicy(System.nanoTime() - controlsStart);
             }
         } catch(LdapException ere) {
             if (ere.getResult().getResultCode().equals(ResultCode.INVALID_CREDENTIALS)) {
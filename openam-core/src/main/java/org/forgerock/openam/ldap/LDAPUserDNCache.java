@@ -0,0 +1,151 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.ldap;
+
+import static org.forgerock.openam.utils.Time.*;
+
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import com.sun.identity.entitlement.opensso.ConcurrentCache;
+
+/**
+ * Caches the DN found by the user search of {@link LDAPAuthUtils}, so that a repeated login only needs to bind.
+ * <p>
+ * Entries are keyed by the servers, search base, scope and filter of the search, and expire after a short time to
+ * live so that a renamed or moved user is found again. A cached DN which fails to bind is removed by the caller.
+ */
+final class LDAPUserDNCache {
+
+    /**
+     * Property holding the time in milliseconds for which a user DN is cached; 0 disables caching.
+     */
+    static final String CACHE_TTL = "org.forgerock.openam.ldap.auth.userDNCacheTTL";
+
+    /**
+     * Property holding the maximum number of cached user DNs.
+     */
+    static final String CACHE_MAX_SIZE = "org.forgerock.openam.ldap.auth.userDNCacheMaxSize";
+
+    static final long DEFAULT_CACHE_TTL = 30000L;
+    static final int DEFAULT_CACHE_MAX_SIZE = 10000;
+
+    private final long ttl;
+    private final ConcurrentMap<String, CachedUser> users;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    /**
+     * Creates an empty cache.
+     *
+     * @param ttl The time in milliseconds for which a DN is cached; 0 or less disables caching.
+     * @param maxSize The maximum number of cached DNs.
+     */
+    LDAPUserDNCache(long ttl, int maxSize) {
+        this.ttl = ttl;
+        int size = maxSize > 0 ? maxSize : DEFAULT_CACHE_MAX_SIZE;
+        this.users = new ConcurrentCache<>("LDAPUserDNCache", Math.min(size, 1024), size);
+    }
+
+    /**
+     * Returns whether the cache holds any entries at all.
+     *
+     * @return {@code true} unless caching has been disabled.
+     */
+    boolean isEnabled() {
+        return ttl > 0;
+    }
+
+    /**
+     * Returns the unexpired user cached for a search.
+     *
+     * @param key The key of the search.
+     * @return The cached user, or {@code null} if there is none.
+     */
+    CachedUser get(String key) {
+        if (!isEnabled()) {
+            return null;
+        }
+        CachedUser user = users.get(key);
+        if (user != null) {
+            if (user.expiresAt > currentTimeMillis()) {
+                hits.increment();
+                return user;
+            }
+            users.remove(key, user);
+        }
+        misses.increment();
+        return null;
+    }
+
+    /**
+     * Caches the user found by a search.
+     *
+     * @param key The key of the search.
+     * @param dn The DN of the user.
+     * @param namingValue The value of the naming attribute of the user, may be {@code null}.
+     */
+    void put(String key, String dn, String namingValue) {
+        if (isEnabled()) {
+            users.put(key, new CachedUser(dn, namingValue, currentTimeMillis() + ttl));
+        }
+    }
+
+    /**
+     * Removes the user cached for a search.
+     *
+     * @param key The key of the search.
+     */
+    void remove(String key) {
+        users.remove(key);
+    }
+
+    long getHitCount() {
+        return hits.sum();
+    }
+
+    long getMissCount() {
+        return misses.sum();
+    }
+
+    int size() {
+        return users.size();
+    }
+
+    /**
+     * A user found by a search.
+     */
+    static final class CachedUser {
+        private final String dn;
+        private final String namingValue;
+        private final long expiresAt;
+
+        private CachedUser(String dn, String namingValue, long expiresAt) {
+            this.dn = dn;
+            this.namingValue = namingValue;
+            this.expiresAt = expiresAt;
+        }
+
+        String getDN() {
+            return dn;
+        }
+
+        String getNamingValue() {
+            return namingValue;
+        }
+    }
+}
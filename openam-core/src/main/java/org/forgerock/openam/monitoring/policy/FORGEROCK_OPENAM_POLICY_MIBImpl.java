@@ -1,5 +1,6 @@
 /*
  * Copyright 2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  *
  * The contents of this file are subject to the terms of the Common Development and
  * Distribution License (the License). You may not use this file except in compliance with the
@@ -34,6 +35,10 @@ public class FORGEROCK_OPENAM_POLICY_MIBImpl extends FORGEROCK_OPENAM_POLICY_MIB
 
     private PolicyEvaluation policyEvaluation;
 
+    private PolicySubjectCache policySubjectCache;
+
+    private PolicyLdapFilterCache policyLdapFilterCache;
+
     /**
      * Default constructor. Initialize the Mib tree.
      */
@@ -194,4 +199,64 @@ public class FORGEROCK_OPENAM_POLICY_MIBImpl extends FORGEROCK_OPENAM_POLICY_MIB
         return policyEvaluation;
     }
 
+    /**
+     * Factory method for "PolicySubjectCache" MBean.
+     *
+     * You can redefine this method if you need to replace the default
+     * generated MBean class with your own customized class.
+     *
+     * @param groupName Name of the group ("PolicySubjectCache")
+     * @param groupOid  OID of this group
+     * @param groupObjname ObjectName for this group (may be null)
+     * @param server    MBeanServer for this group (may be null)
+     *
+     * @return An instance of the MBean class generated for the
+     *         "PolicySubjectCache" group (PolicySubjectCache)
+     *
+     * Note that when using standard metadata,
+     * the returned object must implement the "PolicySubjectCache"
+     * interface.
+     **/
+    protected Object createPolicySubjectCacheMBean(String groupName,
+                                                  String groupOid,
+                                                  ObjectName groupObjname, MBeanServer server)  {
+
+        policySubjectCache = new PolicySubjectCacheImpl(this);
+        return policySubjectCache;
+    }
+
+    public PolicySubjectCache getPolicySubjectCache() {
+        return policySubjectCache;
+    }
+
+    /**
+     * Factory method for "PolicyLdapFilterCache" MBean.
+     *
+     * You can redefine this method if you need to replace the default
+     * generated MBean class with your own customized class.
+     *
+     * @param groupName Name of the group ("PolicyLdapFilterCache")
+     * @param groupOid  OID of this group
+     * @param groupObjname ObjectName for this group (may be null)
+     * @param server    MBeanServer for this group (may be null)
+     *
+     * @return An instance of the MBean class generated for the
+     *         "PolicyLdapFilterCache" group (PolicyLdapFilterCache)
+     *
+     * Note that when using standard metadata,
+     * the returned object must implement the "PolicyLdapFilterCache"
+     * interface.
+     **/
+    protected Object createPolicyLdapFilterCacheMBean(String groupName,
+                                                  String groupOid,
+                                                  ObjectName groupObjname, MBeanServer server)  {
+
+        policyLdapFilterCache = new PolicyLdapFilterCacheImpl(this);
+        return policyLdapFilterCache;
+    }
+
+    public PolicyLdapFilterCache getPolicyLdapFilterCache() {
+        return policyLdapFilterCache;
+    }
+
 }
@@ -0,0 +1,73 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.monitoring.policy;
+
+import com.sun.identity.policy.plugins.LDAPFilterDecisionCache;
+import com.sun.management.snmp.SnmpStatusException;
+import com.sun.management.snmp.agent.SnmpMib;
+
+/**
+ * Implementation of the SNMP {@link PolicyLdapFilterCache} interface.
+ *
+ * Reports the hit rate and search latency of the {@link LDAPFilterDecisionCache}.
+ */
+public class PolicyLdapFilterCacheImpl extends PolicyLdapFilterCache {
+
+    /**
+     * Constructs an instance of the {@link PolicyLdapFilterCache} interface.
+     *
+     * @param myMib The MIB.
+     */
+    public PolicyLdapFilterCacheImpl(SnmpMib myMib) {
+        super(myMib);
+    }
+
+    /**
+     * Getter for the "LdapFilterCacheHits" variable.
+     */
+    public Long getLdapFilterCacheHits() throws SnmpStatusException {
+        return LDAPFilterDecisionCache.getHitCount();
+    }
+
+    /**
+     * Getter for the "LdapFilterCacheMisses" variable.
+     */
+    public Long getLdapFilterCacheMisses() throws SnmpStatusException {
+        return LDAPFilterDecisionCache.getMissCount();
+    }
+
+    /**
+     * Getter for the "LdapFilterCacheSearches" variable.
+     */
+    public Long getLdapFilterCacheSearches() throws SnmpStatusException {
+        return LDAPFilterDecisionCache.getSearchCount();
+    }
+
+    /**
+     * Getter for the "LdapFilterCacheSearchTimeAverage" variable.
+     */
+    public Long getLdapFilterCacheSearchTimeAverage() throws SnmpStatusException {
+        return LDAPFilterDecisionCache.getAverageSearchTime();
+    }
+
+    /**
+     * Getter for the "LdapFilterCacheSize" variable.
+     */
+    public Long getLdapFilterCacheSize() throws SnmpStatusException {
+        return (long) LDAPFilterDecisionCache.getSize();
+    }
+}
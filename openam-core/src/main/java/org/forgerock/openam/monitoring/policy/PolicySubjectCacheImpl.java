@@ -0,0 +1,59 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.monitoring.policy;
+
+import com.sun.identity.policy.SubjectEvaluationCache;
+import com.sun.management.snmp.SnmpStatusException;
+import com.sun.management.snmp.agent.SnmpMib;
+
+/**
+ * Implementation of the SNMP {@link PolicySubjectCache} interface.
+ *
+ * Reports the hit rate and size of the {@link SubjectEvaluationCache}.
+ */
+public class PolicySubjectCacheImpl extends PolicySubjectCache {
+
+    /**
+     * Constructs an instance of the {@link PolicySubjectCache} interface.
+     *
+     * @param myMib The MIB.
+     */
+    public PolicySubjectCacheImpl(SnmpMib myMib) {
+        super(myMib);
+    }
+
+    /**
+     * Getter for the "SubjectCacheHits" variable.
+     */
+    public Long getSubjectCacheHits() throws SnmpStatusException {
+        return SubjectEvaluationCache.getHitCount();
+    }
+
+    /**
+     * Getter for the "SubjectCacheMisses" variable.
+     */
+    public Long getSubjectCacheMisses() throws SnmpStatusException {
+        return SubjectEvaluationCache.getMissCount();
+    }
+
+    /**
+     * Getter for the "SubjectCacheSize" variable.
+     */
+    public Long getSubjectCacheSize() throws SnmpStatusException {
+        return (long) SubjectEvaluationCache.getSize();
+    }
+}
@@ -12,10 +12,13 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.monitoring.session;
 
+import org.forgerock.openam.session.stateless.cache.StatelessJWTCache;
+
 import com.iplanet.dpro.session.monitoring.SessionMonitorType;
 import com.iplanet.dpro.session.monitoring.SessionMonitoringStore;
 import com.sun.management.snmp.SnmpStatusException;
@@ -26,10 +29,13 @@ import com.sun.management.snmp.agent.SnmpMib;
  */
 public class StatelessSessionsImpl extends StatelessSessions {
     private final SessionMonitoringStore monitoringStore;
+    private final StatelessJWTCache jwtCache;
 
-    public StatelessSessionsImpl(final SnmpMib mib, final SessionMonitoringStore monitoringStore) {
+    public StatelessSessionsImpl(final SnmpMib mib, final SessionMonitoringStore monitoringStore,
+            final StatelessJWTCache jwtCache) {
         super(mib);
         this.monitoringStore = monitoringStore;
+        this.jwtCache = jwtCache;
     }
 
     /**
@@ -74,4 +80,28 @@ public class StatelessSessionsImpl extends StatelessSessions {
         return 0L;
     }
 
+    /**
+     * Getter for the "StatelessJWTCacheHits" variable.
+     */
+    @Override
+    public Long getStatelessJWTCacheHits() throws SnmpStatusException {
+        return jwtCache.getHitCount();
+    }
+
+    /**
+     * Getter for the "StatelessJWTCacheMisses" variable.
+     */
+    @Override
+    public Long getStatelessJWTCacheMisses() throws SnmpStatusException {
+        return jwtCache.getMissCount();
+    }
+
+    /**
+     * Getter for the "StatelessJWTCacheEvictions" variable.
+     */
+    @Override
+    public Long getStatelessJWTCacheEvictions() throws SnmpStatusException {
+        return jwtCache.getEvictionCount();
+    }
+
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.session;
 
@@ -49,6 +50,7 @@ import com.iplanet.dpro.session.service.SessionNotificationSender;
 import com.iplanet.dpro.session.service.SessionServerConfig;
 import com.iplanet.dpro.session.service.SessionService;
 import com.iplanet.dpro.session.service.SessionTimeoutHandlerExecutor;
+import com.sun.identity.policy.SubjectEvaluationCacheSessionListener;
 import com.sun.identity.shared.debug.Debug;
 import com.sun.identity.shared.stats.Stats;
 
@@ -150,11 +152,12 @@ public class SessionGuiceModule extends PrivateModule {
             final SessionAuditor sessionAuditor,
             final SessionNotificationSender sessionNotificationSender,
             final SessionNotificationPublisher sessionNotificationPublisher,
-            final SessionTimeoutHandlerExecutor sessionTimeoutHandlerExecutor) {
+            final SessionTimeoutHandlerExecutor sessionTimeoutHandlerExecutor,
+            final SubjectEvaluationCacheSessionListener subjectEvaluationCacheSessionListener) {
 
         return new InternalSessionEventBroker(
                 sessionLogging, sessionAuditor, sessionNotificationSender, sessionNotificationPublisher,
-                sessionTimeoutHandlerExecutor);
+                sessionTimeoutHandlerExecutor, subjectEvaluationCacheSessionListener);
     }
 
     @Provides
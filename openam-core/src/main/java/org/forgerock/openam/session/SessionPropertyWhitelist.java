@@ -12,6 +12,7 @@
 * information: "Portions copyright [year] [name of copyright owner]".
 *
 * Copyright 2015 ForgeRock AS.
+* Portions Copyright 2026 Wren Security.
 */
 package org.forgerock.openam.session;
 
@@ -135,7 +136,7 @@ public class SessionPropertyWhitelist {
         ServiceConfig scm = serviceConfigManager.getOrganizationConfig(realm, null);
 
         WHITELIST_REALM_MAP.put(realm.toLowerCase(),
-                CollectionHelper.getServerMapAttrs(scm.getAttributes(), WHITELIST_ATTRIBUTE_NAME));
+                CollectionHelper.getServerMapAttrs(scm.getAttributesForRead(), WHITELIST_ATTRIBUTE_NAME));
     }
 
     private Set<String> getWhitelist(String realm) {
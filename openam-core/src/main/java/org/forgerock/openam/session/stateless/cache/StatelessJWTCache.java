@@ -12,19 +12,29 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.session.stateless.cache;
 
-import java.util.Collections;
-import java.util.Map;
+import static org.forgerock.openam.utils.Time.currentTimeMillis;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Singleton;
 
 import org.forgerock.openam.session.stateless.StatelessConfig;
-import org.forgerock.openam.utils.collections.LeastRecentlyUsed;
 import org.forgerock.util.Reject;
 import org.forgerock.util.annotations.VisibleForTesting;
+import org.wrensecurity.guava.common.cache.Cache;
+import org.wrensecurity.guava.common.cache.CacheBuilder;
+import org.wrensecurity.guava.common.cache.RemovalCause;
+import org.wrensecurity.guava.common.cache.RemovalListener;
+import org.wrensecurity.guava.common.cache.RemovalNotification;
 
 import com.iplanet.dpro.session.service.SessionServiceConfig;
 import com.iplanet.dpro.session.share.SessionInfo;
@@ -37,20 +47,33 @@ import com.iplanet.services.naming.ServiceListeners;
  * tokens need to be decrypted and decoded.
  *
  * This cache is intentionally unable to perform the reverse lookup of SessionInfo to
- * JWT, as we expect the JWT to change each time the SessionInfo changes.
+ * JWT, as we expect the JWT to change each time the SessionInfo changes. It does however index
+ * the cached JWTs by session ID, so that {@link #contains(SessionInfo)} does not need to scan
+ * the whole cache.
+ *
+ * Entries are evicted in approximately least recently used order once the configured size is
+ * reached, and are treated as absent once the session expiry time contained in the JWT has passed.
  *
  * Assumption: There is only one representation of a JWT to the SessionInfo it contains.
  *
- * Thread Safety: This class uses a synchronized data structure and so is thread safe.
+ * Thread Safety: This class uses a segmented concurrent data structure and so is thread safe.
  */
 @Singleton
 public class StatelessJWTCache {
-    private final Map<String, SessionInfo> sessionInfoCache;
+
+    private final Cache<String, SessionInfo> sessionInfoCache;
+    private final ConcurrentMap<String, Set<String>> jwtsBySessionId = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
 
     @Inject
     public StatelessJWTCache(StatelessConfig config, ServiceListeners listeners) {
-        sessionInfoCache = Collections.synchronizedMap(
-                new LeastRecentlyUsed<String, SessionInfo>(config.getJWTCacheSize()));
+        sessionInfoCache = CacheBuilder.newBuilder()
+                .concurrencyLevel(Math.max(16, Runtime.getRuntime().availableProcessors()))
+                .maximumSize(Math.max(0, config.getJWTCacheSize()))
+                .removalListener(new IndexRemovalListener())
+                .build();
 
         // Responds to configuration changes, preventing possibly invalid keys from remaining in the cache
         final ServiceListeners.Action action = new ServiceListeners.Action() {
@@ -65,20 +88,32 @@ public class StatelessJWTCache {
     /**
      * Stores the relationship between a SessionInfo, and its encrypted JWT.
      *
+     * The JWT is indexed before it is cached, so that the removal listener always finds the index entry
+     * to remove, even when the JWT is evicted as part of its own insertion.
+     *
      * @param jwtToken Non null JWT Token to store.
      * @param info Non null SessionInfo to store against the JWT.
      */
     public void cache(SessionInfo info, String jwtToken) {
         Reject.ifNull(info, jwtToken, "Arguments cannot be null.");
+        index(info.getSessionID(), jwtToken);
         sessionInfoCache.put(jwtToken, info);
     }
 
     /**
+     * Looking up a JWT this way is recorded in the hit and miss counts of this cache.
+     *
      * @param jwt Possibly null JWT token.
      * @return Possibly null. Cached SessionInfo that corresponds to the given JWT token.
      */
     public SessionInfo getSessionInfo(String jwt) {
-        return sessionInfoCache.get(jwt);
+        SessionInfo info = getUnexpired(jwt);
+        if (info == null) {
+            misses.increment();
+        } else {
+            hits.increment();
+        }
+        return info;
     }
 
     /**
@@ -86,7 +121,19 @@ public class StatelessJWTCache {
      * @return True if there is a JWT representation for this SessionInfo.
      */
     public boolean contains(SessionInfo info) {
-        return sessionInfoCache.containsValue(info);
+        if (info == null) {
+            return false;
+        }
+        Set<String> jwts = info.getSessionID() == null ? null : jwtsBySessionId.get(info.getSessionID());
+        if (jwts == null) {
+            return false;
+        }
+        for (String jwt : jwts) {
+            if (info.equals(getUnexpired(jwt))) {
+                return true;
+            }
+        }
+        return false;
     }
 
     /**
@@ -94,7 +141,7 @@ public class StatelessJWTCache {
      * @return True if this JWT has been stored in the cache previously.
      */
     public boolean contains(String jwtToken) {
-        return sessionInfoCache.containsKey(jwtToken);
+        return getUnexpired(jwtToken) != null;
     }
 
     /**
@@ -103,7 +150,30 @@ public class StatelessJWTCache {
      * @param jwt the JWT to remove from the cache.
      */
     public void remove(String jwt) {
-        sessionInfoCache.remove(jwt);
+        if (jwt != null) {
+            sessionInfoCache.invalidate(jwt);
+        }
+    }
+
+    /**
+     * @return The number of calls to {@link #getSessionInfo(String)} which found the JWT in the cache.
+     */
+    public long getHitCount() {
+        return hits.sum();
+    }
+
+    /**
+     * @return The number of calls to {@link #getSessionInfo(String)} which did not find the JWT in the cache.
+     */
+    public long getMissCount() {
+        return misses.sum();
+    }
+
+    /**
+     * @return The number of JWTs removed from the cache due to its size, or due to the session having expired.
+     */
+    public long getEvictionCount() {
+        return evictions.sum();
     }
 
     /**
@@ -114,6 +184,70 @@ public class StatelessJWTCache {
      */
     @VisibleForTesting
     void clear() {
-        sessionInfoCache.clear();
+        sessionInfoCache.invalidateAll();
+        jwtsBySessionId.clear();
+    }
+
+    @VisibleForTesting
+    int getIndexedSessionCount() {
+        return jwtsBySessionId.size();
+    }
+
+    private SessionInfo getUnexpired(String jwt) {
+        if (jwt == null) {
+            return null;
+        }
+        SessionInfo info = sessionInfoCache.getIfPresent(jwt);
+        if (info != null && isExpired(info)) {
+            evictions.increment();
+            sessionInfoCache.invalidate(jwt);
+            return null;
+        }
+        return info;
+    }
+
+    /**
+     * A SessionInfo without an expiry time is left to be evicted by size alone.
+     */
+    private boolean isExpired(SessionInfo info) {
+        long expiryTime = info.getExpiryTime(TimeUnit.MILLISECONDS);
+        return !info.isNeverExpiring() && expiryTime > 0 && expiryTime <= currentTimeMillis();
+    }
+
+    private void index(String sessionId, final String jwt) {
+        if (sessionId == null) {
+            return;
+        }
+        jwtsBySessionId.compute(sessionId, (id, jwts) -> {
+            Set<String> result = jwts == null ? ConcurrentHashMap.<String>newKeySet() : jwts;
+            result.add(jwt);
+            return result;
+        });
+    }
+
+    private void unindex(String sessionId, final String jwt) {
+        if (sessionId == null) {
+            return;
+        }
+        jwtsBySessionId.computeIfPresent(sessionId, (id, jwts) -> {
+            jwts.remove(jwt);
+            return jwts.isEmpty() ? null : jwts;
+        });
+    }
+
+    /**
+     * Keeps the session ID index in step with the cache, and counts entries evicted due to the cache size.
+     * A replaced JWT keeps its index entry, as a JWT always carries the same session ID.
+     */
+    private final class IndexRemovalListener implements RemovalListener<String, SessionInfo> {
+        @Override
+        public void onRemoval(RemovalNotification<String, SessionInfo> notification) {
+            if (notification.getCause() == RemovalCause.SIZE) {
+                evictions.increment();
+            }
+            if (notification.getCause() != RemovalCause.REPLACED && notification.getValue() != null) {
+                unindex(notification.getValue().getSessionID(), notification.getKey());
+            }
+        }
     }
-}
\ No newline at end of file
+}
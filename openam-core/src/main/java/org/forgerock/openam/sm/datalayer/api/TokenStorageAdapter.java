@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.sm.datalayer.api;
@@ -22,6 +23,7 @@ import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.continuous.ContinuousQuery;
 import org.forgerock.openam.cts.continuous.ContinuousQueryListener;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.util.Options;
 
@@ -89,6 +91,34 @@ public interface TokenStorageAdapter {
      */
     Collection<PartialToken> partialQuery(TokenFilter query) throws DataLayerException;
 
+    /**
+     * Performs a full-token query using the provided filter, returning a cursor which retrieves the matching
+     * tokens from the database a page at a time.
+     *
+     * The cursor is independent of this adapter and may be read from any thread. It must be closed once the
+     * caller has finished with it.
+     *
+     * @param query The non null filter specification. The size limit of the filter is applied across all pages.
+     * @param pageSize The positive number of tokens to retrieve from the database in each page.
+     * @return A non null cursor over the matching tokens.
+     * @throws DataLayerException If the query could not be started.
+     */
+    QueryCursor<Token> pagedQuery(TokenFilter query, int pageSize) throws DataLayerException;
+
+    /**
+     * Performs a partial query using the provided filter, returning a cursor which retrieves the matching
+     * partial tokens from the database a page at a time.
+     *
+     * The cursor is independent of this adapter and may be read from any thread. It must be closed once the
+     * caller has finished with it.
+     *
+     * @param query The non null filter specification. The size limit of the filter is applied across all pages.
+     * @param pageSize The positive number of partial tokens to retrieve from the database in each page.
+     * @return A non null cursor over the matching partial tokens.
+     * @throws DataLayerException If the query could not be started.
+     */
+    QueryCursor<PartialToken> pagedPartialQuery(TokenFilter query, int pageSize) throws DataLayerException;
+
     /**
      * Performs a continuous query using the provided filter.
      *
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.sm.datalayer.api.query;
 
@@ -189,6 +190,51 @@ public abstract class QueryBuilder<C, F> {
      */
     public abstract <T> Iterator<Collection<T>> executeRawResults(C connection, Class<T> returnType);
 
+    /**
+     * Creates a cursor over the results of the query which requests each page of results from the data store as the
+     * previous page is consumed. The page size is taken from {@link #pageResultsBy(int)}, and once the limit set
+     * by {@link #limitResultsTo(int)} has been reached no further pages are requested.
+     *
+     * The cursor does not take ownership of the connection, the caller remains responsible for closing it once the
+     * cursor has been closed.
+     *
+     * @param connection The connection to query.
+     * @param returnType The type of object wanted.
+     * @param <T> The type being returned.
+     * @return A non null cursor over the results.
+     */
+    public abstract <T> QueryCursor<T> executeRawCursor(C connection, Class<T> returnType);
+
+    /**
+     * Perform the query and return a cursor over the results as processed Token instances.
+     *
+     * @param connection The connection used to perform the request.
+     * @return A non null cursor. Note that the cursor may throw a DataLayerRuntimeException in the event of a
+     * failure.
+     * @see #executeRawCursor(Object, Class)
+     */
+    public QueryCursor<Token> executeCursor(C connection) {
+        if (!ArrayUtils.isEmpty(requestedAttributes)) {
+            throw new IllegalStateException(
+                    "Cannot convert results to Token if the query uses" +
+                    "a reduced number of attributes in the return result");
+        }
+        return executeRawCursor(connection, Token.class);
+    }
+
+    /**
+     * Perform an Attribute based query and return a cursor over the results.
+     *
+     * @param connection The connection used to perform the request.
+     * @return A non null cursor. Note that the cursor may throw a DataLayerRuntimeException in the event of a
+     * failure.
+     * @see #executeAttributeQuery(Object)
+     * @see #executeRawCursor(Object, Class)
+     */
+    public QueryCursor<PartialToken> executeAttributeCursor(C connection) {
+        return executeRawCursor(connection, PartialToken.class);
+    }
+
     /**
      * Perform the query and return the results as processed Token instances.
      *
@@ -0,0 +1,45 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.sm.datalayer.api.query;
+
+import java.io.Closeable;
+import java.util.Iterator;
+
+/**
+ * A forward only cursor over the results of a query against the data store.
+ *
+ * Results are retrieved from the data store a page at a time as the cursor is advanced, so
+ * only the current page is held in memory and the first results are available before the
+ * whole query has been processed. Once the requested size limit has been reached no
+ * further pages are requested.
+ *
+ * The cursor holds resources in the data store until it is exhausted or closed, callers
+ * should therefore use it within a try-with-resources statement. Failures while retrieving
+ * a page are signalled by {@link #hasNext()} and {@link #next()} throwing a
+ * {@link org.forgerock.openam.sm.datalayer.api.DataLayerRuntimeException}.
+ *
+ * @param <T> The type of result returned by the cursor.
+ */
+public interface QueryCursor<T> extends Iterator<T>, Closeable {
+
+    /**
+     * Releases the resources held by this cursor. Any results not yet read are discarded.
+     * Closing a cursor that has already been closed has no effect.
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,66 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.sm.datalayer.api.query;
+
+import org.forgerock.util.Reject;
+
+/**
+ * A {@link QueryCursor} which converts each result of an underlying cursor as it is read.
+ *
+ * @param <F> The type of result returned by the underlying cursor.
+ * @param <T> The type of result returned by this cursor.
+ */
+public abstract class TransformingQueryCursor<F, T> implements QueryCursor<T> {
+
+    private final QueryCursor<F> cursor;
+
+    /**
+     * @param cursor Non null cursor to read results from.
+     */
+    protected TransformingQueryCursor(QueryCursor<F> cursor) {
+        Reject.ifNull(cursor);
+        this.cursor = cursor;
+    }
+
+    /**
+     * Converts a single result of the underlying cursor.
+     *
+     * @param result The result read from the underlying cursor.
+     * @return The converted result.
+     */
+    protected abstract T transform(F result);
+
+    @Override
+    public boolean hasNext() {
+        return cursor.hasNext();
+    }
+
+    @Override
+    public T next() {
+        return transform(cursor.next());
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() {
+        cursor.close();
+    }
+}
@@ -0,0 +1,487 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.sm.datalayer.impl;
+
+import java.text.MessageFormat;
+import java.util.Arrays;
+import java.util.Queue;
+import java.util.concurrent.BlockingDeque;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingDeque;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Provider;
+
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
+import org.forgerock.openam.cts.api.CoreTokenConstants;
+import org.forgerock.openam.cts.impl.queue.ConsistentHashRing;
+import org.forgerock.openam.cts.impl.queue.config.CTSQueueConfiguration;
+import org.forgerock.openam.cts.monitoring.CTSQueueMonitoringStore;
+import org.forgerock.openam.shared.concurrency.ThreadMonitor;
+import org.forgerock.openam.sm.datalayer.api.DataLayerConstants;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
+import org.forgerock.openam.sm.datalayer.api.QueueTimeoutException;
+import org.forgerock.openam.sm.datalayer.api.Task;
+import org.forgerock.openam.sm.datalayer.api.TaskExecutor;
+import org.forgerock.util.annotations.VisibleForTesting;
+
+import com.iplanet.am.util.SystemProperties;
+import com.sun.identity.common.configuration.ConfigurationListener;
+import com.sun.identity.shared.debug.Debug;
+
+/**
+ * The StealingTaskExecutor is an alternative to the {@link SeriesTaskExecutor} which keeps the guarantee
+ * that tasks on a single {@link org.forgerock.openam.cts.api.tokens.Token} are processed in order, but
+ * allows idle processors to take work away from busy ones.
+ *
+ * Tasks are assigned to one of a fixed number of lanes based on their Token ID. Each lane is a FIFO
+ * queue which is processed by at most one processor at a time, which provides the ordering guarantee.
+ * Queries have no Token ID and are assigned to a random lane.
+ *
+ * Lanes which have work are placed on the ready deque of their home processor. The home processor is
+ * selected with a {@link ConsistentHashRing}, so that changing the number of processors at runtime only
+ * moves the lanes of the processors that were added or removed. A processor takes lanes from the head of
+ * its own deque and, when it has nothing to do, steals lanes from the tail of other processors' deques.
+ * This means a slow operation or a burst of tasks for hot Token IDs only delays the lanes involved rather
+ * than a whole queue.
+ *
+ * The total number of queued tasks is bounded by the queue size multiplied by the number of processors.
+ * When this limit is reached the caller will block, in the same way as the {@link SeriesTaskExecutor}.
+ *
+ * The depth of, and wait time on, each processor's queue is recorded in the {@link CTSQueueMonitoringStore}.
+ *
+ * @see CTSQueueConfiguration#getLanes()
+ * @see CTSQueueConfiguration#getQueueTimeout()
+ */
+public class StealingTaskExecutor implements TaskExecutor {
+
+    /**
+     * The maximum number of tasks a processor will take from a lane before giving other lanes a turn.
+     */
+    @VisibleForTesting
+    static final int LANE_BATCH_SIZE = 16;
+
+    /**
+     * How long an idle processor waits for work on its own deque before trying to steal from others.
+     */
+    private static final long STEAL_INTERVAL_MS = 10;
+
+    private final Debug debug;
+    private final ThreadMonitor monitor;
+    private final CTSQueueConfiguration configuration;
+    private final CTSQueueMonitoringStore monitoringStore;
+    private final AMExecutorServiceFactory executorServiceFactory;
+    private final Provider<SimpleTaskExecutor> taskExecutorProvider;
+
+    private volatile Topology topology;
+    private TaskLane[] lanes;
+    private Capacity capacity;
+    private ExecutorService poolService;
+    private int queueSize;
+    private boolean initialised = false;
+
+    /**
+     * Create a default instance of the StealingTaskExecutor.
+     *
+     * @param executorServiceFactory Required to create the pool processor threads run on.
+     * @param taskExecutorProvider Required to create the executor each processor uses to run tasks.
+     * @param monitor Required to ensure threads are restarted.
+     * @param configuration Required to determine runtime configuration options.
+     * @param monitoringStore Required to record queue depth and wait times.
+     * @param debug Required for debugging.
+     */
+    @Inject
+    public StealingTaskExecutor(
+            AMExecutorServiceFactory executorServiceFactory,
+            Provider<SimpleTaskExecutor> taskExecutorProvider,
+            ThreadMonitor monitor,
+            CTSQueueConfiguration configuration,
+            CTSQueueMonitoringStore monitoringStore,
+            @Named(DataLayerConstants.DATA_LAYER_DEBUG) Debug debug) {
+        this.executorServiceFactory = executorServiceFactory;
+        this.taskExecutorProvider = taskExecutorProvider;
+        this.monitor = monitor;
+        this.configuration = configuration;
+        this.monitoringStore = monitoringStore;
+        this.debug = debug;
+    }
+
+    /**
+     * Creates the lanes and processors, and registers for changes to the number of connections so that
+     * processors can be added or removed at runtime.
+     *
+     * Synchronized to ensure that only one set of threads are initialised.
+     */
+    @Override
+    public synchronized void start() throws DataLayerException {
+        if (initialised) {
+            return;
+        }
+
+        int processors = configuration.getProcessors();
+        queueSize = configuration.getQueueSize();
+
+        lanes = new TaskLane[configuration.getLanes()];
+        for (int ii = 0; ii < lanes.length; ii++) {
+            lanes[ii] = new TaskLane(ii);
+        }
+        capacity = new Capacity(queueSize * processors);
+        poolService = executorServiceFactory.createCachedThreadPool(CoreTokenConstants.CTS_WORKER_POOL);
+
+        topology = createTopology(new Processor[0], processors);
+        debug("Created {0} Task Processors for {1} lanes", processors, lanes.length);
+
+        observeProcessorChanges();
+
+        initialised = true;
+    }
+
+    /**
+     * Registers for changes to the maximum number of CTS connections, which determines the number of processors.
+     */
+    @VisibleForTesting
+    void observeProcessorChanges() {
+        SystemProperties.observe(new ConfigurationListener() {
+            @Override
+            public void notifyChanges() {
+                resize();
+            }
+        }, CoreTokenConstants.CTS_STORE_MAX_CONNECTIONS);
+    }
+
+    @Override
+    public void execute(String tokenId, Task task) throws DataLayerException {
+        TaskLane lane = getLane(tokenId);
+        int queue = topology.homes[lane.index];
+        debug("Select Lane: Token ID {0} - Lane {1} - Queue {2}", tokenId, lane.index, queue);
+
+        acquire(task);
+        monitoringStore.addTaskQueued(queue);
+        lane.tasks.add(new QueuedTask(wrap(task), queue, System.currentTimeMillis()));
+        if (lane.scheduled.compareAndSet(false, true)) {
+            schedule(lane);
+        }
+    }
+
+    /**
+     * Re-reads the number of processors from configuration and adds or retires processors to match.
+     * Only the lanes homed on the added or removed processors will move. The bound on queued tasks
+     * follows the number of processors; when shrinking, tasks already queued are not affected but
+     * callers block until the queue has drained below the new bound.
+     */
+    @VisibleForTesting
+    synchronized void resize() {
+        if (!initialised) {
+            return;
+        }
+        int processors;
+        try {
+            processors = configuration.getProcessors();
+        } catch (DataLayerException e) {
+            debug.error(CoreTokenConstants.DEBUG_ASYNC_HEADER + "Unable to resize Task Processors", e);
+            return;
+        }
+
+        Processor[] current = topology.processors;
+        if (processors == current.length) {
+            return;
+        }
+        if (processors > current.length) {
+            capacity.release(queueSize * (processors - current.length));
+        } else {
+            capacity.reduce(queueSize * (current.length - processors));
+        }
+
+        topology = createTopology(current, processors);
+        for (int ii = processors; ii < current.length; ii++) {
+            current[ii].retire();
+        }
+        debug("Resized Task Processors from {0} to {1}", current.length, processors);
+    }
+
+    /**
+     * Creates a topology with the given number of processors, reusing the existing processors where
+     * possible and starting any new ones.
+     */
+    private Topology createTopology(Processor[] existing, int size) {
+        Processor[] processors = Arrays.copyOf(existing, size);
+        for (int ii = existing.length; ii < size; ii++) {
+            processors[ii] = new Processor(ii, taskExecutorProvider.get());
+        }
+
+        ConsistentHashRing ring = new ConsistentHashRing(size);
+        int[] homes = new int[lanes.length];
+        for (int ii = 0; ii < lanes.length; ii++) {
+            homes[ii] = ring.select(Integer.toString(ii));
+        }
+        Topology created = new Topology(processors, homes);
+
+        for (int ii = existing.length; ii < size; ii++) {
+            monitor.watchThread(poolService, processors[ii]);
+        }
+        return created;
+    }
+
+    /**
+     * Select the lane for the given Token ID. The lane will be consistent for a Token ID for
+     * the lifetime of the executor.
+     *
+     * @param tokenId Token ID, or null for a query, which is assigned a random lane.
+     * @return Non null lane.
+     */
+    private TaskLane getLane(String tokenId) {
+        if (tokenId == null) {
+            return lanes[ThreadLocalRandom.current().nextInt(lanes.length)];
+        }
+        return lanes[(ConsistentHashRing.hash(tokenId) & Integer.MAX_VALUE) % lanes.length];
+    }
+
+    private void acquire(Task task) throws QueueTimeoutException {
+        try {
+            debug("Queuing Task {0}", task);
+            if (!capacity.tryAcquire(configuration.getQueueTimeout(), TimeUnit.SECONDS)) {
+                throw new QueueTimeoutException(task);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueueTimeoutException(task, e);
+        }
+    }
+
+    /**
+     * Places a lane which has work on the ready deque of its home processor.
+     */
+    private void schedule(TaskLane lane) {
+        Topology current = topology;
+        Processor home = current.processors[current.homes[lane.index]];
+        home.ready.offerLast(lane);
+        if (home.retired) {
+            // The processor retired whilst we were scheduling, make sure the lane is not stranded.
+            home.handOver();
+        }
+    }
+
+    /**
+     * Attempts to take a ready lane from another processor.
+     *
+     * @param thief The processor looking for work.
+     * @return A lane to process, or null if there was no work to steal.
+     */
+    private TaskLane steal(Processor thief) {
+        Processor[] processors = topology.processors;
+        int start = ThreadLocalRandom.current().nextInt(processors.length);
+        for (int ii = 0; ii < processors.length; ii++) {
+            Processor victim = processors[(start + ii) % processors.length];
+            if (victim == thief) {
+                continue;
+            }
+            TaskLane lane = victim.ready.pollLast();
+            if (lane != null) {
+                debug("Processor {0} stole lane {1} from Processor {2}", thief.index, lane.index, victim.index);
+                return lane;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Processes a batch of tasks from the lane. The lane is owned by the calling processor until it is
+     * either rescheduled or marked as idle.
+     */
+    private void process(TaskLane lane, SimpleTaskExecutor taskExecutor) {
+        try {
+            for (int ii = 0; ii < LANE_BATCH_SIZE; ii++) {
+                QueuedTask queued = lane.tasks.poll();
+                if (queued == null) {
+                    break;
+                }
+                capacity.release();
+                monitoringStore.addTaskDequeued(queued.queue, System.currentTimeMillis() - queued.queuedTime);
+                debug("process Task {0}", queued.task);
+                execute(taskExecutor, queued.task);
+            }
+        } finally {
+            // The lane must be released even if a task failed, otherwise its remaining tasks are never run.
+            release(lane);
+        }
+    }
+
+    /**
+     * Executes the task, reporting an unexpected failure to the task so that the rest of the lane can proceed.
+     */
+    private void execute(SimpleTaskExecutor taskExecutor, Task task) {
+        try {
+            taskExecutor.execute(null, task);
+        } catch (RuntimeException e) {
+            debug.error(CoreTokenConstants.DEBUG_ASYNC_HEADER + "Unexpected error processing Task " + task, e);
+            try {
+                task.processError(new DataLayerException("Unexpected error processing task", e));
+            } catch (RuntimeException processError) {
+                debug.error(CoreTokenConstants.DEBUG_ASYNC_HEADER + "Unable to report error to Task " + task,
+                        processError);
+            }
+        }
+    }
+
+    /**
+     * Reschedules the lane if it still has work, or else marks it as idle.
+     */
+    private void release(TaskLane lane) {
+        if (!lane.tasks.isEmpty()) {
+            schedule(lane);
+            return;
+        }
+        lane.scheduled.set(false);
+        // A task may have been added after the lane was drained but before it was marked as idle.
+        if (!lane.tasks.isEmpty() && lane.scheduled.compareAndSet(false, true)) {
+            schedule(lane);
+        }
+    }
+
+    private void debug(String format, Object... args) {
+        if (debug.messageEnabled()) {
+            debug.message(MessageFormat.format(CoreTokenConstants.DEBUG_ASYNC_HEADER + format, args));
+        }
+    }
+
+    Task wrap(Task task) {
+        return new SeriesTaskExecutor.AuditRequestContextPropagatingTask(task);
+    }
+
+    /**
+     * An immutable snapshot of the processors and the home processor of each lane.
+     */
+    private static final class Topology {
+        private final Processor[] processors;
+        private final int[] homes;
+
+        private Topology(Processor[] processors, int[] homes) {
+            this.processors = processors;
+            this.homes = homes;
+        }
+    }
+
+    /**
+     * An ordered queue of tasks. The scheduled flag is set whilst the lane is either waiting on a
+     * ready deque or being processed, which ensures only one processor works on it at a time.
+     */
+    private static final class TaskLane {
+        private final int index;
+        private final Queue<QueuedTask> tasks = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean scheduled = new AtomicBoolean(false);
+
+        private TaskLane(int index) {
+            this.index = index;
+        }
+    }
+
+    /**
+     * Bounds the number of queued tasks. The number of permits may be reduced below the number currently
+     * held, in which case released permits are absorbed until the new bound is reached.
+     */
+    private static final class Capacity extends Semaphore {
+
+        private Capacity(int permits) {
+            super(permits, true);
+        }
+
+        private void reduce(int reduction) {
+            reducePermits(reduction);
+        }
+    }
+
+    private static final class QueuedTask {
+        private final Task task;
+        private final int queue;
+        private final long queuedTime;
+
+        private QueuedTask(Task task, int queue, long queuedTime) {
+            this.task = task;
+            this.queue = queue;
+            this.queuedTime = queuedTime;
+        }
+    }
+
+    /**
+     * Processes ready lanes until interrupted or retired.
+     *
+     * Thread Policy: This runnable will respond to Thread interrupts and will exit cleanly in the event
+     * of an interrupt.
+     */
+    @VisibleForTesting
+    final class Processor implements Runnable {
+        private final int index;
+        private final SimpleTaskExecutor taskExecutor;
+        private final BlockingDeque<TaskLane> ready = new LinkedBlockingDeque<>();
+        private volatile boolean retired = false;
+
+        private Processor(int index, SimpleTaskExecutor taskExecutor) {
+            this.index = index;
+            this.taskExecutor = taskExecutor;
+        }
+
+        @Override
+        public void run() {
+            try {
+                taskExecutor.start();
+            } catch (DataLayerException e) {
+                throw new IllegalStateException("Cannot start task executor", e);
+            }
+
+            while (!retired && !Thread.currentThread().isInterrupted()) {
+                try {
+                    TaskLane lane = ready.pollFirst(STEAL_INTERVAL_MS, TimeUnit.MILLISECONDS);
+                    if (lane == null) {
+                        lane = steal(this);
+                    }
+                    if (lane != null) {
+                        process(lane, taskExecutor);
+                    }
+                } catch (InterruptedException e) {
+                    debug.error(CoreTokenConstants.DEBUG_ASYNC_HEADER + "Task Processor Error: interrupt detected",
+                            e);
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            if (retired) {
+                handOver();
+            }
+            debug("Processor {0} thread shutdown.", index);
+        }
+
+        private void retire() {
+            retired = true;
+        }
+
+        /**
+         * Moves any lanes left on this retired processor to their new home.
+         */
+        private void handOver() {
+            TaskLane lane;
+            while ((lane = ready.pollFirst()) != null) {
+                schedule(lane);
+            }
+        }
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.sm.datalayer.impl.ldap;
@@ -20,8 +21,10 @@ import java.text.MessageFormat;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
@@ -39,6 +42,7 @@ import org.forgerock.openam.sm.datalayer.api.DataLayerConstants;
 import org.forgerock.openam.sm.datalayer.api.DataLayerException;
 import org.forgerock.openam.sm.datalayer.api.DataLayerRuntimeException;
 import org.forgerock.openam.sm.datalayer.api.query.QueryBuilder;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.sm.datalayer.providers.LdapConnectionFactoryProvider;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.opendj.ldap.ByteString;
@@ -97,14 +101,7 @@ public class LdapQueryBuilder extends QueryBuilder<Connection, Filter> {
      * @return A non null but possibly empty collection.
      */
     public <T> Iterator<Collection<T>> executeRawResults(Connection connection, Class<T> returnType) {
-        if (String.class.equals(returnType) && requestedAttributes.length != 1) {
-            throw new IllegalArgumentException("String return type wanted but more than 1 attribute requested");
-        }
-        EntryConverter<T> entryConverter = (EntryConverter<T>) converterMap.get(returnType);
-        if (entryConverter == null) {
-            throw new IllegalArgumentException("Cannot convert LDAP Entry objects to " + returnType.getName());
-        }
-        return new EntryIterator<>(connection, entryConverter);
+        return new EntryIterator<>(connection, getConverter(returnType));
     }
 
     @Override
@@ -125,7 +122,51 @@ public class LdapQueryBuilder extends QueryBuilder<Connection, Filter> {
         return pSearch;
     }
 
+    /**
+     * Perform the query and return a cursor which requests each page of results as the previous one is consumed.
+     *
+     * @param connection The connection used to perform the requests.
+     * @return A non null cursor.
+     */
+    @Override
+    public <T> QueryCursor<T> executeRawCursor(Connection connection, Class<T> returnType) {
+        return new EntryCursor<>(connection, getConverter(returnType));
+    }
+
+    private <T> EntryConverter<T> getConverter(Class<T> returnType) {
+        if (String.class.equals(returnType) && requestedAttributes.length != 1) {
+            throw new IllegalArgumentException("String return type wanted but more than 1 attribute requested");
+        }
+        EntryConverter<T> entryConverter = (EntryConverter<T>) converterMap.get(returnType);
+        if (entryConverter == null) {
+            throw new IllegalArgumentException("Cannot convert LDAP Entry objects to " + returnType.getName());
+        }
+        return entryConverter;
+    }
+
     private Collection<Entry> getEntries(Connection connection) throws CoreTokenException {
+        Collection<Entry> entries = createResultsList();
+        ByteString cookie = getEntries(connection, sizeLimit, pageSize, pagingCookie, entries);
+        if (isPagingResults()) {
+            pagingCookie = cookie;
+        }
+        return entries;
+    }
+
+    /**
+     * Performs a single search request, which is a page of results if a page size is given.
+     *
+     * @param connection The connection used to perform the request.
+     * @param limit The size limit for the request, zero indicates no limit.
+     * @param pageSize The number of results to page by, zero indicates the results are not paged.
+     * @param cookie The paging cookie returned by the previous page, or an empty cookie for the first page.
+     * @param entries Non null, modifiable collection to populate with search results.
+     * @return The paging cookie for the next page, which is empty if this was the last page. Null if the results
+     * are not paged.
+     * @throws CoreTokenException If there was an error performing the search.
+     */
+    private ByteString getEntries(Connection connection, int limit, int pageSize, ByteString cookie,
+            Collection<Entry> entries) throws CoreTokenException {
         // Prepare the search
         Filter ldapFilter = getLDAPFilter();
         SearchRequest searchRequest = LDAPRequests.newSearchRequest(
@@ -133,18 +174,19 @@ public class LdapQueryBuilder extends QueryBuilder<Connection, Filter> {
                 SearchScope.WHOLE_SUBTREE,
                 ldapFilter,
                 getRequestedAttributes());
-        searchRequest.setSizeLimit(sizeLimit);
+        searchRequest.setSizeLimit(limit);
         searchRequest.setTimeLimit((int) timeLimit.to(TimeUnit.SECONDS));
 
-        if (isPagingResults()) {
-            searchRequest = searchRequest.addControl(SimplePagedResultsControl.newControl(true, pageSize, pagingCookie));
+        boolean paging = pageSize != 0;
+        if (paging) {
+            searchRequest = searchRequest.addControl(SimplePagedResultsControl.newControl(true, pageSize, cookie));
         }
 
         // Perform the search
-        Collection<Entry> entries = createResultsList();
         final Result result = handler.performSearch(connection, searchRequest, entries);
 
-        if (isPagingResults()) {
+        ByteString nextCookie = null;
+        if (paging) {
             try {
                 SimplePagedResultsControl control = result.getControl(
                         SimplePagedResultsControl.DECODER, new DecodeOptions());
@@ -153,9 +195,9 @@ public class LdapQueryBuilder extends QueryBuilder<Connection, Filter> {
                         debug.warning("There was no paged result control in the search response, it is recommended to "
                                 + "set the CTS user's size-limit at least to " + (pageSize + 1));
                     }
-                    pagingCookie = getEmptyPagingCookie();
+                    nextCookie = getEmptyPagingCookie();
                 } else {
-                    pagingCookie = control.getCookie();
+                    nextCookie = control.getCookie();
                 }
             } catch (DecodeException e) {
                 throw new CoreTokenException("Failed to decode Paging Cookie", e);
@@ -175,7 +217,7 @@ public class LdapQueryBuilder extends QueryBuilder<Connection, Filter> {
                     result));
         }
 
-        return entries;
+        return nextCookie;
     }
 
     /**
@@ -330,4 +372,96 @@ public class LdapQueryBuilder extends QueryBuilder<Connection, Filter> {
         }
     }
 
+
+    /**
+     * Cursor which requests a page of entries at a time. The page size requested from the server is reduced as the
+     * size limit is approached, so that no more entries are returned than the caller asked for.
+     */
+    private class EntryCursor<T> implements QueryCursor<T> {
+
+        private final Connection connection;
+        private final EntryConverter<T> converter;
+        private Iterator<Entry> page = Collections.emptyIterator();
+        private ByteString cookie = getEmptyPagingCookie();
+        private int remaining;
+        private boolean lastPage;
+
+        EntryCursor(Connection connection, EntryConverter<T> converter) {
+            this.connection = connection;
+            this.converter = converter;
+            this.remaining = sizeLimit == 0 ? Integer.MAX_VALUE : sizeLimit;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!page.hasNext() && !lastPage) {
+                nextPage();
+            }
+            return page.hasNext();
+        }
+
+        @Override
+        public T next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return converter.convert(page.next(), requestedAttributes);
+        }
+
+        private void nextPage() {
+            int limit = remaining == Integer.MAX_VALUE ? 0 : remaining;
+            int size = isPagingResults() ? Math.min(pageSize, remaining) : 0;
+            Collection<Entry> entries = size == 0 ? new ArrayList<Entry>() : new ArrayList<Entry>(size);
+            try {
+                cookie = getEntries(connection, limit, size, cookie, entries);
+            } catch (CoreTokenException e) {
+                lastPage = true;
+                throw new DataLayerRuntimeException("Could not get entries from connection", e);
+            }
+            remaining -= entries.size();
+            lastPage = cookie == null || cookie.length() == EMPTY.length() || remaining <= 0;
+            page = entries.iterator();
+
+            if (debug.messageEnabled()) {
+                debug.message(MessageFormat.format(
+                        CoreTokenConstants.DEBUG_HEADER + "Query: Cursor read page of {0}, last page: {1}",
+                        entries.size(),
+                        lastPage));
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        /**
+         * If the results have not been read to the end, the server is told to release the paged search by
+         * requesting a page of size zero with the current cookie.
+         */
+        @Override
+        public void close() {
+            page = Collections.emptyIterator();
+            if (lastPage) {
+                return;
+            }
+            lastPage = true;
+            if (cookie == null || cookie.length() == EMPTY.length()) {
+                return;
+            }
+            SearchRequest request = LDAPRequests.newSearchRequest(
+                    dataLayerConfiguration.getTokenStoreRootSuffix(),
+                    SearchScope.WHOLE_SUBTREE,
+                    getLDAPFilter(),
+                    getRequestedAttributes())
+                    .addControl(SimplePagedResultsControl.newControl(true, 0, cookie));
+            try {
+                handler.performSearch(connection, request, new ArrayList<Entry>(0));
+            } catch (CoreTokenException e) {
+                if (debug.warningEnabled()) {
+                    debug.warning("Failed to abandon paged search", e);
+                }
+            }
+        }
+    }
 }
@@ -0,0 +1,68 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.sm.datalayer.impl.tasks;
+
+import org.forgerock.openam.cts.api.filter.TokenFilter;
+import org.forgerock.openam.sm.datalayer.api.AbstractTask;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
+import org.forgerock.openam.sm.datalayer.api.ResultHandler;
+import org.forgerock.openam.sm.datalayer.api.TokenStorageAdapter;
+import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
+import org.forgerock.util.Reject;
+
+/**
+ * Starts a paged partial query against the persistence layer. The ResultHandler is passed a cursor from which the
+ * caller reads the matching PartialTokens page by page.
+ *
+ * @see PartialQueryTask
+ * @see PagedQueryTask
+ */
+public class PagedPartialQueryTask extends AbstractTask {
+    private final TokenFilter tokenFilter;
+    private final int pageSize;
+
+    /**
+     * @param tokenFilter Non null and must define at least one Return Attribute.
+     * @param pageSize Positive number of PartialTokens to retrieve in each page.
+     * @param handler Non null, required for asynchronous response.
+     */
+    public PagedPartialQueryTask(TokenFilter tokenFilter, int pageSize,
+            ResultHandler<QueryCursor<PartialToken>, ?> handler) {
+        super(handler);
+        this.tokenFilter = tokenFilter;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Starts the partial query against the persistence store using the TokenStorageAdapter.
+     *
+     * @param adapter Utility functions to perform the task with.
+     * @throws IllegalArgumentException If the TokenFilter did not define any return fields.
+     */
+    @Override
+    public void performTask(TokenStorageAdapter adapter) throws DataLayerException {
+        Reject.ifTrue(tokenFilter.getReturnFields().isEmpty());
+
+        handler.processResults(adapter.pagedPartialQuery(tokenFilter, pageSize));
+    }
+
+    @Override
+    public String toString() {
+        return "PagedPartialQueryTask: " + tokenFilter + " pages of " + pageSize;
+    }
+}
@@ -0,0 +1,71 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.sm.datalayer.impl.tasks;
+
+import java.text.MessageFormat;
+
+import org.forgerock.openam.cts.api.filter.TokenFilter;
+import org.forgerock.openam.cts.api.tokens.Token;
+import org.forgerock.openam.sm.datalayer.api.AbstractTask;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
+import org.forgerock.openam.sm.datalayer.api.ResultHandler;
+import org.forgerock.openam.sm.datalayer.api.TokenStorageAdapter;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
+import org.forgerock.util.Reject;
+
+/**
+ * Responsible for starting a paged query of the persistence layer for matching Tokens.
+ *
+ * The task only starts the query, the ResultHandler is passed a cursor from which the caller reads the results
+ * page by page on its own thread.
+ *
+ * @see QueryTask
+ * @see PagedPartialQueryTask
+ */
+public class PagedQueryTask extends AbstractTask {
+    private final TokenFilter tokenFilter;
+    private final int pageSize;
+
+    /**
+     * @param tokenFilter Non null and must not define any Return Attributes.
+     * @param pageSize Positive number of Tokens to retrieve in each page.
+     * @param handler Non null, required for asynchronous response.
+     */
+    public PagedQueryTask(TokenFilter tokenFilter, int pageSize, ResultHandler<QueryCursor<Token>, ?> handler) {
+        super(handler);
+        this.tokenFilter = tokenFilter;
+        this.pageSize = pageSize;
+    }
+
+    /**
+     * Start the query using the provided TokenStorageAdapter.
+     *
+     * @param adapter Utility functions to perform the task with.
+     * @throws DataLayerException If there was any error starting the query.
+     * @throws IllegalArgumentException If the TokenFilter provided defined any return fields.
+     */
+    @Override
+    public void performTask(TokenStorageAdapter adapter) throws DataLayerException {
+        Reject.ifFalse(tokenFilter.getReturnFields().isEmpty());
+        handler.processResults(adapter.pagedQuery(tokenFilter, pageSize));
+    }
+
+    @Override
+    public String toString() {
+        return MessageFormat.format("PagedQueryTask: {0} pages of {1}", tokenFilter, pageSize);
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.sm.datalayer.impl.tasks;
 
@@ -22,6 +23,7 @@ import org.forgerock.openam.cts.continuous.ContinuousQueryListener;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.sm.datalayer.api.Task;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.util.Options;
 
 /**
@@ -101,6 +103,31 @@ public class TaskFactory {
         return new PartialQueryTask(filter, handler);
     }
 
+    /**
+     * Used to signal a paged query against the persistence store.
+     *
+     * @param filter Non null. TokenFilter to use.
+     * @param pageSize Positive number of Tokens to retrieve in each page.
+     * @param handler Non null. ResultHandler to be notified of the cursor over the results.
+     * @return Non null Token paged query Task.
+     */
+    public Task pagedQuery(TokenFilter filter, int pageSize, ResultHandler<QueryCursor<Token>, ?> handler) {
+        return new PagedQueryTask(filter, pageSize, handler);
+    }
+
+    /**
+     * Used to signal an attribute based paged query against the persistence store.
+     *
+     * @param filter Non null. TokenFilter to use.
+     * @param pageSize Positive number of PartialTokens to retrieve in each page.
+     * @param handler Non null. ResultHandler to be notified of the cursor over the results.
+     * @return Non null PartialToken paged query Task.
+     */
+    public Task pagedPartialQuery(TokenFilter filter, int pageSize,
+            ResultHandler<QueryCursor<PartialToken>, ?> handler) {
+        return new PagedPartialQueryTask(filter, pageSize, handler);
+    }
+
     /**
      * Used to signal an attribute based continuous query against the persistence store.
      *
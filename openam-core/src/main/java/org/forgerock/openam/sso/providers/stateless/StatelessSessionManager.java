@@ -13,6 +13,7 @@
 *
 * Copyright 2015-2017 ForgeRock AS.
 * Portions Copyright 2023 Wren Security
+* Portions Copyright 2026 Wren Security.
 */
 
 package org.forgerock.openam.sso.providers.stateless;
@@ -127,9 +128,10 @@ public class StatelessSessionManager {
      */
     public SessionInfo getSessionInfo(SessionID sessionID) throws SessionException {
         String jwt = getJWTFromSessionID(sessionID, true);
-        if (cache.contains(jwt)) {
+        SessionInfo cachedSessionInfo = cache.getSessionInfo(jwt);
+        if (cachedSessionInfo != null) {
             debug.message("StatelessSessionFactory.getSessionInfo: JWT {} found in cache", jwt);
-            return cache.getSessionInfo(jwt);
+            return cachedSessionInfo;
         }
 
         SessionInfo sessionInfo;
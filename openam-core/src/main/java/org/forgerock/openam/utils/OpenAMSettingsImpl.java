@@ -12,12 +12,14 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.utils;
 
 import java.security.AccessController;
 import java.security.KeyPair;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
@@ -68,9 +70,9 @@ public class OpenAMSettingsImpl implements OpenAMSettings {
      * {@inheritDoc}
      */
     public Set<String> getSetting(String realm, String attributeName) throws SSOException, SMSException {
-        final ServiceConfig serviceConfig = getServiceConfig(realm);
-        final Map<String, Set<String>> attributes = serviceConfig.getAttributes();
-        return attributes.get(attributeName);
+        final Set<String> values = getServiceConfig(realm).getAttributesForRead().get(attributeName);
+        // callers may modify the returned set, so only the one attribute is copied
+        return values == null ? null : new HashSet<>(values);
     }
 
     public boolean hasConfig(String realm) throws SSOException, SMSException {
@@ -87,26 +89,21 @@ public class OpenAMSettingsImpl implements OpenAMSettings {
      * {@inheritDoc}
      */
     public String getStringSetting(String realm, String attributeName) throws SSOException, SMSException {
-        final Set<String> attribute = getSetting(realm, attributeName);
-        if (attribute == null || attribute.isEmpty()) {
-            return null;
-        }
-
-        return attribute.iterator().next();
+        return getServiceConfig(realm).getSnapshot().getString(attributeName);
     }
 
     /**
      * {@inheritDoc}
      */
     public Long getLongSetting(String realm, String attributeName) throws SSOException, SMSException {
-        return Long.decode(getStringSetting(realm, attributeName));
+        return getServiceConfig(realm).getSnapshot().getLong(attributeName);
     }
 
     /**
      * {@inheritDoc}
      */
     public Boolean getBooleanSetting(String realm, String attributeName) throws SSOException, SMSException {
-        return Boolean.valueOf(getStringSetting(realm, attributeName));
+        return getServiceConfig(realm).getSnapshot().getBoolean(attributeName);
     }
 
     /**
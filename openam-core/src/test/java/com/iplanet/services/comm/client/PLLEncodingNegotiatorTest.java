@@ -0,0 +1,139 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.iplanet.services.comm.share.PLLBinaryCodec;
+import com.iplanet.services.comm.share.Request;
+import com.iplanet.services.comm.share.RequestSet;
+import com.iplanet.services.comm.share.Response;
+import com.iplanet.services.comm.share.ResponseSet;
+
+public class PLLEncodingNegotiatorTest {
+
+    private URL url;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        url = new URL("http://openam.example.com:8080/openam/sessionservice");
+    }
+
+    @Test
+    public void shouldSendXmlUntilServerAnswersInCompactEncoding() throws Exception {
+        // Given
+        PLLEncodingNegotiator negotiator = new PLLEncodingNegotiator(true);
+
+        // When
+        boolean first = negotiator.isCompact(url);
+        negotiator.decode(url, PLLBinaryCodec.CONTENT_TYPE, PLLBinaryCodec.encode(responseSet()));
+
+        // Then
+        assertThat(first).isFalse();
+        assertThat(negotiator.isCompact(url)).isTrue();
+        assertThat(negotiator.getContentType(true)).isEqualTo(PLLBinaryCodec.CONTENT_TYPE);
+        assertThat(negotiator.getAccept()).startsWith(PLLBinaryCodec.CONTENT_TYPE);
+    }
+
+    @Test
+    public void shouldKeepSendingXmlToServerOfEarlierRelease() throws Exception {
+        // Given
+        PLLEncodingNegotiator negotiator = new PLLEncodingNegotiator(true);
+        byte[] xml = responseSet().toXMLString().getBytes(StandardCharsets.UTF_8);
+
+        // When
+        ResponseSet decoded = negotiator.decode(url, "text/xml;charset=UTF-8", xml);
+
+        // Then
+        assertThat(((Response) decoded.getResponses().get(0)).getContent()).isEqualTo("answer");
+        assertThat(negotiator.isCompact(url)).isFalse();
+        assertThat(new String(negotiator.encode(requestSet(), false), StandardCharsets.UTF_8))
+                .startsWith("<?xml");
+    }
+
+    @Test
+    public void shouldFallBackToXmlWhenCompactExchangeFails() throws Exception {
+        // Given
+        PLLEncodingNegotiator negotiator = new PLLEncodingNegotiator(true);
+        negotiator.decode(url, PLLBinaryCodec.CONTENT_TYPE, PLLBinaryCodec.encode(responseSet()));
+
+        // When
+        negotiator.failed(url);
+
+        // Then
+        assertThat(negotiator.isCompact(url)).isFalse();
+        assertThat(negotiator.getContentType(false)).isEqualTo(PLLEncodingNegotiator.XML_CONTENT_TYPE);
+    }
+
+    @Test
+    public void shouldTrackEachServerSeparately() throws Exception {
+        // Given
+        PLLEncodingNegotiator negotiator = new PLLEncodingNegotiator(true);
+        URL other = new URL("http://other.example.com:8080/openam/sessionservice");
+
+        // When
+        negotiator.decode(url, PLLBinaryCodec.CONTENT_TYPE, PLLBinaryCodec.encode(responseSet()));
+
+        // Then
+        assertThat(negotiator.isCompact(url)).isTrue();
+        assertThat(negotiator.isCompact(other)).isFalse();
+    }
+
+    @Test
+    public void shouldNeitherOfferNorSendCompactEncodingWhenDisabled() throws Exception {
+        // Given
+        PLLEncodingNegotiator negotiator = new PLLEncodingNegotiator(false);
+
+        // When
+        negotiator.decode(url, PLLBinaryCodec.CONTENT_TYPE, PLLBinaryCodec.encode(responseSet()));
+
+        // Then
+        assertThat(negotiator.getAccept()).isNull();
+        assertThat(negotiator.isCompact(url)).isFalse();
+    }
+
+    @Test
+    public void shouldEncodeCompactRequestSetForDecodingByServer() throws Exception {
+        // Given
+        PLLEncodingNegotiator negotiator = new PLLEncodingNegotiator(true);
+
+        // When
+        RequestSet decoded = PLLBinaryCodec.decodeRequestSet(negotiator.encode(requestSet(), true));
+
+        // Then
+        assertThat(decoded.getRequests().get(0).getContent()).isEqualTo("question");
+    }
+
+    private static RequestSet requestSet() {
+        RequestSet set = new RequestSet("session");
+        set.addRequest(new Request("question"));
+        return set;
+    }
+
+    private static ResponseSet responseSet() {
+        ResponseSet set = new ResponseSet("session");
+        set.setRequestSetID("1");
+        set.addResponse(new Response("answer"));
+        return set;
+    }
+}
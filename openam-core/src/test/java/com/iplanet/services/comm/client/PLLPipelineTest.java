@@ -0,0 +1,317 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.client;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Vector;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.iplanet.services.comm.share.Request;
+import com.iplanet.services.comm.share.RequestSet;
+import com.iplanet.services.comm.share.Response;
+
+public class PLLPipelineTest {
+
+    private URL url;
+    private ExecutorService executor;
+    private FakeExchanger exchanger;
+    private List<Thread> senders;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        url = new URL("http://openam.example.com:8080/openam/sessionservice");
+        senders = Collections.synchronizedList(new ArrayList<>());
+        executor = Executors.newCachedThreadPool(task -> {
+            Thread sender = new Thread(task);
+            senders.add(sender);
+            return sender;
+        });
+        exchanger = new FakeExchanger();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        exchanger.release();
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldSendRequestSetStraightAwayWhenIdle() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 1, 8, exchanger);
+        exchanger.release();
+        RequestSet set = requestSet("one");
+
+        // When
+        Vector responses = pipeline.send(set);
+
+        // Then
+        assertThat(exchanger.sets).containsExactly(set);
+        assertThat(contents(responses)).containsExactly("one");
+    }
+
+    @Test
+    public void shouldCombineRequestSetsQueuedWhileBusy() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 1, 8, exchanger);
+        Future<Vector> first = send(pipeline, requestSet("one"));
+        exchanger.awaitInFlight(1);
+        Future<Vector> second = send(pipeline, requestSet("two"));
+        Future<Vector> third = send(pipeline, requestSet("three", "four"));
+        awaitQueued(3);
+
+        // When
+        exchanger.release();
+
+        // Then
+        assertThat(contents(first.get(5, TimeUnit.SECONDS))).containsExactly("one");
+        assertThat(contents(second.get(5, TimeUnit.SECONDS))).containsExactly("two");
+        assertThat(contents(third.get(5, TimeUnit.SECONDS))).containsExactly("three", "four");
+        assertThat(exchanger.sets).hasSize(2);
+        assertThat(exchanger.sets.get(1).getServiceID()).isEqualTo("session");
+        assertThat(exchanger.sets.get(1).getRequests()).hasSize(3);
+    }
+
+    @Test
+    public void shouldNotExceedMaxBatchSize() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 1, 2, exchanger);
+        Future<Vector> first = send(pipeline, requestSet("one"));
+        exchanger.awaitInFlight(1);
+        List<Future<Vector>> queued = new ArrayList<>();
+        for (String content : new String[] {"two", "three", "four"}) {
+            queued.add(send(pipeline, requestSet(content)));
+        }
+        awaitQueued(4);
+
+        // When
+        exchanger.release();
+
+        // Then
+        first.get(5, TimeUnit.SECONDS);
+        for (Future<Vector> future : queued) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(exchanger.sets).hasSize(3);
+        for (RequestSet set : exchanger.sets) {
+            assertThat(set.getRequests().size()).isLessThanOrEqualTo(2);
+        }
+    }
+
+    @Test
+    public void shouldLimitExchangesInFlightToMaxConnections() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 2, 1, exchanger);
+        List<Future<Vector>> futures = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            futures.add(send(pipeline, requestSet("request" + i)));
+        }
+        exchanger.awaitInFlight(2);
+        awaitQueued(6);
+
+        // When
+        exchanger.release();
+
+        // Then
+        for (Future<Vector> future : futures) {
+            assertThat(future.get(5, TimeUnit.SECONDS)).hasSize(1);
+        }
+        assertThat(exchanger.maxInFlight.get()).isEqualTo(2);
+        assertThat(exchanger.sets).hasSize(6);
+    }
+
+    @Test
+    public void shouldFailEveryRequestSetOfFailedExchange() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 1, 8, exchanger);
+        Future<Vector> first = send(pipeline, requestSet("one"));
+        exchanger.awaitInFlight(1);
+        Future<Vector> second = send(pipeline, requestSet("two"));
+        Future<Vector> third = send(pipeline, requestSet("three"));
+        awaitQueued(3);
+        exchanger.failFrom(2);
+
+        // When
+        exchanger.release();
+
+        // Then
+        assertThat(contents(first.get(5, TimeUnit.SECONDS))).containsExactly("one");
+        assertThat(failure(second)).isInstanceOf(SendRequestException.class);
+        assertThat(failure(third)).isInstanceOf(SendRequestException.class);
+    }
+
+    @Test
+    public void shouldFailRequestSetsWhenResponseCountDiffers() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 1, 8, exchanger);
+        Future<Vector> first = send(pipeline, requestSet("one"));
+        exchanger.awaitInFlight(1);
+        Future<Vector> second = send(pipeline, requestSet("two"));
+        Future<Vector> third = send(pipeline, requestSet("three"));
+        awaitQueued(3);
+        exchanger.dropResponses = true;
+
+        // When
+        exchanger.release();
+
+        // Then
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(failure(second)).isInstanceOf(SendRequestException.class);
+        assertThat(failure(third)).isInstanceOf(SendRequestException.class);
+    }
+
+    @Test
+    public void shouldCarryOnAfterFailedExchange() throws Exception {
+        // Given
+        PLLPipeline pipeline = new PLLPipeline(url, "session", 1, 8, exchanger);
+        exchanger.release();
+        exchanger.failFrom(1);
+        Throwable failed = failure(send(pipeline, requestSet("one")));
+        exchanger.failFrom(Integer.MAX_VALUE);
+
+        // When
+        Vector responses = pipeline.send(requestSet("two"));
+
+        // Then
+        assertThat(failed).isInstanceOf(SendRequestException.class);
+        assertThat(contents(responses)).containsExactly("two");
+    }
+
+    private Future<Vector> send(PLLPipeline pipeline, RequestSet set) {
+        return executor.submit(() -> pipeline.send(set));
+    }
+
+    /**
+     * Waits until the given number of senders are blocked, either in an exchange or queued behind one.
+     */
+    private void awaitQueued(int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (blockedSenders() < count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+        assertThat(blockedSenders()).isEqualTo(count);
+    }
+
+    private int blockedSenders() {
+        int blocked = 0;
+        synchronized (senders) {
+            for (Thread sender : senders) {
+                Thread.State state = sender.getState();
+                if (state == Thread.State.WAITING || state == Thread.State.TIMED_WAITING) {
+                    blocked++;
+                }
+            }
+        }
+        return blocked;
+    }
+
+    private static Throwable failure(Future<Vector> future) throws Exception {
+        try {
+            future.get(5, TimeUnit.SECONDS);
+            return null;
+        } catch (ExecutionException e) {
+            return e.getCause();
+        }
+    }
+
+    private static RequestSet requestSet(String... contents) {
+        RequestSet set = new RequestSet("session");
+        for (String content : contents) {
+            set.addRequest(new Request(content));
+        }
+        return set;
+    }
+
+    private static List<String> contents(Vector responses) {
+        List<String> contents = new ArrayList<>();
+        for (Object response : responses) {
+            contents.add(((Response) response).getContent());
+        }
+        return contents;
+    }
+
+    /**
+     * Answers each Request with a Response of the same content, holding every exchange until released.
+     */
+    private static final class FakeExchanger implements PLLPipeline.Exchanger {
+
+        private final List<RequestSet> sets = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+        private final AtomicInteger exchanges = new AtomicInteger();
+        private volatile int failFrom = Integer.MAX_VALUE;
+        private volatile boolean dropResponses;
+
+        @Override
+        public Vector exchange(URL url, RequestSet set) throws SendRequestException {
+            int exchange = exchanges.incrementAndGet();
+            sets.add(set);
+            maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+            try {
+                released.await(5, TimeUnit.SECONDS);
+                if (exchange >= failFrom) {
+                    throw new SendRequestException("Exchange failed");
+                }
+                Vector responses = new Vector();
+                for (Request request : set.getRequests()) {
+                    responses.add(new Response(request.getContent()));
+                }
+                if (dropResponses && set.getRequests().size() > 1) {
+                    responses.remove(0);
+                }
+                return responses;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new SendRequestException("Interrupted");
+            } finally {
+                inFlight.decrementAndGet();
+            }
+        }
+
+        void release() {
+            released.countDown();
+        }
+
+        void failFrom(int exchange) {
+            failFrom = exchange;
+        }
+
+        void awaitInFlight(int count) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5000;
+            while (inFlight.get() < count && System.currentTimeMillis() < deadline) {
+                Thread.sleep(5);
+            }
+            assertThat(inFlight.get()).isEqualTo(count);
+        }
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.server;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import javax.servlet.ServletException;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.iplanet.services.comm.share.PLLBinaryCodec;
+import com.iplanet.services.comm.share.Request;
+import com.iplanet.services.comm.share.RequestSet;
+import com.iplanet.services.comm.share.Response;
+import com.iplanet.services.comm.share.ResponseSet;
+
+public class PLLRequestServletTest {
+
+    private HttpServletResponse response;
+    private ByteArrayOutputStream body;
+
+    @BeforeMethod
+    public void setUp() throws Exception {
+        response = mock(HttpServletResponse.class);
+        body = new ByteArrayOutputStream();
+        given(response.getOutputStream()).willReturn(new CapturingOutputStream(body));
+    }
+
+    @Test
+    public void shouldReadXmlRequestSet() throws Exception {
+        // Given
+        byte[] data = requestSet().toXMLString().getBytes(StandardCharsets.UTF_8);
+
+        // When
+        RequestSet set = PLLRequestServlet.readRequestSet(data, "text/xml;charset=UTF-8");
+
+        // Then
+        assertThat(set.getServiceID()).isEqualTo("session");
+        assertThat(set.getRequests().get(0).getContent()).isEqualTo("question");
+    }
+
+    @Test
+    public void shouldReadCompactRequestSet() throws Exception {
+        // Given
+        byte[] data = PLLBinaryCodec.encode(requestSet());
+
+        // When
+        RequestSet set = PLLRequestServlet.readRequestSet(data, PLLBinaryCodec.CONTENT_TYPE);
+
+        // Then
+        assertThat(set.getServiceID()).isEqualTo("session");
+        assertThat(set.getRequests().get(0).getContent()).isEqualTo("question");
+    }
+
+    @Test(expectedExceptions = ServletException.class)
+    public void shouldRejectInvalidCompactRequestSet() throws Exception {
+        // Given
+        byte[] data = requestSet().toXMLString().getBytes(StandardCharsets.UTF_8);
+
+        // When
+        PLLRequestServlet.readRequestSet(data, PLLBinaryCodec.CONTENT_TYPE);
+    }
+
+    @Test
+    public void shouldAnswerInCompactEncodingWhenAccepted() throws Exception {
+        // Given
+        String accept = PLLBinaryCodec.CONTENT_TYPE + ", text/xml";
+
+        // When
+        PLLRequestServlet.writeResponseSet(responseSet(), accept, response);
+
+        // Then
+        verify(response).setContentType(PLLBinaryCodec.CONTENT_TYPE);
+        verify(response).setContentLength(body.size());
+        ResponseSet decoded = PLLBinaryCodec.decodeResponseSet(body.toByteArray());
+        assertThat(((Response) decoded.getResponses().get(0)).getContent()).isEqualTo("answer");
+    }
+
+    @Test
+    public void shouldAnswerInXmlToClientOfEarlierRelease() throws Exception {
+        // When
+        PLLRequestServlet.writeResponseSet(responseSet(), null, response);
+
+        // Then
+        verify(response, never()).setContentType(PLLBinaryCodec.CONTENT_TYPE);
+        verify(response).setContentLength(body.size());
+        ResponseSet decoded = ResponseSet.parseXML(new String(body.toByteArray(), StandardCharsets.UTF_8));
+        assertThat(((Response) decoded.getResponses().get(0)).getContent()).isEqualTo("answer");
+    }
+
+    private static RequestSet requestSet() {
+        RequestSet set = new RequestSet("session");
+        set.addRequest(new Request("question"));
+        return set;
+    }
+
+    private static ResponseSet responseSet() {
+        ResponseSet set = new ResponseSet("session");
+        set.setRequestSetID("1");
+        set.addResponse(new Response("answer"));
+        return set;
+    }
+
+    private static final class CapturingOutputStream extends ServletOutputStream {
+
+        private final ByteArrayOutputStream out;
+
+        private CapturingOutputStream(ByteArrayOutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) {
+            out.write(b);
+        }
+
+        @Override
+        public boolean isReady() {
+            return true;
+        }
+
+        @Override
+        public void setWriteListener(WriteListener writeListener) {
+        }
+    }
+}
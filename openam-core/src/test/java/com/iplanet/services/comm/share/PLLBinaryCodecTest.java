@@ -0,0 +1,93 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.iplanet.services.comm.share;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+
+import org.testng.annotations.Test;
+
+public class PLLBinaryCodecTest {
+
+    @Test
+    public void shouldRoundTripRequestSet() throws Exception {
+        // Given
+        RequestSet set = new RequestSet("session");
+        Request first = new Request("<SessionRequest vers=\"1.0\">café</SessionRequest>");
+        first.setDtdID("dtd");
+        first.setSessionID("sid");
+        set.addRequest(first);
+        set.addRequest(new Request("second"));
+
+        // When
+        RequestSet decoded = PLLBinaryCodec.decodeRequestSet(PLLBinaryCodec.encode(set));
+
+        // Then
+        assertThat(decoded.getRequestSetVersion()).isEqualTo(set.getRequestSetVersion());
+        assertThat(decoded.getServiceID()).isEqualTo("session");
+        assertThat(decoded.getRequestSetID()).isEqualTo(set.getRequestSetID());
+        assertThat(decoded.getRequests()).hasSize(2);
+        assertThat(decoded.getRequests().get(0).getContent()).isEqualTo(first.getContent());
+        assertThat(decoded.getRequests().get(0).getDtdID()).isEqualTo("dtd");
+        assertThat(decoded.getRequests().get(0).getSessionID()).isEqualTo("sid");
+        assertThat(decoded.getRequests().get(1).getDtdID()).isNull();
+        assertThat(decoded.getRequests().get(1).getSessionID()).isNull();
+    }
+
+    @Test
+    public void shouldRoundTripResponseSet() throws Exception {
+        // Given
+        ResponseSet set = new ResponseSet("session");
+        set.setRequestSetID("42");
+        Response response = new Response("<SessionResponse/>");
+        response.setDtdID("dtd");
+        set.addResponse(response);
+
+        // When
+        ResponseSet decoded = PLLBinaryCodec.decodeResponseSet(PLLBinaryCodec.encode(set));
+
+        // Then
+        assertThat(decoded.getRequestSetID()).isEqualTo("42");
+        assertThat(decoded.getResponses()).hasSize(1);
+        Response decodedResponse = (Response) decoded.getResponses().get(0);
+        assertThat(decodedResponse.getContent()).isEqualTo("<SessionResponse/>");
+        assertThat(decodedResponse.getDtdID()).isEqualTo("dtd");
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldRejectResponseSetDecodedAsRequestSet() throws Exception {
+        // Given
+        byte[] data = PLLBinaryCodec.encode(new ResponseSet("session"));
+
+        // When
+        PLLBinaryCodec.decodeRequestSet(data);
+    }
+
+    @Test(expectedExceptions = IOException.class)
+    public void shouldRejectTruncatedData() throws Exception {
+        // Given
+        RequestSet set = new RequestSet("session");
+        set.addRequest(new Request("content"));
+        byte[] data = PLLBinaryCodec.encode(set);
+        byte[] truncated = new byte[data.length - 3];
+        System.arraycopy(data, 0, truncated, 0, truncated.length);
+
+        // When
+        PLLBinaryCodec.decodeRequestSet(truncated);
+    }
+}
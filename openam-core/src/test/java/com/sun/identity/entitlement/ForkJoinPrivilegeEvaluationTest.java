@@ -0,0 +1,147 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.entitlement;
+
+import static java.util.Collections.singletonList;
+import static org.fest.assertions.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ForkJoinPrivilegeEvaluationTest {
+
+    private ForkJoinPool pool;
+    private EntitlementCombiner combiner;
+
+    @BeforeMethod
+    public void setUp() {
+        pool = new ForkJoinPool(4);
+        combiner = mock(EntitlementCombiner.class);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void shouldCombineResultsOfEveryPolicy() throws Exception {
+        // Given
+        final AtomicInteger evaluations = new AtomicInteger();
+        ForkJoinPrivilegeEvaluation.PolicyEvaluation evaluation = new ForkJoinPrivilegeEvaluation.PolicyEvaluation() {
+            @Override
+            public List<Entitlement> evaluate(IPrivilege privilege) {
+                evaluations.incrementAndGet();
+                return singletonList(mock(Entitlement.class));
+            }
+        };
+
+        // When
+        ForkJoinPrivilegeEvaluation.evaluate(pool, policies(50), evaluation, combiner);
+
+        // Then
+        assertThat(evaluations.get()).isEqualTo(50);
+        verify(combiner, times(50)).add(anyList());
+    }
+
+    @Test
+    public void shouldStopCombiningOnceDecisionIsKnown() throws Exception {
+        // Given
+        given(combiner.isDone()).willReturn(true);
+        ForkJoinPrivilegeEvaluation.PolicyEvaluation evaluation = new ForkJoinPrivilegeEvaluation.PolicyEvaluation() {
+            @Override
+            public List<Entitlement> evaluate(IPrivilege privilege) {
+                return singletonList(mock(Entitlement.class));
+            }
+        };
+
+        // When
+        ForkJoinPrivilegeEvaluation.evaluate(pool, policies(50), evaluation, combiner);
+
+        // Then
+        verify(combiner, times(1)).add(anyList());
+    }
+
+    @Test(expectedExceptions = EntitlementException.class)
+    public void shouldPropagateEvaluationFailure() throws Exception {
+        // Given
+        final List<IPrivilege> policies = policies(50);
+        ForkJoinPrivilegeEvaluation.PolicyEvaluation evaluation = new ForkJoinPrivilegeEvaluation.PolicyEvaluation() {
+            @Override
+            public List<Entitlement> evaluate(IPrivilege privilege) throws EntitlementException {
+                if (privilege == policies.get(25)) {
+                    throw new EntitlementException(EntitlementException.UNSUPPORTED_OPERATION);
+                }
+                return null;
+            }
+        };
+
+        // When
+        ForkJoinPrivilegeEvaluation.evaluate(pool, policies, evaluation, combiner);
+    }
+
+    @Test
+    public void shouldFailAndRestoreInterruptWhenInterrupted() throws Exception {
+        // Given
+        final CountDownLatch release = new CountDownLatch(1);
+        ForkJoinPrivilegeEvaluation.PolicyEvaluation evaluation = new ForkJoinPrivilegeEvaluation.PolicyEvaluation() {
+            @Override
+            public List<Entitlement> evaluate(IPrivilege privilege) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return singletonList(mock(Entitlement.class));
+            }
+        };
+        Thread.currentThread().interrupt();
+
+        // When
+        EntitlementException failure = null;
+        try {
+            ForkJoinPrivilegeEvaluation.evaluate(pool, policies(50), evaluation, combiner);
+        } catch (EntitlementException e) {
+            failure = e;
+        } finally {
+            release.countDown();
+        }
+
+        // Then
+        assertThat(Thread.interrupted()).isTrue();
+        assertThat(failure).isNotNull();
+    }
+
+    private List<IPrivilege> policies(int count) {
+        List<IPrivilege> policies = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            policies.add(mock(IPrivilege.class));
+        }
+        return policies;
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.entitlement.opensso;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class ConcurrentCacheTest {
+
+    private ConcurrentCache<String, String> cache;
+
+    @BeforeMethod
+    public void setUp() {
+        cache = new ConcurrentCache<>("test", 4, 4, 8);
+    }
+
+    @Test
+    public void shouldReturnCachedValue() {
+        // Given
+        cache.put("one", "1");
+
+        // When
+        String value = cache.get("one");
+
+        // Then
+        assertThat(value).isEqualTo("1");
+        assertThat(cache.getName()).isEqualTo("test");
+    }
+
+    @Test
+    public void shouldNotGrowBeyondMaximumSize() {
+        // Given
+        for (int i = 0; i < 100; i++) {
+            cache.put("key" + i, "value" + i);
+        }
+
+        // When
+        int size = cache.size();
+
+        // Then
+        assertThat(size).isEqualTo(4);
+        assertThat(cache.get("key99")).isEqualTo("value99");
+    }
+
+    @Test
+    public void shouldEvictLeastRecentlyUsedEntryFromSample() throws Exception {
+        // Given
+        cache.put("a", "1");
+        cache.put("b", "2");
+        cache.put("c", "3");
+        cache.put("d", "4");
+        Thread.sleep(1);
+        cache.get("a");
+        cache.get("b");
+        cache.get("c");
+
+        // When
+        cache.put("e", "5");
+
+        // Then
+        assertThat(cache.containsKey("d")).isFalse();
+        assertThat(cache.keySet()).containsOnly("a", "b", "c", "e");
+    }
+
+    @Test
+    public void shouldRemoveEntryWhenComputeReturnsNull() {
+        // Given
+        cache.put("one", "1");
+
+        // When
+        String value = cache.compute("one", (k, v) -> null);
+
+        // Then
+        assertThat(value).isNull();
+        assertThat(cache.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldOnlyReplaceMatchingValue() {
+        // Given
+        cache.put("one", "1");
+
+        // When
+        boolean replacedStale = cache.replace("one", "2", "3");
+        boolean replaced = cache.replace("one", "1", "3");
+
+        // Then
+        assertThat(replacedStale).isFalse();
+        assertThat(replaced).isTrue();
+        assertThat(cache.get("one")).isEqualTo("3");
+    }
+
+    @Test(expectedExceptions = NullPointerException.class)
+    public void shouldRejectNullValues() {
+        cache.put("one", null);
+    }
+}
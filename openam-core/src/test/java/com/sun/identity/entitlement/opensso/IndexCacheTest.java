@@ -0,0 +1,70 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.entitlement.opensso;
+
+import static java.util.Collections.singleton;
+import static org.fest.assertions.Assertions.assertThat;
+
+import com.sun.identity.entitlement.ResourceSaveIndexes;
+import com.sun.identity.entitlement.ResourceSearchIndexes;
+import java.util.Set;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class IndexCacheTest {
+
+    private IndexCache indexCache;
+
+    @BeforeMethod
+    public void setUp() {
+        indexCache = new IndexCache(100);
+    }
+
+    @Test
+    public void shouldMatchCachedEntriesIgnoringCase() {
+        // Given
+        indexCache.cache(saveIndexes("://WWW.example.com", "/Path"), null, "dn=one");
+
+        // When
+        Set<String> results = indexCache.getMatchingEntries(searchIndexes("://www.example.com", "/path"), null, false);
+
+        // Then
+        assertThat(results).containsOnly("dn=one");
+    }
+
+    @Test
+    public void shouldOnlyClearEntryForGivenDn() {
+        // Given
+        indexCache.cache(saveIndexes("://www.example.com", "/Path"), null, "dn=one");
+        indexCache.cache(saveIndexes("://www.example.com", "/Path"), null, "dn=two");
+
+        // When
+        indexCache.clear(saveIndexes("://www.example.com", "/Path"), "dn=one");
+
+        // Then
+        Set<String> results = indexCache.getMatchingEntries(searchIndexes("://www.example.com", "/path"), null, false);
+        assertThat(results).containsOnly("dn=two");
+    }
+
+    private ResourceSaveIndexes saveIndexes(String host, String path) {
+        return new ResourceSaveIndexes(singleton(host), singleton(path), singleton(path));
+    }
+
+    private ResourceSearchIndexes searchIndexes(String host, String path) {
+        return new ResourceSearchIndexes(singleton(host), singleton(path), singleton(path));
+    }
+}
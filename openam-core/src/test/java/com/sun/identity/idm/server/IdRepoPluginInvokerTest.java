@@ -0,0 +1,236 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package com.sun.identity.idm.server;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.identity.idm.IdRepo;
+import com.sun.identity.idm.IdRepoException;
+import com.sun.identity.idm.IdRepoFatalException;
+import com.sun.identity.idm.server.IdRepoPluginInvoker.Outcome;
+
+public class IdRepoPluginInvokerTest {
+
+    private ExecutorService executor;
+    private IdRepo first;
+    private IdRepo second;
+    private IdRepo third;
+
+    @BeforeMethod
+    public void setUp() {
+        executor = Executors.newCachedThreadPool();
+        first = mock(IdRepo.class);
+        second = mock(IdRepo.class);
+        third = mock(IdRepo.class);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void shouldReturnOutcomesInPluginOrderWhenCalledConcurrently() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(true, 5000, 4, executor);
+        CountDownLatch firstCanFinish = new CountDownLatch(1);
+
+        // When
+        List<Outcome<IdRepo>> outcomes = invoker.invoke("test", asList(first, second), idRepo -> {
+            if (idRepo == first) {
+                await(firstCanFinish);
+            } else {
+                firstCanFinish.countDown();
+            }
+            return idRepo;
+        }, null);
+
+        // Then
+        assertThat(outcomes).hasSize(2);
+        assertThat(outcomes.get(0).get()).isSameAs(first);
+        assertThat(outcomes.get(1).get()).isSameAs(second);
+    }
+
+    @Test(expectedExceptions = IdRepoException.class)
+    public void shouldReportPluginThatDoesNotAnswerInTimeAsFailed() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(true, 100, 4, executor);
+        CountDownLatch never = new CountDownLatch(1);
+
+        // When
+        List<Outcome<Boolean>> outcomes = invoker.invoke("test", asList(first, second), idRepo -> {
+            if (idRepo == second) {
+                await(never);
+            }
+            return false;
+        }, null);
+
+        // Then
+        assertThat(outcomes).hasSize(2);
+        assertThat(outcomes.get(0).get()).isFalse();
+        assertThat(outcomes.get(1).getIdRepo()).isSameAs(second);
+        outcomes.get(1).get();
+    }
+
+    @Test
+    public void shouldNotWaitForLaterPluginsOnceAnswerIsDefinitive() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(true, 10000, 4, executor);
+        CountDownLatch never = new CountDownLatch(1);
+        long shortCircuits = IdRepoPluginInvoker.getShortCircuitCount();
+
+        // When
+        List<Outcome<Boolean>> outcomes = invoker.invoke("test", asList(first, second), idRepo -> {
+            if (idRepo == second) {
+                await(never);
+            }
+            return idRepo == first;
+        }, Boolean.TRUE::equals);
+
+        // Then
+        assertThat(outcomes).hasSize(1);
+        assertThat(outcomes.get(0).getIdRepo()).isSameAs(first);
+        assertThat(outcomes.get(0).get()).isTrue();
+        assertThat(IdRepoPluginInvoker.getShortCircuitCount()).isGreaterThan(shortCircuits);
+    }
+
+    @Test
+    public void shouldWaitForEarlierPluginsBeforeActingOnDefinitiveAnswer() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(true, 10000, 4, executor);
+        CountDownLatch secondAnswered = new CountDownLatch(1);
+
+        // When
+        List<Outcome<Boolean>> outcomes = invoker.invoke("test", asList(first, second, third), idRepo -> {
+            if (idRepo == first) {
+                await(secondAnswered);
+                return false;
+            } else if (idRepo == second) {
+                secondAnswered.countDown();
+                return true;
+            }
+            await(new CountDownLatch(1));
+            return false;
+        }, Boolean.TRUE::equals);
+
+        // Then
+        assertThat(outcomes).hasSize(2);
+        assertThat(outcomes.get(0).getIdRepo()).isSameAs(first);
+        assertThat(outcomes.get(0).get()).isFalse();
+        assertThat(outcomes.get(1).getIdRepo()).isSameAs(second);
+        assertThat(outcomes.get(1).get()).isTrue();
+    }
+
+    @Test
+    public void shouldPreferDefinitiveAnswerOfEarlierPlugin() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(true, 10000, 4, executor);
+        CountDownLatch secondAnswered = new CountDownLatch(1);
+
+        // When
+        List<Outcome<IdRepo>> outcomes = invoker.invoke("test", asList(first, second), idRepo -> {
+            if (idRepo == first) {
+                await(secondAnswered);
+            } else {
+                secondAnswered.countDown();
+            }
+            return idRepo;
+        }, idRepo -> true);
+
+        // Then
+        assertThat(outcomes).hasSize(1);
+        assertThat(outcomes.get(0).get()).isSameAs(first);
+    }
+
+    @Test
+    public void shouldStopCallingPluginsOnceAnswerIsDefinitiveWhenCalledSequentially() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(false, 0, 0, null);
+        AtomicInteger calls = new AtomicInteger();
+        long shortCircuits = IdRepoPluginInvoker.getShortCircuitCount();
+
+        // When
+        List<Outcome<Boolean>> outcomes = invoker.invoke("test", asList(first, second, third), idRepo -> {
+            calls.incrementAndGet();
+            return idRepo == second;
+        }, Boolean.TRUE::equals);
+
+        // Then
+        assertThat(calls.get()).isEqualTo(2);
+        assertThat(outcomes).hasSize(2);
+        assertThat(outcomes.get(1).get()).isTrue();
+        assertThat(IdRepoPluginInvoker.getShortCircuitCount()).isGreaterThan(shortCircuits);
+    }
+
+    @Test
+    public void shouldCarryOnCallingPluginsAfterNonFatalFailure() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(false, 0, 0, null);
+
+        // When
+        List<Outcome<Boolean>> outcomes = invoker.invoke("test", asList(first, second), idRepo -> {
+            if (idRepo == first) {
+                throw new IdRepoException("unavailable");
+            }
+            return true;
+        }, null);
+
+        // Then
+        assertThat(outcomes).hasSize(2);
+        assertThat(outcomes.get(1).get()).isTrue();
+    }
+
+    @Test(expectedExceptions = IdRepoFatalException.class)
+    public void shouldStopOnFatalFailure() throws Exception {
+        // Given
+        IdRepoPluginInvoker invoker = new IdRepoPluginInvoker(true, 10000, 4, executor);
+        CountDownLatch never = new CountDownLatch(1);
+
+        // When
+        List<Outcome<Boolean>> outcomes = invoker.invoke("test", asList(first, second), idRepo -> {
+            if (idRepo == second) {
+                await(never);
+                return true;
+            }
+            throw new IdRepoFatalException("fatal");
+        }, null);
+
+        // Then
+        assertThat(outcomes).hasSize(1);
+        outcomes.get(0).get();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
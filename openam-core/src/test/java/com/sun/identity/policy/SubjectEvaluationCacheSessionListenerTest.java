@@ -0,0 +1,94 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+
+import java.util.Collections;
+
+import org.forgerock.openam.session.SessionEventType;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import com.iplanet.am.util.SystemProperties;
+import com.iplanet.dpro.session.SessionID;
+import com.iplanet.dpro.session.service.InternalSession;
+import com.iplanet.dpro.session.service.InternalSessionEvent;
+
+public class SubjectEvaluationCacheSessionListenerTest {
+
+    private static final String SERVER = "ldap:389";
+    private static final String GROUP_DN = "cn=staff,dc=example,dc=com";
+
+    private final SessionID sessionId = new SessionID("session");
+    private final SessionID restrictedId = new SessionID("restricted");
+    private InternalSession session;
+    private SubjectEvaluationCacheSessionListener listener;
+
+    @BeforeMethod
+    public void setup() {
+        SystemProperties.initializeProperties(SubjectEvaluationCache.SUBJECT_EVAL_CACHE_MAX_SIZE, "100");
+        SubjectEvaluationCache.subjectEvaluationCache = SubjectEvaluationCache.createCache();
+        SubjectEvaluationCache.subjectEvalCacheTTL = 60000;
+        SubjectEvaluationCache.addEntry(sessionId.toString(), SERVER, GROUP_DN, true);
+        SubjectEvaluationCache.addEntry(restrictedId.toString(), SERVER, GROUP_DN, true);
+
+        session = mock(InternalSession.class);
+        given(session.getSessionID()).willReturn(sessionId);
+        given(session.getRestrictedTokens()).willReturn(Collections.singleton(restrictedId));
+        listener = new SubjectEvaluationCacheSessionListener();
+    }
+
+    @DataProvider
+    public Object[][] endEvents() {
+        return new Object[][] {
+                {SessionEventType.IDLE_TIMEOUT},
+                {SessionEventType.MAX_TIMEOUT},
+                {SessionEventType.LOGOUT},
+                {SessionEventType.DESTROY}
+        };
+    }
+
+    @Test(dataProvider = "endEvents")
+    public void shouldRemoveEntriesOfEndedSession(SessionEventType type) {
+        // Given
+        InternalSessionEvent event = new InternalSessionEvent(session, type, System.currentTimeMillis());
+
+        // When
+        listener.onEvent(event);
+
+        // Then
+        assertThat(SubjectEvaluationCache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldKeepEntriesOfLiveSession() {
+        // Given
+        InternalSessionEvent event = new InternalSessionEvent(session, SessionEventType.PROPERTY_CHANGED,
+                System.currentTimeMillis());
+
+        // When
+        listener.onEvent(event);
+
+        // Then
+        assertThat(SubjectEvaluationCache.isMember(sessionId.toString(), SERVER, GROUP_DN)).isTrue();
+        assertThat(SubjectEvaluationCache.getSize()).isEqualTo(2);
+    }
+}
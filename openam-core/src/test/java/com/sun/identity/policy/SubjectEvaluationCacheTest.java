@@ -0,0 +1,171 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.openam.utils.TimeTravelUtil;
+import org.forgerock.openam.utils.TimeTravelUtil.FastForwardTimeService;
+import org.forgerock.util.time.TimeService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.iplanet.am.util.SystemProperties;
+import com.sun.identity.entitlement.opensso.ConcurrentCache;
+
+public class SubjectEvaluationCacheTest {
+
+    private static final String TOKEN = "token";
+    private static final String SERVER = "ldap:389";
+    private static final String GROUP_DN = "cn=staff,dc=example,dc=com";
+    private static final String OTHER_GROUP_DN = "cn=admins,dc=example,dc=com";
+
+    @BeforeMethod
+    public void setup() {
+        TimeTravelUtil.setBackingTimeService(FastForwardTimeService.INSTANCE);
+        SystemProperties.initializeProperties(SubjectEvaluationCache.SUBJECT_EVAL_CACHE_MAX_SIZE, "3");
+        SubjectEvaluationCache.subjectEvaluationCache = SubjectEvaluationCache.createCache();
+        SubjectEvaluationCache.subjectEvalCacheTTL = 60000;
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        TimeTravelUtil.setBackingTimeService(TimeService.SYSTEM);
+    }
+
+    @Test
+    public void shouldReturnCachedMembership() {
+        // Given
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, true);
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, OTHER_GROUP_DN, false);
+        long hits = SubjectEvaluationCache.getHitCount();
+
+        // When
+        Boolean member = SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN);
+        Boolean otherMember = SubjectEvaluationCache.isMember(TOKEN, SERVER, OTHER_GROUP_DN);
+
+        // Then
+        assertThat(member).isTrue();
+        assertThat(otherMember).isFalse();
+        assertThat(SubjectEvaluationCache.getHitCount()).isEqualTo(hits + 2);
+        assertThat(SubjectEvaluationCache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCountMissForUnknownSubject() {
+        // Given
+        long misses = SubjectEvaluationCache.getMissCount();
+
+        // When
+        Boolean member = SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN);
+
+        // Then
+        assertThat(member).isNull();
+        assertThat(SubjectEvaluationCache.getMissCount()).isEqualTo(misses + 1);
+    }
+
+    @Test
+    public void shouldBoundNumberOfCachedTokens() {
+        // Given
+        for (int i = 0; i < 10; i++) {
+            SubjectEvaluationCache.addEntry(TOKEN + i, SERVER, GROUP_DN, true);
+        }
+
+        // When
+        int size = SubjectEvaluationCache.getSize();
+
+        // Then
+        assertThat(((ConcurrentCache<?, ?>) SubjectEvaluationCache.subjectEvaluationCache).getMaxSize()).isEqualTo(3);
+        assertThat(size).isEqualTo(3);
+        assertThat(SubjectEvaluationCache.isMember(TOKEN + 9, SERVER, GROUP_DN)).isTrue();
+    }
+
+    @Test
+    public void shouldDropTokenOnceItsOnlyEntryExpired() {
+        // Given
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, true);
+        FastForwardTimeService.INSTANCE.fastForward(61, TimeUnit.SECONDS);
+
+        // When
+        Boolean member = SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN);
+
+        // Then
+        assertThat(member).isNull();
+        assertThat(SubjectEvaluationCache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldKeepUnexpiredEntriesOfToken() {
+        // Given
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, true);
+        FastForwardTimeService.INSTANCE.fastForward(30, TimeUnit.SECONDS);
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, OTHER_GROUP_DN, true);
+        FastForwardTimeService.INSTANCE.fastForward(31, TimeUnit.SECONDS);
+
+        // When
+        Boolean expired = SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN);
+
+        // Then
+        assertThat(expired).isNull();
+        assertThat(SubjectEvaluationCache.getSize()).isEqualTo(1);
+        assertThat(SubjectEvaluationCache.isMember(TOKEN, SERVER, OTHER_GROUP_DN)).isTrue();
+    }
+
+    @Test
+    public void shouldCacheEntryAfterTokenWasEmptied() {
+        // Given
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, true);
+        FastForwardTimeService.INSTANCE.fastForward(61, TimeUnit.SECONDS);
+        SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN);
+
+        // When
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, false);
+
+        // Then
+        assertThat(SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN)).isFalse();
+    }
+
+    @Test
+    public void shouldRemoveEntriesOfToken() {
+        // Given
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, true);
+        SubjectEvaluationCache.addEntry("other", SERVER, GROUP_DN, true);
+
+        // When
+        SubjectEvaluationCache.removeEntries(TOKEN);
+
+        // Then
+        assertThat(SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN)).isNull();
+        assertThat(SubjectEvaluationCache.isMember("other", SERVER, GROUP_DN)).isTrue();
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        // Given
+        SubjectEvaluationCache.subjectEvalCacheTTL = 0;
+
+        // When
+        SubjectEvaluationCache.addEntry(TOKEN, SERVER, GROUP_DN, true);
+
+        // Then
+        assertThat(SubjectEvaluationCache.getSize()).isEqualTo(0);
+        assertThat(SubjectEvaluationCache.isMember(TOKEN, SERVER, GROUP_DN)).isNull();
+    }
+}
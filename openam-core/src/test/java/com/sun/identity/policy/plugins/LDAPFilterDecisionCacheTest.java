@@ -0,0 +1,258 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.policy.plugins;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.forgerock.openam.utils.TimeTravelUtil;
+import org.forgerock.openam.utils.TimeTravelUtil.FastForwardTimeService;
+import org.forgerock.util.time.TimeService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.iplanet.am.util.SystemProperties;
+
+public class LDAPFilterDecisionCacheTest {
+
+    private static final String SERVER = "[ldap:389]";
+    private static final String BASE_DN = "dc=example,dc=com";
+    private static final String USER_DN = "uid=demo,ou=people,dc=example,dc=com";
+    private static final String UNIVERSAL_ID = "id=demo,ou=user,dc=openam,dc=forgerock,dc=org";
+    private static final String OTHER_USER_DN = "uid=other,ou=people,dc=example,dc=com";
+    private static final String OTHER_UNIVERSAL_ID = "id=other,ou=user,dc=openam,dc=forgerock,dc=org";
+    private static final String FILTER = "(&(uid=demo)(mail=*))";
+    private static final String MEMBERSHIP_FILTER = "(&(uid=demo)(memberOf=cn=staff,dc=example,dc=com))";
+
+    private LDAPFilterDecisionCache.IdentityChangeListener listener;
+
+    @BeforeClass
+    public void setupClass() {
+        SystemProperties.initializeProperties(LDAPFilterDecisionCache.CACHE_TTL, "60000");
+    }
+
+    @BeforeMethod
+    public void setup() {
+        TimeTravelUtil.setBackingTimeService(FastForwardTimeService.INSTANCE);
+        LDAPFilterDecisionCache.clear();
+        listener = new LDAPFilterDecisionCache.IdentityChangeListener();
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        TimeTravelUtil.setBackingTimeService(TimeService.SYSTEM);
+    }
+
+    @Test
+    public void shouldAnswerRepeatedEvaluationFromCache() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        long hits = LDAPFilterDecisionCache.getHitCount();
+
+        // When
+        boolean satisfied = isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+
+        // Then
+        assertThat(satisfied).isTrue();
+        assertThat(search.count.get()).isEqualTo(1);
+        assertThat(LDAPFilterDecisionCache.getHitCount()).isEqualTo(hits + 1);
+        assertThat(LDAPFilterDecisionCache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheDecisionWithoutUniversalId() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        isSatisfied(USER_DN, null, FILTER, search);
+
+        // When
+        isSatisfied(USER_DN, null, FILTER, search);
+
+        // Then
+        assertThat(search.count.get()).isEqualTo(2);
+        assertThat(LDAPFilterDecisionCache.getSize()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldSearchAgainOnceDecisionExpired() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        FastForwardTimeService.INSTANCE.fastForward(61, TimeUnit.SECONDS);
+
+        // When
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+
+        // Then
+        assertThat(search.count.get()).isEqualTo(2);
+        assertThat(LDAPFilterDecisionCache.getSize()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldShareSearchInProgress() throws Exception {
+        // Given
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger searches = new AtomicInteger();
+        LDAPFilterDecisionCache.Search blockingSearch = () -> {
+            searches.incrementAndGet();
+            started.countDown();
+            release.await();
+            return true;
+        };
+        AtomicBoolean first = new AtomicBoolean();
+        AtomicBoolean second = new AtomicBoolean();
+        Thread firstThread = new Thread(() -> first.set(evaluate(blockingSearch)));
+        Thread secondThread = new Thread(() -> second.set(evaluate(blockingSearch)));
+
+        // When
+        firstThread.start();
+        assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+        secondThread.start();
+        awaitWaiting(secondThread);
+        release.countDown();
+        firstThread.join(10000);
+        secondThread.join(10000);
+
+        // Then
+        assertThat(first.get()).isTrue();
+        assertThat(second.get()).isTrue();
+        assertThat(searches.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotCacheDecisionWhenUserChangedDuringSearch() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        LDAPFilterDecisionCache.Search changingSearch = () -> {
+            listener.identityChanged(UNIVERSAL_ID);
+            return search.isSatisfied();
+        };
+
+        // When
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, changingSearch);
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+
+        // Then
+        assertThat(search.count.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldDropDecisionsOfChangedUserOnly() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        CountingSearch otherSearch = new CountingSearch(false);
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        isSatisfied(USER_DN, UNIVERSAL_ID, MEMBERSHIP_FILTER, search);
+        isSatisfied(OTHER_USER_DN, OTHER_UNIVERSAL_ID, FILTER, otherSearch);
+
+        // When
+        listener.identityChanged(UNIVERSAL_ID);
+
+        // Then
+        assertThat(LDAPFilterDecisionCache.getSize()).isEqualTo(1);
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        isSatisfied(OTHER_USER_DN, OTHER_UNIVERSAL_ID, FILTER, otherSearch);
+        assertThat(search.count.get()).isEqualTo(3);
+        assertThat(otherSearch.count.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldExpireOnlyMembershipDecisionsOnGroupChange() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        isSatisfied(USER_DN, UNIVERSAL_ID, MEMBERSHIP_FILTER, search);
+
+        // When
+        listener.identityChanged("id=staff,ou=group,dc=openam,dc=forgerock,dc=org");
+
+        // Then
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        assertThat(search.count.get()).isEqualTo(2);
+        isSatisfied(USER_DN, UNIVERSAL_ID, MEMBERSHIP_FILTER, search);
+        assertThat(search.count.get()).isEqualTo(3);
+    }
+
+    @Test
+    public void shouldIgnoreAgentChange() throws Exception {
+        // Given
+        CountingSearch search = new CountingSearch(true);
+        isSatisfied(USER_DN, UNIVERSAL_ID, MEMBERSHIP_FILTER, search);
+
+        // When
+        listener.identityChanged("id=web,ou=agent,dc=openam,dc=forgerock,dc=org");
+
+        // Then
+        isSatisfied(USER_DN, UNIVERSAL_ID, MEMBERSHIP_FILTER, search);
+        assertThat(search.count.get()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldClearCacheWhenAllIdentitiesChanged() throws Exception {
+        // Given
+        isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, new CountingSearch(true));
+
+        // When
+        listener.allIdentitiesChanged();
+
+        // Then
+        assertThat(LDAPFilterDecisionCache.getSize()).isEqualTo(0);
+    }
+
+    private static boolean isSatisfied(String userDN, String universalId, String filter,
+            LDAPFilterDecisionCache.Search search) throws Exception {
+        return LDAPFilterDecisionCache.isSatisfied(SERVER, BASE_DN, userDN, universalId, filter, search);
+    }
+
+    private static boolean evaluate(LDAPFilterDecisionCache.Search search) {
+        try {
+            return isSatisfied(USER_DN, UNIVERSAL_ID, FILTER, search);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void awaitWaiting(Thread thread) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (thread.getState() != Thread.State.WAITING && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+
+    private static final class CountingSearch implements LDAPFilterDecisionCache.Search {
+        private final AtomicInteger count = new AtomicInteger();
+        private final boolean satisfied;
+
+        private CountingSearch(boolean satisfied) {
+            this.satisfied = satisfied;
+        }
+
+        @Override
+        public boolean isSatisfied() {
+            count.incrementAndGet();
+            return satisfied;
+        }
+    }
+}
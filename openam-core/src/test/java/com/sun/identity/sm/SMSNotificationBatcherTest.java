@@ -0,0 +1,308 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.sm;
+
+import static com.sun.identity.sm.SMSObjectListener.ADD;
+import static com.sun.identity.sm.SMSObjectListener.DELETE;
+import static com.sun.identity.sm.SMSObjectListener.MODIFY;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.rmi.RemoteException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.identity.shared.jaxrpc.SOAPClient;
+import com.sun.identity.sm.SMSNotificationBatcher.PendingChange;
+
+public class SMSNotificationBatcherTest {
+
+    private static final long WINDOW = 250;
+
+    private List<Map<String, PendingChange>> sent;
+    private List<Runnable> scheduled;
+    private List<Long> delays;
+
+    @BeforeMethod
+    public void setUp() {
+        sent = new ArrayList<>();
+        scheduled = new ArrayList<>();
+        delays = new ArrayList<>();
+        SMSNotificationBatcher.clearSingleChangeServers();
+    }
+
+    @Test
+    public void shouldKeepAdditionWhenModifiedBeforeBeingSent() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(WINDOW, 10);
+
+        // When
+        batcher.add(change("ou=one", ADD), 0);
+        int coalesced = batcher.add(change("ou=one", MODIFY), 0);
+        batcher.flush();
+
+        // Then
+        assertThat(coalesced).isEqualTo(1);
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).get("ou=one").getType()).isEqualTo(ADD);
+    }
+
+    @Test
+    public void shouldTakeLatestChangeTypeOtherwise() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(WINDOW, 10);
+
+        // When
+        batcher.add(change("ou=one", ADD), 0);
+        batcher.add(change("ou=one", DELETE), 0);
+        batcher.add(change("ou=two", MODIFY), 0);
+        batcher.add(change("ou=two", DELETE), 0);
+        batcher.flush();
+
+        // Then
+        assertThat(sent.get(0).get("ou=one").getType()).isEqualTo(DELETE);
+        assertThat(sent.get(0).get("ou=two").getType()).isEqualTo(DELETE);
+    }
+
+    @Test
+    public void shouldKeepTimeFirstQueuedWhenCoalescing() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(WINDOW, 10);
+
+        // When
+        batcher.add(change("ou=one", MODIFY), 100);
+        batcher.add(change("ou=one", MODIFY), 200);
+        batcher.flush();
+
+        // Then
+        assertThat(sent.get(0).get("ou=one").getQueuedAt()).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldSendOnceWindowHasElapsed() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(WINDOW, 10);
+        batcher.add(change("ou=one", MODIFY), 0);
+        batcher.add(change("ou=two", MODIFY), 0);
+
+        // When
+        assertThat(sent).isEmpty();
+        scheduled.get(0).run();
+
+        // Then
+        assertThat(scheduled).hasSize(1);
+        assertThat(delays).containsExactly(WINDOW);
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0).keySet()).containsExactly("ou=one", "ou=two");
+    }
+
+    @Test
+    public void shouldScheduleAnotherFlushForChangesAfterASend() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(WINDOW, 10);
+        batcher.add(change("ou=one", MODIFY), 0);
+        scheduled.get(0).run();
+
+        // When
+        batcher.add(change("ou=two", MODIFY), 0);
+
+        // Then
+        assertThat(scheduled).hasSize(2);
+    }
+
+    @Test
+    public void shouldSendEarlyWhenMaxBatchSizeIsReached() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(WINDOW, 2);
+        batcher.add(change("ou=one", MODIFY), 0);
+
+        // When
+        batcher.add(change("ou=two", MODIFY), 0);
+
+        // Then
+        assertThat(sent).hasSize(1);
+        assertThat(sent.get(0)).hasSize(2);
+        scheduled.get(0).run();
+        assertThat(sent).hasSize(1);
+    }
+
+    @Test
+    public void shouldSendStraightAwayWithoutWindow() {
+        // Given
+        SMSNotificationBatcher batcher = batcher(0, 10);
+
+        // When
+        batcher.add(change("ou=one", ADD), 0);
+        batcher.add(change("ou=one", MODIFY), 0);
+
+        // Then
+        assertThat(scheduled).isEmpty();
+        assertThat(sent).hasSize(2);
+        assertThat(sent.get(1).get("ou=one").getType()).isEqualTo(MODIFY);
+    }
+
+    @Test
+    public void shouldSendBatchInOneCall() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+
+        // When
+        SMSNotificationBatcher.send(client, "http://server", changes());
+
+        // Then
+        verify(client).send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull());
+        verify(client, never()).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldSendChangesOneAtATimeWhenBatchIsRejected() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+        given(client.send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new Exception("No such operation"));
+
+        // When
+        SMSNotificationBatcher.send(client, "http://server", changes());
+
+        // Then
+        verify(client, times(2)).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldRememberServerThatRejectedBatch() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+        given(client.send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new Exception("No such operation"));
+        SMSNotificationBatcher.send(client, "http://server", changes());
+
+        // When
+        SMSNotificationBatcher.send(client, "http://server", changes());
+
+        // Then
+        verify(client).send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull());
+        verify(client, times(4)).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldStillBatchForOtherServers() throws Exception {
+        // Given
+        SOAPClient oldServer = mock(SOAPClient.class);
+        given(oldServer.send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new Exception("No such operation"));
+        SMSNotificationBatcher.send(oldServer, "http://old", changes());
+        SOAPClient client = mock(SOAPClient.class);
+
+        // When
+        SMSNotificationBatcher.send(client, "http://server", changes());
+
+        // Then
+        verify(client).send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull());
+        verify(client, never()).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldNotSendChangesOneAtATimeWhenServerIsUnreachable() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+        given(client.send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new RemoteException("no-server-found"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> SMSNotificationBatcher.send(client, "http://server", changes()));
+
+        // Then
+        assertThat(thrown).isInstanceOf(RemoteException.class);
+        verify(client, never()).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldNotSendChangesOneAtATimeWhenBatchFailsOnServer() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+        given(client.send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new SMSException("Unable to process"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> SMSNotificationBatcher.send(client, "http://server", changes()));
+
+        // Then
+        assertThat(thrown).isInstanceOf(SMSException.class);
+        verify(client, never()).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldStopSendingChangesOneAtATimeAfterFirstFailure() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+        given(client.send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new Exception("No such operation"));
+        given(client.send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull()))
+                .willThrow(new RemoteException("no-server-found"));
+
+        // When
+        Throwable thrown = catchThrowable(() -> SMSNotificationBatcher.send(client, "http://server", changes()));
+
+        // Then
+        assertThat(thrown).isInstanceOf(RemoteException.class);
+        verify(client).send(eq("notifyObjectChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    @Test
+    public void shouldSendSingleChangeWithoutBatch() throws Exception {
+        // Given
+        SOAPClient client = mock(SOAPClient.class);
+
+        // When
+        SMSNotificationBatcher.send(client, "http://server", change("ou=one", MODIFY));
+
+        // Then
+        verify(client).send("notifyObjectChanged", new Object[] {"ou=one", MODIFY}, null, null);
+        verify(client, never()).send(eq("notifyObjectsChanged"), any(Object[].class), isNull(), isNull());
+    }
+
+    private SMSNotificationBatcher batcher(long window, int maxBatchSize) {
+        return new SMSNotificationBatcher(window, maxBatchSize, sent::add, (task, delay) -> {
+            scheduled.add(task);
+            delays.add(delay);
+        });
+    }
+
+    private Map<String, Integer> change(String dn, int type) {
+        return Collections.singletonMap(dn, type);
+    }
+
+    private Map<String, Integer> changes() {
+        Map<String, Integer> changes = new LinkedHashMap<>();
+        changes.put("ou=one", MODIFY);
+        changes.put("ou=two", DELETE);
+        return changes;
+    }
+}
@@ -0,0 +1,100 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.sm;
+
+import static org.assertj.core.api.Assertions.*;
+import static org.forgerock.openam.utils.CollectionUtils.asSet;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import org.testng.annotations.Test;
+
+public class ServiceConfigSnapshotTest {
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void shouldNotAllowAttributesToBeModified() {
+        // Given
+        ServiceConfigSnapshot snapshot = new ServiceConfigSnapshot(1, attributes("enabled", "true"), attributes());
+
+        // When
+        snapshot.getAttributes().remove("enabled");
+
+        // Then - exception
+    }
+
+    @Test(expectedExceptions = UnsupportedOperationException.class)
+    public void shouldNotAllowAttributeValuesToBeModified() {
+        // Given
+        ServiceConfigSnapshot snapshot = new ServiceConfigSnapshot(1, attributes("enabled", "true"), attributes());
+
+        // When
+        snapshot.getAttributes().get("enabled").add("false");
+
+        // Then - exception
+    }
+
+    @Test
+    public void shouldParseTypedValues() {
+        // Given
+        ServiceConfigSnapshot snapshot = new ServiceConfigSnapshot(1,
+                attributes("enabled", "true", "lifetime", "3600"), attributes());
+
+        // When
+        boolean enabled = snapshot.getBoolean("enabled");
+        long lifetime = snapshot.getLong("lifetime");
+
+        // Then
+        assertThat(enabled).isTrue();
+        assertThat(lifetime).isEqualTo(3600L);
+        assertThat(snapshot.getString("missing")).isNull();
+        assertThat(snapshot.getBoolean("missing")).isFalse();
+    }
+
+    @Test
+    public void shouldBuildViewOncePerSnapshot() {
+        // Given
+        AtomicInteger builds = new AtomicInteger();
+        Function<ServiceConfigSnapshot, String> view = snapshot -> {
+            builds.incrementAndGet();
+            return snapshot.getString("name") + snapshot.getVersion();
+        };
+        ServiceConfigSnapshot first = new ServiceConfigSnapshot(1, attributes("name", "a"), attributes());
+        ServiceConfigSnapshot second = new ServiceConfigSnapshot(2, attributes("name", "b"), attributes());
+
+        // When
+        first.getView(view);
+        String firstView = first.getView(view);
+        String secondView = second.getView(view);
+
+        // Then
+        assertThat(firstView).isEqualTo("a1");
+        assertThat(secondView).isEqualTo("b2");
+        assertThat(builds.get()).isEqualTo(2);
+    }
+
+    private static Map<String, Set<String>> attributes(String... namesAndValues) {
+        Map<String, Set<String>> attributes = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            attributes.put(namesAndValues[i], asSet(namesAndValues[i + 1]));
+        }
+        return attributes;
+    }
+}
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
- * Portions Copyright 2021 Wren Security.
+ * Portions Copyright 2021-2026 Wren Security.
  */
 
 package org.forgerock.openam.blacklist;
@@ -20,24 +20,44 @@ package org.forgerock.openam.blacklist;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.BDDMockito.willThrow;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import com.iplanet.dpro.session.Session;
 import com.iplanet.dpro.session.service.SessionServiceConfig;
 import com.iplanet.services.naming.WebtopNamingQuery;
 import org.assertj.core.api.ThrowableAssert;
 import org.forgerock.openam.cts.CTSPersistentStore;
+import org.forgerock.openam.cts.api.filter.TokenFilter;
 import org.forgerock.openam.cts.api.tokens.Token;
+import org.forgerock.openam.cts.continuous.ChangeType;
+import org.forgerock.openam.cts.continuous.ContinuousQueryListener;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
+import org.forgerock.openam.cts.utils.LDAPDataConversion;
 import org.forgerock.openam.shared.concurrency.ThreadMonitor;
+import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.openam.tokens.TokenType;
+import org.forgerock.openam.utils.TimeUtils;
+import org.forgerock.opendj.ldap.Attribute;
+import org.forgerock.opendj.ldap.LinkedAttribute;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 import org.wrensecurity.wrenam.test.AbstractMockBasedTest;
@@ -165,4 +185,99 @@ public class CTSBlacklistTest extends AbstractMockBasedTest {
                 })
                 .isInstanceOf(BlacklistException.class);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void shouldRegisterContinuousQueryInsteadOfPollingWhenEnabled() throws Exception {
+        // Given
+        CTSBlacklist<Blacklistable> pushBlacklist = newContinuousQueryBlacklist();
+
+        // When
+        pushBlacklist.subscribe(mock(Blacklist.Listener.class));
+        pushBlacklist.subscribe(mock(Blacklist.Listener.class));
+
+        // Then
+        verify(mockCts).addContinuousQueryListener(any(ContinuousQueryListener.class), any(TokenFilter.class));
+        verify(mockThreadMonitor, never()).watchScheduledThread(any(ScheduledExecutorService.class),
+                any(Runnable.class), anyLong(), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldNotifyListenersOfEntriesAddedByContinuousQuery() throws Exception {
+        // Given
+        CTSBlacklist<Blacklistable> pushBlacklist = newContinuousQueryBlacklist();
+        Blacklist.Listener listener = mock(Blacklist.Listener.class);
+        pushBlacklist.subscribe(listener);
+        ContinuousQueryListener<Attribute> queryListener = captureQueryListener();
+
+        Map<String, Attribute> changeSet = new HashMap<>();
+        changeSet.put(CoreTokenField.TOKEN_ID.toString(), new LinkedAttribute(CoreTokenField.TOKEN_ID.toString(), SID));
+        changeSet.put(CoreTokenField.EXPIRY_DATE.toString(), new LinkedAttribute(
+                CoreTokenField.EXPIRY_DATE.toString(), new LDAPDataConversion().toLDAPDate(utc(1234000L))));
+
+        // When
+        queryListener.objectChanged("coreTokenId=" + SID, changeSet, ChangeType.ADD);
+
+        // Then
+        verify(listener).onBlacklisted(SID, 1234000L);
+    }
+
+    @Test
+    public void shouldCatchUpWhenContinuousQueryReconnects() throws Exception {
+        // Given
+        CTSBlacklist<Blacklistable> pushBlacklist = newContinuousQueryBlacklist();
+        willAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                invocation.<Runnable>getArgument(0).run();
+                return null;
+            }
+        }).given(mockScheduler).execute(any(Runnable.class));
+        Map<CoreTokenField, Object> entry = new HashMap<>();
+        entry.put(CoreTokenField.TOKEN_ID, SID);
+        entry.put(CoreTokenField.EXPIRY_DATE, utc(1234000L));
+        given(mockCts.attributeQuery(any(TokenFilter.class))).willReturn(Collections.<PartialToken>emptySet(),
+                Collections.singleton(new PartialToken(entry)));
+        Blacklist.Listener listener = mock(Blacklist.Listener.class);
+        pushBlacklist.subscribe(listener);
+        ContinuousQueryListener<Attribute> queryListener = captureQueryListener();
+
+        // When
+        queryListener.connectionLost();
+
+        // Then
+        verify(listener).onBlacklisted(SID, 1234000L);
+    }
+
+    @Test
+    public void shouldFallBackToPollingWhenContinuousQueryCannotBeRegistered() throws Exception {
+        // Given
+        CTSBlacklist<Blacklistable> pushBlacklist = newContinuousQueryBlacklist();
+        willThrow(new CoreTokenException("test")).given(mockCts)
+                .addContinuousQueryListener(any(ContinuousQueryListener.class), any(TokenFilter.class));
+
+        // When
+        pushBlacklist.subscribe(mock(Blacklist.Listener.class));
+
+        // Then
+        verify(mockThreadMonitor).watchScheduledThread(any(ScheduledExecutorService.class), any(Runnable.class),
+                anyLong(), anyLong(), any(TimeUnit.class));
+    }
+
+    private CTSBlacklist<Blacklistable> newContinuousQueryBlacklist() {
+        return new CTSBlacklist<>(mockCts, TokenType.SESSION_BLACKLIST, mockScheduler, mockThreadMonitor,
+                mockServerConfig, PURGE_DELAY, POLL_INTERVAL, true);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ContinuousQueryListener<Attribute> captureQueryListener() throws Exception {
+        ArgumentCaptor<ContinuousQueryListener> captor = ArgumentCaptor.forClass(ContinuousQueryListener.class);
+        verify(mockCts).addContinuousQueryListener(captor.capture(), any(TokenFilter.class));
+        return captor.getValue();
+    }
+
+    private static Calendar utc(long millis) {
+        Calendar calendar = Calendar.getInstance(TimeUtils.UTC);
+        calendar.setTimeInMillis(millis);
+        return calendar;
+    }
+}
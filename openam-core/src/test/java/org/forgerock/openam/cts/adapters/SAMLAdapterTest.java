@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.adapters;
 
@@ -95,7 +96,7 @@ public class SAMLAdapterTest {
         SAMLToken samlToken = new SAMLToken("primary", null, 12345, "");
 
         given(tokenIdFactory.toSAMLPrimaryTokenId(anyString())).willReturn("id");
-        given(serialisation.serialise(any())).willReturn("");
+        given(serialisation.serialiseToBytes(any())).willReturn(new byte[0]);
 
         // When
         Token token = adapter.toToken(samlToken);
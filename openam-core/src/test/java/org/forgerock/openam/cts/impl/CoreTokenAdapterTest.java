@@ -13,6 +13,7 @@
  *
  * Copyright 2013-2016 ForgeRock AS.
  * Portions Copyright 2021 Wren Security.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl;
 
@@ -33,6 +34,7 @@ import org.forgerock.openam.cts.utils.blob.TokenBlobStrategy;
 import org.forgerock.openam.cts.worker.CTSWorkerManager;
 import org.forgerock.openam.sm.datalayer.api.ResultHandler;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.openam.tokens.TokenType;
 import org.forgerock.opendj.ldap.LdapException;
@@ -136,6 +138,32 @@ public class CoreTokenAdapterTest {
         verify(mockTaskDispatcher).partialQuery(eq(filter), eq(mockResultHandler));
     }
 
+    @Test
+    public void shouldReverseBlobStrategyAsPagedQueryIsRead() throws Exception {
+        // Given
+        Token token = new Token("badger", TokenType.SESSION);
+        token.setBlob(new byte[] {1});
+        QueryCursor<Token> mockCursor = mock(QueryCursor.class);
+        given(mockCursor.next()).willReturn(token);
+
+        ResultHandler<QueryCursor<Token>, CoreTokenException> mockResultHandler = mock(ResultHandler.class);
+        given(mockResultHandler.getResults()).willReturn(mockCursor);
+        given(mockResultHandlerFactory.getPagedQueryHandler()).willReturn(mockResultHandler);
+        given(mockStrategy.reverse(eq(TokenType.SESSION), any(byte[].class))).willReturn(new byte[] {2});
+
+        TokenFilter filter = new TokenFilterBuilder().and().build();
+
+        // When
+        QueryCursor<Token> cursor = adapter.pagedQuery(filter, 10);
+
+        // Then
+        verify(mockTaskDispatcher).pagedQuery(eq(filter), eq(10), eq(mockResultHandler));
+        verifyNoInteractions(mockStrategy);
+        assertThat(cursor.next().getBlob()).containsOnly((byte) 2);
+        cursor.close();
+        verify(mockCursor).close();
+    }
+
     @Test
     public void shouldUseTaskQueueForUpdate() throws CoreTokenException {
         // Given
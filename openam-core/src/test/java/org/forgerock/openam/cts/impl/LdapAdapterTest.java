@@ -13,6 +13,7 @@
  *
  * Copyright 2013-2016 ForgeRock AS.
  * Portions Copyright 2021 Wren Security.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.impl;
@@ -43,6 +44,7 @@ import org.forgerock.openam.sm.datalayer.api.ConnectionFactory;
 import org.forgerock.openam.sm.datalayer.api.LdapOperationFailedException;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
 import org.forgerock.openam.sm.datalayer.api.query.QueryBuilder;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.sm.datalayer.impl.ldap.LdapDataLayerConfiguration;
 import org.forgerock.openam.sm.datalayer.impl.ldap.LdapQueryFactory;
 import org.forgerock.openam.sm.datalayer.impl.ldap.LdapQueryFilterVisitor;
@@ -600,6 +602,40 @@ public class LdapAdapterTest {
         assertThat(result).containsOnly(partialToken);
     }
 
+    @Test
+    public void shouldReleasePagedQueryConnectionWhenCursorIsExhausted() throws Exception {
+        // Given
+        final QueryBuilder<Connection, Filter> mockBuilder = mock(QueryBuilder.class);
+        given(mockBuilder.withFilter(any(Filter.class))).willReturn(mockBuilder);
+        given(mockBuilder.limitResultsTo(anyInt())).willReturn(mockBuilder);
+        given(mockBuilder.within(any(Duration.class))).willReturn(mockBuilder);
+        given(mockBuilder.pageResultsBy(anyInt())).willReturn(mockBuilder);
+        QueryCursor<Token> mockCursor = mock(QueryCursor.class);
+        given(mockCursor.hasNext()).willReturn(true, false);
+        given(mockCursor.next()).willReturn(new Token("weasel", TokenType.OAUTH));
+        given(mockBuilder.executeCursor(any(Connection.class))).willReturn(mockCursor);
+        given(mockQueryFactory.createInstance()).willReturn(mockBuilder);
+
+        // When
+        TokenFilter filter = new TokenFilterBuilder().withQuery(QueryFilter.<CoreTokenField>alwaysTrue()).build();
+        QueryCursor<Token> cursor = adapter.pagedQuery(filter, 50);
+
+        // Then
+        verify(mockBuilder).pageResultsBy(50);
+        assertThat(cursor.hasNext()).isTrue();
+        assertThat(cursor.next().getTokenId()).isEqualTo("weasel");
+        verify(mockConnection, never()).close();
+        assertThat(cursor.hasNext()).isFalse();
+        verify(mockCursor).close();
+        verify(mockConnection).close();
+    }
+
+    @Test (expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectNonPositivePageSize() throws Exception {
+        TokenFilter filter = new TokenFilterBuilder().withQuery(QueryFilter.<CoreTokenField>alwaysTrue()).build();
+        adapter.pagedQuery(filter, 0);
+    }
+
     private static Result mockSuccessfulResult() throws DecodeException {
         Result result = mock(Result.class);
         Entry entry = mock(Entry.class);
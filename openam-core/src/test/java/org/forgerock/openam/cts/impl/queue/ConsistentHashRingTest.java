@@ -0,0 +1,76 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.cts.impl.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.Test;
+
+public class ConsistentHashRingTest {
+
+    @Test
+    public void shouldBeConsistentWithKeys() {
+        ConsistentHashRing ring = new ConsistentHashRing(4);
+        assertThat(ring.select("badger")).isEqualTo(ring.select("badger"));
+        assertThat(new ConsistentHashRing(4).select("badger")).isEqualTo(ring.select("badger"));
+    }
+
+    @Test
+    public void shouldSelectNodeWithinRange() {
+        ConsistentHashRing ring = new ConsistentHashRing(3);
+        for (int ii = 0; ii < 1000; ii++) {
+            assertThat(ring.select(Integer.toString(ii))).isBetween(0, 2);
+        }
+    }
+
+    @Test
+    public void shouldOnlyMoveKeysToAddedNode() {
+        ConsistentHashRing before = new ConsistentHashRing(4);
+        ConsistentHashRing after = new ConsistentHashRing(5);
+        int moved = 0;
+        for (int ii = 0; ii < 10000; ii++) {
+            String key = Integer.toString(ii);
+            int previous = before.select(key);
+            int current = after.select(key);
+            if (previous != current) {
+                assertThat(current).isEqualTo(4);
+                moved++;
+            }
+        }
+        // Roughly one fifth of the keys should move to the new node
+        assertThat(moved).isBetween(1000, 3000);
+    }
+
+    @Test
+    public void shouldUseAllNodes() {
+        ConsistentHashRing ring = new ConsistentHashRing(8);
+        boolean[] used = new boolean[8];
+        for (int ii = 0; ii < 1000; ii++) {
+            used[ring.select("token" + ii)] = true;
+        }
+        assertThat(used).containsOnly(true);
+    }
+
+    @Test (expectedExceptions = IllegalArgumentException.class)
+    public void shouldEnforceNodesAsPositive() {
+        new ConsistentHashRing(0);
+    }
+
+    @Test (expectedExceptions = IllegalArgumentException.class)
+    public void shouldNotSupportNullKey() {
+        new ConsistentHashRing(2).select(null);
+    }
+}
@@ -12,11 +12,14 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.impl.queue;
 
 import static org.mockito.BDDMockito.*;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 
 import java.util.Collection;
 
@@ -29,6 +32,7 @@ import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
 import org.forgerock.openam.sm.datalayer.impl.SeriesTaskExecutor;
 import org.forgerock.openam.sm.datalayer.impl.tasks.TaskFactory;
 import org.forgerock.util.Options;
+import org.mockito.InOrder;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
@@ -41,12 +45,14 @@ public class TaskDispatcherTest {
     private Options options;
     private ResultHandler mockHandler;
     private SeriesTaskExecutor mockExecutor;
+    private UpdateCoalescer mockCoalescer;
 
     @BeforeMethod
     public void setup() {
         mockTaskFactory = mock(TaskFactory.class);
         mockExecutor = mock(SeriesTaskExecutor.class);
         mockHandler = mock(ResultHandler.class);
+        mockCoalescer = mock(UpdateCoalescer.class);
 
         mockToken = mock(Token.class);
         given(mockToken.getTokenId()).willReturn("badger");
@@ -54,7 +60,8 @@ public class TaskDispatcherTest {
 
         queue = new TaskDispatcher(
                 mockTaskFactory,
-                mockExecutor);
+                mockExecutor,
+                mockCoalescer);
     }
 
     @Test
@@ -164,6 +171,36 @@ public class TaskDispatcherTest {
         verify(mockExecutor).execute("123", task);
     }
 
+    @Test
+    public void shouldCoalesceUpdateWhenCoalescable() throws Exception {
+        // Given
+        Token token = mock(Token.class);
+        given(token.getTokenId()).willReturn("123");
+        given(mockCoalescer.isCoalescable(token, options)).willReturn(true);
+
+        // When
+        queue.update(token, options, mockHandler);
+
+        // Then
+        verify(mockCoalescer).update(token, options, mockHandler);
+        verifyNoInteractions(mockExecutor);
+    }
+
+    @Test
+    public void shouldFlushPendingUpdateBeforeDelete() throws Exception {
+        // Given
+        Task task = mock(Task.class);
+        given(mockTaskFactory.delete(eq("123"), any(Options.class), eq(mockHandler))).willReturn(task);
+
+        // When
+        queue.delete("123", mockHandler);
+
+        // Then
+        InOrder inOrder = inOrder(mockCoalescer, mockExecutor);
+        inOrder.verify(mockCoalescer).flush("123");
+        inOrder.verify(mockExecutor).execute("123", task);
+    }
+
     @Test
     public void shouldDelete() throws Exception {
         // Given
@@ -218,4 +255,23 @@ public class TaskDispatcherTest {
         verify(mockExecutor).execute(null, task);
     }
 
+    @Test
+    public void shouldPagedQuery() throws Exception {
+        // Given
+        TokenFilter filter = mock(TokenFilter.class);
+        Task task = mock(Task.class);
+        given(mockTaskFactory.pagedQuery(filter, 100, mockHandler)).willReturn(task);
+
+        // When
+        queue.pagedQuery(filter, 100, mockHandler);
+
+        // Then
+        verify(mockExecutor).execute(null, task);
+    }
+
+    @Test (expectedExceptions = IllegalArgumentException.class)
+    public void shouldRejectNonPositivePageSizeOnPagedQuery() throws Exception {
+        queue.pagedQuery(mock(TokenFilter.class), 0, mockHandler);
+    }
+
 }
\ No newline at end of file
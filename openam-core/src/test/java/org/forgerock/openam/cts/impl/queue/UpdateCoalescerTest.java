@@ -0,0 +1,310 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.cts.impl.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.forgerock.openam.cts.api.CTSOptions.OPTIMISTIC_CONCURRENCY_CHECK_OPTION;
+import static org.forgerock.openam.cts.api.CTSOptions.PRE_DELETE_READ_OPTION;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.openam.cts.api.tokens.Token;
+import org.forgerock.openam.cts.impl.queue.config.CTSCoalescingConfiguration;
+import org.forgerock.openam.cts.monitoring.CTSQueueMonitoringStore;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
+import org.forgerock.openam.sm.datalayer.api.ResultHandler;
+import org.forgerock.openam.sm.datalayer.api.Task;
+import org.forgerock.openam.sm.datalayer.api.TaskExecutor;
+import org.forgerock.openam.sm.datalayer.api.TokenStorageAdapter;
+import org.forgerock.openam.sm.datalayer.impl.tasks.TaskFactory;
+import org.forgerock.openam.tokens.CoreTokenField;
+import org.forgerock.openam.tokens.TokenType;
+import org.forgerock.util.Options;
+import org.forgerock.util.time.TimeService;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.identity.shared.debug.Debug;
+
+public class UpdateCoalescerTest {
+
+    private UpdateCoalescer coalescer;
+    private TaskFactory taskFactory;
+    private TaskExecutor taskExecutor;
+    private CTSCoalescingConfiguration configuration;
+    private CTSQueueMonitoringStore monitoringStore;
+    private ScheduledExecutorService scheduler;
+    private TimeService timeService;
+    private Options options;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        taskFactory = mock(TaskFactory.class);
+        taskExecutor = mock(TaskExecutor.class);
+        configuration = mock(CTSCoalescingConfiguration.class);
+        monitoringStore = mock(CTSQueueMonitoringStore.class);
+        scheduler = mock(ScheduledExecutorService.class);
+        timeService = mock(TimeService.class);
+        options = Options.defaultOptions();
+
+        given(configuration.isEnabled()).willReturn(true);
+        given(taskFactory.update(any(Token.class), any(Options.class), any(ResultHandler.class))).will(
+                new Answer<Task>() {
+                    @Override
+                    public Task answer(InvocationOnMock invocation) throws Throwable {
+                        final Token token = (Token) invocation.getArguments()[0];
+                        final ResultHandler<Token, ?> handler = (ResultHandler<Token, ?>) invocation.getArguments()[2];
+                        Task task = mock(Task.class);
+                        doAnswer(new Answer<Void>() {
+                            @Override
+                            public Void answer(InvocationOnMock invocation) throws Throwable {
+                                handler.processResults(token);
+                                return null;
+                            }
+                        }).when(task).execute(any(TokenStorageAdapter.class));
+                        return task;
+                    }
+                });
+
+        coalescer = new UpdateCoalescer(taskFactory, taskExecutor, configuration, monitoringStore, scheduler,
+                timeService, mock(Debug.class));
+    }
+
+    @Test
+    public void shouldNotCoalesceUpdatesWithEtagAssertion() {
+        Options etag = Options.defaultOptions().set(OPTIMISTIC_CONCURRENCY_CHECK_OPTION, "etag");
+        assertThat(coalescer.isCoalescable(token("badger"), etag)).isFalse();
+        assertThat(coalescer.isCoalescable(token("badger"), options)).isTrue();
+    }
+
+    @Test
+    public void shouldNotCoalesceWhenDisabled() {
+        given(configuration.isEnabled()).willReturn(false);
+        assertThat(coalescer.isCoalescable(token("badger"), options)).isFalse();
+    }
+
+    @Test
+    public void shouldQueueUpdateImmediatelyWithoutWindow() throws Exception {
+        // When
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // Then
+        verify(taskExecutor).execute(eq("badger"), any(Task.class));
+        verify(scheduler, never()).schedule(any(Runnable.class), anyLong(), any(TimeUnit.class));
+    }
+
+    @Test
+    public void shouldMergePendingUpdatesAndNotifyEveryHandler() throws Exception {
+        // Given
+        Token first = token("badger");
+        Token second = token("badger");
+        ResultHandler<Token, ?> firstHandler = mock(ResultHandler.class);
+        ResultHandler<Token, ?> secondHandler = mock(ResultHandler.class);
+
+        // When
+        coalescer.update(first, options, firstHandler);
+        coalescer.update(second, options, secondHandler);
+        queuedTask().execute(mock(TokenStorageAdapter.class));
+
+        // Then
+        verify(taskExecutor, times(1)).execute(eq("badger"), any(Task.class));
+        verify(taskFactory).update(eq(second), eq(options), any(ResultHandler.class));
+        verify(firstHandler).processResults(second);
+        verify(secondHandler).processResults(second);
+        verify(monitoringStore).addCoalescedUpdate();
+    }
+
+    @Test
+    public void shouldNotMergeIntoUpdateThatHasStartedProcessing() throws Exception {
+        // Given
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+        queuedTask().execute(mock(TokenStorageAdapter.class));
+
+        // When
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // Then
+        verify(taskExecutor, times(2)).execute(eq("badger"), any(Task.class));
+    }
+
+    @Test
+    public void shouldNotMergeIntoUpdateAfterFlush() throws Exception {
+        // Given
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // When
+        coalescer.flush("badger");
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // Then
+        verify(taskExecutor, times(2)).execute(eq("badger"), any(Task.class));
+    }
+
+    @Test
+    public void shouldHoldBackUpdateForWindow() throws Exception {
+        // Given
+        given(configuration.getWindow(TokenType.SESSION)).willReturn(50L);
+        given(configuration.getMaximumWait(TokenType.SESSION)).willReturn(200L);
+        given(timeService.now()).willReturn(1000L);
+
+        // When
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // Then
+        ArgumentCaptor<Runnable> flush = ArgumentCaptor.forClass(Runnable.class);
+        verify(scheduler).schedule(flush.capture(), eq(50L), eq(TimeUnit.MILLISECONDS));
+        verify(taskExecutor, never()).execute(any(String.class), any(Task.class));
+
+        given(timeService.now()).willReturn(1050L);
+        flush.getValue().run();
+        verify(taskExecutor).execute(eq("badger"), any(Task.class));
+    }
+
+    @Test
+    public void shouldQueueHeldBackUpdateWhenFlushed() throws Exception {
+        // Given
+        given(configuration.getWindow(TokenType.SESSION)).willReturn(50L);
+        given(configuration.getMaximumWait(TokenType.SESSION)).willReturn(200L);
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // When
+        coalescer.flush("badger");
+
+        // Then
+        verify(taskExecutor).execute(eq("badger"), any(Task.class));
+    }
+
+    @Test
+    public void shouldNotifyHandlersWhenQueueingFails() throws Exception {
+        // Given
+        given(configuration.getWindow(TokenType.SESSION)).willReturn(50L);
+        given(configuration.getMaximumWait(TokenType.SESSION)).willReturn(200L);
+        ResultHandler<Token, ?> handler = mock(ResultHandler.class);
+        DataLayerException error = new DataLayerException("full");
+        doThrow(error).when(taskExecutor).execute(eq("badger"), any(Task.class));
+        coalescer.update(token("badger"), options, handler);
+
+        // When
+        coalescer.flush("badger");
+
+        // Then
+        verify(handler).processError(error);
+    }
+
+    @Test
+    public void shouldNotifyMergedHandlersWhenQueueingWithoutWindowFails() throws Exception {
+        // Given
+        final ResultHandler<Token, ?> firstHandler = mock(ResultHandler.class);
+        final ResultHandler<Token, ?> mergedHandler = mock(ResultHandler.class);
+        final DataLayerException error = new DataLayerException("full");
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                coalescer.update(token("badger"), options, mergedHandler);
+                throw error;
+            }
+        }).when(taskExecutor).execute(eq("badger"), any(Task.class));
+
+        // When
+        DataLayerException thrown = null;
+        try {
+            coalescer.update(token("badger"), options, firstHandler);
+        } catch (DataLayerException e) {
+            thrown = e;
+        }
+
+        // Then
+        assertThat(thrown).isSameAs(error);
+        verify(mergedHandler).processError(error);
+        verify(firstHandler, never()).processError(any(Exception.class));
+    }
+
+    @Test
+    public void shouldPassLastResultToResultHandler() throws Exception {
+        // Given
+        Token token = token("badger");
+        coalescer.update(token, options, mock(ResultHandler.class));
+        queuedTask().execute(mock(TokenStorageAdapter.class));
+        ArgumentCaptor<ResultHandler> captor = ArgumentCaptor.forClass(ResultHandler.class);
+        verify(taskFactory).update(eq(token), eq(options), captor.capture());
+
+        // When
+        Object result = captor.getValue().getResults();
+
+        // Then
+        assertThat(result).isSameAs(token);
+    }
+
+    @Test
+    public void shouldNotMergeUpdatesWithDifferentOptions() throws Exception {
+        // Given
+        given(configuration.getWindow(TokenType.SESSION)).willReturn(50L);
+        given(configuration.getMaximumWait(TokenType.SESSION)).willReturn(200L);
+        Options preRead = Options.defaultOptions().set(PRE_DELETE_READ_OPTION,
+                new CoreTokenField[] {CoreTokenField.BLOB});
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // When
+        coalescer.update(token("badger"), preRead, mock(ResultHandler.class));
+
+        // Then
+        verify(taskExecutor, times(1)).execute(eq("badger"), any(Task.class));
+        verify(monitoringStore, never()).addCoalescedUpdate();
+    }
+
+    @Test
+    public void shouldMergeUpdatesWithEqualOptions() throws Exception {
+        // Given
+        given(configuration.getWindow(TokenType.SESSION)).willReturn(50L);
+        given(configuration.getMaximumWait(TokenType.SESSION)).willReturn(200L);
+        coalescer.update(token("badger"), options, mock(ResultHandler.class));
+
+        // When
+        coalescer.update(token("badger"), Options.defaultOptions(), mock(ResultHandler.class));
+
+        // Then
+        verify(taskExecutor, never()).execute(any(String.class), any(Task.class));
+        verify(monitoringStore).addCoalescedUpdate();
+    }
+
+    private Task queuedTask() throws Exception {
+        ArgumentCaptor<Task> captor = ArgumentCaptor.forClass(Task.class);
+        verify(taskExecutor, atLeastOnce()).execute(eq("badger"), captor.capture());
+        return captor.getValue();
+    }
+
+    private Token token(String tokenId) {
+        Token token = mock(Token.class);
+        given(token.getTokenId()).willReturn(tokenId);
+        given(token.getType()).willReturn(TokenType.SESSION);
+        return token;
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.monitoring;
@@ -23,6 +24,7 @@ import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.monitoring.impl.CTSMonitoringStoreImpl;
 import org.forgerock.openam.cts.monitoring.impl.connections.ConnectionStore;
 import org.forgerock.openam.cts.monitoring.impl.operations.TokenOperationsStore;
+import org.forgerock.openam.cts.monitoring.impl.queue.TaskQueueMonitor;
 import org.forgerock.openam.cts.monitoring.impl.reaper.ReaperMonitor;
 import org.mockito.ArgumentMatchers;
 import org.mockito.invocation.InvocationOnMock;
@@ -46,6 +48,7 @@ public class CTSMonitoringStoreImplTest {
     private TokenOperationsStore tokenOperationsStore;
     private ReaperMonitor reaperMonitor;
     private ConnectionStore connectionStore;
+    private TaskQueueMonitor taskQueueMonitor;
 
     @BeforeMethod
     public void setUp() {
@@ -55,12 +58,14 @@ public class CTSMonitoringStoreImplTest {
         final Debug debug = mock(Debug.class);
         reaperMonitor = mock(ReaperMonitor.class);
         connectionStore = mock(ConnectionStore.class);
+        taskQueueMonitor = mock(TaskQueueMonitor.class);
 
         ctsOperationsMonitoringStore = new CTSMonitoringStoreImpl(
                 executorService,
                 tokenOperationsStore,
                 reaperMonitor,
                 connectionStore,
+                taskQueueMonitor,
                 debug);
         ctsReaperMonitoringStore = (CTSReaperMonitoringStore) ctsOperationsMonitoringStore;
 
@@ -0,0 +1,76 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.cts.monitoring.impl.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TaskQueueMonitorTest {
+
+    private TaskQueueMonitor monitor;
+
+    @BeforeMethod
+    public void setUp() {
+        monitor = new TaskQueueMonitor();
+    }
+
+    @Test
+    public void shouldTrackQueueDepth() {
+        // When
+        monitor.queued(0);
+        monitor.queued(0);
+        monitor.queued(1);
+        monitor.dequeued(0, 5);
+
+        // Then
+        assertThat(monitor.getDepth(0)).isEqualTo(1);
+        assertThat(monitor.getDepth(1)).isEqualTo(1);
+        assertThat(monitor.getQueueCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldTrackAverageAndMaximumWaitTime() {
+        // When
+        monitor.queued(0);
+        monitor.queued(0);
+        monitor.dequeued(0, 10);
+        monitor.dequeued(0, 30);
+
+        // Then
+        assertThat(monitor.getAverageWaitTime(0)).isEqualTo(20D);
+        assertThat(monitor.getMaximumWaitTime(0)).isEqualTo(30);
+    }
+
+    @Test
+    public void shouldReturnZeroForUnknownQueue() {
+        assertThat(monitor.getDepth(3)).isEqualTo(0);
+        assertThat(monitor.getAverageWaitTime(3)).isEqualTo(0D);
+        assertThat(monitor.getMaximumWaitTime(3)).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCountCoalescedUpdates() {
+        // When
+        monitor.coalesced();
+        monitor.coalesced();
+
+        // Then
+        assertThat(monitor.getCoalescedCount()).isEqualTo(2);
+    }
+}
@@ -12,22 +12,29 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.cts.monitoring.impl.reaper;
 
+import org.forgerock.util.time.TimeService;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.mock;
 import static org.testng.Assert.assertEquals;
 
 public class ReaperMonitorTest {
 
     private ReaperMonitor reaperMonitor;
+    private TimeService timeService;
 
     @BeforeMethod
     public void setUp() {
-        reaperMonitor = new ReaperMonitor();
+        timeService = mock(TimeService.class);
+        given(timeService.now()).willReturn(100000L);
+        reaperMonitor = new ReaperMonitor(timeService);
     }
 
     @Test
@@ -73,4 +80,49 @@ public class ReaperMonitorTest {
         //Then
         assertEquals(result, 12.5D);
     }
+
+    @Test
+    public void shouldAverageDeletedTokensOverTheLastMinute() {
+
+        //Given
+        reaperMonitor.addBatch(60, 0);
+        given(timeService.now()).willReturn(101000L);
+        reaperMonitor.addBatch(120, 0);
+
+        //When
+        double result = reaperMonitor.getRateOfTokenDeletion();
+
+        //Then
+        assertEquals(result, 3D);
+    }
+
+    @Test
+    public void shouldForgetDeletedTokensOlderThanAMinute() {
+
+        //Given
+        reaperMonitor.addBatch(60, 0);
+        given(timeService.now()).willReturn(130000L);
+        reaperMonitor.addBatch(120, 0);
+        given(timeService.now()).willReturn(160000L);
+
+        //When
+        double result = reaperMonitor.getRateOfTokenDeletion();
+
+        //Then
+        assertEquals(result, 2D);
+    }
+
+    @Test
+    public void shouldReportLatestBacklog() {
+
+        //Given
+        reaperMonitor.addBatch(10, 500);
+        reaperMonitor.addBatch(10, 490);
+
+        //When
+        long result = reaperMonitor.getBacklog();
+
+        //Then
+        assertEquals(result, 490L);
+    }
 }
@@ -12,20 +12,19 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2014 ForgeRock AS.
- * Portions Copyright 2021 Wren Security.
+ * Portions Copyright 2021-2026 Wren Security.
  */
 package org.forgerock.openam.cts.utils.blob;
 
 import org.forgerock.openam.cts.CoreTokenConfig;
+import org.forgerock.openam.tokens.TokenType;
 import org.mockito.AdditionalAnswers;
-import org.mockito.ArgumentCaptor;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
 import java.util.Arrays;
 
 import static org.fest.assertions.Assertions.assertThat;
-import static org.fest.assertions.Fail.fail;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Mockito.*;
 
@@ -33,11 +32,13 @@ public class TokenBlobStrategyTest {
 
     private CoreTokenConfig config;
     private TokenStrategyFactory factory;
+    private TokenBlobStatistics statistics;
 
     @BeforeMethod
     public void setup() {
         config = mock(CoreTokenConfig.class);
         factory = mock(TokenStrategyFactory.class);
+        statistics = mock(TokenBlobStatistics.class);
     }
 
     @Test
@@ -52,7 +53,7 @@ public class TokenBlobStrategyTest {
 
         byte[] data = new byte[0];
 
-        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config);
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
 
         // When
         strategy.perform(data);
@@ -75,7 +76,7 @@ public class TokenBlobStrategyTest {
 
         byte[] data = new byte[0];
 
-        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config);
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
 
         // When
         strategy.reverse(data);
@@ -90,7 +91,7 @@ public class TokenBlobStrategyTest {
     public void shouldDoNothingWithNoStrategy() throws TokenStrategyFailedException {
         // Given
         byte[] data = new byte[0];
-        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config);
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
 
         // When
         byte[] result = strategy.perform(data);
@@ -103,23 +104,37 @@ public class TokenBlobStrategyTest {
     public void shouldNotModifyProvidedByteArray() throws TokenStrategyFailedException {
         // Given
         byte[] data = "badger".getBytes();
+        byte[] compressed = "ferret".getBytes();
 
         BlobStrategy first = mock(BlobStrategy.class);
-        ArgumentCaptor<byte[]> captor = ArgumentCaptor.forClass(byte[].class);
-        given(first.perform(captor.capture())).willReturn(data);
+        given(first.perform(data)).willReturn(compressed);
 
         given(factory.getStrategies(any(CoreTokenConfig.class))).willReturn(Arrays.asList(first));
-        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config);
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
 
         // When
-        strategy.perform(data);
+        byte[] result = strategy.perform(data);
+
+        // Then
+        assertThat(result).isSameAs(compressed);
+        assertThat(data).isEqualTo("badger".getBytes());
+    }
+
+    @Test
+    public void shouldRecordStatisticsAgainstTokenType() throws TokenStrategyFailedException {
+        // Given
+        byte[] data = "badger".getBytes();
+        BlobStrategy first = mock(BlobStrategy.class);
+        given(first.perform(data)).willReturn(new byte[2]);
+
+        given(factory.getStrategies(any(CoreTokenConfig.class))).willReturn(Arrays.asList(first));
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
+
+        // When
+        strategy.perform(TokenType.SESSION, data);
 
         // Then
-        Object dataRef = data;
-        Object captorRef = captor.getValue();
-        if (dataRef == captorRef) { // Verify the references are different (the contents will be the same)
-            fail();
-        }
+        verify(statistics).recordEncode(eq(TokenType.SESSION), eq(6), eq(2), anyLong());
     }
 
     @Test
@@ -129,7 +144,7 @@ public class TokenBlobStrategyTest {
         BlobStrategy first = mock(BlobStrategy.class);
 
         given(factory.getStrategies(any(CoreTokenConfig.class))).willReturn(Arrays.asList(first));
-        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config);
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
 
         assertThat(strategy.perform(data)).isNull();
         verify(first, times(0)).perform(any(byte[].class));
@@ -142,7 +157,7 @@ public class TokenBlobStrategyTest {
         BlobStrategy first = mock(BlobStrategy.class);
 
         given(factory.getStrategies(any(CoreTokenConfig.class))).willReturn(Arrays.asList(first));
-        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config);
+        TokenBlobStrategy strategy = new TokenBlobStrategy(factory, config, statistics);
 
         assertThat(strategy.perform(data)).isNull();
         verify(first, times(0)).reverse(any(byte[].class));
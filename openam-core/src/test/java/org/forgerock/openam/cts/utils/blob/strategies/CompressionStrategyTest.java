@@ -12,26 +12,36 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.utils.blob.strategies;
 
 import org.HdrHistogram.AbstractHistogram;
 import org.HdrHistogram.AtomicHistogram;
+import org.apache.commons.io.IOUtils;
 import org.forgerock.openam.cts.utils.blob.TokenStrategyFailedException;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.PrintStream;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Locale;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
 
 import static org.fest.assertions.Assertions.assertThat;
 import static org.forgerock.openam.utils.Time.*;
@@ -98,32 +108,134 @@ public class CompressionStrategyTest {
         assertThat(compression.reverse(compression.perform(data))).isEqualTo(data);
     }
 
+    @Test
+    public void shouldWriteStandardGZipWithGZipCodec() throws Exception {
+        // Given
+        byte[] compressed = compression.perform(data);
+
+        // When
+        ByteArrayOutputStream result = new ByteArrayOutputStream();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            IOUtils.copy(in, result);
+        }
+
+        // Then
+        assertThat(result.toByteArray()).isEqualTo(data);
+    }
+
+    @Test
+    public void shouldDecompressBlobsWrittenByGZipStream() throws Exception {
+        // Given
+        ByteArrayOutputStream bout = new ByteArrayOutputStream();
+        try (GZIPOutputStream out = new GZIPOutputStream(bout)) {
+            out.write(data);
+        }
+
+        // When
+        byte[] result = compression.reverse(bout.toByteArray());
+
+        // Then
+        assertThat(result).isEqualTo(data);
+    }
+
+    @Test
+    public void shouldDecompressContentsCompressedWithAnyCodec() throws TokenStrategyFailedException {
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            // Given
+            byte[] compressed = new CompressionStrategy(codec).perform(data);
+
+            // When
+            byte[] result = compression.reverse(compressed);
+
+            // Then
+            assertThat(compressed.length).isLessThan(data.length);
+            assertThat(result).isEqualTo(data);
+        }
+    }
+
+    @Test
+    public void shouldCompressEmptyContents() throws TokenStrategyFailedException {
+        for (CompressionCodec codec : CompressionCodec.values()) {
+            CompressionStrategy strategy = new CompressionStrategy(codec);
+            assertThat(strategy.reverse(strategy.perform(new byte[0]))).isEmpty();
+        }
+    }
+
+    @Test (expectedExceptions = TokenStrategyFailedException.class)
+    public void shouldRejectUnknownCodecVersion() throws TokenStrategyFailedException {
+        // Given
+        byte[] compressed = new CompressionStrategy(CompressionCodec.DEFLATE).perform(data);
+        compressed[1] = (byte) (CompressionCodec.TAG_VERSION + 1);
+
+        // When
+        compression.reverse(compressed);
+    }
+
+    @Test (expectedExceptions = TokenStrategyFailedException.class)
+    public void shouldRejectCorruptContents() throws TokenStrategyFailedException {
+        // Given
+        byte[] compressed = new CompressionStrategy(CompressionCodec.DEFLATE).perform(data);
+        compressed[compressed.length / 2] ^= 0x5a;
+        compressed[compressed.length / 2 + 1] ^= 0x5a;
+
+        // When
+        compression.reverse(compressed);
+    }
+
+    @Test
+    public void shouldKeepABoundedNumberOfDeflatersForReuse() throws Exception {
+        // Given
+        int threads = Runtime.getRuntime().availableProcessors() * 4;
+        CompressionStrategy strategy = new CompressionStrategy(CompressionCodec.DEFLATE);
+        CyclicBarrier barrier = new CyclicBarrier(threads);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<byte[]>> results = new ArrayList<>();
+
+        // When
+        try {
+            for (int i = 0; i < threads; i++) {
+                results.add(executor.submit(() -> {
+                    barrier.await();
+                    return strategy.reverse(strategy.perform(data));
+                }));
+            }
+            for (Future<byte[]> result : results) {
+                // Then
+                assertThat(result.get()).isEqualTo(data);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertThat(CompressionCodec.DEFLATE.compressors.getIdleCount())
+                .isGreaterThan(0)
+                .isLessThanOrEqualTo(Runtime.getRuntime().availableProcessors() * 2);
+    }
+
     @DataProvider
     public Object[][] numThreads() {
-        return new Object[][]{
-                { 1 },
-                { 2 },
-                { 5 },
-                { 10 },
-                { 25 },
-                { 50 },
-                { 100 }
-        };
+        int[] threads = { 1, 2, 5, 10, 25, 50, 100 };
+        CompressionCodec[] codecs = CompressionCodec.values();
+        Object[][] parameters = new Object[threads.length * codecs.length][];
+        for (int i = 0; i < parameters.length; i++) {
+            parameters[i] = new Object[] { codecs[i % codecs.length], threads[i / codecs.length] };
+        }
+        return parameters;
     }
 
     /**
-     * Tests performance of CompressionStrategy as a factor of the number of threads.
+     * Tests performance of CompressionStrategy as a factor of the codec and the number of threads.
      * Disabled by default to avoid slowing down the build.
      *
+     * @param codec the codec to compress with.
      * @param numThreads the number of threads to concurrently hammer the CompressionStrategy.
      */
     @Test(dataProvider = "numThreads", enabled = false)
-    public void testThroughPut(int numThreads) throws Exception {
+    public void testThroughPut(CompressionCodec codec, int numThreads) throws Exception {
         final int TOTAL_ROUNDS = 100000;
         final int roundsPerThread = TOTAL_ROUNDS / numThreads;
         // Given
         final Set<Throwable> errors = Collections.newSetFromMap(new ConcurrentHashMap<Throwable, Boolean>());
-        final MonitoredCompressionStrategy strategy = new MonitoredCompressionStrategy();
+        final MonitoredCompressionStrategy strategy = new MonitoredCompressionStrategy(codec);
         final Executor executor = Executors.newFixedThreadPool(numThreads);
 
         final byte[] dataToCompress = JSON_SAMPLE.getBytes(Charset.forName("UTF-8"));
@@ -144,6 +256,7 @@ public class CompressionStrategyTest {
 
         // Then
         assertThat(errors).isEmpty();
+        System.out.println(codec + ", " + numThreads + " threads:");
         strategy.printStats(System.out);
 
         // See http://hdrhistogram.github.io/HdrHistogram/plotFiles.html
@@ -215,6 +328,10 @@ public class CompressionStrategyTest {
         private final AtomicHistogram performSamples = new AtomicHistogram(10000, 5);
         private final AtomicHistogram reverseSamples = new AtomicHistogram(10000, 5);
 
+        MonitoredCompressionStrategy(CompressionCodec codec) {
+            super(codec);
+        }
+
         @Override
         public byte[] perform(final byte[] data) throws TokenStrategyFailedException {
             // Cannot use System.nanoTime() as it gives invalid results if thread gets scheduled to
@@ -13,24 +13,34 @@
  *
  * Copyright 2013-2016 ForgeRock AS.
  * Portions Copyright 2023 Wren Security
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.worker.process;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.BDDMockito.verify;
 import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.CALLS_REAL_METHODS;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.withSettings;
 
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
+import org.forgerock.openam.cts.CoreTokenConfig;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.cts.impl.query.worker.CTSWorkerQuery;
 import org.forgerock.openam.cts.worker.CTSWorkerFilter;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.testng.annotations.AfterMethod;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
@@ -39,6 +49,7 @@ public class CTSWorkerBaseProcessTest {
 
     private CTSWorkerQuery mockQuery;
     private CTSWorkerFilter mockFilter;
+    private CoreTokenConfig mockConfig;
     /** Mock the abstract methods of CTSWorkerBaseProcess to allow the core logic to be tested */
     private CTSWorkerBaseProcess mockProcess;
 
@@ -46,7 +57,9 @@ public class CTSWorkerBaseProcessTest {
     public void setUp() throws Exception {
         mockQuery = mock(CTSWorkerQuery.class);
         mockFilter = mock(CTSWorkerFilter.class);
-        mockProcess = spy(CTSWorkerBaseProcess.class);
+        mockConfig = mock(CoreTokenConfig.class);
+        mockProcess = mock(CTSWorkerBaseProcess.class,
+                withSettings().useConstructor(mockConfig).defaultAnswer(CALLS_REAL_METHODS));
     }
 
     @AfterMethod
@@ -102,6 +115,98 @@ public class CTSWorkerBaseProcessTest {
         verify(mockProcess, times(0)).handleBatch(anyCollection());
     }
 
+    @Test
+    public void shouldQueryNextPageBeforeAwaitingPreviousBatchWhenPipelined() throws Exception {
+        // Given
+        givenPipelined(10);
+        CountDownLatch one = mock(CountDownLatch.class);
+        CountDownLatch two = mock(CountDownLatch.class);
+        given(one.getCount()).willReturn(1L);
+        given(two.getCount()).willReturn(1L);
+
+        given(mockFilter.filter(anyCollection())).willAnswer(invocation -> invocation.getArgument(0));
+        given(mockQuery.nextPage())
+                .willReturn(Arrays.asList(partialToken(), partialToken()))
+                .willReturn(Arrays.asList(partialToken(), partialToken()))
+                .willReturn(null);
+        given(mockProcess.handleBatch(anyCollection())).willReturn(one).willReturn(two);
+
+        // When
+        mockProcess.handle(mockQuery, mockFilter);
+
+        // Then
+        InOrder inOrder = inOrder(mockProcess, mockQuery, one, two);
+        inOrder.verify(mockProcess).handleBatch(anyCollection());
+        inOrder.verify(mockQuery).nextPage();
+        inOrder.verify(mockProcess).handleBatch(anyCollection());
+        inOrder.verify(one).await();
+        inOrder.verify(two).await();
+    }
+
+    @Test
+    public void shouldHandleEachFilteredPageOnceWhenPipelined() throws Exception {
+        // Given
+        givenPipelined(10);
+        CountDownLatch one = mock(CountDownLatch.class);
+        CountDownLatch two = mock(CountDownLatch.class);
+        given(one.getCount()).willReturn(1L);
+        given(two.getCount()).willReturn(1L);
+
+        PartialToken a = partialToken();
+        PartialToken b = partialToken();
+        PartialToken c = partialToken();
+        given(mockFilter.filter(anyCollection())).willAnswer(invocation -> invocation.getArgument(0));
+        given(mockQuery.nextPage())
+                .willReturn(Arrays.asList(a, b))
+                .willReturn(Arrays.<PartialToken>asList())
+                .willReturn(Arrays.asList(c))
+                .willReturn(null);
+        given(mockProcess.handleBatch(anyCollection())).willReturn(one).willReturn(two);
+
+        // When
+        mockProcess.handle(mockQuery, mockFilter);
+
+        // Then
+        ArgumentCaptor<Collection> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(mockProcess, times(2)).handleBatch(captor.capture());
+        assertThat(captor.getAllValues().get(0)).containsExactly(a, b);
+        assertThat(captor.getAllValues().get(1)).containsExactly(c);
+    }
+
+    @Test
+    public void shouldAwaitInFlightBatchesWhenPipelineIsFull() throws Exception {
+        // Given
+        givenPipelined(2);
+        CountDownLatch one = mock(CountDownLatch.class);
+        CountDownLatch two = mock(CountDownLatch.class);
+        given(one.getCount()).willReturn(1L);
+        given(two.getCount()).willReturn(1L);
+
+        given(mockFilter.filter(anyCollection())).willAnswer(invocation -> invocation.getArgument(0));
+        given(mockQuery.nextPage())
+                .willReturn(Arrays.asList(partialToken(), partialToken()))
+                .willReturn(Arrays.asList(partialToken(), partialToken()))
+                .willReturn(null);
+        given(mockProcess.handleBatch(anyCollection())).willReturn(one).willReturn(two);
+
+        // When
+        mockProcess.handle(mockQuery, mockFilter);
+
+        // Then
+        InOrder inOrder = inOrder(mockProcess, one);
+        inOrder.verify(mockProcess).handleBatch(anyCollection());
+        inOrder.verify(one).await();
+        inOrder.verify(mockProcess).handleBatch(anyCollection());
+        verify(mockProcess, times(2)).handleBatchCompleted(anyInt(), anyLong());
+    }
+
+    private void givenPipelined(int maxInFlight) {
+        given(mockConfig.isWorkerPipelineEnabled()).willReturn(true);
+        given(mockConfig.getWorkerPipelineMaxInFlight()).willReturn(maxInFlight);
+        given(mockConfig.getWorkerPipelineTargetLatency(TimeUnit.NANOSECONDS))
+                .willReturn(TimeUnit.MINUTES.toNanos(1));
+    }
+
     private PartialToken partialToken() {
         return mock(PartialToken.class);
     }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.cts.worker.process;
 
@@ -25,6 +26,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.concurrent.CountDownLatch;
 
+import org.forgerock.openam.cts.CoreTokenConfig;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.cts.impl.query.worker.CTSWorkerQuery;
 import org.forgerock.openam.cts.monitoring.CTSReaperMonitoringStore;
@@ -51,7 +53,8 @@ public class CTSWorkerDeleteProcessTest {
         monitoringStore = mock(CTSReaperMonitoringStore.class);
         mockQuery = mock(CTSWorkerQuery.class);
 
-        process = new CTSWorkerDeleteProcess(mockTokenDeletion, monitoringStore, mock(Debug.class));
+        process = new CTSWorkerDeleteProcess(mockTokenDeletion, monitoringStore, mock(Debug.class),
+                mock(CoreTokenConfig.class));
     }
 
     @AfterMethod
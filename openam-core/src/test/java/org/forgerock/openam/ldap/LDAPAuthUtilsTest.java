@@ -0,0 +1,175 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.ldap;
+
+import static java.util.Collections.*;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.*;
+
+import java.lang.reflect.Method;
+
+import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.ConnectionFactory;
+import org.forgerock.opendj.ldap.LdapException;
+import org.forgerock.opendj.ldap.ResultCode;
+import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.requests.BindRequest;
+import org.forgerock.opendj.ldap.requests.SearchRequest;
+import org.forgerock.opendj.ldap.requests.SimpleBindRequest;
+import org.forgerock.opendj.ldap.responses.Responses;
+import org.forgerock.opendj.ldif.ConnectionEntryReader;
+import org.forgerock.util.promise.Promises;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.identity.shared.debug.Debug;
+
+public class LDAPAuthUtilsTest {
+
+    private static final String DEMO_DN = "uid=demo,ou=people,dc=example,dc=com";
+    private static final String MOVED_DEMO_DN = "uid=demo,ou=staff,dc=example,dc=com";
+
+    private ConnectionFactory bindPool;
+    private ConnectionFactory searchPool;
+    private Connection bindConnection;
+    private Connection searchConnection;
+    private String baseDN;
+
+    @BeforeMethod
+    public void setup(Method method) throws Exception {
+        bindPool = mock(ConnectionFactory.class);
+        searchPool = mock(ConnectionFactory.class);
+        bindConnection = mock(Connection.class);
+        searchConnection = mock(Connection.class);
+        given(bindPool.getConnectionAsync()).willReturn(Promises.newResultPromise(bindConnection));
+        given(bindPool.getConnection()).willReturn(bindConnection);
+        given(searchPool.getConnection()).willReturn(searchConnection);
+        // the user DN cache is shared, so each test searches its own base
+        baseDN = "ou=" + method.getName() + ",dc=example,dc=com";
+    }
+
+    @Test
+    public void shouldSearchAgainWhenCachedDNIsStale() throws Exception {
+        // Given
+        given(searchConnection.search(any(SearchRequest.class))).willReturn(results(DEMO_DN), results(MOVED_DEMO_DN));
+        given(bindConnection.bind(bindAs(DEMO_DN)))
+                .willReturn(Responses.newBindResult(ResultCode.SUCCESS))
+                .willThrow(LdapException.newLdapException(ResultCode.NO_SUCH_OBJECT));
+        given(bindConnection.bind(bindAs(MOVED_DEMO_DN))).willReturn(Responses.newBindResult(ResultCode.SUCCESS));
+        newAuthUtils("cn=Directory Manager").authenticateUser("demo", "password");
+        LDAPAuthUtils authUtils = newAuthUtils("cn=Directory Manager");
+
+        // When
+        authUtils.authenticateUser("demo", "password");
+
+        // Then
+        assertThat(authUtils.getState()).isEqualTo(ModuleState.SUCCESS);
+        assertThat(authUtils.getUserId()).isEqualTo(MOVED_DEMO_DN);
+        verify(searchConnection, times(2)).search(any(SearchRequest.class));
+        verify(bindConnection).bind(bindAs(MOVED_DEMO_DN));
+    }
+
+    @Test
+    public void shouldNotRetryWrongPasswordForCachedDN() throws Exception {
+        // Given
+        given(searchConnection.search(any(SearchRequest.class))).willReturn(results(DEMO_DN), results(DEMO_DN));
+        given(bindConnection.bind(any(BindRequest.class)))
+                .willReturn(Responses.newBindResult(ResultCode.SUCCESS))
+                .willThrow(LdapException.newLdapException(ResultCode.INVALID_CREDENTIALS));
+        newAuthUtils("cn=Directory Manager").authenticateUser("demo", "password");
+        LDAPAuthUtils authUtils = newAuthUtils("cn=Directory Manager");
+
+        // When
+        try {
+            authUtils.authenticateUser("demo", "wrong");
+            fail("The wrong password was accepted");
+        } catch (LDAPUtilException e) {
+            assertThat(e.getResultCode()).isEqualTo(ResultCode.INVALID_CREDENTIALS);
+        }
+
+        // Then
+        verify(searchConnection, times(2)).search(any(SearchRequest.class));
+        verify(bindConnection, times(2)).bind(any(BindRequest.class));
+    }
+
+    @Test
+    public void shouldNotShareCachedDNBetweenSearchIdentities() throws Exception {
+        // Given
+        given(searchConnection.search(any(SearchRequest.class))).willReturn(results(DEMO_DN), results(DEMO_DN));
+        given(bindConnection.bind(any(BindRequest.class))).willReturn(Responses.newBindResult(ResultCode.SUCCESS));
+        newAuthUtils("cn=Directory Manager").authenticateUser("demo", "password");
+        LDAPAuthUtils authUtils = newAuthUtils("uid=reader,dc=example,dc=com");
+
+        // When
+        authUtils.authenticateUser("demo", "password");
+
+        // Then
+        assertThat(authUtils.getState()).isEqualTo(ModuleState.SUCCESS);
+        verify(searchConnection, times(2)).search(any(SearchRequest.class));
+    }
+
+    @Test
+    public void shouldReleaseBindConnectionWhenUserIsNotFound() throws Exception {
+        // Given
+        given(searchConnection.search(any(SearchRequest.class))).willReturn(noResults());
+        LDAPAuthUtils authUtils = newAuthUtils("cn=Directory Manager");
+
+        // When
+        authUtils.authenticateUser("demo", "password");
+
+        // Then
+        assertThat(authUtils.getState()).isEqualTo(ModuleState.USER_NOT_FOUND);
+        verify(bindConnection, never()).bind(any(BindRequest.class));
+        verify(bindConnection).close();
+        verify(bindPool, never()).getConnection();
+    }
+
+    private LDAPAuthUtils newAuthUtils(String authDN) throws LDAPUtilException {
+        LDAPAuthUtils authUtils = new LDAPAuthUtils(singleton("ldap.example.com:389"), emptySet(), false, null,
+                baseDN, mock(Debug.class));
+        authUtils.setUserNamingAttribute("uid");
+        authUtils.setUserSearchAttribute(singleton("uid"));
+        authUtils.setScope(SearchScope.WHOLE_SUBTREE);
+        authUtils.setReturnUserDN("true");
+        authUtils.setAuthDN(authDN);
+        authUtils.setConnectionPools(bindPool, searchPool);
+        return authUtils;
+    }
+
+    private static ConnectionEntryReader results(String dn) throws Exception {
+        ConnectionEntryReader results = mock(ConnectionEntryReader.class);
+        given(results.hasNext()).willReturn(true, false);
+        given(results.isEntry()).willReturn(true);
+        given(results.readEntry()).willReturn(Responses.newSearchResultEntry("dn: " + dn, "uid: demo"));
+        return results;
+    }
+
+    private static ConnectionEntryReader noResults() throws Exception {
+        ConnectionEntryReader results = mock(ConnectionEntryReader.class);
+        given(results.hasNext()).willReturn(false);
+        return results;
+    }
+
+    private static BindRequest bindAs(final String dn) {
+        return argThat(request -> request instanceof SimpleBindRequest
+                && dn.equals(((SimpleBindRequest) request).getName()));
+    }
+}
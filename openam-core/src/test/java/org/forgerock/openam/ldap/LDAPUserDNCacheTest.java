@@ -0,0 +1,102 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.ldap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.concurrent.TimeUnit;
+
+import org.forgerock.openam.utils.TimeTravelUtil;
+import org.forgerock.openam.utils.TimeTravelUtil.FastForwardTimeService;
+import org.forgerock.util.time.TimeService;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class LDAPUserDNCacheTest {
+
+    private static final String KEY = "[ldap:389]|dc=example,dc=com|sub|uid|(uid=demo)";
+    private static final String DN = "uid=demo,ou=people,dc=example,dc=com";
+
+    @BeforeMethod
+    public void setup() {
+        TimeTravelUtil.setBackingTimeService(FastForwardTimeService.INSTANCE);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        TimeTravelUtil.setBackingTimeService(TimeService.SYSTEM);
+    }
+
+    @Test
+    public void shouldReturnCachedUser() {
+        // Given
+        LDAPUserDNCache cache = new LDAPUserDNCache(30000L, 10);
+        cache.put(KEY, DN, "demo");
+
+        // When
+        LDAPUserDNCache.CachedUser user = cache.get(KEY);
+
+        // Then
+        assertThat(user.getDN()).isEqualTo(DN);
+        assertThat(user.getNamingValue()).isEqualTo("demo");
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldExpireCachedUser() {
+        // Given
+        LDAPUserDNCache cache = new LDAPUserDNCache(30000L, 10);
+        cache.put(KEY, DN, "demo");
+        FastForwardTimeService.INSTANCE.fastForward(31, TimeUnit.SECONDS);
+
+        // When
+        LDAPUserDNCache.CachedUser user = cache.get(KEY);
+
+        // Then
+        assertThat(user).isNull();
+        assertThat(cache.getMissCount()).isEqualTo(1);
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldNotCacheWhenDisabled() {
+        // Given
+        LDAPUserDNCache cache = new LDAPUserDNCache(0L, 10);
+
+        // When
+        cache.put(KEY, DN, "demo");
+
+        // Then
+        assertThat(cache.get(KEY)).isNull();
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRemoveCachedUser() {
+        // Given
+        LDAPUserDNCache cache = new LDAPUserDNCache(30000L, 10);
+        cache.put(KEY, DN, "demo");
+
+        // When
+        cache.remove(KEY);
+
+        // Then
+        assertThat(cache.get(KEY)).isNull();
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.monitoring.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.identity.policy.SubjectEvaluationCache;
+import com.sun.management.snmp.agent.SnmpMib;
+
+public class PolicySubjectCacheImplTest {
+
+    private static final String SERVER = "ldap:389";
+    private static final String GROUP_DN = "cn=staff,dc=example,dc=com";
+
+    private PolicySubjectCacheImpl policySubjectCache;
+
+    @BeforeMethod
+    public void setup() {
+        SubjectEvaluationCache.subjectEvalCacheTTL = 60000;
+        SubjectEvaluationCache.subjectEvaluationCache.clear();
+        policySubjectCache = new PolicySubjectCacheImpl(mock(SnmpMib.class));
+    }
+
+    @Test
+    public void shouldReportCacheHitsMissesAndSize() throws Exception {
+        // Given
+        long hits = policySubjectCache.getSubjectCacheHits();
+        long misses = policySubjectCache.getSubjectCacheMisses();
+        SubjectEvaluationCache.addEntry("token", SERVER, GROUP_DN, true);
+
+        // When
+        SubjectEvaluationCache.isMember("token", SERVER, GROUP_DN);
+        SubjectEvaluationCache.isMember("other", SERVER, GROUP_DN);
+
+        // Then
+        assertThat(policySubjectCache.getSubjectCacheHits()).isEqualTo(hits + 1);
+        assertThat(policySubjectCache.getSubjectCacheMisses()).isEqualTo(misses + 1);
+        assertThat(policySubjectCache.getSubjectCacheSize()).isEqualTo(1L);
+    }
+}
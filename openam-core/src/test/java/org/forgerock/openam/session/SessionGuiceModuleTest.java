@@ -0,0 +1,54 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.session;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+import org.testng.annotations.Test;
+
+import com.iplanet.dpro.session.service.InternalSession;
+import com.iplanet.dpro.session.service.InternalSessionEvent;
+import com.iplanet.dpro.session.service.InternalSessionEventBroker;
+import com.iplanet.dpro.session.service.SessionAuditor;
+import com.iplanet.dpro.session.service.SessionLogging;
+import com.iplanet.dpro.session.service.SessionNotificationPublisher;
+import com.iplanet.dpro.session.service.SessionNotificationSender;
+import com.iplanet.dpro.session.service.SessionTimeoutHandlerExecutor;
+import com.sun.identity.policy.SubjectEvaluationCacheSessionListener;
+
+public class SessionGuiceModuleTest {
+
+    @Test
+    public void shouldPassSessionEventsToSubjectEvaluationCache() {
+        // Given
+        SubjectEvaluationCacheSessionListener subjectEvaluationCacheListener =
+                mock(SubjectEvaluationCacheSessionListener.class);
+        InternalSessionEventBroker broker = new SessionGuiceModule().getSessionEventBroker(
+                mock(SessionLogging.class), mock(SessionAuditor.class), mock(SessionNotificationSender.class),
+                mock(SessionNotificationPublisher.class), mock(SessionTimeoutHandlerExecutor.class),
+                subjectEvaluationCacheListener);
+        InternalSessionEvent event = new InternalSessionEvent(mock(InternalSession.class), SessionEventType.DESTROY,
+                System.currentTimeMillis());
+
+        // When
+        broker.onEvent(event);
+
+        // Then
+        verify(subjectEvaluationCacheListener).onEvent(event);
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.session.stateless.cache;
 
@@ -23,6 +24,7 @@ import static org.mockito.Mockito.mock;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.openam.session.stateless.StatelessConfig;
 import org.mockito.invocation.InvocationOnMock;
@@ -144,4 +146,123 @@ public class StatelessJWTCacheTest {
         // Then
         assertThat(cache.contains(mockSessionInfo)).isFalse();
     }
+
+    @Test
+    public void shouldNotContainSessionInfoOnceRemoved() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(10);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+        SessionInfo mockSessionInfo = sessionInfo("sid", 0L);
+        cache.cache(mockSessionInfo, "badger");
+
+        // When
+        cache.remove("badger");
+
+        // Then
+        assertThat(cache.contains(mockSessionInfo)).isFalse();
+    }
+
+    @Test
+    public void shouldContainCachedSessionInfo() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(10);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+        SessionInfo mockSessionInfo = sessionInfo("sid", 0L);
+
+        // When
+        cache.cache(mockSessionInfo, "badger");
+
+        // Then
+        assertThat(cache.contains(mockSessionInfo)).isTrue();
+        assertThat(cache.contains(sessionInfo("other", 0L))).isFalse();
+    }
+
+    @Test
+    public void shouldNotReturnSessionInfoWhichHasExpired() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(10);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+        SessionInfo mockSessionInfo = sessionInfo("sid", System.currentTimeMillis() - 1000L);
+        cache.cache(mockSessionInfo, "badger");
+
+        // When
+        SessionInfo result = cache.getSessionInfo("badger");
+
+        // Then
+        assertThat(result).isNull();
+        assertThat(cache.contains(mockSessionInfo)).isFalse();
+        assertThat(cache.getEvictionCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldCountHitsAndMisses() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(10);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+        cache.cache(sessionInfo("sid", System.currentTimeMillis() + 60000L), "badger");
+
+        // When
+        cache.getSessionInfo("badger");
+        cache.getSessionInfo("badger");
+        cache.getSessionInfo("weasel");
+
+        // Then
+        assertThat(cache.getHitCount()).isEqualTo(2L);
+        assertThat(cache.getMissCount()).isEqualTo(1L);
+    }
+
+    @Test
+    public void shouldCountEvictionsDueToSize() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(1);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+
+        // When
+        cache.cache(sessionInfo("one", 0L), "badger");
+        cache.cache(sessionInfo("two", 0L), "weasel");
+
+        // Then
+        assertThat(cache.contains("badger")).isFalse();
+        assertThat(cache.getEvictionCount()).isEqualTo(1L);
+        assertThat(cache.getIndexedSessionCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldNotIndexJWTEvictedOnInsertion() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(0);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+        SessionInfo mockSessionInfo = sessionInfo("sid", 0L);
+
+        // When
+        cache.cache(mockSessionInfo, "badger");
+
+        // Then
+        assertThat(cache.contains(mockSessionInfo)).isFalse();
+        assertThat(cache.getIndexedSessionCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldKeepIndexWhenJWTIsCachedAgain() {
+        // Given
+        given(mockConfig.getJWTCacheSize()).willReturn(10);
+        cache = new StatelessJWTCache(mockConfig, mockListeners);
+        SessionInfo mockSessionInfo = sessionInfo("sid", 0L);
+        cache.cache(mockSessionInfo, "badger");
+
+        // When
+        cache.cache(mockSessionInfo, "badger");
+
+        // Then
+        assertThat(cache.contains(mockSessionInfo)).isTrue();
+        cache.remove("badger");
+        assertThat(cache.getIndexedSessionCount()).isEqualTo(0);
+    }
+
+    private SessionInfo sessionInfo(String sessionId, long expiryTimeMillis) {
+        SessionInfo info = mock(SessionInfo.class);
+        given(info.getSessionID()).willReturn(sessionId);
+        given(info.getExpiryTime(TimeUnit.MILLISECONDS)).willReturn(expiryTimeMillis);
+        return info;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,292 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.sm.datalayer.impl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.inject.Provider;
+
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
+import org.forgerock.openam.cts.impl.queue.config.CTSQueueConfiguration;
+import org.forgerock.openam.cts.monitoring.CTSQueueMonitoringStore;
+import org.forgerock.openam.shared.concurrency.ThreadMonitor;
+import org.forgerock.openam.sm.datalayer.api.DataLayerException;
+import org.forgerock.openam.sm.datalayer.api.Task;
+import org.forgerock.openam.sm.datalayer.api.TokenStorageAdapter;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import com.sun.identity.shared.debug.Debug;
+
+public class StealingTaskExecutorTest {
+
+    private StealingTaskExecutor executor;
+    private ThreadMonitor monitor;
+    private CTSQueueConfiguration configuration;
+    private CTSQueueMonitoringStore monitoringStore;
+    private SimpleTaskExecutor taskExecutor;
+    private List<Thread> threads;
+
+    @BeforeMethod
+    public void setup() throws Exception {
+        monitor = mock(ThreadMonitor.class);
+        configuration = mock(CTSQueueConfiguration.class);
+        monitoringStore = mock(CTSQueueMonitoringStore.class);
+        taskExecutor = mock(SimpleTaskExecutor.class);
+        threads = new ArrayList<>();
+
+        AMExecutorServiceFactory executorServiceFactory = mock(AMExecutorServiceFactory.class);
+        given(executorServiceFactory.createCachedThreadPool(any(String.class))).willReturn(mock(ExecutorService.class));
+        Provider<SimpleTaskExecutor> taskExecutorProvider = mock(Provider.class);
+        given(taskExecutorProvider.get()).willReturn(taskExecutor);
+
+        given(configuration.getQueueSize()).willReturn(100);
+        given(configuration.getQueueTimeout()).willReturn(1);
+        given(configuration.getLanes()).willReturn(16);
+
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                ((Task) invocation.getArguments()[1]).execute(null);
+                return null;
+            }
+        }).when(taskExecutor).execute(isNull(String.class), any(Task.class));
+
+        executor = new StealingTaskExecutor(executorServiceFactory, taskExecutorProvider, monitor, configuration,
+                monitoringStore, mock(Debug.class)) {
+            @Override
+            void observeProcessorChanges() {
+                // not required for unit tests
+            }
+        };
+    }
+
+    @AfterMethod
+    public void tearDown() throws Exception {
+        for (Thread thread : threads) {
+            thread.interrupt();
+            thread.join(1000);
+        }
+    }
+
+    @Test
+    public void shouldStartProcessorsWithThreadMonitor() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(3);
+
+        // When
+        executor.start();
+
+        // Then
+        verify(monitor, times(3)).watchThread(any(ExecutorService.class), any(Runnable.class));
+    }
+
+    @Test
+    public void shouldStartAdditionalProcessorsOnResize() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(2, 4);
+        executor.start();
+
+        // When
+        executor.resize();
+
+        // Then
+        verify(monitor, times(4)).watchThread(any(ExecutorService.class), any(Runnable.class));
+    }
+
+    @Test
+    public void shouldProcessTasksForTheSameTokenInOrder() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(4);
+        executor.start();
+        startProcessors(4);
+
+        int count = 200;
+        CountDownLatch latch = new CountDownLatch(count);
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+
+        // When
+        for (int ii = 0; ii < count; ii++) {
+            executor.execute("badger", new RecordingTask(ii, processed, latch));
+        }
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int ii = 0; ii < count; ii++) {
+            assertThat(processed.get(ii)).isEqualTo(ii);
+        }
+    }
+
+    @Test
+    public void shouldCarryOnProcessingLaneAfterTaskFails() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(1);
+        executor.start();
+        startProcessors(1);
+        Task failing = mock(Task.class);
+        doThrow(new IllegalStateException("failed")).when(failing).execute(isNull(TokenStorageAdapter.class));
+        CountDownLatch latch = new CountDownLatch(2);
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+
+        // When
+        executor.execute("badger", failing);
+        executor.execute("badger", new RecordingTask(0, processed, latch));
+        executor.execute("badger", failing);
+        executor.execute("badger", new RecordingTask(1, processed, latch));
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(processed).containsExactly(0, 1);
+        verify(failing, times(2)).processError(any(DataLayerException.class));
+    }
+
+    @Test
+    public void shouldLetIdleProcessorStealWorkFromOtherProcessors() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(2);
+        executor.start();
+        // Only one of the two processors is running, so lanes homed on the other must be stolen
+        startProcessors(1);
+
+        int count = 100;
+        CountDownLatch latch = new CountDownLatch(count);
+        List<Integer> processed = Collections.synchronizedList(new ArrayList<Integer>());
+
+        // When
+        for (int ii = 0; ii < count; ii++) {
+            executor.execute("token" + ii, new RecordingTask(ii, processed, latch));
+        }
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThat(processed).hasSize(count);
+    }
+
+    @Test
+    public void shouldRecordQueueDepthAndWaitTime() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(1);
+        executor.start();
+        startProcessors(1);
+        CountDownLatch latch = new CountDownLatch(1);
+
+        // When
+        executor.execute("badger", new RecordingTask(0, new ArrayList<Integer>(), latch));
+
+        // Then
+        assertThat(latch.await(10, TimeUnit.SECONDS)).isTrue();
+        verify(monitoringStore).addTaskQueued(eq(0));
+        verify(monitoringStore, atLeastOnce()).addTaskDequeued(eq(0), anyLong());
+    }
+
+    @Test (expectedExceptions = DataLayerException.class)
+    public void shouldTimeoutWhenQueuesAreFull() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(1);
+        given(configuration.getQueueSize()).willReturn(1);
+        executor.start();
+        executor.execute("badger", mock(Task.class));
+
+        // When
+        executor.execute("weasel", mock(Task.class));
+    }
+
+    @Test (expectedExceptions = DataLayerException.class)
+    public void shouldReduceQueueCapacityWhenProcessorsAreRemoved() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(2, 1);
+        given(configuration.getQueueSize()).willReturn(1);
+        executor.start();
+        executor.resize();
+        executor.execute("badger", mock(Task.class));
+
+        // When
+        executor.execute("weasel", mock(Task.class));
+    }
+
+    @Test
+    public void shouldRestoreQueueCapacityWhenProcessorsAreAddedBack() throws Exception {
+        // Given
+        given(configuration.getProcessors()).willReturn(2, 1, 2);
+        given(configuration.getQueueSize()).willReturn(1);
+        executor.start();
+        executor.resize();
+        executor.execute("badger", mock(Task.class));
+
+        // When
+        executor.resize();
+        executor.execute("weasel", mock(Task.class));
+
+        // Then
+        verify(monitoringStore, times(2)).addTaskQueued(anyInt());
+    }
+
+    private void startProcessors(int count) {
+        ArgumentCaptor<Runnable> captor = ArgumentCaptor.forClass(Runnable.class);
+        verify(monitor, atLeastOnce()).watchThread(any(ExecutorService.class), captor.capture());
+        for (int ii = 0; ii < count; ii++) {
+            Thread thread = new Thread(captor.getAllValues().get(ii));
+            thread.start();
+            threads.add(thread);
+        }
+    }
+
+    private static final class RecordingTask implements Task {
+        private final int index;
+        private final List<Integer> processed;
+        private final CountDownLatch latch;
+
+        private RecordingTask(int index, List<Integer> processed, CountDownLatch latch) {
+            this.index = index;
+            this.processed = processed;
+            this.latch = latch;
+        }
+
+        @Override
+        public void execute(TokenStorageAdapter adapter) throws DataLayerException {
+            processed.add(index);
+            latch.countDown();
+        }
+
+        @Override
+        public void processError(DataLayerException error) {
+        }
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.sm.datalayer.impl.ldap;
 
@@ -33,14 +34,19 @@ import org.forgerock.openam.cts.impl.CTSDataLayerConfiguration;
 import org.forgerock.openam.sm.datalayer.api.ConnectionFactory;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
 import org.forgerock.openam.sm.datalayer.api.query.QueryBuilder;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.sm.datalayer.providers.LdapConnectionFactoryProvider;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.openam.tokens.TokenType;
+import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.Connection;
+import org.forgerock.opendj.ldap.DecodeOptions;
 import org.forgerock.opendj.ldap.Entry;
 import org.forgerock.opendj.ldap.LinkedHashMapEntry;
+import org.forgerock.opendj.ldap.controls.SimplePagedResultsControl;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
 import org.forgerock.opendj.ldap.responses.Result;
+import org.mockito.ArgumentCaptor;
 import org.mockito.invocation.InvocationOnMock;
 import org.mockito.stubbing.Answer;
 import org.testng.annotations.BeforeMethod;
@@ -127,6 +133,68 @@ public class LdapQueryBuilderTest {
         verify(tokenEntryConverter, times(2)).convert(any(Entry.class), any(String[].class));
     }
 
+    @Test
+    public void shouldRequestNextPageOnlyWhenCursorReachesEndOfPage() throws Exception {
+        // Given
+        givenPages(pageOf(2, "cookie"), pageOf(1, ""));
+        given(tokenEntryConverter.convert(any(Entry.class), any(String[].class))).willReturn(
+                new Token(Long.toString(currentTimeMillis()), TokenType.SESSION));
+
+        // When
+        QueryCursor<Token> cursor = builder.pageResultsBy(2).executeCursor(mockConnection);
+
+        // Then
+        verifyNoInteractions(searchHandler);
+        cursor.next();
+        cursor.next();
+        verify(searchHandler, times(1)).performSearch(eq(mockConnection), any(SearchRequest.class),
+                any(Collection.class));
+        cursor.next();
+        assertThat(cursor.hasNext()).isFalse();
+        verify(searchHandler, times(2)).performSearch(eq(mockConnection), any(SearchRequest.class),
+                any(Collection.class));
+    }
+
+    @Test
+    public void shouldReducePageSizeToRemainingSizeLimit() throws Exception {
+        // Given
+        givenPages(pageOf(2, "cookie"), pageOf(1, "cookie"));
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+
+        // When
+        QueryCursor<PartialToken> cursor = builder.limitResultsTo(3).pageResultsBy(2)
+                .executeRawCursor(mockConnection, PartialToken.class);
+        int count = 0;
+        while (cursor.hasNext()) {
+            cursor.next();
+            count++;
+        }
+
+        // Then
+        assertThat(count).isEqualTo(3);
+        verify(searchHandler, times(2)).performSearch(eq(mockConnection), captor.capture(), any(Collection.class));
+        assertThat(pageSize(captor.getAllValues().get(0))).isEqualTo(2);
+        assertThat(pageSize(captor.getAllValues().get(1))).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldAbandonPagedSearchWhenClosedEarly() throws Exception {
+        // Given
+        givenPages(pageOf(2, "cookie"));
+        ArgumentCaptor<SearchRequest> captor = ArgumentCaptor.forClass(SearchRequest.class);
+        QueryCursor<PartialToken> cursor = builder.pageResultsBy(2)
+                .executeRawCursor(mockConnection, PartialToken.class);
+        cursor.next();
+
+        // When
+        cursor.close();
+
+        // Then
+        assertThat(cursor.hasNext()).isFalse();
+        verify(searchHandler, times(2)).performSearch(eq(mockConnection), captor.capture(), any(Collection.class));
+        assertThat(pageSize(captor.getAllValues().get(1))).isEqualTo(0);
+    }
+
     @Test (expectedExceptions = IllegalArgumentException.class)
     public void shouldPreventSettingReturnAttributesWithEmptyArray() {
         builder.returnTheseAttributes();
@@ -142,4 +210,36 @@ public class LdapQueryBuilderTest {
     public void shouldPreventSettingReturnAttributesWithEmptyCollection() {
         builder.returnTheseAttributes(Collections.<CoreTokenField>emptySet());
     }
+
+    private void givenPages(final Answer<Result>... pages) throws CoreTokenException {
+        given(searchHandler.performSearch(any(Connection.class), any(SearchRequest.class), any(Collection.class)))
+                .will(new Answer<Result>() {
+                    private int page = 0;
+
+                    @Override
+                    public Result answer(InvocationOnMock invocation) throws Throwable {
+                        return page < pages.length ? pages[page++].answer(invocation) : mock(Result.class);
+                    }
+                });
+    }
+
+    private Answer<Result> pageOf(final int size, String cookie) throws Exception {
+        final Result result = mock(Result.class);
+        given(result.getControl(eq(SimplePagedResultsControl.DECODER), any(DecodeOptions.class)))
+                .willReturn(SimplePagedResultsControl.newControl(true, 0, ByteString.valueOfUtf8(cookie)));
+        return new Answer<Result>() {
+            @Override
+            public Result answer(InvocationOnMock invocation) throws Throwable {
+                Collection<Entry> list = (Collection<Entry>) invocation.getArguments()[2];
+                for (int i = 0; i < size; i++) {
+                    list.add(new LinkedHashMapEntry());
+                }
+                return result;
+            }
+        };
+    }
+
+    private int pageSize(SearchRequest request) throws Exception {
+        return request.getControl(SimplePagedResultsControl.DECODER, new DecodeOptions()).getSize();
+    }
 }
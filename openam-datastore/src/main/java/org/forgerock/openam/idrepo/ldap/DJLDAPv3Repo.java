@@ -13,6 +13,7 @@
  *
  * Copyright 2013-2016 ForgeRock AS.
  * Portions Copyright 2016 Nomura Research Institute, Ltd.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.idrepo.ldap;
 
@@ -29,12 +30,16 @@ import java.util.HashSet;
 import java.util.LinkedHashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import javax.security.auth.callback.Callback;
 import javax.security.auth.callback.NameCallback;
 import javax.security.auth.callback.PasswordCallback;
 
+import org.forgerock.guice.core.InjectorHolder;
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
 import org.forgerock.openam.idrepo.ldap.helpers.ADAMHelper;
 import org.forgerock.openam.idrepo.ldap.helpers.ADHelper;
 import org.forgerock.openam.idrepo.ldap.helpers.DirectoryHelper;
@@ -53,6 +58,8 @@ import org.forgerock.opendj.ldap.Attribute;
 import org.forgerock.opendj.ldap.ByteString;
 import org.forgerock.opendj.ldap.Connection;
 import org.forgerock.opendj.ldap.DN;
+import org.forgerock.opendj.ldap.DecodeException;
+import org.forgerock.opendj.ldap.DecodeOptions;
 import org.forgerock.opendj.ldap.Entry;
 import org.forgerock.opendj.ldap.Filter;
 import org.forgerock.opendj.ldap.LDAPUrl;
@@ -65,6 +72,8 @@ import org.forgerock.opendj.ldap.ResultCode;
 import org.forgerock.opendj.ldap.SSLContextBuilder;
 import org.forgerock.opendj.ldap.SearchResultReferenceIOException;
 import org.forgerock.opendj.ldap.SearchScope;
+import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
+import org.forgerock.opendj.ldap.controls.SimplePagedResultsControl;
 import org.forgerock.opendj.ldap.requests.BindRequest;
 import org.forgerock.opendj.ldap.requests.ModifyRequest;
 import org.forgerock.opendj.ldap.requests.SearchRequest;
@@ -125,6 +134,7 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
             Filter.valueOf("(&(objectclass=ldapsubentry)(objectclass=nsmanagedroledefinition))");
     private static final Filter DEFAULT_FILTERED_ROLE_SEARCH_FILTER =
             Filter.valueOf("(&(objectclass=ldapsubentry)(objectclass=nsfilteredroledefinition))");
+    private static final int MEMBERSHIP_GRAPH_PAGE_SIZE = 1000;
     private Set<LDAPURL> ldapServers;
     private IdRepoListener idRepoListener;
     private Map<IdType, Set<IdOperation>> supportedTypesAndOperations;
@@ -180,6 +190,13 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
     private Cache dnCache;
     // provides a switch to enable/disable the dnCache
     private boolean dnCacheEnabled = false;
+    //provides an in-memory graph of the group memberships (if enabled), kept up to date by the persistent search.
+    private GroupMembershipGraph membershipGraph;
+    //reads changed groups in the order the persistent search reported them, off the persistent search thread
+    private ExecutorService membershipGraphRefresher;
+    private final EntryChangedListener membershipGraphUpdater = new MembershipGraphUpdater();
+    //whether the persistent search is reporting changes to the membershipGraph
+    private volatile boolean membershipGraphTracked = false;
 
     private boolean isSecure = false;
     private boolean useStartTLS = false;
@@ -284,6 +301,14 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
         roleDNAttr = CollectionHelper.getMapAttr(configParams, LDAP_ROLE_DN_ATTR, ROLE_DN_ATTR);
         roleFilterAttr = CollectionHelper.getMapAttr(configParams, LDAP_ROLE_FILTER_ATTR, ROLE_FILTER_ATTR);
         rootSuffix = CollectionHelper.getMapAttr(configParams, LDAP_SERVER_ROOT_SUFFIX);
+        if (CollectionHelper.getBooleanMapAttr(configMap, LDAP_MEMBERSHIP_CACHE_ENABLED, false)) {
+            membershipGraph = new GroupMembershipGraph(ldapServers + " " + rootSuffix,
+                    CollectionHelper.getIntMapAttr(configParams, LDAP_MEMBERSHIP_CACHE_SIZE, 10000, DEBUG),
+                    CollectionHelper.getIntMapAttr(configParams, LDAP_MEMBERSHIP_CACHE_MAX_MEMBERSHIPS, 1000000, DEBUG),
+                    CollectionHelper.getBooleanMapAttr(configParams, LDAP_MEMBERSHIP_CACHE_NESTED, false));
+            membershipGraphRefresher = InjectorHolder.getInstance(AMExecutorServiceFactory.class)
+                    .createFixedThreadPool(1, "GroupMembershipGraph");
+        }
         userSearchFilter = LDAPUtils.parseFilter(
                 CollectionHelper.getMapAttr(configParams, LDAP_USER_SEARCH_FILTER), Filter.objectClassPresent());
         groupSearchFilter = LDAPUtils.parseFilter(
@@ -1486,6 +1511,12 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
      * @throws IdRepoException If there was an error while retrieving the group membership information.
      */
     private Set<String> getGroupMemberships(String dn) throws IdRepoException {
+        if (membershipGraphTracked) {
+            Set<String> groups = getCachedGroupMemberships(DN.valueOf(dn));
+            if (groups != null) {
+                return groups;
+            }
+        }
         Set<String> results = new HashSet<>();
         if (memberOfAttr == null) {
             Filter filter = Filter.and(groupSearchFilter, Filter.equality(uniqueMemberAttr, dn));
@@ -1537,6 +1568,147 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
         return results;
     }
 
+    /**
+     * Returns the group membership informations for this given user from the membership graph, including the groups
+     * the user is a member of through nested groups if configured so. If the graph is not populated, populating it is
+     * started in the background.
+     *
+     * @param dn The DN of the user identity.
+     * @return The DNs of the groups that the provided user is member of, or {@code null} if the graph is not populated
+     * yet.
+     */
+    private Set<String> getCachedGroupMemberships(DN dn) {
+        final long token = membershipGraph.startLoad();
+        if (token != -1) {
+            try {
+                membershipGraphRefresher.execute(() -> loadMembershipGraph(token));
+            } catch (RejectedExecutionException ree) {
+                //the data store is being shut down
+                membershipGraph.abortLoad(token);
+            }
+        }
+        Set<String> groups = membershipGraph.getGroups(dn);
+        return groups == null ? null : new HashSet<>(groups);
+    }
+
+    /**
+     * Populates the membership graph by reading the members of every group with a single paged search. Entries that
+     * changed while the search was running are read again once the graph is populated.
+     *
+     * @param token The token returned when the load was started.
+     */
+    private void loadMembershipGraph(long token) {
+        Map<DN, Set<DN>> groups = new HashMap<>();
+        int memberships = 0;
+        Connection conn = null;
+        try {
+            conn = createConnection();
+            ByteString cookie = ByteString.empty();
+            do {
+                SearchRequest searchRequest = LDAPRequests.newSearchRequest(getBaseDN(IdType.GROUP), defaultScope,
+                        groupSearchFilter, uniqueMemberAttr)
+                        .addControl(SimplePagedResultsControl.newControl(true, MEMBERSHIP_GRAPH_PAGE_SIZE, cookie));
+                ConnectionEntryReader reader = conn.search(searchRequest);
+                while (reader.hasNext()) {
+                    if (reader.isEntry()) {
+                        SearchResultEntry entry = reader.readEntry();
+                        Set<DN> members = getGroupMemberDNs(entry);
+                        groups.put(entry.getName(), members);
+                        memberships += members.size();
+                        if (memberships > membershipGraph.getMaxMemberships()) {
+                            DEBUG.warning("The data store holds more than " + membershipGraph.getMaxMemberships()
+                                    + " group memberships, group memberships will be searched for");
+                            membershipGraph.rejectLoad(token);
+                            return;
+                        }
+                    } else {
+                        //ignore search result references
+                        reader.readReference();
+                    }
+                }
+                SimplePagedResultsControl control =
+                        reader.readResult().getControl(SimplePagedResultsControl.DECODER, new DecodeOptions());
+                cookie = control == null ? ByteString.empty() : control.getCookie();
+            } while (!cookie.isEmpty());
+        } catch (IdRepoException | LdapException | SearchResultReferenceIOException | DecodeException ex) {
+            DEBUG.warning("Unable to load the group membership graph, group memberships will be searched for", ex);
+            membershipGraph.abortLoad(token);
+            return;
+        } finally {
+            IOUtils.closeIfNotNull(conn);
+        }
+        Set<DN> changed = membershipGraph.finishLoad(token, groups);
+        if (DEBUG.messageEnabled()) {
+            DEBUG.message("Loaded " + groups.size() + " groups into the group membership graph");
+        }
+        if (changed != null) {
+            for (final DN dn : changed) {
+                membershipGraphRefresher.execute(() -> refreshMembershipGraph(dn));
+            }
+        }
+    }
+
+    /**
+     * Reads the members of a group again after it was added, changed, moved or renamed, and updates the membership
+     * graph accordingly. The graph is emptied if the group cannot be read, so that it is populated again later on.
+     *
+     * @param dn The DN of the group.
+     */
+    private void refreshMembershipGraph(DN dn) {
+        if (!dn.isInScopeOf(getBaseDN(IdType.GROUP), defaultScope)) {
+            membershipGraph.removeEntry(dn);
+            return;
+        }
+        Connection conn = null;
+        try {
+            conn = createConnection();
+            ConnectionEntryReader reader = conn.search(LDAPRequests.newSearchRequest(dn, SearchScope.BASE_OBJECT,
+                    groupSearchFilter, uniqueMemberAttr));
+            SearchResultEntry group = null;
+            while (reader.hasNext()) {
+                if (reader.isEntry()) {
+                    group = reader.readEntry();
+                } else {
+                    reader.readReference();
+                }
+            }
+            if (group == null) {
+                membershipGraph.removeEntry(dn);
+            } else {
+                membershipGraph.updateGroup(dn, getGroupMemberDNs(group));
+            }
+        } catch (LdapException ere) {
+            if (ResultCode.NO_SUCH_OBJECT.equals(ere.getResult().getResultCode())) {
+                membershipGraph.removeEntry(dn);
+            } else {
+                DEBUG.warning("Unable to read the members of " + dn + ", emptying the group membership graph", ere);
+                membershipGraph.invalidate();
+            }
+        } catch (IdRepoException | SearchResultReferenceIOException ex) {
+            DEBUG.warning("Unable to read the members of " + dn + ", emptying the group membership graph", ex);
+            membershipGraph.invalidate();
+        } finally {
+            IOUtils.closeIfNotNull(conn);
+        }
+    }
+
+    private Set<DN> getGroupMemberDNs(SearchResultEntry group) {
+        Set<DN> members = new HashSet<>();
+        Attribute attr = group.getAttribute(uniqueMemberAttr);
+        if (attr != null) {
+            for (ByteString value : attr) {
+                try {
+                    members.add(DN.valueOf(value.toString()));
+                } catch (IllegalArgumentException iae) {
+                    if (DEBUG.messageEnabled()) {
+                        DEBUG.message("Ignoring invalid member " + value + " of group " + group.getName());
+                    }
+                }
+            }
+        }
+        return members;
+    }
+
     /**
      * Return the role membership informations for this given user. This will execute a read on the user entry to
      * retrieve the nsRoleDN attribute. The values of the attribute will be returned.
@@ -1677,6 +1849,10 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
                     conn.modify(userMod);
                 }
             }
+            if (membershipGraphTracked) {
+                //don't wait for the persistent search to catch up with our own change
+                refreshMembershipGraph(DN.valueOf(groupDN));
+            }
         } catch (LdapException ere) {
             DEBUG.error("An error occurred while trying to modify group membership. Name: " + groupDN
                     + " memberDNs: " + memberDNs + " Operation: " + modType, ere);
@@ -2084,6 +2260,9 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
         if (StringUtils.isEmpty(psearchBaseDN)) {
             if (DEBUG.warningEnabled()) {
                 DEBUG.warning("Persistent search base DN is missing, persistent search is disabled.");
+                if (membershipGraph != null) {
+                    DEBUG.warning("Group membership cache requires persistent search, it is disabled.");
+                }
             }
             return 0;
         }
@@ -2098,6 +2277,9 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
                 if (dnCacheEnabled) {
                     pSearch.addMovedOrRenamedListener(this);
                 }
+                if (membershipGraph != null) {
+                    pSearch.addEntryChangedListener(membershipGraphUpdater);
+                }
                 pSearch.addListener(idRepoListener, getSupportedTypes());
                 try {
                     pSearch.startQuery();
@@ -2110,7 +2292,11 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
                 if (dnCacheEnabled) {
                     pSearch.addMovedOrRenamedListener(this);
                 }
+                if (membershipGraph != null) {
+                    pSearch.addEntryChangedListener(membershipGraphUpdater);
+                }
             }
+            membershipGraphTracked = membershipGraph != null;
         }
         return 0;
     }
@@ -2132,11 +2318,16 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
         } else {
             String pSearchId = getPSearchId();
             synchronized (pSearchMap) {
+                if (membershipGraphTracked) {
+                    membershipGraphTracked = false;
+                    membershipGraph.invalidate();
+                }
                 DJLDAPv3PersistentSearch pSearch = pSearchMap.get(pSearchId);
                 if (pSearch == null) {
                     DEBUG.error("PSearch is already removed, unable to unregister");
                 } else {
                     pSearch.removeMovedOrRenamedListener(this);
+                    pSearch.removeEntryChangedListener(membershipGraphUpdater);
                     pSearch.removeListener(idRepoListener);
                     if (!pSearch.hasListeners()) {
                         pSearch.stopSearch();
@@ -2160,6 +2351,10 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
         }
         super.shutdown();
         removeListener();
+        if (membershipGraph != null) {
+            membershipGraphRefresher.shutdownNow();
+            membershipGraph.close();
+        }
         IOUtils.closeIfNotNull(connectionFactory);
         IOUtils.closeIfNotNull(bindConnectionFactory);
         idRepoListener = null;
@@ -2530,6 +2725,44 @@ public class DJLDAPv3Repo extends IdRepo implements IdentityMovedOrRenamedListen
         return new IdRepoException(IdRepoBundle.BUNDLE_NAME, key, String.valueOf(resultCode.intValue()), args);
     }
 
+    /**
+     * Keeps the membership graph up to date with the persistent search results. Changes are applied in order by the
+     * membership graph refresher, so that reading a changed group does not hold up the persistent search.
+     */
+    private final class MembershipGraphUpdater implements EntryChangedListener {
+
+        @Override
+        public void entryChanged(Entry entry, PersistentSearchChangeType type) {
+            final DN dn = entry.getName();
+            if (PersistentSearchChangeType.DELETE.equals(type)) {
+                membershipGraphRefresher.execute(() -> membershipGraph.removeEntry(dn));
+            } else if (isGroupObjectClass(entry) || membershipGraph.isGroup(dn)) {
+                //entries that are not groups, and were not groups before, have no members to read
+                membershipGraphRefresher.execute(() -> refreshMembershipGraph(dn));
+            }
+        }
+
+        private boolean isGroupObjectClass(Entry entry) {
+            Attribute objectClasses = entry.getAttribute(OBJECT_CLASS_ATTR);
+            if (objectClasses == null || groupObjectClasses.isEmpty()) {
+                return true;
+            }
+            for (ByteString objectClass : objectClasses) {
+                for (String groupObjectClass : groupObjectClasses) {
+                    if (groupObjectClass.equalsIgnoreCase(objectClass.toString())) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+
+        @Override
+        public void allEntriesChanged() {
+            membershipGraph.invalidate();
+        }
+    }
+
     private static class StringAttributeExtractor implements Function<Attribute, Set<String>, IdRepoException> {
 
         @Override
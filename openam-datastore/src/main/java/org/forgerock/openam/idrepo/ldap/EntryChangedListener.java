@@ -0,0 +1,42 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.idrepo.ldap;
+
+import org.forgerock.opendj.ldap.Entry;
+import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
+
+/**
+ * Interface describing interactions when any watched entry changes.
+ */
+public interface EntryChangedListener {
+
+    /**
+     * Called if an entry has been added, modified, deleted, moved or renamed within the identity store. A move or
+     * rename is reported as the deletion of the previous DN followed by a {@link PersistentSearchChangeType#MODIFY_DN}
+     * change of the new DN.
+     *
+     * @param entry The entry as returned by the persistent search, including its object classes. Only the DN is
+     * available for the previous DN of a moved or renamed entry.
+     * @param type The type of the change.
+     */
+    void entryChanged(Entry entry, PersistentSearchChangeType type);
+
+    /**
+     * Called if changes may have been missed, for example when the persistent search had to be restarted.
+     */
+    void allEntriesChanged();
+}
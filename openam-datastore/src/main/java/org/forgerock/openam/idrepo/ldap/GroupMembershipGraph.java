@@ -0,0 +1,378 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.idrepo.ldap;
+
+import static org.forgerock.openam.utils.Time.currentTimeMillis;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.forgerock.opendj.ldap.DN;
+
+import com.sun.identity.entitlement.opensso.ConcurrentCache;
+import com.sun.identity.shared.stats.Stats;
+
+/**
+ * In-memory graph of the group memberships held in a data store. Each group is stored with its direct members and
+ * each member with the groups it directly belongs to, so the group memberships of an identity can be resolved
+ * without going to the directory. Memberships gained through nested groups are only resolved if the graph is created
+ * to do so, matching the directory search by default. The resolved memberships are kept for a bounded number of
+ * identities, evicting the least recently used ones, and are looked up without locking the graph.
+ * <p>
+ * The graph itself cannot evict parts of itself, as the groups of an identity can only be resolved from a complete
+ * graph. Instead it is bounded by the total number of group memberships it holds: a data store with more memberships
+ * than that is not cached, and its memberships keep being searched for.
+ * <p>
+ * The graph is populated in one go by {@link #startLoad()} and {@link #finishLoad(long, Map)}, and has to be kept up to
+ * date by reporting every change to a group through {@link #updateGroup(DN, Set)} and {@link #removeEntry(DN)}. Until
+ * it is populated, and after {@link #invalidate()}, lookups return {@code null}.
+ */
+final class GroupMembershipGraph {
+
+    private static final long LOAD_RETRY_INTERVAL = 60000;
+    private static final long OVERSIZED_RETRY_INTERVAL = 3600000;
+    private static final Set<GroupMembershipGraph> GRAPHS = ConcurrentHashMap.newKeySet();
+    private static final LongAdder hits = new LongAdder();
+    private static final LongAdder misses = new LongAdder();
+    private static final LongAdder evictions = new LongAdder();
+    private static final LongAdder loads = new LongAdder();
+    private static final LongAdder changes = new LongAdder();
+    private static final LongAdder oversized = new LongAdder();
+
+    static {
+        final Stats stats = Stats.getInstance("amIdRepoMembershipCache");
+        stats.addStatsListener(() -> {
+            long lookups = hits.sum() + misses.sum();
+            StringBuilder sb = new StringBuilder("Group membership cache:")
+                    .append("\nHits: ").append(hits.sum())
+                    .append("\nMisses: ").append(misses.sum())
+                    .append("\nHit rate (%): ").append(lookups == 0 ? 0 : hits.sum() * 100 / lookups)
+                    .append("\nEvictions: ").append(evictions.sum())
+                    .append("\nLoads: ").append(loads.sum())
+                    .append("\nGroup changes applied: ").append(changes.sum())
+                    .append("\nDiscarded as too large: ").append(oversized.sum());
+            for (GroupMembershipGraph graph : GRAPHS) {
+                sb.append("\n").append(graph.describe());
+            }
+            stats.record(sb.toString());
+        });
+    }
+
+    private final String name;
+    private final boolean nested;
+    private final int maxResolved;
+    private final int maxMemberships;
+    private final Map<DN, Set<DN>> groupMembers = new HashMap<>();
+    private final Map<DN, Set<DN>> memberships = new HashMap<>();
+    private final Map<DN, Set<String>> resolved;
+    private final Set<DN> changedWhileLoading = new HashSet<>();
+    private int membershipCount = 0;
+    private volatile boolean populated = false;
+    private boolean loading = false;
+    private long generation = 0;
+    private long loadedAt = 0;
+    private long retryLoadAt = 0;
+    private long lastChangeAt = 0;
+
+    /**
+     * Creates a new, unpopulated graph.
+     *
+     * @param name The name of the graph, used in the statistics.
+     * @param maxResolved The maximum number of identities to keep resolved memberships for.
+     * @param maxMemberships The maximum number of group memberships held, beyond which the graph is discarded.
+     * @param nested Whether memberships gained through nested groups are resolved.
+     */
+    GroupMembershipGraph(String name, int maxResolved, int maxMemberships, boolean nested) {
+        this.name = name;
+        this.nested = nested;
+        this.maxResolved = maxResolved;
+        this.maxMemberships = maxMemberships;
+        this.resolved = new ConcurrentCache<>("GroupMembershipGraph", Math.min(maxResolved, 1024), maxResolved);
+        GRAPHS.add(this);
+    }
+
+    /**
+     * Returns the maximum number of group memberships the graph holds.
+     *
+     * @return The maximum number of memberships.
+     */
+    int getMaxMemberships() {
+        return maxMemberships;
+    }
+
+    /**
+     * Starts populating the graph, unless it is already populated or being populated, or a load has failed recently.
+     *
+     * @return The token to pass to {@link #finishLoad(long, Map)}, or -1 if the graph should not be populated.
+     */
+    synchronized long startLoad() {
+        if (populated || loading || currentTimeMillis() < retryLoadAt) {
+            return -1;
+        }
+        loading = true;
+        changedWhileLoading.clear();
+        return generation;
+    }
+
+    /**
+     * Populates the graph with the groups read from the directory. The groups are ignored if the graph has been
+     * invalidated since the load was started.
+     *
+     * @param token The token returned by {@link #startLoad()}.
+     * @param groups The DNs of every group mapped to the DNs of their direct members.
+     * @return The DNs of the entries that changed while the groups were being read, which have to be read again, or
+     * {@code null} if the groups were ignored.
+     */
+    synchronized Set<DN> finishLoad(long token, Map<DN, Set<DN>> groups) {
+        if (token != generation || !loading) {
+            return null;
+        }
+        loading = false;
+        clearGraph();
+        for (Map.Entry<DN, Set<DN>> group : groups.entrySet()) {
+            addGroup(group.getKey(), group.getValue());
+        }
+        if (membershipCount > maxMemberships) {
+            discard();
+            return null;
+        }
+        populated = true;
+        loadedAt = currentTimeMillis();
+        loads.increment();
+        Set<DN> changed = new HashSet<>(changedWhileLoading);
+        changedWhileLoading.clear();
+        return changed;
+    }
+
+    /**
+     * Abandons a load started by {@link #startLoad()} that failed, so that it is attempted again after a while.
+     *
+     * @param token The token returned by {@link #startLoad()}.
+     */
+    synchronized void abortLoad(long token) {
+        if (token == generation) {
+            loading = false;
+            retryLoadAt = currentTimeMillis() + LOAD_RETRY_INTERVAL;
+        }
+    }
+
+    /**
+     * Abandons a load started by {@link #startLoad()} because the data store holds more than
+     * {@link #getMaxMemberships()} memberships. Loading is attempted again much later.
+     *
+     * @param token The token returned by {@link #startLoad()}.
+     */
+    synchronized void rejectLoad(long token) {
+        if (token == generation) {
+            loading = false;
+            discard();
+        }
+    }
+
+    /**
+     * Returns the DNs of the groups the identity is a member of, directly or, if enabled, through nested groups.
+     *
+     * @param member The DN of the identity.
+     * @return The DNs of the groups, or {@code null} if the graph is not populated.
+     */
+    Set<String> getGroups(DN member) {
+        if (!populated) {
+            return null;
+        }
+        Set<String> groups = resolved.get(member);
+        if (groups != null) {
+            hits.increment();
+            return groups;
+        }
+        return resolveGroups(member);
+    }
+
+    private synchronized Set<String> resolveGroups(DN member) {
+        if (!populated) {
+            return null;
+        }
+        // resolved memberships are only added and cleared whilst holding the lock, so none can be stale
+        Set<String> groups = resolved.get(member);
+        if (groups != null) {
+            hits.increment();
+            return groups;
+        }
+        misses.increment();
+        groups = new LinkedHashSet<>();
+        Set<DN> visited = new HashSet<>();
+        Deque<DN> pending = new ArrayDeque<>(memberships.getOrDefault(member, Collections.<DN>emptySet()));
+        while (!pending.isEmpty()) {
+            DN group = pending.poll();
+            // Nested groups may contain cycles
+            if (visited.add(group)) {
+                groups.add(group.toString());
+                if (nested) {
+                    pending.addAll(memberships.getOrDefault(group, Collections.<DN>emptySet()));
+                }
+            }
+        }
+        groups = Collections.unmodifiableSet(groups);
+        if (resolved.size() >= maxResolved) {
+            evictions.increment();
+        }
+        resolved.put(member, groups);
+        return groups;
+    }
+
+    /**
+     * Returns whether the entry is known to be a group.
+     *
+     * @param dn The DN of the entry.
+     * @return {@code true} if the graph holds the members of the entry.
+     */
+    synchronized boolean isGroup(DN dn) {
+        return groupMembers.containsKey(dn);
+    }
+
+    /**
+     * Replaces the direct members of a group, adding the group if it was not known.
+     *
+     * @param group The DN of the group.
+     * @param members The DNs of the direct members of the group.
+     */
+    synchronized void updateGroup(DN group, Set<DN> members) {
+        if (changed(group)) {
+            removeGroup(group);
+            addGroup(group, members);
+            resolved.clear();
+            if (membershipCount > maxMemberships) {
+                discard();
+            }
+        }
+    }
+
+    /**
+     * Removes an entry that was deleted, moved or renamed from the graph.
+     *
+     * @param dn The DN of the entry.
+     */
+    synchronized void removeEntry(DN dn) {
+        if (changed(dn)) {
+            if (removeGroup(dn)) {
+                resolved.clear();
+            } else {
+                resolved.remove(dn);
+            }
+        }
+    }
+
+    /**
+     * Empties the graph, for example when changes to the directory may have been missed. The graph has to be populated
+     * again before it can be used.
+     */
+    synchronized void invalidate() {
+        generation++;
+        retryLoadAt = 0;
+        loading = false;
+        populated = false;
+        clearGraph();
+        changedWhileLoading.clear();
+    }
+
+    /**
+     * Releases the graph when its data store is shut down.
+     */
+    void close() {
+        GRAPHS.remove(this);
+        invalidate();
+    }
+
+    private boolean changed(DN dn) {
+        if (loading) {
+            changedWhileLoading.add(dn);
+        }
+        if (!populated) {
+            return false;
+        }
+        changes.increment();
+        lastChangeAt = currentTimeMillis();
+        return true;
+    }
+
+    /**
+     * Empties the graph because it holds too many memberships, and postpones loading it again.
+     */
+    private void discard() {
+        oversized.increment();
+        generation++;
+        populated = false;
+        clearGraph();
+        retryLoadAt = currentTimeMillis() + OVERSIZED_RETRY_INTERVAL;
+    }
+
+    private void clearGraph() {
+        groupMembers.clear();
+        memberships.clear();
+        resolved.clear();
+        membershipCount = 0;
+    }
+
+    private void addGroup(DN group, Set<DN> members) {
+        groupMembers.put(group, new HashSet<>(members));
+        membershipCount += members.size();
+        for (DN member : members) {
+            Set<DN> groups = memberships.get(member);
+            if (groups == null) {
+                groups = new HashSet<>();
+                memberships.put(member, groups);
+            }
+            groups.add(group);
+        }
+    }
+
+    private boolean removeGroup(DN group) {
+        Set<DN> members = groupMembers.remove(group);
+        if (members == null) {
+            return false;
+        }
+        membershipCount -= members.size();
+        for (DN member : members) {
+            Set<DN> groups = memberships.get(member);
+            if (groups != null) {
+                groups.remove(group);
+                if (groups.isEmpty()) {
+                    memberships.remove(member);
+                }
+            }
+        }
+        return true;
+    }
+
+    private synchronized String describe() {
+        if (!populated) {
+            return name + ": not populated";
+        }
+        long now = currentTimeMillis();
+        return name + ": groups=" + groupMembers.size()
+                + " memberships=" + membershipCount
+                + " resolved=" + resolved.size()
+                + " age(ms)=" + (now - loadedAt)
+                + " sinceLastChange(ms)=" + (lastChangeAt == 0 ? now - loadedAt : now - lastChangeAt);
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.idrepo.ldap.psearch;
@@ -22,11 +23,13 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 
+import org.forgerock.openam.idrepo.ldap.EntryChangedListener;
 import org.forgerock.openam.idrepo.ldap.IdentityMovedOrRenamedListener;
 import org.forgerock.openam.ldap.LDAPUtils;
 import org.forgerock.openam.sm.datalayer.api.ConnectionFactory;
 import org.forgerock.opendj.ldap.DN;
 import org.forgerock.opendj.ldap.Filter;
+import org.forgerock.opendj.ldap.LinkedHashMapEntry;
 import org.forgerock.opendj.ldap.SearchScope;
 import org.forgerock.opendj.ldap.controls.PersistentSearchChangeType;
 import org.forgerock.opendj.ldap.responses.SearchResultEntry;
@@ -46,6 +49,7 @@ public class DJLDAPv3PersistentSearch extends LDAPv3PersistentSearch<IdRepoListe
     private static final Debug DEBUG = Debug.getInstance("PersistentSearch");
     private final SearchResultEntryHandler resultEntryHandler = new PSearchResultEntryHandler();
     private final Set<IdentityMovedOrRenamedListener> movedOrRenamedListenerSet = new HashSet<>(1);
+    private final Set<EntryChangedListener> entryChangedListenerSet = new HashSet<>(1);
     private final String usersSearchAttributeName;
 
     /**
@@ -63,7 +67,7 @@ public class DJLDAPv3PersistentSearch extends LDAPv3PersistentSearch<IdRepoListe
                                 Filter.objectClassPresent()), LDAPUtils
                         .getSearchScope(CollectionHelper.getMapAttr(configMap, LDAP_PERSISTENT_SEARCH_SCOPE),
                                 SearchScope.WHOLE_SUBTREE), factory,
-                CollectionHelper.getMapAttr(configMap, LDAP_USER_SEARCH_ATTR));
+                CollectionHelper.getMapAttr(configMap, LDAP_USER_SEARCH_ATTR), OBJECT_CLASS_ATTR);
         usersSearchAttributeName = CollectionHelper.getMapAttr(configMap, LDAP_USER_SEARCH_ATTR);
     }
 
@@ -91,8 +95,33 @@ public class DJLDAPv3PersistentSearch extends LDAPv3PersistentSearch<IdRepoListe
         movedOrRenamedListenerSet.remove(movedOrRenamedListener);
     }
 
+    /**
+     * Adds an {@link EntryChangedListener} object, which needs to be notified about every persistent search result.
+     * The caller must ensure that calls to addEntryChangedListener/removeEntryChangedListener invocations are
+     * synchronized correctly.
+     *
+     * @param entryChangedListener The {@link EntryChangedListener} instance that needs to be notified about changes.
+     */
+    public void addEntryChangedListener(EntryChangedListener entryChangedListener) {
+        entryChangedListenerSet.add(entryChangedListener);
+    }
+
+    /**
+     * Removes an {@link EntryChangedListener} if it was registered to get persistent search notifications.
+     * The caller must ensure that calls to addEntryChangedListener/removeEntryChangedListener invocations are
+     * synchronized correctly.
+     *
+     * @param entryChangedListener The {@link EntryChangedListener} instance to remove from the listeners
+     */
+    public void removeEntryChangedListener(EntryChangedListener entryChangedListener) {
+        entryChangedListenerSet.remove(entryChangedListener);
+    }
+
     @Override
     protected void clearCaches() {
+        for (EntryChangedListener listener : entryChangedListenerSet) {
+            listener.allEntriesChanged();
+        }
         for (IdRepoListener idRepoListener : getListeners().keySet()) {
             idRepoListener.allObjectsChanged();
         }
@@ -120,6 +149,13 @@ public class DJLDAPv3PersistentSearch extends LDAPv3PersistentSearch<IdRepoListe
                     }
                 }
 
+                for (EntryChangedListener listener : entryChangedListenerSet) {
+                    if (previousDn != null) {
+                        listener.entryChanged(new LinkedHashMapEntry(previousDn), PersistentSearchChangeType.DELETE);
+                    }
+                    listener.entryChanged(entry, type);
+                }
+
                 for (Map.Entry<IdRepoListener, Set<IdType>> listenerEntry : getListeners().entrySet()) {
                     IdRepoListener listener = listenerEntry.getKey();
 
@@ -0,0 +1,188 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.idrepo.ldap;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import org.forgerock.opendj.ldap.DN;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class GroupMembershipGraphTest {
+
+    private static final DN USER = DN.valueOf("uid=demo,ou=people,dc=example,dc=com");
+    private static final DN STAFF = DN.valueOf("cn=staff,ou=groups,dc=example,dc=com");
+    private static final DN EMPLOYEES = DN.valueOf("cn=employees,ou=groups,dc=example,dc=com");
+    private static final DN EVERYONE = DN.valueOf("cn=everyone,ou=groups,dc=example,dc=com");
+
+    private GroupMembershipGraph graph;
+
+    @BeforeMethod
+    public void setUp() {
+        graph = new GroupMembershipGraph("test", 10, 100, true);
+    }
+
+    @Test
+    public void shouldReturnNullUntilPopulated() {
+        // Given
+        graph.startLoad();
+
+        // When
+        Set<String> groups = graph.getGroups(USER);
+
+        // Then
+        assertThat(groups).isNull();
+    }
+
+    @Test
+    public void shouldResolveNestedGroups() {
+        // Given
+        load(group(STAFF, USER), group(EMPLOYEES, STAFF), group(EVERYONE, EMPLOYEES));
+
+        // When
+        Set<String> groups = graph.getGroups(DN.valueOf("UID=demo,ou=People,dc=example,dc=com"));
+
+        // Then
+        assertThat(groups).containsOnly(STAFF.toString(), EMPLOYEES.toString(), EVERYONE.toString());
+    }
+
+    @Test
+    public void shouldOnlyResolveDirectGroupsUnlessNested() {
+        // Given
+        graph = new GroupMembershipGraph("test", 10, 100, false);
+        load(group(STAFF, USER), group(EMPLOYEES, STAFF), group(EVERYONE, EMPLOYEES));
+
+        // When
+        Set<String> groups = graph.getGroups(USER);
+
+        // Then
+        assertThat(groups).containsOnly(STAFF.toString());
+    }
+
+    @Test
+    public void shouldNotPopulateGraphWithTooManyMemberships() {
+        // Given
+        graph = new GroupMembershipGraph("test", 10, 2, true);
+
+        // When
+        load(group(STAFF, USER), group(EMPLOYEES, STAFF, USER));
+
+        // Then
+        assertThat(graph.getGroups(USER)).isNull();
+        assertThat(graph.startLoad()).isEqualTo(-1);
+    }
+
+    @Test
+    public void shouldDiscardGraphWhenUpdateExceedsMaximumMemberships() {
+        // Given
+        graph = new GroupMembershipGraph("test", 10, 2, true);
+        load(group(STAFF, USER));
+
+        // When
+        graph.updateGroup(EMPLOYEES, new HashSet<>(Arrays.asList(STAFF, USER)));
+
+        // Then
+        assertThat(graph.getGroups(USER)).isNull();
+    }
+
+    @Test
+    public void shouldStopAtMembershipCycles() {
+        // Given
+        load(group(STAFF, USER, EMPLOYEES), group(EMPLOYEES, STAFF));
+
+        // When
+        Set<String> groups = graph.getGroups(USER);
+
+        // Then
+        assertThat(groups).containsOnly(STAFF.toString(), EMPLOYEES.toString());
+    }
+
+    @Test
+    public void shouldApplyGroupChanges() {
+        // Given
+        load(group(STAFF, USER), group(EMPLOYEES));
+        graph.getGroups(USER);
+
+        // When
+        graph.updateGroup(EMPLOYEES, new HashSet<>(Arrays.asList(STAFF)));
+        graph.removeEntry(STAFF);
+
+        // Then
+        assertThat(graph.getGroups(USER)).isEmpty();
+        assertThat(graph.getGroups(STAFF)).containsOnly(EMPLOYEES.toString());
+    }
+
+    @Test
+    public void shouldReportEntriesChangedWhileLoading() {
+        // Given
+        long token = graph.startLoad();
+        graph.updateGroup(STAFF, new HashSet<>(Arrays.asList(USER)));
+
+        // When
+        Set<DN> changed = graph.finishLoad(token, new HashMap<DN, Set<DN>>());
+
+        // Then
+        assertThat(changed).containsOnly(STAFF);
+        assertThat(graph.getGroups(USER)).isEmpty();
+    }
+
+    @Test
+    public void shouldDiscardLoadWhenInvalidatedWhileLoading() {
+        // Given
+        long token = graph.startLoad();
+        graph.invalidate();
+
+        // When
+        Set<DN> changed = graph.finishLoad(token, group(STAFF, USER));
+
+        // Then
+        assertThat(changed).isNull();
+        assertThat(graph.getGroups(USER)).isNull();
+    }
+
+    @Test
+    public void shouldNotRetryFailedLoadStraightAway() {
+        // Given
+        graph.abortLoad(graph.startLoad());
+
+        // When
+        long token = graph.startLoad();
+
+        // Then
+        assertThat(token).isEqualTo(-1);
+    }
+
+    @SafeVarargs
+    private final void load(Map<DN, Set<DN>>... groups) {
+        Map<DN, Set<DN>> all = new HashMap<>();
+        for (Map<DN, Set<DN>> group : groups) {
+            all.putAll(group);
+        }
+        graph.finishLoad(graph.startLoad(), all);
+    }
+
+    private static Map<DN, Set<DN>> group(DN group, DN... members) {
+        Map<DN, Set<DN>> result = new HashMap<>();
+        result.put(group, new HashSet<>(Arrays.asList(members)));
+        return result;
+    }
+}
@@ -25,6 +25,7 @@
  * $Id: AssertionImpl.java,v 1.8 2009/05/09 15:43:59 mallas Exp $
  *
  * Portions Copyrighted 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 
@@ -666,7 +667,8 @@ public class AssertionImpl implements Assertion {
             if (signedXMLString == null) {
                 signedXMLString = toXMLString(true, true);
             }
-            isSignatureValid = SigManager.getSigInstance().verify(signedXMLString, getID(), verificationCerts);
+            isSignatureValid = SigManager.getSigInstance().verify(
+                SigManager.toSignableElement(signedXMLString), getID(), verificationCerts);
         }
         return isSignatureValid.booleanValue();
     }
@@ -689,7 +691,7 @@ public class AssertionImpl implements Assertion {
 
         Element signatureElement = 
             SigManager.getSigInstance().sign(
-            toXMLString(true, true),
+            SigManager.toSignableElement(toXMLString(true, true)),
             getID(),
             privateKey,
             cert
@@ -25,6 +25,7 @@
  * $Id: SAML2Constants.java,v 1.44 2009/11/24 21:53:02 madan_ranganath Exp $
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.saml2.common;
 
@@ -1212,6 +1213,24 @@ public interface SAML2Constants {
     // minimum Cache cleanup interval in seconds (5 mins).
     public int CACHE_CLEANUP_INTERVAL_MINIMUM = 300;
 
+    // Maximum number of entries held by each SAML2 state cache in
+    // AMConfig.properties. A single cache can be sized by appending
+    // "." and the cache name, e.g. ".IDPCache.relayStateCache".
+    // Caches of session state needed for single logout, such as
+    // IDPCache.idpSessionsByIndices, are unbounded unless sized by name.
+    public String CACHE_MAX_SIZE = "com.sun.identity.saml2.cache.maxSize";
+
+    // default maximum number of entries held by each SAML2 state cache.
+    public int CACHE_MAX_SIZE_DEFAULT = 100000;
+
+    // Lifetime in seconds of cache entries without an expiry time that are
+    // spilled to the SAML2 token repository on eviction.
+    public String CACHE_FAILOVER_TIMEOUT =
+                "com.sun.identity.saml2.cache.failoverTimeout";
+
+    // default lifetime in seconds of spilled cache entries.
+    public int CACHE_FAILOVER_TIMEOUT_DEFAULT = 7200;
+
     // IDP SLO parameter name for logout all sessions
     public String LOGOUT_ALL = "logoutAll";
 
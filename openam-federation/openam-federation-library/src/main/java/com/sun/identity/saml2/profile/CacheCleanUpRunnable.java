@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: CacheCleanUpRunnable.java,v 1.2 2008/11/10 22:57:03 veiming Exp $
  */
@@ -78,29 +79,27 @@ public class CacheCleanUpRunnable extends GeneralTaskRunnable {
             SAML2Utils.debug.message("CacheCleanUpRunnable.run:");
         }
 
-        synchronized(IDPCache.assertionCache) {
-            for(Iterator iter = IDPCache.assertionCache.keySet().iterator();
-                iter.hasNext(); ) {
-
-                String userName = (String)iter.next();
-                List assertions = (List)IDPCache.assertionCache.get(userName);
-                if ((assertions == null) || (assertions.isEmpty())) {
-                    continue;
-                }
-                for(Iterator iterA = assertions.iterator(); iterA.hasNext();) {
-                    Assertion assertion = (Assertion)iterA.next();
-                    if (!assertion.isTimeValid()) {
-                        if (SAML2Utils.debug.messageEnabled()) {
-                            SAML2Utils.debug.message(
-                                "CacheCleanUpRunnable.run: remove assertion." +
-                                "ID = " + assertion.getID() + ", userName = " +
-                                userName);
-			}
-                        iterA.remove();
-                        IDPCache.assertionByIDCache.remove(assertion.getID());
+        for (Object userName : IDPCache.assertionCache.keySet()) {
+            // clean up while the user's entry is locked, so that an assertion is never added to a dropped list
+            IDPCache.assertionCache.computeIfPresent(userName, (key, value) -> {
+                List assertions = (List) value;
+                synchronized (assertions) {
+                    for (Iterator iterA = assertions.iterator(); iterA.hasNext();) {
+                        Assertion assertion = (Assertion) iterA.next();
+                        if (!assertion.isTimeValid()) {
+                            if (SAML2Utils.debug.messageEnabled()) {
+                                SAML2Utils.debug.message(
+                                    "CacheCleanUpRunnable.run: remove assertion." +
+                                    "ID = " + assertion.getID() + ", userName = " +
+                                    userName);
+                            }
+                            iterA.remove();
+                            IDPCache.assertionByIDCache.remove(assertion.getID());
+                        }
                     }
+                    return assertions.isEmpty() ? null : assertions;
                 }
-            }
+            });
         }
 
     }
@@ -25,6 +25,7 @@
  * $Id: CacheCleanUpScheduler.java,v 1.8 2009/05/14 17:23:44 exu Exp $
  *
  * Portions Copyrighted 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.saml2.profile;
@@ -43,26 +44,36 @@ public class CacheCleanUpScheduler {
         TimerPool pool = SystemTimerPool.getTimerPool();
         Date nextRun = new Date(((currentTimeMillis() +
                 (interval * 1000)) / 1000) * 1000);
-        pool.schedule(SPCache.requestHash, nextRun);
-        pool.schedule(SPCache.responseHash, nextRun);
-        pool.schedule(SPCache.mniRequestHash, nextRun);
-        pool.schedule(SPCache.relayStateHash, nextRun);
-        pool.schedule(SPCache.logoutRequestIDHash, nextRun);
-        pool.schedule(SPCache.reqParamHash, nextRun);
-        pool.schedule(SPCache.authnRequestHash, nextRun);
-        pool.schedule(SPCache.fedAccountHash, nextRun);
-        pool.schedule(SPCache.assertionByIDCache, nextRun);
-        pool.schedule(IDPCache.authnRequestCache, nextRun);
-        pool.schedule(IDPCache.idpAuthnContextCache, nextRun);
-        pool.schedule(IDPCache.assertionByIDCache, nextRun);
-        pool.schedule(IDPCache.relayStateCache, nextRun);
-        pool.schedule(IDPCache.responsesByArtifacts, nextRun);
-        pool.schedule(IDPCache.mniRequestHash, nextRun);
-        pool.schedule(IDPCache.responseCache, nextRun);
-        pool.schedule(IDPCache.proxySPAuthnReqCache, nextRun);
-        pool.schedule(IDPCache.proxySPLogoutReqCache, nextRun);
-        pool.schedule(IDPCache.SOAPMessageByLogoutRequestID, nextRun);
-        pool.schedule(IDPCache.logoutResponseCache, nextRun);
+        pool.schedule(SPCache.requestHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.responseHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.mniRequestHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.relayStateHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.logoutRequestIDHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.reqParamHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.authnRequestHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.fedAccountHash.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.assertionByIDCache.getCleanUpTask(), nextRun);
+        pool.schedule(SPCache.fedSessionListsByNameIDInfoKey.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.authnRequestCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.idpAuthnContextCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.assertionCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.assertionByIDCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.relayStateCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.idpSessionsByIndices.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.responsesByArtifacts.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.mniRequestHash.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.responseCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.authnContextCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.sessionUpgradeRequests.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.oldIDPSessionCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.proxySPAuthnReqCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.idpSessionsBySessionID.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.userIDByTransientNameIDValue.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.proxySPLogoutReqCache.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.logoutRequestById.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.SOAPMessageByLogoutRequestID.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.spSessionPartnerBySessionID.getCleanUpTask(), nextRun);
+        pool.schedule(IDPCache.logoutResponseCache.getCleanUpTask(), nextRun);
         pool.schedule(new CacheCleanUpRunnable(SPCache.interval * 1000),
             nextRun);
     }
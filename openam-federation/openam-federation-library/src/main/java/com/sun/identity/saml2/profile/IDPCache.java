@@ -25,22 +25,21 @@
  * $Id: IDPCache.java,v 1.18 2009/05/14 17:23:45 exu Exp $
  *
  * Portions Copyrighted 2010-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.saml2.profile;
 
-import com.sun.identity.common.PeriodicCleanUpMap;
 import java.util.Collections;
-import java.util.Hashtable;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * This class caches authn request objects and relay states
  * based on the request id of the authn requests 
  * It also caches idp session by session index. 
- * TODO: Add cleanup thread to update IDP Cache if the cached
- * objects stay in the cache longer than a certain Cache Duration.
+ * The caches are bounded {@link SAML2StateCache}s whose expired entries are
+ * swept by the tasks scheduled in {@link CacheCleanUpScheduler}.
  */
 
 public class IDPCache {
@@ -55,8 +54,8 @@ public class IDPCache {
      * TODO : handle the case when assertion effective time is different
      *        from cleanup interval
      */
-    public static PeriodicCleanUpMap authnRequestCache = new PeriodicCleanUpMap(
-        SPCache.interval * 1000, SPCache.interval * 1000); 
+    public static SAML2StateCache authnRequestCache =
+        new SAML2StateCache("IDPCache.authnRequestCache", SPCache.interval * 1000, SPCache.interval * 1000); 
 
     /**
      * Cache saves the authn context objects before IDP redirects user to 
@@ -64,33 +63,32 @@ public class IDPCache {
      * Key : request ID String
      * Value : AuthnContext object
      */
-    public static PeriodicCleanUpMap idpAuthnContextCache = 
-        new PeriodicCleanUpMap(
-            SPCache.interval * 1000, SPCache.interval * 1000); 
+    public static SAML2StateCache idpAuthnContextCache =
+        new SAML2StateCache("IDPCache.idpAuthnContextCache", SPCache.interval * 1000, SPCache.interval * 1000); 
 
     /**
      * Cache saves the assertion objects.
      * Key : user ID String
      * Value : list of assertion objects
      */
-    public static Hashtable assertionCache = new Hashtable();
+    public static SAML2StateCache assertionCache =
+        new SAML2StateCache("IDPCache.assertionCache", 0, SPCache.interval * 1000);
 
     /**
      * Cache saves the assertion objects.
      * Key : assertion ID String
      * Value : assertion object
      */
-    public static PeriodicCleanUpMap assertionByIDCache =
-        new PeriodicCleanUpMap(SPCache.interval * 1000,
-        SPCache.interval * 1000); 
+    public static SAML2StateCache assertionByIDCache =
+        new SAML2StateCache("IDPCache.assertionByIDCache", SPCache.interval * 1000, SPCache.interval * 1000); 
 
     /**
      * Cache saves the relay state strings.
      * Key : request ID String
      * Value : relay state string
      */
-    public static PeriodicCleanUpMap relayStateCache = new PeriodicCleanUpMap(
-        SPCache.interval * 1000, SPCache.interval * 1000); 
+    public static SAML2StateCache relayStateCache =
+        new SAML2StateCache("IDPCache.relayStateCache", SPCache.interval * 1000, SPCache.interval * 1000); 
 
     /**
      * Cache saves the idp sessions.
@@ -99,7 +97,8 @@ public class IDPCache {
      * IDP: used in SingleSignOnService and SingleLogoutService
      *      to invalidate a specific session
      */
-    public static Hashtable<String, IDPSession> idpSessionsByIndices = new Hashtable<String, IDPSession>();
+    public static SAML2StateCache<String, IDPSession> idpSessionsByIndices =
+        new SAML2StateCache<>("IDPCache.idpSessionsByIndices", 0, SPCache.interval * 1000);
 
     /**
      * Cache saves Responses to be used by ArtifactResolutionService.
@@ -109,58 +108,58 @@ public class IDPCache {
      * TODO : handle the case when artifact expiration time is different
      *        from cleanup interval
      */
-    public static PeriodicCleanUpMap responsesByArtifacts = 
-       new PeriodicCleanUpMap(SPCache.interval * 1000, SPCache.interval * 1000);
+    public static SAML2StateCache responsesByArtifacts =
+        new SAML2StateCache("IDPCache.responsesByArtifacts", SPCache.interval * 1000, SPCache.interval * 1000);
 
     /**
      * Hashtable saves the MNI request info.
      * Key   :   requestID String
      * Value : ManageNameIDRequestInfo object
      */
-    public static PeriodicCleanUpMap mniRequestHash = new PeriodicCleanUpMap(
-        SPCache.interval * 1000, SPCache.interval * 1000);
+    public static SAML2StateCache mniRequestHash =
+        new SAML2StateCache("IDPCache.mniRequestHash", SPCache.interval * 1000, SPCache.interval * 1000);
 
     /**
      * Cache saves the idp attribute mapper.
      * Key : idp attribute mapper class name
      * Value : idp attribute mapper object
      */
-    public static Hashtable idpAttributeMapperCache = new Hashtable(); 
+    public static Map idpAttributeMapperCache = new ConcurrentHashMap(); 
 
     /**
      * Cache saves the idp account mapper.
      * Key : idp account mapper class name
      * Value : idp account mapper object
      */
-    public static Hashtable idpAccountMapperCache = new Hashtable();
+    public static Map idpAccountMapperCache = new ConcurrentHashMap();
 
     /**
      * Cache saves the idp authn context mapper.
      * Key : idp authn context mapper class name
      * Value : idp authn context mapper object
      */
-    public static Hashtable idpAuthnContextMapperCache = new Hashtable(); 
+    public static Map idpAuthnContextMapperCache = new ConcurrentHashMap(); 
 
     /**
      * Cache saves the idp ecp session mapper.
      * Key : idp ecp session mapper class name
      * Value : idp ecp session mapper object
      */
-    public static Hashtable idpECPSessionMapperCache = new Hashtable(); 
+    public static Map idpECPSessionMapperCache = new ConcurrentHashMap(); 
 
      /**
      * Cache saves the IDP Proxy Finder.
      * Key : IDP Proxy Finder class name
      * Value : IDP Proxy Finder mapper object
      */
-    public static Hashtable idpProxyFinderCache = new Hashtable();
+    public static Map idpProxyFinderCache = new ConcurrentHashMap();
 
     /**
      * Cache saves the IDP Adapter.
      * Key : IDP Adapter class name
      * Value : IDP Adapter mapper object
      */
-    public static Hashtable idpAdapterCache = new Hashtable();
+    public static Map idpAdapterCache = new ConcurrentHashMap();
 
     /**
      * Cache saves information needed after coming back from COT cookie setting.
@@ -168,8 +167,8 @@ public class IDPCache {
      * value --- Response Information List (ArrayList of size 9)
      * IDP: used in SingleSignOnService and ArtifactResolutionService
      */
-    public static PeriodicCleanUpMap responseCache = new PeriodicCleanUpMap(
-        SPCache.interval * 1000, SPCache.interval * 1000);
+    public static SAML2StateCache responseCache =
+        new SAML2StateCache("IDPCache.responseCache", SPCache.interval * 1000, SPCache.interval * 1000);
  
     /**
      * Cache saves informate needed to determine the Authentication
@@ -177,7 +176,12 @@ public class IDPCache {
      * key   : sessionIndex (String)
      * value : the AuthnContext object
      */
-    public static Hashtable authnContextCache = new Hashtable();
+    public static SAML2StateCache authnContextCache =
+        new SAML2StateCache("IDPCache.authnContextCache", 0, SPCache.interval * 1000);
+
+    // backs isSessionUpgradeCache so that its expired entries can be swept
+    static final SAML2StateCache<Object, Boolean> sessionUpgradeRequests =
+        new SAML2StateCache<>("IDPCache.isSessionUpgradeCache", SPCache.interval * 1000, SPCache.interval * 1000);
 
     /**
      * Cache saves information to determine if the request was
@@ -185,71 +189,71 @@ public class IDPCache {
      * key   : requestID (String)
      * value : session upgrade (Boolean)
      */
-    public static Set isSessionUpgradeCache =  
-        Collections.synchronizedSet(new HashSet());
+    public static Set isSessionUpgradeCache = Collections.newSetFromMap(sessionUpgradeRequests);
 
     /**
      * Cache saves the IDP Session object before an session upgrade.
      * key    : requestID (String)
      * value  : IDPSession object.
      */
-    public static Hashtable oldIDPSessionCache = new Hashtable();
+    public static SAML2StateCache oldIDPSessionCache =
+        new SAML2StateCache("IDPCache.oldIDPSessionCache", SPCache.interval * 1000, SPCache.interval * 1000);
     
     /**
       * Cache saves the original AuthnRequest coming from SP to IDP proxy
       * key   : requestID (String) 
       * value : AuthnRequest 
       */ 
-    public static PeriodicCleanUpMap proxySPAuthnReqCache =
-         new PeriodicCleanUpMap(
-         SPCache.interval * 1000, SPCache.interval * 1000); 
+    public static SAML2StateCache proxySPAuthnReqCache =
+        new SAML2StateCache("IDPCache.proxySPAuthnReqCache", SPCache.interval * 1000, SPCache.interval * 1000); 
 
     /** 
       * Cache saves the IDPSession per session ID.
       * key   : sessionId (String) 
       * value : IDPSession
       */
-    public static Hashtable<String, IDPSession> idpSessionsBySessionID = new Hashtable<>();
+    public static SAML2StateCache<String, IDPSession> idpSessionsBySessionID =
+        new SAML2StateCache<>("IDPCache.idpSessionsBySessionID", 0, SPCache.interval * 1000);
     
     /** 
       * Cache saves user ID for transient NameID 
       * key   : NameID value (String) 
       * value : user ID 
       */
-    public static Hashtable userIDByTransientNameIDValue = new Hashtable(); 
+    public static SAML2StateCache userIDByTransientNameIDValue =
+        new SAML2StateCache("IDPCache.userIDByTransientNameIDValue", 0, SPCache.interval * 1000, String.class); 
 
     /** 
       * Cache saves the original LogoutRequest coming from SP to IDP proxy
       * key   : requestID (String) 
       * value : LogoutRequest
       */
-    public static PeriodicCleanUpMap proxySPLogoutReqCache =
-        new PeriodicCleanUpMap(
-        SPCache.interval * 1000, SPCache.interval * 1000);
+    public static SAML2StateCache proxySPLogoutReqCache =
+        new SAML2StateCache("IDPCache.proxySPLogoutReqCache", SPCache.interval * 1000, SPCache.interval * 1000);
 
     /**
      * Cache to save LogoutRequests by their ID for later retrieval.
      * key: ID attribute value of the LogoutRequest as String.
      * value: LogoutRequest
      */
-    public static PeriodicCleanUpMap logoutRequestById = new PeriodicCleanUpMap(SPCache.interval * 1000,
-            SPCache.interval * 1000);
+    public static SAML2StateCache logoutRequestById =
+        new SAML2StateCache("IDPCache.logoutRequestById", SPCache.interval * 1000, SPCache.interval * 1000);
 
     /** 
       * Cache saves the SOAPMessage created by proxy IDP to the original SP
       * key   : requestID (String) 
       * value : SOAPMessage
       */
-    public static PeriodicCleanUpMap SOAPMessageByLogoutRequestID =
-         new PeriodicCleanUpMap(
-         SPCache.interval * 1000, SPCache.interval * 1000); 
+    public static SAML2StateCache SOAPMessageByLogoutRequestID =
+        new SAML2StateCache("IDPCache.SOAPMessageByLogoutRequestID", SPCache.interval * 1000, SPCache.interval * 1000); 
 
     /**
       * Cache saves the SAML2 Session Partner's providerID 
       * key   : sessionId (String)
       * value : SAML2 SessionPartner's provider id 
       */
-    public static Hashtable<String, String> spSessionPartnerBySessionID = new Hashtable<>();
+    public static SAML2StateCache<String, String> spSessionPartnerBySessionID =
+        new SAML2StateCache<>("IDPCache.spSessionPartnerBySessionID", 0, SPCache.interval * 1000, String.class);
     
      /** 
       * Cache saves the original LogoutResponse generated by IDP proxy 
@@ -258,16 +262,15 @@ public class IDPCache {
       * value : Map keeping LogoutResponse, sending location, 
       *         spEntityID and idpEntityID. 
       */
-     public static PeriodicCleanUpMap logoutResponseCache =
-          new PeriodicCleanUpMap(
-          SPCache.interval * 1000, SPCache.interval * 1000); 
+     public static SAML2StateCache logoutResponseCache =
+        new SAML2StateCache("IDPCache.logoutResponseCache", SPCache.interval * 1000, SPCache.interval * 1000); 
     /**
      * Hashtable saves AuthnContextClassRef to auth schems mapping
      * key  : hostEntityID + "|" + realmName
      * value: Map containing AuthnContext class ref as Key and 
      *            Set of auth schemes as value.
      */
-    public static Hashtable classRefSchemesHash = new Hashtable();
+    public static Map classRefSchemesHash = new ConcurrentHashMap();
 
     /**
      * Hashtable saves AuthnContextClassRef to AuthLevel mapping
@@ -275,14 +278,14 @@ public class IDPCache {
      * value: Map containing AuthnContext class ref as Key and 
      *            authLevel as value.
      */
-    public static Hashtable classRefLevelHash = new Hashtable();
+    public static Map classRefLevelHash = new ConcurrentHashMap();
 
     /**
      * Hashtable saves AuthLevel to AuthnContextClassRef mapping
      * key  : hostEntityID + "|" + realmName
      * value: String default AuthnContext Class Ref.
      */
-    public static Hashtable defaultClassRefHash = new Hashtable();
+    public static Map defaultClassRefHash = new ConcurrentHashMap();
 
     /**
      * Hashtable saves NameID format to user profile attribute mapping
@@ -290,7 +293,7 @@ public class IDPCache {
      * value: Map containing NameNameID format as Key and user profile
      *     attribute name as Value.
      */
-    public static final Map<String, Map<String, String>> formatAttributeHash = new Hashtable<>();
+    public static final Map<String, Map<String, String>> formatAttributeHash = new ConcurrentHashMap<>();
 
     /**
      * Clears the authn context mapping hash tables.
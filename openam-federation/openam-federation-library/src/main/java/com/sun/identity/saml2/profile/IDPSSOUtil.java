@@ -26,6 +26,7 @@
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
  * Portions Copyrighted 2013 Nomura Research Institute, Ltd
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.saml2.profile;
@@ -1080,19 +1081,16 @@ public class IDPSSOUtil {
 
             String cacheKey = userName.toLowerCase();
 
-            List assertions = (List) IDPCache.assertionCache.get(cacheKey);
-            if (assertions == null) {
-                synchronized (IDPCache.assertionCache) {
-                    assertions = (List) IDPCache.assertionCache.get(cacheKey);
-                    if (assertions == null) {
-                        assertions = new ArrayList();
-                        IDPCache.assertionCache.put(cacheKey, assertions);
-                    }
+            // add while the user's entry is locked, so that the clean up cannot drop the list concurrently
+            IDPCache.assertionCache.compute(cacheKey, (key, value) -> {
+                List assertions = value == null ? new ArrayList() : (List) value;
+                synchronized (assertions) {
+                    assertions.add(assertion);
                 }
-            }
-            synchronized (assertions) {
-                assertions.add(assertion);
-            }
+                return assertions;
+            });
+            // keep the user's assertions for as long as the latest of them is valid
+            IDPCache.assertionCache.extendExpiry(cacheKey, conditions.getNotOnOrAfter().getTime());
 
             IDPCache.assertionByIDCache.put(assertionID, assertion);
             if (SAML2FailoverUtils.isSAML2FailoverEnabled()) {
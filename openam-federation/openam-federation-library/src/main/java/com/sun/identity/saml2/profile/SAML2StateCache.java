@@ -0,0 +1,530 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.saml2.profile;
+
+import static org.forgerock.openam.utils.Time.*;
+
+import java.lang.management.ManagementFactory;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.forgerock.openam.federation.saml2.SAML2TokenRepositoryException;
+import org.forgerock.openam.utils.collections.SampledEviction;
+
+import com.sun.identity.common.GeneralTaskRunnable;
+import com.sun.identity.saml2.common.SAML2Constants;
+import com.sun.identity.saml2.common.SAML2FailoverUtils;
+import com.sun.identity.saml2.common.SAML2Utils;
+import com.sun.identity.shared.configuration.SystemPropertiesManager;
+
+/**
+ * A bounded, concurrent map holding SAML2 protocol state such as pending requests, assertions and IDP sessions.
+ * <p>
+ * Entries may carry an expiry time, either the default timeout of the cache or one supplied with
+ * {@link #put(Object, Object, long)}. Expired entries are never returned and are swept by the task returned from
+ * {@link #getCleanUpTask()}, which is scheduled on the {@link com.sun.identity.common.SystemTimerPool}. Once the
+ * cache holds its maximum number of entries, adding another evicts the least recently used entry out of a small
+ * random sample, preferring entries that have already expired.
+ * <p>
+ * Caches whose entries do not expire by default hold state that lives as long as its session, such as the IDP
+ * sessions needed for single logout. They are only bounded when a maximum size is configured for the cache by
+ * name, as evicting their entries would break logout. Other caches are bounded by the global maximum size.
+ * <p>
+ * A cache created with a failover type spills evicted entries of that type to the SAML2 token repository when
+ * SAML2 failover is enabled, and reads them back on a local miss. Occupancy and eviction counts are published as
+ * an MBean named {@code OpenAM:type=SAML2StateCache,name=<cache name>}.
+ *
+ * @param <K> The type of keys.
+ * @param <V> The type of values.
+ */
+public class SAML2StateCache<K, V> extends AbstractMap<K, V> implements SAML2StateCacheMBean {
+
+    private static final int SAMPLE_SIZE = 8;
+
+    private final String name;
+    private final int maxSize;
+    private final long timeout;
+    private final Class<V> failoverType;
+    private final long failoverTimeout;
+    private final ConcurrentHashMap<K, Node<V>> map = new ConcurrentHashMap<>();
+    private final EntrySet entrySet = new EntrySet();
+    private final CleanUpTask cleanUpTask;
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder spills = new LongAdder();
+    private final LongAdder failoverHits = new LongAdder();
+
+    /**
+     * Creates a cache whose maximum size is read from configuration.
+     *
+     * @param name The name of the cache, used for configuration and monitoring.
+     * @param timeout The default lifetime of an entry in milliseconds, or 0 if entries do not expire by default.
+     * @param runPeriod The period of the clean up task in milliseconds.
+     */
+    public SAML2StateCache(String name, long timeout, long runPeriod) {
+        this(name, getConfiguredMaxSize(name, timeout), timeout, runPeriod, null);
+    }
+
+    /**
+     * Creates a cache whose maximum size is read from configuration and which spills evicted entries of the given
+     * type to the SAML2 token repository.
+     *
+     * @param name The name of the cache, used for configuration and monitoring.
+     * @param timeout The default lifetime of an entry in milliseconds, or 0 if entries do not expire by default.
+     * @param runPeriod The period of the clean up task in milliseconds.
+     * @param failoverType The type of values that can be spilled to the SAML2 token repository.
+     */
+    public SAML2StateCache(String name, long timeout, long runPeriod, Class<V> failoverType) {
+        this(name, getConfiguredMaxSize(name, timeout), timeout, runPeriod, failoverType);
+    }
+
+    SAML2StateCache(String name, int maxSize, long timeout, long runPeriod, Class<V> failoverType) {
+        if (maxSize < 1) {
+            throw new IllegalArgumentException("Illegal maximum size: " + maxSize);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.timeout = Math.max(0, timeout);
+        this.failoverType = failoverType;
+        this.failoverTimeout = SystemPropertiesManager.getAsInt(SAML2Constants.CACHE_FAILOVER_TIMEOUT,
+                SAML2Constants.CACHE_FAILOVER_TIMEOUT_DEFAULT) * 1000L;
+        this.cleanUpTask = new CleanUpTask(runPeriod);
+        registerMBean();
+    }
+
+    /**
+     * Returns the task which removes expired entries from this cache.
+     *
+     * @return The clean up task.
+     */
+    public GeneralTaskRunnable getCleanUpTask() {
+        return cleanUpTask;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public int getSize() {
+        return map.size();
+    }
+
+    @Override
+    public int getMaximumSize() {
+        return maxSize;
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return evictions.sum();
+    }
+
+    @Override
+    public long getExpiredCount() {
+        return expirations.sum();
+    }
+
+    @Override
+    public long getSpillCount() {
+        return spills.sum();
+    }
+
+    @Override
+    public long getFailoverHitCount() {
+        return failoverHits.sum();
+    }
+
+    @Override
+    public int size() {
+        return map.size();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return map.isEmpty();
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        return get(key) != null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V get(Object key) {
+        Node<V> node = map.get(key);
+        if (node != null) {
+            if (!node.isExpired(currentTimeMillis())) {
+                node.touch();
+                return node.value;
+            }
+            if (map.remove(key, node)) {
+                expirations.increment();
+            }
+        }
+        return loadFromFailover((K) key);
+    }
+
+    /**
+     * Adds an entry which expires after the default timeout of this cache.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @return The previous value for the key, or {@code null} if there was none.
+     */
+    @Override
+    public V put(K key, V value) {
+        return put(key, value, timeout == 0 ? 0 : currentTimeMillis() + timeout);
+    }
+
+    /**
+     * Adds an entry which expires at the given time.
+     *
+     * @param key The key.
+     * @param value The value.
+     * @param expiryTime The time in milliseconds since the epoch after which the entry is discarded, or 0 if the
+     *                   entry does not expire.
+     * @return The previous value for the key, or {@code null} if there was none.
+     */
+    public V put(K key, V value, long expiryTime) {
+        if (value == null) {
+            throw new NullPointerException();
+        }
+        Node<V> previous = map.put(key, new Node<>(value, expiryTime));
+        if (previous == null) {
+            evictIfNecessary();
+        }
+        return previous == null ? null : previous.value;
+    }
+
+    /**
+     * Makes sure the entry for the key does not expire before the given time. Entries without an expiry time are
+     * given this one.
+     *
+     * @param key The key.
+     * @param expiryTime The time in milliseconds since the epoch.
+     */
+    public void extendExpiry(K key, long expiryTime) {
+        map.computeIfPresent(key, (k, node) -> node.expiryTime == 0 || node.expiryTime < expiryTime
+                ? new Node<>(node.value, expiryTime) : node);
+    }
+
+    /**
+     * Atomically computes a new value for the key. The remapping function is invoked at most once while the key's
+     * entry is locked, so values such as lists can be updated in place without any further locking. An expired
+     * entry is treated as absent, and the SAML2 token repository is not consulted. A new value expires after the
+     * default timeout of this cache.
+     */
+    @Override
+    public V compute(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        boolean[] added = new boolean[1];
+        Node<V> node = map.compute(key, (k, existing) -> {
+            long now = currentTimeMillis();
+            V oldValue = existing == null || existing.isExpired(now) ? null : existing.value;
+            V newValue = remappingFunction.apply(k, oldValue);
+            if (newValue == null) {
+                return null;
+            }
+            if (newValue == oldValue) {
+                existing.touch();
+                return existing;
+            }
+            added[0] = existing == null;
+            return new Node<>(newValue, timeout == 0 ? 0 : now + timeout);
+        });
+        if (added[0]) {
+            evictIfNecessary();
+        }
+        return node == null ? null : node.value;
+    }
+
+    @Override
+    public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
+        return compute(key, (k, v) -> v == null ? mappingFunction.apply(k) : v);
+    }
+
+    @Override
+    public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
+        return compute(key, (k, v) -> v == null ? null : remappingFunction.apply(k, v));
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        Node<V> node = map.remove(key);
+        if (node == null) {
+            deleteFromFailover((K) key);
+            return null;
+        }
+        return node.isExpired(currentTimeMillis()) ? null : node.value;
+    }
+
+    @Override
+    public void clear() {
+        map.clear();
+    }
+
+    /**
+     * Returns an enumeration of the keys in this cache, as {@link java.util.Hashtable#keys()} does.
+     *
+     * @return An enumeration of the keys.
+     */
+    public Enumeration<K> keys() {
+        return map.keys();
+    }
+
+    @Override
+    public Set<K> keySet() {
+        return map.keySet();
+    }
+
+    @Override
+    public Set<Entry<K, V>> entrySet() {
+        return entrySet;
+    }
+
+    private void evictIfNecessary() {
+        while (map.size() > maxSize) {
+            if (!evictOne()) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * Evicts an expired or the least recently used entry out of a sample taken from random positions in the cache.
+     *
+     * @return {@code false} if the cache was empty and nothing could be evicted.
+     */
+    private boolean evictOne() {
+        final long now = currentTimeMillis();
+        Comparator<Node<V>> evictionOrder = (a, b) -> a.isOlderThan(b, now) ? -1 : b.isOlderThan(a, now) ? 1 : 0;
+        Map.Entry<K, Node<V>> victim = SampledEviction.chooseVictim(map, SAMPLE_SIZE, evictionOrder);
+        if (victim == null) {
+            return false;
+        }
+        // only remove the node that was sampled, a concurrent put may already have replaced it
+        if (map.remove(victim.getKey(), victim.getValue())) {
+            if (victim.getValue().isExpired(now)) {
+                expirations.increment();
+            } else {
+                evictions.increment();
+                spillToFailover(victim.getKey(), victim.getValue(), now);
+            }
+        }
+        return true;
+    }
+
+    private boolean isFailoverEnabled(Object key) {
+        return failoverType != null && key instanceof String && SAML2FailoverUtils.isSAML2FailoverEnabled();
+    }
+
+    private String getFailoverKey(Object key) {
+        return name + "|" + key;
+    }
+
+    private void spillToFailover(K key, Node<V> node, long now) {
+        if (!isFailoverEnabled(key) || !failoverType.isInstance(node.value)) {
+            return;
+        }
+        long expiryTime = node.expiryTime == 0 ? now + failoverTimeout : node.expiryTime;
+        try {
+            SAML2FailoverUtils.saveSAML2TokenWithoutSecondaryKey(getFailoverKey(key), node.value, expiryTime / 1000);
+            spills.increment();
+        } catch (SAML2TokenRepositoryException e) {
+            SAML2Utils.debug.warning("SAML2StateCache.spillToFailover: Unable to save evicted entry of {}", name, e);
+        }
+    }
+
+    private V loadFromFailover(K key) {
+        if (!isFailoverEnabled(key)) {
+            return null;
+        }
+        try {
+            Object value = SAML2FailoverUtils.retrieveSAML2Token(getFailoverKey(key));
+            if (!failoverType.isInstance(value)) {
+                return null;
+            }
+            failoverHits.increment();
+            V restored = failoverType.cast(value);
+            if (map.putIfAbsent(key, new Node<>(restored, timeout == 0 ? 0 : currentTimeMillis() + timeout)) == null) {
+                SAML2FailoverUtils.deleteSAML2Token(getFailoverKey(key));
+                evictIfNecessary();
+            }
+            return restored;
+        } catch (SAML2TokenRepositoryException e) {
+            SAML2Utils.debug.warning("SAML2StateCache.loadFromFailover: Unable to read entry of {}", name, e);
+            return null;
+        }
+    }
+
+    private void deleteFromFailover(K key) {
+        if (!isFailoverEnabled(key)) {
+            return;
+        }
+        try {
+            SAML2FailoverUtils.deleteSAML2Token(getFailoverKey(key));
+        } catch (SAML2TokenRepositoryException e) {
+            SAML2Utils.debug.warning("SAML2StateCache.deleteFromFailover: Unable to delete entry of {}", name, e);
+        }
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("OpenAM:type=SAML2StateCache,name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(this, objectName);
+        } catch (Exception e) {
+            SAML2Utils.debug.warning("SAML2StateCache: Unable to register monitoring for {}", name, e);
+        }
+    }
+
+    private static int getConfiguredMaxSize(String name, long timeout) {
+        int maxSize = timeout > 0
+                ? SystemPropertiesManager.getAsInt(SAML2Constants.CACHE_MAX_SIZE, SAML2Constants.CACHE_MAX_SIZE_DEFAULT)
+                : Integer.MAX_VALUE;
+        return Math.max(1, SystemPropertiesManager.getAsInt(SAML2Constants.CACHE_MAX_SIZE + "." + name, maxSize));
+    }
+
+    /**
+     * Holds a cached value together with its expiry time and the time it was last read or written.
+     */
+    private static final class Node<V> {
+        private final V value;
+        private final long expiryTime;
+        private volatile long lastAccess;
+
+        private Node(V value, long expiryTime) {
+            this.value = value;
+            this.expiryTime = expiryTime;
+            this.lastAccess = System.nanoTime();
+        }
+
+        private boolean isExpired(long now) {
+            return expiryTime != 0 && expiryTime <= now;
+        }
+
+        private boolean isOlderThan(Node<V> other, long now) {
+            boolean expired = isExpired(now);
+            if (expired != other.isExpired(now)) {
+                return expired;
+            }
+            return lastAccess < other.lastAccess;
+        }
+
+        private void touch() {
+            lastAccess = System.nanoTime();
+        }
+    }
+
+    /**
+     * Removes expired entries each time it is run.
+     */
+    private final class CleanUpTask extends GeneralTaskRunnable {
+        private final long runPeriod;
+
+        private CleanUpTask(long runPeriod) {
+            this.runPeriod = runPeriod;
+        }
+
+        @Override
+        public boolean addElement(Object obj) {
+            return false;
+        }
+
+        @Override
+        public boolean removeElement(Object obj) {
+            return false;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return false;
+        }
+
+        @Override
+        public long getRunPeriod() {
+            return runPeriod;
+        }
+
+        @Override
+        public void run() {
+            long now = currentTimeMillis();
+            for (Map.Entry<K, Node<V>> entry : map.entrySet()) {
+                if (entry.getValue().isExpired(now) && map.remove(entry.getKey(), entry.getValue())) {
+                    expirations.increment();
+                }
+            }
+            if (SAML2Utils.debug.messageEnabled()) {
+                SAML2Utils.debug.message("SAML2StateCache.CleanUpTask.run: " + name + " size=" + map.size()
+                        + " evictions=" + evictions.sum() + " expirations=" + expirations.sum());
+            }
+        }
+    }
+
+    private final class EntrySet extends AbstractSet<Entry<K, V>> {
+
+        @Override
+        public Iterator<Entry<K, V>> iterator() {
+            final Iterator<Map.Entry<K, Node<V>>> delegate = map.entrySet().iterator();
+            return new Iterator<Entry<K, V>>() {
+                @Override
+                public boolean hasNext() {
+                    return delegate.hasNext();
+                }
+
+                @Override
+                public Entry<K, V> next() {
+                    Map.Entry<K, Node<V>> entry = delegate.next();
+                    return new SimpleImmutableEntry<>(entry.getKey(), entry.getValue().value);
+                }
+
+                @Override
+                public void remove() {
+                    delegate.remove();
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return map.size();
+        }
+
+        @Override
+        public void clear() {
+            map.clear();
+        }
+    }
+}
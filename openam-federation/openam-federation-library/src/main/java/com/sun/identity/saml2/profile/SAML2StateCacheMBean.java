@@ -0,0 +1,72 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.saml2.profile;
+
+/**
+ * Monitoring interface of a {@link SAML2StateCache}.
+ */
+public interface SAML2StateCacheMBean {
+
+    /**
+     * Returns the name of the cache.
+     *
+     * @return The cache name.
+     */
+    String getName();
+
+    /**
+     * Returns the number of entries currently held, including expired entries not yet swept.
+     *
+     * @return The number of entries.
+     */
+    int getSize();
+
+    /**
+     * Returns the maximum number of entries held before the least recently used are evicted.
+     *
+     * @return The maximum size.
+     */
+    int getMaximumSize();
+
+    /**
+     * Returns the number of live entries evicted because the cache was full.
+     *
+     * @return The eviction count.
+     */
+    long getEvictionCount();
+
+    /**
+     * Returns the number of entries discarded because they expired.
+     *
+     * @return The expiry count.
+     */
+    long getExpiredCount();
+
+    /**
+     * Returns the number of evicted entries saved to the SAML2 token repository.
+     *
+     * @return The spill count.
+     */
+    long getSpillCount();
+
+    /**
+     * Returns the number of local misses answered from the SAML2 token repository.
+     *
+     * @return The failover hit count.
+     */
+    long getFailoverHitCount();
+}
@@ -25,16 +25,17 @@
  * $Id: SPCache.java,v 1.17 2009/06/09 20:28:32 exu Exp $
  *
  * Portions Copyrighted 2015-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 
 package com.sun.identity.saml2.profile;
 
-import java.util.Hashtable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 import org.forgerock.openam.utils.StringUtils;
 
-import com.sun.identity.common.PeriodicCleanUpMap;
 import com.sun.identity.saml2.common.SAML2Constants;
 import com.sun.identity.saml2.common.SAML2Utils;
 import com.sun.identity.shared.configuration.SystemPropertiesManager;
@@ -77,40 +78,40 @@ public class SPCache {
      * Key   :   A unique key String value
      * Value : AuthnRequest object
      */
-    final public static PeriodicCleanUpMap authnRequestHash = new PeriodicCleanUpMap(
-            interval * 1000, interval * 1000);
+    final public static SAML2StateCache authnRequestHash =
+        new SAML2StateCache("SPCache.authnRequestHash", interval * 1000, interval * 1000);
 
     /**
      * Map saves data on whether the account was federated.
      * Key   :   A unique key String value
      * Value : String representing boolean val
      */
-    final public static PeriodicCleanUpMap fedAccountHash = new PeriodicCleanUpMap(
-            interval * 1000, interval * 1000);
+    final public static SAML2StateCache fedAccountHash =
+        new SAML2StateCache("SPCache.fedAccountHash", interval * 1000, interval * 1000);
 
     /**
      * Map saves the request info.
      * Key   :   requestID String
      * Value : AuthnRequestInfo object
      */
-    final public static PeriodicCleanUpMap requestHash = new PeriodicCleanUpMap(
-        interval * 1000, interval * 1000); 
+    final public static SAML2StateCache requestHash =
+        new SAML2StateCache("SPCache.requestHash", interval * 1000, interval * 1000); 
 
     /**
      * Map saves the MNI request info.
      * Key   :   requestID String
      * Value : ManageNameIDRequestInfo object
      */
-    final protected static PeriodicCleanUpMap mniRequestHash = new PeriodicCleanUpMap(
-        interval * 1000, interval * 1000);
+    final protected static SAML2StateCache mniRequestHash =
+        new SAML2StateCache("SPCache.mniRequestHash", interval * 1000, interval * 1000);
 
     /**
      * Map to save the relayState URL.
      * Key  : a String the relayStateID 
      * Value: a String the RelayState Value 
      */
-    final public static PeriodicCleanUpMap relayStateHash= new PeriodicCleanUpMap(
-        interval * 1000, interval * 1000);
+    final public static SAML2StateCache relayStateHash =
+        new SAML2StateCache("SPCache.relayStateHash", interval * 1000, interval * 1000);
 
     /**
      * Hashtable stores information required for LogoutRequest consumption.
@@ -120,7 +121,8 @@ public class SPCache {
      *                     - sp token id (String)                     
      * one key --- multiple SPFedSession's
      */
-    final public static Hashtable fedSessionListsByNameIDInfoKey = new Hashtable();
+    final public static SAML2StateCache fedSessionListsByNameIDInfoKey =
+        new SAML2StateCache("SPCache.fedSessionListsByNameIDInfoKey", 0, interval * 1000);
 
     /**
      * SP: used to map LogoutRequest ID and inResponseTo in LogoutResponse
@@ -128,23 +130,23 @@ public class SPCache {
      * key : request ID (String)
      * value : original logout request object  (LogotRequest)
      */
-    final public static PeriodicCleanUpMap logoutRequestIDHash =
-        new PeriodicCleanUpMap(interval * 1000, interval * 1000);
+    final public static SAML2StateCache logoutRequestIDHash =
+        new SAML2StateCache("SPCache.logoutRequestIDHash", interval * 1000, interval * 1000);
 
     /**
      * Map saves response info for local auth.
      * Key: requestID String
      * Value: ResponseInfo object
      */
-    final protected static PeriodicCleanUpMap responseHash = new PeriodicCleanUpMap(
-        interval * 1000, interval * 1000);
+    final protected static SAML2StateCache responseHash =
+        new SAML2StateCache("SPCache.responseHash", interval * 1000, interval * 1000);
 
     /**
      * Hashtable saves AuthnContext Mapper object.
      * Key: hostEntityID+realmName
      * Value: SPAuthnContextMapper
      */
-    final public static Hashtable authCtxObjHash = new Hashtable();
+    final public static Map authCtxObjHash = new ConcurrentHashMap();
 
     /**
      * Hashtable saves AuthnContext class name and the authLevel. 
@@ -152,7 +154,7 @@ public class SPCache {
      * Value: Map containing AuthContext Class Name as Key and value
      *              is authLevel.
      */
-    final public static Hashtable authContextHash = new Hashtable();
+    final public static Map authContextHash = new ConcurrentHashMap();
 
     /**
      * Hashtable saves the Request Parameters before redirecting
@@ -160,8 +162,8 @@ public class SPCache {
      * Key: requestID a String
      * Value : Request Parameters Map , a Map
      */
-    final public static PeriodicCleanUpMap reqParamHash = new PeriodicCleanUpMap(
-        SPCache.interval * 1000, SPCache.interval * 1000);
+    final public static SAML2StateCache reqParamHash =
+        new SAML2StateCache("SPCache.reqParamHash", SPCache.interval * 1000, SPCache.interval * 1000);
 
 
     /**
@@ -169,7 +171,7 @@ public class SPCache {
      * Key : sp account mapper class name
      * Value : sp account mapper object
      */
-    final public static Hashtable spAccountMapperCache = new Hashtable();
+    final public static Map spAccountMapperCache = new ConcurrentHashMap();
     
     /**
      * Cache saves the sp adapter class instance.
@@ -177,7 +179,7 @@ public class SPCache {
      * Value : sp adapter class instance 
      * (<code>SAML2ServiceProviderAdapter</code>)
      */
-    final public static Hashtable spAdapterClassCache = new Hashtable();
+    final public static Map spAdapterClassCache = new ConcurrentHashMap();
 
     /**
      * Cache saves the fedlet adapter class instance.
@@ -185,23 +187,22 @@ public class SPCache {
      * Value : fedlet adapter class instance 
      * (<code>FedletAdapter</code>)
      */
-    public static Hashtable fedletAdapterClassCache = new Hashtable();
+    public static Map fedletAdapterClassCache = new ConcurrentHashMap();
 
     /**
      * Cache saves the ecp request IDP list finder.
      * Key : ecp request IDP list finder class name
      * Value : ecp request IDP list finder object
      */
-    final public static Hashtable ecpRequestIDPListFinderCache = new Hashtable();
+    final public static Map ecpRequestIDPListFinderCache = new ConcurrentHashMap();
 
     /**
      * Cache saves the assertion id.
      * Key : assertion ID String
      * Value : Constant  
      */
-    final public static PeriodicCleanUpMap assertionByIDCache =
-        new PeriodicCleanUpMap(interval * 1000,
-        interval * 1000);
+    final public static SAML2StateCache assertionByIDCache =
+        new SAML2StateCache("SPCache.assertionByIDCache", interval * 1000, interval * 1000);
     
     /**
      * Clears the auth context object hash table.
@@ -25,6 +25,7 @@
  * $Id: RequestAbstractImpl.java,v 1.5 2008/06/25 05:48:00 qcheng Exp $
  *
  * Portions Copyrighted 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.saml2.protocol.impl;
 
@@ -130,7 +131,7 @@ public abstract class RequestAbstractImpl implements RequestAbstract {
         throws SAML2Exception  {
 
         Element signatureEle = SigManager.getSigInstance().sign(
-            toXMLString(true, true),
+            SigManager.toSignableElement(toXMLString(true, true)),
             getID(),
             privateKey,
             cert
@@ -310,7 +311,8 @@ public abstract class RequestAbstractImpl implements RequestAbstract {
     public boolean isSignatureValid(Set<X509Certificate> verificationCerts)
         throws SAML2Exception {
         if (isSignatureValid == null) {
-            isSignatureValid = SigManager.getSigInstance().verify(signedXMLString, getID(), verificationCerts);
+            isSignatureValid = SigManager.getSigInstance().verify(
+                SigManager.toSignableElement(signedXMLString), getID(), verificationCerts);
         }
         return isSignatureValid.booleanValue();
     }
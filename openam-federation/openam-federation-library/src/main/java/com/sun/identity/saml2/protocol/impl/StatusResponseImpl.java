@@ -25,7 +25,7 @@
  * $Id: StatusResponseImpl.java,v 1.4 2008/06/25 05:48:01 qcheng Exp $
  *
  * Portions Copyrighted 2015-2016 ForgeRock AS.
- * Portions Copyrighted 2023 Wren Security
+ * Portions Copyrighted 2023-2026 Wren Security
  */
 package com.sun.identity.saml2.protocol.impl;
 
@@ -176,7 +176,7 @@ public abstract class StatusResponseImpl implements StatusResponse {
      public void sign(PrivateKey privateKey, X509Certificate cert)
         throws SAML2Exception  {
         Element signatureEle = SigManager.getSigInstance().sign(
-            toXMLString(true, true),
+            SigManager.toSignableElement(toXMLString(true, true)),
             getID(),
             privateKey,
             cert
@@ -359,7 +359,8 @@ public abstract class StatusResponseImpl implements StatusResponse {
     public boolean isSignatureValid(Set<X509Certificate> verificationCerts)
         throws SAML2Exception {
         if (isSignatureValid == null) {
-             isSignatureValid = SigManager.getSigInstance().verify(signedXMLString, getID(), verificationCerts);
+             isSignatureValid = SigManager.getSigInstance().verify(
+                 SigManager.toSignableElement(signedXMLString), getID(), verificationCerts);
          }
          return isSignatureValid.booleanValue();
     }
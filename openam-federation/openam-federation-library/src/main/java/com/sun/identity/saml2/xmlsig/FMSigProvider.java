@@ -25,7 +25,7 @@
  * $Id: FMSigProvider.java,v 1.5 2009/05/09 15:43:59 mallas Exp $
  *
  *  Portions Copyrighted 2011-2016 ForgeRock AS.
- * Portions Copyrighted 2023 Wren Security
+ * Portions Copyrighted 2023-2026 Wren Security
  */
 
 package com.sun.identity.saml2.xmlsig;
@@ -34,13 +34,14 @@ import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.Collections;
 import java.util.Set;
-
-import javax.xml.xpath.XPathException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
 
 import org.forgerock.openam.utils.StringUtils;
 import org.w3c.dom.Document;
-import org.w3c.dom.Node;
 import org.w3c.dom.Element;
+import org.w3c.dom.NodeList;
 
 import org.apache.xml.security.utils.Constants;
 import org.apache.xml.security.c14n.Canonicalizer;
@@ -55,7 +56,6 @@ import org.apache.xml.security.utils.ElementProxy;
 
 import com.sun.identity.shared.configuration.SystemPropertiesManager;
 import com.sun.identity.shared.xml.XMLUtils;
-import com.sun.identity.shared.xml.XPathAPI;
 
 import com.sun.identity.saml.common.SAMLConstants;
 import com.sun.identity.saml2.common.SAML2SDKUtils;
@@ -65,7 +65,10 @@ import com.sun.identity.saml2.common.SAML2Utils;
 
 /**
  * <code>FMSigProvider</code> is an class for signing
- * and verifying XML documents, it implements <code>SigProvider</code>
+ * and verifying XML documents, it implements <code>SigProvider</code>.
+ * <p>
+ * The string based operations parse the document once and delegate to the
+ * element based operations, which work directly on the DOM.
  */
 
 public final class FMSigProvider implements SigProvider {
@@ -77,6 +80,8 @@ public final class FMSigProvider implements SigProvider {
     // flag to check if the partner's signing cert included in
     // the XML doc is the same as the one in its meta data
     private static boolean checkCert = true;
+    // signature algorithm to use for each private key algorithm when none is configured
+    private static final ConcurrentMap<String, String> keySigAlgs = new ConcurrentHashMap<>();
 
     static {
         org.apache.xml.security.Init.init();
@@ -98,6 +103,12 @@ public final class FMSigProvider implements SigProvider {
         if (valCert != null && valCert.trim().equalsIgnoreCase("off")) {
             checkCert = false;
         }
+
+        try {
+            ElementProxy.setDefaultPrefix(Constants.SignatureSpecNS, SAMLConstants.PREFIX_DS);
+        } catch (XMLSecurityException xse) {
+            SAML2SDKUtils.debug.error("FMSigProvider: Unable to set the default signature prefix", xse);
+        }
     }
 
     /**
@@ -130,6 +141,24 @@ public final class FMSigProvider implements SigProvider {
             SAML2SDKUtils.debug.error(classMethod + "The xml to sign was empty.");
             throw new SAML2Exception(SAML2SDKUtils.BUNDLE_NAME, "emptyInputMessage", new String[]{"xml"});
         }
+        long start = System.nanoTime();
+        Document doc = XMLUtils.toDOMDocument(xmlString, SAML2SDKUtils.debug);
+        if (doc == null) {
+            throw new SAML2Exception(SAML2SDKUtils.bundle.getString("errorObtainingElement"));
+        }
+        logTiming(classMethod, "parse", start);
+        return sign(doc.getDocumentElement(), idValue, privateKey, cert);
+    }
+
+    @Override
+    public Element sign(Element root, String idValue, PrivateKey privateKey, X509Certificate cert)
+            throws SAML2Exception {
+
+        String classMethod = "FMSigProvider.sign: ";
+        if (root == null) {
+            SAML2SDKUtils.debug.error(classMethod + "The element to sign was null.");
+            throw new SAML2Exception(SAML2SDKUtils.BUNDLE_NAME, "nullInputMessage", new String[]{"element"});
+        }
         if (StringUtils.isEmpty(idValue)) {
             SAML2SDKUtils.debug.error(classMethod + "The idValue was empty.");
             throw new SAML2Exception(SAML2SDKUtils.BUNDLE_NAME, "emptyInputMessage", new String[]{"idValue"});
@@ -138,50 +167,16 @@ public final class FMSigProvider implements SigProvider {
             SAML2SDKUtils.debug.error(classMethod + "The private key was null.");
             throw new SAML2Exception(SAML2SDKUtils.BUNDLE_NAME, "nullInputMessage", new String[]{"private key"});
         }
-        Document doc = XMLUtils.toDOMDocument(xmlString, SAML2SDKUtils.debug);
-        if (doc == null) {
-            throw new SAML2Exception(SAML2SDKUtils.bundle.getString("errorObtainingElement"));
-        }
-        Element root = doc.getDocumentElement();
-        XMLSignature sig = null;
-        try {
-            ElementProxy.setDefaultPrefix(Constants.SignatureSpecNS, SAMLConstants.PREFIX_DS);
-        } catch (XMLSecurityException xse1) {
-            throw new SAML2Exception(xse1);
-        }
+        long start = System.nanoTime();
+        Document doc = root.getOwnerDocument();
         root.setIdAttribute(SAML2Constants.ID, true);
+        XMLSignature sig = null;
         try {
-            if ((sigAlg == null) || (sigAlg.trim().length() == 0)) {
-                if (privateKey.getAlgorithm().equalsIgnoreCase(
-                        SAML2Constants.DSA)) {
-                    sigAlg = XMLSignature.ALGO_ID_SIGNATURE_DSA;
-                } else {
-                    if (privateKey.getAlgorithm().equalsIgnoreCase(
-                            SAML2Constants.RSA)) {
-                        sigAlg = XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA1;
-                    }
-                }
-            }
-            sig = new XMLSignature(
-            doc, "", sigAlg, c14nMethod);
+            sig = new XMLSignature(doc, "", getSignatureAlgorithm(privateKey), c14nMethod);
         } catch (XMLSecurityException xse2) {
             throw new SAML2Exception(xse2);
         }
-        Node firstChild = root.getFirstChild();
-        while (firstChild != null &&
-                (firstChild.getLocalName() == null ||
-                !firstChild.getLocalName().equals("Issuer"))) {
-            firstChild = firstChild.getNextSibling();
-        }
-        Node nextSibling = null;
-        if (firstChild != null) {
-            nextSibling = firstChild.getNextSibling();
-        }
-        if (nextSibling == null) {
-            root.appendChild(sig.getElement());
-        } else {
-            root.insertBefore(sig.getElement(), nextSibling);
-        }
+        SigManager.insertSignature(root, sig.getElement());
         sig.getSignedInfo().addResourceResolver(
                 new com.sun.identity.saml.xmlsig.OfflineResolver());
         Transforms transforms = new Transforms(doc);
@@ -209,11 +204,14 @@ public final class FMSigProvider implements SigProvider {
                 throw new SAML2Exception(xse3);
             }
         }
+        logTiming(classMethod, "prepare", start);
+        start = System.nanoTime();
         try {
             sig.sign(privateKey);
         } catch (XMLSignatureException sige2) {
             throw new SAML2Exception(sige2);
         }
+        logTiming(classMethod, "sign", start);
         if (SAML2SDKUtils.debug.messageEnabled()) {
             SAML2SDKUtils.debug.message(classMethod + "Signing is successful.");
         }
@@ -235,6 +233,7 @@ public final class FMSigProvider implements SigProvider {
             throw new SAML2Exception(
                     SAML2SDKUtils.bundle.getString("nullInput"));
         }
+        long start = System.nanoTime();
         Document doc =
                 XMLUtils.toDOMDocument(xmlString, SAML2SDKUtils.debug);
         if (doc == null) {
@@ -243,23 +242,25 @@ public final class FMSigProvider implements SigProvider {
                             "errorObtainingElement")
             );
         }
-        Element nscontext = com.sun.identity.saml2.common.XmlUtils.createNamespaceElement(
-                doc, "ds", Constants.SignatureSpecNS);
-        Element sigElement = null;
-        try {
-            sigElement = (Element) XPathAPI.selectSingleNode(
-                    doc,
-                    "//ds:Signature[1]", nscontext);
-        } catch (XPathException te) {
-            throw new SAML2Exception(te);
+        logTiming(classMethod, "parse", start);
+        return verify(doc.getDocumentElement(), idValue, verificationCerts);
+    }
+
+    @Override
+    public boolean verify(Element root, String idValue, Set<X509Certificate> verificationCerts)
+            throws SAML2Exception {
+
+        String classMethod = "FMSigProvider.verify: ";
+        if (root == null || idValue == null || idValue.length() == 0) {
+            SAML2SDKUtils.debug.error(classMethod + "Either input element or idValue is null.");
+            throw new SAML2Exception(SAML2SDKUtils.bundle.getString("nullInput"));
         }
-        Element refElement;
-        try {
-            refElement = (Element) XPathAPI.selectSingleNode(
-                    doc,
-                    "//ds:Reference[1]", nscontext);
-        } catch (XPathException te) {
-            throw new SAML2Exception(te);
+        long start = System.nanoTime();
+        Element sigElement = getFirstDescendant(root, "Signature");
+        Element refElement = getFirstDescendant(root, "Reference");
+        if (sigElement == null || refElement == null) {
+            SAML2SDKUtils.debug.error(classMethod + "The element does not contain a signature reference");
+            throw new SAML2Exception(SAML2SDKUtils.bundle.getString("uriNoMatchWithId"));
         }
         String refUri = refElement.getAttribute("URI");
         String signedId = ((Element) sigElement.getParentNode()).getAttribute(SAML2Constants.ID);
@@ -269,11 +270,11 @@ public final class FMSigProvider implements SigProvider {
             throw new SAML2Exception(SAML2SDKUtils.bundle.getString("uriNoMatchWithId"));
         }
 
-        doc.getDocumentElement().setIdAttribute(SAML2Constants.ID, true);
+        root.setIdAttribute(SAML2Constants.ID, true);
         XMLSignature signature = null;
         try {
             signature = new
-                    XMLSignature((Element) sigElement, "");
+                    XMLSignature(sigElement, "");
         } catch (XMLSignatureException sige) {
             throw new SAML2Exception(sige);
         } catch (XMLSecurityException xse) {
@@ -309,8 +310,12 @@ public final class FMSigProvider implements SigProvider {
         if (certToUse != null) {
             verificationCerts = Collections.singleton(certToUse);
         }
+        logTiming(classMethod, "prepare", start);
 
-        if (!isValidSignature(signature, verificationCerts)) {
+        start = System.nanoTime();
+        boolean valid = isValidSignature(signature, verificationCerts);
+        logTiming(classMethod, "verify", start);
+        if (!valid) {
             SAML2SDKUtils.debug.error(classMethod + "Signature verification failed.");
             return false;
         }
@@ -346,4 +351,45 @@ public final class FMSigProvider implements SigProvider {
 
         return false;
     }
+
+    /**
+     * Returns the signature algorithm to sign with the given key. The configured algorithm is used when there is
+     * one, otherwise the algorithm is derived from, and cached against, the algorithm of the key.
+     */
+    private static String getSignatureAlgorithm(PrivateKey privateKey) {
+        if (sigAlg != null && sigAlg.trim().length() != 0) {
+            return sigAlg;
+        }
+        String keyAlg = privateKey.getAlgorithm();
+        if (keyAlg == null) {
+            return null;
+        }
+        String alg = keySigAlgs.get(keyAlg);
+        if (alg == null) {
+            if (keyAlg.equalsIgnoreCase(SAML2Constants.DSA)) {
+                alg = XMLSignature.ALGO_ID_SIGNATURE_DSA;
+            } else if (keyAlg.equalsIgnoreCase(SAML2Constants.RSA)) {
+                alg = XMLSignature.ALGO_ID_SIGNATURE_RSA_SHA1;
+            } else {
+                return null;
+            }
+            keySigAlgs.putIfAbsent(keyAlg, alg);
+        }
+        return alg;
+    }
+
+    private static Element getFirstDescendant(Element root, String localName) {
+        if (Constants.SignatureSpecNS.equals(root.getNamespaceURI()) && localName.equals(root.getLocalName())) {
+            return root;
+        }
+        NodeList nodes = root.getElementsByTagNameNS(Constants.SignatureSpecNS, localName);
+        return nodes.getLength() == 0 ? null : (Element) nodes.item(0);
+    }
+
+    private static void logTiming(String classMethod, String stage, long startNanos) {
+        if (SAML2SDKUtils.debug.messageEnabled()) {
+            SAML2SDKUtils.debug.message(classMethod + stage + " took "
+                    + TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - startNanos) + "us");
+        }
+    }
 }
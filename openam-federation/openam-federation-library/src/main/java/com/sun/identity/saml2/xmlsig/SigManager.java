@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: SigManager.java,v 1.2 2008/06/25 05:48:04 qcheng Exp $
  *
@@ -32,6 +33,11 @@ package com.sun.identity.saml2.xmlsig;
 import com.sun.identity.shared.configuration.SystemPropertiesManager;
 import com.sun.identity.saml2.common.SAML2SDKUtils;
 import com.sun.identity.saml2.common.SAML2Constants;
+import com.sun.identity.saml2.common.SAML2Exception;
+import com.sun.identity.shared.xml.XMLUtils;
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
 
 /**
  * The <code>SigManager</code> class is used to determine
@@ -69,6 +75,45 @@ public final class SigManager {
     public static SigProvider getSigInstance() {
         return sp;
     }
+
+    /**
+     * Parses a SAML2 message into the element that the element based
+     * <code>SigProvider</code> operations sign or verify.
+     *
+     * @param xml the message to parse.
+     * @return the document element of the message.
+     * @throws SAML2Exception if the message is null or could not be parsed.
+     */
+    public static Element toSignableElement(String xml) throws SAML2Exception {
+        if (xml == null) {
+            throw new SAML2Exception(SAML2SDKUtils.bundle.getString("nullInput"));
+        }
+        Document doc = XMLUtils.toDOMDocument(xml, SAML2SDKUtils.debug);
+        if (doc == null) {
+            throw new SAML2Exception(SAML2SDKUtils.bundle.getString("errorObtainingElement"));
+        }
+        return doc.getDocumentElement();
+    }
+
+    /**
+     * Inserts a signature element into the element it signs, directly after
+     * the first Issuer child, or as the last child if there is no Issuer.
+     *
+     * @param root the signed element.
+     * @param signature the signature element, owned by the same document.
+     */
+    static void insertSignature(Element root, Element signature) {
+        Node issuer = root.getFirstChild();
+        while (issuer != null && !"Issuer".equals(issuer.getLocalName())) {
+            issuer = issuer.getNextSibling();
+        }
+        Node nextSibling = issuer == null ? null : issuer.getNextSibling();
+        if (nextSibling == null) {
+            root.appendChild(signature);
+        } else {
+            root.insertBefore(signature, nextSibling);
+        }
+    }
 } 
 
 
@@ -25,16 +25,17 @@
  * $Id: SigProvider.java,v 1.2 2008/06/25 05:48:04 qcheng Exp $
  *
  * Portions Copyrighted 2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.saml2.xmlsig;
 
-import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import java.security.PrivateKey;
 import java.security.cert.X509Certificate;
 import java.util.Set;
 
 import com.sun.identity.saml2.common.SAML2Exception;
+import com.sun.identity.shared.xml.XMLUtils;
 
 /**
  * <code>SigProvider</code> is an interface for signing
@@ -80,4 +81,50 @@ public interface SigProvider {
 	String idValue,
 	Set<X509Certificate> verificationCerts
     ) throws SAML2Exception;
+
+    /**
+     * Sign the supplied element in place, using enveloped signatures and
+     * exclusive xml canonicalization. The resulting signature is inserted
+     * after the Issuer child of the element, or appended if there is none.
+     * <p>
+     * The default implementation serialises the element and delegates to
+     * {@link #sign(String, String, PrivateKey, X509Certificate)}; providers
+     * should override it to sign the DOM directly.
+     *
+     * @param element Element to be signed, attached to its owner document.
+     * @param idValue id attribute value of the element to be signed.
+     * @param privateKey Signing key.
+     * @param cert Certificate which contain the public key correlated to
+     *             the signing key; It if is not null, then the signature
+     *             will include the certificate; Otherwise, the signature
+     *             will not include any certificate.
+     * @return Element representing the signature element, owned by the
+     *         document of the supplied element.
+     * @throws SAML2Exception if the element could not be signed.
+     */
+    default Element sign(Element element, String idValue, PrivateKey privateKey, X509Certificate cert)
+            throws SAML2Exception {
+        Element signature = sign(XMLUtils.print(element), idValue, privateKey, cert);
+        Element imported = (Element) element.getOwnerDocument().importNode(signature, true);
+        SigManager.insertSignature(element, imported);
+        return imported;
+    }
+
+    /**
+     * Verify the signature of the supplied element without serialising it.
+     * <p>
+     * The default implementation serialises the element and delegates to
+     * {@link #verify(String, String, Set)}; providers should override it to
+     * verify the DOM directly.
+     *
+     * @param element Signed element.
+     * @param idValue id attribute value of the node whose signature is to be verified.
+     * @param verificationCerts Certificates containing the public keys which may be used for signature verification.
+     * @return true if the xml signature is verified, false otherwise.
+     * @throws SAML2Exception if problem occurs during verification.
+     */
+    default boolean verify(Element element, String idValue, Set<X509Certificate> verificationCerts)
+            throws SAML2Exception {
+        return verify(XMLUtils.print(element), idValue, verificationCerts);
+    }
 }
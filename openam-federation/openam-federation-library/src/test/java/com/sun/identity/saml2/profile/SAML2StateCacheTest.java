@@ -0,0 +1,168 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.saml2.profile;
+
+import static org.fest.assertions.Assertions.assertThat;
+import static org.forgerock.openam.utils.Time.currentTimeMillis;
+
+import java.util.Collections;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+import com.sun.identity.saml2.common.SAML2Constants;
+
+public class SAML2StateCacheTest {
+
+    private static final long RUN_PERIOD = 60000;
+
+    @Test
+    public void shouldNotReturnExpiredEntries() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.expiry", 10, 0, RUN_PERIOD, null);
+        cache.put("expired", "one", currentTimeMillis() - 1);
+        cache.put("valid", "two", currentTimeMillis() + 60000);
+
+        // When
+        String expired = cache.get("expired");
+
+        // Then
+        assertThat(expired).isNull();
+        assertThat(cache.get("valid")).isEqualTo("two");
+        assertThat(cache.containsKey("expired")).isFalse();
+        assertThat(cache.getExpiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSweepExpiredEntries() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.sweep", 10, 0, RUN_PERIOD, null);
+        cache.put("expired", "one", currentTimeMillis() - 1);
+        cache.put("forever", "two");
+
+        // When
+        cache.getCleanUpTask().run();
+
+        // Then
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get("forever")).isEqualTo("two");
+    }
+
+    @Test
+    public void shouldEvictWhenFull() {
+        // Given
+        SAML2StateCache<Integer, Integer> cache = new SAML2StateCache<>("test.evict", 4, 0, RUN_PERIOD, null);
+
+        // When
+        for (int i = 0; i < 10; i++) {
+            cache.put(i, i);
+        }
+
+        // Then
+        assertThat(cache.size()).isEqualTo(4);
+        assertThat(cache.getEvictionCount()).isEqualTo(6);
+    }
+
+    @Test
+    public void shouldPreferExpiredEntriesWhenEvicting() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.evictExpired", 2, 0, RUN_PERIOD, null);
+        cache.put("live", "one");
+        cache.put("expired", "two", currentTimeMillis() - 1);
+
+        // When
+        cache.put("new", "three");
+
+        // Then
+        assertThat(cache.get("live")).isEqualTo("one");
+        assertThat(cache.get("new")).isEqualTo("three");
+        assertThat(cache.getEvictionCount()).isEqualTo(0);
+        assertThat(cache.getExpiredCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldExtendExpiry() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.extend", 10, 0, RUN_PERIOD, null);
+        long later = currentTimeMillis() + 60000;
+        cache.put("key", "value", currentTimeMillis() - 1);
+        cache.put("unbounded", "value");
+
+        // When
+        cache.extendExpiry("key", later);
+        cache.extendExpiry("unbounded", currentTimeMillis() - 1);
+
+        // Then
+        assertThat(cache.get("key")).isEqualTo("value");
+        assertThat(cache.get("unbounded")).isNull();
+    }
+
+    @Test
+    public void shouldOnlyBoundSessionCachesWhenSizedByName() {
+        // Given
+        SAML2StateCache<String, String> sessions = new SAML2StateCache<>("test.sessions", 0, RUN_PERIOD);
+        SAML2StateCache<String, String> requests = new SAML2StateCache<>("test.requests", 60000, RUN_PERIOD);
+
+        // Then
+        assertThat(sessions.getMaximumSize()).isEqualTo(Integer.MAX_VALUE);
+        assertThat(requests.getMaximumSize()).isEqualTo(SAML2Constants.CACHE_MAX_SIZE_DEFAULT);
+    }
+
+    @Test
+    public void shouldTreatExpiredEntryAsAbsentWhenComputing() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.compute", 10, 0, RUN_PERIOD, null);
+        cache.put("expired", "one", currentTimeMillis() - 1);
+        cache.put("valid", "two");
+
+        // When
+        String computed = cache.computeIfAbsent("expired", key -> "three");
+        String existing = cache.computeIfAbsent("valid", key -> "four");
+
+        // Then
+        assertThat(computed).isEqualTo("three");
+        assertThat(existing).isEqualTo("two");
+        assertThat(cache.get("expired")).isEqualTo("three");
+    }
+
+    @Test
+    public void shouldRemoveEntryWhenComputeReturnsNull() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.computeRemove", 10, 0, RUN_PERIOD, null);
+        cache.put("key", "value");
+
+        // When
+        cache.computeIfPresent("key", (key, value) -> null);
+
+        // Then
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldSupportHashtableStyleKeyEnumeration() {
+        // Given
+        SAML2StateCache<String, String> cache = new SAML2StateCache<>("test.keys", 10, 0, RUN_PERIOD, null);
+        cache.put("a", "1");
+        cache.put("b", "2");
+
+        // When
+        List<String> keys = Collections.list(cache.keys());
+
+        // Then
+        assertThat(keys).containsOnly("a", "b");
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.saml2.xmlsig;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import com.sun.identity.saml.xmlsig.KeyProvider;
+import com.sun.identity.saml2.assertion.Assertion;
+import com.sun.identity.saml2.assertion.AssertionFactory;
+import com.sun.identity.saml2.common.SAML2Exception;
+import com.sun.identity.saml2.protocol.LogoutRequest;
+import com.sun.identity.saml2.protocol.LogoutResponse;
+import com.sun.identity.saml2.protocol.ProtocolFactory;
+import org.forgerock.openam.utils.AMKeyProvider;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+import org.w3c.dom.Element;
+
+import java.security.cert.X509Certificate;
+import java.util.Collections;
+import java.util.Set;
+
+public class SigManagerTest {
+
+    private static final String DEFAULT_PRIVATE_KEY_ALIAS = "defaultkey";
+    private static final String ISSUER = "<saml:Issuer xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">"
+            + "http://idp.example.com</saml:Issuer>";
+
+    private KeyProvider keyProvider;
+    private Set<X509Certificate> verificationCerts;
+
+    @BeforeClass
+    public void setUp() {
+        // The keystore properties required to bootstrap this class are setup in the POM
+        keyProvider = new AMKeyProvider();
+        verificationCerts = Collections.singleton(keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS));
+    }
+
+    @Test
+    public void shouldParseTheDocumentElement() throws Exception {
+        // Given
+        String xml = "<root ID=\"signme\"><child/></root>";
+
+        // When
+        Element element = SigManager.toSignableElement(xml);
+
+        // Then
+        assertThat(element.getTagName()).isEqualTo("root");
+        assertThat(element.getParentNode()).isSameAs(element.getOwnerDocument());
+    }
+
+    @Test(expectedExceptions = SAML2Exception.class)
+    public void shouldRejectNullInput() throws Exception {
+        SigManager.toSignableElement(null);
+    }
+
+    @Test(expectedExceptions = SAML2Exception.class)
+    public void shouldRejectMalformedInput() throws Exception {
+        SigManager.toSignableElement("<root>");
+    }
+
+    @Test
+    public void shouldVerifySignedAssertion() throws Exception {
+        // Given
+        Assertion assertion = AssertionFactory.getInstance().createAssertion(
+                "<saml:Assertion xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\" ID=\"assertion1\" "
+                + "Version=\"2.0\" IssueInstant=\"2026-01-01T00:00:00Z\">" + ISSUER + "</saml:Assertion>");
+
+        // When
+        assertion.sign(keyProvider.getPrivateKey(DEFAULT_PRIVATE_KEY_ALIAS),
+                keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS));
+        Assertion received = AssertionFactory.getInstance().createAssertion(assertion.toXMLString(true, true));
+
+        // Then
+        assertThat(received.isSigned()).isTrue();
+        assertThat(received.isSignatureValid(verificationCerts)).isTrue();
+    }
+
+    @Test
+    public void shouldVerifySignedLogoutResponse() throws Exception {
+        // Given
+        LogoutResponse response = ProtocolFactory.getInstance().createLogoutResponse(
+                "<samlp:LogoutResponse xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" ID=\"response1\" "
+                + "Version=\"2.0\" IssueInstant=\"2026-01-01T00:00:00Z\">" + ISSUER
+                + "<samlp:Status><samlp:StatusCode Value=\"urn:oasis:names:tc:SAML:2.0:status:Success\"/>"
+                + "</samlp:Status></samlp:LogoutResponse>");
+
+        // When
+        response.sign(keyProvider.getPrivateKey(DEFAULT_PRIVATE_KEY_ALIAS),
+                keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS));
+        LogoutResponse received = ProtocolFactory.getInstance().createLogoutResponse(
+                response.toXMLString(true, true));
+
+        // Then
+        assertThat(received.isSigned()).isTrue();
+        assertThat(received.isSignatureValid(verificationCerts)).isTrue();
+    }
+
+    @Test
+    public void shouldVerifySignedLogoutRequest() throws Exception {
+        // Given
+        LogoutRequest request = ProtocolFactory.getInstance().createLogoutRequest(
+                "<samlp:LogoutRequest xmlns:samlp=\"urn:oasis:names:tc:SAML:2.0:protocol\" ID=\"request1\" "
+                + "Version=\"2.0\" IssueInstant=\"2026-01-01T00:00:00Z\">" + ISSUER
+                + "<saml:NameID xmlns:saml=\"urn:oasis:names:tc:SAML:2.0:assertion\">user</saml:NameID>"
+                + "</samlp:LogoutRequest>");
+
+        // When
+        request.sign(keyProvider.getPrivateKey(DEFAULT_PRIVATE_KEY_ALIAS),
+                keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS));
+        LogoutRequest received = ProtocolFactory.getInstance().createLogoutRequest(
+                request.toXMLString(true, true).replace(">user<", ">other<"));
+
+        // Then
+        assertThat(received.isSigned()).isTrue();
+        assertThat(received.isSignatureValid(verificationCerts)).isFalse();
+    }
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.saml2.xmlsig;
@@ -89,4 +90,32 @@ public class SigProviderTest {
         }
         Assert.assertTrue(verified);
     }
+
+    @Test
+    public void testSigningAndVerifyingElement() throws SAML2Exception {
+
+        Element root = XMLUtils.toDOMDocument(ClassLoader.getSystemResourceAsStream(XML_DOCUMENT_TO_SIGN),
+                SAML2Utils.debug).getDocumentElement();
+
+        // Sign the element in place and verify it without serialising the document
+        Element signature = sigProvider.sign(
+                root,
+                ID_ATTRIBUTE_VALUE,
+                keyProvider.getPrivateKey(DEFAULT_PRIVATE_KEY_ALIAS),
+                keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS));
+
+        Assert.assertSame(signature.getParentNode(), root);
+        Assert.assertTrue(sigProvider.verify(root, ID_ATTRIBUTE_VALUE,
+                Collections.singleton(keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS))));
+    }
+
+    @Test
+    public void testVerifySignatureOfElement() throws SAML2Exception {
+
+        Element root = XMLUtils.toDOMDocument(ClassLoader.getSystemResourceAsStream(SIGNED_XML_DOCUMENT),
+                SAML2Utils.debug).getDocumentElement();
+
+        Assert.assertTrue(sigProvider.verify(root, ID_ATTRIBUTE_VALUE,
+                Collections.singleton(keyProvider.getX509Certificate(DEFAULT_PRIVATE_KEY_ALIAS))));
+    }
 }
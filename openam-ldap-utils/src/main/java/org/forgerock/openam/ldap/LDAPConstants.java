@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2013-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.ldap;
@@ -69,6 +70,19 @@ public final class LDAPConstants {
     /** LDAP DN cache size property key. */
     public static final String LDAP_DNCACHE_SIZE = "sun-idrepo-ldapv3-dncache-size";
 
+    /** LDAP group membership cache enabled property key. */
+    public static final String LDAP_MEMBERSHIP_CACHE_ENABLED = "sun-idrepo-ldapv3-membershipcache-enabled";
+
+    /** LDAP group membership cache size property key. */
+    public static final String LDAP_MEMBERSHIP_CACHE_SIZE = "sun-idrepo-ldapv3-membershipcache-size";
+
+    /** LDAP group membership cache nested group resolution property key. */
+    public static final String LDAP_MEMBERSHIP_CACHE_NESTED = "sun-idrepo-ldapv3-membershipcache-nested";
+
+    /** LDAP group membership cache maximum number of memberships property key. */
+    public static final String LDAP_MEMBERSHIP_CACHE_MAX_MEMBERSHIPS =
+            "sun-idrepo-ldapv3-membershipcache-maxmemberships";
+
     /** LDAP server list property key. */
     public static final String LDAP_SERVER_LIST = "sun-idrepo-ldapv3-config-ldap-server";
 
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications.integration;
@@ -28,6 +29,7 @@ import org.forgerock.openam.cts.CTSPersistentStore;
 import org.forgerock.openam.notifications.LocalOnly;
 import org.forgerock.openam.notifications.NotificationBroker;
 import org.forgerock.openam.notifications.brokers.InMemoryNotificationBroker;
+import org.forgerock.openam.notifications.brokers.SlowConsumerPolicy;
 import org.forgerock.openam.notifications.integration.brokers.CTSNotificationBroker;
 import org.forgerock.util.thread.ExecutorServiceFactory;
 
@@ -56,6 +58,14 @@ public class NotificationsGuiceModule extends PrivateModule {
                 .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.local.queueSize", 10000));
         bindConstant().annotatedWith(Names.named("consumers"))
                 .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.local.consumers", 4));
+        bindConstant().annotatedWith(Names.named("outboxSize"))
+                .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.local.outboxSize", 1000));
+        bindConstant().annotatedWith(Names.named("deliveryThreads"))
+                .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.local.deliveryThreads", 8));
+        bindConstant().annotatedWith(Names.named("slowConsumerPolicy"))
+                .to(SlowConsumerPolicy.fromString(
+                        SystemProperties.get("org.forgerock.openam.notifications.local.slowConsumerPolicy"),
+                        SlowConsumerPolicy.DROP_OLDEST));
         bindConstant().annotatedWith(Names.named("tokenExpirySeconds"))
                 .to(SystemProperties.getAsLong("org.forgerock.openam.notifications.cts.tokenExpirySeconds", 600L));
         bindConstant().annotatedWith(Names.named("publishFrequencyMilliseconds"))
@@ -63,6 +73,13 @@ public class NotificationsGuiceModule extends PrivateModule {
                         100L));
         bindConstant().annotatedWith(Names.named("ctsQueueSize"))
                 .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.cts.queueSize", 10000));
+        bindConstant().annotatedWith(Names.named("ctsMaxBatchSize"))
+                .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.cts.maxBatchSize", 500));
+        bindConstant().annotatedWith(Names.named("publishTimeoutMilliseconds"))
+                .to(SystemProperties.getAsLong("org.forgerock.openam.notifications.cts.publishTimeoutMilliseconds",
+                        100L));
+        bindConstant().annotatedWith(Names.named("ctsDecoderThreads"))
+                .to(SystemProperties.getAsInt("org.forgerock.openam.notifications.cts.decoderThreads", 2));
 
         expose(NotificationBroker.class).annotatedWith(LocalOnly.class);
         expose(NotificationBroker.class);
@@ -84,11 +101,14 @@ public class NotificationsGuiceModule extends PrivateModule {
     NotificationBroker notificationBroker(CTSPersistentStore store,
             @LocalOnly NotificationBroker broker,
             @Named("ctsQueueSize") int queueSize,
+            @Named("ctsMaxBatchSize") int maxBatchSize,
             @Named("tokenExpirySeconds") long tokenExpirySeconds,
             @Named("publishFrequencyMilliseconds") long publishFrequencyMilliseconds,
+            @Named("publishTimeoutMilliseconds") long publishTimeoutMilliseconds,
+            @Named("ctsDecoderThreads") int decoderThreads,
             AMExecutorServiceFactory factory) {
-        return new CTSNotificationBroker(store, broker, queueSize, tokenExpirySeconds,
-                publishFrequencyMilliseconds, factory);
+        return new CTSNotificationBroker(store, broker, queueSize, maxBatchSize, tokenExpirySeconds,
+                publishFrequencyMilliseconds, publishTimeoutMilliseconds, decoderThreads, factory);
     }
 
 }
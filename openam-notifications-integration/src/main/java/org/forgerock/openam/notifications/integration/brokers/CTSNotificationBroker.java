@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications.integration.brokers;
@@ -27,20 +28,31 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
 import java.util.ArrayList;
 import java.util.Calendar;
+import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.zip.DeflaterOutputStream;
 import java.util.zip.InflaterInputStream;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
@@ -56,6 +68,7 @@ import org.forgerock.openam.notifications.LocalOnly;
 import org.forgerock.openam.notifications.NotificationBroker;
 import org.forgerock.openam.notifications.Subscription;
 import org.forgerock.openam.notifications.Topic;
+import org.forgerock.openam.notifications.brokers.SlowConsumerPolicy;
 import org.forgerock.openam.sm.datalayer.api.DataLayerException;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.openam.tokens.TokenType;
@@ -71,27 +84,49 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 /**
  * Uses the CTS to propagate notifications across an OpenAM cluster.
  * <p>
- * When publishing, notifications are written to the CTS. A continuous
- * query listener {@link ContinuousQueryListener} responds to new notifications
- * in the CTS and passes them on to interested subscribers.
+ * When publishing, notifications are queued and written to the CTS in batches. A batch is written
+ * once the publish frequency elapses or as soon as the queue holds a full batch, whichever comes
+ * first. If the queue is full, publishers wait up to the publish timeout for space before the
+ * notification is dropped, so a publisher may be held for that long. The default timeout is set by
+ * {@code org.forgerock.openam.notifications.cts.publishTimeoutMilliseconds}; a caller which must not
+ * wait, or may wait longer, passes its own timeout to
+ * {@link #publish(Topic, JsonValue, long, TimeUnit)}. Waits, drops and batches are published through
+ * the {@link CTSNotificationBrokerMBean} interface.
+ * <p>
+ * A continuous query listener {@link ContinuousQueryListener} responds to new notifications in the
+ * CTS. Each token carries the topics of its batch outside of the compressed blob, so batches for
+ * which there are no local subscribers are skipped without being inflated. Remaining batches are
+ * decoded on a separate pool of decoder threads, keeping the persistent search thread free, and
+ * are passed on to interested subscribers in the order they were received.
  * <p>
  * This implementation uses a local-server broker to handle the brokerage
  * of messages that come in from the CTS.
  *
  * @since 14.0.0
  */
-public final class CTSNotificationBroker implements NotificationBroker {
+public final class CTSNotificationBroker implements NotificationBroker, CTSNotificationBrokerMBean {
 
     private static final Logger logger = LoggerFactory.getLogger(CTSNotificationBroker.class);
     private static final ObjectMapper mapper = new ObjectMapper();
+    private static final CoreTokenField TOPICS_FIELD = CoreTokenField.MULTI_STRING_ONE;
+    private static final String MBEAN_NAME = "OpenAM:type=NotificationBroker,name=CTS";
 
     private final NotificationBroker localBroker;
     private final CTSPersistentStore store;
     private final SessionNotificationListener listener;
     private final long tokenExpirySeconds;
+    private final int maxBatchSize;
+    private final long publishTimeoutMilliseconds;
     private final IdGenerator idGenerator;
     private final BlockingQueue<NotificationEntry> queue;
     private final ScheduledExecutorService executorService;
+    private final ExecutorService decoderService;
+    private final CTSPublisher publisher;
+    private final AtomicBoolean flushPending = new AtomicBoolean();
+    private final LongAdder droppedNotifications = new LongAdder();
+    private final LongAdder backPressureWaits = new LongAdder();
+    private final LongAdder publishedBatches = new LongAdder();
+    private final LongAdder skippedBatches = new LongAdder();
     private volatile boolean shutdown;
 
     /**
@@ -100,32 +135,46 @@ public final class CTSNotificationBroker implements NotificationBroker {
      * @param store a CTS persistent store that notifications will be written to and read from
      * @param localBroker a local-server broker used to propagate messages to local subscribers
      * @param queueSize the size of the queue of notifications waiting to be written to the CTS
+     * @param maxBatchSize the maximum number of notifications written to a single CTS token
      * @param tokenExpirySeconds the number of seconds that a notification will live in the CTS before it is deleted
      * @param publishFrequencyMilliseconds the number of milliseconds between each publish to the CTS
-     * @param executorServiceFactory an executor service factory for scheduling the publish task
+     * @param publishTimeoutMilliseconds the number of milliseconds a publisher waits by default for space in a full
+     * queue
+     * @param decoderThreads the number of threads decoding notifications read from the CTS
+     * @param executorServiceFactory an executor service factory for scheduling the publish and decode tasks
      */
     @Inject
     public CTSNotificationBroker(CTSPersistentStore store,
             @LocalOnly NotificationBroker localBroker,
             @Named("ctsQueueSize") int queueSize,
+            @Named("ctsMaxBatchSize") int maxBatchSize,
             @Named("tokenExpirySeconds") long tokenExpirySeconds,
             @Named("publishFrequencyMilliseconds") long publishFrequencyMilliseconds,
+            @Named("publishTimeoutMilliseconds") long publishTimeoutMilliseconds,
+            @Named("ctsDecoderThreads") int decoderThreads,
             AMExecutorServiceFactory executorServiceFactory) {
         Reject.ifNull(store, "CTS store must not be null");
         Reject.ifNull(localBroker, "Notification broker must not be null");
         Reject.ifNull(executorServiceFactory, "Executor service factory must not be null");
+        Reject.ifTrue(maxBatchSize <= 0, "Maximum batch size must be a positive integer");
         Reject.ifTrue(tokenExpirySeconds <= 0, "Token expiry must be a positive integer");
         Reject.ifTrue(publishFrequencyMilliseconds <= 0, "Publish frequency must be a positive integer");
+        Reject.ifTrue(publishTimeoutMilliseconds < 0, "Publish timeout must not be negative");
+        Reject.ifTrue(decoderThreads <= 0, "Number of decoder threads must be a positive integer");
 
         this.localBroker = localBroker;
         this.store = store;
         this.tokenExpirySeconds = tokenExpirySeconds;
+        this.maxBatchSize = maxBatchSize;
+        this.publishTimeoutMilliseconds = publishTimeoutMilliseconds;
         executorService = executorServiceFactory.createScheduledService(1, "CTSNotificationsBroker");
+        decoderService = executorServiceFactory.createFixedThreadPool(decoderThreads, "CTSNotificationsDecoder");
         idGenerator = IdGenerator.DEFAULT;
         listener = new SessionNotificationListener();
         queue = new ArrayBlockingQueue<>(queueSize);
+        publisher = new CTSPublisher();
 
-        executorService.scheduleAtFixedRate(new CTSPublisher(), publishFrequencyMilliseconds,
+        executorService.scheduleAtFixedRate(publisher, publishFrequencyMilliseconds,
                 publishFrequencyMilliseconds, TimeUnit.MILLISECONDS);
 
         try {
@@ -133,10 +182,46 @@ public final class CTSNotificationBroker implements NotificationBroker {
         } catch (CoreTokenException ctE) {
             throw new RuntimeException("Unable to register session notifications", ctE);
         }
+        registerMBean();
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, CTSNotificationBrokerMBean.class), objectName);
+        } catch (Exception e) {
+            logger.warn("Unable to register CTS notification broker monitoring", e);
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to unregister CTS notification broker monitoring", e);
+        }
     }
 
+    /**
+     * {@inheritDoc}
+     * <p>
+     * If the queue is full, waits up to the configured publish timeout for space.
+     */
     @Override
     public boolean publish(Topic topic, JsonValue notification) {
+        return publish(topic, notification, publishTimeoutMilliseconds, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public boolean publish(Topic topic, JsonValue notification, long timeout, TimeUnit unit) {
         Reject.ifNull(topic, "Topic must not be null");
         Reject.ifNull(notification, "Notification must not be null");
 
@@ -145,23 +230,66 @@ public final class CTSNotificationBroker implements NotificationBroker {
             return false;
         }
 
-        if (!queue.offer(NotificationEntry.of(topic, notification))) {
+        NotificationEntry entry = NotificationEntry.of(topic, notification);
+        if (!queue.offer(entry) && !offerWithBackPressure(entry, unit.toMillis(timeout))) {
+            droppedNotifications.increment();
             logger.info("Failed to publish notification because queue is full. Notification discarded");
             return false;
         }
+
+        if (queue.size() >= maxBatchSize) {
+            requestFlush();
+        }
         return true;
     }
 
+    private boolean offerWithBackPressure(NotificationEntry entry, long timeoutMilliseconds) {
+        if (timeoutMilliseconds <= 0) {
+            return false;
+        }
+        backPressureWaits.increment();
+        requestFlush();
+        try {
+            return queue.offer(entry, timeoutMilliseconds, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void requestFlush() {
+        if (flushPending.compareAndSet(false, true)) {
+            try {
+                executorService.execute(publisher);
+            } catch (RejectedExecutionException e) {
+                flushPending.set(false);
+                logger.debug("Unable to schedule an early publish of notifications", e);
+            }
+        }
+    }
+
     @Override
     public Subscription subscribe(Consumer consumer) {
         return localBroker.subscribe(consumer);
     }
 
+    @Override
+    public Subscription subscribe(Consumer consumer, SlowConsumerPolicy slowConsumerPolicy) {
+        return localBroker.subscribe(consumer, slowConsumerPolicy);
+    }
+
+    @Override
+    public boolean hasSubscribers(Topic topic) {
+        return localBroker.hasSubscribers(topic);
+    }
+
     @Override
     public void shutdown() {
         shutdown = true;
         executorService.shutdownNow();
+        decoderService.shutdownNow();
         localBroker.shutdown();
+        unregisterMBean();
 
         try {
             store.removeContinuousQueryListener(listener, getTokenFilter());
@@ -170,31 +298,107 @@ public final class CTSNotificationBroker implements NotificationBroker {
         }
     }
 
+    @Override
+    public long getDroppedNotificationCount() {
+        return droppedNotifications.sum();
+    }
+
+    @Override
+    public long getBackPressureWaitCount() {
+        return backPressureWaits.sum();
+    }
+
+    @Override
+    public long getPublishedBatchCount() {
+        return publishedBatches.sum();
+    }
+
+    @Override
+    public long getSkippedBatchCount() {
+        return skippedBatches.sum();
+    }
+
+    @Override
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    @Override
+    public long getPublishTimeout() {
+        return publishTimeoutMilliseconds;
+    }
+
     private static TokenFilter getTokenFilter() {
         return new TokenFilterBuilder()
                 .returnAttribute(CoreTokenField.BLOB)
+                .returnAttribute(TOPICS_FIELD)
                 .withQuery(equalTo(CoreTokenField.TOKEN_TYPE, TokenType.NOTIFICATION))
                 .build();
     }
 
     private final class SessionNotificationListener implements ContinuousQueryListener<Attribute> {
 
+        private CompletableFuture<Void> lastDelivery = CompletableFuture.completedFuture(null);
+
         @Override
         public void objectChanged(String tokenId, Map<String, Attribute> changeSet, ChangeType changeType) {
             if (changeType == ChangeType.ADD) {
                 try {
-                    ByteString entryBlob = changeSet.get(CoreTokenField.BLOB.toString()).firstValue();
+                    if (!hasLocalSubscribers(changeSet.get(TOPICS_FIELD.toString()))) {
+                        skippedBatches.increment();
+                        return;
+                    }
+                    byte[] blob = changeSet.get(CoreTokenField.BLOB.toString()).firstValue().toByteArray();
+                    CompletableFuture<List<NotificationEntry>> decoded =
+                            CompletableFuture.supplyAsync(() -> decode(blob), decoderService);
+                    synchronized (this) {
+                        lastDelivery = lastDelivery.thenAcceptBoth(decoded, (ignored, entries) -> deliver(entries));
+                    }
+                } catch (Exception e) {
+                    logger.error("Failed to publish notification to the local broker", e);
+                }
+            }
+        }
 
-                    InputStream stream = new InflaterInputStream(new ByteArrayInputStream(entryBlob.toByteArray()));
-                    JsonValue entries = toJsonArray(stream);
+        /**
+         * Tokens written by servers which do not record topics have no topics attribute and are always decoded.
+         */
+        private boolean hasLocalSubscribers(Attribute topics) {
+            if (topics == null || topics.isEmpty()) {
+                return true;
+            }
+            for (ByteString topic : topics) {
+                if (localBroker.hasSubscribers(Topic.of(topic.toString()))) {
+                    return true;
+                }
+            }
+            return false;
+        }
 
-                    for (JsonValue entry : entries) {
-                        String topic = entry.get("topic").asString();
-                        JsonValue content = entry.get("content");
+        private List<NotificationEntry> decode(byte[] blob) {
+            try {
+                InputStream stream = new InflaterInputStream(new ByteArrayInputStream(blob));
+                JsonValue entries = toJsonArray(stream);
 
-                        localBroker.publish(Topic.of(topic), content);
-                    }
-                } catch (Exception e) {
+                List<NotificationEntry> notifications = new ArrayList<>(entries.size());
+                for (JsonValue entry : entries) {
+                    String topic = entry.get("topic").asString();
+                    JsonValue content = entry.get("content");
+
+                    notifications.add(NotificationEntry.of(Topic.of(topic), content));
+                }
+                return notifications;
+            } catch (Exception e) {
+                logger.error("Failed to decode notifications read from the CTS", e);
+                return Collections.emptyList();
+            }
+        }
+
+        private void deliver(List<NotificationEntry> entries) {
+            for (NotificationEntry entry : entries) {
+                try {
+                    localBroker.publish(entry.topic, entry.notification);
+                } catch (RuntimeException e) {
                     logger.error("Failed to publish notification to the local broker", e);
                 }
             }
@@ -218,15 +422,20 @@ public final class CTSNotificationBroker implements NotificationBroker {
     private final class CTSPublisher implements Runnable {
         @Override
         public void run() {
-            List<NotificationEntry> entries = new ArrayList<>();
-            queue.drainTo(entries);
+            flushPending.set(false);
 
-            if (entries.isEmpty()) {
-                return;
+            List<NotificationEntry> entries = new ArrayList<>(maxBatchSize);
+            while (queue.drainTo(entries, maxBatchSize) > 0) {
+                write(entries);
+                entries.clear();
             }
+        }
 
+        private void write(List<NotificationEntry> entries) {
             List<Object> jsonEntries = new ArrayList<>(entries.size());
+            Set<String> topics = new LinkedHashSet<>();
             for (NotificationEntry entry : entries) {
+                topics.add(entry.topic.getIdentifier());
                 jsonEntries.add(object(
                         field("topic", entry.topic.getIdentifier()),
                         field("content", entry.notification.getObject())
@@ -242,12 +451,16 @@ public final class CTSNotificationBroker implements NotificationBroker {
                 dos.write(mapper.writeValueAsBytes(entry.getObject()));
                 dos.close();
                 token.setBlob(stream.toByteArray());
+                for (String topic : topics) {
+                    token.setMultiAttribute(TOPICS_FIELD, topic);
+                }
 
                 long expiryTime = currentTimeMillis() + TimeUnit.SECONDS.toMillis(tokenExpirySeconds);
                 Calendar expiryTimeStamp = fromUnixTime(expiryTime, TimeUnit.MILLISECONDS);
                 token.setExpiryTimestamp(expiryTimeStamp);
 
                 store.createAsync(token);
+                publishedBatches.increment();
             } catch (CoreTokenException | IOException e) {
                 logger.info("Failed to write notification to CTS", e);
             }
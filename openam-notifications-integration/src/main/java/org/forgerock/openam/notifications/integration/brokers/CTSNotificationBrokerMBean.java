@@ -0,0 +1,67 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.notifications.integration.brokers;
+
+/**
+ * Monitoring interface of a {@link CTSNotificationBroker}, registered as an MBean named
+ * {@code OpenAM:type=NotificationBroker,name=CTS}.
+ */
+public interface CTSNotificationBrokerMBean {
+
+    /**
+     * Returns the number of notifications discarded because the queue remained full.
+     *
+     * @return the number of dropped notifications
+     */
+    long getDroppedNotificationCount();
+
+    /**
+     * Returns the number of times a publisher had to wait for space in the queue.
+     *
+     * @return the number of back-pressure waits
+     */
+    long getBackPressureWaitCount();
+
+    /**
+     * Returns the number of batches written to the CTS.
+     *
+     * @return the number of published batches
+     */
+    long getPublishedBatchCount();
+
+    /**
+     * Returns the number of batches read from the CTS that were not decoded as there were no local subscribers to
+     * any of their topics.
+     *
+     * @return the number of skipped batches
+     */
+    long getSkippedBatchCount();
+
+    /**
+     * Returns the number of notifications waiting to be written to the CTS.
+     *
+     * @return the current queue depth
+     */
+    int getQueueDepth();
+
+    /**
+     * Returns how long a publisher waits by default for space in a full queue.
+     *
+     * @return the publish timeout in milliseconds
+     */
+    long getPublishTimeout();
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications.brokers;
@@ -27,11 +28,17 @@ import static org.mockito.Mockito.*;
 
 import java.io.ByteArrayInputStream;
 import java.io.InputStream;
+import java.lang.management.ManagementFactory;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.zip.InflaterInputStream;
 
+import javax.management.ObjectName;
+
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
 import org.forgerock.openam.cts.CTSPersistentStore;
@@ -72,6 +79,8 @@ public final class CTSNotificationBrokerTest {
     private AMExecutorServiceFactory executorServiceFactory;
     @Mock
     private ScheduledExecutorService executorService;
+    @Mock
+    private ExecutorService decoderService;
 
     @Captor
     private ArgumentCaptor<Runnable> publisherTaskCaptor;
@@ -88,7 +97,13 @@ public final class CTSNotificationBrokerTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         when(executorServiceFactory.createScheduledService(anyInt(), anyString())).thenReturn(executorService);
-        broker = new CTSNotificationBroker(store, localBroker, 2, 600L, 100L, executorServiceFactory);
+        when(executorServiceFactory.createFixedThreadPool(anyInt(), anyString())).thenReturn(decoderService);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(decoderService).execute(any(Runnable.class));
+        given(localBroker.hasSubscribers(any(Topic.class))).willReturn(true);
+        broker = new CTSNotificationBroker(store, localBroker, 2, 100, 600L, 100L, 0L, 1, executorServiceFactory);
     }
 
     @Test
@@ -123,6 +138,81 @@ public final class CTSNotificationBrokerTest {
         assertThat(result).isFalse();
     }
 
+    @Test
+    public void whenQueueIsFullDroppedNotificationIsCounted() throws Exception {
+        // When
+        JsonValue notification = json(object(field("some-field", "some-value")));
+        broker.publish(Topic.of("test-topic"), notification);
+        broker.publish(Topic.of("test-topic"), notification);
+        broker.publish(Topic.of("test-topic"), notification);
+
+        // Then
+        assertThat(broker.getDroppedNotificationCount()).isEqualTo(1);
+        assertThat(broker.getQueueDepth()).isEqualTo(2);
+    }
+
+    @Test
+    public void whenQueueIsFullPublisherWaitsForItsOwnTimeout() throws Exception {
+        // Given
+        JsonValue notification = json(object(field("some-field", "some-value")));
+        broker.publish(Topic.of("test-topic"), notification);
+        broker.publish(Topic.of("test-topic"), notification);
+
+        // When
+        boolean result = broker.publish(Topic.of("test-topic"), notification, 10L, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertThat(result).isFalse();
+        assertThat(broker.getBackPressureWaitCount()).isEqualTo(1);
+        assertThat(broker.getDroppedNotificationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void whenQueueIsFullPublisherWithZeroTimeoutDoesNotWait() throws Exception {
+        // Given
+        broker = new CTSNotificationBroker(store, localBroker, 2, 100, 600L, 100L, 60000L, 1, executorServiceFactory);
+        JsonValue notification = json(object(field("some-field", "some-value")));
+        broker.publish(Topic.of("test-topic"), notification);
+        broker.publish(Topic.of("test-topic"), notification);
+
+        // When
+        boolean result = broker.publish(Topic.of("test-topic"), notification, 0L, TimeUnit.MILLISECONDS);
+
+        // Then
+        assertThat(result).isFalse();
+        assertThat(broker.getBackPressureWaitCount()).isEqualTo(0);
+        assertThat(broker.getPublishTimeout()).isEqualTo(60000L);
+    }
+
+    @Test
+    public void whenConstructedBrokerPublishesMetricsAsMBean() throws Exception {
+        // Given
+        ObjectName objectName = new ObjectName("OpenAM:type=NotificationBroker,name=CTS");
+        JsonValue notification = json(object(field("some-field", "some-value")));
+
+        // When
+        broker.publish(Topic.of("test-topic"), notification);
+
+        // Then
+        assertThat(ManagementFactory.getPlatformMBeanServer().getAttribute(objectName, "QueueDepth")).isEqualTo(1);
+        broker.shutdown();
+        assertThat(ManagementFactory.getPlatformMBeanServer().isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    public void whenQueueHoldsFullBatchPublisherIsRunWithoutWaitingForSchedule() throws Exception {
+        // Given
+        broker = new CTSNotificationBroker(store, localBroker, 10, 2, 600L, 100L, 0L, 1, executorServiceFactory);
+        JsonValue notification = json(object(field("some-field", "some-value")));
+
+        // When
+        broker.publish(Topic.of("test-topic"), notification);
+        broker.publish(Topic.of("test-topic"), notification);
+
+        // Then
+        verify(executorService).execute(any(Runnable.class));
+    }
+
     @Test
     public void whenQueueIsEmptyPublisherDoesNothing() throws Exception {
         Runnable publisher = getPublisherTask();
@@ -171,6 +261,42 @@ public final class CTSNotificationBrokerTest {
         assertThat(entries).hasSize(2);
     }
 
+    @Test
+    public void whenPublisherRunsItSplitsNotificationsIntoBatchesOfMaximumSize() throws Exception {
+        // Given
+        broker = new CTSNotificationBroker(store, localBroker, 10, 2, 600L, 100L, 0L, 1, executorServiceFactory);
+        verify(executorService, times(2)).scheduleAtFixedRate(publisherTaskCaptor.capture(), anyLong(), anyLong(),
+                any(TimeUnit.class));
+        Runnable publisher = publisherTaskCaptor.getValue();
+        JsonValue notification = json(object(field("some-field", "some-value")));
+        for (int i = 0; i < 5; i++) {
+            broker.publish(Topic.of("test-topic"), notification);
+        }
+
+        // When
+        publisher.run();
+
+        // Then
+        verify(store, times(3)).createAsync(any(Token.class));
+        assertThat(broker.getPublishedBatchCount()).isEqualTo(3);
+    }
+
+    @Test
+    public void whenPublisherRunsTokenRecordsTopicsOfBatch() throws Exception {
+        Runnable publisher = getPublisherTask();
+
+        // When
+        JsonValue notification = json(object(field("some-field", "some-value")));
+        broker.publish(Topic.of("test-topic"), notification);
+        broker.publish(Topic.of("other-topic"), notification);
+        publisher.run();
+
+        // Then
+        verify(store).createAsync(tokenCaptor.capture());
+        assertThat(tokenCaptor.getValue().<String>getMultiAttribute(CoreTokenField.MULTI_STRING_ONE))
+                .containsOnly("test-topic", "other-topic");
+    }
+
     @Test
     public void whenPublishingNotificationTokenGetsCorrectExpiryTime() throws Exception {
         Runnable publisher = getPublisherTask();
@@ -212,6 +338,27 @@ public final class CTSNotificationBrokerTest {
         assertThat(jsonValueCaptor.getValue().isEqualTo(notification));
     }
 
+    @Test
+    public void whenNoLocalSubscribersToTopicsBatchIsNotDecoded() throws Exception {
+        // Given
+        given(localBroker.hasSubscribers(Topic.of("test-topic"))).willReturn(false);
+        ContinuousQueryListener<Attribute> listener = getContinuousQueryListener();
+        Attribute blob = mock(Attribute.class);
+        Attribute topics = mock(Attribute.class);
+        given(topics.iterator()).willReturn(Collections.singleton(ByteString.valueOfUtf8("test-topic")).iterator());
+        Map<String, Attribute> changeSet = new HashMap<>();
+        changeSet.put(CoreTokenField.BLOB.toString(), blob);
+        changeSet.put(CoreTokenField.MULTI_STRING_ONE.toString(), topics);
+
+        // When
+        listener.objectChanged("1234", changeSet, ChangeType.ADD);
+
+        // Then
+        verify(blob, never()).firstValue();
+        verify(localBroker, never()).publish(any(Topic.class), any(JsonValue.class));
+        assertThat(broker.getSkippedBatchCount()).isEqualTo(1);
+    }
+
     @Test
     public void whenObjectChangedInCTSBrokerNoActionOccurs() throws Exception {
         // Given
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications.websocket;
@@ -28,6 +29,7 @@ import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.websocket.CloseReason;
 import javax.websocket.DecodeException;
 import javax.websocket.EncodeException;
 import javax.websocket.OnClose;
@@ -287,6 +289,16 @@ public final class NotificationsWebSocket {
             }
         }
 
+        @Override
+        public void disconnected() {
+            try {
+                session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER,
+                        "Not keeping up with notifications"));
+            } catch (IOException e) {
+                logger.warn("Failed to close WebSocket connection", e);
+            }
+        }
+
     }
 
 }
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications;
@@ -44,4 +45,11 @@ public interface Consumer {
      */
     void accept(JsonValue notification);
 
+    /**
+     * Called when the broker closes the subscription because the consumer is not keeping up with
+     * the notifications published to its topics. No further notifications will be delivered.
+     */
+    default void disconnected() {
+    }
+
 }
@@ -12,11 +12,15 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications;
 
+import java.util.concurrent.TimeUnit;
+
 import org.forgerock.json.JsonValue;
+import org.forgerock.openam.notifications.brokers.SlowConsumerPolicy;
 
 /**
  * Delivers notifications to subscribers of topics.
@@ -42,6 +46,24 @@ public interface NotificationBroker {
      */
     boolean publish(Topic topic, JsonValue notification);
 
+    /**
+     * Publishes the notification as {@link #publish(Topic, JsonValue)} does, waiting no longer than the given
+     * timeout for the broker to accept it. Brokers that may block publishers when they cannot keep up use the
+     * timeout in place of their configured one; a timeout of zero never waits.
+     * <p>
+     * The default implementation ignores the timeout, for brokers that never block publishers.
+     *
+     * @param topic topic
+     * @param notification notification
+     * @param timeout the longest time to wait for the broker to accept the notification
+     * @param unit the unit of the timeout
+     * @return attempts to give some indication whether the topic was successfully published. False gives a guarantee
+     * that publication definitely failed.
+     */
+    default boolean publish(Topic topic, JsonValue notification, long timeout, TimeUnit unit) {
+        return publish(topic, notification);
+    }
+
     /**
      * Creates a new subscription that is initially not bound to any topics.
      * <p>
@@ -52,6 +74,36 @@ public interface NotificationBroker {
      */
     Subscription subscribe(Consumer consumer);
 
+    /**
+     * Creates a new subscription that is initially not bound to any topics, and which handles a consumer that is
+     * not keeping up with the given policy rather than the default policy of the broker.
+     * <p>
+     * Subscriptions made by the server for its own use should pass a policy other than
+     * {@link SlowConsumerPolicy#DISCONNECT}, as nothing would subscribe them again.
+     * <p>
+     * The default implementation ignores the policy, for brokers that do not buffer notifications per subscription.
+     *
+     * @param consumer a consumer that will be called once per published notification
+     * @param slowConsumerPolicy what to do when the consumer is not keeping up with notifications
+     * @return a new subscriber
+     */
+    default Subscription subscribe(Consumer consumer, SlowConsumerPolicy slowConsumerPolicy) {
+        return subscribe(consumer);
+    }
+
+    /**
+     * Determines whether any subscription is currently bound to the given topic. Brokers that relay
+     * notifications may use this to avoid the cost of decoding notifications nobody will receive.
+     * <p>
+     * The default implementation conservatively reports that there are subscribers.
+     *
+     * @param topic the topic of interest
+     * @return false only if it is known that no subscription is bound to the topic
+     */
+    default boolean hasSubscribers(Topic topic) {
+        return true;
+    }
+
     /**
      * Initiates an orderly shutdown in which previously published
      * notifications are delivered, but no new notifications will be accepted.
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications.brokers;
@@ -20,18 +21,28 @@ import static org.forgerock.json.JsonValue.field;
 import static org.forgerock.json.JsonValue.json;
 import static org.forgerock.json.JsonValue.object;
 
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.inject.Inject;
 import javax.inject.Named;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
@@ -48,49 +59,112 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 /**
- * A notification broker that uses an in-memory shared queue for incoming notifications and
- * a single thread for reading from it. Routing of notifications to subscriptions is done
- * on the reading thread.
+ * A notification broker that queues incoming notifications in memory.
  * <p>
- * The queue is a fixed size and therefore notifications may be lost if the queue becomes
+ * Notifications are sharded by topic across one queue per reader thread, so notifications for a
+ * topic are routed in the order they were published. A reader routes each notification to the
+ * subscriptions bound to its topic by placing it in the subscription's bounded outbox; outboxes
+ * are drained by a separate pool of delivery threads. A slow consumer therefore only fills its own
+ * outbox and does not hold up delivery to other subscriptions. What happens when an outbox is full
+ * is decided by the {@link SlowConsumerPolicy} of the subscription, which defaults to the configured
+ * policy.
+ * <p>
+ * Delivery metrics are published through the {@link InMemoryNotificationBrokerMBean} interface.
+ * <p>
+ * The shard queues are a fixed size and therefore notifications may be lost if a queue becomes
  * full.
  *
  * @since 14.0.0
  */
-public final class InMemoryNotificationBroker implements NotificationBroker {
+public final class InMemoryNotificationBroker implements NotificationBroker, InMemoryNotificationBrokerMBean {
 
     private static final Logger logger = LoggerFactory.getLogger(InMemoryNotificationBroker.class);
     private static final DateTimeFormatter TS_FORMATTER = ISODateTimeFormat.dateTime().withZoneUTC();
+    private static final int MAX_DELIVERIES_PER_TASK = 64;
+    private static final String MBEAN_NAME = "OpenAM:type=NotificationBroker,name=InMemory";
 
-    private final BlockingQueue<NotificationEntry> queue;
-    private final List<InternalSubscription> subscriptions;
+    private final List<BlockingQueue<NotificationEntry>> shards;
+    private final Set<InternalSubscription> subscriptions;
+    private final ConcurrentMap<Topic, Set<InternalSubscription>> subscriptionsByTopic;
     private final TimeService timeService;
+    private final int outboxSize;
+    private final SlowConsumerPolicy slowConsumerPolicy;
 
     private final ExecutorService executorService;
+    private final ExecutorService deliveryService;
     private volatile boolean shutdown;
 
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder disconnected = new LongAdder();
+
     /**
      * Constructs a new InMemoryNotificationBroker.
      *
-     * @param executorServiceFactory an executor service factory for scheduling reader threads
+     * @param executorServiceFactory an executor service factory for scheduling reader and delivery threads
      * @param timeService a time service for adding timestamps to messages
-     * @param queueSize the number of notifications to buffer in memory
+     * @param queueSize the number of notifications to buffer in memory per shard
+     * @param consumers the number of shards, each read by its own thread
+     * @param outboxSize the number of notifications to buffer per subscription
+     * @param deliveryThreads the number of threads delivering notifications to consumers
+     * @param slowConsumerPolicy what to do when the outbox of a subscription made without a policy of its own is
+     * full
      */
     @Inject
     public InMemoryNotificationBroker(AMExecutorServiceFactory executorServiceFactory, TimeService timeService,
-            @Named("queueSize") int queueSize, @Named("consumers") int consumers) {
+            @Named("queueSize") int queueSize, @Named("consumers") int consumers,
+            @Named("outboxSize") int outboxSize, @Named("deliveryThreads") int deliveryThreads,
+            @Named("slowConsumerPolicy") SlowConsumerPolicy slowConsumerPolicy) {
         Reject.ifNull(executorServiceFactory, "Executor service factory must not be null");
         Reject.ifNull(timeService, "Time service must not be null");
+        Reject.ifNull(slowConsumerPolicy, "Slow consumer policy must not be null");
         Reject.ifTrue(queueSize <= 0, "Queue size must be a positive integer");
         Reject.ifTrue(consumers <= 0, "Number of consumer threads must be a positive integer");
+        Reject.ifTrue(outboxSize <= 0, "Outbox size must be a positive integer");
+        Reject.ifTrue(deliveryThreads <= 0, "Number of delivery threads must be a positive integer");
 
         this.timeService = timeService;
+        this.outboxSize = outboxSize;
+        this.slowConsumerPolicy = slowConsumerPolicy;
 
-        queue = new ArrayBlockingQueue<>(queueSize);
-        subscriptions = new CopyOnWriteArrayList<>();
-        executorService = executorServiceFactory.createFixedThreadPool(consumers, "InMemoryNotificationsBroker");
+        shards = new ArrayList<>(consumers);
         for (int i = 0; i < consumers; i++) {
-            executorService.submit(new NotificationReader());
+            shards.add(new ArrayBlockingQueue<NotificationEntry>(queueSize));
+        }
+        subscriptions = ConcurrentHashMap.newKeySet();
+        subscriptionsByTopic = new ConcurrentHashMap<>();
+        deliveryService = executorServiceFactory.createFixedThreadPool(deliveryThreads,
+                "InMemoryNotificationsDelivery");
+        executorService = executorServiceFactory.createFixedThreadPool(consumers, "InMemoryNotificationsBroker");
+        for (BlockingQueue<NotificationEntry> shard : shards) {
+            executorService.submit(new NotificationReader(shard));
+        }
+        registerMBean();
+    }
+
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, InMemoryNotificationBrokerMBean.class), objectName);
+        } catch (Exception e) {
+            logger.warn("Unable to register notification broker monitoring", e);
+        }
+    }
+
+    private void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName(MBEAN_NAME);
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception e) {
+            logger.debug("Unable to unregister notification broker monitoring", e);
         }
     }
 
@@ -104,9 +178,11 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
             return false;
         }
 
-        NotificationEntry entry = NotificationEntry.of(topic, packageNotification(topic, notification));
+        long now = timeService.now();
+        NotificationEntry entry = NotificationEntry.of(topic, packageNotification(topic, notification, now), now);
 
-        if (!queue.offer(entry)) {
+        if (!shardFor(topic).offer(entry)) {
+            rejected.increment();
             logger.info("Failed to publish notification because queue is full. Notification discarded");
             return false;
         }
@@ -114,8 +190,12 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
         return true;
     }
 
-    private JsonValue packageNotification(Topic topic, JsonValue notification) {
-        String timeStamp = TS_FORMATTER.print(new DateTime(timeService.now()));
+    private BlockingQueue<NotificationEntry> shardFor(Topic topic) {
+        return shards.get((topic.hashCode() & Integer.MAX_VALUE) % shards.size());
+    }
+
+    private JsonValue packageNotification(Topic topic, JsonValue notification, long now) {
+        String timeStamp = TS_FORMATTER.print(new DateTime(now));
 
         return json(object(
                 field("topic", topic.getIdentifier()),
@@ -125,20 +205,92 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
 
     @Override
     public Subscription subscribe(Consumer consumer) {
+        return subscribe(consumer, slowConsumerPolicy);
+    }
+
+    @Override
+    public Subscription subscribe(Consumer consumer, SlowConsumerPolicy slowConsumerPolicy) {
         Reject.ifNull(consumer, "Consumer must not be null");
-        InternalSubscription subscription = new InternalSubscription(consumer);
+        Reject.ifNull(slowConsumerPolicy, "Slow consumer policy must not be null");
+        InternalSubscription subscription = new InternalSubscription(consumer, slowConsumerPolicy);
         subscriptions.add(subscription);
         return subscription;
     }
 
+    @Override
+    public boolean hasSubscribers(Topic topic) {
+        Reject.ifNull(topic, "Topic must not be null");
+        return subscriptionsByTopic.containsKey(topic);
+    }
+
+    /**
+     * Returns the delivery metrics of every open subscription.
+     *
+     * @return the subscription metrics
+     */
+    public List<SubscriptionMetrics> getSubscriptionMetrics() {
+        return new ArrayList<SubscriptionMetrics>(subscriptions);
+    }
+
+    @Override
+    public int getSubscriptionCount() {
+        return subscriptions.size();
+    }
+
+    @Override
+    public long getBacklog() {
+        long backlog = 0;
+        for (SubscriptionMetrics metrics : subscriptions) {
+            backlog += metrics.getBacklog();
+        }
+        return backlog;
+    }
+
+    @Override
+    public long getMaxLag() {
+        long lag = 0;
+        for (SubscriptionMetrics metrics : subscriptions) {
+            lag = Math.max(lag, metrics.getLag(TimeUnit.MILLISECONDS));
+        }
+        return lag;
+    }
+
+    @Override
+    public long getRejectedNotificationCount() {
+        return rejected.sum();
+    }
+
+    @Override
+    public long getDroppedNotificationCount() {
+        return dropped.sum();
+    }
+
+    @Override
+    public long getDeliveredNotificationCount() {
+        return delivered.sum();
+    }
+
+    @Override
+    public long getDisconnectedSubscriptionCount() {
+        return disconnected.sum();
+    }
+
     @Override
     public void shutdown() {
         shutdown = true;
         executorService.shutdownNow();
+        deliveryService.shutdownNow();
+        unregisterMBean();
     }
 
     private final class NotificationReader implements Runnable {
 
+        private final BlockingQueue<NotificationEntry> queue;
+
+        private NotificationReader(BlockingQueue<NotificationEntry> queue) {
+            this.queue = queue;
+        }
+
         @Override
         public void run() {
             while (!shutdown) {
@@ -156,7 +308,7 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
                         entries.add(entry);
                     }
 
-                    deliver(entries);
+                    route(entries);
                 } catch (InterruptedException e) {
                     Thread.currentThread().interrupt();
                     // Informs the broker that the reader is shutting down as
@@ -166,35 +318,47 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
                 }
             }
 
-            List<NotificationEntry> remainingEntries = new ArrayList<>();
-            queue.drainTo(remainingEntries);
+            // Once shut down, every reader helps to flush whatever is left in any shard.
+            for (BlockingQueue<NotificationEntry> shard : shards) {
+                List<NotificationEntry> remainingEntries = new ArrayList<>();
+                shard.drainTo(remainingEntries);
 
-            if (!remainingEntries.isEmpty()) {
-                deliver(remainingEntries);
+                if (!remainingEntries.isEmpty()) {
+                    route(remainingEntries);
+                }
             }
         }
 
-        private void deliver(List<NotificationEntry> entries) {
-            for (InternalSubscription subscription : subscriptions) {
-                try {
-                    subscription.consumeIfApplicable(entries);
-                } catch (RuntimeException ex) {
-                    logger.warn("Exception thrown whilst delivering notifications", ex);
+        private void route(List<NotificationEntry> entries) {
+            for (NotificationEntry entry : entries) {
+                Set<InternalSubscription> bound = subscriptionsByTopic.get(entry.topic);
+                if (bound == null) {
+                    continue;
+                }
+                for (InternalSubscription subscription : bound) {
+                    subscription.enqueue(entry);
                 }
             }
         }
 
     }
 
-    private final class InternalSubscription implements Subscription {
+    private final class InternalSubscription implements Subscription, SubscriptionMetrics, Runnable {
 
         private final Set<Topic> topics;
         private final Consumer consumer;
+        private final SlowConsumerPolicy slowConsumerPolicy;
+        private final Deque<NotificationEntry> outbox;
+        private final LongAdder dropped = new LongAdder();
+        private final LongAdder delivered = new LongAdder();
+        private boolean deliveryScheduled;
         private volatile boolean closed;
 
-        private InternalSubscription(Consumer consumer) {
+        private InternalSubscription(Consumer consumer, SlowConsumerPolicy slowConsumerPolicy) {
             this.consumer = consumer;
+            this.slowConsumerPolicy = slowConsumerPolicy;
             topics = new CopyOnWriteArraySet<>();
+            outbox = new ArrayDeque<>();
         }
 
         @Override
@@ -202,6 +366,13 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
             Reject.rejectStateIfTrue(closed, "Subscription is closed");
             Reject.ifNull(topic, "Topic must not be null");
             topics.add(topic);
+            subscriptionsByTopic.compute(topic, (t, bound) -> {
+                if (bound == null) {
+                    bound = ConcurrentHashMap.newKeySet();
+                }
+                bound.add(this);
+                return bound;
+            });
             return this;
         }
 
@@ -217,22 +388,156 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
             Reject.rejectStateIfTrue(closed, "Subscription is closed");
             Reject.ifNull(topic, "Topic must not be null");
             topics.remove(topic);
+            removeFromIndex(topic);
             return this;
         }
 
+        private void removeFromIndex(Topic topic) {
+            subscriptionsByTopic.computeIfPresent(topic, (t, bound) -> {
+                bound.remove(this);
+                return bound.isEmpty() ? null : bound;
+            });
+        }
+
         @Override
         public void close() {
             closed = true;
             subscriptions.remove(this);
+            for (Topic topic : topics) {
+                removeFromIndex(topic);
+            }
+            synchronized (outbox) {
+                outbox.clear();
+            }
         }
 
-        // Called from reader thread.
-        void consumeIfApplicable(List<NotificationEntry> entries) {
-            for (NotificationEntry entry : entries) {
-                if (isBoundTo(entry.topic)) {
+        // Called from reader threads.
+        void enqueue(NotificationEntry entry) {
+            if (closed) {
+                return;
+            }
+            boolean disconnect = false;
+            boolean schedule = false;
+            synchronized (outbox) {
+                if (outbox.size() >= outboxSize) {
+                    dropped.increment();
+                    InMemoryNotificationBroker.this.dropped.increment();
+                    switch (slowConsumerPolicy) {
+                    case DISCONNECT:
+                        disconnect = true;
+                        break;
+                    case COALESCE:
+                        if (!removeQueued(entry.topic)) {
+                            outbox.pollFirst();
+                        }
+                        break;
+                    default:
+                        outbox.pollFirst();
+                        break;
+                    }
+                }
+                if (!disconnect) {
+                    outbox.addLast(entry);
+                    if (!deliveryScheduled) {
+                        deliveryScheduled = true;
+                        schedule = true;
+                    }
+                }
+            }
+            if (disconnect) {
+                disconnect();
+            } else if (schedule) {
+                scheduleDelivery();
+            }
+        }
+
+        private boolean removeQueued(Topic topic) {
+            Iterator<NotificationEntry> iterator = outbox.iterator();
+            while (iterator.hasNext()) {
+                if (iterator.next().topic.equals(topic)) {
+                    iterator.remove();
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void disconnect() {
+            logger.info("Closing subscription as its consumer is not keeping up with notifications");
+            disconnected.increment();
+            close();
+            try {
+                consumer.disconnected();
+            } catch (RuntimeException ex) {
+                logger.warn("Exception thrown whilst disconnecting consumer", ex);
+            }
+        }
+
+        private void scheduleDelivery() {
+            try {
+                deliveryService.execute(this);
+            } catch (RejectedExecutionException e) {
+                synchronized (outbox) {
+                    deliveryScheduled = false;
+                }
+                logger.debug("Unable to schedule delivery of notifications", e);
+            }
+        }
+
+        // Called from delivery threads, at most one at a time per subscription.
+        @Override
+        public void run() {
+            for (int i = 0; i < MAX_DELIVERIES_PER_TASK; i++) {
+                NotificationEntry entry;
+                synchronized (outbox) {
+                    entry = outbox.pollFirst();
+                    if (entry == null) {
+                        deliveryScheduled = false;
+                        return;
+                    }
+                }
+                if (closed) {
+                    return;
+                }
+                try {
                     consumer.accept(entry.notification);
+                    delivered.increment();
+                    InMemoryNotificationBroker.this.delivered.increment();
+                } catch (RuntimeException ex) {
+                    logger.warn("Exception thrown whilst delivering notifications", ex);
                 }
             }
+            // Yield the delivery thread to other subscriptions before continuing.
+            scheduleDelivery();
+        }
+
+        @Override
+        public int getBacklog() {
+            synchronized (outbox) {
+                return outbox.size();
+            }
+        }
+
+        @Override
+        public long getLag(TimeUnit unit) {
+            NotificationEntry oldest;
+            synchronized (outbox) {
+                oldest = outbox.peekFirst();
+            }
+            if (oldest == null) {
+                return 0L;
+            }
+            return unit.convert(Math.max(0L, timeService.now() - oldest.published), TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public long getDroppedNotificationCount() {
+            return dropped.sum();
+        }
+
+        @Override
+        public long getDeliveredNotificationCount() {
+            return delivered.sum();
         }
     }
 
@@ -240,14 +545,16 @@ public final class InMemoryNotificationBroker implements NotificationBroker {
 
         private final Topic topic;
         private final JsonValue notification;
+        private final long published;
 
-        private NotificationEntry(Topic topic, JsonValue notification) {
+        private NotificationEntry(Topic topic, JsonValue notification, long published) {
             this.topic = topic;
             this.notification = notification;
+            this.published = published;
         }
 
-        static NotificationEntry of(Topic topic, JsonValue notification) {
-            return new NotificationEntry(topic, notification);
+        static NotificationEntry of(Topic topic, JsonValue notification, long published) {
+            return new NotificationEntry(topic, notification, published);
         }
 
     }
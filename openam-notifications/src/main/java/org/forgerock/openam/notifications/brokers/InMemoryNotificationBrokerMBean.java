@@ -0,0 +1,73 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.notifications.brokers;
+
+/**
+ * Monitoring interface of an {@link InMemoryNotificationBroker}, registered as an MBean named
+ * {@code OpenAM:type=NotificationBroker,name=InMemory}.
+ */
+public interface InMemoryNotificationBrokerMBean {
+
+    /**
+     * Returns the number of open subscriptions.
+     *
+     * @return the subscription count
+     */
+    int getSubscriptionCount();
+
+    /**
+     * Returns the number of notifications waiting to be delivered, across all subscriptions.
+     *
+     * @return the total outbox depth
+     */
+    long getBacklog();
+
+    /**
+     * Returns how long the oldest undelivered notification of any subscription has been waiting.
+     *
+     * @return the lag in milliseconds, or zero if nothing is waiting
+     */
+    long getMaxLag();
+
+    /**
+     * Returns the number of notifications discarded because the queue of their topic was full when published.
+     *
+     * @return the number of rejected notifications
+     */
+    long getRejectedNotificationCount();
+
+    /**
+     * Returns the number of notifications discarded or coalesced because the outbox of a subscription was full.
+     *
+     * @return the number of dropped notifications
+     */
+    long getDroppedNotificationCount();
+
+    /**
+     * Returns the number of notifications delivered to consumers.
+     *
+     * @return the number of delivered notifications
+     */
+    long getDeliveredNotificationCount();
+
+    /**
+     * Returns the number of subscriptions closed because their consumer was not keeping up.
+     *
+     * @return the number of disconnected subscriptions
+     */
+    long getDisconnectedSubscriptionCount();
+}
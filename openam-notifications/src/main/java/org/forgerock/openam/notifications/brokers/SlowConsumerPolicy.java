@@ -0,0 +1,59 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.notifications.brokers;
+
+/**
+ * Determines what a broker does when a subscription's outbox is full because its consumer is not
+ * keeping up with the notifications published to its topics.
+ */
+public enum SlowConsumerPolicy {
+
+    /**
+     * Discard the oldest queued notification to make room for the new one.
+     */
+    DROP_OLDEST,
+
+    /**
+     * Close the subscription and tell the consumer it has been disconnected.
+     */
+    DISCONNECT,
+
+    /**
+     * Replace the queued notification for the same topic with the new one, so that only the latest
+     * notification per topic is delivered. If nothing is queued for the topic the oldest
+     * notification is discarded.
+     */
+    COALESCE;
+
+    /**
+     * Parses a policy name, falling back to the given default if the name is not recognised.
+     *
+     * @param name the policy name, may be null
+     * @param defaultPolicy the policy to use if the name is not recognised
+     * @return the parsed policy
+     */
+    public static SlowConsumerPolicy fromString(String name, SlowConsumerPolicy defaultPolicy) {
+        if (name != null) {
+            for (SlowConsumerPolicy policy : values()) {
+                if (policy.name().equalsIgnoreCase(name.trim())) {
+                    return policy;
+                }
+            }
+        }
+        return defaultPolicy;
+    }
+}
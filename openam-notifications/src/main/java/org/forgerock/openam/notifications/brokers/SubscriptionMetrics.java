@@ -0,0 +1,54 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package org.forgerock.openam.notifications.brokers;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Delivery metrics of a single subscription held by an {@link InMemoryNotificationBroker}.
+ */
+public interface SubscriptionMetrics {
+
+    /**
+     * Returns the number of notifications waiting to be delivered to the consumer.
+     *
+     * @return the outbox depth
+     */
+    int getBacklog();
+
+    /**
+     * Returns how long the oldest undelivered notification has been waiting.
+     *
+     * @param unit the unit of the returned value
+     * @return the lag, or zero if nothing is waiting
+     */
+    long getLag(TimeUnit unit);
+
+    /**
+     * Returns the number of notifications discarded or coalesced because the outbox was full.
+     *
+     * @return the number of dropped notifications
+     */
+    long getDroppedNotificationCount();
+
+    /**
+     * Returns the number of notifications delivered to the consumer.
+     *
+     * @return the number of delivered notifications
+     */
+    long getDeliveredNotificationCount();
+}
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.notifications;
@@ -28,6 +29,8 @@ import org.forgerock.json.JsonPointer;
 import org.forgerock.json.JsonValue;
 import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
 import org.forgerock.openam.notifications.brokers.InMemoryNotificationBroker;
+import org.forgerock.openam.notifications.brokers.SlowConsumerPolicy;
+import org.forgerock.openam.notifications.brokers.SubscriptionMetrics;
 import org.forgerock.util.time.TimeService;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Captor;
@@ -50,6 +53,8 @@ public final class InMemoryNotificationBrokerTest {
     @Mock
     private ExecutorService executorService;
     @Mock
+    private ExecutorService deliveryService;
+    @Mock
     private Consumer consumer;
     @Mock
     private TimeService timeService;
@@ -65,7 +70,14 @@ public final class InMemoryNotificationBrokerTest {
     public void setUp() {
         MockitoAnnotations.initMocks(this);
         when(executorServiceFactory.createFixedThreadPool(anyInt(), anyString())).thenReturn(executorService);
-        broker = new InMemoryNotificationBroker(executorServiceFactory, timeService, 2, CONSUMERS);
+        when(executorServiceFactory.createFixedThreadPool(anyInt(), eq("InMemoryNotificationsDelivery")))
+                .thenReturn(deliveryService);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(0).run();
+            return null;
+        }).when(deliveryService).execute(any(Runnable.class));
+        broker = new InMemoryNotificationBroker(executorServiceFactory, timeService, 2, CONSUMERS, 10, 1,
+                SlowConsumerPolicy.DROP_OLDEST);
     }
 
     @Test
@@ -322,5 +334,146 @@ public final class InMemoryNotificationBrokerTest {
         broker.shutdown();
 
         verify(executorService).shutdownNow();
+        verify(deliveryService).shutdownNow();
+    }
+
+    @Test
+    public void whenSubscribedToTopicBrokerReportsSubscribers() throws Exception {
+        // Given
+        Subscription subscription = broker.subscribe(consumer).bindTo(Topic.of("test_topic"));
+
+        // When
+        boolean bound = broker.hasSubscribers(Topic.of("test_topic"));
+        subscription.close();
+        boolean boundAfterClose = broker.hasSubscribers(Topic.of("test_topic"));
+
+        // Then
+        assertThat(bound).isTrue();
+        assertThat(boundAfterClose).isFalse();
+    }
+
+    @Test
+    public void whenOutboxIsFullOldestNotificationIsDropped() throws Exception {
+        // Given
+        broker = newBroker(1, 1, SlowConsumerPolicy.DROP_OLDEST);
+        broker.subscribe(consumer).bindTo(Topic.of("test_topic"));
+        reset(deliveryService);
+
+        // When
+        publishAndRoute(Topic.of("test_topic"), "first", Topic.of("test_topic"), "second");
+
+        // Then
+        SubscriptionMetrics metrics = ((InMemoryNotificationBroker) broker).getSubscriptionMetrics().get(0);
+        assertThat(metrics.getBacklog()).isEqualTo(1);
+        assertThat(metrics.getDroppedNotificationCount()).isEqualTo(1);
+        verify(deliveryService).execute(readerCapture.capture());
+        readerCapture.getValue().run();
+        verify(consumer).accept(notificationCapture.capture());
+        assertThat(notificationCapture.getValue().get(new JsonPointer("body/tokenId")).asString()).isEqualTo("second");
+    }
+
+    @Test
+    public void whenOutboxIsFullAndPolicyIsDisconnectConsumerIsDisconnected() throws Exception {
+        // Given
+        broker = newBroker(1, 1, SlowConsumerPolicy.DISCONNECT);
+        broker.subscribe(consumer).bindTo(Topic.of("test_topic"));
+        reset(deliveryService);
+
+        // When
+        publishAndRoute(Topic.of("test_topic"), "first", Topic.of("test_topic"), "second");
+
+        // Then
+        verify(consumer).disconnected();
+        assertThat(broker.hasSubscribers(Topic.of("test_topic"))).isFalse();
+    }
+
+    @Test
+    public void whenOutboxIsFullAndPolicyIsCoalesceLatestNotificationPerTopicIsKept() throws Exception {
+        // Given
+        broker = newBroker(1, 2, SlowConsumerPolicy.COALESCE);
+        broker.subscribe(consumer).bindTo(Topic.of("test_topic")).bindTo(Topic.of("other_topic"));
+        reset(deliveryService);
+
+        // When
+        publishAndRoute(Topic.of("test_topic"), "first", Topic.of("other_topic"), "other",
+                Topic.of("test_topic"), "second");
+
+        // Then
+        verify(deliveryService).execute(readerCapture.capture());
+        readerCapture.getValue().run();
+        verify(consumer, times(2)).accept(notificationCapture.capture());
+        assertThat(notificationCapture.getAllValues().get(0).get(new JsonPointer("body/tokenId")).asString())
+                .isEqualTo("other");
+        assertThat(notificationCapture.getAllValues().get(1).get(new JsonPointer("body/tokenId")).asString())
+                .isEqualTo("second");
+    }
+
+    @Test
+    public void whenSubscribedWithOwnPolicyConsumerIsNotDisconnectedByBrokerPolicy() throws Exception {
+        // Given
+        broker = newBroker(1, 1, SlowConsumerPolicy.DISCONNECT);
+        broker.subscribe(consumer, SlowConsumerPolicy.DROP_OLDEST).bindTo(Topic.of("test_topic"));
+        reset(deliveryService);
+
+        // When
+        publishAndRoute(Topic.of("test_topic"), "first", Topic.of("test_topic"), "second");
+
+        // Then
+        verify(consumer, never()).disconnected();
+        assertThat(broker.hasSubscribers(Topic.of("test_topic"))).isTrue();
+        SubscriptionMetrics metrics = ((InMemoryNotificationBroker) broker).getSubscriptionMetrics().get(0);
+        assertThat(metrics.getDroppedNotificationCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void brokerMetricsAggregateSubscriptionMetrics() throws Exception {
+        // Given
+        broker = newBroker(1, 1, SlowConsumerPolicy.DISCONNECT);
+        broker.subscribe(consumer).bindTo(Topic.of("test_topic"));
+        broker.subscribe(mock(Consumer.class), SlowConsumerPolicy.DROP_OLDEST).bindTo(Topic.of("test_topic"));
+        reset(deliveryService);
+
+        // When
+        publishAndRoute(Topic.of("test_topic"), "first", Topic.of("test_topic"), "second");
+
+        // Then
+        InMemoryNotificationBroker metrics = (InMemoryNotificationBroker) broker;
+        assertThat(metrics.getSubscriptionCount()).isEqualTo(1);
+        assertThat(metrics.getBacklog()).isEqualTo(1);
+        assertThat(metrics.getDroppedNotificationCount()).isEqualTo(2);
+        assertThat(metrics.getDisconnectedSubscriptionCount()).isEqualTo(1);
+        assertThat(metrics.getDeliveredNotificationCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void whenShardIsFullNotificationIsRejected() {
+        // Given
+        broker.subscribe(consumer).bindTo(Topic.of("test_topic"));
+
+        // When
+        boolean first = broker.publish(Topic.of("test_topic"), json(object(field("tokenId", "1"))));
+        boolean second = broker.publish(Topic.of("test_topic"), json(object(field("tokenId", "2"))));
+        boolean third = broker.publish(Topic.of("test_topic"), json(object(field("tokenId", "3"))));
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isTrue();
+        assertThat(third).isFalse();
+        assertThat(((InMemoryNotificationBroker) broker).getRejectedNotificationCount()).isEqualTo(1);
+    }
+
+    private NotificationBroker newBroker(int consumers, int outboxSize, SlowConsumerPolicy policy) {
+        return new InMemoryNotificationBroker(executorServiceFactory, timeService, 3, consumers, outboxSize, 1,
+                policy);
+    }
+
+    private void publishAndRoute(Object... topicsAndTokenIds) {
+        for (int i = 0; i < topicsAndTokenIds.length; i += 2) {
+            broker.publish((Topic) topicsAndTokenIds[i], json(object(field("tokenId", topicsAndTokenIds[i + 1]))));
+        }
+        verify(executorService, atLeastOnce()).submit(readerCapture.capture());
+        Runnable reader = readerCapture.getValue();
+        broker.shutdown();
+        reader.run();
     }
 }
\ No newline at end of file
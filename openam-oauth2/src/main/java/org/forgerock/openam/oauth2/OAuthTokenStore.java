@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.oauth2;
@@ -27,6 +28,8 @@ import org.forgerock.openam.cts.api.fields.OAuthTokenField;
 import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.api.tokens.TokenIdFactory;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
+import org.forgerock.openam.sm.datalayer.api.query.TransformingQueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.util.query.QueryFilter;
 
@@ -145,6 +148,26 @@ public class OAuthTokenStore {
         return convertResults(tokens);
     }
 
+    /**
+     * Queries for OAuth2 tokens based on the specified query parameters, returning a cursor which reads the
+     * matching tokens from the CTS a page at a time.
+     *
+     * @param query The query parameters.
+     * @param pageSize Positive number of tokens to read from the CTS in each page.
+     * @return A non null cursor over the query results, which must be closed by the caller.
+     * @throws CoreTokenException If there is a problem starting the query.
+     */
+    public QueryCursor<JsonValue> pagedQuery(QueryFilter<CoreTokenField> query, int pageSize)
+            throws CoreTokenException {
+        QueryCursor<Token> tokens = cts.pagedQuery(new TokenFilterBuilder().withQuery(query).build(), pageSize);
+        return new TransformingQueryCursor<Token, JsonValue>(tokens) {
+            @Override
+            protected JsonValue transform(Token token) {
+                return new JsonValue(convertToken(token));
+            }
+        };
+    }
+
     /**
      * Internal conversion function to handle the CTSPersistentStore query result.
      *
@@ -13,7 +13,7 @@
  *
  * Copyright 2014-2016 ForgeRock AS.
  * Portions Copyrighted 2015 Nomura Research Institute, Ltd.
- * Portions Copyrighted 2022 Wren Security
+ * Portions Copyrighted 2022-2026 Wren Security
  */
 
 package org.forgerock.openam.oauth2;
@@ -46,6 +46,11 @@ import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import javax.crypto.SecretKey;
 import javax.crypto.spec.SecretKeySpec;
@@ -76,6 +81,7 @@ import org.forgerock.oauth2.core.exceptions.ServerException;
 import org.forgerock.openam.utils.CollectionUtils;
 import org.forgerock.openam.utils.JsonValueBuilder;
 import org.forgerock.openam.utils.StringUtils;
+import org.forgerock.openam.utils.Time;
 import org.forgerock.openidconnect.Client;
 import org.forgerock.openidconnect.OpenIdConnectClientRegistration;
 import org.restlet.Request;
@@ -107,6 +113,12 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private final OpenIdResolverService resolverService;
     private final MessageDigest digest;
     private final OAuth2ProviderSettings providerSettings;
+    private final Executor jwksRefreshExecutor;
+    private final long jwksRefreshInterval;
+    private final ConcurrentMap<String, Set<String>> attributeValues = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Object> parsedValues = new ConcurrentHashMap<>();
+    private final AtomicBoolean jwksRefreshing = new AtomicBoolean();
+    private volatile long jwksConfiguredAt;
 
 
     /**
@@ -118,10 +130,27 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     OpenAMClientRegistration(AMIdentity amIdentity, PEMDecoder pemDecoder, OpenIdResolverService resolverService,
             OAuth2ProviderSettings providerSettings, ClientAuthenticationFailureFactory failureFactory)
             throws InvalidClientException {
+        this(amIdentity, pemDecoder, resolverService, providerSettings, failureFactory, null, 0);
+    }
+
+    /**
+     * Constructs a new OpenAMClientRegistration that can be shared between requests. The attributes of the client
+     * are read from the identity, and its keys and URIs parsed, the first time they are used only.
+     *
+     * @param amIdentity The client's identity.
+     * @param pemDecoder A {@code PEMDecoder} instance.
+     * @param jwksRefreshExecutor Executor used to refresh the client's JWK set from its {@code jwks_uri}, may be null.
+     * @param jwksRefreshInterval Time in milliseconds after which the JWK set is refreshed, zero to never refresh.
+     */
+    OpenAMClientRegistration(AMIdentity amIdentity, PEMDecoder pemDecoder, OpenIdResolverService resolverService,
+            OAuth2ProviderSettings providerSettings, ClientAuthenticationFailureFactory failureFactory,
+            Executor jwksRefreshExecutor, long jwksRefreshInterval) throws InvalidClientException {
         this.amIdentity = amIdentity;
         this.pemDecoder = pemDecoder;
         this.resolverService = resolverService;
         this.providerSettings = providerSettings;
+        this.jwksRefreshExecutor = jwksRefreshExecutor;
+        this.jwksRefreshInterval = jwksRefreshInterval;
         try {
             this.digest = MessageDigest.getInstance("SHA-256");
         } catch (NoSuchAlgorithmException e) {
@@ -134,7 +163,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
      */
     @Override
     public Set<URI> getRedirectUris() {
-        return Utils.getAttributeValuesAsUris(amIdentity, OAuth2Constants.OAuth2Client.REDIRECT_URI, logger);
+        return getAttributeValuesAsUris(OAuth2Constants.OAuth2Client.REDIRECT_URI);
     }
 
     /**
@@ -142,21 +171,45 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
      */
     @Override
     public Set<URI> getPostLogoutRedirectUris() {
-        return Utils.getAttributeValuesAsUris(amIdentity, OAuth2Constants.OAuth2Client.POST_LOGOUT_URI, logger);
+        return getAttributeValuesAsUris(OAuth2Constants.OAuth2Client.POST_LOGOUT_URI);
+    }
+
+    private Set<URI> getAttributeValuesAsUris(String attributeName) {
+        try {
+            return getParsedValue(attributeName, () -> {
+                Set<URI> uris = new HashSet<>();
+                for (String uri : Utils.stripAttributeNameFromValue(getAttributeValues(attributeName))) {
+                    uris.add(URI.create(uri));
+                }
+                return Collections.unmodifiableSet(uris);
+            });
+        } catch (Exception e) {
+            throw Utils.createException(attributeName, e, logger);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     public Set<String> getAllowedResponseTypes() {
-        return Utils.getAttributeValuesAsSet(amIdentity, OAuth2Constants.OAuth2Client.RESPONSE_TYPES, logger);
+        try {
+            return Utils.stripAttributeNameFromValue(getAttributeValues(OAuth2Constants.OAuth2Client.RESPONSE_TYPES));
+        } catch (Exception e) {
+            throw Utils.createException(OAuth2Constants.OAuth2Client.RESPONSE_TYPES, e, logger);
+        }
     }
 
     /**
      * {@inheritDoc}
      */
     public String getClientSecret() {
-        return Utils.getAttributeValueFromSet(amIdentity, OAuth2Constants.OAuth2Client.USERPASSWORD, logger);
+        Set<String> values;
+        try {
+            values = getAttributeValues(OAuth2Constants.OAuth2Client.USERPASSWORD);
+        } catch (Exception e) {
+            throw Utils.createException(OAuth2Constants.OAuth2Client.USERPASSWORD, e, logger);
+        }
+        return values.iterator().next();
     }
 
     /**
@@ -175,7 +228,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
 
     private List<String[]> getDisplayName(String attributeName) {
         try {
-            Set<String> displayName = amIdentity.getAttribute(attributeName);
+            Set<String> displayName = getAttributeValues(attributeName);
             return splitPipeDelimited(Utils.stripAttributeNameFromValue(displayName), "name").get("name");
         } catch (Exception e){
             throw Utils.createException(OAuth2Constants.OAuth2Client.NAME, e, logger);
@@ -217,7 +270,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
 
     private List<String[]> getDisplayDescription() {
         try {
-            Set<String> displayDescription = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.DESCRIPTION);
+            Set<String> displayDescription = getAttributeValues(OAuth2Constants.OAuth2Client.DESCRIPTION);
             return splitPipeDelimited(Utils.stripAttributeNameFromValue(displayDescription), "name").get("name");
         } catch (Exception e){
             throw Utils.createException(OAuth2Constants.OAuth2Client.DESCRIPTION, e, logger);
@@ -254,7 +307,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private Set<String> getAllowedGrantScopes() {
         Set<String> scopes = null;
         try {
-            scopes = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.SCOPES);
+            scopes = getAttributeValues(OAuth2Constants.OAuth2Client.SCOPES);
         } catch (Exception e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.SCOPES, e, logger);
         }
@@ -264,7 +317,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private Set<String> getClaimStrings() {
         Set<String> scopes = null;
         try {
-            scopes = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.CLAIMS);
+            scopes = getAttributeValues(OAuth2Constants.OAuth2Client.CLAIMS);
         } catch (Exception e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.SCOPES, e, logger);
         }
@@ -373,7 +426,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private Set<String> getDefaultGrantScopes() {
         Set<String> scopes = null;
         try {
-            scopes = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.DEFAULT_SCOPES);
+            scopes = getAttributeValues(OAuth2Constants.OAuth2Client.DEFAULT_SCOPES);
         } catch (Exception e){
             throw Utils.createException(OAuth2Constants.OAuth2Client.DEFAULT_SCOPES, e, logger);
         }
@@ -421,7 +474,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     public String getClientSessionURI() {
         Set<String> set;
         try {
-            set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.CLIENT_SESSION_URI);
+            set = getAttributeValues(OAuth2Constants.OAuth2Client.CLIENT_SESSION_URI);
         } catch (Exception e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.CLIENT_SESSION_URI, e, logger);
         }
@@ -436,7 +489,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     public ClientType getClientType() {
         final ClientType clientType;
         try {
-            Set<String> clientTypeSet = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.CLIENT_TYPE);
+            Set<String> clientTypeSet = getAttributeValues(OAuth2Constants.OAuth2Client.CLIENT_TYPE);
             if (clientTypeSet.iterator().next().equalsIgnoreCase("CONFIDENTIAL")){
                 clientType = ClientType.CONFIDENTIAL;
             } else {
@@ -483,7 +536,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private long getTokenLifeTime(String tokenLifeTimeProperty, long defaultLifeTime) {
         long tokenLifeTime = 0L;
         try {
-            Set<String> lifeTimeSet = amIdentity.getAttribute(tokenLifeTimeProperty);
+            Set<String> lifeTimeSet = getAttributeValues(tokenLifeTimeProperty);
             if (lifeTimeSet != null && !lifeTimeSet.isEmpty()) {
                 tokenLifeTime = Long.parseLong(lifeTimeSet.iterator().next());
             }
@@ -502,7 +555,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     public String getIDTokenSignedResponseAlgorithm() {
         final Set<String> set;
         try {
-            set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.IDTOKEN_SIGNED_RESPONSE_ALG);
+            set = getAttributeValues(OAuth2Constants.OAuth2Client.IDTOKEN_SIGNED_RESPONSE_ALG);
         } catch (Exception e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.IDTOKEN_SIGNED_RESPONSE_ALG, e, logger);
         }
@@ -515,7 +568,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     @Override
     public boolean isIDTokenEncryptionEnabled() {
         try {
-            Set<String> attribute = amIdentity.getAttribute("idTokenEncryptionEnabled");
+            Set<String> attribute = getAttributeValues("idTokenEncryptionEnabled");
             if (attribute == null || attribute.isEmpty()) {
                 return false;
             }
@@ -568,12 +621,12 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
 
     private PublicKey getRSAPublicEncryptionKey() {
         try {
-            Set<String> set = amIdentity.getAttribute("idTokenPublicEncryptionKey");
+            Set<String> set = getAttributeValues("idTokenPublicEncryptionKey");
             if (set == null || set.isEmpty()) {
                 return null;
             }
             String encodedCert = set.iterator().next();
-            return pemDecoder.decodeRSAPublicKey(encodedCert);
+            return getParsedValue("idTokenPublicEncryptionKey", () -> pemDecoder.decodeRSAPublicKey(encodedCert));
         } catch (Exception e) {
             throw Utils.createException("idTokenPublicEncryptionKey", e, logger);
         }
@@ -613,7 +666,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
         final String tokenEndpointAuthMethod;
         Set<String> authMethodSet;
         try {
-            authMethodSet = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.TOKEN_ENDPOINT_AUTH_METHOD);
+            authMethodSet = getAttributeValues(OAuth2Constants.OAuth2Client.TOKEN_ENDPOINT_AUTH_METHOD);
         } catch (Exception e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.TOKEN_ENDPOINT_AUTH_METHOD, e, logger);
         }
@@ -634,7 +687,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
         final String subjectType;
         Set<String> subjectTypeSet;
         try {
-            subjectTypeSet = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.SUBJECT_TYPE);
+            subjectTypeSet = getAttributeValues(OAuth2Constants.OAuth2Client.SUBJECT_TYPE);
         } catch (Exception e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.SUBJECT_TYPE, e, logger);
         }
@@ -683,7 +736,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
 
     private boolean byJWKs(OAuth2Jwt jwt) throws IdRepoException, SSOException,
             MalformedURLException, FailedToLoadJWKException {
-        Set<String> set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.JWKS);
+        Set<String> set = getAttributeValues(OAuth2Constants.OAuth2Client.JWKS);
 
         final String jwkSetStr = CollectionUtils.getFirstItem(set);
         if (jwkSetStr == null) {
@@ -691,11 +744,13 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
                     "No Client Bearer JWK set.");
         }
 
-        final JWKSet jwkSet = new JWKSet(JsonValueBuilder.toJsonValue(jwkSetStr)
-                .get(OAuth2Constants.JWTTokenParams.KEYS));
-        final JWKSetParser setParser = new JWKSetParser(0, 0); //0 values as not using for inet comms
+        final Map<String, Key> jwkMap = getParsedValue(OAuth2Constants.OAuth2Client.JWKS, () -> {
+            final JWKSet jwkSet = new JWKSet(JsonValueBuilder.toJsonValue(jwkSetStr)
+                    .get(OAuth2Constants.JWTTokenParams.KEYS));
+            final JWKSetParser setParser = new JWKSetParser(0, 0); //0 values as not using for inet comms
 
-        final Map<String, Key> jwkMap = setParser.jwkSetToMap(jwkSet);
+            return setParser.jwkSetToMap(jwkSet);
+        });
 
         final Key key = jwkMap.get(jwt.getSignedJwt().getHeader().getKeyId());
 
@@ -723,7 +778,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
 
 
     private boolean byJWKsURI(OAuth2Jwt jwt) throws IdRepoException, SSOException, MalformedURLException {
-        final Set<String> set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.JWKS_URI);
+        final Set<String> set = getAttributeValues(OAuth2Constants.OAuth2Client.JWKS_URI);
 
         if (set == null || set.isEmpty()) {
             throw OAuthProblemException.OAuthError.SERVER_ERROR.handle(Request.getCurrent(),
@@ -741,6 +796,9 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
                     throw OAuthProblemException.OAuthError.SERVER_ERROR.handle(Request.getCurrent(),
                             "Unable to configure internal JWK resolver service.");
                 }
+                jwksConfiguredAt = Time.currentTimeMillis();
+            } else {
+                refreshJWKsInBackground(jwt.getSignedJwt().getClaimsSet().getIssuer(), new URL(url));
             }
 
             resolverService.getResolverForIssuer(
@@ -753,9 +811,36 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
 
     }
 
+    /**
+     * Reconfigures the resolver of the issuer with the JWK set fetched from the client's {@code jwks_uri} once the
+     * current JWK set is older than the refresh interval. The current JWK set keeps being used until then.
+     */
+    private void refreshJWKsInBackground(final String issuer, final URL url) {
+        if (jwksRefreshExecutor == null || jwksRefreshInterval <= 0
+                || Time.currentTimeMillis() - jwksConfiguredAt < jwksRefreshInterval
+                || !jwksRefreshing.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            jwksRefreshExecutor.execute(() -> {
+                try {
+                    if (resolverService.configureResolverWithJWK(issuer, url)) {
+                        jwksConfiguredAt = Time.currentTimeMillis();
+                    } else {
+                        logger.warning("Unable to refresh the JWK set of client {} from {}", getClientId(), url);
+                    }
+                } finally {
+                    jwksRefreshing.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            jwksRefreshing.set(false);
+        }
+    }
+
     private boolean byX509Key(OAuth2Jwt jwt) throws IdRepoException, SSOException, CertificateException {
 
-        Set<String> set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.CLIENT_JWT_PUBLIC_KEY);
+        Set<String> set = getAttributeValues(OAuth2Constants.OAuth2Client.CLIENT_JWT_PUBLIC_KEY);
 
         if (set == null || set.isEmpty()) {
             throw OAuthProblemException.OAuthError.SERVER_ERROR.handle(Request.getCurrent(),
@@ -763,9 +848,12 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
         }
 
         String encodedCert = set.iterator().next();
-        X509Certificate certificate = pemDecoder.decodeX509Certificate(encodedCert);
+        PublicKey publicKey = getParsedValue(OAuth2Constants.OAuth2Client.CLIENT_JWT_PUBLIC_KEY, () -> {
+            X509Certificate certificate = pemDecoder.decodeX509Certificate(encodedCert);
+            return certificate.getPublicKey();
+        });
 
-        return jwt.isValid(signingManager.newRsaSigningHandler(certificate.getPublicKey()));
+        return jwt.isValid(signingManager.newRsaSigningHandler(publicKey));
     }
 
     /**
@@ -777,7 +865,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private Client.PublicKeySelector getClientPublicKeySelector() {
         Set<String> set;
         try {
-            set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.PUBLIC_KEY_SELECTOR);
+            set = getAttributeValues(OAuth2Constants.OAuth2Client.PUBLIC_KEY_SELECTOR);
         } catch (IdRepoException | SSOException e) {
             throw Utils.createException(OAuth2Constants.OAuth2Client.PUBLIC_KEY_SELECTOR, e, logger);
         }
@@ -791,7 +879,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     public URI getSectorIdentifierUri() {
         final Set<String> set;
         try {
-            set = amIdentity.getAttribute(OAuth2Constants.OAuth2Client.SECTOR_IDENTIFIER_URI);
+            set = getAttributeValues(OAuth2Constants.OAuth2Client.SECTOR_IDENTIFIER_URI);
 
             if (set.iterator().hasNext()){
                 return new URI(set.iterator().next());
@@ -827,7 +915,10 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private String subValueFromHost(String host, String resourceOwnerId, OAuth2ProviderSettings providerSettings) {
         try {
             final String concat = host + resourceOwnerId + providerSettings.getHashSalt();
-            byte[] hash = digest.digest(concat.getBytes("UTF-8"));
+            final byte[] hash;
+            synchronized (digest) {
+                hash = digest.digest(concat.getBytes("UTF-8"));
+            }
             return Base64.encode(hash);
         } catch (UnsupportedEncodingException e) {
             logger.message("Unable to encrypt the sub value for user.");
@@ -852,7 +943,7 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
     private String getAttribute(String attributeName) {
         final Set<String> set;
         try {
-            set = amIdentity.getAttribute(attributeName);
+            set = getAttributeValues(attributeName);
         } catch (Exception e) {
             logger.error("Unable to get {} from repository", attributeName, e);
             throw OAuthProblemException.OAuthError.SERVER_ERROR.handle(Request.getCurrent(),
@@ -863,4 +954,44 @@ public class OpenAMClientRegistration implements OpenIdConnectClientRegistration
         }
         return null;
     }
+
+    /**
+     * Reads the values of an attribute of the client identity, the first time they are needed only.
+     */
+    private Set<String> getAttributeValues(String attributeName) throws IdRepoException, SSOException {
+        Set<String> values = attributeValues.get(attributeName);
+        if (values == null) {
+            values = amIdentity.getAttribute(attributeName);
+            if (values != null) {
+                values = Collections.unmodifiableSet(new HashSet<>(values));
+                Set<String> existing = attributeValues.putIfAbsent(attributeName, values);
+                if (existing != null) {
+                    values = existing;
+                }
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Returns a value parsed from the attributes of the client identity, parsing it the first time it is needed only.
+     */
+    @SuppressWarnings("unchecked")
+    private <T, E extends Exception> T getParsedValue(String key, Parser<T, E> parser) throws E {
+        Object value = parsedValues.get(key);
+        if (value == null) {
+            value = parser.parse();
+            if (value != null) {
+                Object existing = parsedValues.putIfAbsent(key, value);
+                if (existing != null) {
+                    value = existing;
+                }
+            }
+        }
+        return (T) value;
+    }
+
+    private interface Parser<T, E extends Exception> {
+        T parse() throws E;
+    }
 }
@@ -13,6 +13,7 @@
  *
  * Copyright 2014-2016 ForgeRock AS.
  * Portions Copyrighted 2015 Nomura Research Institute, Ltd
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.oauth2;
@@ -21,11 +22,20 @@ import java.security.AccessController;
 import java.security.PrivilegedAction;
 import java.util.Collections;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.wrensecurity.guava.common.cache.Cache;
+import org.wrensecurity.guava.common.cache.CacheBuilder;
+import org.wrensecurity.guava.common.util.concurrent.ExecutionError;
+import org.wrensecurity.guava.common.util.concurrent.UncheckedExecutionException;
 import org.forgerock.i18n.LocalizedIllegalArgumentException;
 import org.forgerock.jaspi.modules.openid.resolvers.service.OpenIdResolverService;
 import org.forgerock.oauth2.core.ClientRegistration;
@@ -36,32 +46,50 @@ import org.forgerock.oauth2.core.PEMDecoder;
 import org.forgerock.oauth2.core.exceptions.ClientAuthenticationFailureFactory;
 import org.forgerock.oauth2.core.exceptions.InvalidClientException;
 import org.forgerock.oauth2.core.exceptions.NotFoundException;
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
 import org.forgerock.openam.identity.idm.AMIdentityRepositoryFactory;
+import org.forgerock.openam.sm.ServiceConfigManagerFactory;
 import org.forgerock.openam.utils.RealmNormaliser;
 import org.forgerock.openidconnect.OpenIdConnectClientRegistration;
 import org.forgerock.openidconnect.OpenIdConnectClientRegistrationStore;
 import org.forgerock.services.context.Context;
 
+import com.iplanet.am.util.SystemProperties;
 import com.iplanet.sso.SSOException;
 import com.iplanet.sso.SSOToken;
 import com.sun.identity.common.configuration.AgentConfiguration;
 import com.sun.identity.idm.AMIdentity;
 import com.sun.identity.idm.AMIdentityRepository;
+import com.sun.identity.idm.IdConstants;
 import com.sun.identity.idm.IdRepoException;
 import com.sun.identity.idm.IdSearchControl;
 import com.sun.identity.idm.IdSearchResults;
 import com.sun.identity.idm.IdType;
 import com.sun.identity.shared.debug.Debug;
+import com.sun.identity.sm.DNMapper;
+import com.sun.identity.sm.ServiceConfigManager;
+import com.sun.identity.sm.ServiceListener;
 
 /**
  * The OpenAM OAuth2 and OpenId Connect provider's store for all client registrations.
+ * <br/>
+ * Client registrations are cached per realm, so that the client identity is only looked up and its keys and URIs only
+ * parsed once. The cache of a realm is cleared whenever the agents of the realm change.
  *
  * @since 12.0.0
  */
 @Singleton
-public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistrationStore {
+public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistrationStore, ServiceListener {
 
     private static final String AUTHENTICATION_FAILURE_MESSAGE = "Client authentication failed";
+    private static final String AGENT_SERVICE_VERSION = "1.0";
+
+    private static final String CACHE_SIZE_PROPERTY = "org.forgerock.openam.oauth2.clientcache.maxsize";
+    private static final String CACHE_EXPIRY_PROPERTY = "org.forgerock.openam.oauth2.clientcache.expiry";
+    private static final String JWKS_REFRESH_PROPERTY = "org.forgerock.openam.oauth2.clientcache.jwksrefresh";
+    private static final long CACHE_SIZE = SystemProperties.getAsLong(CACHE_SIZE_PROPERTY, 5000L);
+    private static final long CACHE_EXPIRY_SECONDS = SystemProperties.getAsLong(CACHE_EXPIRY_PROPERTY, 300L);
+    private static final long JWKS_REFRESH_SECONDS = SystemProperties.getAsLong(JWKS_REFRESH_PROPERTY, 3600L);
 
     private final Debug logger = Debug.getInstance("OAuth2Provider");
     private final RealmNormaliser realmNormaliser;
@@ -71,6 +99,10 @@ public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistr
     private final ClientAuthenticationFailureFactory failureFactory;
     private final AMIdentityRepositoryFactory identityRepositoryFactory;
     private final PrivilegedAction<SSOToken> adminTokenAction;
+    private final ExecutorService jwksRefreshExecutor;
+    private final boolean cacheEnabled;
+    private final ConcurrentMap<String, Cache<String, OpenIdConnectClientRegistration>> realmCaches =
+            new ConcurrentHashMap<>();
 
     /**
      * Constructs a new OpenAMClientRegistrationStore.
@@ -81,12 +113,15 @@ public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistr
      * @param failureFactory Factory for handling the invalid_client error of the OAuth2 specification.
      * @param identityRepositoryFactory Factory for creating {@code AMIdentityRepository} instances.
      * @param adminTokenAction Privileged action to get application single sign on token.
+     * @param serviceConfigManagerFactory Factory for creating {@code ServiceConfigManager} instances.
+     * @param executorServiceFactory Factory for creating the executor that refreshes client JWK sets.
      */
     @Inject
     public OpenAMClientRegistrationStore(RealmNormaliser realmNormaliser, PEMDecoder pemDecoder,
             @Named(OAuth2Constants.Custom.JWK_RESOLVER) OpenIdResolverService resolverService,
             OAuth2ProviderSettingsFactory providerSettingsFactory, ClientAuthenticationFailureFactory failureFactory,
-            AMIdentityRepositoryFactory identityRepositoryFactory, PrivilegedAction<SSOToken> adminTokenAction) {
+            AMIdentityRepositoryFactory identityRepositoryFactory, PrivilegedAction<SSOToken> adminTokenAction,
+            ServiceConfigManagerFactory serviceConfigManagerFactory, AMExecutorServiceFactory executorServiceFactory) {
         this.realmNormaliser = realmNormaliser;
         this.pemDecoder = pemDecoder;
         this.resolverService = resolverService;
@@ -94,6 +129,23 @@ public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistr
         this.failureFactory = failureFactory;
         this.identityRepositoryFactory = identityRepositoryFactory;
         this.adminTokenAction = adminTokenAction;
+        this.jwksRefreshExecutor = executorServiceFactory.createFixedThreadPool(1, "OAuth2ClientJwksRefresh");
+        this.cacheEnabled = CACHE_SIZE > 0 && addServiceListener(serviceConfigManagerFactory);
+    }
+
+    private boolean addServiceListener(ServiceConfigManagerFactory serviceConfigManagerFactory) {
+        try {
+            final ServiceConfigManager serviceConfigManager =
+                    serviceConfigManagerFactory.create(IdConstants.AGENT_SERVICE, AGENT_SERVICE_VERSION);
+            if (serviceConfigManager != null && serviceConfigManager.addListener(this) != null) {
+                return true;
+            }
+            logger.error("Could not add listener to ServiceConfigManager instance. Client registrations will not "
+                    + "be cached");
+        } catch (Exception e) {
+            logger.error("Unable to construct ServiceConfigManager. Client registrations will not be cached", e);
+        }
+        return false;
     }
 
     /**
@@ -117,10 +169,65 @@ public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistr
         return getClientRegistration(clientId, realm, null);
     }
 
-    private OpenIdConnectClientRegistration getClientRegistration(String clientId, String realm, OAuth2Request request)
-            throws InvalidClientException, NotFoundException {
+    private OpenIdConnectClientRegistration getClientRegistration(final String clientId, String realm,
+            final OAuth2Request request) throws InvalidClientException, NotFoundException {
+        final String normalisedRealm;
+        try {
+            normalisedRealm = realmNormaliser.normalise(realm);
+        } catch (org.forgerock.json.resource.NotFoundException e) {
+            throw new NotFoundException(e.getMessage());
+        }
+        final Cache<String, OpenIdConnectClientRegistration> cache = getRealmCache(normalisedRealm);
+        if (cache == null) {
+            return loadClientRegistration(clientId, normalisedRealm, request);
+        }
+        final boolean[] loadedByThisRequest = new boolean[1];
+        try {
+            // Concurrent requests for the same client wait for the registration loaded by the first one
+            return cache.get(clientId, () -> {
+                loadedByThisRequest[0] = true;
+                return loadClientRegistration(clientId, normalisedRealm, request);
+            });
+        } catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            if (!loadedByThisRequest[0]) {
+                // The failure has to be reported in terms of this request, so try again without the cache
+                return loadClientRegistration(clientId, normalisedRealm, request);
+            }
+            Throwable cause = e.getCause();
+            if (cause instanceof InvalidClientException) {
+                throw (InvalidClientException) cause;
+            } else if (cause instanceof NotFoundException) {
+                throw (NotFoundException) cause;
+            } else if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            } else if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+    }
+
+    private Cache<String, OpenIdConnectClientRegistration> getRealmCache(String realm) {
+        if (!cacheEnabled) {
+            return null;
+        }
+        Cache<String, OpenIdConnectClientRegistration> cache = realmCaches.get(realm);
+        if (cache == null) {
+            cache = CacheBuilder.newBuilder()
+                    .maximumSize(CACHE_SIZE)
+                    .expireAfterWrite(CACHE_EXPIRY_SECONDS, TimeUnit.SECONDS)
+                    .build();
+            Cache<String, OpenIdConnectClientRegistration> existing = realmCaches.putIfAbsent(realm, cache);
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+        return cache;
+    }
+
+    private OpenIdConnectClientRegistration loadClientRegistration(String clientId, String normalisedRealm,
+            OAuth2Request request) throws InvalidClientException, NotFoundException {
         try {
-            final String normalisedRealm = realmNormaliser.normalise(realm);
             AMIdentity identity = getIdentity(clientId, normalisedRealm, request);
             if (isJ2eeAgent(identity) || isWebAgent(identity)) {
                 return new AgentClientRegistration(identity);
@@ -128,10 +235,9 @@ public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistr
                 OAuth2ProviderSettings providerSettings =
                         providerSettingsFactory.getRealmProviderSettings(normalisedRealm);
                 return new OpenAMClientRegistration(identity, pemDecoder, resolverService,
-                        providerSettings, failureFactory);
+                        providerSettings, failureFactory, jwksRefreshExecutor,
+                        TimeUnit.SECONDS.toMillis(JWKS_REFRESH_SECONDS));
             }
-        } catch (org.forgerock.json.resource.NotFoundException e) {
-            throw new NotFoundException(e.getMessage());
         } catch (SSOException | IdRepoException e) {
             throw failureFactory.getException(request, AUTHENTICATION_FAILURE_MESSAGE);
         }
@@ -183,4 +289,24 @@ public class OpenAMClientRegistrationStore implements OpenIdConnectClientRegistr
     private boolean isWebAgent(AMIdentity identity) throws IdRepoException, SSOException {
         return AgentConfiguration.AGENT_TYPE_WEB.equalsIgnoreCase(AgentConfiguration.getAgentType(identity));
     }
-}
\ No newline at end of file
+
+    @Override
+    public void schemaChanged(String serviceName, String version) {
+        realmCaches.clear();
+    }
+
+    @Override
+    public void globalConfigChanged(String serviceName, String version, String groupName,
+            String serviceComponent, int type) {
+        realmCaches.clear();
+    }
+
+    @Override
+    public void organizationConfigChanged(String serviceName, String version, String orgName, String groupName,
+            String serviceComponent, int type) {
+        // Agents inherit from agent groups, so any change in the realm may affect any of its clients
+        String realm = DNMapper.orgNameToRealmName(orgName);
+        logger.message("Agents changed in realm {}, clearing its client registrations", realm);
+        realmCaches.remove(realm);
+    }
+}
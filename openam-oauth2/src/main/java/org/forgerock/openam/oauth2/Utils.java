@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.oauth2;
 
@@ -56,27 +57,6 @@ final class Utils {
         }
     }
 
-    /**
-     * Returns the identity attribute value as a {@code Set<String>}.
-     *
-     * @param identity      The identity with the attribute.
-     * @param attributeName The name of the attribute.
-     * @param logger        The logger used to log eventual exceptions.
-     * @return The attribute value as a {@code Set<String>}.
-     */
-    static Set<String> getAttributeValuesAsSet(AMIdentity identity, String attributeName, Debug logger) {
-        try {
-            Set<String> valuesSet = new HashSet<>();
-            Set<String> values = stripAttributeNameFromValue(identity.getAttribute(attributeName));
-            for (String value : values) {
-                valuesSet.add(value);
-            }
-            return valuesSet;
-        } catch (Exception e) {
-            throw createException(attributeName, e, logger);
-        }
-    }
-
     /**
      * Remove the attribute name from each attribute value of the form attribute_name=attribute_value.
      *
@@ -12,7 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
- * Portions Copyright 2023 Wren Security.
+ * Portions Copyright 2023-2026 Wren Security.
  */
 package org.forgerock.openam.oauth2.guice;
 
@@ -152,6 +152,7 @@ import com.google.inject.multibindings.MapBinder;
 import com.google.inject.multibindings.Multibinder;
 import com.iplanet.services.naming.WebtopNamingQuery;
 import com.iplanet.sso.SSOTokenManager;
+import com.sun.identity.shared.configuration.SystemPropertiesManager;
 import com.sun.identity.shared.debug.Debug;
 
 /**
@@ -438,8 +439,10 @@ public class OAuth2GuiceModule extends AbstractModule {
         ScheduledExecutorService scheduledExecutorService = esf.createScheduledService(1, "OAuthTokenBlacklisting");
         long purgeDelayMs = globalSettings.getBlacklistPurgeDelay(TimeUnit.MILLISECONDS);
         long pollIntervalMs = globalSettings.getBlacklistPollInterval(TimeUnit.MILLISECONDS);
+        boolean continuousQueryEnabled =
+                SystemPropertiesManager.getAsBoolean(CTSBlacklist.CONTINUOUS_QUERY_ENABLED_PROPERTY, true);
         return new CTSBlacklist<>(cts, TokenType.OAUTH_BLACKLIST, scheduledExecutorService, threadMonitor,
-                webtopNamingQuery, purgeDelayMs, pollIntervalMs);
+                webtopNamingQuery, purgeDelayMs, pollIntervalMs, continuousQueryEnabled);
     }
 
     @Provides @Singleton @Inject
@@ -2,6 +2,7 @@
  * DO NOT REMOVE COPYRIGHT NOTICES OR THIS HEADER.
  *
  * Copyright 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  *
  * The contents of this file are subject to the terms
  * of the Common Development and Distribution License
@@ -48,6 +49,7 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
 
@@ -97,6 +99,8 @@ import org.forgerock.openam.cts.api.fields.OAuthTokenField;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.oauth2.IdentityManager;
 import org.forgerock.openam.rest.RestUtils;
+import org.forgerock.openam.sm.datalayer.api.DataLayerRuntimeException;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.openidconnect.Client;
 import org.forgerock.openidconnect.ClientDAO;
@@ -122,6 +126,7 @@ public class TokenResource implements CollectionResourceProvider {
     public static final CoreTokenField REALM_FIELD = OAuthTokenField.REALM.getField();
     public static final String INDEFINITELY = "Indefinitely";
     public static final String INDEFINITE_TOKEN_STRING_PROPERTY_NAME = "indefiniteTokenString";
+    private static final int QUERY_PAGE_SIZE = 100;
     private static final String[] RESOURCE_OWNER_HIDDEN_FIELDS = new String[] {
             OAuth2Constants.CoreTokenParams.ID,
             OAuth2Constants.CoreTokenParams.PARENT,
@@ -404,7 +409,6 @@ public class TokenResource implements CollectionResourceProvider {
     public Promise<QueryResponse, ResourceException> queryCollection(Context context, QueryRequest queryRequest,
             QueryResourceHandler handler) {
         try {
-            JsonValue response;
             Collection<QueryFilter<CoreTokenField>> query = new ArrayList<QueryFilter<CoreTokenField>>();
 
             //get uid of submitter
@@ -451,13 +455,14 @@ public class TokenResource implements CollectionResourceProvider {
             } else if (userNamePresent) {
                 return new BadRequestException("userName field MUST NOT be set in _queryId").asPromise();
             }
-            response = tokenStore.query(QueryFilter.and(query));
-            return handleResponse(handler, response, context, uid);
+            try (QueryCursor<JsonValue> tokens = tokenStore.pagedQuery(QueryFilter.and(query), QUERY_PAGE_SIZE)) {
+                return handleResponse(handler, tokens, context, uid);
+            }
 
         } catch (UnauthorizedClientException e) {
             debug.error("TokenResource :: QUERY : Unable to query collection as the client is not authorized.", e);
             return new PermanentException(401, e.getMessage(), e).asPromise();
-        } catch (CoreTokenException e) {
+        } catch (CoreTokenException | DataLayerRuntimeException e) {
             debug.error("TokenResource :: QUERY : Unable to query collection as the token store is not available.", e);
             return new ServiceUnavailableException(e.getMessage(), e).asPromise();
         } catch (InternalServerErrorException e) {
@@ -478,14 +483,13 @@ public class TokenResource implements CollectionResourceProvider {
         throw new IllegalArgumentException("I don't understand the OAuth 2.0 field called " + fieldname);
     }
 
-    private Promise<QueryResponse, ResourceException> handleResponse(QueryResourceHandler handler, JsonValue response,
-            Context context, AMIdentity uid)
+    private Promise<QueryResponse, ResourceException> handleResponse(QueryResourceHandler handler,
+            Iterator<JsonValue> tokens, Context context, AMIdentity uid)
             throws UnauthorizedClientException, CoreTokenException, InternalServerErrorException, NotFoundException {
-        ResourceResponse resource = newResourceResponse("result", "1", response);
-        JsonValue value = resource.getContent();
         String acceptLanguage = context.asContext(HttpContext.class).getHeaderAsString("accept-language");
 
-        for (JsonValue val : value) {
+        while (tokens.hasNext()) {
+            JsonValue val = tokens.next();
             Client client = getClient(val);
 
             val.put(EXPIRE_TIME_KEY, getExpiryDate(val, context));
@@ -493,7 +497,9 @@ public class TokenResource implements CollectionResourceProvider {
             val.put(OAuth2Constants.ShortClientAttributeNames.SCOPES.getType(), getScopes(client, val,
                     acceptLanguage));
 
-            handler.handleResource(resource(val, uid));
+            if (!handler.handleResource(resource(val, uid))) {
+                break;
+            }
         }
         return newResultPromise(newQueryResponse());
     }
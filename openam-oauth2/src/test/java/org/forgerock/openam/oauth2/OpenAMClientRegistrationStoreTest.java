@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.oauth2;
 
@@ -20,6 +21,8 @@ import static org.mockito.BDDMockito.given;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.MockitoAnnotations.initMocks;
 
 import java.security.PrivilegedAction;
@@ -33,7 +36,9 @@ import org.forgerock.oauth2.core.PEMDecoder;
 import org.forgerock.oauth2.core.exceptions.InvalidClientException;
 import org.forgerock.oauth2.core.exceptions.NotFoundException;
 import org.forgerock.oauth2.restlet.OpenAMClientAuthenticationFailureFactory;
+import org.forgerock.openam.audit.context.AMExecutorServiceFactory;
 import org.forgerock.openam.identity.idm.AMIdentityRepositoryFactory;
+import org.forgerock.openam.sm.ServiceConfigManagerFactory;
 import org.forgerock.openam.utils.RealmNormaliser;
 import org.forgerock.openidconnect.OpenIdConnectClientRegistration;
 import org.mockito.Mock;
@@ -51,6 +56,8 @@ import com.sun.identity.idm.IdRepoException;
 import com.sun.identity.idm.IdSearchControl;
 import com.sun.identity.idm.IdSearchResults;
 import com.sun.identity.idm.IdType;
+import com.sun.identity.sm.ServiceConfigManager;
+import com.sun.identity.sm.ServiceListener;
 
 public class OpenAMClientRegistrationStoreTest {
 
@@ -64,15 +71,20 @@ public class OpenAMClientRegistrationStoreTest {
     private OpenAMClientRegistrationStore store;
     private SSOToken ssoToken;
     private AMIdentityRepositoryFactory identityRepositoryFactory;
+    private AMIdentityRepository identityRepository;
 
     @BeforeMethod
-    public void setUpTest() throws org.forgerock.json.resource.NotFoundException {
+    public void setUpTest() throws Exception {
         initMocks(this);
         ssoToken = mock(SSOToken.class);
         RealmNormaliser realmNormaliser = mock(RealmNormaliser.class);
         given(realmNormaliser.normalise(REALM)).willReturn(REALM);
         given(adminTokenAction.run()).willReturn(ssoToken);
         identityRepositoryFactory = mock(AMIdentityRepositoryFactory.class);
+        ServiceConfigManager serviceConfigManager = mock(ServiceConfigManager.class);
+        given(serviceConfigManager.addListener(any(ServiceListener.class))).willReturn("listener");
+        ServiceConfigManagerFactory serviceConfigManagerFactory = mock(ServiceConfigManagerFactory.class);
+        given(serviceConfigManagerFactory.create(IdConstants.AGENT_SERVICE, "1.0")).willReturn(serviceConfigManager);
         store = new OpenAMClientRegistrationStore(
                 realmNormaliser,
                 new PEMDecoder(),
@@ -80,7 +92,9 @@ public class OpenAMClientRegistrationStoreTest {
                 mock(OAuth2ProviderSettingsFactory.class),
                 new OpenAMClientAuthenticationFailureFactory(realmNormaliser),
                 identityRepositoryFactory,
-                adminTokenAction);
+                adminTokenAction,
+                serviceConfigManagerFactory,
+                mock(AMExecutorServiceFactory.class));
     }
 
     @Test
@@ -163,6 +177,39 @@ public class OpenAMClientRegistrationStoreTest {
         store.get(AGENT_NAME, REALM, null);
     }
 
+    @Test
+    public void getReusesRegistrationOfClient()
+            throws NotFoundException, InvalidClientException, IdRepoException, SSOException {
+        // Given
+        setUpAgent(AgentConfiguration.AGENT_TYPE_OAUTH2, true);
+        OpenIdConnectClientRegistration first = store.get(AGENT_NAME, REALM, null);
+
+        // When
+        OpenIdConnectClientRegistration second = store.get(AGENT_NAME, createRequest());
+
+        // Then
+        assertThat(second).isSameAs(first);
+        verify(identityRepository, times(1))
+                .searchIdentities(eq(IdType.AGENT), eq(AGENT_NAME), any(IdSearchControl.class));
+    }
+
+    @Test
+    public void getLoadsRegistrationAgainOnceAgentConfigurationChanges()
+            throws NotFoundException, InvalidClientException, IdRepoException, SSOException {
+        // Given
+        setUpAgent(AgentConfiguration.AGENT_TYPE_OAUTH2, true);
+        OpenIdConnectClientRegistration first = store.get(AGENT_NAME, REALM, null);
+
+        // When
+        store.globalConfigChanged(IdConstants.AGENT_SERVICE, "1.0", "default", "", ServiceListener.MODIFIED);
+        OpenIdConnectClientRegistration second = store.get(AGENT_NAME, REALM, null);
+
+        // Then
+        assertThat(second).isNotSameAs(first);
+        verify(identityRepository, times(2))
+                .searchIdentities(eq(IdType.AGENT), eq(AGENT_NAME), any(IdSearchControl.class));
+    }
+
     private void setUpAgent(String agentType, boolean isActive) throws IdRepoException, SSOException {
         AMIdentity j2eeAgent = mock(AMIdentity.class);
         given(j2eeAgent.getAttribute(IdConstants.AGENT_TYPE))
@@ -172,7 +219,7 @@ public class OpenAMClientRegistrationStoreTest {
         IdSearchResults searchResults = mock(IdSearchResults.class);
         given(searchResults.getSearchResults())
                 .willReturn(new HashSet<>(Collections.singletonList(j2eeAgent)));
-        AMIdentityRepository identityRepository = mock(AMIdentityRepository.class);
+        identityRepository = mock(AMIdentityRepository.class);
         given(identityRepository.searchIdentities(eq(IdType.AGENT), eq(AGENT_NAME), any(IdSearchControl.class)))
                 .willReturn(searchResults);
         given(identityRepositoryFactory.create(REALM, ssoToken))
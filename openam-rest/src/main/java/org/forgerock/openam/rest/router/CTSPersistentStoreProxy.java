@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package org.forgerock.openam.rest.router;
 
@@ -27,6 +28,7 @@ import org.forgerock.openam.cts.api.tokens.Token;
 import org.forgerock.openam.cts.continuous.ContinuousQueryListener;
 import org.forgerock.openam.cts.exceptions.CoreTokenException;
 import org.forgerock.openam.sm.datalayer.api.query.PartialToken;
+import org.forgerock.openam.sm.datalayer.api.query.QueryCursor;
 import org.forgerock.openam.tokens.CoreTokenField;
 import org.forgerock.util.Options;
 
@@ -171,6 +173,17 @@ public class CTSPersistentStoreProxy implements CTSPersistentStore {
         return CTSHolder.get().attributeQuery(tokenFilter);
     }
 
+    @Override
+    public QueryCursor<Token> pagedQuery(TokenFilter filter, int pageSize) throws CoreTokenException {
+        return CTSHolder.get().pagedQuery(filter, pageSize);
+    }
+
+    @Override
+    public QueryCursor<PartialToken> pagedAttributeQuery(TokenFilter tokenFilter, int pageSize)
+            throws CoreTokenException {
+        return CTSHolder.get().pagedAttributeQuery(tokenFilter, pageSize);
+    }
+
     @Override
     public void deleteOnQueryAsync(TokenFilter tokenFilter) throws CoreTokenException {
         CTSHolder.get().deleteOnQueryAsync(tokenFilter);
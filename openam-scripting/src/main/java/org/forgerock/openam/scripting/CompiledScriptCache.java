@@ -0,0 +1,225 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.scripting;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+import javax.script.Compilable;
+import javax.script.CompiledScript;
+import javax.script.ScriptException;
+
+import org.forgerock.util.Reject;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.wrensecurity.guava.common.cache.Cache;
+import org.wrensecurity.guava.common.cache.CacheBuilder;
+import org.wrensecurity.guava.common.cache.CacheStats;
+import org.wrensecurity.guava.common.util.concurrent.UncheckedExecutionException;
+
+/**
+ * Bounded cache of compiled scripts, keyed by the scripting language and a SHA-256 hash of the script source.
+ * <p>
+ * As the key is derived from the script content, a script which is changed will be compiled again on its next
+ * evaluation, while the previous version is left to be evicted once the cache is full. Scripts compiled by a
+ * sandboxed engine retain that sandbox, so the cache must be {@link #invalidateAll() invalidated} whenever the
+ * script engine configuration changes.
+ * <p>
+ * Compile counts, hit rate and compile time are published through the {@link CompiledScriptCacheMBean} interface
+ * once the cache is {@link #register(String) registered}.
+ */
+public final class CompiledScriptCache implements CompiledScriptCacheMBean {
+
+    /**
+     * The default maximum number of compiled scripts retained by the cache.
+     */
+    public static final int DEFAULT_MAXIMUM_SIZE = 256;
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(CompiledScriptCache.class);
+
+    private final Cache<ScriptKey, CompiledScript> compiledScripts;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param maximumSize the maximum number of compiled scripts to retain. Must not be negative.
+     */
+    public CompiledScriptCache(int maximumSize) {
+        Reject.ifTrue(maximumSize < 0, "Maximum size must not be negative");
+        this.compiledScripts = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the compiled form of the given script, compiling it with the given engine if it is not yet cached.
+     *
+     * @param language the language of the script. May not be null.
+     * @param script the script source. May not be null.
+     * @param engine the engine to compile the script with if required. May not be null.
+     * @return the compiled script.
+     * @throws ScriptException if the script could not be compiled.
+     */
+    public CompiledScript get(final ScriptingLanguage language, final String script, final Compilable engine)
+            throws ScriptException {
+        Reject.ifNull(language, script, engine);
+        try {
+            return compiledScripts.get(new ScriptKey(language, script), new Callable<CompiledScript>() {
+                @Override
+                public CompiledScript call() throws ScriptException {
+                    return compile(language, script, engine);
+                }
+            });
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof ScriptException) {
+                throw (ScriptException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to compile script", e.getCause());
+        } catch (UncheckedExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Discards all compiled scripts.
+     */
+    public void invalidateAll() {
+        compiledScripts.invalidateAll();
+    }
+
+    /**
+     * Registers the cache with the platform MBean server, replacing any cache registered under the same name.
+     *
+     * @param name the name of the script context the cache serves. May not be null.
+     */
+    public void register(String name) {
+        Reject.ifNull(name);
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = new ObjectName("OpenAM:type=CompiledScriptCache,name=" + ObjectName.quote(name));
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, CompiledScriptCacheMBean.class), objectName);
+        } catch (Exception e) {
+            LOGGER.warn("Unable to register compiled script cache monitoring for {}", name, e);
+        }
+    }
+
+    @Override
+    public long getCompileCount() {
+        return compiledScripts.stats().loadSuccessCount();
+    }
+
+    @Override
+    public long getCompileFailureCount() {
+        return compiledScripts.stats().loadExceptionCount();
+    }
+
+    @Override
+    public double getHitRate() {
+        return compiledScripts.stats().hitRate();
+    }
+
+    @Override
+    public long getAverageCompileTime() {
+        return getAverageCompileTime(TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * @param unit the time unit to return the compile time in.
+     * @return the average time taken to compile a script.
+     */
+    public long getAverageCompileTime(TimeUnit unit) {
+        return unit.convert((long) compiledScripts.stats().averageLoadPenalty(), TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public long getSize() {
+        return compiledScripts.size();
+    }
+
+    @Override
+    public long getEvictionCount() {
+        return compiledScripts.stats().evictionCount();
+    }
+
+    private CompiledScript compile(ScriptingLanguage language, String script, Compilable engine)
+            throws ScriptException {
+        final long start = System.nanoTime();
+        final CompiledScript compiledScript = engine.compile(script);
+        if (LOGGER.isDebugEnabled()) {
+            final CacheStats stats = compiledScripts.stats();
+            LOGGER.debug("Compiled {} script in {}ms (compiled: {}, hit rate: {})", language,
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), stats.loadSuccessCount() + 1,
+                    stats.hitRate());
+        }
+        return compiledScript;
+    }
+
+    /**
+     * Cache key of a script language and the SHA-256 hash of the script source.
+     */
+    private static final class ScriptKey {
+        private final ScriptingLanguage language;
+        private final byte[] hash;
+        private final int hashCode;
+
+        private ScriptKey(ScriptingLanguage language, String script) {
+            this.language = language;
+            this.hash = sha256(script);
+            this.hashCode = 31 * language.hashCode() + Arrays.hashCode(hash);
+        }
+
+        private static byte[] sha256(String script) {
+            try {
+                return MessageDigest.getInstance("SHA-256").digest(script.getBytes(StandardCharsets.UTF_8));
+            } catch (NoSuchAlgorithmException e) {
+                throw new IllegalStateException("SHA-256 is not supported", e);
+            }
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ScriptKey that = (ScriptKey) o;
+            return language.equals(that.language) && Arrays.equals(hash, that.hash);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
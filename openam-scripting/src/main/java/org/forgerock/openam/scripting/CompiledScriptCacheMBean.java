@@ -0,0 +1,53 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.scripting;
+
+/**
+ * Monitoring interface of a {@link CompiledScriptCache}, registered as an MBean named
+ * {@code OpenAM:type=CompiledScriptCache,name=<script context>}.
+ */
+public interface CompiledScriptCacheMBean {
+
+    /**
+     * @return the number of scripts which have been compiled successfully by this cache.
+     */
+    long getCompileCount();
+
+    /**
+     * @return the number of scripts which failed to compile.
+     */
+    long getCompileFailureCount();
+
+    /**
+     * @return the ratio of lookups which found an already compiled script, or {@code 1.0} if there were none.
+     */
+    double getHitRate();
+
+    /**
+     * @return the average time taken to compile a script, in milliseconds.
+     */
+    long getAverageCompileTime();
+
+    /**
+     * @return the number of compiled scripts currently held.
+     */
+    long getSize();
+
+    /**
+     * @return the number of compiled scripts discarded to keep the cache within its maximum size.
+     */
+    long getEvictionCount();
+}
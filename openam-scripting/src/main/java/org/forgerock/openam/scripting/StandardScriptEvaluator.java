@@ -12,17 +12,20 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2015 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.scripting;
 
 import org.codehaus.groovy.control.io.NullWriter;
 import org.forgerock.util.Reject;
+import org.forgerock.util.annotations.VisibleForTesting;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Inject;
 import javax.script.Bindings;
+import javax.script.Compilable;
 import javax.script.ScriptContext;
 import javax.script.ScriptEngine;
 import javax.script.ScriptException;
@@ -40,6 +43,9 @@ import javax.script.SimpleScriptContext;
  * us sending its thread an interrupt signal, while JavaScript has its own timer which is checked on
  * each processed instruction.
  *
+ * Scripts are compiled once by engines which support it, and the compiled form is cached by script content
+ * until the script engine configuration changes.
+ *
  * @since 12.0.0
  */
 public class StandardScriptEvaluator implements ScriptEvaluator {
@@ -47,6 +53,7 @@ public class StandardScriptEvaluator implements ScriptEvaluator {
     private static final Logger LOGGER = LoggerFactory.getLogger(StandardScriptEvaluator.class);
 
     private final StandardScriptEngineManager scriptEngineManager;
+    private final CompiledScriptCache compiledScripts;
 
     /**
      * Constructs the script evaluator using the given JSR 223 script engine manager instance.
@@ -54,8 +61,31 @@ public class StandardScriptEvaluator implements ScriptEvaluator {
      * @param scriptEngineManager the script engine manager to use for creating script engines. May not be null.
      */
     public StandardScriptEvaluator(StandardScriptEngineManager scriptEngineManager) {
-        Reject.ifNull(scriptEngineManager);
+        this(scriptEngineManager, new CompiledScriptCache(CompiledScriptCache.DEFAULT_MAXIMUM_SIZE));
+    }
+
+    @VisibleForTesting
+    StandardScriptEvaluator(StandardScriptEngineManager scriptEngineManager, CompiledScriptCache compiledScripts) {
+        Reject.ifNull(scriptEngineManager, compiledScripts);
         this.scriptEngineManager = scriptEngineManager;
+        this.compiledScripts = compiledScripts;
+
+        // Scripts compiled by a sandboxed engine keep that sandbox, so they must be recompiled when it changes
+        scriptEngineManager.addConfigurationListener(new StandardScriptEngineManager.ConfigurationListener() {
+            @Override
+            public void onConfigurationChange(ScriptEngineConfiguration newConfiguration) {
+                compiledScripts.invalidateAll();
+            }
+        });
+    }
+
+    /**
+     * Returns the cache of scripts compiled by this evaluator, for example to monitor its effectiveness.
+     *
+     * @return the compiled script cache. Never null.
+     */
+    public CompiledScriptCache getCompiledScriptCache() {
+        return compiledScripts;
     }
 
     /**
@@ -91,6 +121,9 @@ public class StandardScriptEvaluator implements ScriptEvaluator {
         final Bindings variableBindings = mergeBindings(script.getBindings(), bindings);
         final ScriptContext context = buildScriptContext(variableBindings);
 
+        if (engine instanceof Compilable) {
+            return (T) compiledScripts.get(script.getLanguage(), script.getScript(), (Compilable) engine).eval(context);
+        }
         return (T) engine.eval(script.getScript(), context);
     }
 
@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.scripting.guice;
@@ -113,7 +114,7 @@ public class ScriptingGuiceModule extends AbstractModule {
             @Named(AUTHENTICATION_SERVER_SIDE_NAME) StandardScriptEngineManager scriptEngineManager,
             AMExecutorServiceFactory executorServiceFactory) {
 
-        return createEvaluator(scriptEngineManager, executorServiceFactory);
+        return createEvaluator(AUTHENTICATION_SERVER_SIDE_NAME, scriptEngineManager, executorServiceFactory);
     }
 
     /**
@@ -132,7 +133,7 @@ public class ScriptingGuiceModule extends AbstractModule {
             @Named(POLICY_CONDITION_NAME) StandardScriptEngineManager scriptEngineManager,
             AMExecutorServiceFactory executorServiceFactory) {
 
-        return createEvaluator(scriptEngineManager, executorServiceFactory);
+        return createEvaluator(POLICY_CONDITION_NAME, scriptEngineManager, executorServiceFactory);
     }
 
     /**
@@ -151,13 +152,15 @@ public class ScriptingGuiceModule extends AbstractModule {
             @Named(OIDC_CLAIMS_NAME) StandardScriptEngineManager scriptEngineManager,
             AMExecutorServiceFactory executorServiceFactory) {
 
-        return createEvaluator(scriptEngineManager, executorServiceFactory);
+        return createEvaluator(OIDC_CLAIMS_NAME, scriptEngineManager, executorServiceFactory);
     }
 
-    private ThreadPoolScriptEvaluator createEvaluator(StandardScriptEngineManager scriptEngineManager,
+    private ThreadPoolScriptEvaluator createEvaluator(String name, StandardScriptEngineManager scriptEngineManager,
                                                       AMExecutorServiceFactory executorServiceFactory) {
 
         ScriptEngineConfiguration configuration = scriptEngineManager.getConfiguration();
+        StandardScriptEvaluator evaluator = new StandardScriptEvaluator(scriptEngineManager);
+        evaluator.getCompiledScriptCache().register(name);
 
         return new ThreadPoolScriptEvaluator(scriptEngineManager,
                 executorServiceFactory.createThreadPool(
@@ -168,7 +171,7 @@ public class ScriptingGuiceModule extends AbstractModule {
                         getThreadPoolQueue(configuration.getThreadPoolQueueSize()),
                         "ScriptEvaluator"
                 ),
-                new StandardScriptEvaluator(scriptEngineManager));
+                evaluator);
     }
 
     private BlockingQueue<Runnable> getThreadPoolQueue(int size) {
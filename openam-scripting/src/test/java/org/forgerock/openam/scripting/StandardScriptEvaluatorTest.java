@@ -12,6 +12,7 @@
  * information: "Portions copyright [year] [name of copyright owner]".
  *
  * Copyright 2014 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package org.forgerock.openam.scripting;
@@ -21,9 +22,12 @@ import org.forgerock.openam.scripting.factories.RhinoScriptEngineFactory;
 import org.testng.annotations.BeforeMethod;
 import org.testng.annotations.Test;
 
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 import javax.script.Bindings;
 import javax.script.ScriptException;
 import javax.script.SimpleBindings;
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
 import java.util.regex.Pattern;
 
@@ -282,6 +286,63 @@ public class StandardScriptEvaluatorTest {
 
     }
 
+    @Test
+    public void shouldCompileEachScriptOnlyOnce() throws Exception {
+        // Given
+        ScriptObject script = getGroovyScript("3 * 4");
+        testEvaluator.evaluateScript(script, null);
+
+        // When
+        Number result = testEvaluator.evaluateScript(getGroovyScript("3 * 4"), null);
+
+        // Then
+        assertThat(result.intValue()).isEqualTo(12);
+        assertThat(testEvaluator.getCompiledScriptCache().getCompileCount()).isEqualTo(1L);
+        assertThat(testEvaluator.getCompiledScriptCache().getHitRate()).isEqualTo(0.5D);
+    }
+
+    @Test
+    public void shouldCompileChangedScript() throws Exception {
+        // Given
+        testEvaluator.evaluateScript(getJavascript("3 * 4"), null);
+
+        // When
+        Number result = testEvaluator.evaluateScript(getJavascript("3 * 5"), null);
+
+        // Then
+        assertThat(result.intValue()).isEqualTo(15);
+        assertThat(testEvaluator.getCompiledScriptCache().getCompileCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldRecompileScriptsWhenConfigurationChanges() throws Exception {
+        // Given
+        testEvaluator.evaluateScript(getGroovyScript("3 * 4"), null);
+
+        // When
+        scriptEngineManager.setConfiguration(CONFIGURATION);
+        testEvaluator.evaluateScript(getGroovyScript("3 * 4"), null);
+
+        // Then
+        assertThat(testEvaluator.getCompiledScriptCache().getCompileCount()).isEqualTo(2L);
+    }
+
+    @Test
+    public void shouldPublishCacheMetricsWhenRegistered() throws Exception {
+        // Given
+        testEvaluator.getCompiledScriptCache().register("TEST_CONTEXT");
+        ObjectName objectName = new ObjectName("OpenAM:type=CompiledScriptCache,name=\"TEST_CONTEXT\"");
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        // When
+        testEvaluator.evaluateScript(getGroovyScript("3 * 4"), null);
+        testEvaluator.evaluateScript(getGroovyScript("3 * 4"), null);
+
+        // Then
+        assertThat(server.getAttribute(objectName, "CompileCount")).isEqualTo(1L);
+        assertThat(server.getAttribute(objectName, "HitRate")).isEqualTo(0.5D);
+        assertThat(server.getAttribute(objectName, "Size")).isEqualTo(1L);
+    }
 
     static ScriptObject getJavascript(String... script) {
         return getJavascript(null, script);
@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: GeneralTaskRunnable.java,v 1.4 2008/06/25 05:52:51 qcheng Exp $
  *
@@ -161,6 +162,7 @@ public abstract class GeneralTaskRunnable implements TaskRunnable {
                                 } else {
                                     oldHeadTask.setTail(previousTask);
                                 }
+                                oldHeadTask.taskCancelled();
                             }
                             break;
                         }
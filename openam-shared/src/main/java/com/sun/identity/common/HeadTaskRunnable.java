@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: HeadTaskRunnable.java,v 1.4 2008/06/25 05:52:51 qcheng Exp $
  *
@@ -51,6 +52,9 @@ public class HeadTaskRunnable implements TaskRunnable {
     protected int acquireCount;
     protected volatile Thread owner;
     protected Triggerable parent;
+    // The entry of this head in the timing wheel of a TimerPool, only
+    // accessed by the scheduler thread of the TimerPool
+    TimingWheel.Entry<HeadTaskRunnable> wheelEntry;
     
     /**
      * Constructor of HeadTaskRunnable.
@@ -295,6 +299,19 @@ public class HeadTaskRunnable implements TaskRunnable {
         return -1;
     }
     
+    /**
+     * Notifies the Triggerable interface that a task linked to this
+     * HeadTaskRunnable has been cancelled.
+     *
+     * The HeadTaskRunnable must be locked before calling this function.
+     */
+    
+    void taskCancelled() {
+        if (parent != null) {
+            parent.cancelled(time);
+        }
+    }
+    
     /**
      * Implements for TaskRunnable interface.
      */
@@ -25,6 +25,7 @@
  * $Id: TimerPool.java,v 1.6 2008/10/20 22:00:05 ww203982 Exp $
  *
  * Portions Copyrighted 2012-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 
 package com.sun.identity.common;
@@ -32,33 +33,67 @@ package com.sun.identity.common;
 import static org.forgerock.openam.utils.Time.*;
 
 import com.sun.identity.shared.debug.Debug;
-import java.util.Collections;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
 import java.util.Date;
-import java.util.HashSet;
-import java.util.NoSuchElementException;
-import java.util.Set;
-import java.util.SortedMap;
-import java.util.Timer;
-import java.util.TreeMap;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
 
 /**
  * TimerPool is a scheduleable version of ThreadPool.
+ * <p>
+ * Tasks scheduled for the same time are linked behind a single
+ * {@link HeadTaskRunnable}. The heads are held in a hierarchical
+ * {@link TimingWheel} owned by the scheduler thread, so scheduling and
+ * cancelling a task are O(1) and do not contend on a global monitor:
+ * newly scheduled heads and cancelled heads are handed to the scheduler
+ * through lock-free queues, and the scheduler adds them to or unlinks them
+ * from the wheel. The scheduler sleeps until the next occupied slot of the
+ * wheel, then collects the expired heads and dispatches them in batches onto
+ * the worker threads.
+ * <p>
+ * Each TimerPool is registered as an MBean named
+ * {@code OpenAM:type=TimerPool,name=<name>} until it is shut down.
  */
 
-public class TimerPool implements Triggerable {
+public class TimerPool implements Triggerable, TimerPoolMBean {
 
     static final String SCHEDULER_SUFFIX = "-Scheduler";
-    private int poolSize;
-    private String name;
-    private int busyThreadCount;
-    private int currentThreadCount;
+    /** The resolution of the timing wheel in milliseconds. */
+    static final long TICK_DURATION = 10L;
+    private static final int WHEEL_LEVELS = 4;
+    private static final int WHEEL_BITS = 8;
+    /** The longest the scheduler sleeps before unlinking cancelled heads. */
+    private static final long MAX_SCHEDULER_WAIT = 1000L;
+
+    private final int poolSize;
+    private final String name;
+    private final boolean daemon;
+    private final Debug debug;
+    private final ConcurrentMap<Long, HeadTaskRunnable> taskList;
+    private final Queue<HeadTaskRunnable> newTasks;
+    private final Queue<HeadTaskRunnable> cancelledTasks;
+    private final TimingWheel<HeadTaskRunnable> wheel;
+    private final ThreadPoolExecutor workers;
+    private final LongAdder pendingTasks = new LongAdder();
+    private final AtomicLong lastDispatchLag = new AtomicLong();
+    private final LongAccumulator maxDispatchLag = new LongAccumulator(Math::max, 0L);
     private volatile boolean shutdownThePool;
-    private boolean daemon;
-    private WorkerThread[] threads;
-    private Scheduler scheduler;
-    private SortedMap taskList;
-    private Date nextRun;
-    private Debug debug;
+    private volatile Scheduler scheduler;
 
     /**
      * Constructor of TimerPool.
@@ -72,148 +107,251 @@ public class TimerPool implements Triggerable {
     
     public TimerPool(String name, int poolSize, boolean daemon, Debug debug) {
         this.name = name;
-	this.poolSize = poolSize;
-        this.busyThreadCount = 0;
-        this.currentThreadCount = 0;
+        this.poolSize = poolSize;
         this.daemon = daemon;
         this.debug = debug;
         this.shutdownThePool = false;
-        this.threads = new WorkerThread[poolSize];
+        this.taskList = new ConcurrentHashMap<Long, HeadTaskRunnable>();
+        this.newTasks = new ConcurrentLinkedQueue<HeadTaskRunnable>();
+        this.cancelledTasks = new ConcurrentLinkedQueue<HeadTaskRunnable>();
+        this.wheel = new TimingWheel<HeadTaskRunnable>(WHEEL_LEVELS, WHEEL_BITS, tickOf(currentTimeMillis()));
+        this.workers = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, TimerPool.this.name);
+                    t.setDaemon(TimerPool.this.daemon);
+                    return t;
+                }
+            });
         this.scheduler = new Scheduler(this);
         this.scheduler.start();
-        this.taskList = Collections.synchronizedSortedMap(new TreeMap());
-        synchronized (this) {
-            createThreads(poolSize);
-        }
+        registerMBean();
     }
+
+    /**
+     * {@inheritDoc}
+     * <p>
+     * The count is kept as tasks are scheduled, run and cancelled, so it is
+     * only a snapshot while that is happening.
+     */
     
+    public int getPendingTaskCount() {
+        return (int) Math.max(0L, pendingTasks.sum());
+    }
+
     /**
-     * Creates threads to the TimerPool.
-     *
-     * @param timersToCreate Number of threads in the TimerPool after creation
+     * {@inheritDoc}
      */
     
-    private void createThreads(int timersToCreate) {
-        if (timersToCreate > poolSize) {
-            timersToCreate = poolSize;
-        }
-        for (int i = currentThreadCount; i < timersToCreate; i++) {
-            threads[i - busyThreadCount] = new WorkerThread(name, this);
-            threads[i - busyThreadCount].setDaemon(daemon);
-            threads[i - busyThreadCount].start();
-        }
-        currentThreadCount = timersToCreate;
+    public long getDispatchLag() {
+        return lastDispatchLag.get();
     }
+
+    /**
+     * {@inheritDoc}
+     */
     
+    public long getMaxDispatchLag() {
+        return maxDispatchLag.get();
+    }
+
+    private ObjectName getObjectName() throws Exception {
+        return new ObjectName("OpenAM:type=TimerPool,name=" + ObjectName.quote(name));
+    }
+
     /**
-     * Returns thread which is free in the pool.
-     *
-     * @return A thread which is free from the TimerPool
+     * Registers the TimerPool with the platform MBean server, replacing an
+     * earlier TimerPool of the same name.
      */
     
-    private WorkerThread getAvailableThread() {
-        WorkerThread t = null;
-        synchronized (this) {
-            if (currentThreadCount == busyThreadCount) {
-                createThreads(poolSize);
+    private void registerMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+            server.registerMBean(new StandardMBean(this, TimerPoolMBean.class), objectName);
+        } catch (Exception ex) {
+            if (debug != null) {
+                debug.warning("TimerPool:registerMBean() " + name, ex);
             }
-            t = threads[currentThreadCount - busyThreadCount - 1];
-            threads[currentThreadCount - busyThreadCount - 1] = null;
-            busyThreadCount++;
         }
-        return t;
     }
+
+    /**
+     * Unregisters the TimerPool from the platform MBean server.
+     */
     
+    private void unregisterMBean() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            ObjectName objectName = getObjectName();
+            if (server.isRegistered(objectName)) {
+                server.unregisterMBean(objectName);
+            }
+        } catch (Exception ex) {
+            if (debug != null) {
+                debug.message("TimerPool:unregisterMBean() " + name, ex);
+            }
+        }
+    }
+
+    private static long tickOf(long time) {
+        return time / TICK_DURATION;
+    }
+
     /**
-     * Runs the next timeout task in the sorted container.
+     * Advances the timing wheel to the current time and dispatches every head
+     * which has expired. Only called from the scheduler thread.
      */
     
     private void runNext() {
-        WorkerThread t = null;
-        HeadTaskRunnable task = null;
-        synchronized (this) {
-            if (shutdownThePool) {
-                return;
-            } else {
-                while (busyThreadCount == poolSize) {
-                    try {
-                        wait();
-                        if (shutdownThePool) {
-                            return;
+        HeadTaskRunnable head;
+        while ((head = newTasks.poll()) != null) {
+            // heads cancelled before reaching the wheel are not added
+            if (taskList.get(head.time.getTime()) == head) {
+                // round up so that tasks never run before their scheduled time
+                head.wheelEntry = wheel.add(tickOf(head.time.getTime() + TICK_DURATION - 1), head);
+            }
+        }
+        while ((head = cancelledTasks.poll()) != null) {
+            if (head.wheelEntry != null) {
+                wheel.remove(head.wheelEntry);
+                head.wheelEntry = null;
+            }
+        }
+        List<HeadTaskRunnable> expired = new ArrayList<HeadTaskRunnable>();
+        wheel.advance(tickOf(currentTimeMillis()), expired);
+        if (expired.isEmpty()) {
+            return;
+        }
+        List<HeadTaskRunnable> toRun = new ArrayList<HeadTaskRunnable>(expired.size());
+        for (HeadTaskRunnable expiredHead : expired) {
+            expiredHead.wheelEntry = null;
+            // heads removed by trigger() have been cancelled or emptied
+            if (taskList.remove(expiredHead.time.getTime(), expiredHead)) {
+                toRun.add(expiredHead);
+            }
+        }
+        dispatch(toRun);
+    }
+
+    /**
+     * Splits the expired heads into at most one batch per worker thread.
+     *
+     * @param heads The heads to run
+     */
+    
+    private void dispatch(List<HeadTaskRunnable> heads) {
+        if (heads.isEmpty()) {
+            return;
+        }
+        int batches = Math.min(poolSize, heads.size());
+        int batchSize = (heads.size() + batches - 1) / batches;
+        for (int from = 0; from < heads.size(); from += batchSize) {
+            final List<HeadTaskRunnable> batch =
+                heads.subList(from, Math.min(from + batchSize, heads.size()));
+            try {
+                workers.execute(new Runnable() {
+                    public void run() {
+                        Error error = null;
+                        for (HeadTaskRunnable head : batch) {
+                            if (shutdownThePool) {
+                                break;
+                            }
+                            try {
+                                runHead(head);
+                            } catch (Error e) {
+                                // finish the rest of the batch first
+                                error = e;
+                            }
                         }
-                    } catch(Exception ex) {
-                        if (debug != null) {
-                            debug.error("TimerPool:runNext() " + name, ex);
+                        if (error != null) {
+                            throw error;
                         }
                     }
+                });
+            } catch (RejectedExecutionException ex) {
+                if (debug != null) {
+                    debug.message("TimerPool:dispatch() " + name, ex);
                 }
-                if (nextRun != null) {
-                    long now = currentTimeMillis();
-                    if (nextRun.getTime() <= now ) {
-                        if ((task = (HeadTaskRunnable) taskList.remove(nextRun)) 
-                            != null) {
-                            t = getAvailableThread();
-                        }
+                return;
+            }
+        }
+    }
+
+    /**
+     * Runs every task linked behind the head, rescheduling periodic tasks.
+     *
+     * @param head The head of the tasks to be run
+     */
+    
+    private void runHead(HeadTaskRunnable head) {
+        if (!head.acquireValidLock()) {
+            return;
+        }
+        Error error = null;
+        try {
+            long lag = Math.max(0L,
+                currentTimeMillis() - head.scheduledExecutionTime());
+            lastDispatchLag.set(lag);
+            maxDispatchLag.accumulate(lag);
+            // skip head task
+            head.timeout();
+            TaskRunnable task = head.next();
+            while (task != null) {
+                TaskRunnable runTask = task;
+                task = task.next();
+                // cut the connection before run the task.
+                runTask.setNext(null);
+                pendingTasks.decrement();
+                try {
+                    runTask.run();
+                } catch (RuntimeException ex) {
+                    if (debug != null) {
+                        debug.error("TimerPool:runHead() " + name, ex);
+                    }
+                } catch (Error e) {
+                    if (debug != null) {
+                        debug.error("TimerPool:runHead() " + name, e);
                     }
+                    error = e;
+                }
+                if (runTask.getRunPeriod() >= 0) {
                     try {
-                        nextRun = (Date) taskList.firstKey();
-                        long delay = nextRun.getTime() - now;
-                        scheduler.setDelay((delay >= 0 ? delay : 0));
-                    } catch(NoSuchElementException ex) {
-                        nextRun = null;
-                        scheduler.setDelay(-1);
+                        schedule(runTask, new Date(
+                            head.scheduledExecutionTime()
+                            + runTask.getRunPeriod()));
+                    } catch (IllegalStateException ex) {
+                        if (debug != null) {
+                            debug.message("TimerPool:runHead() " + name, ex);
+                        }
+                        // This exception will be thrown only if the Timer has
+                        // been shutdown already.
+                        return;
                     }
                 }
             }
+            head.expire();
+        } finally {
+            head.releaseLockAndNotify();
         }
-        if ((t != null) && (task != null)) {
-            t.runTask(task);
+        if (error != null) {
+            // rethrow Error here
+            throw error;
         }
     }
     
-    /**
-     * Decreases the number of current threads in the TimerPool.
-     */
-    
-    private synchronized void deductCurrentThreadCount(){
-        currentThreadCount--;
-        busyThreadCount--;
-        notify();
-    }
-    
     /**
      * Replaces the scheduler thread in the TimerPool.
      */
     
     private synchronized void replaceScheduler() {
         scheduler.terminate();
-        scheduler = new Scheduler(this);
-        scheduler.start();
-    }
-    
-    /**
-     * Returns the thread to the TimerPool.
-     *
-     * @param t The thread to be returned to the TimerPool
-     */
-    
-    private void returnThread(WorkerThread t) {        
-        if (shutdownThePool) {
-            t.terminate();
-            synchronized (this) {
-                busyThreadCount--;
-                if(busyThreadCount == 0){
-                    notifyAll();
-                }
-            }
-        } else {
-            
-            synchronized (this) {
-                busyThreadCount--;
-                // return timers from the end of array
-                threads[currentThreadCount - busyThreadCount - 1] = t;
-                notify();
-            }
+        if (!shutdownThePool) {
+            scheduler = new Scheduler(this);
+            scheduler.start();
         }
     }
     
@@ -254,24 +392,18 @@ public class TimerPool implements Triggerable {
                         }
                     }
                 } while (head != task.getHeadTask());
-                synchronized (taskList) {
-                    if((head = (HeadTaskRunnable) taskList.get(time)) == null) {
-                        task.setNext(null);
-                        taskList.put(time, new HeadTaskRunnable(this, task,
-                            time));        
+                Long key = time.getTime();
+                if ((head = taskList.get(key)) == null) {
+                    task.setNext(null);
+                    HeadTaskRunnable newHead = new HeadTaskRunnable(this, task,
+                        time);
+                    if ((head = taskList.putIfAbsent(key, newHead)) == null) {
+                        pendingTasks.increment();
+                        newTasks.add(newHead);
+                        scheduler.wakeIfLater(key);
                     }
                 }
-                if (head == null) {
-                    synchronized (this) {
-                        if ((nextRun == null) ||
-                            (time.getTime() < nextRun.getTime())) {
-                            nextRun = time;
-                            long delay = time.getTime() -
-                                    currentTimeMillis();
-                            scheduler.setWait(((delay < 0) ? 0 : delay));
-                        }
-                    }
-                } else {
+                if (head != null) {
                     if (head.acquireValidLock()) {
                         try {
                             task.setHeadTask(head);
@@ -280,6 +412,7 @@ public class TimerPool implements Triggerable {
                             tailTask.setNext(task);
                             task.setNext(null);
                             head.setTail(task);
+                            pendingTasks.increment();
                         } finally {
                             head.releaseLockAndNotify();
                         }
@@ -310,8 +443,19 @@ public class TimerPool implements Triggerable {
      */
     
     public void trigger(Date time) {
-        // no need to synchronize for single operation
-        taskList.remove(time);
+        HeadTaskRunnable head = taskList.remove(time.getTime());
+        if (head != null) {
+            // the scheduler unlinks the head from the wheel
+            cancelledTasks.add(head);
+        }
+    }
+
+    /**
+     * Implements the cancelled function for Triggerable interface.
+     */
+    
+    public void cancelled(Date time) {
+        pendingTasks.decrement();
     }
     
     /**
@@ -322,253 +466,42 @@ public class TimerPool implements Triggerable {
         if(!shutdownThePool) {
             shutdownThePool = true;
             scheduler.terminate();
-            for(int i = 0; i < currentThreadCount - busyThreadCount; i++) {
-                // terminate the thread from the beginning of the array
-                threads[i].terminate();
-            }
-            while(busyThreadCount != 0){
-                try{
-                    // wait if there are threads running, it will be notified
-                    // when they all back.
-                    wait();
-                } catch (Exception ex) {
-                    if (debug != null) {
-                        debug.error("TimerPool:shutdown() " + name, ex);
+            workers.shutdown();
+            try {
+                // wait if there are threads running
+                while (!workers.awaitTermination(1, TimeUnit.SECONDS)) {
+                    if (debug != null && debug.messageEnabled()) {
+                        debug.message("TimerPool:shutdown() " + name
+                            + " waiting for running tasks");
                     }
                 }
-            }
-            currentThreadCount = busyThreadCount = 0;
-            threads = null;
-        }
-    }
-    
-    /**
-     * WorkerThread is the threads which actually do the jobs. A WorkerThread
-     * will be assigned to the task when it is time.
-     */
-    
-    private class WorkerThread extends Thread{
-        
-        private TimerPool pool;
-        private HeadTaskRunnable task;
-        private volatile boolean shouldTerminate;
-        private volatile boolean needReturn;
-
-        /**
-         * Constructor of WorkerThread.
-         *
-         * @param name The name of the thread
-         * @param pool The TimerPool the thread belongs to
-         */
-        
-        public WorkerThread(String name, TimerPool pool) {
-            setName(name);
-            this.pool = pool;
-            this.shouldTerminate = false;
-            this.needReturn = true;
-            this.task = null;
-        }
-    
-        /**
-         * Runs the task.
-         *
-         * @param toRun The head of the tasks to be run
-         */
-        
-        public synchronized void runTask(HeadTaskRunnable toRun) {
-            this.task = toRun;
-            // Although the thread may not in wait state when this function
-            // is called (the taskList is not empty), it doesn't hurt to
-            // call it.  getState method can check whether the Thread is
-            // waiting, but it is available in jdk1.5 or newer.
-            this.notify();
-        }
-        
-        /**
-         * Terminates this WorkerThread.
-         */
-        
-        // terminate the thread pool when daemon is set to false
-        // it is better to have a way to terminate the thread pool
-        public synchronized void terminate() {
-            shouldTerminate = true;
-            needReturn = false;
-            this.notify();
-        }
-        
-        /**
-         * Implements the run method with errors handling for Thread object.
-         */
-        
-        public void run() {
-            HeadTaskRunnable localHeadTask = null;
-            TaskRunnable localTask = null;
-            TaskRunnable runTask = null;
-            WorkerThread t = this;
-            while (true) {
-                try{
-                    synchronized(this) {
-                        if ((!shouldTerminate) && (task == null)) {
-                            this.wait();
-                        }
-                        // need a local copy because they may be changed after
-                        // leaving synchronized block.
-                        localHeadTask = task;
-                        task = null;
-                    }
-                    if (shouldTerminate) {
-                        // we may need to log something here!
-                        break;
-                    }
-                    if(localHeadTask != null){
-                        if (localHeadTask.acquireValidLock()) {
-                            try {
-                                // skip head task
-                                localHeadTask.timeout();
-                                localTask = localHeadTask.next();
-                                while (localTask != null) {
-                                    runTask = localTask;
-                                    localTask = localTask.next();
-                                    // cut the connection before run the task.
-                                    runTask.setNext(null);
-                                    runTask.run();
-                                    if (runTask.getRunPeriod() >= 0) {
-                                        pool.schedule(runTask, new Date(
-                                            localHeadTask
-                                            .scheduledExecutionTime()
-                                            + runTask.getRunPeriod()));
-                                    }
-                                }
-                                localHeadTask.expire();
-                            } finally {
-                                localHeadTask.releaseLockAndNotify();
-                            }
-                        }
-                    }
-                } catch (IllegalStateException ex) {
-                    if (debug != null) {
-                        debug.message("TimerPool$WorkerThread:run() " + name,
-                            ex);
-                    }
-                    // This exception will be thrown only if the Timer has been
-                    // shutdown already.
-                    shouldTerminate = true;
-                } catch (RuntimeException ex) {
-                    if (debug != null) {
-                        debug.error("TimerPool$WorkerThread:run() " + name, ex);
-                    }
-                    if (localHeadTask != null) {
-                        if (localHeadTask.acquireValidLock()) {
-                            try {
-                                if ((runTask.getRunPeriod() >= 0) &&
-                                    (runTask.scheduledExecutionTime() ==
-                                    localHeadTask.scheduledExecutionTime())){
-                                    pool.schedule(runTask, new Date(
-                                        localHeadTask.scheduledExecutionTime()
-                                        + runTask.getRunPeriod()));
-                                }
-                                if (localTask != null) {
-                                    localHeadTask.setNext(localTask);
-                                    localTask.setPrevious(localHeadTask);
-                                }
-                            } catch (IllegalStateException iex) {
-                                if (debug != null) {
-                                    debug.message("TimerPool$WorkerThread:" + 
-                                        "run() " + name, iex);
-                                }
-                                // This exception will be thrown only if the
-                                // Timer has been shutdown already.
-                                shouldTerminate = true;
-                            } finally {
-                                localHeadTask.releaseLockAndNotify();
-                            }
-                        }
-                    }
-                    synchronized (pool) {
-                        pool.deductCurrentThreadCount();
-                        if (localTask != null) {
-                            WorkerThread thread = pool.getAvailableThread();
-                            thread.runTask(localHeadTask);
-                        }
-                    }
-                    shouldTerminate = true;
-                    needReturn = false;
-                } catch (Exception ex) {
-                    if (debug != null) {
-                        debug.error("TimerPool$WorkerThread:run() " + name, ex);
-                    }
-                    // don't need to rethrow
-	        } catch (Throwable e) {
-                    if (debug != null) {
-                        debug.error("TimerPool$WorkerThread:run() " + name, e);
-                    }
-                    if (localHeadTask != null) {
-                        if (localHeadTask.acquireValidLock()) {
-                            try {                        
-                                if ((runTask.getRunPeriod() >= 0) &&
-                                    (runTask.scheduledExecutionTime() ==
-                                    localHeadTask.scheduledExecutionTime())){
-                                    pool.schedule(runTask, new Date(
-                                        localHeadTask.scheduledExecutionTime()
-                                        + runTask.getRunPeriod()));
-                                }
-                                if (localTask != null) {
-                                    localHeadTask.setNext(localTask);
-                                    localTask.setPrevious(localHeadTask);
-                                }
-                            } catch (IllegalStateException iex) {
-                                if (debug != null) {
-                                    debug.message("TimerPool$WorkerThread:" + 
-                                        "run() " + name, iex);
-                                }
-                                // This exception will be thrown only if the
-                                // Timer has been shutdown already.
-                                shouldTerminate = true;
-                            } finally {
-                                localHeadTask.releaseLockAndNotify();
-                            }
-                        }
-                    }
-                    synchronized (pool) {
-                        pool.deductCurrentThreadCount();
-                        if (localTask != null) {
-                            WorkerThread thread = pool.getAvailableThread();
-                            thread.runTask(localHeadTask);
-                        }
-                    }
-                    shouldTerminate = true;
-                    needReturn = false;
-                    // rethrow Error here
-                    throw new Error(e);
-	        } finally {
-                    localHeadTask = null;
-                    localTask = null;
-                    runTask = null;
-                    // the thread may has returned already if shutdown is
-                    // called.
-                    if (needReturn) {
-                        pool.returnThread(t);
-                    }
-                }
-                if (shouldTerminate) {
-                    // we may need to log something here!
-                    break;
+            } catch (InterruptedException ex) {
+                if (debug != null) {
+                    debug.error("TimerPool:shutdown() " + name, ex);
                 }
-	    }
+                Thread.currentThread().interrupt();
+            }
+            taskList.clear();
+            newTasks.clear();
+            cancelledTasks.clear();
+            pendingTasks.reset();
+            unregisterMBean();
         }
     }
     
     /**
-     * Scheduler is the one who handles the time to wait and assign a thread to
-     * the task when it is time. If there is no thread availabe when it is time
-     * to run a particular task, Scheduler will wait until thread available.
+     * Scheduler advances the timing wheel and dispatches the expired tasks
+     * onto the worker threads. Between runs it sleeps until the next occupied
+     * slot of the wheel, for at most MAX_SCHEDULER_WAIT so that cancelled
+     * heads are unlinked. When nothing is scheduled it waits until a task is
+     * added.
      */
     
     private class Scheduler extends Thread {
         
         private volatile boolean shouldTerminate;
-        private boolean beingNotified;
-        private long delay;
+        // the time the Scheduler is sleeping until, Long.MIN_VALUE while it is running
+        private volatile long wakeTime;
         private TimerPool pool;
         
         /**
@@ -579,32 +512,23 @@ public class TimerPool implements Triggerable {
         
         public Scheduler(TimerPool pool) {
             this.shouldTerminate = false;
-            this.beingNotified = false;
-            this.delay = -1;
+            this.wakeTime = Long.MIN_VALUE;
             this.pool = pool;
             setName(pool.name + SCHEDULER_SUFFIX);
         }
         
         /**
-         * Sets the time (in ms) to wait.
-         *
-         * @param delay The time (in ms) to wait
-         */
-        
-        public synchronized void setWait(long delay) {
-            this.delay = delay;
-            this.beingNotified = true;
-            this.notify();
-        }
-        
-        /**
-         * Sets the time (in ms) to wait without notification.
+         * Wakes the Scheduler if it is sleeping until after the given time.
          *
-         * @param delay The time (in ms) to wait
+         * @param time The time a newly scheduled task is to be run
          */
         
-        public synchronized void setDelay(long delay) {
-            this.delay = delay;
+        public void wakeIfLater(long time) {
+            if (time < wakeTime) {
+                synchronized (this) {
+                    this.notify();
+                }
+            }
         }
         
         /**
@@ -621,26 +545,29 @@ public class TimerPool implements Triggerable {
          */
         
         public void run() {
-            long localDelay = -1;
             while (true) {
                 try {
                     synchronized (this) {
                         if (!shouldTerminate) {
-                            if (delay > 0) {
-                                this.wait(delay);
-                                if (beingNotified) {
-                                    beingNotified = false;
-                                    continue;
+                            long nextTick = wheel.nextTick();
+                            if (nextTick == Long.MAX_VALUE) {
+                                wakeTime = Long.MAX_VALUE;
+                                if (newTasks.isEmpty()) {
+                                    this.wait();
                                 }
                             } else {
-                                if (delay < 0) {
-                                    this.wait();
-                                    if (beingNotified) {
-                                        beingNotified = false;
-                                        continue;
+                                long now = currentTimeMillis();
+                                long delay = Math.min(
+                                    nextTick * TICK_DURATION - now,
+                                    MAX_SCHEDULER_WAIT);
+                                if (delay > 0) {
+                                    wakeTime = now + delay;
+                                    if (newTasks.isEmpty()) {
+                                        this.wait(delay);
                                     }
                                 }
                             }
+                            wakeTime = Long.MIN_VALUE;
                         }
                     }
                     if (shouldTerminate) {
@@ -648,8 +575,12 @@ public class TimerPool implements Triggerable {
                     }
                     pool.runNext();
                 } catch (RuntimeException ex) {
+                    if (debug != null) {
+                        debug.error("TimerPool$Scheduler:run() " + name, ex);
+                    }
                     pool.replaceScheduler();
-                } catch (Exception ex) {
+                } catch (InterruptedException ex) {
+                    // woken early, loop round and check the wheel
                 } catch (Throwable t) {
                     pool.replaceScheduler();
                     throw new Error(t);
@@ -660,4 +591,4 @@ public class TimerPool implements Triggerable {
             }
         }
     }
-} 
+}
@@ -0,0 +1,45 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.common;
+
+/**
+ * Monitoring interface of a {@link TimerPool}, registered as an MBean named
+ * {@code OpenAM:type=TimerPool,name=<name>}.
+ */
+public interface TimerPoolMBean {
+
+    /**
+     * Returns the number of tasks waiting to be run.
+     *
+     * @return The number of pending tasks.
+     */
+    int getPendingTaskCount();
+
+    /**
+     * Returns how late the most recently dispatched tasks started running relative to their scheduled time.
+     *
+     * @return The dispatch lag of the last run in milliseconds.
+     */
+    long getDispatchLag();
+
+    /**
+     * Returns the largest dispatch lag observed since the TimerPool was created.
+     *
+     * @return The maximum dispatch lag in milliseconds.
+     */
+    long getMaxDispatchLag();
+}
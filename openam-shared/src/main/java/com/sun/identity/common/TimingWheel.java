@@ -0,0 +1,335 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.common;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Hierarchical timing wheel. Elements are added against an absolute deadline expressed in ticks and
+ * are handed back once the wheel has been advanced to that tick.
+ * <p>
+ * Each level holds {@code 2^wheelBits} slots; a slot on level {@code n} spans {@code 2^(wheelBits * n)}
+ * ticks. Adding an element, removing it and advancing by one tick are O(1); elements are moved down a
+ * level at most once per level as their deadline approaches. Elements beyond the span of the top level
+ * are parked in its slots and re-placed each time they are visited.
+ * <p>
+ * This class is not thread safe, it is expected to be owned by a single thread.
+ *
+ * @param <E> The type of element held in the wheel.
+ */
+final class TimingWheel<E> {
+
+    private final int levels;
+    private final int wheelBits;
+    private final int mask;
+    private final Slot<E>[][] slots;
+    private final Slot<E> overdue = new Slot<>();
+    private long currentTick;
+    private int size;
+
+    /**
+     * Constructs an empty wheel.
+     *
+     * @param levels The number of levels in the wheel.
+     * @param wheelBits The number of bits of the tick covered by each level.
+     * @param startTick The tick the wheel starts at.
+     */
+    @SuppressWarnings("unchecked")
+    TimingWheel(int levels, int wheelBits, long startTick) {
+        if (levels < 1 || wheelBits < 1 || levels * wheelBits > 62) {
+            throw new IllegalArgumentException("Illegal wheel dimensions: " + levels + "x" + wheelBits);
+        }
+        this.levels = levels;
+        this.wheelBits = wheelBits;
+        this.mask = (1 << wheelBits) - 1;
+        this.slots = new Slot[levels][1 << wheelBits];
+        this.currentTick = startTick;
+    }
+
+    /**
+     * Returns the tick the wheel has been advanced to.
+     *
+     * @return the current tick.
+     */
+    long currentTick() {
+        return currentTick;
+    }
+
+    /**
+     * Returns the number of elements held by the wheel.
+     *
+     * @return the number of elements.
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether the wheel holds no elements.
+     *
+     * @return {@code true} if the wheel is empty.
+     */
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Adds an element to the wheel. An element whose deadline is not after the current tick is returned
+     * by the next call to {@link #advance(long, Collection)}.
+     *
+     * @param deadline The tick at which the element is due.
+     * @param element The element.
+     * @return The entry of the element, which can be used to remove it before it is due.
+     */
+    Entry<E> add(long deadline, E element) {
+        Entry<E> entry = new Entry<>(deadline, element);
+        place(entry);
+        size++;
+        return entry;
+    }
+
+    /**
+     * Removes an element from the wheel before it is due.
+     *
+     * @param entry The entry returned when the element was added.
+     * @return {@code false} if the element had already been returned as due or removed.
+     */
+    boolean remove(Entry<E> entry) {
+        if (entry.slot == null) {
+            return false;
+        }
+        entry.slot.unlink(entry);
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns the first tick at which advancing the wheel may return an element, or may move elements
+     * down a level on their way to being due. Advancing the wheel to any earlier tick returns nothing.
+     *
+     * @return The tick, the current tick if elements are overdue, or {@link Long#MAX_VALUE} if the wheel
+     * is empty.
+     */
+    long nextTick() {
+        if (size == 0) {
+            return Long.MAX_VALUE;
+        }
+        if (!overdue.isEmpty()) {
+            return currentTick;
+        }
+        long next = Long.MAX_VALUE;
+        for (int level = 0; level < levels; level++) {
+            int shift = wheelBits * level;
+            // the first tick at which a slot of this level is visited is the start of its span
+            for (long span = (currentTick >>> shift) + 1; span <= (currentTick >>> shift) + mask + 1; span++) {
+                long tick = span << shift;
+                if (tick >= next) {
+                    break;
+                }
+                Slot<E> slot = slots[level][(int) (span & mask)];
+                if (slot != null && !slot.isEmpty()) {
+                    next = tick;
+                    break;
+                }
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Advances the wheel to the given tick, collecting every element which is due by then. If the wheel
+     * would have to visit more slots than it holds elements, it is rebuilt at the target tick instead.
+     *
+     * @param tick The tick to advance to. Ticks before the current tick are ignored.
+     * @param due The collection which due elements are added to.
+     */
+    void advance(long tick, Collection<? super E> due) {
+        drainOverdue(due);
+        long distance = tick - currentTick;
+        if (distance <= 0) {
+            return;
+        }
+        if (distance > (1L << wheelBits) && distance > size) {
+            rebuild(tick, due);
+            return;
+        }
+        while (currentTick < tick) {
+            currentTick++;
+            for (int level = levels - 1; level > 0; level--) {
+                if ((currentTick & ((1L << (wheelBits * level)) - 1)) == 0) {
+                    cascade(level);
+                }
+            }
+            Slot<E> slot = slots[0][(int) (currentTick & mask)];
+            if (slot != null) {
+                Entry<E> entry;
+                while ((entry = slot.poll()) != null) {
+                    place(entry);
+                }
+            }
+            drainOverdue(due);
+        }
+    }
+
+    /**
+     * Removes every element from the wheel.
+     *
+     * @param removed The collection which the removed elements are added to.
+     */
+    void clear(Collection<? super E> removed) {
+        for (Entry<E> entry : removeAll()) {
+            removed.add(entry.element);
+        }
+    }
+
+    private void cascade(int level) {
+        Slot<E> slot = slots[level][(int) ((currentTick >>> (wheelBits * level)) & mask)];
+        if (slot != null && !slot.isEmpty()) {
+            List<Entry<E>> entries = new ArrayList<>();
+            slot.drainTo(entries);
+            for (Entry<E> entry : entries) {
+                place(entry);
+            }
+        }
+    }
+
+    private void rebuild(long tick, Collection<? super E> due) {
+        List<Entry<E>> entries = removeAll();
+        currentTick = tick;
+        size = entries.size();
+        for (Entry<E> entry : entries) {
+            place(entry);
+        }
+        drainOverdue(due);
+    }
+
+    private List<Entry<E>> removeAll() {
+        List<Entry<E>> entries = new ArrayList<>(size);
+        overdue.drainTo(entries);
+        for (Slot<E>[] level : slots) {
+            for (Slot<E> slot : level) {
+                if (slot != null) {
+                    slot.drainTo(entries);
+                }
+            }
+        }
+        size = 0;
+        return entries;
+    }
+
+    private void place(Entry<E> entry) {
+        long delta = entry.deadline - currentTick;
+        if (delta <= 0) {
+            overdue.link(entry);
+            return;
+        }
+        int level = 0;
+        while (level < levels - 1 && delta >= (1L << (wheelBits * (level + 1)))) {
+            level++;
+        }
+        int index = (int) ((entry.deadline >>> (wheelBits * level)) & mask);
+        Slot<E> slot = slots[level][index];
+        if (slot == null) {
+            slot = new Slot<>();
+            slots[level][index] = slot;
+        }
+        slot.link(entry);
+    }
+
+    private void drainOverdue(Collection<? super E> due) {
+        Entry<E> entry;
+        while ((entry = overdue.poll()) != null) {
+            due.add(entry.element);
+            size--;
+        }
+    }
+
+    /**
+     * An element held in the wheel, linked into the slot it is currently placed in.
+     *
+     * @param <E> The type of element held in the wheel.
+     */
+    static final class Entry<E> {
+        private final long deadline;
+        private final E element;
+        private Slot<E> slot;
+        private Entry<E> previous;
+        private Entry<E> next;
+
+        private Entry(long deadline, E element) {
+            this.deadline = deadline;
+            this.element = element;
+        }
+    }
+
+    /**
+     * The entries placed in a slot, as a doubly linked list so that any of them can be unlinked in O(1).
+     */
+    private static final class Slot<E> {
+        private Entry<E> first;
+        private Entry<E> last;
+
+        boolean isEmpty() {
+            return first == null;
+        }
+
+        void link(Entry<E> entry) {
+            entry.slot = this;
+            entry.previous = last;
+            entry.next = null;
+            if (last == null) {
+                first = entry;
+            } else {
+                last.next = entry;
+            }
+            last = entry;
+        }
+
+        void unlink(Entry<E> entry) {
+            if (entry.previous == null) {
+                first = entry.next;
+            } else {
+                entry.previous.next = entry.next;
+            }
+            if (entry.next == null) {
+                last = entry.previous;
+            } else {
+                entry.next.previous = entry.previous;
+            }
+            entry.slot = null;
+            entry.previous = null;
+            entry.next = null;
+        }
+
+        Entry<E> poll() {
+            Entry<E> entry = first;
+            if (entry != null) {
+                unlink(entry);
+            }
+            return entry;
+        }
+
+        void drainTo(Collection<Entry<E>> entries) {
+            Entry<E> entry;
+            while ((entry = poll()) != null) {
+                entries.add(entry);
+            }
+        }
+    }
+}
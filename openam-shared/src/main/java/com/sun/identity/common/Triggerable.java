@@ -21,6 +21,7 @@
  * with the fields enclosed by brackets [] replaced by
  * your own identifying information:
  * "Portions Copyrighted [year] [name of copyright owner]"
+ * Portions Copyright 2026 Wren Security.
  *
  * $Id: Triggerable.java,v 1.2 2008/06/25 05:52:52 qcheng Exp $
  *
@@ -46,4 +47,14 @@ public interface Triggerable {
      */
     
     public void trigger(Date time);
+    
+    /**
+     * The function to be run when a task is removed from the HeadTaskRunnable
+     * before it has been run.
+     *
+     * @param time The time the HeadTaskRunnable scheduled
+     */
+    
+    default void cancelled(Date time) {
+    }
 } 
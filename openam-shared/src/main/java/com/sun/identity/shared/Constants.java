@@ -25,6 +25,7 @@
  * $Id: Constants.java,v 1.47 2009/08/12 23:10:44 ericow Exp $
  *
  * Portions Copyrighted 2010-2016 ForgeRock AS.
+ * Portions Copyright 2026 Wren Security.
  */
 package com.sun.identity.shared;
 
@@ -380,6 +381,30 @@ public interface Constants {
     static final String SERVICES_COMM_SERVER_PLLREQUEST_MAX_CONTENT_LENGTH =
             "com.iplanet.services.comm.server.pllrequest.maxContentLength";
 
+    /**
+     * Property string to enable pipelining of concurrent PLL requests to the same server and service.
+     */
+    static final String SERVICES_COMM_CLIENT_PIPELINING_ENABLED =
+            "com.iplanet.services.comm.client.pipelining.enabled";
+
+    /**
+     * Property string for the maximum number of concurrent PLL exchanges with each server when pipelining.
+     */
+    static final String SERVICES_COMM_CLIENT_PIPELINING_MAX_CONNECTIONS =
+            "com.iplanet.services.comm.client.pipelining.maxConnections";
+
+    /**
+     * Property string for the maximum number of PLL requests sent in one exchange when pipelining.
+     */
+    static final String SERVICES_COMM_CLIENT_PIPELINING_MAX_BATCH_SIZE =
+            "com.iplanet.services.comm.client.pipelining.maxBatchSize";
+
+    /**
+     * Property string to enable negotiation of the compact binary PLL encoding.
+     */
+    static final String SERVICES_COMM_CLIENT_COMPACT_ENCODING_ENABLED =
+            "com.iplanet.services.comm.client.compactEncoding.enabled";
+
     /**
      * Property string for encrypting class implementation.
      */
@@ -0,0 +1,114 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.utils.collections;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Consumer;
+
+/**
+ * Chooses an entry to evict from a bounded concurrent map by sampling.
+ * <p>
+ * Keeping an exact eviction order, such as a least recently used list, makes every read of the map update a shared
+ * structure. Instead a few entries are taken from random positions in the map, and the one which comes first in
+ * eviction order is chosen. Each position is found by splitting the map's spliterator at random until the remaining
+ * range is expected to hold a single entry. Every region of the map is therefore equally likely to be sampled, and
+ * taking a sample costs time logarithmic in the size of the map rather than a walk over its entries. A map which
+ * holds no more entries than the sample size is inspected in full.
+ */
+public final class SampledEviction {
+
+    /** Number of empty ranges tolerated per sampled entry, as removals can leave the map's table sparse. */
+    private static final int MAX_ATTEMPTS_PER_SAMPLE = 4;
+
+    private SampledEviction() {
+    }
+
+    /**
+     * Chooses the entry to evict out of a random sample of the map's entries.
+     *
+     * @param map The map to sample, typically a {@link java.util.concurrent.ConcurrentHashMap}.
+     * @param sampleSize The number of entries to sample.
+     * @param evictionOrder Orders values so that the value to evict first comes first.
+     * @param <K> The type of keys.
+     * @param <V> The type of values.
+     * @return The sampled entry which comes first in eviction order, or {@code null} if the map is empty.
+     */
+    public static <K, V> Map.Entry<K, V> chooseVictim(ConcurrentMap<K, V> map, int sampleSize,
+            Comparator<? super V> evictionOrder) {
+        Random random = ThreadLocalRandom.current();
+        Candidate<K, V> candidate = new Candidate<>(evictionOrder);
+        if (map.size() <= sampleSize) {
+            map.entrySet().forEach(candidate);
+            return candidate.getEntry();
+        }
+        for (int attempts = 0; candidate.sampled < sampleSize && attempts < sampleSize * MAX_ATTEMPTS_PER_SAMPLE;
+                attempts++) {
+            randomRange(map.entrySet().spliterator(), random).tryAdvance(candidate);
+        }
+        if (candidate.key == null) {
+            // every sampled range was empty, so take the first entry rather than evict nothing
+            map.entrySet().spliterator().tryAdvance(candidate);
+        }
+        return candidate.getEntry();
+    }
+
+    private static <T> Spliterator<T> randomRange(Spliterator<T> range, Random random) {
+        while (range.estimateSize() > 1) {
+            Spliterator<T> prefix = range.trySplit();
+            if (prefix == null) {
+                break;
+            }
+            if (random.nextBoolean()) {
+                range = prefix;
+            }
+        }
+        return range;
+    }
+
+    /**
+     * Tracks the sampled entry which comes first in eviction order.
+     */
+    private static final class Candidate<K, V> implements Consumer<Map.Entry<K, V>> {
+        private final Comparator<? super V> evictionOrder;
+        private K key;
+        private V value;
+        private int sampled;
+
+        private Candidate(Comparator<? super V> evictionOrder) {
+            this.evictionOrder = evictionOrder;
+        }
+
+        @Override
+        public void accept(Map.Entry<K, V> entry) {
+            V sample = entry.getValue();
+            if (key == null || evictionOrder.compare(sample, value) < 0) {
+                key = entry.getKey();
+                value = sample;
+            }
+            sampled++;
+        }
+
+        private Map.Entry<K, V> getEntry() {
+            return key == null ? null : new SimpleImmutableEntry<>(key, value);
+        }
+    }
+}
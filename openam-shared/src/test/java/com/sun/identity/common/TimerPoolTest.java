@@ -0,0 +1,226 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.common;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.lang.management.ManagementFactory;
+import java.util.Date;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+public class TimerPoolTest {
+
+    private TimerPool timerPool;
+
+    @BeforeMethod
+    public void setUp() {
+        timerPool = new TimerPool("TimerPoolTest", 2, true, null);
+    }
+
+    @AfterMethod
+    public void tearDown() {
+        timerPool.shutdown();
+    }
+
+    @Test
+    public void shouldRunTaskAfterDelay() throws Exception {
+        // Given
+        CountingTask task = new CountingTask(-1, 1);
+        long start = System.currentTimeMillis();
+
+        // When
+        timerPool.schedule(task, 50);
+
+        // Then
+        assertThat(task.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(50);
+        assertThat(timerPool.getPendingTaskCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRunTasksScheduledForTheSameTime() throws Exception {
+        // Given
+        CountingTask first = new CountingTask(-1, 1);
+        CountingTask second = new CountingTask(-1, 1);
+
+        // When
+        timerPool.schedule(first, 20);
+        timerPool.schedule(second, new Date(first.scheduledExecutionTime()));
+
+        // Then
+        assertThat(first.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(second.latch.await(5, TimeUnit.SECONDS)).isTrue();
+    }
+
+    @Test
+    public void shouldNotRunCancelledTask() throws Exception {
+        // Given
+        CountingTask cancelled = new CountingTask(-1, 1);
+        CountingTask marker = new CountingTask(-1, 1);
+        timerPool.schedule(cancelled, 20);
+        timerPool.schedule(marker, 40);
+
+        // When
+        cancelled.cancel();
+
+        // Then
+        assertThat(marker.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(cancelled.runs.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldCountEveryPendingTask() throws Exception {
+        // Given
+        CountingTask first = new CountingTask(-1, 1);
+        CountingTask second = new CountingTask(-1, 1);
+        CountingTask later = new CountingTask(-1, 1);
+        timerPool.schedule(first, 60000);
+        timerPool.schedule(second, new Date(first.scheduledExecutionTime()));
+        timerPool.schedule(later, 120000);
+
+        // When
+        int pending = timerPool.getPendingTaskCount();
+        second.cancel();
+
+        // Then
+        assertThat(pending).isEqualTo(3);
+        assertThat(timerPool.getPendingTaskCount()).isEqualTo(2);
+    }
+
+    @Test
+    public void shouldKeepLargestDispatchLag() throws Exception {
+        // Given
+        CountingTask task = new CountingTask(-1, 1);
+
+        // When
+        timerPool.schedule(task, new Date(System.currentTimeMillis() - 1000));
+
+        // Then
+        assertThat(task.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(timerPool.getMaxDispatchLag()).isGreaterThanOrEqualTo(1000);
+        assertThat(timerPool.getMaxDispatchLag()).isGreaterThanOrEqualTo(timerPool.getDispatchLag());
+    }
+
+    @Test
+    public void shouldCountTasksOnceRunOrCancelled() throws Exception {
+        // Given
+        CountingTask run = new CountingTask(-1, 1);
+        CountingTask cancelled = new CountingTask(-1, 1);
+        timerPool.schedule(run, 10);
+        timerPool.schedule(cancelled, 60000);
+
+        // When
+        cancelled.cancel();
+
+        // Then
+        assertThat(run.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(timerPool.getPendingTaskCount()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldRunTaskScheduledEarlierThanTheNextSlot() throws Exception {
+        // Given
+        CountingTask later = new CountingTask(-1, 1);
+        CountingTask sooner = new CountingTask(-1, 1);
+        timerPool.schedule(later, 60000);
+        Thread.sleep(50);
+
+        // When
+        timerPool.schedule(sooner, 20);
+
+        // Then
+        assertThat(sooner.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(later.runs.get()).isEqualTo(0);
+    }
+
+    @Test
+    public void shouldPublishStatisticsAsMBean() throws Exception {
+        // Given
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName objectName = new ObjectName("OpenAM:type=TimerPool,name=" + ObjectName.quote("TimerPoolTest"));
+        timerPool.schedule(new CountingTask(-1, 1), 60000);
+
+        // When
+        Object pending = server.getAttribute(objectName, "PendingTaskCount");
+        timerPool.shutdown();
+
+        // Then
+        assertThat(pending).isEqualTo(1);
+        assertThat(server.isRegistered(objectName)).isFalse();
+    }
+
+    @Test
+    public void shouldReschedulePeriodicTask() throws Exception {
+        // Given
+        CountingTask task = new CountingTask(20, 3);
+
+        // When
+        timerPool.schedule(task, 10);
+
+        // Then
+        assertThat(task.latch.await(5, TimeUnit.SECONDS)).isTrue();
+        task.cancel();
+        assertThat(task.runs.get()).isGreaterThanOrEqualTo(3);
+    }
+
+    private static final class CountingTask extends GeneralTaskRunnable {
+
+        private final long runPeriod;
+        private final CountDownLatch latch;
+        private final AtomicInteger runs = new AtomicInteger();
+
+        private CountingTask(long runPeriod, int expectedRuns) {
+            this.runPeriod = runPeriod;
+            this.latch = new CountDownLatch(expectedRuns);
+        }
+
+        @Override
+        public boolean addElement(Object key) {
+            return false;
+        }
+
+        @Override
+        public boolean removeElement(Object key) {
+            return false;
+        }
+
+        @Override
+        public boolean isEmpty() {
+            return true;
+        }
+
+        @Override
+        public long getRunPeriod() {
+            return runPeriod;
+        }
+
+        @Override
+        public void run() {
+            runs.incrementAndGet();
+            latch.countDown();
+        }
+    }
+}
@@ -0,0 +1,164 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+
+package com.sun.identity.common;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.testng.annotations.Test;
+
+public class TimingWheelTest {
+
+    @Test
+    public void shouldReturnElementsOnceTheirDeadlineIsReached() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(3, 4, 100);
+        wheel.add(105, "soon");
+        wheel.add(140, "later");
+        List<String> due = new ArrayList<>();
+
+        // When
+        wheel.advance(104, due);
+        List<String> early = new ArrayList<>(due);
+        wheel.advance(105, due);
+
+        // Then
+        assertThat(early).isEmpty();
+        assertThat(due).containsExactly("soon");
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldCascadeElementsFromHigherLevels() {
+        // Given
+        TimingWheel<Long> wheel = new TimingWheel<>(3, 4, 0);
+        long[] deadlines = {3, 17, 255, 256, 1000, 4095, 5000, 70000};
+        for (long deadline : deadlines) {
+            wheel.add(deadline, deadline);
+        }
+        List<Long> due = new ArrayList<>();
+
+        // When
+        for (long tick = 1; tick <= 70000; tick++) {
+            int before = due.size();
+            wheel.advance(tick, due);
+
+            // Then
+            for (Long deadline : due.subList(before, due.size())) {
+                assertThat(deadline).isEqualTo(tick);
+            }
+        }
+        assertThat(due).hasSize(deadlines.length);
+        assertThat(wheel.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldReturnOverdueElementsOnNextAdvance() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(2, 4, 100);
+        wheel.add(50, "overdue");
+        List<String> due = new ArrayList<>();
+
+        // When
+        wheel.advance(100, due);
+
+        // Then
+        assertThat(due).containsExactly("overdue");
+    }
+
+    @Test
+    public void shouldNotReturnRemovedElements() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(2, 4, 0);
+        TimingWheel.Entry<String> removed = wheel.add(5, "removed");
+        wheel.add(5, "kept");
+        List<String> due = new ArrayList<>();
+
+        // When
+        boolean first = wheel.remove(removed);
+        boolean second = wheel.remove(removed);
+        wheel.advance(5, due);
+
+        // Then
+        assertThat(first).isTrue();
+        assertThat(second).isFalse();
+        assertThat(due).containsExactly("kept");
+        assertThat(wheel.isEmpty()).isTrue();
+    }
+
+    @Test
+    public void shouldReturnNextTickOfOccupiedSlot() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(3, 4, 100);
+
+        // When
+        long empty = wheel.nextTick();
+        wheel.add(107, "soon");
+        long soon = wheel.nextTick();
+        wheel.add(50, "overdue");
+        long overdue = wheel.nextTick();
+
+        // Then
+        assertThat(empty).isEqualTo(Long.MAX_VALUE);
+        assertThat(soon).isEqualTo(107);
+        assertThat(overdue).isEqualTo(100);
+    }
+
+    @Test
+    public void shouldNeverAdvancePastDueElementsWhenSkippingToNextTick() {
+        // Given
+        TimingWheel<Long> wheel = new TimingWheel<>(3, 4, 0);
+        long[] deadlines = {3, 17, 255, 256, 1000, 4095, 5000, 70000};
+        for (long deadline : deadlines) {
+            wheel.add(deadline, deadline);
+        }
+        List<Long> due = new ArrayList<>();
+
+        // When
+        while (!wheel.isEmpty()) {
+            long tick = wheel.nextTick();
+            int before = due.size();
+            wheel.advance(tick, due);
+
+            // Then
+            for (Long deadline : due.subList(before, due.size())) {
+                assertThat(deadline).isEqualTo(tick);
+            }
+        }
+        assertThat(due).containsExactly(3L, 17L, 255L, 256L, 1000L, 4095L, 5000L, 70000L);
+    }
+
+    @Test
+    public void shouldRebuildWhenAdvancingFarAhead() {
+        // Given
+        TimingWheel<String> wheel = new TimingWheel<>(2, 4, 0);
+        wheel.add(10, "first");
+        wheel.add(1000000, "second");
+        wheel.add(3000000, "third");
+        List<String> due = new ArrayList<>();
+
+        // When
+        wheel.advance(2000000, due);
+
+        // Then
+        assertThat(due).containsOnly("first", "second");
+        assertThat(wheel.currentTick()).isEqualTo(2000000);
+        assertThat(wheel.size()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * The contents of this file are subject to the terms of the Common Development and
+ * Distribution License (the License). You may not use this file except in compliance with the
+ * License.
+ *
+ * You can obtain a copy of the License at legal/CDDLv1.0.txt. See the License for the
+ * specific language governing permission and limitations under the License.
+ *
+ * When distributing Covered Software, include this CDDL Header Notice in each file and include
+ * the License file at legal/CDDLv1.0.txt. If applicable, add the following below the CDDL
+ * Header, with the fields enclosed by brackets [] replaced by your own identifying
+ * information: "Portions copyright [year] [name of copyright owner]".
+ *
+ * Copyright 2026 Wren Security.
+ */
+package org.forgerock.openam.utils.collections;
+
+import static org.fest.assertions.Assertions.assertThat;
+
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.testng.annotations.Test;
+
+public class SampledEvictionTest {
+
+    @Test
+    public void shouldReturnNullForEmptyMap() {
+        assertThat(SampledEviction.chooseVictim(new ConcurrentHashMap<String, Integer>(), 8,
+                Comparator.<Integer>naturalOrder())).isNull();
+    }
+
+    @Test
+    public void shouldChooseOnlyEntry() {
+        // Given
+        ConcurrentMap<String, Integer> map = new ConcurrentHashMap<>();
+        map.put("badger", 1);
+
+        // When
+        Map.Entry<String, Integer> victim = SampledEviction.chooseVictim(map, 8, Comparator.<Integer>naturalOrder());
+
+        // Then
+        assertThat(victim.getKey()).isEqualTo("badger");
+        assertThat(victim.getValue()).isEqualTo(1);
+    }
+
+    @Test
+    public void shouldSampleFromTheWholeMap() {
+        // Given
+        ConcurrentMap<Integer, Integer> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, i);
+        }
+        Set<Integer> victims = new HashSet<>();
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            victims.add(SampledEviction.chooseVictim(map, 1, Comparator.<Integer>naturalOrder()).getKey());
+        }
+
+        // Then
+        assertThat(victims.size()).isGreaterThan(500);
+    }
+
+    @Test
+    public void shouldPreferEntriesFirstInEvictionOrder() {
+        // Given
+        ConcurrentMap<Integer, Integer> map = new ConcurrentHashMap<>();
+        for (int i = 0; i < 10000; i++) {
+            map.put(i, i);
+        }
+        long total = 0;
+
+        // When
+        for (int i = 0; i < 1000; i++) {
+            total += SampledEviction.chooseVictim(map, 8, Comparator.<Integer>naturalOrder()).getValue();
+        }
+
+        // Then the mean of the lowest of eight uniform samples is around a ninth of the range
+        assertThat(total / 1000).isLessThan(2500);
+    }
+}